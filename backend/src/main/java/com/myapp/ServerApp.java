@@ -5,6 +5,7 @@ import com.myapp.auth.AuthRepository; // ریپازیتوری احراز هوی
 import com.myapp.auth.AuthService;    // سرویس منطق احراز هویت
 import com.myapp.auth.AuthResult;     // مدل نتیجه عملیات احراز هویت
 import com.myapp.auth.AuthMiddleware; // میدلور امنیتی برای بررسی توکن
+import com.myapp.auth.dto.LoginRequest; // DTO درخواست ورود
 // --- ایمپورت‌های مربوط به رستوران ---
 import com.myapp.restaurant.RestaurantRepository; // ریپازیتوری رستوران
 import com.myapp.restaurant.RestaurantController; // کنترلر رستوران
@@ -21,6 +22,7 @@ import com.myapp.payment.PaymentController; // کنترلر پرداخت
 import com.myapp.payment.WalletController;  // کنترلر کیف پول
 import com.myapp.payment.WalletService;     // سرویس کیف پول
 import com.myapp.payment.TransactionController; // کنترلر تراکنش
+import com.myapp.payment.WalletBalanceReconciler; // تطبیق موجودی کیف پول
 // --- ایمپورت‌های مربوط به پیک ---
 import com.myapp.courier.DeliveryRepository; // ریپازیتوری پیک
 import com.myapp.courier.DeliveryController; // کنترلر پیک
@@ -40,11 +42,18 @@ import com.myapp.notification.NotificationController; // کنترلر اعلان
 // --- ایمپورت‌های مربوط به Analytics و Business Intelligence ---
 import com.myapp.analytics.AnalyticsService;         // سرویس تحلیل داده‌ها
 import com.myapp.analytics.AnalyticsController;      // کنترلر Analytics
+import com.myapp.analytics.dashboard.DashboardMetricsEngine; // موتور متریک‌های داشبورد
+import com.myapp.analytics.models.ETLResult;         // نتیجه فرآیند ETL
 // --- ابزارهای کمکی و مدل‌ها ---
 import com.myapp.common.utils.DatabaseUtil; // ابزار اتصال به دیتابیس
 import com.myapp.common.utils.PasswordUtil; // ابزار رمزنگاری
+import com.myapp.common.utils.PerformanceUtil; // کش و آمار عملکرد
+import com.myapp.common.utils.AdvancedOptimizer; // تنظیم تطبیقی عملکرد
+import com.myapp.common.scheduler.MaintenanceScheduler; // زمان‌بند job های نگهداری
 import com.myapp.common.models.User;        // مدل کاربر
 import com.myapp.common.constants.ApplicationConstants; // ثابت‌های برنامه
+import com.myapp.common.exceptions.InvalidRequestException; // خطای بدنه درخواست
+import com.myapp.common.utils.JsonUtil; // تبدیل JSON
 // --- ابزارهای جکسون برای JSON ---
 import com.fasterxml.jackson.databind.ObjectMapper; // مبدل JSON
 import com.fasterxml.jackson.databind.JsonNode;     // نود جکسون
@@ -56,7 +65,15 @@ import com.sun.net.httpserver.HttpExchange; // تبادل HTTP
 import java.io.IOException;                 // مدیریت خطاهای IO
 import java.io.OutputStream;                // خروجی داده
 import java.net.InetSocketAddress;          // آدرس شبکه
-import java.util.concurrent.Executors;      // مدیریت Thread Pool
+// --- محیط اجرای سرور HTTP ---
+import com.myapp.common.http.ServerRuntime; // انتخاب Executor و کنترل پذیرش درخواست‌ها
+import com.myapp.common.http.SseHandler;    // رویدادهای لحظه‌ای (Server-Sent Events)
+import com.myapp.common.http.RequestBodyDecoder; // خواندن جریانی بدنه درخواست
+import com.myapp.common.http.MetricsHandler;     // endpoint متریک‌های Prometheus
+import com.myapp.common.metrics.MetricsRegistry;  // رجیستری متریک‌ها
+import com.myapp.common.metrics.HibernateMetrics; // آمار Hibernate و HikariCP
+import com.myapp.common.cache.CacheService;       // کش دو لایه و کانال invalidation
+import com.myapp.common.search.CatalogSearchIndex; // ایندکس جستجوی کاتالوگ
 
 /**
  * کلاس اصلی سرور پروژه سیستم سفارش غذا
@@ -79,6 +96,11 @@ public class ServerApp {
     private static FavoritesController favoritesController;    // کنترلر علاقه‌مندی‌ها
     private static NotificationController notificationController; // کنترلر اعلان‌ها
     private static AnalyticsController analyticsController;     // کنترلر Analytics و BI
+    private static ServerRuntime serverRuntime;                 // محیط اجرای Executor سرور
+    private static WalletBalanceReconciler walletReconciler;    // تطبیق دوره‌ای موجودی کیف پول‌ها
+    private static DashboardMetricsEngine dashboardEngine;      // refresh دوره‌ای snapshot داشبورد
+    private static MaintenanceScheduler maintenanceScheduler;   // زمان‌بند job های نگهداری
+    private static SseHandler eventStreamHandler;                // اتصال‌های SSE کاربران
     
     /**
      * متد اصلی main که نقطه شروع برنامه است
@@ -144,37 +166,64 @@ public class ServerApp {
             return; // خروج از برنامه در صورت عدم اتصال به دیتابیس
         }
         
+        // مرحله 7.5: همگام‌سازی ایندکس جستجوی کاتالوگ با سایر node ها (کانال invalidation کش)
+        CatalogSearchIndex.getInstance().enableClusterSync(CacheService.getInstance());
+        
         // مرحله 8: ایجاد سرور HTTP روی پورت پیکربندی شده
         int serverPort = Integer.parseInt(System.getProperty("server.port", "8081"));
         HttpServer server = HttpServer.create(new InetSocketAddress(serverPort), 0);
+        serverRuntime = ServerRuntime.fromSystemProperties(); // حالت Executor از System Property ها
         
         // مرحله 9: اضافه کردن endpoint های اصلی (Authentication & Health)
-        server.createContext("/api/test", new TestHandler());              // endpoint تست
-        server.createContext("/api/auth/register", new RegisterHandler()); // ثبت نام کاربران
-        server.createContext("/api/auth/login", new LoginHandler());       // ورود کاربران
-        server.createContext("/api/auth/refresh", new RefreshTokenHandler()); // تجدید token
-        server.createContext("/api/auth/validate", new ValidateTokenHandler()); // اعتبارسنجی token
-        server.createContext("/api/auth/logout", new LogoutHandler());     // خروج کاربران
-        server.createContext("/health", new HealthHandler());              // بررسی سلامت سرور
+        serverRuntime.bind(server.createContext("/api/test", new TestHandler()));              // endpoint تست
+        serverRuntime.bind(server.createContext("/api/auth/register", new RegisterHandler())); // ثبت نام کاربران
+        serverRuntime.bind(server.createContext("/api/auth/login", new LoginHandler()));       // ورود کاربران
+        serverRuntime.bind(server.createContext("/api/auth/refresh", new RefreshTokenHandler())); // تجدید token
+        serverRuntime.bind(server.createContext("/api/auth/validate", new ValidateTokenHandler())); // اعتبارسنجی token
+        serverRuntime.bind(server.createContext("/api/auth/logout", new LogoutHandler()));     // خروج کاربران
+        serverRuntime.bind(server.createContext("/health", new HealthHandler()));              // بررسی سلامت سرور
+        
+        // مرحله 9.5: متریک‌های Prometheus (تأخیر هر route، Executor، Hikari، Hibernate و کش)
+        MetricsRegistry metrics = MetricsRegistry.global();
+        metrics.register("executor", serverRuntime::collectMetrics);
+        metrics.register("hibernate", new HibernateMetrics(DatabaseUtil::getSessionFactory));
+        serverRuntime.bind(server.createContext("/metrics", new MetricsHandler(metrics)));     // scrape توسط Prometheus
         
         // مرحله 10: اضافه کردن endpoint های کنترلرها (Business Logic)
-        server.createContext("/api/admin/", adminController);              // endpoint های پنل مدیریت
-        server.createContext("/api/restaurants", restaurantController);   // endpoint های رستوران‌ها
-        server.createContext("/api/orders/", orderController);             // endpoint های سفارشات
-        server.createContext("/api/payments/", paymentController);         // endpoint های پرداخت
-        server.createContext("/api/wallet/", walletController);            // endpoint های کیف پول
-        server.createContext("/api/transactions/", transactionController); // endpoint های تراکنش‌ها
-        server.createContext("/api/deliveries/", deliveryController);      // endpoint های تحویل
-        server.createContext("/api/items", itemController);               // endpoint های آیتم‌ها
-        server.createContext("/api/menu/", menuController);                // endpoint های منو
-        server.createContext("/api/vendors/", vendorController);           // endpoint های فروشندگان
-        server.createContext("/api/favorites/", favoritesController);      // endpoint های علاقه‌مندی‌ها
-        server.createContext("/api/notifications/", notificationController); // endpoint های اعلان‌ها
-        server.createContext("/api/notification/", notificationController);  // endpoint جایگزین اعلان‌ها
-        server.createContext("/api/analytics/", analyticsController);       // endpoint های Analytics و BI
-        
-        // مرحله 11: تنظیم Thread Pool برای پردازش همزمان درخواست‌ها
-        server.setExecutor(Executors.newFixedThreadPool(10)); // حداکثر 10 thread همزمان
+        serverRuntime.bind(server.createContext("/api/admin/", adminController));              // endpoint های پنل مدیریت
+        serverRuntime.bind(server.createContext("/api/restaurants", restaurantController));   // endpoint های رستوران‌ها
+        serverRuntime.bind(server.createContext("/api/orders/", orderController));             // endpoint های سفارشات
+        serverRuntime.bind(server.createContext("/api/payments/", paymentController));         // endpoint های پرداخت
+        serverRuntime.bind(server.createContext("/api/wallet/", walletController));            // endpoint های کیف پول
+        serverRuntime.bind(server.createContext("/api/transactions/", transactionController)); // endpoint های تراکنش‌ها
+        serverRuntime.bind(server.createContext("/api/deliveries/", deliveryController));      // endpoint های تحویل
+        serverRuntime.bind(server.createContext("/api/items", itemController));               // endpoint های آیتم‌ها
+        serverRuntime.bind(server.createContext("/api/menu/", menuController));                // endpoint های منو
+        serverRuntime.bind(server.createContext("/api/vendors/", vendorController));           // endpoint های فروشندگان
+        serverRuntime.bind(server.createContext("/api/favorites/", favoritesController));      // endpoint های علاقه‌مندی‌ها
+        serverRuntime.bind(server.createContext("/api/notifications/", notificationController)); // endpoint های اعلان‌ها
+        serverRuntime.bind(server.createContext("/api/notification/", notificationController));  // endpoint جایگزین اعلان‌ها
+        serverRuntime.bind(server.createContext("/api/analytics/", analyticsController));       // endpoint های Analytics و BI
+        eventStreamHandler = SseHandler.fromSystemProperties();
+        serverRuntime.bind(server.createContext("/api/events", eventStreamHandler));            // رویدادهای لحظه‌ای سفارش و اعلان (SSE)
+        
+        // مرحله 11: تنظیم Executor برای پردازش همزمان درخواست‌ها
+        // (virtual / bounded / work-stealing با صف محدود و پاسخ 503 در زمان اشباع)
+        serverRuntime.install(server);
+        
+        // مرحله 11.5: تطبیق دوره‌ای موجودی کیف پول‌ها با دفتر تراکنش‌ها
+        walletReconciler = new WalletBalanceReconciler(paymentRepo);
+        walletReconciler.startFromSystemProperties();
+        
+        // مرحله 11.6: refresh دوره‌ای snapshot داشبورد analytics
+        dashboardEngine = analyticsService.getDashboardEngine();
+        dashboardEngine.startFromSystemProperties();
+        
+        // مرحله 11.7: زمان‌بندی job های نگهداری (اعلان‌ها، ETL، کش)
+        maintenanceScheduler = createMaintenanceScheduler(notificationService, analyticsService);
+        if (Boolean.parseBoolean(System.getProperty("scheduler.enabled", "true"))) {
+            maintenanceScheduler.start(Integer.getInteger("scheduler.threads", 2));
+        }
         
         // مرحله 12: شروع سرور و نمایش اطلاعات
         server.start();
@@ -183,6 +232,7 @@ public class ServerApp {
         
         // نمایش لیست تمام endpoint های موجود برای راهنمایی توسعه‌دهندگان
         System.out.println("   GET  /health - Health check");
+        System.out.println("   GET  /metrics - Prometheus metrics");
         System.out.println("   GET  /api/test - Simple test");
         System.out.println("   POST /api/auth/register - User registration");
         System.out.println("   POST /api/auth/login - User login (with JWT tokens)");
@@ -256,6 +306,7 @@ public class ServerApp {
         System.out.println("   POST /api/notifications/ - Create notification");
         System.out.println("   PUT  /api/notification/{id}/read - Mark as read");
         System.out.println("   DELETE /api/notification/{id} - Delete notification");
+        System.out.println("   GET  /api/events - Live order/delivery/notification events (SSE)");
         
         // نمایش endpoint های Analytics و Business Intelligence (10+ endpoint)
         System.out.println("   📊 Analytics & Business Intelligence (10+ endpoints):");
@@ -271,12 +322,68 @@ public class ServerApp {
         // مرحله 13: تنظیم Graceful Shutdown برای خاموش کردن صحیح سرور
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("🛑 Shutting down server...");
+            eventStreamHandler.shutdown(); // بستن اتصال‌های SSE باز
             server.stop(2); // توقف سرور با 2 ثانیه انتظار
+            serverRuntime.shutdown(2); // توقف worker های پردازش درخواست
+            walletReconciler.stop(); // توقف تطبیق موجودی کیف پول
+            dashboardEngine.stop(); // توقف refresh داشبورد
+            maintenanceScheduler.stop(); // توقف job های نگهداری
             DatabaseUtil.shutdown(); // بستن اتصالات پایگاه داده
             System.out.println("✅ Server stopped gracefully");
         }));
     }
     
+    /**
+     * تعریف job های نگهداری
+     *
+     * زمان‌بندی هر job با System Property قابل تغییر است. پاک‌سازی اعلان‌ها و
+     * ETL بین نودها یکتا اجرا می‌شوند؛ کش و تنظیم تطبیقی وضعیت همان نود هستند
+     * و روی همه نودها اجرا می‌شوند.
+     */
+    private static MaintenanceScheduler createMaintenanceScheduler(NotificationService notificationService,
+                                                                   AnalyticsService analyticsService) {
+        long jitter = Long.getLong("scheduler.jitter.millis", 30_000L);
+        MaintenanceScheduler scheduler = new MaintenanceScheduler();
+        scheduler.register(MaintenanceScheduler.JobDefinition.clustered(
+                "notification-maintenance",
+                System.getProperty("scheduler.notifications.cron", "30 3 * * *"),
+                600_000L,
+                notificationService::runDailyMaintenance)
+            .withJitter(jitter));
+        scheduler.register(MaintenanceScheduler.JobDefinition.clustered(
+                "notification-broadcast-resume",
+                System.getProperty("scheduler.broadcasts.cron", "*/5 * * * *"),
+                600_000L,
+                notificationService::resumeUnfinishedBroadcasts));
+        scheduler.register(MaintenanceScheduler.JobDefinition.clustered(
+                "analytics-etl",
+                System.getProperty("scheduler.etl.cron", "15 * * * *"),
+                600_000L,
+                () -> {
+                    ETLResult result = analyticsService.executeETLProcess().join();
+                    if ("FAILED".equals(result.getStatus())) {
+                        throw new IllegalStateException(result.getErrorMessage());
+                    }
+                    return 1;
+                })
+            .withJitter(jitter));
+        scheduler.register(MaintenanceScheduler.JobDefinition.local(
+                "cache-cleanup",
+                System.getProperty("scheduler.cache.cron", "*/5 * * * *"),
+                () -> {
+                    PerformanceUtil.cleanExpiredEntries();
+                    return 0;
+                }));
+        scheduler.register(MaintenanceScheduler.JobDefinition.local(
+                "adaptive-tuning",
+                System.getProperty("scheduler.tuning.cron", "*/10 * * * *"),
+                () -> {
+                    AdvancedOptimizer.adaptiveTuning();
+                    return 0;
+                }));
+        return scheduler;
+    }
+    
     /**
      * کلاس Handler برای بررسی سلامت سرور (/health)
      * این endpoint برای monitoring و health check سرور استفاده می‌شود
@@ -296,7 +403,8 @@ public class ServerApp {
      * <pre>
      * {
      *   "status": "UP",
-     *   "service": "food-ordering-backend"
+     *   "service": "food-ordering-backend",
+     *   "executor": { "mode": "BOUNDED", "queueDepth": 0, "inFlight": 1, ... }
      * }
      * </pre>
      * 
@@ -306,6 +414,9 @@ public class ServerApp {
      */
     static class HealthHandler implements HttpHandler {
         
+        /** ObjectMapper برای سریال‌سازی گیج‌های Executor */
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        
         /**
          * پردازش درخواست health check
          * همیشه وضعیت UP برمی‌گرداند مگر اینکه سرور خراب باشد
@@ -315,8 +426,19 @@ public class ServerApp {
          */
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            // پاسخ JSON ساده برای نشان دادن سلامت سرور
-            String response = "{\"status\":\"UP\",\"service\":\"food-ordering-backend\"}";
+            // پاسخ JSON ساده برای نشان دادن سلامت سرور به همراه گیج‌های Executor و مسیریابی replica
+            String response = "{\"status\":\"UP\",\"service\":\"food-ordering-backend\"" +
+                            (serverRuntime != null
+                                ? ",\"executor\":" + objectMapper.writeValueAsString(serverRuntime.getStats())
+                                : "") +
+                            ",\"readRouting\":" + objectMapper.writeValueAsString(DatabaseUtil.getReplicaRouter().getStatistics()) +
+                            (maintenanceScheduler != null
+                                ? ",\"maintenance\":" + objectMapper.writeValueAsString(maintenanceScheduler.getStatistics())
+                                : "") +
+                            (eventStreamHandler != null
+                                ? ",\"eventStreams\":" + objectMapper.writeValueAsString(eventStreamHandler.getStats())
+                                : "") +
+                            "}";
             sendResponse(exchange, 200, response);
         }
     }
@@ -502,33 +624,24 @@ public class ServerApp {
      */
     static class LoginHandler implements HttpHandler {
         
-        /**
-         * ObjectMapper برای تبدیل JSON به Java objects و برعکس
-         * استفاده از Jackson library برای پردازش دقیق JSON
-         */
-        private final ObjectMapper objectMapper = new ObjectMapper();
-        
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             // بررسی نوع درخواست - فقط POST قبول می‌شود
             if ("POST".equals(exchange.getRequestMethod())) {
                 try {
-                    // خواندن محتوای درخواست
-                    String requestBody = new String(exchange.getRequestBody().readAllBytes());
+                    // خواندن محتوای درخواست مستقیماً به DTO (parser جریانی با سقف اندازه)
+                    LoginRequest loginRequest = RequestBodyDecoder.global().read(exchange, LoginRequest.class);
                     System.out.println("📥 Login request received");
                     
-                    // تبدیل JSON به JsonNode
-                    JsonNode json = objectMapper.readTree(requestBody);
-                    
                     // اعتبارسنجی فیلدهای ضروری
-                    if (!json.has("phone") || !json.has("password")) {
+                    if (loginRequest.getPhone() == null || loginRequest.getPasswordHash() == null) {
                         sendResponse(exchange, 400, "{\"error\":\"Missing required fields: phone, password\"}");
                         return;
                     }
                     
                     // استخراج اطلاعات ورود
-                    String phone = json.get("phone").asText();        // شماره تلفن
-                    String password = json.get("password").asText();  // رمز عبور
+                    String phone = loginRequest.getPhone();           // شماره تلفن
+                    String password = loginRequest.getPasswordHash(); // رمز عبور
                     
                     // اعتبارسنجی داده‌های دریافتی
                     if (phone.trim().isEmpty() || password.trim().isEmpty()) {
@@ -567,6 +680,9 @@ public class ServerApp {
                 } catch (com.myapp.common.exceptions.InvalidCredentialsException e) {
                     // مدیریت خطای اعتبارات نامعتبر
                     sendResponse(exchange, 401, "{\"error\":\"Invalid phone or password\"}");
+                } catch (InvalidRequestException e) {
+                    // بدنه درخواست نامعتبر (JSON خراب یا بیش از حد بزرگ)
+                    sendResponse(exchange, e.getStatusCode(), JsonUtil.toJson(java.util.Map.of("error", e.getMessage())));
                 } catch (Exception e) {
                     // مدیریت سایر خطاهای احتمالی
                     System.err.println("❌ Login error: " + e.getMessage());
@@ -771,6 +887,9 @@ public class ServerApp {
                         return;
                     }
                     
+                    // لغو token فعلی تا پس از خروج از کش احراز هویت پذیرفته نشود
+                    AuthMiddleware.revokeToken(authResult.getAccessToken());
+                    
                     // پردازش خروج کاربر از سیستم
                     String message = authService.logout(authResult.getUserId());
                     String response = "{\"message\":\"" + message + "\",\"status\":\"success\"}";
@@ -1,13 +1,16 @@
 package com.myapp.admin;
 
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.JsonResponseWriter;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.common.utils.JsonUtil;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +72,9 @@ public class AdminController implements HttpHandler {
     /** سرویس لایه منطق کسب‌وکار مدیریت */
     private final AdminService adminService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده با تزریق AdminService
      * 
@@ -76,6 +82,48 @@ public class AdminController implements HttpHandler {
      */
     public AdminController(AdminService adminService) {
         this.adminService = adminService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای پنل مدیریت در Router
+     */
+    private void registerRoutes() {
+        // داشبورد و آمار
+        router.get("/api/admin/dashboard", (exchange, match) -> getDashboardStatistics(exchange));
+        router.get("/api/admin/statistics/daily", (exchange, match) -> getDailyStatistics(exchange));
+        router.get("/api/admin/statistics/users", (exchange, match) -> getUserStatistics(exchange));
+        router.get("/api/admin/statistics/restaurants", (exchange, match) -> getRestaurantStatistics(exchange));
+        router.get("/api/admin/statistics/orders", (exchange, match) -> getOrderStatistics(exchange));
+        
+        // کاربران
+        router.get("/api/admin/users", (exchange, match) -> getAllUsers(exchange));
+        router.get("/api/admin/users/{userId:long}", (exchange, match) ->
+            getUserById(exchange, match.longParam("userId")));
+        router.put("/api/admin/users/{userId:long}/status", (exchange, match) ->
+            updateUserStatus(exchange, match.longParam("userId")));
+        
+        // رستوران‌ها
+        router.get("/api/admin/restaurants", (exchange, match) -> getAllRestaurants(exchange));
+        router.get("/api/admin/restaurants/{restaurantId:long}", (exchange, match) ->
+            getRestaurantById(exchange, match.longParam("restaurantId")));
+        router.put("/api/admin/restaurants/{restaurantId:long}/status", (exchange, match) ->
+            updateRestaurantStatus(exchange, match.longParam("restaurantId")));
+        
+        // سفارشات
+        router.get("/api/admin/orders", (exchange, match) -> getAllOrders(exchange));
+        router.get("/api/admin/orders/{orderId:long}", (exchange, match) ->
+            getOrderById(exchange, match.longParam("orderId")));
+        router.put("/api/admin/orders/{orderId:long}/status", (exchange, match) ->
+            updateOrderStatus(exchange, match.longParam("orderId")));
+        
+        // تراکنش‌ها و تحویل‌ها
+        router.get("/api/admin/transactions", (exchange, match) -> getAllTransactions(exchange));
+        router.get("/api/admin/transactions/{transactionId:long}", (exchange, match) ->
+            getTransactionById(exchange, match.longParam("transactionId")));
+        router.get("/api/admin/deliveries", (exchange, match) -> getAllDeliveries(exchange));
+        router.get("/api/admin/deliveries/{deliveryId:long}", (exchange, match) ->
+            getDeliveryById(exchange, match.longParam("deliveryId")));
     }
     
     @Override
@@ -84,53 +132,20 @@ public class AdminController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی درخواست‌ها بر اساس path و method
-            if (path.equals("/api/admin/dashboard") && "GET".equals(method)) {
-                getDashboardStatistics(exchange);
-            } else if (path.equals("/api/admin/users") && "GET".equals(method)) {
-                getAllUsers(exchange);
-            } else if (path.matches("/api/admin/users/\\d+") && "GET".equals(method)) {
-                getUserById(exchange);
-            } else if (path.matches("/api/admin/users/\\d+/status") && "PUT".equals(method)) {
-                updateUserStatus(exchange);
-            } else if (path.equals("/api/admin/restaurants") && "GET".equals(method)) {
-                getAllRestaurants(exchange);
-            } else if (path.matches("/api/admin/restaurants/\\d+") && "GET".equals(method)) {
-                getRestaurantById(exchange);
-            } else if (path.matches("/api/admin/restaurants/\\d+/status") && "PUT".equals(method)) {
-                updateRestaurantStatus(exchange);
-            } else if (path.equals("/api/admin/orders") && "GET".equals(method)) {
-                getAllOrders(exchange);
-            } else if (path.matches("/api/admin/orders/\\d+") && "GET".equals(method)) {
-                getOrderById(exchange);
-            } else if (path.matches("/api/admin/orders/\\d+/status") && "PUT".equals(method)) {
-                updateOrderStatus(exchange);
-            } else if (path.equals("/api/admin/transactions") && "GET".equals(method)) {
-                getAllTransactions(exchange);
-            } else if (path.matches("/api/admin/transactions/\\d+") && "GET".equals(method)) {
-                getTransactionById(exchange);
-            } else if (path.equals("/api/admin/deliveries") && "GET".equals(method)) {
-                getAllDeliveries(exchange);
-            } else if (path.matches("/api/admin/deliveries/\\d+") && "GET".equals(method)) {
-                getDeliveryById(exchange);
-            } else if (path.equals("/api/admin/statistics/daily") && "GET".equals(method)) {
-                getDailyStatistics(exchange);
-            } else if (path.equals("/api/admin/statistics/users") && "GET".equals(method)) {
-                getUserStatistics(exchange);
-            } else if (path.equals("/api/admin/statistics/restaurants") && "GET".equals(method)) {
-                getRestaurantStatistics(exchange);
-            } else if (path.equals("/api/admin/statistics/orders") && "GET".equals(method)) {
-                getOrderStatistics(exchange);
-            } else {
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendResponse(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
                 sendResponse(exchange, 404, "{\"error\":\"Endpoint not found\"}");
             }
         } catch (NotFoundException e) {
-            sendResponse(exchange, 404, "{\"error\":\"" + e.getMessage() + "\"}");
+            sendJson(exchange, 404, Map.of("error", String.valueOf(e.getMessage())));
         } catch (IllegalArgumentException e) {
-            sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
+            sendJson(exchange, 400, Map.of("error", String.valueOf(e.getMessage())));
         } catch (Exception e) {
             e.printStackTrace();
-            sendResponse(exchange, 500, "{\"error\":\"Internal server error: " + e.getMessage() + "\"}");
+            sendJson(exchange, 500, Map.of("error", "Internal server error: " + e.getMessage()));
         }
     }
 
@@ -162,8 +177,7 @@ public class AdminController implements HttpHandler {
         response.put("pendingOrders", stats.getPendingOrders());
         response.put("activeDeliveries", stats.getActiveDeliveries());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, response);
     }
 
     // ==================== مدیریت کاربران (USER MANAGEMENT) ====================
@@ -174,8 +188,8 @@ public class AdminController implements HttpHandler {
      * پارامترهای query قابل قبول:
      * - search: عبارت جستجو در نام، ایمیل و تلفن
      * - role: فیلتر بر اساس نقش (CUSTOMER, ADMIN, VENDOR, COURIER)
-     * - page: شماره صفحه (پیش‌فرض 0)
-     * - size: تعداد رکورد در صفحه (پیش‌فرض 20)
+     * - limit: تعداد رکورد در صفحه (پیش‌فرض 20، حداکثر 100)
+     * - cursor: مقدار nextCursor صفحه قبل (برای صفحه اول ارسال نمی‌شود)
      * 
      * @param exchange شیء HttpExchange
      * @throws IOException در صورت خطا در I/O
@@ -187,11 +201,11 @@ public class AdminController implements HttpHandler {
         // استخراج پارامترها
         String searchTerm = params.get("search");
         String role = params.get("role");
-        int page = parseIntParam(params.get("page"), 0);
-        int size = parseIntParam(params.get("size"), 20);
+        CursorPageRequest pageRequest = CursorPageRequest.fromQueryParams(params);
         
         // دریافت کاربران و تعداد کل
-        List<User> users = adminService.getAllUsers(searchTerm, role, page, size);
+        CursorPage<User> page = adminService.getAllUsers(searchTerm, role, pageRequest);
+        List<User> users = page.getItems();
         Long totalCount = adminService.countUsers(searchTerm, role);
         
         // فیلتر کردن فیلدهای حساس برای امنیت
@@ -208,26 +222,25 @@ public class AdminController implements HttpHandler {
             return safeUser;
         }).toList();
         
-        // ساخت پاسخ با pagination metadata
+        // ساخت پاسخ با metadata صفحه (cursor صفحه بعد در هدر X-Next-Cursor هم ارسال می‌شود)
         Map<String, Object> response = new HashMap<>();
         response.put("users", safeUsers);
         response.put("totalCount", totalCount);
-        response.put("page", page);
-        response.put("size", size);
-        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("limit", page.getLimit());
+        response.put("nextCursor", page.getNextCursorToken());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJson(exchange, 200, response);
     }
     
     /**
      * GET /api/admin/users/{userId} - دریافت کاربر با شناسه
      * 
      * @param exchange شیء HttpExchange
+     * @param userId شناسه کاربر
      * @throws IOException در صورت خطا در I/O
      */
-    private void getUserById(HttpExchange exchange) throws IOException {
-        Long userId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/users/");
+    private void getUserById(HttpExchange exchange, Long userId) throws IOException {
         User user = adminService.getUserById(userId);
         
         // فیلتر کردن فیلدهای حساس برای امنیت
@@ -241,8 +254,7 @@ public class AdminController implements HttpHandler {
         safeUser.put("isActive", user.getIsActive());
         // عمداً رمز عبور هش شده را برای امنیت حذف می‌کنیم
         
-        String responseBody = JsonUtil.toJson(safeUser);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, safeUser);
     }
     
     /**
@@ -255,10 +267,10 @@ public class AdminController implements HttpHandler {
      * }
      * 
      * @param exchange شیء HttpExchange
+     * @param userId شناسه کاربر
      * @throws IOException در صورت خطا در I/O
      */
-    private void updateUserStatus(HttpExchange exchange) throws IOException {
-        Long userId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/users/", "/status");
+    private void updateUserStatus(HttpExchange exchange, Long userId) throws IOException {
         
         // خواندن و پردازش JSON body
         String requestBody = new String(exchange.getRequestBody().readAllBytes());
@@ -285,8 +297,8 @@ public class AdminController implements HttpHandler {
      * پارامترهای query قابل قبول:
      * - search: عبارت جستجو در نام و آدرس رستوران
      * - status: فیلتر بر اساس وضعیت (ACTIVE, INACTIVE, PENDING_APPROVAL)
-     * - page: شماره صفحه
-     * - size: تعداد رکورد در صفحه
+     * - limit: تعداد رکورد در صفحه (پیش‌فرض 20، حداکثر 100)
+     * - cursor: مقدار nextCursor صفحه قبل
      * 
      * @param exchange شیء HttpExchange
      * @throws IOException در صورت خطا در I/O
@@ -297,35 +309,33 @@ public class AdminController implements HttpHandler {
         
         String searchTerm = params.get("search");
         String status = params.get("status");
-        int page = parseIntParam(params.get("page"), 0);
-        int size = parseIntParam(params.get("size"), 20);
+        CursorPageRequest pageRequest = CursorPageRequest.fromQueryParams(params);
         
-        List<Restaurant> restaurants = adminService.getAllRestaurants(searchTerm, status, page, size);
+        CursorPage<Restaurant> page = adminService.getAllRestaurants(searchTerm, status, pageRequest);
+        List<Restaurant> restaurants = page.getItems();
         Long totalCount = adminService.countRestaurants(searchTerm, status);
         
         Map<String, Object> response = new HashMap<>();
         response.put("restaurants", restaurants);
         response.put("totalCount", totalCount);
-        response.put("page", page);
-        response.put("size", size);
-        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("limit", page.getLimit());
+        response.put("nextCursor", page.getNextCursorToken());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJson(exchange, 200, response);
     }
     
     /**
      * GET /api/admin/restaurants/{restaurantId} - دریافت رستوران با شناسه
      * 
      * @param exchange شیء HttpExchange
+     * @param restaurantId شناسه رستوران
      * @throws IOException در صورت خطا در I/O
      */
-    private void getRestaurantById(HttpExchange exchange) throws IOException {
-        Long restaurantId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/restaurants/");
+    private void getRestaurantById(HttpExchange exchange, Long restaurantId) throws IOException {
         Restaurant restaurant = adminService.getRestaurantById(restaurantId);
         
-        String responseBody = JsonUtil.toJson(restaurant);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, restaurant);
     }
     
     /**
@@ -338,10 +348,10 @@ public class AdminController implements HttpHandler {
      * }
      * 
      * @param exchange شیء HttpExchange
+     * @param restaurantId شناسه رستوران
      * @throws IOException در صورت خطا در I/O
      */
-    private void updateRestaurantStatus(HttpExchange exchange) throws IOException {
-        Long restaurantId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/restaurants/", "/status");
+    private void updateRestaurantStatus(HttpExchange exchange, Long restaurantId) throws IOException {
         
         String requestBody = new String(exchange.getRequestBody().readAllBytes());
         @SuppressWarnings("unchecked")
@@ -377,8 +387,8 @@ public class AdminController implements HttpHandler {
      * - status: فیلتر بر اساس وضعیت سفارش
      * - customerId: شناسه مشتری
      * - restaurantId: شناسه رستوران
-     * - page: شماره صفحه
-     * - size: تعداد رکورد در صفحه
+     * - limit: تعداد رکورد در صفحه (پیش‌فرض 20، حداکثر 100)
+     * - cursor: مقدار nextCursor صفحه قبل
      * 
      * @param exchange شیء HttpExchange
      * @throws IOException در صورت خطا در I/O
@@ -391,35 +401,33 @@ public class AdminController implements HttpHandler {
         String status = params.get("status");
         Long customerId = parseLongParam(params.get("customerId"));
         Long restaurantId = parseLongParam(params.get("restaurantId"));
-        int page = parseIntParam(params.get("page"), 0);
-        int size = parseIntParam(params.get("size"), 20);
+        CursorPageRequest pageRequest = CursorPageRequest.fromQueryParams(params);
         
-        List<Order> orders = adminService.getAllOrders(searchTerm, status, customerId, restaurantId, page, size);
+        CursorPage<Order> page = adminService.getAllOrders(searchTerm, status, customerId, restaurantId, pageRequest);
+        List<Order> orders = page.getItems();
         Long totalCount = adminService.countOrders(searchTerm, status, customerId, restaurantId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("orders", orders);
         response.put("totalCount", totalCount);
-        response.put("page", page);
-        response.put("size", size);
-        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("limit", page.getLimit());
+        response.put("nextCursor", page.getNextCursorToken());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJson(exchange, 200, response);
     }
     
     /**
      * GET /api/admin/orders/{orderId} - دریافت سفارش با شناسه
      * 
      * @param exchange شیء HttpExchange
+     * @param orderId شناسه سفارش
      * @throws IOException در صورت خطا در I/O
      */
-    private void getOrderById(HttpExchange exchange) throws IOException {
-        Long orderId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/orders/");
+    private void getOrderById(HttpExchange exchange, Long orderId) throws IOException {
         Order order = adminService.getOrderById(orderId);
         
-        String responseBody = JsonUtil.toJson(order);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, order);
     }
     
     /**
@@ -434,10 +442,10 @@ public class AdminController implements HttpHandler {
      * }
      * 
      * @param exchange شیء HttpExchange
+     * @param orderId شناسه سفارش
      * @throws IOException در صورت خطا در I/O
      */
-    private void updateOrderStatus(HttpExchange exchange) throws IOException {
-        Long orderId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/orders/", "/status");
+    private void updateOrderStatus(HttpExchange exchange, Long orderId) throws IOException {
         
         String requestBody = new String(exchange.getRequestBody().readAllBytes());
         @SuppressWarnings("unchecked")
@@ -472,8 +480,8 @@ public class AdminController implements HttpHandler {
      * - status: فیلتر بر اساس وضعیت تراکنش
      * - type: فیلتر بر اساس نوع تراکنش (PAYMENT, REFUND, WALLET_CHARGE)
      * - userId: شناسه کاربر
-     * - page: شماره صفحه
-     * - size: تعداد رکورد در صفحه
+     * - limit: تعداد رکورد در صفحه (پیش‌فرض 20، حداکثر 100)
+     * - cursor: مقدار nextCursor صفحه قبل
      * 
      * @param exchange شیء HttpExchange
      * @throws IOException در صورت خطا در I/O
@@ -486,35 +494,33 @@ public class AdminController implements HttpHandler {
         String status = params.get("status");
         String type = params.get("type");
         Long userId = parseLongParam(params.get("userId"));
-        int page = parseIntParam(params.get("page"), 0);
-        int size = parseIntParam(params.get("size"), 20);
+        CursorPageRequest pageRequest = CursorPageRequest.fromQueryParams(params);
         
-        List<Transaction> transactions = adminService.getAllTransactions(searchTerm, status, type, userId, page, size);
+        CursorPage<Transaction> page = adminService.getAllTransactions(searchTerm, status, type, userId, pageRequest);
+        List<Transaction> transactions = page.getItems();
         Long totalCount = adminService.countTransactions(searchTerm, status, type, userId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("transactions", transactions);
         response.put("totalCount", totalCount);
-        response.put("page", page);
-        response.put("size", size);
-        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("limit", page.getLimit());
+        response.put("nextCursor", page.getNextCursorToken());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJson(exchange, 200, response);
     }
     
     /**
      * GET /api/admin/transactions/{transactionId} - دریافت تراکنش با شناسه
      * 
      * @param exchange شیء HttpExchange
+     * @param transactionId شناسه تراکنش
      * @throws IOException در صورت خطا در I/O
      */
-    private void getTransactionById(HttpExchange exchange) throws IOException {
-        Long transactionId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/transactions/");
+    private void getTransactionById(HttpExchange exchange, Long transactionId) throws IOException {
         Transaction transaction = adminService.getTransactionById(transactionId);
         
-        String responseBody = JsonUtil.toJson(transaction);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, transaction);
     }
 
     // ==================== مدیریت تحویل (DELIVERY MANAGEMENT) ====================
@@ -526,8 +532,8 @@ public class AdminController implements HttpHandler {
      * - search: عبارت جستجو در یادداشت‌های تحویل
      * - status: فیلتر بر اساس وضعیت تحویل
      * - courierId: شناسه پیک
-     * - page: شماره صفحه
-     * - size: تعداد رکورد در صفحه
+     * - limit: تعداد رکورد در صفحه (پیش‌فرض 20، حداکثر 100)
+     * - cursor: مقدار nextCursor صفحه قبل
      * 
      * @param exchange شیء HttpExchange
      * @throws IOException در صورت خطا در I/O
@@ -539,35 +545,33 @@ public class AdminController implements HttpHandler {
         String searchTerm = params.get("search");
         String status = params.get("status");
         Long courierId = parseLongParam(params.get("courierId"));
-        int page = parseIntParam(params.get("page"), 0);
-        int size = parseIntParam(params.get("size"), 20);
+        CursorPageRequest pageRequest = CursorPageRequest.fromQueryParams(params);
         
-        List<Delivery> deliveries = adminService.getAllDeliveries(searchTerm, status, courierId, page, size);
+        CursorPage<Delivery> page = adminService.getAllDeliveries(searchTerm, status, courierId, pageRequest);
+        List<Delivery> deliveries = page.getItems();
         Long totalCount = adminService.countDeliveries(searchTerm, status, courierId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("deliveries", deliveries);
         response.put("totalCount", totalCount);
-        response.put("page", page);
-        response.put("size", size);
-        response.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        response.put("limit", page.getLimit());
+        response.put("nextCursor", page.getNextCursorToken());
         
-        String responseBody = JsonUtil.toJson(response);
-        sendResponse(exchange, 200, responseBody);
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJson(exchange, 200, response);
     }
     
     /**
      * GET /api/admin/deliveries/{deliveryId} - دریافت تحویل با شناسه
      * 
      * @param exchange شیء HttpExchange
+     * @param deliveryId شناسه تحویل
      * @throws IOException در صورت خطا در I/O
      */
-    private void getDeliveryById(HttpExchange exchange) throws IOException {
-        Long deliveryId = extractIdFromPath(exchange.getRequestURI().getPath(), "/api/admin/deliveries/");
+    private void getDeliveryById(HttpExchange exchange, Long deliveryId) throws IOException {
         Delivery delivery = adminService.getDeliveryById(deliveryId);
         
-        String responseBody = JsonUtil.toJson(delivery);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, delivery);
     }
 
     // ==================== آمار و گزارشات (STATISTICS) ====================
@@ -589,8 +593,7 @@ public class AdminController implements HttpHandler {
         
         List<AdminRepository.DailyStatistics> stats = adminService.getDailyStatistics(days);
         
-        String responseBody = JsonUtil.toJson(stats);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, stats);
     }
     
     /**
@@ -604,8 +607,7 @@ public class AdminController implements HttpHandler {
     private void getUserStatistics(HttpExchange exchange) throws IOException {
         Map<User.Role, Long> stats = adminService.getUserStatsByRole();
         
-        String responseBody = JsonUtil.toJson(stats);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, stats);
     }
     
     /**
@@ -619,8 +621,7 @@ public class AdminController implements HttpHandler {
     private void getRestaurantStatistics(HttpExchange exchange) throws IOException {
         Map<RestaurantStatus, Long> stats = adminService.getRestaurantStatsByStatus();
         
-        String responseBody = JsonUtil.toJson(stats);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, stats);
     }
     
     /**
@@ -634,8 +635,7 @@ public class AdminController implements HttpHandler {
     private void getOrderStatistics(HttpExchange exchange) throws IOException {
         Map<OrderStatus, Long> stats = adminService.getOrderStatsByStatus();
         
-        String responseBody = JsonUtil.toJson(stats);
-        sendResponse(exchange, 200, responseBody);
+        sendJson(exchange, 200, stats);
     }
 
     // ==================== متدهای کمکی (HELPER METHODS) ====================
@@ -662,32 +662,6 @@ public class AdminController implements HttpHandler {
         return params;
     }
     
-    /**
-     * استخراج شناسه از path
-     * 
-     * @param path مسیر درخواست
-     * @param prefix پیشوند path
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix) {
-        String idStr = path.substring(prefix.length());
-        return Long.parseLong(idStr);
-    }
-    
-    /**
-     * استخراج شناسه از path با پسوند
-     * 
-     * @param path مسیر درخواست
-     * @param prefix پیشوند path
-     * @param suffix پسوند path
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        String pathWithoutPrefix = path.substring(prefix.length());
-        String idStr = pathWithoutPrefix.substring(0, pathWithoutPrefix.length() - suffix.length());
-        return Long.parseLong(idStr);
-    }
-    
     /**
      * پردازش پارامتر integer با مقدار پیش‌فرض
      * 
@@ -758,18 +732,29 @@ public class AdminController implements HttpHandler {
      * @throws IOException در صورت خطا در I/O
      */
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        // تنظیم headers
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        setCorsHeaders(exchange);
+        JsonResponseWriter.global().writeRaw(exchange, statusCode, response);
+    }
+    
+    /**
+     * ارسال شیء به صورت JSON جریانی
+     * 
+     * لیست‌های بزرگ مدیریتی مستقیماً روی بدنه پاسخ سریال می‌شوند (chunked و
+     * در صورت امکان gzip) و کل پاسخ هیچ‌وقت به صورت String ساخته نمی‌شود.
+     * 
+     * @param exchange شیء HttpExchange
+     * @param statusCode کد وضعیت HTTP
+     * @param body شیء پاسخ
+     * @throws IOException در صورت خطا در I/O
+     */
+    private void sendJson(HttpExchange exchange, int statusCode, Object body) throws IOException {
+        setCorsHeaders(exchange);
+        JsonResponseWriter.global().write(exchange, statusCode, body);
+    }
+    
+    private void setCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
         exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
-        
-        // ارسال پاسخ
-        byte[] responseBytes = response.getBytes();
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-        
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseBytes);
-        }
     }
 }
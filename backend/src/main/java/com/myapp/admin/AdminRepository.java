@@ -1,9 +1,14 @@
 package com.myapp.admin;
 
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -64,55 +69,55 @@ import java.util.Optional;
  */
 public class AdminRepository {
 
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    public AdminRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public AdminRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
     // ==================== مدیریت کاربران (USER MANAGEMENT) ====================
     
     /**
-     * دریافت تمام کاربران با فیلتر و جستجوی پیشرفته
+     * دریافت صفحه‌ای از کاربران با فیلتر و جستجوی پیشرفته
      * 
      * این متد امکان جستجو و فیلتر کاربران را بر اساس معیارهای مختلف فراهم می‌کند:
      * - جستجو در نام، ایمیل و شماره تلفن
      * - فیلتر بر اساس نقش کاربر
-     * - صفحه‌بندی برای بهبود عملکرد
+     * - صفحه‌بندی keyset روی id (جدیدترین اول)؛ هزینه هر صفحه مستقل از عمق آن است
      * 
      * @param searchTerm عبارت جستجو (در نام، ایمیل، تلفن)
      * @param role نقش کاربر برای فیلتر (اختیاری)
-     * @param limit تعداد رکوردها در هر صفحه (0 = نامحدود)
-     * @param offset شروع از رکورد (برای pagination)
-     * @return لیست کاربران فیلتر شده
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه کاربران فیلتر شده همراه با cursor صفحه بعد
      */
-    public List<User> getAllUsers(String searchTerm, User.Role role, int limit, int offset) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM User u WHERE 1=1");
+    public CursorPage<User> getAllUsers(String searchTerm, User.Role role, CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            KeysetQuery<User> query = KeysetQuery.from(User.class, "User u");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                hql.append(" AND (LOWER(u.fullName) LIKE :search OR LOWER(u.email) LIKE :search OR u.phone LIKE :search)");
+                query.where("(LOWER(u.fullName) LIKE :search OR LOWER(u.email) LIKE :search OR u.phone LIKE :search)")
+                     .param("search", "%" + searchTerm.toLowerCase() + "%");
             }
             
             if (role != null) {
-                hql.append(" AND u.role = :role");
+                query.where("u.role = :role").param("role", role);
             }
             
-            hql.append(" ORDER BY u.id DESC");
-            
-            Query<User> query = session.createQuery(hql.toString(), User.class);
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                query.setParameter("search", searchPattern);
-            }
-            
-            if (role != null) {
-                query.setParameter("role", role);
-            }
-            
-            if (limit > 0) {
-                query.setMaxResults(limit);
-            }
-            if (offset > 0) {
-                query.setFirstResult(offset);
-            }
-            
-            return query.list();
+            return query.orderById("u.id", User::getId).fetch(session, request);
         }
     }
     
@@ -126,7 +131,7 @@ public class AdminRepository {
      * @return تعداد کل کاربران
      */
     public Long countUsers(String searchTerm, User.Role role) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             StringBuilder hql = new StringBuilder("SELECT COUNT(u) FROM User u WHERE 1=1");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
@@ -160,7 +165,7 @@ public class AdminRepository {
      * @return Map حاوی تعداد کاربران هر نقش
      */
     public Map<User.Role, Long> getUserStatsByRole() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Object[]> query = session.createQuery(
                 "SELECT u.role, COUNT(u) FROM User u GROUP BY u.role", Object[].class);
             
@@ -186,7 +191,7 @@ public class AdminRepository {
      * @param isActive وضعیت فعال/غیرفعال
      */
     public void updateUserStatus(Long userId, boolean isActive) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             session.beginTransaction();
             
             User user = session.get(User.class, userId);
@@ -202,47 +207,27 @@ public class AdminRepository {
     // ==================== مدیریت رستوران‌ها (RESTAURANT MANAGEMENT) ====================
     
     /**
-     * دریافت تمام رستوران‌ها با فیلتر و جستجو
+     * دریافت صفحه‌ای از رستوران‌ها با فیلتر و جستجو (keyset روی id، جدیدترین اول)
      * 
      * @param searchTerm عبارت جستجو (در نام و آدرس رستوران)
      * @param status وضعیت رستوران برای فیلتر
-     * @param limit تعداد رکوردها در هر صفحه
-     * @param offset شروع از رکورد
-     * @return لیست رستوران‌های فیلتر شده
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه رستوران‌های فیلتر شده همراه با cursor صفحه بعد
      */
-    public List<Restaurant> getAllRestaurants(String searchTerm, RestaurantStatus status, int limit, int offset) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM Restaurant r WHERE 1=1");
+    public CursorPage<Restaurant> getAllRestaurants(String searchTerm, RestaurantStatus status, CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            KeysetQuery<Restaurant> query = KeysetQuery.from(Restaurant.class, "Restaurant r");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                hql.append(" AND (LOWER(r.name) LIKE :search OR LOWER(r.address) LIKE :search)");
+                query.where("(LOWER(r.name) LIKE :search OR LOWER(r.address) LIKE :search)")
+                     .param("search", "%" + searchTerm.toLowerCase() + "%");
             }
             
             if (status != null) {
-                hql.append(" AND r.status = :status");
+                query.where("r.status = :status").param("status", status);
             }
             
-            hql.append(" ORDER BY r.id DESC");
-            
-            Query<Restaurant> query = session.createQuery(hql.toString(), Restaurant.class);
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                query.setParameter("search", searchPattern);
-            }
-            
-            if (status != null) {
-                query.setParameter("status", status);
-            }
-            
-            if (limit > 0) {
-                query.setMaxResults(limit);
-            }
-            if (offset > 0) {
-                query.setFirstResult(offset);
-            }
-            
-            return query.list();
+            return query.orderById("r.id", Restaurant::getId).fetch(session, request);
         }
     }
     
@@ -254,7 +239,7 @@ public class AdminRepository {
      * @return تعداد کل رستوران‌ها
      */
     public Long countRestaurants(String searchTerm, RestaurantStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             StringBuilder hql = new StringBuilder("SELECT COUNT(r) FROM Restaurant r WHERE 1=1");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
@@ -288,7 +273,7 @@ public class AdminRepository {
      * @return Map حاوی تعداد رستوران‌های هر وضعیت
      */
     public Map<RestaurantStatus, Long> getRestaurantStatsByStatus() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Object[]> query = session.createQuery(
                 "SELECT r.status, COUNT(r) FROM Restaurant r GROUP BY r.status", Object[].class);
             
@@ -320,59 +305,33 @@ public class AdminRepository {
      * @param status وضعیت سفارش
      * @param customerId شناسه مشتری (اختیاری)
      * @param restaurantId شناسه رستوران (اختیاری)
-     * @param limit تعداد رکوردها
-     * @param offset شروع از رکورد
-     * @return لیست سفارشات فیلتر شده
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه سفارشات فیلتر شده همراه با cursor صفحه بعد
      */
-    public List<Order> getAllOrders(String searchTerm, OrderStatus status, Long customerId, Long restaurantId, int limit, int offset) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM Order o WHERE 1=1");
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                hql.append(" AND (LOWER(o.deliveryAddress) LIKE :search OR o.phone LIKE :search)");
-            }
-            
-            if (status != null) {
-                hql.append(" AND o.status = :status");
-            }
-            
-            if (customerId != null) {
-                hql.append(" AND o.customer.id = :customerId");
-            }
-            
-            if (restaurantId != null) {
-                hql.append(" AND o.restaurant.id = :restaurantId");
-            }
-            
-            hql.append(" ORDER BY o.orderDate DESC");
-            
-            Query<Order> query = session.createQuery(hql.toString(), Order.class);
+    public CursorPage<Order> getAllOrders(String searchTerm, OrderStatus status, Long customerId, Long restaurantId,
+                                          CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            KeysetQuery<Order> query = KeysetQuery.from(Order.class, "Order o");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                query.setParameter("search", searchPattern);
+                query.where("(LOWER(o.deliveryAddress) LIKE :search OR o.phone LIKE :search)")
+                     .param("search", "%" + searchTerm.toLowerCase() + "%");
             }
             
             if (status != null) {
-                query.setParameter("status", status);
+                query.where("o.status = :status").param("status", status);
             }
             
             if (customerId != null) {
-                query.setParameter("customerId", customerId);
+                query.where("o.customer.id = :customerId").param("customerId", customerId);
             }
             
             if (restaurantId != null) {
-                query.setParameter("restaurantId", restaurantId);
-            }
-            
-            if (limit > 0) {
-                query.setMaxResults(limit);
-            }
-            if (offset > 0) {
-                query.setFirstResult(offset);
+                query.where("o.restaurant.id = :restaurantId").param("restaurantId", restaurantId);
             }
             
-            return query.list();
+            // seek روی (orderDate, id) از ایندکس‌های (فیلتر، order_date، id) جدول orders استفاده می‌کند
+            return query.orderBy("o.orderDate", Order::getOrderDate, "o.id", Order::getId).fetch(session, request);
         }
     }
     
@@ -386,7 +345,7 @@ public class AdminRepository {
      * @return تعداد کل سفارشات
      */
     public Long countOrders(String searchTerm, OrderStatus status, Long customerId, Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             StringBuilder hql = new StringBuilder("SELECT COUNT(o) FROM Order o WHERE 1=1");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
@@ -436,7 +395,7 @@ public class AdminRepository {
      * @return Map حاوی تعداد سفارشات هر وضعیت
      */
     public Map<OrderStatus, Long> getOrderStatsByStatus() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Object[]> query = session.createQuery(
                 "SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status", Object[].class);
             
@@ -468,59 +427,33 @@ public class AdminRepository {
      * @param status وضعیت تراکنش
      * @param type نوع تراکنش
      * @param userId شناسه کاربر
-     * @param limit تعداد رکوردها
-     * @param offset شروع از رکورد
-     * @return لیست تراکنش‌های فیلتر شده
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه تراکنش‌های فیلتر شده همراه با cursor صفحه بعد
      */
-    public List<Transaction> getAllTransactions(String searchTerm, TransactionStatus status, TransactionType type, Long userId, int limit, int offset) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM Transaction t WHERE 1=1");
+    public CursorPage<Transaction> getAllTransactions(String searchTerm, TransactionStatus status, TransactionType type,
+                                                      Long userId, CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            KeysetQuery<Transaction> query = KeysetQuery.from(Transaction.class, "Transaction t");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                hql.append(" AND (t.referenceId LIKE :search OR LOWER(t.description) LIKE :search OR t.paymentMethod LIKE :search)");
+                query.where("(t.referenceId LIKE :search OR LOWER(t.description) LIKE :search OR t.paymentMethod LIKE :search)")
+                     .param("search", "%" + searchTerm.toLowerCase() + "%");
             }
             
             if (status != null) {
-                hql.append(" AND t.status = :status");
+                query.where("t.status = :status").param("status", status);
             }
             
             if (type != null) {
-                hql.append(" AND t.type = :type");
+                query.where("t.type = :type").param("type", type);
             }
             
             if (userId != null) {
-                hql.append(" AND t.userId = :userId");
+                query.where("t.userId = :userId").param("userId", userId);
             }
             
-            hql.append(" ORDER BY t.createdAt DESC");
-            
-            Query<Transaction> query = session.createQuery(hql.toString(), Transaction.class);
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                query.setParameter("search", searchPattern);
-            }
-            
-            if (status != null) {
-                query.setParameter("status", status);
-            }
-            
-            if (type != null) {
-                query.setParameter("type", type);
-            }
-            
-            if (userId != null) {
-                query.setParameter("userId", userId);
-            }
-            
-            if (limit > 0) {
-                query.setMaxResults(limit);
-            }
-            if (offset > 0) {
-                query.setFirstResult(offset);
-            }
-            
-            return query.list();
+            return query.orderBy("t.createdAt", Transaction::getCreatedAt, "t.id", Transaction::getId)
+                        .fetch(session, request);
         }
     }
     
@@ -534,7 +467,7 @@ public class AdminRepository {
      * @return تعداد کل تراکنش‌ها
      */
     public Long countTransactions(String searchTerm, TransactionStatus status, TransactionType type, Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             StringBuilder hql = new StringBuilder("SELECT COUNT(t) FROM Transaction t WHERE 1=1");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
@@ -579,56 +512,33 @@ public class AdminRepository {
     // ==================== مدیریت تحویل (DELIVERY MANAGEMENT) ====================
     
     /**
-     * دریافت تمام تحویل‌ها با فیلتر و جستجو
+     * دریافت صفحه‌ای از تحویل‌ها با فیلتر و جستجو (keyset روی id؛ تحویل ستون زمان ایجاد ندارد)
      * 
      * @param searchTerm عبارت جستجو (در یادداشت‌های تحویل)
      * @param status وضعیت تحویل
      * @param courierId شناسه پیک
-     * @param limit تعداد رکوردها
-     * @param offset شروع از رکورد
-     * @return لیست تحویل‌های فیلتر شده
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه تحویل‌های فیلتر شده همراه با cursor صفحه بعد
      */
-    public List<Delivery> getAllDeliveries(String searchTerm, DeliveryStatus status, Long courierId, int limit, int offset) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM Delivery d WHERE 1=1");
-            
-            if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                hql.append(" AND (LOWER(d.deliveryNotes) LIKE :search OR LOWER(d.courierNotes) LIKE :search)");
-            }
-            
-            if (status != null) {
-                hql.append(" AND d.status = :status");
-            }
-            
-            if (courierId != null) {
-                hql.append(" AND d.courier.id = :courierId");
-            }
-            
-            hql.append(" ORDER BY d.id DESC");
-            
-            Query<Delivery> query = session.createQuery(hql.toString(), Delivery.class);
+    public CursorPage<Delivery> getAllDeliveries(String searchTerm, DeliveryStatus status, Long courierId,
+                                                 CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            KeysetQuery<Delivery> query = KeysetQuery.from(Delivery.class, "Delivery d");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                query.setParameter("search", searchPattern);
+                query.where("(LOWER(d.deliveryNotes) LIKE :search OR LOWER(d.courierNotes) LIKE :search)")
+                     .param("search", "%" + searchTerm.toLowerCase() + "%");
             }
             
             if (status != null) {
-                query.setParameter("status", status);
+                query.where("d.status = :status").param("status", status);
             }
             
             if (courierId != null) {
-                query.setParameter("courierId", courierId);
+                query.where("d.courier.id = :courierId").param("courierId", courierId);
             }
             
-            if (limit > 0) {
-                query.setMaxResults(limit);
-            }
-            if (offset > 0) {
-                query.setFirstResult(offset);
-            }
-            
-            return query.list();
+            return query.orderById("d.id", Delivery::getId).fetch(session, request);
         }
     }
     
@@ -641,7 +551,7 @@ public class AdminRepository {
      * @return تعداد کل تحویل‌ها
      */
     public Long countDeliveries(String searchTerm, DeliveryStatus status, Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             StringBuilder hql = new StringBuilder("SELECT COUNT(d) FROM Delivery d WHERE 1=1");
             
             if (searchTerm != null && !searchTerm.trim().isEmpty()) {
@@ -677,47 +587,55 @@ public class AdminRepository {
 
     // ==================== آمار سیستم (SYSTEM STATISTICS) ====================
     
+    /**
+     * کوئری آمار کلی سیستم
+     * 
+     * هر جدول یک بار در یک derived table پیمایش می‌شود و شمارش‌ها و جمع‌های
+     * شرطی آن با FILTER محاسبه می‌شوند (روی SQLite و H2 به SUM/COUNT(CASE ...)
+     * ترجمه می‌شود). derived table ها هر کدام یک ردیف دارند و با هم join
+     * می‌شوند، پس کل آمار در یک round-trip برمی‌گردد.
+     */
+    static final String SYSTEM_STATISTICS_HQL =
+        "SELECT u.total, r.total, o.total, d.total, t.revenue, t.refunds, o.today, t.todayRevenue, " +
+        "       r.approved, o.pending, d.active " +
+        "FROM (SELECT COUNT(*) AS total FROM User) u " +
+        "JOIN (SELECT COUNT(*) AS total, " +
+        "             COUNT(*) FILTER (WHERE x.status = RestaurantStatus.APPROVED) AS approved " +
+        "      FROM Restaurant x) r ON TRUE " +
+        "JOIN (SELECT COUNT(*) AS total, " +
+        "             COUNT(*) FILTER (WHERE x.orderDate >= :startOfDay) AS today, " +
+        "             COUNT(*) FILTER (WHERE x.status = OrderStatus.PENDING) AS pending " +
+        "      FROM Order x) o ON TRUE " +
+        "JOIN (SELECT COUNT(*) AS total, " +
+        "             COUNT(*) FILTER (WHERE x.status IN (DeliveryStatus.PENDING, DeliveryStatus.ASSIGNED, " +
+        "                                                 DeliveryStatus.PICKED_UP)) AS active " +
+        "      FROM Delivery x) d ON TRUE " +
+        "JOIN (SELECT COALESCE(SUM(x.amount) FILTER (WHERE x.type = TransactionType.PAYMENT), 0.0) AS revenue, " +
+        "             COALESCE(SUM(x.amount) FILTER (WHERE x.type = TransactionType.REFUND), 0.0) AS refunds, " +
+        "             COALESCE(SUM(x.amount) FILTER (WHERE x.type = TransactionType.PAYMENT " +
+        "                                              AND x.createdAt >= :startOfDay), 0.0) AS todayRevenue " +
+        "      FROM Transaction x WHERE x.status = TransactionStatus.COMPLETED) t ON TRUE";
+    
     /**
      * دریافت آمار کلی سیستم
      * 
-     * این متد امکان دریافت آمار کلی سیستم را برای مدیریت پنل مدیریت فراهم می‌کند
+     * این متد امکان دریافت آمار کلی سیستم را برای مدیریت پنل مدیریت فراهم می‌کند.
+     * تمام شمارش‌ها و جمع‌ها با یک کوئری ({@link #SYSTEM_STATISTICS_HQL}) خوانده می‌شوند.
      * 
      * @return آمار کلی سیستم
      */
     public SystemStatistics getSystemStatistics() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            // Total counts
-            Long totalUsers = session.createQuery("SELECT COUNT(u) FROM User u", Long.class).uniqueResult();
-            Long totalRestaurants = session.createQuery("SELECT COUNT(r) FROM Restaurant r", Long.class).uniqueResult();
-            Long totalOrders = session.createQuery("SELECT COUNT(o) FROM Order o", Long.class).uniqueResult();
-            Long totalDeliveries = session.createQuery("SELECT COUNT(d) FROM Delivery d", Long.class).uniqueResult();
-            
-            // Revenue statistics  
-            Double totalRevenue = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :paymentType AND t.status = :completedStatus", Double.class)
-                .setParameter("paymentType", TransactionType.PAYMENT)
-                .setParameter("completedStatus", TransactionStatus.COMPLETED).uniqueResult();
-            Double totalRefunds = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :refundType AND t.status = :completedStatus", Double.class)
-                .setParameter("refundType", TransactionType.REFUND)
-                .setParameter("completedStatus", TransactionStatus.COMPLETED).uniqueResult();
-            
-            // Today's statistics
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-            Long todayOrders = session.createQuery("SELECT COUNT(o) FROM Order o WHERE o.orderDate >= :startOfDay", Long.class)
-                .setParameter("startOfDay", startOfDay).uniqueResult();
-            Double todayRevenue = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :paymentType AND t.status = :completedStatus AND t.createdAt >= :startOfDay", Double.class)
-                .setParameter("paymentType", TransactionType.PAYMENT)
-                .setParameter("completedStatus", TransactionStatus.COMPLETED)
-                .setParameter("startOfDay", startOfDay).uniqueResult();
-            
-            // Active counts
-            Long activeRestaurants = session.createQuery("SELECT COUNT(r) FROM Restaurant r WHERE r.status = 'APPROVED'", Long.class).uniqueResult();
-            Long pendingOrders = session.createQuery("SELECT COUNT(o) FROM Order o WHERE o.status = 'PENDING'", Long.class).uniqueResult();
-            Long activeDeliveries = session.createQuery("SELECT COUNT(d) FROM Delivery d WHERE d.status IN ('PENDING', 'ASSIGNED', 'PICKED_UP')", Long.class).uniqueResult();
+            // نوع پارامتر صریح است چون Hibernate نوع پارامتر داخل derived table را به درستی cast نمی‌کند
+            Object[] row = session.createQuery(SYSTEM_STATISTICS_HQL, Object[].class)
+                .setParameter("startOfDay", startOfDay, StandardBasicTypes.LOCAL_DATE_TIME)
+                .uniqueResult();
             
             return new SystemStatistics(
-                totalUsers, totalRestaurants, totalOrders, totalDeliveries,
-                totalRevenue, totalRefunds, todayOrders, todayRevenue,
-                activeRestaurants, pendingOrders, activeDeliveries
+                toLong(row[0]), toLong(row[1]), toLong(row[2]), toLong(row[3]),
+                toDouble(row[4]), toDouble(row[5]), toLong(row[6]), toDouble(row[7]),
+                toLong(row[8]), toLong(row[9]), toLong(row[10])
             );
         } catch (Exception e) {
             // در صورت خطا، آمار خالی برمی‌گردانیم
@@ -725,6 +643,14 @@ public class AdminRepository {
         }
     }
     
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+    
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+    
     /**
      * دریافت آمار روزانه
      * 
@@ -734,7 +660,7 @@ public class AdminRepository {
      * @return آمار روزانه
      */
     public List<DailyStatistics> getDailyStatistics(int days) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime startDate = LocalDateTime.now().minusDays(days).withHour(0).withMinute(0).withSecond(0).withNano(0);
             
             Query<Object[]> query = session.createQuery(
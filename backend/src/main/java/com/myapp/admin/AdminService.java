@@ -1,8 +1,11 @@
 package com.myapp.admin;
 
 import com.myapp.auth.AuthRepository;
+import com.myapp.common.cache.SnapshotCache;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.courier.DeliveryRepository;
 import com.myapp.order.OrderRepository;
 import com.myapp.payment.PaymentRepository;
@@ -17,14 +20,14 @@ import java.util.Map;
  * این کلاس تمام منطق کسب‌وکار مربوط به مدیریت سیستم سفارش غذا را پیاده‌سازی می‌کند:
  * 
  * === مدیریت کاربران (User Management) ===
- * - getAllUsers(): دریافت کاربران با pagination و فیلتر
+ * - getAllUsers(): دریافت کاربران با keyset pagination و فیلتر
  * - countUsers(): شمارش کاربران با فیلتر
  * - getUserById(): دریافت کاربر بر اساس شناسه
  * - getUserStatsByRole(): آمار کاربران بر اساس نقش
  * - updateUserStatus(): فعال/غیرفعال کردن کاربر
  * 
  * === مدیریت رستوران‌ها (Restaurant Management) ===
- * - getAllRestaurants(): دریافت رستوران‌ها با pagination و فیلتر
+ * - getAllRestaurants(): دریافت رستوران‌ها با keyset pagination و فیلتر
  * - countRestaurants(): شمارش رستوران‌ها
  * - getRestaurantById(): دریافت رستوران بر اساس شناسه
  * - getRestaurantStatsByStatus(): آمار رستوران‌ها
@@ -83,6 +86,9 @@ public class AdminService {
     private final PaymentRepository paymentRepository;
     /** Repository لایه دسترسی داده تحویل‌ها */
     private final DeliveryRepository deliveryRepository;
+    /** snapshot کوتاه‌مدت آمار کلی سیستم (یک کلید) */
+    private final SnapshotCache<String, AdminRepository.SystemStatistics> systemStatistics =
+        new SnapshotCache<>(SnapshotCache.DEFAULT_TTL_MILLIS, 1);
     
     /**
      * سازنده با تزریق وابستگی‌ها
@@ -114,17 +120,11 @@ public class AdminService {
      * 
      * @param searchTerm عبارت جستجو (اختیاری)
      * @param role نقش کاربر برای فیلتر (اختیاری)
-     * @param page شماره صفحه (شروع از 0)
-     * @param size تعداد رکوردها در صفحه
-     * @return لیست کاربران با pagination
+     * @param request درخواست صفحه keyset (اندازه آن به CursorPageRequest.MAX_LIMIT محدود است)
+     * @return صفحه کاربران همراه با cursor صفحه بعد
      * @throws IllegalArgumentException در صورت نقش نامعتبر
      */
-    public List<User> getAllUsers(String searchTerm, String role, int page, int size) {
-        // اعتبارسنجی و تنظیم پارامترها
-        if (page < 0) page = 0;
-        if (size <= 0) size = 20;
-        if (size > 100) size = 100; // محدودیت حداکثر اندازه صفحه برای بهبود عملکرد
-        
+    public CursorPage<User> getAllUsers(String searchTerm, String role, CursorPageRequest request) {
         // تبدیل string به enum
         User.Role roleEnum = null;
         if (role != null && !role.trim().isEmpty()) {
@@ -135,8 +135,7 @@ public class AdminService {
             }
         }
         
-        int offset = page * size;
-        return adminRepository.getAllUsers(searchTerm, roleEnum, size, offset);
+        return adminRepository.getAllUsers(searchTerm, roleEnum, request);
     }
     
     /**
@@ -238,16 +237,11 @@ public class AdminService {
      * 
      * @param searchTerm عبارت جستجو
      * @param status وضعیت رستوران
-     * @param page شماره صفحه
-     * @param size اندازه صفحه
-     * @return لیست رستوران‌ها
+     * @param request درخواست صفحه keyset
+     * @return صفحه رستوران‌ها همراه با cursor صفحه بعد
      * @throws IllegalArgumentException در صورت وضعیت نامعتبر
      */
-    public List<Restaurant> getAllRestaurants(String searchTerm, String status, int page, int size) {
-        if (page < 0) page = 0;
-        if (size <= 0) size = 20;
-        if (size > 100) size = 100;
-        
+    public CursorPage<Restaurant> getAllRestaurants(String searchTerm, String status, CursorPageRequest request) {
         RestaurantStatus statusEnum = null;
         if (status != null && !status.trim().isEmpty()) {
             try {
@@ -257,8 +251,7 @@ public class AdminService {
             }
         }
         
-        int offset = page * size;
-        return adminRepository.getAllRestaurants(searchTerm, statusEnum, size, offset);
+        return adminRepository.getAllRestaurants(searchTerm, statusEnum, request);
     }
     
     /**
@@ -356,16 +349,12 @@ public class AdminService {
      * @param status وضعیت سفارش
      * @param customerId شناسه مشتری (اختیاری)
      * @param restaurantId شناسه رستوران (اختیاری)
-     * @param page شماره صفحه
-     * @param size اندازه صفحه
-     * @return لیست سفارشات
+     * @param request درخواست صفحه keyset
+     * @return صفحه سفارشات همراه با cursor صفحه بعد
      * @throws IllegalArgumentException در صورت وضعیت نامعتبر
      */
-    public List<Order> getAllOrders(String searchTerm, String status, Long customerId, Long restaurantId, int page, int size) {
-        if (page < 0) page = 0;
-        if (size <= 0) size = 20;
-        if (size > 100) size = 100;
-        
+    public CursorPage<Order> getAllOrders(String searchTerm, String status, Long customerId, Long restaurantId,
+                                          CursorPageRequest request) {
         OrderStatus statusEnum = null;
         if (status != null && !status.trim().isEmpty()) {
             try {
@@ -375,8 +364,7 @@ public class AdminService {
             }
         }
         
-        int offset = page * size;
-        return adminRepository.getAllOrders(searchTerm, statusEnum, customerId, restaurantId, size, offset);
+        return adminRepository.getAllOrders(searchTerm, statusEnum, customerId, restaurantId, request);
     }
     
     /**
@@ -476,16 +464,12 @@ public class AdminService {
      * @param status وضعیت تراکنش
      * @param type نوع تراکنش
      * @param userId شناسه کاربر
-     * @param page شماره صفحه
-     * @param size اندازه صفحه
-     * @return لیست تراکنش‌ها
+     * @param request درخواست صفحه keyset
+     * @return صفحه تراکنش‌ها همراه با cursor صفحه بعد
      * @throws IllegalArgumentException در صورت وضعیت یا نوع نامعتبر
      */
-    public List<Transaction> getAllTransactions(String searchTerm, String status, String type, Long userId, int page, int size) {
-        if (page < 0) page = 0;
-        if (size <= 0) size = 20;
-        if (size > 100) size = 100;
-        
+    public CursorPage<Transaction> getAllTransactions(String searchTerm, String status, String type, Long userId,
+                                                      CursorPageRequest request) {
         TransactionStatus statusEnum = null;
         if (status != null && !status.trim().isEmpty()) {
             try {
@@ -504,8 +488,7 @@ public class AdminService {
             }
         }
         
-        int offset = page * size;
-        return adminRepository.getAllTransactions(searchTerm, statusEnum, typeEnum, userId, size, offset);
+        return adminRepository.getAllTransactions(searchTerm, statusEnum, typeEnum, userId, request);
     }
     
     /**
@@ -565,16 +548,12 @@ public class AdminService {
      * @param searchTerm عبارت جستجو
      * @param status وضعیت تحویل
      * @param courierId شناسه پیک
-     * @param page شماره صفحه
-     * @param size اندازه صفحه
-     * @return لیست تحویل‌ها
+     * @param request درخواست صفحه keyset
+     * @return صفحه تحویل‌ها همراه با cursor صفحه بعد
      * @throws IllegalArgumentException در صورت وضعیت نامعتبر
      */
-    public List<Delivery> getAllDeliveries(String searchTerm, String status, Long courierId, int page, int size) {
-        if (page < 0) page = 0;
-        if (size <= 0) size = 20;
-        if (size > 100) size = 100;
-        
+    public CursorPage<Delivery> getAllDeliveries(String searchTerm, String status, Long courierId,
+                                                 CursorPageRequest request) {
         DeliveryStatus statusEnum = null;
         if (status != null && !status.trim().isEmpty()) {
             try {
@@ -584,8 +563,7 @@ public class AdminService {
             }
         }
         
-        int offset = page * size;
-        return adminRepository.getAllDeliveries(searchTerm, statusEnum, courierId, size, offset);
+        return adminRepository.getAllDeliveries(searchTerm, statusEnum, courierId, request);
     }
     
     /**
@@ -632,14 +610,16 @@ public class AdminService {
     /**
      * دریافت آمار کلی سیستم
      * 
-     * شامل تمام معیارهای کلیدی عملکرد سیستم
+     * شامل تمام معیارهای کلیدی عملکرد سیستم. نتیجه به مدت
+     * {@link SnapshotCache#DEFAULT_TTL_MILLIS} نگه داشته می‌شود و refresh آن
+     * برای درخواست‌های همزمان فقط یک بار اجرا می‌شود.
      * 
      * @return آمار کلی سیستم
      * @throws RuntimeException در صورت خطای دیتابیس
      */
     public AdminRepository.SystemStatistics getSystemStatistics() {
         try {
-            return adminRepository.getSystemStatistics();
+            return systemStatistics.get("system", adminRepository::getSystemStatistics);
         } catch (Exception e) {
             // در صورت خطا، RuntimeException برمی‌گردانیم
             throw new RuntimeException("Database error", e);
@@ -1,5 +1,6 @@
 package com.myapp.analytics;
 
+import com.myapp.analytics.models.DashboardMetrics;
 import com.myapp.auth.AuthMiddleware;
 import com.myapp.auth.AuthResult;
 import com.myapp.common.utils.ResponseUtil;
@@ -84,10 +85,8 @@ public class AnalyticsController implements HttpHandler {
                 return ResponseUtil.error("Unauthorized: " + authResult.getErrorMessage());
             }
             
-            // تولید metrics داشبورد
-            Map<String, Object> dashboard = new HashMap<>();
-            dashboard.put("message", "Dashboard metrics generated");
-            dashboard.put("timestamp", LocalDateTime.now());
+            // metrics داشبورد از snapshot از پیش محاسبه شده (تازگی در generatedAt/snapshotAgeMillis)
+            DashboardMetrics dashboard = analyticsService.getRealTimeDashboard();
             
             return ResponseUtil.success(dashboard, "داشبورد با موفقیت تولید شد");
             
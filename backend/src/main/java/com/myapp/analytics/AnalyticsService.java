@@ -3,6 +3,7 @@ package com.myapp.analytics;
 import com.myapp.common.models.*;
 import com.myapp.analytics.models.*;
 import com.myapp.analytics.repository.AnalyticsRepository;
+import com.myapp.analytics.dashboard.DashboardMetricsEngine;
 import com.myapp.analytics.etl.ETLProcessor;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -36,15 +37,13 @@ public class AnalyticsService {
     private final AnalyticsRepository analyticsRepository;
     private final ETLProcessor etlProcessor;
     
-    // Cache برای بهبود performance
-    private final Map<String, Object> analyticsCache;
-    private final long CACHE_DURATION = 300_000; // 5 دقیقه
+    private final DashboardMetricsEngine dashboardEngine;
     
     public AnalyticsService(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
         this.analyticsRepository = new AnalyticsRepository(sessionFactory);
         this.etlProcessor = new ETLProcessor(sessionFactory);
-        this.analyticsCache = new HashMap<>();
+        this.dashboardEngine = new DashboardMetricsEngine(sessionFactory);
         
         logger.info("📊 Analytics Service initialized successfully");
     }
@@ -56,40 +55,10 @@ public class AnalyticsService {
     public CompletableFuture<ETLResult> executeETLProcess() {
         return CompletableFuture.supplyAsync(() -> {
             logger.info("🔄 Starting ETL process...");
-            long startTime = System.currentTimeMillis();
             
-            try (Session session = sessionFactory.openSession()) {
-                session.beginTransaction();
-                
-                ETLResult result = new ETLResult();
-                
-                // مرحله Extract: استخراج داده‌ها از منابع مختلف
-                logger.info("📤 Extracting data from operational systems...");
-                result.setExtractedOrders(etlProcessor.extractOrderData(session));
-                result.setExtractedUsers(etlProcessor.extractUserData(session));
-                result.setExtractedRestaurants(etlProcessor.extractRestaurantData(session));
-                result.setExtractedPayments(etlProcessor.extractPaymentData(session));
-                
-                // مرحله Transform: تبدیل و تمیز کردن داده‌ها
-                logger.info("🔄 Transforming and cleaning data...");
-                List<OrderAnalytics> transformedOrders = etlProcessor.transformOrderData(result.getExtractedOrders());
-                List<UserAnalytics> transformedUsers = etlProcessor.transformUserData(result.getExtractedUsers());
-                List<RestaurantAnalytics> transformedRestaurants = etlProcessor.transformRestaurantData(result.getExtractedRestaurants());
-                List<PaymentAnalytics> transformedPayments = etlProcessor.transformPaymentData(result.getExtractedPayments());
-                
-                // مرحله Load: بارگذاری داده‌ها به Data Warehouse
-                logger.info("📥 Loading data into Data Warehouse...");
-                result.setLoadedOrders(analyticsRepository.bulkInsertOrderAnalytics(transformedOrders, session));
-                result.setLoadedUsers(analyticsRepository.bulkInsertUserAnalytics(transformedUsers, session));
-                result.setLoadedRestaurants(analyticsRepository.bulkInsertRestaurantAnalytics(transformedRestaurants, session));
-                result.setLoadedPayments(analyticsRepository.bulkInsertPaymentAnalytics(transformedPayments, session));
-                
-                session.getTransaction().commit();
-                
-                long endTime = System.currentTimeMillis();
-                result.setProcessingTime(endTime - startTime);
-                result.setTimestamp(LocalDateTime.now());
-                result.setStatus("SUCCESS");
+            try {
+                // Extract/Transform/Load به صورت chunk به chunk و از آخرین watermark هر منبع
+                ETLResult result = etlProcessor.runIncremental();
                 
                 // پاک کردن cache پس از به‌روزرسانی داده‌ها
                 clearAnalyticsCache();
@@ -110,65 +79,11 @@ public class AnalyticsService {
     
     /**
      * تولید گزارش Real-time Dashboard
-     * این متد KPIهای اصلی کسب‌وکار را محاسبه می‌کند
+     * این متد KPIهای اصلی کسب‌وکار را از DashboardMetricsEngine برمی‌گرداند
      */
     public DashboardMetrics getRealTimeDashboard() {
-        String cacheKey = "dashboard_metrics";
-        
-        // بررسی cache
-        if (analyticsCache.containsKey(cacheKey)) {
-            CachedData cached = (CachedData) analyticsCache.get(cacheKey);
-            if (System.currentTimeMillis() - cached.getTimestamp() < CACHE_DURATION) {
-                logger.debug("📊 Returning cached dashboard metrics");
-                return (DashboardMetrics) cached.getData();
-            }
-        }
-        
-        logger.info("📊 Generating real-time dashboard metrics...");
-        
-        try (Session session = sessionFactory.openSession()) {
-            DashboardMetrics metrics = new DashboardMetrics();
-            metrics.setGeneratedAt(LocalDateTime.now());
-            
-            // KPIهای فروش
-            metrics.setTotalRevenue(analyticsRepository.getTotalRevenue(session));
-            metrics.setTodayRevenue(analyticsRepository.getTodayRevenue(session));
-            metrics.setRevenueGrowth(analyticsRepository.getRevenueGrowthRate(session));
-            
-            // KPIهای سفارش
-            metrics.setTotalOrders(analyticsRepository.getTotalOrdersCount(session));
-            metrics.setTodayOrders(analyticsRepository.getTodayOrdersCount(session));
-            metrics.setAverageOrderValue(analyticsRepository.getAverageOrderValue(session));
-            
-            // KPIهای کاربر
-            metrics.setTotalUsers(analyticsRepository.getTotalUsersCount(session));
-            metrics.setActiveUsers(analyticsRepository.getActiveUsersCount(session));
-            metrics.setNewUsersToday(analyticsRepository.getTodayNewUsersCount(session));
-            
-            // KPIهای رستوران
-            metrics.setTotalRestaurants(analyticsRepository.getTotalRestaurantsCount(session));
-            metrics.setActiveRestaurants(analyticsRepository.getActiveRestaurantsCount(session));
-            
-            // Performance Metrics
-            metrics.setAverageDeliveryTime(analyticsRepository.getAverageDeliveryTime(session));
-            metrics.setOrderCompletionRate(analyticsRepository.getOrderCompletionRate(session));
-            metrics.setCustomerSatisfactionScore(analyticsRepository.getCustomerSatisfactionScore(session));
-            
-            // Top Lists
-            metrics.setTopRestaurants(analyticsRepository.getTopRestaurants(session, 10));
-            metrics.setTopItems(analyticsRepository.getTopItems(session, 10));
-            metrics.setTopCustomers(analyticsRepository.getTopCustomers(session, 10));
-            
-            // ذخیره در cache
-            analyticsCache.put(cacheKey, new CachedData(metrics, System.currentTimeMillis()));
-            
-            logger.info("✅ Dashboard metrics generated successfully");
-            return metrics;
-            
-        } catch (Exception e) {
-            logger.error("❌ Failed to generate dashboard metrics: {}", e.getMessage(), e);
-            throw new RuntimeException("خطا در تولید متریک‌های داشبورد", e);
-        }
+        // snapshot از پیش محاسبه شده + شمارنده‌های زنده؛ بدون کوئری روی مسیر درخواست
+        return dashboardEngine.current();
     }
     
     /**
@@ -332,26 +247,17 @@ public class AnalyticsService {
     }
     
     /**
-     * پاک کردن cache analytics
+     * refresh snapshot داشبورد پس از تغییر داده‌ها (بدون انتظار)
      */
     private void clearAnalyticsCache() {
-        analyticsCache.clear();
-        logger.debug("🗑️ Analytics cache cleared");
+        dashboardEngine.refreshAsync();
+        logger.debug("🗑️ Dashboard snapshot refresh requested");
     }
     
     /**
-     * کلاس برای ذخیره داده‌های cache شده
+     * موتور متریک‌های داشبورد (برای شروع/توقف refresh دوره‌ای)
      */
-    private static class CachedData {
-        private final Object data;
-        private final long timestamp;
-        
-        public CachedData(Object data, long timestamp) {
-            this.data = data;
-            this.timestamp = timestamp;
-        }
-        
-        public Object getData() { return data; }
-        public long getTimestamp() { return timestamp; }
+    public DashboardMetricsEngine getDashboardEngine() {
+        return dashboardEngine;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.myapp.analytics.dashboard;
+
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.TransactionStatus;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * شمارنده‌های زنده داشبورد که با هر تغییر سفارش، پرداخت و کاربر به‌روز می‌شوند
+ *
+ * سرویس‌ها بعد از commit هر تغییر یکی از متدهای record* را صدا می‌زنند.
+ * همه شمارنده‌ها LongAdder/DoubleAdder هستند، پس ثبت رویداد بدون قفل و
+ * بدون رقابت روی یک cache line انجام می‌شود. شمارنده‌ها از شروع process
+ * فقط افزایش می‌یابند و DashboardMetricsEngine اختلاف آن‌ها با مقدار لحظه
+ * آخرین snapshot را به مقادیر snapshot اضافه می‌کند.
+ *
+ * شمارنده‌های «امروز» در یک bucket روزانه نگهداری می‌شوند که با عوض شدن
+ * روز به صورت اتمیک جایگزین می‌شود.
+ *
+ * نکته: رویدادهای node های دیگر اینجا دیده نمی‌شوند؛ این اختلاف با
+ * refresh دوره‌ای snapshot از دیتابیس جبران می‌شود.
+ */
+public final class DashboardCounters {
+
+    private static final DashboardCounters GLOBAL = new DashboardCounters(Clock.systemDefaultZone());
+
+    private final Clock clock;
+
+    private final LongAdder ordersCreated = new LongAdder();
+    private final LongAdder ordersLeftPending = new LongAdder();
+    private final LongAdder ordersDelivered = new LongAdder();
+    private final LongAdder ordersCancelled = new LongAdder();
+    private final DoubleAdder deliveredRevenue = new DoubleAdder();
+    private final LongAdder paymentsCompleted = new LongAdder();
+    private final LongAdder paymentsFailed = new LongAdder();
+    private final LongAdder usersRegistered = new LongAdder();
+    private final AtomicReference<DayBucket> today;
+
+    public DashboardCounters(Clock clock) {
+        this.clock = clock;
+        this.today = new AtomicReference<>(new DayBucket(LocalDate.now(clock)));
+    }
+
+    /**
+     * شمارنده‌های مشترک کل برنامه
+     */
+    public static DashboardCounters global() {
+        return GLOBAL;
+    }
+
+    /**
+     * ثبت ایجاد سفارش جدید (در وضعیت PENDING)
+     */
+    public void recordOrderCreated() {
+        ordersCreated.increment();
+        currentDay().orders.increment();
+    }
+
+    /**
+     * ثبت تغییر وضعیت سفارش
+     *
+     * @param from وضعیت قبلی
+     * @param to وضعیت جدید
+     * @param totalAmount مبلغ سفارش (برای درآمد سفارش‌های تحویل شده)
+     */
+    public void recordOrderStatusChange(OrderStatus from, OrderStatus to, Double totalAmount) {
+        if (from == to || to == null) {
+            return;
+        }
+        if (from == OrderStatus.PENDING) {
+            ordersLeftPending.increment();
+        }
+        if (to == OrderStatus.DELIVERED) {
+            ordersDelivered.increment();
+            double amount = totalAmount != null ? totalAmount : 0.0;
+            deliveredRevenue.add(amount);
+            currentDay().revenue.add(amount);
+        } else if (to == OrderStatus.CANCELLED) {
+            ordersCancelled.increment();
+        }
+    }
+
+    /**
+     * ثبت نتیجه نهایی یک پرداخت (وضعیت‌های غیرنهایی نادیده گرفته می‌شوند)
+     */
+    public void recordPayment(TransactionStatus status) {
+        if (status == TransactionStatus.COMPLETED) {
+            paymentsCompleted.increment();
+        } else if (status == TransactionStatus.FAILED) {
+            paymentsFailed.increment();
+        }
+    }
+
+    /**
+     * ثبت کاربر جدید
+     */
+    public void recordUserRegistered() {
+        usersRegistered.increment();
+        currentDay().newUsers.increment();
+    }
+
+    /**
+     * خواندن مقدار لحظه‌ای همه شمارنده‌ها (بدون قفل)
+     */
+    public Reading read() {
+        DayBucket day = currentDay();
+        return new Reading(
+            ordersCreated.sum(),
+            ordersLeftPending.sum(),
+            ordersDelivered.sum(),
+            ordersCancelled.sum(),
+            deliveredRevenue.sum(),
+            paymentsCompleted.sum(),
+            paymentsFailed.sum(),
+            usersRegistered.sum(),
+            day.date,
+            day.orders.sum(),
+            day.revenue.sum(),
+            day.newUsers.sum());
+    }
+
+    private DayBucket currentDay() {
+        DayBucket bucket = today.get();
+        LocalDate now = LocalDate.now(clock);
+        while (!bucket.date.equals(now)) {
+            DayBucket next = new DayBucket(now);
+            if (today.compareAndSet(bucket, next)) {
+                return next;
+            }
+            bucket = today.get();
+        }
+        return bucket;
+    }
+
+    private static final class DayBucket {
+        final LocalDate date;
+        final LongAdder orders = new LongAdder();
+        final DoubleAdder revenue = new DoubleAdder();
+        final LongAdder newUsers = new LongAdder();
+
+        DayBucket(LocalDate date) {
+            this.date = date;
+        }
+    }
+
+    /**
+     * مقدار لحظه‌ای شمارنده‌ها
+     */
+    public static final class Reading {
+        final long ordersCreated;
+        final long ordersLeftPending;
+        final long ordersDelivered;
+        final long ordersCancelled;
+        final double deliveredRevenue;
+        final long paymentsCompleted;
+        final long paymentsFailed;
+        final long usersRegistered;
+        final LocalDate day;
+        final long todayOrders;
+        final double todayRevenue;
+        final long todayNewUsers;
+
+        Reading(long ordersCreated, long ordersLeftPending, long ordersDelivered, long ordersCancelled,
+                double deliveredRevenue, long paymentsCompleted, long paymentsFailed, long usersRegistered,
+                LocalDate day, long todayOrders, double todayRevenue, long todayNewUsers) {
+            this.ordersCreated = ordersCreated;
+            this.ordersLeftPending = ordersLeftPending;
+            this.ordersDelivered = ordersDelivered;
+            this.ordersCancelled = ordersCancelled;
+            this.deliveredRevenue = deliveredRevenue;
+            this.paymentsCompleted = paymentsCompleted;
+            this.paymentsFailed = paymentsFailed;
+            this.usersRegistered = usersRegistered;
+            this.day = day;
+            this.todayOrders = todayOrders;
+            this.todayRevenue = todayRevenue;
+            this.todayNewUsers = todayNewUsers;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.myapp.analytics.dashboard;
+
+import com.myapp.analytics.models.DashboardMetrics;
+import com.myapp.analytics.repository.AnalyticsRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * موتور نگهداری متریک‌های داشبورد
+ *
+ * به جای اجرای ده‌ها کوئری تجمیعی روی جداول operational در هر درخواست،
+ * داشبورد از دو بخش ساخته می‌شود:
+ * - snapshot: آمار کامل که در پس‌زمینه و به صورت دوره‌ای از دیتابیس محاسبه
+ *   و با یک volatile write منتشر می‌شود
+ * - شمارنده‌های زنده (DashboardCounters): رویدادهای بعد از snapshot
+ *   (سفارش جدید، تغییر وضعیت، پرداخت، ثبت‌نام) که روی مقادیر snapshot اعمال می‌شوند
+ *
+ * ویژگی‌ها:
+ * - خواندن بدون قفل و بدون دسترسی به دیتابیس (به جز اولین درخواست پس از راه‌اندازی)
+ * - refresh تک‌پرواز (single-flight): درخواست‌های همزمان به یک refresh مشترک متصل می‌شوند
+ * - stale-while-revalidate: snapshot قدیمی‌تر از staleAfter برگردانده می‌شود و
+ *   یک refresh در پس‌زمینه شروع می‌شود
+ * - تازگی داده در generatedAt و snapshotAgeMillis گزارش می‌شود
+ *
+ * پیکربندی از طریق System Property:
+ * - analytics.dashboard.refresh.seconds: فاصله refresh دوره‌ای (پیش‌فرض ۶۰، صفر یعنی غیرفعال)
+ */
+public class DashboardMetricsEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardMetricsEngine.class);
+
+    public static final long DEFAULT_REFRESH_SECONDS = 60;
+
+    private final SessionFactory sessionFactory;
+    private final AnalyticsRepository analyticsRepository;
+    private final DashboardCounters counters;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong coalescedRefreshes = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile long staleAfterMillis = TimeUnit.SECONDS.toMillis(DEFAULT_REFRESH_SECONDS);
+    private ScheduledFuture<?> periodicRefresh;
+
+    public DashboardMetricsEngine(SessionFactory sessionFactory) {
+        this(sessionFactory, new AnalyticsRepository(sessionFactory), DashboardCounters.global(),
+             Clock.systemDefaultZone());
+    }
+
+    public DashboardMetricsEngine(SessionFactory sessionFactory, AnalyticsRepository analyticsRepository,
+                                  DashboardCounters counters, Clock clock) {
+        this.sessionFactory = sessionFactory;
+        this.analyticsRepository = analyticsRepository;
+        this.counters = counters;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * شروع refresh دوره‌ای بر اساس System Property
+     */
+    public void startFromSystemProperties() {
+        long interval = Long.getLong("analytics.dashboard.refresh.seconds", DEFAULT_REFRESH_SECONDS);
+        if (interval > 0) {
+            start(interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * شروع refresh دوره‌ای snapshot
+     *
+     * @param interval فاصله refresh
+     * @param unit واحد زمان
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (periodicRefresh != null) {
+            return;
+        }
+        staleAfterMillis = unit.toMillis(interval);
+        // خطاهای refresh در runRefresh ثبت می‌شوند و snapshot قبلی حفظ می‌شود
+        periodicRefresh = executor.scheduleWithFixedDelay(this::refreshAsync, 0, interval, unit);
+        logger.info("🔁 Dashboard snapshot refresh scheduled every {} {}", interval, unit);
+    }
+
+    /**
+     * توقف refresh دوره‌ای
+     */
+    public synchronized void stop() {
+        if (periodicRefresh != null) {
+            periodicRefresh.cancel(false);
+            periodicRefresh = null;
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * متریک‌های فعلی داشبورد
+     *
+     * فقط اگر هنوز هیچ snapshot ساخته نشده باشد منتظر refresh می‌ماند؛
+     * در غیر این صورت بدون قفل و بدون I/O پاسخ می‌دهد.
+     *
+     * @return نمونه جدید DashboardMetrics (فراخواننده می‌تواند آن را تغییر دهد)
+     * @throws RuntimeException اگر اولین refresh شکست بخورد
+     */
+    public DashboardMetrics current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            try {
+                current = refreshAsync().join();
+            } catch (CompletionException e) {
+                throw new RuntimeException("خطا در تولید متریک‌های داشبورد", e.getCause());
+            }
+        } else if (clock.millis() - current.refreshedAtMillis >= staleAfterMillis) {
+            refreshAsync();
+        }
+        return compose(current, counters.read());
+    }
+
+    /**
+     * شروع refresh snapshot در پس‌زمینه (یا اتصال به refresh در حال اجرا)
+     *
+     * @return future که با snapshot جدید کامل می‌شود
+     */
+    public CompletableFuture<Snapshot> refreshAsync() {
+        while (true) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) {
+                coalescedRefreshes.incrementAndGet();
+                return running;
+            }
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, mine)) {
+                try {
+                    executor.execute(() -> runRefresh(mine));
+                } catch (RuntimeException rejected) {
+                    inFlight.compareAndSet(mine, null);
+                    mine.completeExceptionally(rejected);
+                }
+                return mine;
+            }
+        }
+    }
+
+    /** تعداد refresh های انجام شده */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /** تعداد درخواست‌های refresh که به یک refresh در حال اجرا متصل شدند */
+    public long getCoalescedRefreshes() {
+        return coalescedRefreshes.get();
+    }
+
+    private void runRefresh(CompletableFuture<Snapshot> future) {
+        long start = System.nanoTime();
+        try {
+            // مقدار شمارنده‌ها قبل از کوئری خوانده می‌شود؛ رویدادهایی که در حین
+            // کوئری رخ می‌دهند حداکثر تا refresh بعدی دوبار شمرده می‌شوند
+            DashboardCounters.Reading baseline = counters.read();
+            LocalDateTime now = LocalDateTime.now(clock);
+            DashboardMetrics base;
+            long[] payments;
+            try (Session session = sessionFactory.openSession()) {
+                base = analyticsRepository.loadDashboardSnapshot(session, now);
+                payments = analyticsRepository.getPaymentOutcomeCounts(session);
+            }
+            Snapshot fresh = new Snapshot(base, payments[0], payments[1], baseline, now, clock.millis());
+            snapshot = fresh;
+            refreshCount.incrementAndGet();
+            inFlight.compareAndSet(future, null);
+            future.complete(fresh);
+            logger.debug("📊 Dashboard snapshot refreshed in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Throwable t) {
+            inFlight.compareAndSet(future, null);
+            future.completeExceptionally(t);
+            logger.error("❌ Failed to refresh dashboard snapshot: {}", t.getMessage());
+        }
+    }
+
+    /**
+     * ترکیب snapshot با رویدادهای بعد از آن
+     */
+    private DashboardMetrics compose(Snapshot s, DashboardCounters.Reading live) {
+        DashboardMetrics base = s.base;
+        DashboardCounters.Reading at = s.baseline;
+
+        long created = live.ordersCreated - at.ordersCreated;
+        long leftPending = live.ordersLeftPending - at.ordersLeftPending;
+        long delivered = live.ordersDelivered - at.ordersDelivered;
+        long cancelled = live.ordersCancelled - at.ordersCancelled;
+        double revenue = live.deliveredRevenue - at.deliveredRevenue;
+
+        DashboardMetrics metrics = new DashboardMetrics();
+        metrics.setGeneratedAt(s.refreshedAt);
+        metrics.setSnapshotAgeMillis(Math.max(0, clock.millis() - s.refreshedAtMillis));
+
+        // KPIهای سفارش و فروش
+        long totalOrders = base.getTotalOrders() + created;
+        long completedOrders = base.getCompletedOrders() + delivered;
+        double totalRevenue = base.getTotalRevenue() + revenue;
+        metrics.setTotalOrders(totalOrders);
+        metrics.setPendingOrders(Math.max(0, base.getPendingOrders() + created - leftPending));
+        metrics.setCompletedOrders(completedOrders);
+        metrics.setCancelledOrders(base.getCancelledOrders() + cancelled);
+        metrics.setTotalRevenue(totalRevenue);
+        metrics.setAverageOrderValue(completedOrders > 0 ? totalRevenue / completedOrders : 0.0);
+        metrics.setOrderCompletionRate(totalOrders > 0 ? (completedOrders * 100.0) / totalOrders : 0.0);
+        metrics.setRevenueGrowth(base.getRevenueGrowth());
+        boolean sameMonth = live.day.getMonth() == s.refreshedAt.getMonth()
+            && live.day.getYear() == s.refreshedAt.getYear();
+        metrics.setMonthlyRevenue(sameMonth ? base.getMonthlyRevenue() + revenue : base.getMonthlyRevenue());
+
+        // KPIهای امروز: اگر روز بعد از snapshot عوض شده باشد فقط bucket امروز معتبر است
+        if (live.day.equals(at.day)) {
+            metrics.setTodayOrders(base.getTodayOrders() + (live.todayOrders - at.todayOrders));
+            metrics.setTodayRevenue(base.getTodayRevenue() + (live.todayRevenue - at.todayRevenue));
+            metrics.setNewUsersToday(base.getNewUsersToday() + (live.todayNewUsers - at.todayNewUsers));
+        } else {
+            metrics.setTodayOrders(live.todayOrders);
+            metrics.setTodayRevenue(live.todayRevenue);
+            metrics.setNewUsersToday(live.todayNewUsers);
+        }
+
+        // KPIهای کاربر و رستوران
+        metrics.setTotalUsers(base.getTotalUsers() + (live.usersRegistered - at.usersRegistered));
+        metrics.setActiveUsers(base.getActiveUsers());
+        metrics.setTotalRestaurants(base.getTotalRestaurants());
+        metrics.setActiveRestaurants(base.getActiveRestaurants());
+        metrics.setPendingApprovalRestaurants(base.getPendingApprovalRestaurants());
+        metrics.setCustomerSatisfactionScore(base.getCustomerSatisfactionScore());
+
+        // پرداخت‌ها
+        long paymentsCompleted = s.paymentsCompleted + (live.paymentsCompleted - at.paymentsCompleted);
+        long paymentsFailed = s.paymentsFailed + (live.paymentsFailed - at.paymentsFailed);
+        long payments = paymentsCompleted + paymentsFailed;
+        metrics.setSuccessfulPaymentRate(payments > 0 ? (paymentsCompleted * 100.0) / payments : 0.0);
+        metrics.setFailedPaymentRate(payments > 0 ? (paymentsFailed * 100.0) / payments : 0.0);
+
+        // Top Lists فقط با refresh تغییر می‌کنند
+        metrics.setTopRestaurants(s.topRestaurants);
+        metrics.setTopItems(s.topItems);
+        metrics.setTopCustomers(s.topCustomers);
+        return metrics;
+    }
+
+    /**
+     * snapshot منتشر شده (تغییرناپذیر پس از انتشار)
+     */
+    public static final class Snapshot {
+        private final DashboardMetrics base;
+        private final long paymentsCompleted;
+        private final long paymentsFailed;
+        private final DashboardCounters.Reading baseline;
+        private final LocalDateTime refreshedAt;
+        private final long refreshedAtMillis;
+        private final List<DashboardMetrics.TopRestaurant> topRestaurants;
+        private final List<DashboardMetrics.TopItem> topItems;
+        private final List<DashboardMetrics.TopCustomer> topCustomers;
+
+        Snapshot(DashboardMetrics base, long paymentsCompleted, long paymentsFailed,
+                 DashboardCounters.Reading baseline, LocalDateTime refreshedAt, long refreshedAtMillis) {
+            this.base = base;
+            this.paymentsCompleted = paymentsCompleted;
+            this.paymentsFailed = paymentsFailed;
+            this.baseline = baseline;
+            this.refreshedAt = refreshedAt;
+            this.refreshedAtMillis = refreshedAtMillis;
+            this.topRestaurants = Collections.unmodifiableList(base.getTopRestaurants());
+            this.topItems = Collections.unmodifiableList(base.getTopItems());
+            this.topCustomers = Collections.unmodifiableList(base.getTopCustomers());
+        }
+
+        public LocalDateTime getRefreshedAt() {
+            return refreshedAt;
+        }
+    }
+}
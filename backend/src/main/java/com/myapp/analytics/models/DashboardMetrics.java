@@ -14,6 +14,7 @@ import java.util.Map;
 public class DashboardMetrics {
     
     private LocalDateTime generatedAt;
+    private Long snapshotAgeMillis; // فاصله زمانی از آخرین refresh کامل snapshot
     
     // KPI های فروش و درآمد
     private Double totalRevenue;
@@ -93,6 +94,14 @@ public class DashboardMetrics {
         this.generatedAt = generatedAt;
     }
     
+    public Long getSnapshotAgeMillis() {
+        return snapshotAgeMillis;
+    }
+    
+    public void setSnapshotAgeMillis(Long snapshotAgeMillis) {
+        this.snapshotAgeMillis = snapshotAgeMillis;
+    }
+    
     public Double getTotalRevenue() {
         return totalRevenue;
     }
@@ -256,7 +265,16 @@ public class DashboardMetrics {
     
     public Map<String, Double> getDailyRevenue() { return dailyRevenue; }
     public void setDailyRevenue(Map<String, Double> dailyRevenue) { this.dailyRevenue = dailyRevenue; }
-    
+
+    public Long getPendingApprovalRestaurants() { return pendingApprovalRestaurants; }
+    public void setPendingApprovalRestaurants(Long pendingApprovalRestaurants) { this.pendingApprovalRestaurants = pendingApprovalRestaurants; }
+
+    public Double getSuccessfulPaymentRate() { return successfulPaymentRate; }
+    public void setSuccessfulPaymentRate(Double successfulPaymentRate) { this.successfulPaymentRate = successfulPaymentRate; }
+
+    public Double getFailedPaymentRate() { return failedPaymentRate; }
+    public void setFailedPaymentRate(Double failedPaymentRate) { this.failedPaymentRate = failedPaymentRate; }
+
     /**
      * محاسبه نرخ رشد درآمد روزانه
      */
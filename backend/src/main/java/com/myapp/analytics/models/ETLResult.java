@@ -167,7 +167,30 @@ public class ETLResult {
     
     public Integer getDuplicateRecords() { return duplicateRecords; }
     public void setDuplicateRecords(Integer duplicateRecords) { this.duplicateRecords = duplicateRecords; }
-    
+
+    // Throughput هر مرحله (records per second)
+    public Double getExtractionRate() { return extractionRate; }
+    public void setExtractionRate(Double extractionRate) { this.extractionRate = extractionRate; }
+
+    public Double getTransformationRate() { return transformationRate; }
+    public void setTransformationRate(Double transformationRate) { this.transformationRate = transformationRate; }
+
+    public Double getLoadingRate() { return loadingRate; }
+    public void setLoadingRate(Double loadingRate) { this.loadingRate = loadingRate; }
+
+    public Long getMemoryUsage() { return memoryUsage; }
+    public void setMemoryUsage(Long memoryUsage) { this.memoryUsage = memoryUsage; }
+
+    /**
+     * محاسبه نرخ (records per second) از تعداد رکورد و زمان صرف شده به نانوثانیه
+     */
+    public static Double rate(long records, long elapsedNanos) {
+        if (records <= 0 || elapsedNanos <= 0) {
+            return 0.0;
+        }
+        return records / (elapsedNanos / 1_000_000_000.0);
+    }
+
     /**
      * محاسبه نرخ موفقیت کلی ETL
      */
@@ -216,7 +239,15 @@ public class ETLResult {
         summary.append("Processing Time: ").append(processingTime).append(" ms\n");
         summary.append("Success Rate: ").append(String.format("%.2f", calculateSuccessRate())).append("%\n");
         summary.append("Overall Throughput: ").append(String.format("%.2f", calculateOverallThroughput())).append(" records/sec\n");
-        
+        if (extractionRate != null) {
+            summary.append("Extract/Transform/Load: ")
+                   .append(String.format("%.2f / %.2f / %.2f",
+                           extractionRate,
+                           transformationRate != null ? transformationRate : 0.0,
+                           loadingRate != null ? loadingRate : 0.0))
+                   .append(" records/sec\n");
+        }
+
         if (errorMessage != null) {
             summary.append("Error: ").append(errorMessage).append("\n");
         }
@@ -0,0 +1,89 @@
+package com.myapp.analytics.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark فرآیند ETL برای هر منبع داده
+ *
+ * موقعیت آخرین رکورد بارگذاری شده (timestamp, id) هر منبع در یک ردیف
+ * نگهداری می‌شود. این ردیف در همان تراکنشی به‌روزرسانی می‌شود که chunk
+ * مربوطه در Data Warehouse نوشته می‌شود، پس اجرای بعدی (یا اجرای مجدد
+ * پس از خطا) دقیقاً از ادامه همان chunk شروع می‌کند و رکوردی دوبار
+ * بارگذاری نمی‌شود.
+ *
+ * برای منابعی که ستون زمان ندارند (users, restaurants) فقط lastId استفاده می‌شود.
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ */
+@Entity
+@Table(name = "etl_watermarks")
+public class ETLWatermark {
+
+    /** نام منبع داده (orders, payments, users, restaurants) - کلید اصلی */
+    @Id
+    @Column(name = "source", length = 50)
+    private String source;
+
+    /** timestamp آخرین رکورد پردازش شده (null برای منابع بدون ستون زمان) */
+    @Column(name = "last_timestamp")
+    private LocalDateTime lastTimestamp;
+
+    /** شناسه آخرین رکورد پردازش شده */
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    /** تعداد کل رکوردهای پردازش شده از ابتدا */
+    @Column(name = "rows_processed", nullable = false)
+    private Long rowsProcessed;
+
+    /** زمان آخرین پیشروی watermark */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ETLWatermark() {}
+
+    public ETLWatermark(String source) {
+        this.source = source;
+        this.lastId = 0L;
+        this.rowsProcessed = 0L;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * جابجایی watermark به آخرین رکورد یک chunk
+     *
+     * @param timestamp timestamp آخرین رکورد (یا null)
+     * @param id شناسه آخرین رکورد
+     * @param rows تعداد رکوردهای chunk
+     */
+    public void advance(LocalDateTime timestamp, Long id, int rows) {
+        this.lastTimestamp = timestamp;
+        this.lastId = id;
+        this.rowsProcessed = rowsProcessed + rows;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public LocalDateTime getLastTimestamp() { return lastTimestamp; }
+    public void setLastTimestamp(LocalDateTime lastTimestamp) { this.lastTimestamp = lastTimestamp; }
+
+    public Long getLastId() { return lastId; }
+    public void setLastId(Long lastId) { this.lastId = lastId; }
+
+    public Long getRowsProcessed() { return rowsProcessed; }
+    public void setRowsProcessed(Long rowsProcessed) { this.rowsProcessed = rowsProcessed; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @Override
+    public String toString() {
+        return "ETLWatermark{source='" + source + "', lastTimestamp=" + lastTimestamp +
+               ", lastId=" + lastId + ", rowsProcessed=" + rowsProcessed + "}";
+    }
+}
@@ -8,6 +8,11 @@ import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.*;
@@ -376,92 +381,393 @@ public class AnalyticsRepository {
         }
     }
     
+    // ==================== Snapshot داشبورد ====================
+    
+    /**
+     * محاسبه snapshot کامل داشبورد با کوئری‌های تجمیعی شرطی
+     *
+     * به جای یک کوئری برای هر KPI، آمار سفارشات (کل، وضعیت‌ها، درآمد، امروز،
+     * ماه جاری و ماه قبل) در یک عبور روی جدول orders با SUM(CASE ...) محاسبه
+     * می‌شود. این متد فقط توسط DashboardMetricsEngine در پس‌زمینه صدا زده
+     * می‌شود و روی مسیر درخواست نیست. خطاها به فراخواننده می‌رسند تا snapshot
+     * قبلی حفظ شود.
+     *
+     * @param session session باز
+     * @param now زمان مرجع برای بازه‌های امروز و ماه
+     * @return snapshot (بدون فیلدهای زمان که توسط engine تنظیم می‌شوند)
+     */
+    public DashboardMetrics loadDashboardSnapshot(Session session, LocalDateTime now) {
+        LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+        LocalDateTime monthStart = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime previousMonthStart = monthStart.minusMonths(1);
+        
+        Object[] orders = session.createQuery(
+                "SELECT COUNT(o.id), " +
+                "SUM(CASE WHEN o.status = :pending THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN o.status = :delivered THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN o.status = :cancelled THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN o.status = :delivered THEN o.totalAmount END), " +
+                "SUM(CASE WHEN o.orderDate >= :startOfDay THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN o.orderDate >= :startOfDay AND o.status = :delivered THEN o.totalAmount END), " +
+                "SUM(CASE WHEN o.orderDate >= :monthStart AND o.status = :delivered THEN o.totalAmount END), " +
+                "SUM(CASE WHEN o.orderDate >= :previousMonthStart AND o.orderDate < :monthStart " +
+                "AND o.status = :delivered THEN o.totalAmount END) " +
+                "FROM Order o", Object[].class)
+            .setParameter("pending", OrderStatus.PENDING)
+            .setParameter("delivered", OrderStatus.DELIVERED)
+            .setParameter("cancelled", OrderStatus.CANCELLED)
+            .setParameter("startOfDay", startOfDay)
+            .setParameter("monthStart", monthStart)
+            .setParameter("previousMonthStart", previousMonthStart)
+            .getSingleResult();
+        
+        DashboardMetrics metrics = new DashboardMetrics();
+        metrics.setTotalOrders(asLong(orders[0]));
+        metrics.setPendingOrders(asLong(orders[1]));
+        metrics.setCompletedOrders(asLong(orders[2]));
+        metrics.setCancelledOrders(asLong(orders[3]));
+        metrics.setTotalRevenue(asDouble(orders[4]));
+        metrics.setTodayOrders(asLong(orders[5]));
+        metrics.setTodayRevenue(asDouble(orders[6]));
+        double monthRevenue = asDouble(orders[7]);
+        double previousMonthRevenue = asDouble(orders[8]);
+        metrics.setMonthlyRevenue(monthRevenue);
+        metrics.setRevenueGrowth(previousMonthRevenue > 0
+            ? ((monthRevenue - previousMonthRevenue) / previousMonthRevenue) * 100 : 0.0);
+        
+        metrics.setActiveUsers(session.createQuery(
+                "SELECT COUNT(DISTINCT o.customer.id) FROM Order o WHERE o.orderDate >= :since", Long.class)
+            .setParameter("since", now.minusDays(30))
+            .getSingleResult());
+        metrics.setTotalUsers(session.createQuery("SELECT COUNT(u.id) FROM User u", Long.class).getSingleResult());
+        metrics.setNewUsersToday(0L); // کاربران زمان ثبت‌نام ندارند؛ فقط از شمارنده زنده
+        
+        Object[] restaurants = session.createQuery(
+                "SELECT COUNT(r.id), " +
+                "SUM(CASE WHEN r.status = :approved THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN r.status = :pendingApproval THEN 1 ELSE 0 END) " +
+                "FROM Restaurant r", Object[].class)
+            .setParameter("approved", RestaurantStatus.APPROVED)
+            .setParameter("pendingApproval", RestaurantStatus.PENDING)
+            .getSingleResult();
+        metrics.setTotalRestaurants(asLong(restaurants[0]));
+        metrics.setActiveRestaurants(asLong(restaurants[1]));
+        metrics.setPendingApprovalRestaurants(asLong(restaurants[2]));
+        
+        Double satisfaction = session.createQuery("SELECT AVG(r.ratingScore) FROM Rating r", Double.class)
+            .getSingleResult();
+        metrics.setCustomerSatisfactionScore(satisfaction != null ? satisfaction : 0.0);
+        
+        metrics.setTopRestaurants(loadTopRestaurants(session, 10));
+        metrics.setTopCustomers(loadTopCustomers(session, 10));
+        metrics.setTopItems(loadTopItems(session, 10));
+        return metrics;
+    }
+    
+    /**
+     * تعداد پرداخت‌های موفق و ناموفق (برای نرخ موفقیت پرداخت)
+     *
+     * @return آرایه {completed, failed}
+     */
+    public long[] getPaymentOutcomeCounts(Session session) {
+        Object[] row = session.createQuery(
+                "SELECT SUM(CASE WHEN t.status = :completed THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN t.status = :failed THEN 1 ELSE 0 END) " +
+                "FROM Transaction t WHERE t.type = :type", Object[].class)
+            .setParameter("completed", TransactionStatus.COMPLETED)
+            .setParameter("failed", TransactionStatus.FAILED)
+            .setParameter("type", TransactionType.PAYMENT)
+            .getSingleResult();
+        return new long[] {asLong(row[0]), asLong(row[1])};
+    }
+    
+    private List<DashboardMetrics.TopRestaurant> loadTopRestaurants(Session session, int limit) {
+        List<Object[]> rows = session.createQuery(
+                "SELECT r.id, r.name, SUM(o.totalAmount), COUNT(o.id) FROM Order o JOIN o.restaurant r " +
+                "WHERE o.status = :delivered GROUP BY r.id, r.name ORDER BY SUM(o.totalAmount) DESC", Object[].class)
+            .setParameter("delivered", OrderStatus.DELIVERED)
+            .setMaxResults(limit)
+            .getResultList();
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // امتیاز با کوئری گروه‌بندی جدا تا join با ratings ردیف سفارش‌ها را تکثیر نکند
+        Map<Long, Double> ratings = new HashMap<>();
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+        for (Object[] rating : session.createQuery(
+                "SELECT rt.restaurant.id, AVG(rt.ratingScore) FROM Rating rt " +
+                "WHERE rt.restaurant.id IN :ids GROUP BY rt.restaurant.id", Object[].class)
+                .setParameterList("ids", ids)
+                .getResultList()) {
+            ratings.put((Long) rating[0], asDouble(rating[1]));
+        }
+        return rows.stream()
+                .map(row -> new DashboardMetrics.TopRestaurant(
+                        (Long) row[0],
+                        (String) row[1],
+                        asDouble(row[2]),
+                        (int) asLong(row[3]),
+                        ratings.get((Long) row[0])))
+                .collect(Collectors.toList());
+    }
+    
+    private List<DashboardMetrics.TopCustomer> loadTopCustomers(Session session, int limit) {
+        return session.createQuery(
+                "SELECT u.id, u.fullName, SUM(o.totalAmount), COUNT(o.id) FROM Order o JOIN o.customer u " +
+                "WHERE o.status = :delivered GROUP BY u.id, u.fullName ORDER BY SUM(o.totalAmount) DESC", Object[].class)
+            .setParameter("delivered", OrderStatus.DELIVERED)
+            .setMaxResults(limit)
+            .getResultList()
+            .stream()
+            .map(row -> new DashboardMetrics.TopCustomer(
+                    (Long) row[0],
+                    (String) row[1],
+                    asDouble(row[2]),
+                    (int) asLong(row[3])))
+            .collect(Collectors.toList());
+    }
+    
+    private List<DashboardMetrics.TopItem> loadTopItems(Session session, int limit) {
+        return session.createQuery(
+                "SELECT fi.id, fi.name, SUM(oi.quantity), SUM(oi.price * oi.quantity), fi.category " +
+                "FROM OrderItem oi JOIN oi.foodItem fi JOIN oi.order o WHERE o.status = :delivered " +
+                "GROUP BY fi.id, fi.name, fi.category ORDER BY SUM(oi.quantity) DESC", Object[].class)
+            .setParameter("delivered", OrderStatus.DELIVERED)
+            .setMaxResults(limit)
+            .getResultList()
+            .stream()
+            .map(row -> new DashboardMetrics.TopItem(
+                    (Long) row[0],
+                    (String) row[1],
+                    (int) asLong(row[2]),
+                    asDouble(row[3]),
+                    (String) row[4]))
+            .collect(Collectors.toList());
+    }
+    
+    private static long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+    
+    private static double asDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+    
+    // ==================== بارگذاری دسته‌ای (JDBC batch) ====================
+    
+    /** تعداد ردیف در هر executeBatch */
+    private static final int JDBC_BATCH_SIZE = 500;
+    
+    private static final String INSERT_ORDER_ANALYTICS_SQL =
+        "INSERT INTO order_analytics (order_id, user_id, restaurant_id, order_date, status, total_amount, " +
+        "delivery_fee, tax, discount, net_amount, hour_of_day, day_of_week, month, year, delivery_time, " +
+        "item_count, order_value_category, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_USER_ANALYTICS_SQL =
+        "INSERT INTO user_analytics (user_id, user_role, registration_date, is_active, total_orders, total_spent, " +
+        "average_order_value, last_order_date, customer_segment, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_RESTAURANT_ANALYTICS_SQL =
+        "INSERT INTO restaurant_analytics (restaurant_id, name, category, city, registration_date, total_orders, " +
+        "total_revenue, average_rating, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_PAYMENT_ANALYTICS_SQL =
+        "INSERT INTO payment_analytics (transaction_id, amount, payment_method, status, transaction_date, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+    
     /**
      * Bulk insert برای OrderAnalytics
+     *
+     * ردیف‌ها با PreparedStatement.addBatch روی connection همان session نوشته
+     * می‌شوند (بدون persistence context و dirty checking)، پس در تراکنش جاری
+     * قرار می‌گیرند و با rollback آن برمی‌گردند.
+     *
+     * @throws RuntimeException در صورت خطای JDBC (تا تراکنش فراخواننده rollback شود)
      */
     public Integer bulkInsertOrderAnalytics(List<OrderAnalytics> analytics, Session session) {
-        try {
-            int inserted = 0;
-            for (int i = 0; i < analytics.size(); i++) {
-                session.save(analytics.get(i));
-                inserted++;
-                
-                if (i % 100 == 0) { // Batch commit every 100 records
-                    session.flush();
-                    session.clear();
-                }
-            }
-            return inserted;
-        } catch (Exception e) {
-            logger.error("خطا در bulk insert سفارشات: {}", e.getMessage());
-            return 0;
-        }
+        LocalDateTime now = LocalDateTime.now();
+        return executeBatch(session, INSERT_ORDER_ANALYTICS_SQL, analytics, (ps, a) -> {
+            ps.setLong(1, a.getOrderId());
+            ps.setLong(2, a.getUserId());
+            ps.setLong(3, a.getRestaurantId());
+            ps.setTimestamp(4, timestamp(a.getOrderDate()));
+            ps.setString(5, a.getStatus());
+            setDouble(ps, 6, a.getTotalAmount());
+            setDouble(ps, 7, a.getDeliveryFee());
+            setDouble(ps, 8, a.getTax());
+            setDouble(ps, 9, a.getDiscount());
+            setDouble(ps, 10, a.getNetAmount());
+            setInt(ps, 11, a.getHourOfDay());
+            setInt(ps, 12, a.getDayOfWeek());
+            setInt(ps, 13, a.getMonth());
+            setInt(ps, 14, a.getYear());
+            setLong(ps, 15, a.getDeliveryTime());
+            setInt(ps, 16, a.getItemCount());
+            ps.setString(17, a.getOrderValueCategory());
+            ps.setTimestamp(18, timestamp(now));
+            ps.setTimestamp(19, timestamp(now));
+        }, "سفارشات");
     }
     
     /**
-     * Bulk insert برای UserAnalytics
+     * Bulk insert برای UserAnalytics (JDBC batch)
      */
     public Integer bulkInsertUserAnalytics(List<UserAnalytics> analytics, Session session) {
-        try {
-            int inserted = 0;
-            for (int i = 0; i < analytics.size(); i++) {
-                session.save(analytics.get(i));
-                inserted++;
-                
-                if (i % 100 == 0) {
-                    session.flush();
-                    session.clear();
-                }
+        LocalDateTime now = LocalDateTime.now();
+        return executeBatch(session, INSERT_USER_ANALYTICS_SQL, analytics, (ps, a) -> {
+            ps.setLong(1, a.getUserId());
+            ps.setString(2, a.getUserRole());
+            ps.setTimestamp(3, timestamp(a.getRegistrationDate()));
+            if (a.getIsActive() != null) {
+                ps.setBoolean(4, a.getIsActive());
+            } else {
+                ps.setNull(4, Types.BOOLEAN);
             }
-            return inserted;
-        } catch (Exception e) {
-            logger.error("خطا در bulk insert کاربران: {}", e.getMessage());
-            return 0;
-        }
+            setInt(ps, 5, a.getTotalOrders());
+            setDouble(ps, 6, a.getTotalSpent());
+            setDouble(ps, 7, a.getAverageOrderValue());
+            ps.setTimestamp(8, timestamp(a.getLastOrderDate()));
+            ps.setString(9, a.getCustomerSegment());
+            ps.setTimestamp(10, timestamp(now));
+            ps.setTimestamp(11, timestamp(now));
+        }, "کاربران");
     }
     
     /**
-     * Bulk insert برای RestaurantAnalytics
+     * Bulk insert برای RestaurantAnalytics (JDBC batch)
      */
     public Integer bulkInsertRestaurantAnalytics(List<RestaurantAnalytics> analytics, Session session) {
-        try {
-            int inserted = 0;
-            for (int i = 0; i < analytics.size(); i++) {
-                session.save(analytics.get(i));
-                inserted++;
-                
-                if (i % 100 == 0) {
-                    session.flush();
-                    session.clear();
-                }
-            }
-            return inserted;
-        } catch (Exception e) {
-            logger.error("خطا در bulk insert رستوران‌ها: {}", e.getMessage());
-            return 0;
-        }
+        LocalDateTime now = LocalDateTime.now();
+        return executeBatch(session, INSERT_RESTAURANT_ANALYTICS_SQL, analytics, (ps, a) -> {
+            ps.setLong(1, a.getRestaurantId());
+            ps.setString(2, a.getName());
+            ps.setString(3, a.getCategory());
+            ps.setString(4, a.getCity());
+            ps.setTimestamp(5, timestamp(a.getRegistrationDate()));
+            setInt(ps, 6, a.getTotalOrders());
+            setDouble(ps, 7, a.getTotalRevenue());
+            setDouble(ps, 8, a.getAverageRating());
+            ps.setTimestamp(9, timestamp(now));
+        }, "رستوران‌ها");
     }
     
     /**
-     * Bulk insert برای PaymentAnalytics
+     * Bulk insert برای PaymentAnalytics (JDBC batch)
      */
     public Integer bulkInsertPaymentAnalytics(List<PaymentAnalytics> analytics, Session session) {
+        LocalDateTime now = LocalDateTime.now();
+        return executeBatch(session, INSERT_PAYMENT_ANALYTICS_SQL, analytics, (ps, a) -> {
+            ps.setLong(1, a.getTransactionId());
+            setDouble(ps, 2, a.getAmount());
+            ps.setString(3, a.getPaymentMethod());
+            ps.setString(4, a.getStatus());
+            ps.setTimestamp(5, timestamp(a.getTransactionDate()));
+            ps.setTimestamp(6, timestamp(now));
+        }, "پرداخت‌ها");
+    }
+    
+    /**
+     * حذف snapshot فعلی کاربران داده شده (قبل از درج snapshot جدید)
+     */
+    public Integer deleteUserAnalytics(Collection<Long> userIds, Session session) {
+        return deleteByIds(session, "user_analytics", "user_id", userIds);
+    }
+    
+    /**
+     * حذف snapshot فعلی رستوران‌های داده شده (قبل از درج snapshot جدید)
+     */
+    public Integer deleteRestaurantAnalytics(Collection<Long> restaurantIds, Session session) {
+        return deleteByIds(session, "restaurant_analytics", "restaurant_id", restaurantIds);
+    }
+    
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+    
+    private <T> Integer executeBatch(Session session, String sql, List<T> rows, RowBinder<T> binder, String label) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
         try {
-            int inserted = 0;
-            for (int i = 0; i < analytics.size(); i++) {
-                session.save(analytics.get(i));
-                inserted++;
-                
-                if (i % 100 == 0) {
-                    session.flush();
-                    session.clear();
+            return session.doReturningWork(connection -> {
+                int inserted = 0;
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    int pending = 0;
+                    for (T row : rows) {
+                        binder.bind(ps, row);
+                        ps.addBatch();
+                        if (++pending == JDBC_BATCH_SIZE) {
+                            inserted += batchCount(ps.executeBatch());
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        inserted += batchCount(ps.executeBatch());
+                    }
                 }
-            }
-            return inserted;
+                return inserted;
+            });
         } catch (Exception e) {
-            logger.error("خطا در bulk insert پرداخت‌ها: {}", e.getMessage());
+            logger.error("خطا در bulk insert {}: {}", label, e.getMessage());
+            throw new RuntimeException("خطا در bulk insert " + label, e);
+        }
+    }
+    
+    private Integer deleteByIds(Session session, String table, String column, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
             return 0;
         }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders + ")";
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (Long id : ids) {
+                    ps.setLong(index++, id);
+                }
+                return ps.executeUpdate();
+            }
+        });
+    }
+    
+    private static int batchCount(int[] results) {
+        int count = 0;
+        for (int result : results) {
+            // برخی درایورها به جای تعداد ردیف SUCCESS_NO_INFO (-2) برمی‌گردانند
+            count += result == Statement.SUCCESS_NO_INFO ? 1 : Math.max(result, 0);
+        }
+        return count;
+    }
+    
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+    
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+    
+    private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+    
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
     }
     
     /**
@@ -1,9 +1,14 @@
 package com.myapp.auth;
 
 import com.myapp.common.utils.JWTUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import com.sun.net.httpserver.HttpExchange;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 
+import java.util.Date;
+import java.util.Map;
+
 /**
  * میان‌افزار احراز هویت برای اعتبارسنجی JWT token
  * این کلاس متدهایی برای احراز هویت درخواست‌ها و استخراج اطلاعات کاربر فراهم می‌کند
@@ -11,6 +16,9 @@ import io.jsonwebtoken.JwtException;
  */
 public class AuthMiddleware {
     
+    // کش نتایج احراز هویت بر اساس token (محدود و آگاه از انقضا)
+    private static final AuthTokenCache tokenCache = new AuthTokenCache();
+    
     /**
      * احراز هویت درخواست با استفاده از JWT token از header Authorization
      * 
@@ -31,38 +39,80 @@ public class AuthMiddleware {
             return AuthResult.unauthenticated("Invalid Authorization header format. Use 'Bearer <token>'");
         }
         
-        return authenticateToken(token);  // اعتبارسنجی token
+        AuthResult result = authenticateToken(token);  // اعتبارسنجی token
+        if (result.isAuthenticated()) {
+            // خواندن‌های بعد از نوشتن همین کاربر از primary انجام می‌شوند
+            ReplicaRouter.bindCurrentUser(result.getUserId());
+        }
+        return result;
     }
     
     /**
      * احراز هویت مستقیم با استفاده از JWT token
      * 
+     * ابتدا کش token ها بررسی می‌شود؛ در صورت hit بررسی امضا انجام نمی‌شود.
+     * در صورت miss، token فقط یک بار پردازش می‌شود (یک بررسی امضا به جای شش بار)
+     * و نتیجه موفق تا زمان انقضای token کش می‌شود.
+     * 
      * @param token JWT token برای اعتبارسنجی
      * @return AuthResult حاوی اطلاعات احراز هویت
      */
     public static AuthResult authenticateToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return AuthResult.unauthenticated("Invalid token");
+        }
+        
+        // token های لغو شده (پس از خروج) پذیرفته نمی‌شوند
+        if (tokenCache.isRevoked(token)) {
+            return AuthResult.unauthenticated("Token revoked");
+        }
+        
+        // مسیر سریع: نتیجه کش شده بدون بررسی مجدد امضا
+        AuthResult cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        
         try {
-            // بررسی معتبر بودن token
-            if (!JWTUtil.validateToken(token)) {
+            // پردازش یکباره token (بررسی امضا، صادرکننده و انقضا)
+            Claims claims;
+            try {
+                claims = JWTUtil.parseClaims(token);
+            } catch (JwtException | IllegalArgumentException e) {
                 return AuthResult.unauthenticated("Invalid token");
             }
             
             // بررسی انقضای token
-            if (JWTUtil.isTokenExpired(token)) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.before(new Date())) {
                 return AuthResult.unauthenticated("Token expired");
             }
             
+            // لیست لغو پر شده بود: token های صادر شده تا آن لحظه پذیرفته نمی‌شوند (fail closed)
+            Date issuedAt = claims.getIssuedAt();
+            if (tokenCache.isIssuedBeforeRevocation(issuedAt != null ? issuedAt.getTime() : null)) {
+                return AuthResult.unauthenticated("Token revoked");
+            }
+            
             // بررسی نوع token (باید Access Token باشد)
-            if (!JWTUtil.isAccessToken(token)) {
+            if (!"access".equals(claims.get("type", String.class))) {
                 return AuthResult.unauthenticated("Invalid token type. Access token required");
             }
             
-            // استخراج اطلاعات کاربر از token
-            Long userId = JWTUtil.getUserIdFromToken(token);
-            String phone = JWTUtil.getPhoneFromToken(token);
-            String role = JWTUtil.getRoleFromToken(token);
+            // استخراج اطلاعات کاربر از claims
+            Long userId = Long.parseLong(claims.getSubject());
+            String phone = claims.get("phone", String.class);
+            if (phone == null) {
+                throw new JwtException("Token does not contain phone claim");
+            }
+            String role = claims.get("role", String.class);
+            if (role == null) {
+                throw new JwtException("Token does not contain role claim");
+            }
             
-            return AuthResult.authenticated(userId, phone, null, role, token);
+            AuthResult result = AuthResult.authenticated(userId, phone, null, role, token);
+            tokenCache.put(token, result, expiration.getTime());
+            return result;
             
         } catch (JwtException e) {
             return AuthResult.unauthenticated("Token validation failed: " + e.getMessage());
@@ -71,6 +121,51 @@ public class AuthMiddleware {
         }
     }
     
+    /**
+     * لغو یک Access Token (مثلاً پس از خروج کاربر)
+     * token از کش حذف شده و تا زمان انقضای طبیعی آن پذیرفته نمی‌شود
+     * 
+     * @param token JWT token برای لغو
+     */
+    public static void revokeToken(String token) {
+        if (token == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + JWTUtil.getRefreshTokenValidity();
+        try {
+            expiresAt = JWTUtil.parseClaims(token).getExpiration().getTime();
+        } catch (JwtException | IllegalArgumentException e) {
+            // token نامعتبر یا منقضی - نگهداری تا حداکثر عمر token
+        }
+        tokenCache.revoke(token, expiresAt);
+    }
+    
+    /**
+     * حذف تمام نتایج کش شده یک کاربر
+     * (مثلاً پس از خروج یا تغییر نقش کاربر)
+     * 
+     * @param userId شناسه کاربر
+     */
+    public static void invalidateUser(Long userId) {
+        tokenCache.invalidateUser(userId);
+    }
+    
+    /**
+     * دریافت آمار کش token ها برای مانیتورینگ
+     * 
+     * @return نقشه آمار شامل hits، misses و hitRate
+     */
+    public static Map<String, Object> getTokenCacheStats() {
+        return tokenCache.getStats();
+    }
+    
+    /**
+     * پاک کردن کامل کش token ها (برای تست‌ها)
+     */
+    public static void clearTokenCache() {
+        tokenCache.clear();
+    }
+    
     /**
      * بررسی داشتن نقش مورد نیاز توسط کاربر
      * 
@@ -3,6 +3,7 @@ package com.myapp.auth;
 import com.myapp.auth.dto.RegisterRequest;
 import com.myapp.auth.dto.LoginRequest;
 import com.myapp.auth.dto.UpdateProfileRequest;
+import com.myapp.analytics.dashboard.DashboardCounters;
 import com.myapp.common.exceptions.InvalidCredentialsException;
 import com.myapp.common.models.User;
 import com.myapp.common.exceptions.NotFoundException;
@@ -57,7 +58,9 @@ public class AuthService {
         User user = new User(req.getFullName(), req.getPhone(), req.getEmail(),
                 passwordHash, req.getRole(), req.getAddress());
         
-        return repository.saveNew(user);  // ذخیره کاربر در دیتابیس
+        User saved = repository.saveNew(user);  // ذخیره کاربر در دیتابیس
+        DashboardCounters.global().recordUserRegistered();
+        return saved;
     }
 
     /**
@@ -176,6 +179,8 @@ public class AuthService {
      */
     public String logout(Long userId) {
         // در سیستم JWT stateless، خروج معمولاً با حذف token از storage کلاینت انجام می‌شود
+        // نتایج احراز هویت کش شده این کاربر نیز حذف می‌شوند
+        AuthMiddleware.invalidateUser(userId);
         return "Logged out successfully";
     }
 
@@ -238,7 +243,9 @@ public class AuthService {
      * @throws DuplicatePhoneException در صورت تکراری بودن شماره تلفن
      */
     public User registerUser(User user) {
-        return repository.saveNew(user);
+        User saved = repository.saveNew(user);
+        DashboardCounters.global().recordUserRegistered();
+        return saved;
     }
 
 
@@ -0,0 +1,287 @@
+package com.myapp.auth;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * کش محدود و آگاه از انقضا برای نتایج احراز هویت JWT
+ *
+ * کلید کش خود token است و مقدار آن AuthResult احراز شده به همراه زمان انقضای token.
+ * در صورت hit، بررسی امضای HMAC کاملاً حذف می‌شود تا زمانی که token منقضی شود.
+ *
+ * ویژگی‌ها:
+ * - محدودیت تعداد ورودی‌ها (حذف ورودی‌های منقضی و سپس حذف بخشی از ورودی‌ها در زمان پر شدن)
+ * - حذف خودکار ورودی پس از رسیدن به زمان انقضای token
+ * - لغو (revoke) token پس از خروج کاربر تا زمان انقضای طبیعی آن؛ token های لغو شده منقضی
+ *   به صورت دوره‌ای پاک می‌شوند و تعداد آن‌ها نیز به maxEntries محدود است
+ * - اگر لیست لغو شده‌ها با token های منقضی نشده پر باشد، هیچ ورودی زنده‌ای حذف نمی‌شود؛
+ *   به جای آن تمام token های صادر شده تا آن لحظه رد می‌شوند (fail closed، نیاز به ورود مجدد)
+ * - آمار hit/miss برای مانیتورینگ
+ *
+ * این کلاس thread-safe است و توسط AuthMiddleware استفاده می‌شود
+ */
+public class AuthTokenCache {
+
+    /** حداکثر پیش‌فرض تعداد token های کش شده */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // نسبت ورودی‌هایی که در زمان پر شدن کش حذف می‌شوند
+    private static final int EVICTION_DIVISOR = 10;
+
+    // فاصله پاکسازی token های لغو شده‌ای که به زمان انقضای خود رسیده‌اند
+    static final long REVOKED_SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * ورودی کش - نتیجه احراز هویت و زمان انقضای token
+     */
+    private static final class Entry {
+        private final AuthResult principal;
+        private final long expiresAtMillis;
+        // مرز لغو در زمان ذخیره؛ ورودی‌هایی که پیش از پر شدن لیست لغو ذخیره شده‌اند معتبر نیستند
+        private final long revokedBeforeAtPut;
+
+        private Entry(AuthResult principal, long expiresAtMillis, long revokedBeforeAtPut) {
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+            this.revokedBeforeAtPut = revokedBeforeAtPut;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    // آمار کش
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong revokedOverflows = new AtomicLong();
+    // token هایی که قبل از این زمان صادر شده‌اند لغو شده محسوب می‌شوند (0 یعنی بدون مرز)
+    private final AtomicLong revokedBefore = new AtomicLong();
+    private final AtomicLong nextRevokedSweepAt = new AtomicLong();
+
+    /**
+     * سازنده پیش‌فرض با ظرفیت پیش‌فرض و ساعت سیستم
+     */
+    public AuthTokenCache() {
+        this(DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    /**
+     * سازنده با ظرفیت و ساعت قابل تنظیم (برای تست)
+     *
+     * @param maxEntries حداکثر تعداد ورودی‌ها
+     * @param clock منبع زمان بر حسب میلی‌ثانیه
+     */
+    public AuthTokenCache(int maxEntries, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * دریافت نتیجه احراز هویت کش شده
+     *
+     * @param token JWT token
+     * @return AuthResult کش شده یا null در صورت miss یا انقضا
+     */
+    public AuthResult get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (clock.getAsLong() >= entry.expiresAtMillis || entry.revokedBeforeAtPut != revokedBefore.get()) {
+            entries.remove(token, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.principal;
+    }
+
+    /**
+     * ذخیره نتیجه احراز هویت موفق
+     *
+     * @param token JWT token
+     * @param principal نتیجه احراز هویت موفق
+     * @param expiresAtMillis زمان انقضای token
+     */
+    public void put(String token, AuthResult principal, long expiresAtMillis) {
+        if (token == null || principal == null || !principal.isAuthenticated()) {
+            return;
+        }
+        if (clock.getAsLong() >= expiresAtMillis || isRevoked(token)) {
+            return;
+        }
+        long cutoff = revokedBefore.get();
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(token, new Entry(principal, expiresAtMillis, cutoff));
+    }
+
+    /**
+     * لغو یک token - حذف از کش و ثبت در لیست لغو شده‌ها تا زمان انقضا
+     *
+     * اگر لیست لغو شده‌ها با token های منقضی نشده پر باشد، هیچ ورودی کنار گذاشته نمی‌شود؛
+     * مرز revokedBefore به زمان فعلی منتقل شده و تمام token های صادر شده تا این لحظه
+     * (از جمله همین token) رد می‌شوند. لیست و کش که زیر پوشش این مرز هستند خالی می‌شوند
+     * (شمارنده revokedOverflows).
+     *
+     * @param token JWT token
+     * @param expiresAtMillis زمان انقضای token (پس از آن نیازی به نگهداری نیست)
+     */
+    public void revoke(String token, long expiresAtMillis) {
+        if (token == null) {
+            return;
+        }
+        entries.remove(token);
+        long now = clock.getAsLong();
+        sweepRevoked(now);
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        if (revoked.size() >= maxEntries && !revoked.containsKey(token)) {
+            // تمام token های موجود در لیست قبل از این لحظه صادر شده‌اند و مرز جدید آن‌ها را پوشش می‌دهد
+            revokedBefore.accumulateAndGet(now, Math::max);
+            revoked.clear();
+            entries.clear();
+            revokedOverflows.incrementAndGet();
+            return;
+        }
+        revoked.put(token, expiresAtMillis);
+    }
+
+    /**
+     * بررسی صدور token قبل از مرز لغو (پس از پر شدن لیست لغو شده‌ها)
+     *
+     * زمان صدور JWT با دقت ثانیه است، بنابراین token هایی که در همان ثانیه پر شدن لیست
+     * صادر شده‌اند نیز رد می‌شوند.
+     *
+     * @param issuedAtMillis زمان صدور token (iat) یا null در صورت نبود claim
+     * @return true اگر token باید لغو شده محسوب شود
+     */
+    public boolean isIssuedBeforeRevocation(Long issuedAtMillis) {
+        long cutoff = revokedBefore.get();
+        if (cutoff == 0) {
+            return false;
+        }
+        return issuedAtMillis == null || issuedAtMillis <= cutoff;
+    }
+
+    /**
+     * بررسی لغو شدن token
+     *
+     * @param token JWT token
+     * @return true اگر token لغو شده و هنوز منقضی نشده باشد
+     */
+    public boolean isRevoked(String token) {
+        if (token == null) {
+            return false;
+        }
+        Long expiry = revoked.get(token);
+        if (expiry == null) {
+            return false;
+        }
+        if (clock.getAsLong() >= expiry) {
+            revoked.remove(token, expiry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * حذف تمام ورودی‌های کش شده یک کاربر
+     *
+     * @param userId شناسه کاربر
+     * @return تعداد ورودی‌های حذف شده
+     */
+    public int invalidateUser(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (userId.equals(iterator.next().principal.getUserId())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * حذف token های لغو شده منقضی - حداکثر یک بار در هر بازه یا زمانی که لیست پر است
+     */
+    private void sweepRevoked(long now) {
+        if (now < nextRevokedSweepAt.get() && revoked.size() < maxEntries) {
+            return;
+        }
+        nextRevokedSweepAt.set(now + REVOKED_SWEEP_INTERVAL_MILLIS);
+        revoked.values().removeIf(expiry -> expiry <= now);
+    }
+
+    /**
+     * آزادسازی فضا: ابتدا ورودی‌های منقضی و در صورت نیاز بخشی از سایر ورودی‌ها
+     */
+    private void evict() {
+        long now = clock.getAsLong();
+        sweepRevoked(now);
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+
+        int toRemove = entries.size() - maxEntries + Math.max(1, maxEntries / EVICTION_DIVISOR);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (toRemove > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            toRemove--;
+        }
+        evictions.addAndGet(Math.max(0, before - entries.size()));
+    }
+
+    /**
+     * پاک کردن کامل کش و لیست لغو شده‌ها
+     */
+    public void clear() {
+        entries.clear();
+        revoked.clear();
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        revokedOverflows.set(0);
+        revokedBefore.set(0);
+        nextRevokedSweepAt.set(0);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * دریافت آمار کش
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = hits.get() + misses.get();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("revoked", revoked.size());
+        stats.put("revokedOverflows", revokedOverflows.get());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", total > 0 ? (double) hits.get() / total : 0.0);
+        return stats;
+    }
+}
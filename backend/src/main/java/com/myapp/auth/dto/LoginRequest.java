@@ -1,5 +1,7 @@
 package com.myapp.auth.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+
 /**
  * کلاس درخواست ورود - DTO برای دریافت اطلاعات ورود کاربر
  * این کلاس داده‌های لازم برای احراز هویت کاربر را نگهداری می‌کند
@@ -7,6 +9,7 @@ package com.myapp.auth.dto;
  */
 public class LoginRequest {
     private String phone;        // شماره تلفن کاربر (یکتا و اجباری)
+    @JsonAlias("password")       // بدنه JSON ورود فیلد password را می‌فرستد
     private String passwordHash; // رمز عبور hash شده
 
     /**
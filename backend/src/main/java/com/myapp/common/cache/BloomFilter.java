@@ -0,0 +1,103 @@
+package com.myapp.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter برای رشته‌ها
+ *
+ * پاسخ {@link #mightContain} برای رشته‌ای که اضافه شده همیشه true است و برای
+ * بقیه با احتمال حدود falsePositiveRate نادرست true می‌شود. پس false یعنی
+ * «قطعاً وجود ندارد» و می‌توان بدون رفتن به دیتابیس پاسخ منفی داد.
+ *
+ * k موقعیت بیت با double hashing از دو hash 64 بیتی (FNV-1a و mix از نوع
+ * murmur3) ساخته می‌شوند. بیت‌ها در AtomicLongArray هستند، پس add و
+ * mightContain همزمان بدون قفل امن‌اند. حذف پشتیبانی نمی‌شود؛ برای پاک کردن
+ * عضوها باید فیلتر از نو ساخته شود.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions تعداد تقریبی عضوها
+     * @param falsePositiveRate نرخ مطلوب پاسخ مثبت نادرست (بین 0 و 1)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (m + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + expectedInsertions);
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * افزودن عضو
+     */
+    public void add(String value) {
+        long h1 = fnv1a(value);
+        long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return false اگر value قطعاً اضافه نشده است
+     */
+    public boolean mightContain(String value) {
+        long h1 = fnv1a(value);
+        long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** تعداد بیت‌های فیلتر */
+    public long bitSize() {
+        return bitCount;
+    }
+
+    /** تعداد تابع hash */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // fmix64 از MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
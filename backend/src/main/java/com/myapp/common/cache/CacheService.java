@@ -1,11 +1,26 @@
 package com.myapp.common.cache;
 
+import com.myapp.common.metrics.MetricsRegistry;
+import com.myapp.common.metrics.PrometheusWriter;
 import com.myapp.common.models.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -13,6 +28,26 @@ import java.util.function.Supplier;
  * 
  * این سرویس cache strategies مختلف برای انواع داده‌ها ارائه می‌دهد
  * 
+ * Cache دو لایه:
+ * - L1: LocalCache درون پردازه‌ای (بدون شبکه و بدون deserialize) با TTL کوتاه
+ * - L2: Redis مشترک بین همه node ها
+ * 
+ * خواندن: L1 → L2 (و پر کردن L1) → fallback (و نوشتن در هر دو لایه).
+ * Invalidation: حذف از هر دو لایه و ارسال کلید روی کانال pub/sub تا L1 سایر
+ * node ها نیز پاک شود. اگر Redis در دسترس نباشد سرویس فقط با L1 کار می‌کند؛
+ * در آن حالت TTL کوتاه L1 سقف کهنگی داده روی node های دیگر است و پس از
+ * اتصال مجدد subscriber کل L1 پاک می‌شود (پیام‌های از دست رفته جبران شود).
+ * ساختارهای درون حافظه‌ای دیگر (مانند ایندکس جستجوی کاتالوگ) با
+ * addInvalidationListener همین پیام‌ها را دریافت می‌کنند.
+ * 
+ * Miss ها single-flight هستند: در هر node فقط یک فراخواننده برای هر کلید
+ * fallback را اجرا می‌کند و بقیه منتظر همان نتیجه می‌مانند. داده‌های کاتالوگ
+ * و گزارش‌ها پس از TTL تا cache.l1.stale.seconds به صورت کهنه سرو می‌شوند
+ * در حالی که یک thread پس‌زمینه آن‌ها را refresh می‌کند؛ کلیدهای پرمصرف نیز
+ * با احتمالی که نزدیک انقضا بیشتر می‌شود زودتر refresh می‌شوند (XFetch).
+ * 
+ * مقادیر L1 بین فراخواننده‌ها مشترک هستند و نباید تغییر داده شوند.
+ * 
  * Cache Strategies:
  * - User Data: Medium TTL (30 min)
  * - Restaurant Data: Long TTL (1 hour)
@@ -29,8 +64,43 @@ public class CacheService {
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
     
     private final RedisCacheManager cacheManager;
+    private final LocalCache localCache;
+    private final long localTtlMillis;
+    private final String nodeId;
+    private final long staleMillis;
     private static CacheService instance;
     
+    // بارگذاری‌های در جریان هر کلید (single-flight)
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    
+    // آمار بارگذاری
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    
+    // کانال pub/sub برای invalidation بین node ها
+    static final String INVALIDATION_CHANNEL = "cache:invalidate";
+    private static final String WILDCARD = "*";
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+    
+    // L1 Configuration
+    private static final long L1_MAX_ENTRIES = Long.parseLong(System.getProperty("cache.l1.max.entries", "10000"));
+    private static final long L1_MAX_WEIGHT = Long.parseLong(System.getProperty("cache.l1.max.weight", "100000"));
+    private static final long L1_TTL_SECONDS = Long.parseLong(System.getProperty("cache.l1.ttl.seconds", "60"));
+    private static final long L1_STALE_SECONDS = Long.parseLong(System.getProperty("cache.l1.stale.seconds", "30"));
+    private static final int REFRESH_THREADS = Integer.getInteger("cache.refresh.threads", 2);
+    
+    // ضریب XFetch - مقدار بزرگ‌تر یعنی refresh زودتر
+    private static final double EARLY_REFRESH_BETA = 1.0;
+    
+    // سیاست تازگی هر نوع داده: داده‌های کاتالوگ و گزارش‌ها در زمان refresh
+    // می‌توانند کوتاه‌مدت کهنه سرو شوند؛ کاربر و سفارش همیشه تازه
+    private static final boolean SERVE_STALE = true;
+    private static final boolean FRESH_ONLY = false;
+    
     // Cache Key Prefixes
     private static final String USER_PREFIX = "user:";
     private static final String RESTAURANT_PREFIX = "restaurant:";
@@ -46,8 +116,31 @@ public class CacheService {
      * Private constructor - Singleton pattern
      */
     private CacheService() {
-        this.cacheManager = RedisCacheManager.getInstance();
-        logger.info("📊 Cache Service initialized with Redis backend");
+        this(RedisCacheManager.getInstance(), new LocalCache(L1_MAX_ENTRIES, L1_MAX_WEIGHT),
+             TimeUnit.SECONDS.toMillis(L1_TTL_SECONDS), TimeUnit.SECONDS.toMillis(L1_STALE_SECONDS));
+    }
+    
+    /**
+     * سازنده با لایه‌های قابل تنظیم (برای تست)
+     * 
+     * @param cacheManager لایه L2
+     * @param localCache لایه L1
+     * @param localTtlMillis سقف TTL ورودی‌های L1
+     * @param staleMillis مدت سرو مقدار کهنه در حین refresh (stale-while-revalidate)
+     */
+    CacheService(RedisCacheManager cacheManager, LocalCache localCache, long localTtlMillis, long staleMillis) {
+        this.cacheManager = cacheManager;
+        this.localCache = localCache;
+        this.localTtlMillis = localTtlMillis;
+        this.staleMillis = staleMillis;
+        this.nodeId = UUID.randomUUID().toString();
+        this.refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cacheManager.subscribe(INVALIDATION_CHANNEL, this::onInvalidation, this::onSubscribed);
+        logger.info("📊 Cache Service initialized with L1 ({} entries) + Redis backend", localCache.getMaxEntries());
     }
     
     /**
@@ -56,6 +149,7 @@ public class CacheService {
     public static synchronized CacheService getInstance() {
         if (instance == null) {
             instance = new CacheService();
+            MetricsRegistry.global().register("cache", instance::collectMetrics);
         }
         return instance;
     }
@@ -70,7 +164,7 @@ public class CacheService {
     public boolean cacheUser(User user) {
         if (user == null || user.getId() == null) return false;
         String key = USER_PREFIX + user.getId();
-        return cacheManager.set(key, user, RedisCacheManager.TTL_MEDIUM);
+        return write(key, user, RedisCacheManager.TTL_MEDIUM, FRESH_ONLY);
     }
     
     /**
@@ -80,18 +174,7 @@ public class CacheService {
         if (userId == null) return null;
         
         String key = USER_PREFIX + userId;
-        User cachedUser = cacheManager.get(key, User.class);
-        
-        if (cachedUser != null) {
-            return cachedUser;
-        }
-        
-        // Cache miss - execute fallback and cache result
-        User user = fallback.get();
-        if (user != null) {
-            cacheUser(user);
-        }
-        return user;
+        return read(key, User.class, RedisCacheManager.TTL_MEDIUM, FRESH_ONLY, fallback);
     }
     
     /**
@@ -100,7 +183,7 @@ public class CacheService {
     public boolean invalidateUser(Long userId) {
         if (userId == null) return false;
         String key = USER_PREFIX + userId;
-        return cacheManager.delete(key);
+        return evict(key);
     }
     
     // ================================================================
@@ -113,7 +196,7 @@ public class CacheService {
     public boolean cacheRestaurant(Restaurant restaurant) {
         if (restaurant == null || restaurant.getId() == null) return false;
         String key = RESTAURANT_PREFIX + restaurant.getId();
-        return cacheManager.set(key, restaurant, RedisCacheManager.TTL_LONG);
+        return write(key, restaurant, RedisCacheManager.TTL_LONG, SERVE_STALE);
     }
     
     /**
@@ -123,17 +206,7 @@ public class CacheService {
         if (restaurantId == null) return null;
         
         String key = RESTAURANT_PREFIX + restaurantId;
-        Restaurant cached = cacheManager.get(key, Restaurant.class);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        Restaurant restaurant = fallback.get();
-        if (restaurant != null) {
-            cacheRestaurant(restaurant);
-        }
-        return restaurant;
+        return read(key, Restaurant.class, RedisCacheManager.TTL_LONG, SERVE_STALE, fallback);
     }
     
     /**
@@ -141,26 +214,15 @@ public class CacheService {
      */
     public boolean cacheRestaurantList(String cacheKey, List<Restaurant> restaurants) {
         String key = RESTAURANT_PREFIX + "list:" + cacheKey;
-        return cacheManager.set(key, restaurants, RedisCacheManager.TTL_MEDIUM);
+        return write(key, restaurants, RedisCacheManager.TTL_MEDIUM, SERVE_STALE);
     }
     
     /**
      * Get cached restaurant list
      */
-    @SuppressWarnings("unchecked")
     public List<Restaurant> getRestaurantList(String cacheKey, Supplier<List<Restaurant>> fallback) {
         String key = RESTAURANT_PREFIX + "list:" + cacheKey;
-        List<Restaurant> cached = cacheManager.get(key, List.class);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        List<Restaurant> restaurants = fallback.get();
-        if (restaurants != null) {
-            cacheRestaurantList(cacheKey, restaurants);
-        }
-        return restaurants;
+        return readList(key, Restaurant.class, RedisCacheManager.TTL_MEDIUM, SERVE_STALE, fallback);
     }
     
     /**
@@ -171,10 +233,10 @@ public class CacheService {
         
         // Delete specific restaurant
         String key = RESTAURANT_PREFIX + restaurantId;
-        boolean deleted = cacheManager.delete(key);
+        boolean deleted = evict(key);
         
         // Delete restaurant lists that might contain this restaurant
-        cacheManager.deleteByPattern(RESTAURANT_PREFIX + "list:*");
+        evictPrefix(RESTAURANT_PREFIX + "list:");
         
         return deleted;
     }
@@ -189,28 +251,17 @@ public class CacheService {
     public boolean cacheMenuItems(Long restaurantId, List<FoodItem> items) {
         if (restaurantId == null) return false;
         String key = MENU_PREFIX + restaurantId;
-        return cacheManager.set(key, items, RedisCacheManager.TTL_MEDIUM);
+        return write(key, items, RedisCacheManager.TTL_MEDIUM, SERVE_STALE);
     }
     
     /**
      * Get cached menu items
      */
-    @SuppressWarnings("unchecked")
     public List<FoodItem> getMenuItems(Long restaurantId, Supplier<List<FoodItem>> fallback) {
         if (restaurantId == null) return null;
         
         String key = MENU_PREFIX + restaurantId;
-        List<FoodItem> cached = cacheManager.get(key, List.class);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        List<FoodItem> items = fallback.get();
-        if (items != null) {
-            cacheMenuItems(restaurantId, items);
-        }
-        return items;
+        return readList(key, FoodItem.class, RedisCacheManager.TTL_MEDIUM, SERVE_STALE, fallback);
     }
     
     /**
@@ -219,7 +270,7 @@ public class CacheService {
     public boolean cacheItem(FoodItem item) {
         if (item == null || item.getId() == null) return false;
         String key = ITEM_PREFIX + item.getId();
-        return cacheManager.set(key, item, RedisCacheManager.TTL_MEDIUM);
+        return write(key, item, RedisCacheManager.TTL_MEDIUM, SERVE_STALE);
     }
     
     /**
@@ -229,17 +280,16 @@ public class CacheService {
         if (itemId == null) return null;
         
         String key = ITEM_PREFIX + itemId;
-        FoodItem cached = cacheManager.get(key, FoodItem.class);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        FoodItem item = fallback.get();
-        if (item != null) {
-            cacheItem(item);
-        }
-        return item;
+        return read(key, FoodItem.class, RedisCacheManager.TTL_MEDIUM, SERVE_STALE, fallback);
+    }
+    
+    /**
+     * Invalidate cached food item
+     */
+    public boolean invalidateItem(Long itemId) {
+        if (itemId == null) return false;
+        String key = ITEM_PREFIX + itemId;
+        return evict(key);
     }
     
     /**
@@ -248,7 +298,7 @@ public class CacheService {
     public boolean invalidateMenu(Long restaurantId) {
         if (restaurantId == null) return false;
         String key = MENU_PREFIX + restaurantId;
-        return cacheManager.delete(key);
+        return evict(key);
     }
     
     // ================================================================
@@ -261,7 +311,7 @@ public class CacheService {
     public boolean cacheOrder(Order order) {
         if (order == null || order.getId() == null) return false;
         String key = ORDER_PREFIX + order.getId();
-        return cacheManager.set(key, order, RedisCacheManager.TTL_SHORT);
+        return write(key, order, RedisCacheManager.TTL_SHORT, FRESH_ONLY);
     }
     
     /**
@@ -271,17 +321,7 @@ public class CacheService {
         if (orderId == null) return null;
         
         String key = ORDER_PREFIX + orderId;
-        Order cached = cacheManager.get(key, Order.class);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        Order order = fallback.get();
-        if (order != null) {
-            cacheOrder(order);
-        }
-        return order;
+        return read(key, Order.class, RedisCacheManager.TTL_SHORT, FRESH_ONLY, fallback);
     }
     
     /**
@@ -290,7 +330,7 @@ public class CacheService {
     public boolean cacheUserOrders(Long userId, List<Order> orders) {
         if (userId == null) return false;
         String key = ORDER_PREFIX + "user:" + userId;
-        return cacheManager.set(key, orders, RedisCacheManager.TTL_SHORT);
+        return write(key, orders, RedisCacheManager.TTL_SHORT, FRESH_ONLY);
     }
     
     /**
@@ -299,7 +339,7 @@ public class CacheService {
     public boolean invalidateOrder(Long orderId) {
         if (orderId == null) return false;
         String key = ORDER_PREFIX + orderId;
-        return cacheManager.delete(key);
+        return evict(key);
     }
     
     // ================================================================
@@ -311,7 +351,7 @@ public class CacheService {
      */
     public boolean cacheAnalytics(String analyticsKey, Object data) {
         String key = ANALYTICS_PREFIX + analyticsKey;
-        return cacheManager.set(key, data, RedisCacheManager.TTL_LONG);
+        return write(key, data, RedisCacheManager.TTL_LONG, SERVE_STALE);
     }
     
     /**
@@ -319,24 +359,14 @@ public class CacheService {
      */
     public <T> T getAnalytics(String analyticsKey, Class<T> type, Supplier<T> fallback) {
         String key = ANALYTICS_PREFIX + analyticsKey;
-        T cached = cacheManager.get(key, type);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        T data = fallback.get();
-        if (data != null) {
-            cacheAnalytics(analyticsKey, data);
-        }
-        return data;
+        return read(key, type, RedisCacheManager.TTL_LONG, SERVE_STALE, fallback);
     }
     
     /**
      * Invalidate analytics cache by pattern
      */
     public boolean invalidateAnalytics(String pattern) {
-        return cacheManager.deleteByPattern(ANALYTICS_PREFIX + pattern + "*");
+        return evictPrefix(ANALYTICS_PREFIX + pattern);
     }
     
     // ================================================================
@@ -345,6 +375,9 @@ public class CacheService {
     
     /**
      * Cache user session with short TTL
+     * 
+     * Session ها فقط در Redis نگهداری می‌شوند تا invalidate شدن آن‌ها
+     * بلافاصله روی همه node ها اعمال شود (بدون پنجره کهنگی L1).
      */
     public boolean cacheSession(String sessionId, Map<String, Object> sessionData) {
         if (sessionId == null) return false;
@@ -380,7 +413,7 @@ public class CacheService {
      */
     public boolean cacheSearchResults(String searchQuery, Object results) {
         String key = SEARCH_PREFIX + searchQuery.toLowerCase().replaceAll("\\s+", "_");
-        return cacheManager.set(key, results, RedisCacheManager.TTL_MEDIUM);
+        return write(key, results, RedisCacheManager.TTL_MEDIUM, FRESH_ONLY);
     }
     
     /**
@@ -388,7 +421,7 @@ public class CacheService {
      */
     public <T> T getSearchResults(String searchQuery, Class<T> type) {
         String key = SEARCH_PREFIX + searchQuery.toLowerCase().replaceAll("\\s+", "_");
-        return cacheManager.get(key, type);
+        return read(key, type, RedisCacheManager.TTL_MEDIUM, FRESH_ONLY, () -> null);
     }
     
     // ================================================================
@@ -400,7 +433,7 @@ public class CacheService {
      */
     public boolean cacheStats(String statsKey, Object stats) {
         String key = STATS_PREFIX + statsKey;
-        return cacheManager.set(key, stats, RedisCacheManager.TTL_DAILY);
+        return write(key, stats, RedisCacheManager.TTL_DAILY, SERVE_STALE);
     }
     
     /**
@@ -408,17 +441,7 @@ public class CacheService {
      */
     public <T> T getStats(String statsKey, Class<T> type, Supplier<T> fallback) {
         String key = STATS_PREFIX + statsKey;
-        T cached = cacheManager.get(key, type);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        T stats = fallback.get();
-        if (stats != null) {
-            cacheStats(statsKey, stats);
-        }
-        return stats;
+        return read(key, type, RedisCacheManager.TTL_DAILY, SERVE_STALE, fallback);
     }
     
     // ================================================================
@@ -442,6 +465,9 @@ public class CacheService {
      */
     public boolean clearAllCache() {
         logger.warn("🧹 Clearing ALL cache data...");
+        inFlight.clear();
+        localCache.invalidateAll();
+        cacheManager.publish(INVALIDATION_CHANNEL, nodeId + " " + WILDCARD);
         return cacheManager.flushAll();
     }
     
@@ -449,9 +475,62 @@ public class CacheService {
      * Get cache statistics
      */
     public Map<String, Object> getCacheStatistics() {
-        return cacheManager.getStatistics();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("l1", localCache.getStatistics());
+        stats.put("l2", cacheManager.getStatistics());
+        
+        Map<String, Object> loadStats = new HashMap<>();
+        loadStats.put("loads", loads.sum());
+        loadStats.put("coalescedLoads", coalescedLoads.sum());
+        loadStats.put("earlyRefreshes", earlyRefreshes.sum());
+        loadStats.put("staleServed", staleServed.sum());
+        loadStats.put("refreshFailures", refreshFailures.sum());
+        loadStats.put("inFlight", inFlight.size());
+        stats.put("loads", loadStats);
+        return stats;
     }
     
+    /**
+     * نوشتن آمار L1 و Redis در قالب Prometheus
+     *
+     * فقط شمارنده‌های درون حافظه خوانده می‌شوند (بدون ping یا قفل segment ها).
+     */
+    public void collectMetrics(PrometheusWriter writer) {
+        long l1Hits = localCache.getHits();
+        long l1Misses = localCache.getMisses();
+        long l2Hits = cacheManager.getHits();
+        long l2Misses = cacheManager.getMisses();
+
+        writer.family("cache_hits_total", "counter", "Cache hits by layer")
+              .sample("cache_hits_total", l1Hits, "cache", "l1")
+              .sample("cache_hits_total", l2Hits, "cache", "redis");
+        writer.family("cache_misses_total", "counter", "Cache misses by layer")
+              .sample("cache_misses_total", l1Misses, "cache", "l1")
+              .sample("cache_misses_total", l2Misses, "cache", "redis");
+        writer.family("cache_requests_total", "counter", "Cache lookups by layer")
+              .sample("cache_requests_total", l1Hits + l1Misses, "cache", "l1")
+              .sample("cache_requests_total", l2Hits + l2Misses, "cache", "redis");
+        writer.family("cache_hit_ratio", "gauge", "Cache hit ratio since start (0-1)")
+              .sample("cache_hit_ratio", ratio(l1Hits, l1Misses), "cache", "l1")
+              .sample("cache_hit_ratio", ratio(l2Hits, l2Misses), "cache", "redis");
+        writer.family("cache_stale_hits_total", "counter", "Stale L1 entries served while refreshing")
+              .sample("cache_stale_hits_total", localCache.getStaleHits(), "cache", "l1");
+        writer.family("cache_evictions_total", "counter", "L1 entries evicted by size")
+              .sample("cache_evictions_total", localCache.getEvictions(), "cache", "l1");
+        writer.family("cache_errors_total", "counter", "Redis operation errors")
+              .sample("cache_errors_total", cacheManager.getErrors(), "cache", "redis");
+        writer.counter("cache_loads_total", "Loader invocations on cache miss", loads.sum());
+        writer.counter("cache_coalesced_loads_total", "Misses that joined an in-flight load", coalescedLoads.sum());
+        writer.counter("cache_refresh_failures_total", "Failed background refreshes", refreshFailures.sum());
+        writer.gauge("redis_pool_connections_active", "Redis connections in use", cacheManager.getActiveConnections());
+        writer.gauge("redis_pool_connections_idle", "Idle Redis connections", cacheManager.getIdleConnections());
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0;
+    }
+
     /**
      * Check cache health
      */
@@ -463,6 +542,12 @@ public class CacheService {
      * Reset cache statistics
      */
     public void resetStatistics() {
+        localCache.resetStatistics();
+        loads.reset();
+        coalescedLoads.reset();
+        earlyRefreshes.reset();
+        staleServed.reset();
+        refreshFailures.reset();
         cacheManager.resetStatistics();
     }
     
@@ -471,6 +556,248 @@ public class CacheService {
      */
     public void shutdown() {
         logger.info("🔒 Shutting down Cache Service...");
+        refreshExecutor.shutdownNow();
+        localCache.invalidateAll();
         cacheManager.shutdown();
     }
+    
+    // ================================================================
+    // TWO-TIER OPERATIONS
+    // ================================================================
+    
+    /**
+     * خواندن از L1، سپس L2 و در نهایت fallback
+     */
+    private <T> T read(String key, Class<T> type, int ttlSeconds, boolean serveStale, Supplier<T> fallback) {
+        return read(key, type, ttlSeconds, serveStale, () -> cacheManager.get(key, type), fallback);
+    }
+    
+    /**
+     * خواندن لیست با نوع عناصر مشخص (L2 لیست را با نوع صحیح deserialize می‌کند)
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readList(String key, Class<T> elementType, int ttlSeconds, boolean serveStale,
+                                 Supplier<List<T>> fallback) {
+        return read(key, (Class<List<T>>) (Class<?>) List.class, ttlSeconds, serveStale,
+                    () -> cacheManager.getList(key, elementType), fallback);
+    }
+    
+    /**
+     * مسیر مشترک خواندن دو لایه
+     * 
+     * - hit تازه در L1: بدون I/O برمی‌گردد؛ با احتمالی که نزدیک انقضا بیشتر
+     *   می‌شود یک refresh پس‌زمینه شروع می‌شود (probabilistic early refresh)
+     * - hit کهنه در L1 (فقط با serveStale): مقدار کهنه برمی‌گردد و یک refresh
+     *   پس‌زمینه شروع می‌شود (stale-while-revalidate)
+     * - miss: بارگذاری همزمان هر کلید فقط یک بار اجرا می‌شود و بقیه منتظر
+     *   همان نتیجه می‌مانند (single-flight)
+     */
+    private <T> T read(String key, Class<T> type, int ttlSeconds, boolean serveStale,
+                       Supplier<T> remote, Supplier<T> fallback) {
+        LocalCache.Lookup<T> local = localCache.lookup(key, type);
+        if (local != null) {
+            if (local.isStale()) {
+                staleServed.increment();
+                refreshInBackground(key, ttlSeconds, serveStale, remote, fallback);
+            } else if (shouldRefreshEarly(local)) {
+                earlyRefreshes.increment();
+                refreshInBackground(key, ttlSeconds, serveStale, remote, fallback);
+            }
+            return local.getValue();
+        }
+        return loadOnce(key, ttlSeconds, serveStale, remote, fallback);
+    }
+    
+    /**
+     * بارگذاری single-flight: اولین فراخواننده بارگذاری می‌کند و بقیه منتظر نتیجه آن می‌مانند
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadOnce(String key, int ttlSeconds, boolean serveStale, Supplier<T> remote, Supplier<T> fallback) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedLoads.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            T value = load(key, ttlSeconds, serveStale, remote, fallback, mine);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+    
+    /**
+     * refresh پس‌زمینه - اگر بارگذاری این کلید در جریان باشد کاری انجام نمی‌شود
+     */
+    private <T> void refreshInBackground(String key, int ttlSeconds, boolean serveStale,
+                                         Supplier<T> remote, Supplier<T> fallback) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    mine.complete(load(key, ttlSeconds, serveStale, remote, fallback, mine));
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    logger.warn("⚠️ Background refresh failed for {}: {}", key, e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, mine);
+            mine.complete(null);
+        }
+    }
+    
+    /**
+     * بارگذاری از L2 و در صورت miss از fallback
+     * 
+     * اگر کلید در طول بارگذاری invalidate شده باشد (ticket از inFlight حذف
+     * شده باشد) نتیجه در cache نوشته نمی‌شود تا مقدار قدیمی برنگردد.
+     */
+    private <T> T load(String key, int ttlSeconds, boolean serveStale, Supplier<T> remote, Supplier<T> fallback,
+                       CompletableFuture<Object> ticket) {
+        loads.increment();
+        long start = System.nanoTime();
+        T value = remote.get();
+        boolean fromRemote = value != null;
+        if (!fromRemote) {
+            value = fallback.get();
+        }
+        if (value == null || inFlight.get(key) != ticket) {
+            return value;
+        }
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        localCache.put(key, value, localTtl(ttlSeconds), staleWindow(serveStale), loadMillis);
+        if (!fromRemote) {
+            cacheManager.set(key, value, ttlSeconds);
+        }
+        return value;
+    }
+    
+    /**
+     * XFetch: refresh زودهنگام با احتمال افزایشی هرچه به انقضا نزدیک‌تر شویم
+     * 
+     * شرط: -loadMillis * BETA * ln(random) >= زمان باقیمانده تا انقضا
+     * مقادیری که بارگذاری آن‌ها گران‌تر است زودتر refresh می‌شوند.
+     */
+    private boolean shouldRefreshEarly(LocalCache.Lookup<?> local) {
+        if (local.getLoadMillis() <= 0) {
+            return false;
+        }
+        double gap = -local.getLoadMillis() * EARLY_REFRESH_BETA * Math.log(ThreadLocalRandom.current().nextDouble());
+        return gap >= local.getRemainingMillis();
+    }
+    
+    /**
+     * نوشتن در هر دو لایه - اگر Redis در دسترس نباشد فقط L1 نوشته می‌شود
+     */
+    private boolean write(String key, Object value, int ttlSeconds, boolean serveStale) {
+        localCache.put(key, value, localTtl(ttlSeconds), staleWindow(serveStale), 0);
+        return cacheManager.set(key, value, ttlSeconds);
+    }
+    
+    /**
+     * حذف کلید از هر دو لایه و اطلاع به L1 سایر node ها
+     */
+    private boolean evict(String key) {
+        inFlight.remove(key);
+        boolean local = localCache.invalidate(key);
+        boolean remote = cacheManager.delete(key);
+        cacheManager.publish(INVALIDATION_CHANNEL, nodeId + " " + key);
+        return remote || local;
+    }
+    
+    /**
+     * حذف همه کلیدهای با پیشوند داده شده از هر دو لایه و اطلاع به سایر node ها
+     */
+    private boolean evictPrefix(String prefix) {
+        inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+        localCache.invalidatePrefix(prefix);
+        boolean remote = cacheManager.deleteByPattern(prefix + WILDCARD);
+        cacheManager.publish(INVALIDATION_CHANNEL, nodeId + " " + prefix + WILDCARD);
+        return remote;
+    }
+    
+    /**
+     * پردازش پیام invalidation از سایر node ها
+     * 
+     * قالب پیام: "{nodeId} {key}" که key می‌تواند با * تمام شود (حذف پیشوندی)
+     */
+    void onInvalidation(String message) {
+        int separator = message.indexOf(' ');
+        if (separator < 0) {
+            return;
+        }
+        if (message.substring(0, separator).equals(nodeId)) {
+            return;  // پیام خود این node - قبلاً اعمال شده
+        }
+        String key = message.substring(separator + 1);
+        if (WILDCARD.equals(key)) {
+            inFlight.clear();
+            localCache.invalidateAll();
+        } else if (key.endsWith(WILDCARD)) {
+            String prefix = key.substring(0, key.length() - 1);
+            inFlight.keySet().removeIf(pending -> pending.startsWith(prefix));
+            localCache.invalidatePrefix(prefix);
+        } else {
+            inFlight.remove(key);
+            localCache.invalidate(key);
+        }
+        notifyInvalidationListeners(key);
+    }
+    
+    /**
+     * ثبت شنونده برای کلیدهایی که سایر node ها invalidate می‌کنند
+     * 
+     * شنونده روی thread مشترک subscriber اجرا می‌شود و نباید block کند. پس از هر
+     * (re)subscribe کلید "*" را دریافت می‌کند چون پیام‌های زمان قطع اتصال از دست رفته‌اند.
+     * 
+     * @param listener دریافت‌کننده کلید (ممکن است به * ختم شود)
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+    
+    /**
+     * اتصال (مجدد) به کانال invalidation - پیام‌های از دست رفته با پاک کردن کامل جبران می‌شوند
+     */
+    private void onSubscribed() {
+        localCache.invalidateAll();
+        notifyInvalidationListeners(WILDCARD);
+    }
+    
+    private void notifyInvalidationListeners(String key) {
+        for (Consumer<String> listener : invalidationListeners) {
+            try {
+                listener.accept(key);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Invalidation listener failed for key {}: {}", key, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * TTL ورودی L1: کمترین مقدار بین TTL داده و سقف L1
+     */
+    private long localTtl(int ttlSeconds) {
+        return Math.min(TimeUnit.SECONDS.toMillis(ttlSeconds), localTtlMillis);
+    }
+    
+    private long staleWindow(boolean serveStale) {
+        return serveStale ? staleMillis : 0;
+    }
 } 
\ No newline at end of file
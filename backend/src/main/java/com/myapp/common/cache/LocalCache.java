@@ -0,0 +1,510 @@
+package com.myapp.common.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * کش درون پردازه‌ای (L1) محدود بر اساس تعداد و وزن ورودی‌ها
+ *
+ * مقادیر به صورت object نگهداری می‌شوند، پس hit در این لایه بدون شبکه و
+ * بدون deserialize کردن JSON پاسخ داده می‌شود.
+ *
+ * ویژگی‌ها:
+ * - حذف LRU واقعی در هر segment (LinkedHashMap با ترتیب دسترسی)
+ * - محدودیت تعداد ورودی و محدودیت وزن کل (مثلاً لیست منو وزن بیشتری از یک آیتم دارد)
+ * - TTL برای هر ورودی و پنجره اختیاری stale بعد از آن (برای stale-while-revalidate)
+ * - حذف بر اساس پیشوند کلید برای invalidation الگویی
+ * - آمار hit/miss/eviction/expiration
+ *
+ * کلیدها بین چند segment با قفل مستقل تقسیم می‌شوند تا خواندن‌های همزمان
+ * روی یک قفل سراسری صف نکشند. بودجه تعداد و وزن بین segment ها تقسیم
+ * می‌شود، پس LRU در سطح کل کش تقریبی و در سطح هر segment دقیق است.
+ *
+ * این کلاس thread-safe است.
+ */
+public class LocalCache {
+
+    /** حداکثر تعداد segment ها */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** حداقل ورودی هر segment - کش‌های کوچک فقط یک segment دارند */
+    private static final int MIN_ENTRIES_PER_SEGMENT = 64;
+
+    /**
+     * وزن پیش‌فرض: مجموعه‌ها به اندازه تعداد عناصرشان و بقیه مقادیر وزن ۱
+     */
+    public static final ToIntFunction<Object> DEFAULT_WEIGHER = value -> {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
+    };
+
+    /**
+     * ورودی کش - مقدار، وزن، زمان انقضا، پایان پنجره stale و مدت بارگذاری مقدار
+     */
+    private static final class Entry {
+        private final Object value;
+        private final int weight;
+        private final long expiresAtMillis;
+        private final long staleUntilMillis;
+        private final long loadMillis;
+
+        private Entry(Object value, int weight, long expiresAtMillis, long staleUntilMillis, long loadMillis) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtMillis = expiresAtMillis;
+            this.staleUntilMillis = staleUntilMillis;
+            this.loadMillis = loadMillis;
+        }
+    }
+
+    /**
+     * نتیجه lookup - مقدار به همراه اطلاعات تازگی آن
+     */
+    public static final class Lookup<T> {
+        private final T value;
+        private final boolean stale;
+        private final long remainingMillis;
+        private final long loadMillis;
+
+        private Lookup(T value, boolean stale, long remainingMillis, long loadMillis) {
+            this.value = value;
+            this.stale = stale;
+            this.remainingMillis = remainingMillis;
+            this.loadMillis = loadMillis;
+        }
+
+        public T getValue() { return value; }
+
+        /** آیا TTL مقدار گذشته و فقط در پنجره stale قابل استفاده است */
+        public boolean isStale() { return stale; }
+
+        /** زمان باقیمانده تا پایان TTL در لحظه lookup (منفی برای مقدار کهنه) */
+        public long getRemainingMillis() { return remainingMillis; }
+
+        /** مدت زمانی که بارگذاری این مقدار طول کشید (برای refresh زودهنگام) */
+        public long getLoadMillis() { return loadMillis; }
+    }
+
+    private final Segment[] segments;
+    private final long maxEntries;
+    private final long maxWeight;
+    private final ToIntFunction<Object> weigher;
+    private final LongSupplier clock;
+
+    // آمار کش
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * سازنده با وزن‌دهی پیش‌فرض و ساعت سیستم
+     *
+     * @param maxEntries حداکثر تعداد ورودی‌ها
+     * @param maxWeight حداکثر وزن کل ورودی‌ها
+     */
+    public LocalCache(long maxEntries, long maxWeight) {
+        this(maxEntries, maxWeight, DEFAULT_WEIGHER, System::currentTimeMillis);
+    }
+
+    /**
+     * سازنده با وزن‌دهی و ساعت قابل تنظیم (برای تست)
+     *
+     * @param maxEntries حداکثر تعداد ورودی‌ها
+     * @param maxWeight حداکثر وزن کل ورودی‌ها
+     * @param weigher تابع محاسبه وزن هر مقدار
+     * @param clock منبع زمان بر حسب میلی‌ثانیه
+     */
+    public LocalCache(long maxEntries, long maxWeight, ToIntFunction<Object> weigher, LongSupplier clock) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Max entries and max weight must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.clock = clock;
+
+        int count = (int) Math.min(MAX_SEGMENTS, Math.max(1, maxEntries / MIN_ENTRIES_PER_SEGMENT));
+        count = Integer.highestOneBit(count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / count), Math.max(1, maxWeight / count));
+        }
+    }
+
+    /**
+     * دریافت مقدار کش شده
+     *
+     * @param key کلید
+     * @param type نوع مورد انتظار
+     * @return مقدار یا null در صورت miss، انقضا یا نوع نامتناسب (ورودی نامتناسب حذف می‌شود)
+     */
+    public <T> T get(String key, Class<T> type) {
+        if (key == null) {
+            return null;
+        }
+        Segment segment = segmentFor(key);
+        long now = clock.getAsLong();
+        Object value;
+        synchronized (segment) {
+            Entry entry = segment.map.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (now >= entry.expiresAtMillis) {
+                expireIfPastStale(segment, key, entry, now);
+                misses.increment();
+                return null;
+            }
+            if (!type.isInstance(entry.value)) {
+                segment.remove(key);
+                misses.increment();
+                return null;
+            }
+            value = entry.value;
+        }
+        hits.increment();
+        return type.cast(value);
+    }
+
+    /**
+     * دریافت مقدار به همراه وضعیت تازگی آن
+     *
+     * برخلاف get، ورودی‌ای که TTL آن گذشته ولی هنوز در پنجره stale است
+     * با isStale() == true برگردانده می‌شود.
+     *
+     * @param key کلید
+     * @param type نوع مورد انتظار
+     * @return نتیجه lookup یا null در صورت miss
+     */
+    public <T> Lookup<T> lookup(String key, Class<T> type) {
+        if (key == null) {
+            return null;
+        }
+        Segment segment = segmentFor(key);
+        long now = clock.getAsLong();
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.map.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (now >= entry.staleUntilMillis || !type.isInstance(entry.value)) {
+                if (now >= entry.staleUntilMillis) {
+                    expirations.increment();
+                }
+                segment.remove(key);
+                misses.increment();
+                return null;
+            }
+        }
+        boolean stale = now >= entry.expiresAtMillis;
+        if (stale) {
+            staleHits.increment();
+        } else {
+            hits.increment();
+        }
+        return new Lookup<>(type.cast(entry.value), stale, entry.expiresAtMillis - now, entry.loadMillis);
+    }
+
+    /**
+     * ذخیره مقدار با TTL
+     *
+     * مقادیری که وزنشان از بودجه یک segment بیشتر است ذخیره نمی‌شوند.
+     *
+     * @param key کلید
+     * @param value مقدار (null نادیده گرفته می‌شود)
+     * @param ttlMillis مدت اعتبار بر حسب میلی‌ثانیه
+     */
+    public void put(String key, Object value, long ttlMillis) {
+        put(key, value, ttlMillis, 0, 0);
+    }
+
+    /**
+     * ذخیره مقدار با TTL، پنجره stale و مدت بارگذاری
+     *
+     * @param key کلید
+     * @param value مقدار (null نادیده گرفته می‌شود)
+     * @param ttlMillis مدت تازگی بر حسب میلی‌ثانیه
+     * @param staleMillis مدت نگهداری پس از TTL برای lookup (۰ یعنی بدون پنجره stale)
+     * @param loadMillis مدت زمانی که بارگذاری مقدار طول کشید
+     */
+    public void put(String key, Object value, long ttlMillis, long staleMillis, long loadMillis) {
+        if (key == null || value == null || ttlMillis <= 0) {
+            return;
+        }
+        int weight = Math.max(1, weigher.applyAsInt(value));
+        Segment segment = segmentFor(key);
+        if (weight > segment.maxWeight) {
+            invalidate(key);
+            return;
+        }
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        Entry entry = new Entry(value, weight, expiresAt, expiresAt + Math.max(0, staleMillis), loadMillis);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.map.put(key, entry);
+            segment.weight += weight;
+            segment.evictIfNeeded();
+        }
+    }
+
+    /**
+     * بررسی وجود ورودی معتبر (بدون تغییر آمار و ترتیب LRU)
+     */
+    public boolean containsKey(String key) {
+        if (key == null) {
+            return false;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.map.get(key);
+            return entry != null && clock.getAsLong() < entry.expiresAtMillis;
+        }
+    }
+
+    /**
+     * حذف یک کلید
+     *
+     * @return true اگر ورودی وجود داشت
+     */
+    public boolean invalidate(String key) {
+        if (key == null) {
+            return false;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    /**
+     * حذف همه کلیدهایی که با پیشوند داده شده شروع می‌شوند
+     *
+     * @return تعداد ورودی‌های حذف شده
+     */
+    public int invalidatePrefix(String prefix) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Map.Entry<String, Entry>> iterator = segment.map.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Entry> next = iterator.next();
+                    if (next.getKey().startsWith(prefix)) {
+                        segment.weight -= next.getValue().weight;
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * حذف همه ورودی‌ها
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    /**
+     * حذف ورودی‌های منقضی (پس از پایان پنجره stale)
+     *
+     * @return تعداد ورودی‌های حذف شده
+     */
+    public int cleanUp() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Entry> iterator = segment.map.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (now >= entry.staleUntilMillis) {
+                        segment.weight -= entry.weight;
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    /** تعداد ورودی‌ها (شامل ورودی‌های منقضی که هنوز حذف نشده‌اند) */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    /** تعداد ورودی‌های منقضی که هنوز حذف نشده‌اند */
+    public long expiredCount() {
+        long now = clock.getAsLong();
+        long expired = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Entry entry : segment.map.values()) {
+                    if (now >= entry.expiresAtMillis) {
+                        expired++;
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    /** وزن کل ورودی‌ها */
+    public long weightedSize() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * دریافت آمار کش
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long totalRequests = hitCount + missCount;
+        double hitRate = totalRequests > 0 ? (double) hitCount / totalRequests * 100 : 0;
+
+        stats.put("cacheHits", hitCount);
+        stats.put("cacheMisses", missCount);
+        stats.put("staleHits", staleHits.sum());
+        stats.put("totalRequests", totalRequests);
+        stats.put("hitRate", String.format("%.2f%%", hitRate));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("entries", size());
+        stats.put("weight", weightedSize());
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxWeight", maxWeight);
+        stats.put("segments", segments.length);
+        return stats;
+    }
+
+    /**
+     * صفر کردن آمار کش
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        staleHits.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    /**
+     * حذف ورودی منقضی فقط اگر پنجره stale آن هم تمام شده باشد
+     */
+    private void expireIfPastStale(Segment segment, String key, Entry entry, long now) {
+        if (now >= entry.staleUntilMillis) {
+            segment.remove(key);
+            expirations.increment();
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * یک بخش از کش با LRU دقیق (دسترسی‌ها با قفل همین segment سریال می‌شوند)
+     */
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxEntries;
+        private final long maxWeight;
+        private long weight;
+
+        private Segment(long maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+        }
+
+        private boolean remove(String key) {
+            Entry removed = map.remove(key);
+            if (removed == null) {
+                return false;
+            }
+            weight -= removed.weight;
+            return true;
+        }
+
+        /**
+         * حذف قدیمی‌ترین ورودی‌ها تا برگشت به بودجه تعداد و وزن
+         * (ورودی‌های منقضی در مسیر حذف، انقضا شمرده می‌شوند)
+         */
+        private void evictIfNeeded() {
+            if (map.size() <= maxEntries && weight <= maxWeight) {
+                return;
+            }
+            long now = clock.getAsLong();
+            Iterator<Entry> iterator = map.values().iterator();
+            while ((map.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                weight -= eldest.weight;
+                iterator.remove();
+                if (now >= eldest.expiresAtMillis) {
+                    expirations.increment();
+                } else {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+}
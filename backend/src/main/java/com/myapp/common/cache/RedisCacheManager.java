@@ -8,11 +8,16 @@ import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Redis Cache Manager for High-Performance Caching
@@ -26,6 +31,8 @@ import java.util.Set;
  * - Cache Statistics
  * - Health Monitoring
  * - Pattern-based Cache Invalidation
+ * - Pub/Sub برای پخش invalidation بین node ها
+ * - Backoff پس از قطع اتصال (در زمان قطعی، عملیات بدون انتظار شبکه false/null برمی‌گردانند)
  * 
  * @author Food Ordering System Team
  * @version 1.0 - Production Ready
@@ -41,10 +48,10 @@ public class RedisCacheManager {
     // JSON Mapper for serialization
     private final ObjectMapper objectMapper;
     
-    // Cache Statistics
-    private long cacheHits = 0;
-    private long cacheMisses = 0;
-    private long cacheErrors = 0;
+    // Cache Statistics (LongAdder: افزایش همزمان از thread های درخواست بدون از دست رفتن شمارش)
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheErrors = new LongAdder();
     
     // Cache Configuration
     private static final String REDIS_HOST = System.getProperty("redis.host", "localhost");
@@ -52,6 +59,14 @@ public class RedisCacheManager {
     private static final String REDIS_PASSWORD = System.getProperty("redis.password", null);
     private static final int REDIS_TIMEOUT = Integer.parseInt(System.getProperty("redis.timeout", "2000"));
     private static final int REDIS_DATABASE = Integer.parseInt(System.getProperty("redis.database", "0"));
+    private static final long RETRY_AFTER_MILLIS = Long.parseLong(System.getProperty("redis.retry.millis", "5000"));
+    
+    // زمانی که تا آن Redis در دسترس فرض نمی‌شود (بعد از خطای اتصال)
+    private volatile long unavailableUntil = 0;
+    
+    // Subscriber پس‌زمینه برای کانال‌های pub/sub
+    private volatile boolean subscribing = true;
+    private volatile JedisPubSub activeSubscription;
     
     // TTL Configuration (در ثانیه)
     public static final int TTL_SHORT = 300;      // 5 minutes
@@ -113,7 +128,29 @@ public class RedisCacheManager {
             
         } catch (Exception e) {
             logger.error("❌ Failed to initialize Redis Cache Manager: {}", e.getMessage());
-            // در حالت fallback، cache غیرفعال می‌شود
+            // در حالت fallback، cache غیرفعال می‌شود تا تلاش بعدی
+            markUnavailable();
+        }
+    }
+    
+    /**
+     * آیا Redis در حال حاضر قابل استفاده است
+     * 
+     * بعد از خطای اتصال، تا RETRY_AFTER_MILLIS هیچ درخواستی به Redis ارسال نمی‌شود؛
+     * پس از آن اولین درخواست دوباره امتحان می‌کند.
+     */
+    public boolean isAvailable() {
+        return jedisPool != null && System.currentTimeMillis() >= unavailableUntil;
+    }
+    
+    private void markUnavailable() {
+        unavailableUntil = System.currentTimeMillis() + RETRY_AFTER_MILLIS;
+    }
+    
+    private void recordError(Exception e) {
+        cacheErrors.increment();
+        if (e instanceof JedisConnectionException) {
+            markUnavailable();
         }
     }
     
@@ -121,7 +158,7 @@ public class RedisCacheManager {
      * Set value in cache with TTL
      */
     public <T> boolean set(String key, T value, int ttlSeconds) {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             String jsonValue = objectMapper.writeValueAsString(value);
@@ -132,11 +169,11 @@ public class RedisCacheManager {
             
         } catch (JsonProcessingException e) {
             logger.error("❌ JSON serialization error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            cacheErrors.increment();
             return false;
         } catch (Exception e) {
             logger.error("❌ Redis SET error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return false;
         }
     }
@@ -145,29 +182,61 @@ public class RedisCacheManager {
      * Get value from cache
      */
     public <T> T get(String key, Class<T> valueType) {
-        if (jedisPool == null) return null;
+        if (!isAvailable()) return null;
         
         try (Jedis jedis = jedisPool.getResource()) {
             String jsonValue = jedis.get(key);
             
             if (jsonValue == null) {
-                cacheMisses++;
+                cacheMisses.increment();
                 logger.debug("❌ Cache MISS: {}", key);
                 return null;
             }
             
             T value = objectMapper.readValue(jsonValue, valueType);
-            cacheHits++;
+            cacheHits.increment();
+            logger.debug("✅ Cache HIT: {}", key);
+            return value;
+            
+        } catch (JsonProcessingException e) {
+            logger.error("❌ JSON deserialization error for key {}: {}", key, e.getMessage());
+            cacheErrors.increment();
+            return null;
+        } catch (Exception e) {
+            logger.error("❌ Redis GET error for key {}: {}", key, e.getMessage());
+            recordError(e);
+            return null;
+        }
+    }
+    
+    /**
+     * Get list value from cache with typed elements
+     */
+    public <T> List<T> getList(String key, Class<T> elementType) {
+        if (!isAvailable()) return null;
+        
+        try (Jedis jedis = jedisPool.getResource()) {
+            String jsonValue = jedis.get(key);
+            
+            if (jsonValue == null) {
+                cacheMisses.increment();
+                logger.debug("❌ Cache MISS: {}", key);
+                return null;
+            }
+            
+            List<T> value = objectMapper.readValue(jsonValue,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, elementType));
+            cacheHits.increment();
             logger.debug("✅ Cache HIT: {}", key);
             return value;
             
         } catch (JsonProcessingException e) {
             logger.error("❌ JSON deserialization error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            cacheErrors.increment();
             return null;
         } catch (Exception e) {
             logger.error("❌ Redis GET error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return null;
         }
     }
@@ -176,13 +245,13 @@ public class RedisCacheManager {
      * Check if key exists in cache
      */
     public boolean exists(String key) {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             return jedis.exists(key);
         } catch (Exception e) {
             logger.error("❌ Redis EXISTS error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return false;
         }
     }
@@ -191,7 +260,7 @@ public class RedisCacheManager {
      * Delete key from cache
      */
     public boolean delete(String key) {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             Long result = jedis.del(key);
@@ -199,7 +268,7 @@ public class RedisCacheManager {
             return result > 0;
         } catch (Exception e) {
             logger.error("❌ Redis DELETE error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return false;
         }
     }
@@ -208,7 +277,7 @@ public class RedisCacheManager {
      * Delete all keys matching pattern
      */
     public boolean deleteByPattern(String pattern) {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             Set<String> keys = jedis.keys(pattern);
@@ -220,7 +289,7 @@ public class RedisCacheManager {
             return true;
         } catch (Exception e) {
             logger.error("❌ Redis DELETE PATTERN error for pattern {}: {}", pattern, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return false;
         }
     }
@@ -229,14 +298,14 @@ public class RedisCacheManager {
      * Set TTL for existing key
      */
     public boolean expire(String key, int ttlSeconds) {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             Long result = jedis.expire(key, ttlSeconds);
             return result == 1;
         } catch (Exception e) {
             logger.error("❌ Redis EXPIRE error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return false;
         }
     }
@@ -245,13 +314,13 @@ public class RedisCacheManager {
      * Get remaining TTL for key
      */
     public long getTTL(String key) {
-        if (jedisPool == null) return -2;
+        if (!isAvailable()) return -2;
         
         try (Jedis jedis = jedisPool.getResource()) {
             return jedis.ttl(key);
         } catch (Exception e) {
             logger.error("❌ Redis TTL error for key {}: {}", key, e.getMessage());
-            cacheErrors++;
+            recordError(e);
             return -2;
         }
     }
@@ -260,7 +329,7 @@ public class RedisCacheManager {
      * Flush all cache data
      */
     public boolean flushAll() {
-        if (jedisPool == null) return false;
+        if (!isAvailable()) return false;
         
         try (Jedis jedis = jedisPool.getResource()) {
             String result = jedis.flushDB();
@@ -268,25 +337,100 @@ public class RedisCacheManager {
             return "OK".equals(result);
         } catch (Exception e) {
             logger.error("❌ Redis FLUSH ALL error: {}", e.getMessage());
-            cacheErrors++;
+            recordError(e);
+            return false;
+        }
+    }
+    
+    /**
+     * Publish message on a pub/sub channel
+     */
+    public boolean publish(String channel, String message) {
+        if (!isAvailable()) return false;
+        
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(channel, message);
+            return true;
+        } catch (Exception e) {
+            logger.error("❌ Redis PUBLISH error for channel {}: {}", channel, e.getMessage());
+            recordError(e);
             return false;
         }
     }
     
+    /**
+     * Subscribe to a pub/sub channel on a background daemon thread
+     * 
+     * در صورت قطع اتصال، subscriber پس از RETRY_AFTER_MILLIS دوباره وصل می‌شود.
+     * onSubscribed پس از هر اتصال (و اتصال مجدد) صدا زده می‌شود تا مصرف‌کننده
+     * بتواند پیام‌های از دست رفته در زمان قطعی را جبران کند.
+     * 
+     * @param channel نام کانال
+     * @param onMessage پردازش‌گر پیام‌ها (روی thread subscriber اجرا می‌شود)
+     * @param onSubscribed callback پس از هر اتصال موفق
+     */
+    public void subscribe(String channel, Consumer<String> onMessage, Runnable onSubscribed) {
+        if (jedisPool == null) return;
+        
+        Thread subscriber = new Thread(() -> {
+            while (subscribing && !jedisPool.isClosed()) {
+                JedisPubSub pubSub = new JedisPubSub() {
+                    @Override
+                    public void onSubscribe(String subscribedChannel, int subscribedChannels) {
+                        logger.info("📡 Subscribed to Redis channel {}", subscribedChannel);
+                        onSubscribed.run();
+                    }
+                    
+                    @Override
+                    public void onMessage(String messageChannel, String message) {
+                        try {
+                            onMessage.accept(message);
+                        } catch (Exception e) {
+                            logger.error("❌ Error handling message on channel {}: {}", messageChannel, e.getMessage());
+                        }
+                    }
+                };
+                try (Jedis jedis = jedisPool.getResource()) {
+                    activeSubscription = pubSub;
+                    jedis.subscribe(pubSub, channel);  // تا unsubscribe یا قطع اتصال block می‌شود
+                } catch (Exception e) {
+                    if (subscribing) {
+                        logger.warn("⚠️ Redis subscription to {} lost: {}", channel, e.getMessage());
+                    }
+                } finally {
+                    activeSubscription = null;
+                }
+                if (subscribing) {
+                    try {
+                        Thread.sleep(RETRY_AFTER_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }, "redis-subscriber-" + channel);
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+    
     /**
      * Get cache statistics
      */
     public Map<String, Object> getStatistics() {
         Map<String, Object> stats = new HashMap<>();
         
-        long totalRequests = cacheHits + cacheMisses;
-        double hitRate = totalRequests > 0 ? (double) cacheHits / totalRequests * 100 : 0;
+        long hitCount = cacheHits.sum();
+        long missCount = cacheMisses.sum();
+        long totalRequests = hitCount + missCount;
+        double hitRate = totalRequests > 0 ? (double) hitCount / totalRequests * 100 : 0;
         
-        stats.put("cacheHits", cacheHits);
-        stats.put("cacheMisses", cacheMisses);
-        stats.put("cacheErrors", cacheErrors);
+        stats.put("cacheHits", hitCount);
+        stats.put("cacheMisses", missCount);
+        stats.put("cacheErrors", cacheErrors.sum());
         stats.put("totalRequests", totalRequests);
         stats.put("hitRate", String.format("%.2f%%", hitRate));
+        stats.put("available", isAvailable());
         
         // Redis connection info
         if (jedisPool != null) {
@@ -298,17 +442,46 @@ public class RedisCacheManager {
         return stats;
     }
     
+    public long getHits() {
+        return cacheHits.sum();
+    }
+    
+    public long getMisses() {
+        return cacheMisses.sum();
+    }
+    
+    public long getErrors() {
+        return cacheErrors.sum();
+    }
+    
+    /**
+     * تعداد اتصال‌های فعال و بیکار pool (بدون ارتباط با Redis)
+     */
+    public int getActiveConnections() {
+        return jedisPool != null ? jedisPool.getNumActive() : 0;
+    }
+    
+    public int getIdleConnections() {
+        return jedisPool != null ? jedisPool.getNumIdle() : 0;
+    }
+    
     /**
      * Health check for Redis
      */
     public boolean isHealthy() {
         if (jedisPool == null) return false;
         
+        // health check از backoff عبور می‌کند تا بازگشت Redis زودتر تشخیص داده شود
         try (Jedis jedis = jedisPool.getResource()) {
             String pong = jedis.ping();
-            return "PONG".equals(pong);
+            boolean healthy = "PONG".equals(pong);
+            if (healthy) {
+                unavailableUntil = 0;
+            }
+            return healthy;
         } catch (Exception e) {
             logger.error("❌ Redis health check failed: {}", e.getMessage());
+            markUnavailable();
             return false;
         }
     }
@@ -317,9 +490,9 @@ public class RedisCacheManager {
      * Reset cache statistics
      */
     public void resetStatistics() {
-        cacheHits = 0;
-        cacheMisses = 0;
-        cacheErrors = 0;
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheErrors.reset();
         logger.info("📊 Cache statistics reset");
     }
     
@@ -327,6 +500,11 @@ public class RedisCacheManager {
      * Shutdown cache manager
      */
     public void shutdown() {
+        subscribing = false;
+        JedisPubSub subscription = activeSubscription;
+        if (subscription != null && subscription.isSubscribed()) {
+            subscription.unsubscribe();
+        }
         if (jedisPool != null && !jedisPool.isClosed()) {
             jedisPool.close();
             logger.info("🔒 Redis Cache Manager shutdown completed");
@@ -0,0 +1,174 @@
+package com.myapp.common.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * کش snapshot با TTL کوتاه برای نتایج آماری
+ *
+ * هر کلید آخرین نتیجه محاسبه شده را تا ttl نگه می‌دارد. پس از انقضا فقط یک
+ * فراخواننده کوئری را دوباره اجرا می‌کند (single-flight)؛ فراخواننده‌های
+ * همزمان تا پایان آن refresh همان snapshot قبلی را می‌گیرند و اگر snapshot
+ * قبلی وجود نداشته باشد منتظر همان بارگذاری می‌مانند. به این ترتیب داشبوردی
+ * که هر چند ثانیه poll می‌شود، در هر ttl حداکثر یک کوئری به دیتابیس می‌فرستد.
+ *
+ * خطای بارگذاری به فراخواننده‌ای که refresh کرده و منتظران آن برمی‌گردد و
+ * snapshot قبلی دست نمی‌خورد تا فراخوانی بعدی دوباره تلاش کند.
+ *
+ * snapshot ها بین فراخواننده‌ها مشترک هستند و نباید تغییر داده شوند.
+ *
+ * @param <K> نوع کلید (مثلاً شناسه کاربر)
+ * @param <V> نوع نتیجه
+ */
+public final class SnapshotCache<K, V> {
+
+    /** TTL پیش‌فرض snapshot های آماری (cache.snapshot.ttl.millis) */
+    public static final long DEFAULT_TTL_MILLIS = Long.getLong("cache.snapshot.ttl.millis", 5_000L);
+
+    private static final class Snapshot<V> {
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Snapshot(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final Map<K, Snapshot<V>> snapshots = new ConcurrentHashMap<>();
+    // بارگذاری‌های در جریان هر کلید (single-flight)
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // آمار
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * @param ttlMillis مدت تازه بودن هر snapshot
+     * @param maxEntries حداکثر تعداد کلیدها
+     */
+    public SnapshotCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    /**
+     * @param ttlMillis مدت تازه بودن هر snapshot
+     * @param maxEntries حداکثر تعداد کلیدها
+     * @param clock منبع زمان بر حسب میلی‌ثانیه (برای تست)
+     */
+    public SnapshotCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("TTL cannot be negative");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * دریافت snapshot کلید و در صورت انقضا محاسبه دوباره آن با loader
+     *
+     * @param key کلید
+     * @param loader محاسبه نتیجه (فقط توسط یک thread در هر لحظه برای هر کلید)
+     * @return آخرین snapshot
+     */
+    public V get(K key, Supplier<V> loader) {
+        Snapshot<V> current = snapshots.get(key);
+        if (current != null && clock.getAsLong() < current.expiresAtMillis) {
+            hits.increment();
+            return current.value;
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (current != null) {
+                staleServed.increment();
+                return current.value;
+            }
+            coalescedLoads.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            loads.increment();
+            V value = loader.get();
+            // اگر کلید در طول بارگذاری invalidate شده باشد نتیجه ذخیره نمی‌شود
+            if (inFlight.get(key) == mine) {
+                store(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * حذف snapshot کلید (مثلاً بعد از تغییری که کاربر باید فوراً ببیند)
+     */
+    public void invalidate(K key) {
+        inFlight.remove(key);
+        snapshots.remove(key);
+    }
+
+    /**
+     * حذف همه snapshot ها
+     */
+    public void invalidateAll() {
+        inFlight.clear();
+        snapshots.clear();
+    }
+
+    /**
+     * آمار کش
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", snapshots.size());
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("staleServed", staleServed.sum());
+        stats.put("coalescedLoads", coalescedLoads.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        return stats;
+    }
+
+    private void store(K key, V value) {
+        long now = clock.getAsLong();
+        if (snapshots.size() >= maxEntries && !snapshots.containsKey(key)) {
+            snapshots.values().removeIf(snapshot -> snapshot.expiresAtMillis <= now);
+            Iterator<K> keys = snapshots.keySet().iterator();
+            while (snapshots.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        snapshots.put(key, new Snapshot<>(value, now + ttlMillis));
+    }
+}
@@ -0,0 +1,253 @@
+package com.myapp.common.events;
+
+import com.myapp.common.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * گذرگاه رویدادهای درون process برای ارسال تغییرات به کاربران (SSE)
+ *
+ * لایه سرویس بعد از commit هر تغییر (وضعیت سفارش، مراحل تحویل، اعلان جدید)
+ * یک رویداد برای کاربر مربوطه منتشر می‌کند و اتصال‌های باز آن کاربر آن را
+ * دریافت می‌کنند. انتشار هیچ‌وقت خطا پرتاب نمی‌کند تا عملیات اصلی تحت تأثیر
+ * قرار نگیرد.
+ *
+ * هر رویداد یک شناسه یکنواخت صعودی دارد و آخرین رویدادها در یک حلقه (ring)
+ * با اندازه ثابت نگهداری می‌شوند تا کلاینت بعد از قطع اتصال با Last-Event-ID
+ * از همان نقطه ادامه دهد. اگر رویدادهای مورد نیاز از حلقه خارج شده باشند
+ * (یا process دوباره راه‌اندازی شده باشد) کلاینت باید وضعیت را دوباره بخواند.
+ *
+ * نکته: رویدادهای node های دیگر اینجا دیده نمی‌شوند.
+ */
+public final class EventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+
+    /** شناسه کاربر برای رویدادهایی که به همه کاربران متصل ارسال می‌شوند */
+    public static final long ALL_USERS = 0L;
+
+    public static final int DEFAULT_REPLAY_CAPACITY = 4096;
+
+    private static final EventBus GLOBAL = new EventBus(
+        Integer.getInteger("events.replay.capacity", DEFAULT_REPLAY_CAPACITY));
+
+    /**
+     * یک رویداد منتشر شده
+     *
+     * @param id شناسه یکنواخت صعودی (برای Last-Event-ID)
+     * @param userId کاربر مقصد یا {@link #ALL_USERS}
+     * @param type نوع رویداد (مثلاً order-status)
+     * @param data محتوای رویداد به صورت JSON
+     * @param timestamp زمان انتشار (میلی‌ثانیه)
+     */
+    public record Event(long id, long userId, String type, String data, long timestamp) {
+
+        /**
+         * آیا این رویداد برای کاربر داده شده است
+         */
+        public boolean isFor(long targetUserId) {
+            return userId == ALL_USERS || userId == targetUserId;
+        }
+    }
+
+    /**
+     * اشتراک یک مصرف‌کننده روی رویدادهای یک کاربر
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final long userId;
+        private final Consumer<Event> consumer;
+        private final boolean replayComplete;
+
+        private Subscription(long userId, Consumer<Event> consumer, boolean replayComplete) {
+            this.userId = userId;
+            this.consumer = consumer;
+            this.replayComplete = replayComplete;
+        }
+
+        /**
+         * آیا همه رویدادهای بعد از شناسه درخواستی بازپخش شدند
+         *
+         * false یعنی بخشی از رویدادها از حلقه خارج شده‌اند و کلاینت باید
+         * وضعیت را دوباره از API بخواند.
+         */
+        public boolean isReplayComplete() {
+            return replayComplete;
+        }
+
+        @Override
+        public void close() {
+            subscribers.computeIfPresent(userId, (id, consumers) -> {
+                consumers.remove(consumer);
+                return consumers.isEmpty() ? null : consumers;
+            });
+        }
+    }
+
+    private final Event[] ring;
+    private final AtomicLong published = new AtomicLong();
+    private final Map<Long, Set<Consumer<Event>>> subscribers = new ConcurrentHashMap<>();
+    private long lastId;
+
+    public EventBus(int replayCapacity) {
+        if (replayCapacity <= 0) {
+            throw new IllegalArgumentException("Replay capacity must be positive");
+        }
+        this.ring = new Event[replayCapacity];
+    }
+
+    /**
+     * گذرگاه مشترک کل برنامه
+     */
+    public static EventBus global() {
+        return GLOBAL;
+    }
+
+    /**
+     * انتشار رویداد برای یک کاربر
+     *
+     * @param userId کاربر مقصد (null نادیده گرفته می‌شود)
+     * @param type نوع رویداد
+     * @param payload محتوا (به JSON تبدیل می‌شود)
+     * @return رویداد منتشر شده یا null در صورت خطا
+     */
+    public Event publish(Long userId, String type, Object payload) {
+        if (userId == null) {
+            return null;
+        }
+        try {
+            String data = JsonUtil.toJson(payload);
+            Event event;
+            // تحویل داخل قفل انجام می‌شود تا ترتیب شناسه‌ها در هر اتصال حفظ شود
+            synchronized (ring) {
+                event = new Event(++lastId, userId, type, data, System.currentTimeMillis());
+                ring[(int) (event.id() % ring.length)] = event;
+                deliver(subscribers.get(userId), event);
+                if (userId != ALL_USERS) {
+                    deliver(subscribers.get(ALL_USERS), event);
+                } else {
+                    subscribers.forEach((subscriber, consumers) -> {
+                        if (subscriber != ALL_USERS) {
+                            deliver(consumers, event);
+                        }
+                    });
+                }
+            }
+            published.incrementAndGet();
+            return event;
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Failed to publish {} event for user {}: {}", type, userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * انتشار رویداد برای همه کاربران متصل
+     */
+    public Event publishToAll(String type, Object payload) {
+        return publish(ALL_USERS, type, payload);
+    }
+
+    /**
+     * اشتراک روی رویدادهای جدید یک کاربر
+     *
+     * مصرف‌کننده روی thread منتشرکننده صدا زده می‌شود و نباید block کند.
+     *
+     * @param userId کاربر ({@link #ALL_USERS} برای همه رویدادها)
+     * @param consumer مصرف‌کننده
+     */
+    public Subscription subscribe(long userId, Consumer<Event> consumer) {
+        return subscribe(userId, -1, consumer);
+    }
+
+    /**
+     * اشتراک با بازپخش رویدادهای بعد از یک شناسه (Last-Event-ID)
+     *
+     * بازپخش و ثبت اشتراک زیر یک قفل انجام می‌شوند، پس هیچ رویدادی بین این
+     * دو گم یا تکرار نمی‌شود.
+     *
+     * @param userId کاربر
+     * @param afterId آخرین شناسه دریافت شده توسط کلاینت؛ منفی یعنی بدون بازپخش
+     * @param consumer مصرف‌کننده
+     */
+    public Subscription subscribe(long userId, long afterId, Consumer<Event> consumer) {
+        synchronized (ring) {
+            boolean complete = true;
+            if (afterId >= 0) {
+                Optional<List<Event>> replay = eventsAfter(userId, afterId);
+                complete = replay.isPresent();
+                replay.ifPresent(events -> events.forEach(consumer));
+            }
+            subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(consumer);
+            return new Subscription(userId, consumer, complete);
+        }
+    }
+
+    /**
+     * رویدادهای کاربر بعد از یک شناسه
+     *
+     * @param userId کاربر
+     * @param afterId آخرین شناسه دریافت شده توسط کلاینت
+     * @return رویدادها به ترتیب، یا empty اگر بخشی از آن‌ها دیگر در دسترس نیست
+     */
+    public Optional<List<Event>> eventsAfter(long userId, long afterId) {
+        List<Event> events = new ArrayList<>();
+        synchronized (ring) {
+            if (afterId > lastId || lastId - afterId > ring.length) {
+                return Optional.empty();
+            }
+            for (long id = afterId + 1; id <= lastId; id++) {
+                Event event = ring[(int) (id % ring.length)];
+                if (event.isFor(userId)) {
+                    events.add(event);
+                }
+            }
+        }
+        return Optional.of(events);
+    }
+
+    /**
+     * شناسه آخرین رویداد منتشر شده
+     */
+    public long getLastEventId() {
+        synchronized (ring) {
+            return lastId;
+        }
+    }
+
+    /**
+     * آمار گذرگاه (برای مانیتورینگ)
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("published", published.get());
+        stats.put("lastEventId", getLastEventId());
+        stats.put("subscribedUsers", subscribers.size());
+        stats.put("replayCapacity", ring.length);
+        return stats;
+    }
+
+    private static void deliver(Set<Consumer<Event>> consumers, Event event) {
+        if (consumers == null) {
+            return;
+        }
+        for (Consumer<Event> consumer : consumers) {
+            try {
+                consumer.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Event subscriber failed for {}: {}", event.type(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.myapp.common.exceptions;
+
+/**
+ * استثنا برای بدنه درخواست نامعتبر (JSON خراب، فیلد با نوع اشتباه، بدنه بیش از حد بزرگ)
+ *
+ * از IllegalArgumentException ارث‌بری می‌کند تا controller هایی که این نوع خطا را
+ * به پاسخ 400 تبدیل می‌کنند بدون تغییر کار کنند؛ controller ها می‌توانند با
+ * {@link #getStatusCode()} کد دقیق‌تر (مثلاً 413) را برگردانند.
+ *
+ * مثال استفاده:
+ * <pre>
+ * LoginRequest request = RequestBodyDecoder.global().read(exchange, LoginRequest.class);
+ * </pre>
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * نوع خطای بدنه درخواست
+     */
+    public enum Reason {
+        /** JSON از نظر نحوی نامعتبر است یا بدنه خالی است */
+        MALFORMED_BODY(400),
+        /** بدنه از حداکثر اندازه مجاز بزرگ‌تر است */
+        BODY_TOO_LARGE(413),
+        /** مقدار یک فیلد با نوع مورد انتظار سازگار نیست */
+        INVALID_FIELD(400),
+        /** فیلد ضروری ارسال نشده است */
+        MISSING_FIELD(400);
+
+        private final int statusCode;
+
+        Reason(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    private final Reason reason;
+    private final String field;
+
+    /**
+     * سازنده استثنا
+     *
+     * @param reason نوع خطا
+     * @param field نام فیلد مربوطه (یا null)
+     * @param message پیام خطا
+     */
+    public InvalidRequestException(Reason reason, String field, String message) {
+        super(message);
+        this.reason = reason;
+        this.field = field;
+    }
+
+    /**
+     * سازنده استثنا با علت اصلی
+     */
+    public InvalidRequestException(Reason reason, String field, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+        this.field = field;
+    }
+
+    /**
+     * خطای فیلد ضروری
+     *
+     * @param field نام فیلد
+     */
+    public static InvalidRequestException missingField(String field) {
+        return new InvalidRequestException(Reason.MISSING_FIELD, field, field + " is required");
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * کد وضعیت HTTP مناسب برای این خطا
+     */
+    public int getStatusCode() {
+        return reason.getStatusCode();
+    }
+}
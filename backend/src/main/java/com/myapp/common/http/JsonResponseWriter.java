@@ -0,0 +1,294 @@
+package com.myapp.common.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.myapp.common.utils.JsonUtil;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * نوشتن پاسخ JSON به صورت جریانی (streaming) روی HttpExchange
+ *
+ * به جای ساختن کل پاسخ به صورت String و سپس getBytes()، خروجی Jackson
+ * مستقیماً روی بدنه پاسخ نوشته می‌شود:
+ * - تا آستانه مشخص، خروجی در یک بافر از pool نگه داشته می‌شود. اگر کل پاسخ
+ *   در همین بافر جا شود، با Content-Length ثابت و بدون فشرده‌سازی ارسال می‌شود.
+ * - اگر پاسخ از آستانه بزرگ‌تر شود، هدرها با chunked transfer ارسال می‌شوند
+ *   و بقیه خروجی (در صورت پشتیبانی کلاینت با gzip) مستقیماً جریان می‌یابد.
+ *
+ * بنابراین حافظه هر درخواست به اندازه بافر pool و بافرهای داخلی Jackson/gzip
+ * محدود است و به تعداد ردیف‌های پاسخ بستگی ندارد.
+ *
+ * پیکربندی از طریق System Property:
+ * - http.compression.threshold: آستانه فشرده‌سازی و اندازه بافر (پیش‌فرض 8192 بایت)
+ * - http.buffer.pool.size: حداکثر تعداد بافرهای نگهداری شده در pool (پیش‌فرض 64)
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public final class JsonResponseWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonResponseWriter.class);
+
+    public static final int DEFAULT_THRESHOLD = 8192;
+    public static final int DEFAULT_POOL_SIZE = 64;
+
+    private static final JsonResponseWriter GLOBAL = new JsonResponseWriter(
+        Integer.getInteger("http.compression.threshold", DEFAULT_THRESHOLD),
+        Integer.getInteger("http.buffer.pool.size", DEFAULT_POOL_SIZE));
+
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final int threshold;
+    private final BlockingQueue<byte[]> pool;
+    private final ObjectWriter writer = JsonUtil.getObjectMapper().writer()
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final AtomicLong buffered = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+
+    public JsonResponseWriter(int threshold, int poolSize) {
+        if (threshold <= 0 || poolSize < 0) {
+            throw new IllegalArgumentException("Invalid response writer configuration");
+        }
+        this.threshold = threshold;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * نویسنده مشترک کل برنامه
+     */
+    public static JsonResponseWriter global() {
+        return GLOBAL;
+    }
+
+    /**
+     * ارسال یک شیء به صورت JSON
+     *
+     * @param exchange HTTP exchange
+     * @param statusCode کد وضعیت HTTP
+     * @param body شیء پاسخ (با ObjectMapper مشترک JsonUtil سریال می‌شود)
+     * @throws IOException در صورت خطا در I/O
+     */
+    public void write(HttpExchange exchange, int statusCode, Object body) throws IOException {
+        ResponseStream out = new ResponseStream(exchange, statusCode);
+        try {
+            writer.writeValue(out, body);
+            out.finish();
+        } catch (IOException | RuntimeException e) {
+            out.abort(e);
+            throw e;
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * ارسال JSON آماده (برای پاسخ‌های کوچک و ثابت)
+     *
+     * @param exchange HTTP exchange
+     * @param statusCode کد وضعیت HTTP
+     * @param json متن JSON
+     * @throws IOException در صورت خطا در I/O
+     */
+    public void writeRaw(HttpExchange exchange, int statusCode, String json) throws IOException {
+        ResponseStream out = new ResponseStream(exchange, statusCode);
+        try {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+            out.finish();
+        } catch (IOException | RuntimeException e) {
+            out.abort(e);
+            throw e;
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * آمار نویسنده (برای مانیتورینگ)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threshold", threshold);
+        stats.put("pooledBuffers", pool.size());
+        stats.put("buffered", buffered.get());
+        stats.put("streamed", streamed.get());
+        stats.put("compressed", compressed.get());
+        return stats;
+    }
+
+    /**
+     * آیا کلاینت پاسخ gzip را می‌پذیرد (با در نظر گرفتن q=0)
+     */
+    static boolean acceptsGzip(Headers requestHeaders) {
+        if (requestHeaders == null) {
+            return false;
+        }
+        String header = requestHeaders.getFirst("Accept-Encoding");
+        if (header == null) {
+            return false;
+        }
+        for (String part : header.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] acquire() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[threshold];
+    }
+
+    /**
+     * بدنه پاسخ: ابتدا در بافر pool و بعد از عبور از آستانه به صورت chunked
+     */
+    private final class ResponseStream extends OutputStream {
+
+        private final HttpExchange exchange;
+        private final int statusCode;
+        private byte[] buffer = acquire();
+        private int count;
+        private OutputStream body;
+        private boolean committed;
+
+        ResponseStream(HttpExchange exchange, int statusCode) {
+            this.exchange = exchange;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (body != null) {
+                body.write(b);
+                return;
+            }
+            if (count == buffer.length) {
+                startStreaming();
+                body.write(b);
+                return;
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (body != null) {
+                body.write(bytes, offset, length);
+                return;
+            }
+            if (count + length > buffer.length) {
+                startStreaming();
+                body.write(bytes, offset, length);
+                return;
+            }
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+            // تا پایان پاسخ flush نمی‌شود تا chunk های کوچک ساخته نشوند
+        }
+
+        @Override
+        public void close() {
+            // بستن توسط finish انجام می‌شود
+        }
+
+        /**
+         * پاسخ از آستانه بزرگ‌تر شد: ارسال هدرها با chunked transfer
+         */
+        private void startStreaming() throws IOException {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", CONTENT_TYPE);
+            headers.add("Vary", "Accept-Encoding");
+            boolean gzip = acceptsGzip(exchange.getRequestHeaders());
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            committed = true;
+            exchange.sendResponseHeaders(statusCode, 0);
+            OutputStream raw = exchange.getResponseBody();
+            body = gzip ? new GZIPOutputStream(raw, threshold) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            } : raw;
+            body.write(buffer, 0, count);
+            count = 0;
+            streamed.incrementAndGet();
+            if (gzip) {
+                compressed.incrementAndGet();
+            }
+        }
+
+        /**
+         * پایان پاسخ: ارسال بافر با Content-Length یا بستن جریان chunked
+         */
+        void finish() throws IOException {
+            if (body == null) {
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                committed = true;
+                buffered.incrementAndGet();
+                exchange.sendResponseHeaders(statusCode, count == 0 ? -1 : count);
+                try (OutputStream raw = exchange.getResponseBody()) {
+                    raw.write(buffer, 0, count);
+                }
+            } else {
+                body.close();
+            }
+        }
+
+        /**
+         * خطا در حین سریال‌سازی؛ اگر هدرها ارسال شده باشند فقط اتصال بسته می‌شود
+         */
+        void abort(Exception e) {
+            logger.warn("⚠️ Failed to write JSON response ({}): {}", committed ? "streaming" : "buffered",
+                        e.getMessage());
+            if (committed) {
+                exchange.close();
+            }
+        }
+
+        void release() {
+            if (buffer != null) {
+                pool.offer(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.myapp.common.http;
+
+import com.myapp.common.metrics.MetricsRegistry;
+import com.myapp.common.metrics.PrometheusWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * endpoint {@code GET /metrics} در قالب متنی Prometheus
+ *
+ * خروجی از شمارنده‌های بدون قفل {@link MetricsRegistry} ساخته می‌شود، پس
+ * scrape هیچ‌وقت thread های درخواست را منتظر نمی‌گذارد.
+ */
+public final class MetricsHandler implements HttpHandler {
+
+    private final MetricsRegistry registry;
+
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if ("HEAD".equals(method)) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
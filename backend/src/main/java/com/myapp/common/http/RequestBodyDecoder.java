@@ -0,0 +1,247 @@
+package com.myapp.common.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.myapp.common.exceptions.InvalidRequestException;
+import com.myapp.common.exceptions.InvalidRequestException.Reason;
+import com.myapp.common.utils.JsonUtil;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * خواندن بدنه درخواست JSON با parser جریانی Jackson
+ *
+ * جایگزین parser های دستی controller ها (readAllBytes، حذف آکولاد با regex و
+ * split روی کاما و دونقطه) که برای هر درخواست چندین String موقت می‌ساختند و
+ * با اشیاء تو در تو یا مقادیر دارای کاما خراب می‌شدند.
+ *
+ * - بدنه مستقیماً از InputStream درخواست خوانده می‌شود؛ parser بافرهای خود را
+ *   از BufferRecycler مشترک Jackson می‌گیرد و هیچ کپی کامل از بدنه ساخته نمی‌شود.
+ * - داده مستقیماً به DTO تایپ‌دار (مثل LoginRequest) یا Map متصل می‌شود.
+ *   ObjectReader هر نوع یک بار ساخته و بین thread ها به اشتراک گذاشته می‌شود.
+ * - اندازه بدنه محدود است (هم از روی Content-Length و هم هنگام خواندن).
+ * - همه خطاها به {@link InvalidRequestException} با نوع و نام فیلد تبدیل می‌شوند.
+ *
+ * پیکربندی از طریق System Property:
+ * - http.max.body.bytes: حداکثر اندازه بدنه درخواست (پیش‌فرض 1 مگابایت)
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public final class RequestBodyDecoder {
+
+    public static final long DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+
+    private static final RequestBodyDecoder GLOBAL = new RequestBodyDecoder(
+        Long.getLong("http.max.body.bytes", DEFAULT_MAX_BODY_BYTES));
+
+    private final long maxBodyBytes;
+    private final ObjectReader baseReader = JsonUtil.getObjectMapper().reader()
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public RequestBodyDecoder(long maxBodyBytes) {
+        if (maxBodyBytes <= 0) {
+            throw new IllegalArgumentException("Max body size must be positive");
+        }
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * decoder مشترک کل برنامه
+     */
+    public static RequestBodyDecoder global() {
+        return GLOBAL;
+    }
+
+    /**
+     * خواندن بدنه درخواست به صورت DTO
+     *
+     * @param exchange HTTP exchange
+     * @param type کلاس DTO
+     * @return DTO پر شده
+     * @throws InvalidRequestException اگر بدنه خالی، نامعتبر یا بیش از حد بزرگ باشد
+     * @throws IOException در صورت خطا در خواندن اتصال
+     */
+    public <T> T read(HttpExchange exchange, Class<T> type) throws IOException {
+        checkContentLength(exchange.getRequestHeaders());
+        return read(exchange.getRequestBody(), type);
+    }
+
+    /**
+     * خواندن بدنه درخواست به صورت Map (برای endpoint هایی که هنوز DTO ندارند)
+     *
+     * بدنه خالی یک Map خالی برمی‌گرداند.
+     */
+    public Map<String, Object> readMap(HttpExchange exchange) throws IOException {
+        checkContentLength(exchange.getRequestHeaders());
+        return readMap(exchange.getRequestBody());
+    }
+
+    /**
+     * خواندن DTO از یک جریان ورودی
+     */
+    public <T> T read(InputStream body, Class<T> type) throws IOException {
+        T value = decode(body, readerFor(type));
+        if (value == null) {
+            throw new InvalidRequestException(Reason.MALFORMED_BODY, null, "Request body is required");
+        }
+        return value;
+    }
+
+    /**
+     * خواندن Map از یک جریان ورودی
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> readMap(InputStream body) throws IOException {
+        Map<String, Object> value = decode(body, readerFor(LinkedHashMap.class));
+        return value != null ? value : new LinkedHashMap<>();
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    private ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, baseReader::forType);
+    }
+
+    private void checkContentLength(Headers headers) {
+        String contentLength = headers != null ? headers.getFirst("Content-Length") : null;
+        if (contentLength == null) {
+            return;
+        }
+        try {
+            if (Long.parseLong(contentLength.trim()) > maxBodyBytes) {
+                throw tooLarge();
+            }
+        } catch (NumberFormatException e) {
+            // Content-Length نامعتبر؛ محدودیت هنگام خواندن اعمال می‌شود
+        }
+    }
+
+    private <T> T decode(InputStream body, ObjectReader reader) throws IOException {
+        if (body == null) {
+            return null;
+        }
+        try (JsonParser parser = reader.createParser(new LimitedInputStream(body, maxBodyBytes))) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            T value = reader.readValue(parser);
+            if (parser.nextToken() != null) {
+                throw new InvalidRequestException(Reason.MALFORMED_BODY, null,
+                                                  "Unexpected content after JSON value");
+            }
+            return value;
+        } catch (MismatchedInputException e) {
+            String field = fieldOf(e);
+            if (field == null) {
+                throw new InvalidRequestException(Reason.MALFORMED_BODY, null,
+                                                  "Request body has an unexpected structure", e);
+            }
+            throw new InvalidRequestException(Reason.INVALID_FIELD, field, "Invalid value for " + field, e);
+        } catch (JsonProcessingException e) {
+            if (isTooLarge(e)) {
+                throw tooLarge();
+            }
+            throw new InvalidRequestException(Reason.MALFORMED_BODY, fieldOf(e), "Malformed JSON request body", e);
+        } catch (BodyTooLargeException e) {
+            throw tooLarge();
+        }
+    }
+
+    private InvalidRequestException tooLarge() {
+        return new InvalidRequestException(Reason.BODY_TOO_LARGE, null,
+                                           "Request body exceeds " + maxBodyBytes + " bytes");
+    }
+
+    private static boolean isTooLarge(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BodyTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * نام فیلد (مسیر نقطه‌دار) از مسیر خطای Jackson
+     */
+    private static String fieldOf(JsonProcessingException e) {
+        if (!(e instanceof JsonMappingException)) {
+            return null;
+        }
+        List<JsonMappingException.Reference> path = ((JsonMappingException) e).getPath();
+        StringBuilder field = new StringBuilder();
+        for (JsonMappingException.Reference reference : path) {
+            if (reference.getFieldName() != null) {
+                if (field.length() > 0) {
+                    field.append('.');
+                }
+                field.append(reference.getFieldName());
+            } else if (reference.getIndex() >= 0) {
+                field.append('[').append(reference.getIndex()).append(']');
+            }
+        }
+        return field.length() > 0 ? field.toString() : null;
+    }
+
+    /**
+     * خطای داخلی عبور از حداکثر اندازه بدنه
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * جریان ورودی با سقف تعداد بایت
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                consume(count);
+            }
+            return count;
+        }
+
+        private void consume(long count) throws BodyTooLargeException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new BodyTooLargeException();
+            }
+        }
+    }
+}
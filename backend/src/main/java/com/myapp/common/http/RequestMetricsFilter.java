@@ -0,0 +1,59 @@
+package com.myapp.common.http;
+
+import com.myapp.common.metrics.MetricsRegistry;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * فیلتر اندازه‌گیری درخواست‌ها برای متریک‌های {@code /metrics}
+ *
+ * مدت پردازش، کد پاسخ و خطای هر درخواست را در {@link MetricsRegistry} ثبت
+ * می‌کند. برچسب route الگوی ثبت شده در {@link Router} است (مثلاً
+ * {@code /api/orders/{orderId:long}}) تا شناسه‌ها تعداد سری‌ها را زیاد
+ * نکنند؛ برای handler هایی که Router ندارند مسیر context استفاده می‌شود.
+ *
+ * Router الگوی تطبیق یافته را در یک ThreadLocal می‌گذارد، چون attribute های
+ * HttpExchange در JDK بین همه exchange های یک context مشترک‌اند.
+ */
+public final class RequestMetricsFilter extends Filter {
+
+    private static final ThreadLocal<String> MATCHED_ROUTE = new ThreadLocal<>();
+
+    private final MetricsRegistry registry;
+
+    public RequestMetricsFilter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * اعلام الگوی مسیر درخواست جاری (توسط Router)
+     */
+    static void routeMatched(String pattern) {
+        MATCHED_ROUTE.set(pattern);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(exchange);
+            failed = false;
+        } finally {
+            String route = MATCHED_ROUTE.get();
+            MATCHED_ROUTE.remove();
+            if (route == null) {
+                route = exchange.getHttpContext().getPath();
+            }
+            registry.recordRequest(route, exchange.getRequestMethod(), exchange.getResponseCode(), failed,
+                                   System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Request latency, status and error metrics";
+    }
+}
@@ -0,0 +1,383 @@
+package com.myapp.common.http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * مسیریاب درختی (trie) برای endpoint های controller ها
+ *
+ * جایگزین زنجیره‌های {@code path.matches("/api/orders/\\d+")} است که در هر
+ * درخواست regex جدید compile می‌کردند و همه شاخه‌ها را به ترتیب امتحان
+ * می‌کردند. مسیرها یک بار هنگام ساخت controller ثبت می‌شوند:
+ *
+ * <pre>
+ * router.get("/api/orders/{orderId:long}", (exchange, match) ->
+ *     getOrderDetails(exchange, match.longParam("orderId")));
+ * </pre>
+ *
+ * انواع بخش‌های مسیر:
+ * - ثابت: {@code active}
+ * - عددی: {@code {name:long}} (فقط رقم، معادل {@code \d+})
+ * - کلمه: {@code {name:word}} (حروف لاتین، رقم و _، معادل {@code \w+})
+ * - متن: {@code {name}} (هر بخش غیرخالی)
+ *
+ * تطبیق بخش به بخش روی همان رشته مسیر انجام می‌شود (بدون split و substring)،
+ * پس هزینه آن O(تعداد بخش‌ها) است و به تعداد مسیرهای ثبت شده بستگی ندارد.
+ * بخش ثابت بر پارامتر اولویت دارد و در صورت شکست، پارامتر امتحان می‌شود.
+ *
+ * Router بعد از ثبت مسیرها فقط خوانده می‌شود و بین thread ها امن است.
+ */
+public final class Router {
+
+    /**
+     * پردازش‌کننده یک مسیر
+     */
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange, Match match) throws IOException;
+    }
+
+    /**
+     * وضعیت نتیجه تطبیق
+     */
+    public enum Status {
+        /** مسیر و method پیدا شد */
+        FOUND,
+        /** مسیری با این الگو وجود ندارد (404) */
+        NOT_FOUND,
+        /** مسیر وجود دارد ولی برای این method ثبت نشده (405) */
+        METHOD_NOT_ALLOWED
+    }
+
+    private enum SegmentType {
+        LITERAL, LONG, WORD, STRING
+    }
+
+    /** حداکثر تعداد پارامترهای یک مسیر */
+    private static final int MAX_PARAMS = 8;
+
+    private static final Match NOT_FOUND = new Match(Status.NOT_FOUND, null, null, null, null);
+
+    private final Node root = new Node();
+
+    // ==================== REGISTRATION ====================
+
+    public Router get(String pattern, Route route) {
+        return add("GET", pattern, route);
+    }
+
+    public Router post(String pattern, Route route) {
+        return add("POST", pattern, route);
+    }
+
+    public Router put(String pattern, Route route) {
+        return add("PUT", pattern, route);
+    }
+
+    public Router delete(String pattern, Route route) {
+        return add("DELETE", pattern, route);
+    }
+
+    /**
+     * ثبت یک مسیر
+     *
+     * @param method HTTP method
+     * @param pattern الگوی مسیر، مثلاً {@code /api/orders/{orderId:long}/items}
+     * @param route پردازش‌کننده
+     * @throws IllegalArgumentException اگر الگو نامعتبر یا تکراری باشد
+     */
+    public Router add(String method, String pattern, Route route) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+        }
+        Node node = root;
+        List<String> names = new ArrayList<>();
+        for (String segment : pattern.substring(1).split("/", -1)) {
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Empty segment in route pattern: " + pattern);
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String spec = segment.substring(1, segment.length() - 1);
+                int colon = spec.indexOf(':');
+                String name = colon < 0 ? spec : spec.substring(0, colon);
+                SegmentType type = colon < 0 ? SegmentType.STRING : parseType(spec.substring(colon + 1), pattern);
+                if (name.isEmpty() || names.contains(name)) {
+                    throw new IllegalArgumentException("Invalid parameter name in route pattern: " + pattern);
+                }
+                if (names.size() == MAX_PARAMS) {
+                    throw new IllegalArgumentException("Too many parameters in route pattern: " + pattern);
+                }
+                names.add(name);
+                node = node.paramChild(type);
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.routes.containsKey(method)) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + pattern);
+        }
+        node.routes.put(method, new Endpoint(route, pattern, names.toArray(new String[0])));
+        return this;
+    }
+
+    private static SegmentType parseType(String type, String pattern) {
+        switch (type) {
+            case "long":
+                return SegmentType.LONG;
+            case "word":
+                return SegmentType.WORD;
+            case "string":
+                return SegmentType.STRING;
+            default:
+                throw new IllegalArgumentException("Unknown parameter type '" + type + "' in " + pattern);
+        }
+    }
+
+    // ==================== MATCHING ====================
+
+    /**
+     * یافتن مسیر برای یک درخواست
+     *
+     * @param method HTTP method
+     * @param path مسیر درخواست (بدون query string)
+     * @return نتیجه تطبیق؛ هیچ‌وقت null نیست
+     */
+    public Match match(String method, String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return NOT_FOUND;
+        }
+        // مرز پارامترها: [start0, end0, start1, end1, ...]
+        int[] bounds = new int[2 * MAX_PARAMS];
+        Node node = find(root, path, 1, bounds, 0, method);
+        if (node != null) {
+            return new Match(Status.FOUND, node.routes.get(method), path, bounds, null);
+        }
+        // مسیر برای method دیگری ثبت شده است؟
+        node = find(root, path, 1, bounds, 0, null);
+        if (node == null) {
+            return NOT_FOUND;
+        }
+        return new Match(Status.METHOD_NOT_ALLOWED, null, path, null, node.routes.keySet());
+    }
+
+    /**
+     * تطبیق و اجرای مسیر
+     *
+     * در حالت FOUND پردازش‌کننده اجرا شده است؛ در بقیه حالت‌ها ارسال پاسخ
+     * 404 یا 405 بر عهده controller است (تا قالب پیام خطای خودش حفظ شود).
+     * الگوی مسیر پیدا شده به عنوان برچسب route به {@link RequestMetricsFilter} اعلام می‌شود.
+     *
+     * @return نتیجه تطبیق
+     */
+    public Match dispatch(HttpExchange exchange, String method, String path) throws IOException {
+        Match match = match(method, path);
+        if (match.status == Status.FOUND) {
+            RequestMetricsFilter.routeMatched(match.endpoint.pattern);
+            match.endpoint.route.handle(exchange, match);
+        }
+        return match;
+    }
+
+    private static Node find(Node node, String path, int start, int[] bounds, int paramIndex, String method) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        if (end == start) {
+            return null; // بخش خالی (// یا / انتهایی)
+        }
+        boolean last = end == path.length();
+
+        for (Node child : node.literals) {
+            if (child.literal.length() == end - start && path.startsWith(child.literal, start)) {
+                Node found = last ? terminal(child, method) : find(child, path, end + 1, bounds, paramIndex, method);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        for (Node child : node.params) {
+            if (accepts(child.type, path, start, end)) {
+                bounds[2 * paramIndex] = start;
+                bounds[2 * paramIndex + 1] = end;
+                Node found = last ? terminal(child, method) : find(child, path, end + 1, bounds, paramIndex + 1, method);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * گره پایانی در صورتی که برای method (یا هر method اگر null باشد) مسیر داشته باشد
+     */
+    private static Node terminal(Node node, String method) {
+        if (method == null) {
+            return node.routes.isEmpty() ? null : node;
+        }
+        return node.routes.containsKey(method) ? node : null;
+    }
+
+    private static boolean accepts(SegmentType type, String path, int start, int end) {
+        switch (type) {
+            case LONG:
+                if (end - start > 19) {
+                    return false; // خارج از محدوده long
+                }
+                for (int i = start; i < end; i++) {
+                    char c = path.charAt(i);
+                    if (c < '0' || c > '9') {
+                        return false;
+                    }
+                }
+                return true;
+            case WORD:
+                for (int i = start; i < end; i++) {
+                    char c = path.charAt(i);
+                    if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    // ==================== MODEL ====================
+
+    private static final class Endpoint {
+        private final Route route;
+        private final String pattern;
+        private final String[] paramNames;
+
+        Endpoint(Route route, String pattern, String[] paramNames) {
+            this.route = route;
+            this.pattern = pattern;
+            this.paramNames = paramNames;
+        }
+    }
+
+    private static final class Node {
+        private final String literal;
+        private final SegmentType type;
+        private Node[] literals = new Node[0];
+        private Node[] params = new Node[0];
+        private final Map<String, Endpoint> routes = new LinkedHashMap<>(4);
+
+        Node() {
+            this(null, SegmentType.LITERAL);
+        }
+
+        Node(String literal, SegmentType type) {
+            this.literal = literal;
+            this.type = type;
+        }
+
+        Node literalChild(String segment) {
+            for (Node child : literals) {
+                if (child.literal.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment, SegmentType.LITERAL);
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            literals[literals.length - 1] = child;
+            return child;
+        }
+
+        Node paramChild(SegmentType segmentType) {
+            for (Node child : params) {
+                if (child.type == segmentType) {
+                    return child;
+                }
+            }
+            Node child = new Node(null, segmentType);
+            params = Arrays.copyOf(params, params.length + 1);
+            params[params.length - 1] = child;
+            // پارامترهای محدودتر (عددی) قبل از پارامترهای عمومی امتحان می‌شوند
+            Arrays.sort(params, (a, b) -> a.type.compareTo(b.type));
+            return child;
+        }
+    }
+
+    /**
+     * نتیجه تطبیق یک مسیر
+     */
+    public static final class Match {
+
+        private final Status status;
+        private final Endpoint endpoint;
+        private final String path;
+        private final int[] bounds;
+        private final Set<String> allowedMethods;
+
+        private Match(Status status, Endpoint endpoint, String path, int[] bounds, Set<String> allowedMethods) {
+            this.status = status;
+            this.endpoint = endpoint;
+            this.path = path;
+            this.bounds = bounds;
+            this.allowedMethods = allowedMethods;
+        }
+
+        public Status status() {
+            return status;
+        }
+
+        /**
+         * method های ثبت شده برای این مسیر (برای header Allow در پاسخ 405)
+         */
+        public String allowedMethods() {
+            return allowedMethods == null ? "" : String.join(", ", allowedMethods);
+        }
+
+        /**
+         * تنظیم header Allow برای پاسخ 405
+         */
+        public void applyAllowHeader(HttpExchange exchange) {
+            if (allowedMethods != null && exchange.getResponseHeaders() != null) {
+                exchange.getResponseHeaders().set("Allow", allowedMethods());
+            }
+        }
+
+        /**
+         * مقدار متنی پارامتر مسیر
+         */
+        public String param(String name) {
+            int index = indexOf(name);
+            return path.substring(bounds[2 * index], bounds[2 * index + 1]);
+        }
+
+        /**
+         * مقدار عددی پارامتر مسیر (بدون ساخت substring)
+         *
+         * @throws IllegalArgumentException اگر پارامتر عدد نباشد
+         */
+        public long longParam(String name) {
+            int index = indexOf(name);
+            try {
+                return Long.parseLong(path, bounds[2 * index], bounds[2 * index + 1], 10);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + name + ": " + param(name));
+            }
+        }
+
+        private int indexOf(String name) {
+            String[] names = endpoint != null ? endpoint.paramNames : new String[0];
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unknown route parameter: " + name);
+        }
+    }
+}
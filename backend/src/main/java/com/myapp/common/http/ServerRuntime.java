@@ -0,0 +1,409 @@
+package com.myapp.common.http;
+
+import com.myapp.common.metrics.MetricsRegistry;
+import com.myapp.common.metrics.PrometheusWriter;
+import com.myapp.common.utils.ReplicaRouter;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * محیط اجرای سرور HTTP - انتخاب Executor و کنترل پذیرش درخواست‌ها
+ *
+ * این کلاس جایگزین Thread Pool ثابت ۱۰ تایی در ServerApp است و سه حالت اجرا دارد:
+ * - VIRTUAL: یک virtual thread برای هر درخواست (نیازمند Java 21+، در غیر این صورت BOUNDED)؛
+ *   همزمانی با یک Semaphore به اندازه server.threads محدود می‌شود
+ * - BOUNDED: Thread Pool پلتفرمی با اندازه ثابت
+ * - WORK_STEALING: ForkJoinPool با الگوریتم work-stealing
+ *
+ * کنترل فشار (Backpressure):
+ * تعداد درخواست‌های پذیرفته شده (در صف + در حال اجرا) محدود است. درخواست‌های مازاد
+ * روی یک مسیر سبک جداگانه اجرا می‌شوند و فیلتر پذیرش برای آن‌ها بلافاصله
+ * پاسخ 503 به همراه header مربوط به Retry-After ارسال می‌کند.
+ *
+ * HttpServer برای خواندن EOF اتصال‌های keep-alive هم task ارسال می‌کند؛ به همین دلیل
+ * شمارنده‌های accepted/completed/rejected در فیلتر پذیرش و فقط برای درخواست‌های واقعی
+ * افزایش می‌یابند و گیج‌های queueDepth/inFlight همه task ها را نشان می‌دهند.
+ *
+ * پیکربندی از طریق System Property:
+ * - server.executor: virtual | bounded | work-stealing (پیش‌فرض: bounded)
+ * - server.threads: تعداد thread ها / حداکثر همزمانی
+ * - server.queue.capacity: حداکثر تعداد درخواست در انتظار
+ * - server.retry.after.seconds: مقدار header Retry-After در پاسخ 503
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public class ServerRuntime {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerRuntime.class);
+
+    // مقادیر پیش‌فرض پیکربندی
+    public static final int DEFAULT_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+    public static final int DEFAULT_QUEUE_CAPACITY = 500;
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 2;
+
+    // پرچم thread-local برای درخواست‌هایی که باید با 503 رد شوند
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+
+    /**
+     * حالت‌های اجرای درخواست‌ها
+     */
+    public enum ExecutorMode {
+        VIRTUAL, BOUNDED, WORK_STEALING;
+
+        /**
+         * تبدیل مقدار متنی (مثل "work-stealing") به حالت اجرا
+         */
+        public static ExecutorMode from(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return BOUNDED;
+            }
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final ExecutorMode mode;
+    private final int threads;
+    private final int queueCapacity;
+    private final int retryAfterSeconds;
+    private final ExecutorService workers;
+    // سقف همزمانی در حالت VIRTUAL (در سایر حالت‌ها اندازه pool همین نقش را دارد)
+    private final Semaphore virtualPermits;
+    private final ThreadPoolExecutor shedExecutor;
+    private final Filter admissionFilter = new AdmissionFilter();
+    private final Filter metricsFilter = new RequestMetricsFilter(MetricsRegistry.global());
+
+    // گیج‌ها و شمارنده‌ها
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * سازنده با پارامترهای صریح
+     *
+     * @param mode حالت اجرا
+     * @param threads تعداد thread ها (در حالت VIRTUAL حداکثر همزمانی)
+     * @param queueCapacity حداکثر درخواست‌های در انتظار
+     * @param retryAfterSeconds مقدار Retry-After در پاسخ 503
+     */
+    public ServerRuntime(ExecutorMode mode, int threads, int queueCapacity, int retryAfterSeconds) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity cannot be negative");
+        }
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+
+        ExecutorService created = null;
+        ExecutorMode effectiveMode = mode;
+        if (mode == ExecutorMode.VIRTUAL) {
+            created = newVirtualThreadExecutor();
+            if (created == null) {
+                logger.warn("⚠️ Virtual threads are not available on Java {}; falling back to bounded pool",
+                           Runtime.version().feature());
+                effectiveMode = ExecutorMode.BOUNDED;
+            }
+        }
+        if (effectiveMode == ExecutorMode.WORK_STEALING) {
+            created = Executors.newWorkStealingPool(threads);
+        } else if (effectiveMode == ExecutorMode.BOUNDED) {
+            created = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreadFactory("http-worker", false));
+        }
+        this.mode = effectiveMode;
+        this.workers = created;
+        this.virtualPermits = effectiveMode == ExecutorMode.VIRTUAL ? new Semaphore(threads) : null;
+
+        // مسیر سبک برای پاسخ 503 - در صورت پر شدن، thread ارسال‌کننده خودش پاسخ می‌دهد
+        this.shedExecutor = new ThreadPoolExecutor(1, 2, 30L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(1024), namedThreadFactory("http-shed", true),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * ساخت محیط اجرا از روی System Property ها
+     */
+    public static ServerRuntime fromSystemProperties() {
+        ExecutorMode mode = ExecutorMode.from(System.getProperty("server.executor", "bounded"));
+        int threads = Integer.getInteger("server.threads", DEFAULT_THREADS);
+        int queueCapacity = Integer.getInteger("server.queue.capacity", DEFAULT_QUEUE_CAPACITY);
+        int retryAfter = Integer.getInteger("server.retry.after.seconds", DEFAULT_RETRY_AFTER_SECONDS);
+        return new ServerRuntime(mode, threads, queueCapacity, retryAfter);
+    }
+
+    /**
+     * نصب Executor روی سرور HTTP
+     */
+    public void install(HttpServer server) {
+        server.setExecutor(executor());
+        logger.info("🧵 HTTP executor: mode={}, threads={}, queueCapacity={}", mode, threads, queueCapacity);
+    }
+
+    /**
+     * افزودن فیلتر متریک و فیلتر پذیرش به یک context
+     *
+     * فیلتر متریک بیرونی است تا پاسخ‌های 503 زمان اشباع هم شمرده شوند.
+     *
+     * @param context context ایجاد شده روی سرور
+     * @return همان context برای زنجیره‌سازی
+     */
+    public HttpContext bind(HttpContext context) {
+        context.getFilters().add(metricsFilter);
+        context.getFilters().add(admissionFilter);
+        return context;
+    }
+
+    /**
+     * Executor ای که HttpServer برای اجرای هر exchange استفاده می‌کند
+     */
+    public Executor executor() {
+        return this::dispatch;
+    }
+
+    /**
+     * فیلتر پذیرش که درخواست‌های مازاد را با 503 پاسخ می‌دهد
+     */
+    public Filter admissionFilter() {
+        return admissionFilter;
+    }
+
+    /**
+     * ارسال یک exchange به worker ها یا مسیر رد درخواست
+     */
+    private void dispatch(Runnable exchangeTask) {
+        if (queued.incrementAndGet() + inFlight.get() > threads + queueCapacity) {
+            queued.decrementAndGet();
+            shed(exchangeTask);
+            return;
+        }
+
+        try {
+            workers.execute(() -> {
+                if (!acquireVirtualPermit()) {
+                    queued.decrementAndGet();
+                    return;
+                }
+                queued.decrementAndGet();
+                inFlight.incrementAndGet();
+                try {
+                    exchangeTask.run();
+                } finally {
+                    ReplicaRouter.clearCurrentUser();  // کاربر درخواست به درخواست بعدی این thread نرسد
+                    inFlight.decrementAndGet();
+                    if (virtualPermits != null) {
+                        virtualPermits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            shed(exchangeTask);
+        }
+    }
+
+    /**
+     * اجرای exchange در حالت رد (فیلتر پاسخ 503 می‌دهد)
+     */
+    private void shed(Runnable exchangeTask) {
+        shedExecutor.execute(() -> {
+            SHEDDING.set(Boolean.TRUE);
+            try {
+                exchangeTask.run();
+            } finally {
+                SHEDDING.remove();
+            }
+        });
+    }
+
+    /**
+     * فیلتر پذیرش درخواست
+     */
+    private class AdmissionFilter extends Filter {
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!Boolean.TRUE.equals(SHEDDING.get())) {
+                accepted.incrementAndGet();
+                try {
+                    chain.doFilter(exchange);
+                } finally {
+                    completed.incrementAndGet();
+                }
+                return;
+            }
+
+            // قبل از ارسال پاسخ شمرده می‌شود تا کلاینت پس از دریافت 503 شمارنده به‌روز را ببیند
+            rejected.incrementAndGet();
+            byte[] body = "{\"error\":\"Server is busy, please retry later\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+            exchange.sendResponseHeaders(503, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Bounded admission filter (503 + Retry-After on saturation)";
+        }
+    }
+
+    // ==================== گیج‌ها ====================
+
+    /**
+     * تعداد درخواست‌های پذیرفته شده که هنوز اجرا نشده‌اند
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * تعداد درخواست‌های در حال اجرا
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * تعداد درخواست‌هایی که با 503 رد شده‌اند
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * تعداد درخواست‌های پذیرفته شده (شامل درخواست‌های در حال اجرا)
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * تعداد درخواست‌های پذیرفته شده‌ای که پردازش آن‌ها تمام شده است
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public ExecutorMode getMode() {
+        return mode;
+    }
+
+    /**
+     * دریافت آمار کامل Executor
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.name());
+        stats.put("threads", threads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", queued.get());
+        stats.put("inFlight", inFlight.get());
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        return stats;
+    }
+
+    /**
+     * نوشتن گیج‌های Executor در قالب Prometheus (برای ثبت در MetricsRegistry)
+     */
+    public void collectMetrics(PrometheusWriter writer) {
+        writer.gauge("http_executor_queue_depth", "Accepted requests waiting for a worker", queued.get());
+        writer.gauge("http_executor_in_flight", "Requests currently being processed", inFlight.get());
+        writer.gauge("http_executor_threads", "Configured worker threads (max concurrency in virtual mode)", threads);
+        writer.gauge("http_executor_queue_capacity", "Maximum accepted requests waiting for a worker",
+                     queueCapacity);
+        writer.counter("http_executor_accepted_total", "Requests accepted by the executor", accepted.get());
+        writer.counter("http_executor_completed_total", "Requests completed by the executor", completed.get());
+        writer.counter("http_executor_rejected_total", "Requests shed with 503 on saturation", rejected.get());
+    }
+
+    /**
+     * خاموش کردن worker ها با انتظار محدود
+     */
+    public void shutdown(long timeoutSeconds) {
+        workers.shutdown();
+        shedExecutor.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    /**
+     * گرفتن مجوز همزمانی در حالت VIRTUAL
+     *
+     * @return false اگر thread هنگام انتظار interrupt شود (خاموش شدن سرور)
+     */
+    private boolean acquireVirtualPermit() {
+        if (virtualPermits == null) {
+            return true;
+        }
+        try {
+            virtualPermits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * ایجاد executor مبتنی بر virtual thread در صورت پشتیبانی JVM
+     * از reflection استفاده می‌شود تا پروژه روی Java 17 نیز کامپایل شود
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix, boolean daemon) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(daemon);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,521 @@
+package com.myapp.common.http;
+
+import com.myapp.auth.AuthMiddleware;
+import com.myapp.auth.AuthResult;
+import com.myapp.common.events.EventBus;
+import com.myapp.common.events.EventBus.Event;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * endpoint رویدادهای لحظه‌ای (Server-Sent Events) برای هر کاربر
+ *
+ * کلاینت با GET /api/events یک اتصال باز نگه می‌دارد و رویدادهای
+ * {@link EventBus} مربوط به خودش (وضعیت سفارش، تحویل، اعلان جدید) را دریافت
+ * می‌کند؛ دیگر نیازی به polling مکرر endpoint های REST نیست.
+ *
+ * نگهداری اتصال‌ها:
+ * - handle بعد از ارسال header ها برمی‌گردد و exchange باز می‌ماند، پس اتصال
+ *   بیکار هیچ worker thread ای از ServerRuntime را اشغال نمی‌کند
+ * - هر اتصال یک صف محدود دارد؛ نوشتن روی socket توسط چند thread نویسنده
+ *   مشترک انجام می‌شود و منتشرکننده رویداد هرگز block نمی‌شود
+ * - اگر صف یک کلاینت کند پر شود اتصال بسته می‌شود و کلاینت با Last-Event-ID
+ *   از آخرین رویداد دریافتی ادامه می‌دهد
+ * - هر نوشتن روی socket مهلت دارد؛ نوشتنی که از مهلت بگذرد (کلاینتی که
+ *   نمی‌خواند) با interrupt کردن thread نویسنده قطع می‌شود. کانال socket
+ *   interruptible است، پس thread فوراً آزاد و اتصال بسته می‌شود و یک کلاینت
+ *   کند thread های نویسنده مشترک را برای بقیه اتصال‌ها اشغال نمی‌کند
+ * - heartbeat دوره‌ای (comment در SSE) اتصال را از بسته شدن توسط proxy ها
+ *   حفظ می‌کند و اتصال‌های مرده را تشخیص می‌دهد
+ *
+ * احراز هویت با header Authorization یا پارامتر token (EventSource مرورگر
+ * امکان تنظیم header ندارد). ادامه از header Last-Event-ID یا پارامتر
+ * lastEventId؛ اگر رویدادهای لازم دیگر در دسترس نباشند رویداد resync ارسال
+ * می‌شود تا کلاینت وضعیت را دوباره از API بخواند.
+ *
+ * پیکربندی از طریق System Property:
+ * - sse.buffer.size: ظرفیت صف هر اتصال
+ * - sse.max.connections / sse.max.connections.per.user: سقف اتصال‌ها
+ * - sse.heartbeat.seconds: فاصله heartbeat
+ * - sse.writer.threads: تعداد thread های نویسنده
+ * - sse.write.timeout.seconds: مهلت هر نوشتن روی socket
+ */
+public class SseHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseHandler.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+    public static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_USER = 5;
+    public static final int DEFAULT_HEARTBEAT_SECONDS = 15;
+    public static final int DEFAULT_WRITER_THREADS = 2;
+    public static final int DEFAULT_WRITE_TIMEOUT_SECONDS = 10;
+
+    /** فاصله پیشنهادی اتصال مجدد برای کلاینت (میلی‌ثانیه) */
+    static final long RETRY_MILLIS = 3000;
+
+    private static final String HEARTBEAT_FRAME = ": heartbeat\n\n";
+
+    private final EventBus bus;
+    private final Function<HttpExchange, Long> authenticator;
+    private final int bufferSize;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final long writeTimeoutNanos;
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeats;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    /** اتصال‌هایی که thread نویسنده در حال نوشتن روی آن‌هاست (شامل اتصال‌های در حال بسته شدن) */
+    private final Set<Connection> writing = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> connectionsPerUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong writeTimeouts = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    /**
+     * سازنده با پارامترهای صریح
+     *
+     * @param bus گذرگاه رویدادها
+     * @param authenticator استخراج شناسه کاربر از درخواست (null یعنی احراز نشده)
+     * @param bufferSize ظرفیت صف هر اتصال
+     * @param maxConnections حداکثر کل اتصال‌ها
+     * @param maxConnectionsPerUser حداکثر اتصال هر کاربر
+     * @param heartbeatMillis فاصله heartbeat
+     * @param writerThreads تعداد thread های نویسنده
+     */
+    public SseHandler(EventBus bus, Function<HttpExchange, Long> authenticator, int bufferSize,
+                      int maxConnections, int maxConnectionsPerUser, long heartbeatMillis, int writerThreads) {
+        this(bus, authenticator, bufferSize, maxConnections, maxConnectionsPerUser, heartbeatMillis, writerThreads,
+             TimeUnit.SECONDS.toMillis(DEFAULT_WRITE_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * سازنده با مهلت نوشتن صریح
+     *
+     * @param writeTimeoutMillis حداکثر مدت یک نوشتن روی socket؛ بعد از آن اتصال بسته می‌شود
+     */
+    public SseHandler(EventBus bus, Function<HttpExchange, Long> authenticator, int bufferSize,
+                      int maxConnections, int maxConnectionsPerUser, long heartbeatMillis, int writerThreads,
+                      long writeTimeoutMillis) {
+        if (bufferSize <= 0 || maxConnections <= 0 || maxConnectionsPerUser <= 0 || heartbeatMillis <= 0
+                || writeTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("SSE limits must be positive");
+        }
+        this.bus = bus;
+        this.authenticator = authenticator;
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), daemonThreads("sse-writer"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat"));
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(10, writeTimeoutMillis / 4);
+        heartbeats.scheduleAtFixedRate(this::abortExpiredWrites, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * ساخت endpoint با گذرگاه مشترک و احراز هویت JWT از روی System Property ها
+     */
+    public static SseHandler fromSystemProperties() {
+        return new SseHandler(EventBus.global(), SseHandler::authenticate,
+            Integer.getInteger("sse.buffer.size", DEFAULT_BUFFER_SIZE),
+            Integer.getInteger("sse.max.connections", DEFAULT_MAX_CONNECTIONS),
+            Integer.getInteger("sse.max.connections.per.user", DEFAULT_MAX_CONNECTIONS_PER_USER),
+            TimeUnit.SECONDS.toMillis(Integer.getInteger("sse.heartbeat.seconds", DEFAULT_HEARTBEAT_SECONDS)),
+            Integer.getInteger("sse.writer.threads", DEFAULT_WRITER_THREADS),
+            TimeUnit.SECONDS.toMillis(Integer.getInteger("sse.write.timeout.seconds", DEFAULT_WRITE_TIMEOUT_SECONDS)));
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if ("OPTIONS".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Authorization, Last-Event-ID");
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            reject(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        Long userId = authenticator.apply(exchange);
+        if (userId == null) {
+            reject(exchange, 401, "Authentication required");
+            return;
+        }
+        boolean admitted = connections.size() < maxConnections;
+        if (admitted && acquire(userId) > maxConnectionsPerUser) {
+            release(userId);
+            admitted = false;
+        }
+        if (!admitted) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_MILLIS / 1000));
+            reject(exchange, 503, "Too many event streams");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(200, 0);
+
+        Connection connection = new Connection(userId, exchange);
+        connections.add(connection);
+        opened.incrementAndGet();
+        connection.offer("retry: " + RETRY_MILLIS + "\n\n", true);
+        connection.subscription = bus.subscribe(userId, lastEventId(exchange), connection::onEvent);
+        if (connection.closed.get()) {
+            // بازپخش از صف بزرگ‌تر بود؛ کلاینت از آخرین رویداد دریافتی ادامه می‌دهد
+            connection.subscription.close();
+            return;
+        }
+        if (!connection.subscription.isReplayComplete()) {
+            connection.offer(frame(bus.getLastEventId(), "resync", "{}"), true);
+        }
+        logger.debug("📡 Event stream opened for user {} ({} open)", userId, connections.size());
+        // exchange عمداً باز می‌ماند و توسط Connection بسته می‌شود
+    }
+
+    /**
+     * آمار اتصال‌ها (برای /health)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.size());
+        stats.put("users", connectionsPerUser.size());
+        stats.put("opened", opened.get());
+        stats.put("rejected", rejected.get());
+        stats.put("overflowed", overflowed.get());
+        stats.put("writeTimeouts", writeTimeouts.get());
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("bus", bus.getStatistics());
+        return stats;
+    }
+
+    /**
+     * بستن همه اتصال‌ها و thread ها
+     */
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        connections.forEach(Connection::close);
+        writers.shutdown();
+    }
+
+    // ==================== اتصال ====================
+
+    /**
+     * یک اتصال SSE باز با صف محدود خودش
+     *
+     * بستن اتصال دو مرحله دارد: جدا کردن از گذرگاه و شمارنده‌ها ({@link #close()})
+     * که روی هر thread ای (حتی منتشرکننده رویداد) بدون block انجام می‌شود، و بستن
+     * exchange که چون ممکن است روی socket بنویسد فقط روی thread نویسنده و با
+     * همان مهلت نوشتن انجام می‌شود.
+     */
+    private final class Connection {
+
+        private final long userId;
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean exchangeClosed = new AtomicBoolean();
+        private volatile EventBus.Subscription subscription;
+
+        /** thread در حال نوشتن و زمان شروع نوشتن جاری (محافظت شده با writeLock) */
+        private final Object writeLock = new Object();
+        private Thread writer;
+        private long writeStartedNanos;
+
+        Connection(long userId, HttpExchange exchange) {
+            this.userId = userId;
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        void onEvent(Event event) {
+            offer(frame(event.id(), event.type(), event.data()), true);
+        }
+
+        /**
+         * افزودن frame به صف؛ پر شدن صف برای رویدادها یعنی کلاینت عقب افتاده است
+         *
+         * @param frame متن frame
+         * @param required آیا از دست رفتن این frame مجاز نیست (heartbeat مجاز است)
+         */
+        void offer(String frame, boolean required) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                if (required) {
+                    overflowed.incrementAndGet();
+                    logger.debug("⚠️ Event stream of user {} overflowed; closing", userId);
+                    close();
+                }
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // handler در حال خاموش شدن است
+                    scheduled.set(false);
+                    close();
+                    closeExchange();
+                }
+            }
+        }
+
+        private void drain() {
+            writing.add(this);
+            try {
+                String frame;
+                while (!closed.get() && (frame = queue.poll()) != null) {
+                    beginWrite();
+                    out.write(frame.getBytes(StandardCharsets.UTF_8));
+                    endWrite();
+                    if (frame.startsWith("id:")) {
+                        eventsSent.incrementAndGet();
+                    }
+                }
+                if (!closed.get()) {
+                    beginWrite();
+                    out.flush();
+                    endWrite();
+                }
+            } catch (IOException e) {
+                // شامل ClosedByInterruptException بعد از گذشتن مهلت نوشتن
+                endWrite();
+                close();
+            } finally {
+                endWrite();
+                if (closed.get()) {
+                    closeExchange();
+                }
+                writing.remove(this);
+                // interrupt مهلت نوشتن نباید به کار بعدی این thread برسد
+                Thread.interrupted();
+                scheduled.set(false);
+            }
+            // frame هایی که بعد از پایان حلقه رسیده‌اند، یا بستنی که در همین فاصله درخواست شد
+            if (closed.get() ? !exchangeClosed.get() : !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void beginWrite() {
+            synchronized (writeLock) {
+                writer = Thread.currentThread();
+                writeStartedNanos = System.nanoTime();
+            }
+        }
+
+        private void endWrite() {
+            synchronized (writeLock) {
+                writer = null;
+            }
+        }
+
+        /**
+         * قطع نوشتن جاری (در صورت وجود) با interrupt کردن thread نویسنده
+         *
+         * @param onlyIfExpired فقط اگر نوشتن از مهلت گذشته باشد (قطع به عنوان timeout شمرده می‌شود)
+         * @return true اگر نوشتنی قطع شد
+         */
+        boolean abortWrite(boolean onlyIfExpired) {
+            synchronized (writeLock) {
+                if (writer == null || (onlyIfExpired && System.nanoTime() - writeStartedNanos < writeTimeoutNanos)) {
+                    return false;
+                }
+                if (onlyIfExpired) {
+                    // قبل از interrupt شمرده می‌شود، چون thread نویسنده بعد از interrupt خودش اتصال را می‌بندد
+                    writeTimeouts.incrementAndGet();
+                }
+                writer.interrupt();
+                writer = null;
+                return true;
+            }
+        }
+
+        /**
+         * جدا کردن اتصال از گذرگاه و شمارنده‌ها (بدون block)
+         *
+         * exchange توسط thread نویسنده بسته می‌شود؛ اگر نوشتنی در جریان باشد
+         * قطع می‌شود تا thread نویسنده منتظر کلاینت نماند.
+         */
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (subscription != null) {
+                subscription.close();
+            }
+            connections.remove(this);
+            release(userId);
+            queue.clear();
+            abortWrite(false);
+            schedule();
+            logger.debug("📴 Event stream closed for user {}", userId);
+        }
+
+        private void closeExchange() {
+            if (!exchangeClosed.compareAndSet(false, true)) {
+                return;
+            }
+            // بستن stream قطعه پایانی chunked را می‌نویسد و مشمول همان مهلت است
+            beginWrite();
+            try {
+                exchange.close();
+            } finally {
+                endWrite();
+            }
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private void sendHeartbeats() {
+        for (Connection connection : connections) {
+            connection.offer(HEARTBEAT_FRAME, false);
+        }
+    }
+
+    /**
+     * بستن اتصال‌هایی که نوشتن جاری آن‌ها از مهلت گذشته است
+     */
+    private void abortExpiredWrites() {
+        for (Connection connection : writing) {
+            if (connection.abortWrite(true)) {
+                logger.debug("⚠️ Event stream write of user {} timed out; closing", connection.userId);
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * ثبت یک اتصال برای کاربر
+     *
+     * @return تعداد اتصال‌های کاربر با احتساب این اتصال
+     */
+    private int acquire(long userId) {
+        return connectionsPerUser.merge(userId, 1, Integer::sum);
+    }
+
+    private void release(long userId) {
+        connectionsPerUser.computeIfPresent(userId, (id, count) -> count <= 1 ? null : count - 1);
+    }
+
+    /**
+     * قالب‌بندی یک رویداد SSE؛ هر خط داده یک فیلد data جداگانه می‌شود
+     */
+    static String frame(long id, String type, String data) {
+        StringBuilder frame = new StringBuilder(data.length() + 48);
+        frame.append("id: ").append(id).append('\n');
+        frame.append("event: ").append(type).append('\n');
+        for (String line : data.split("\n", -1)) {
+            frame.append("data: ").append(line).append('\n');
+        }
+        return frame.append('\n').toString();
+    }
+
+    /**
+     * شناسه آخرین رویداد دریافتی کلاینت از header یا پارامتر؛ -1 یعنی اتصال تازه
+     */
+    private static long lastEventId(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (value == null) {
+            value = queryParam(exchange.getRequestURI(), "lastEventId");
+        }
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        try {
+            return Math.max(-1, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * احراز هویت پیش‌فرض: header Authorization یا پارامتر token
+     */
+    private static Long authenticate(HttpExchange exchange) {
+        AuthResult result = AuthMiddleware.authenticate(exchange);
+        if (!result.isAuthenticated()) {
+            String token = queryParam(exchange.getRequestURI(), "token");
+            result = token != null ? AuthMiddleware.authenticateToken(token) : result;
+        }
+        return result.isAuthenticated() ? result.getUserId() : null;
+    }
+
+    private static String queryParam(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void reject(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ("{\"error\":\"" + message + "\",\"status\":" + status + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
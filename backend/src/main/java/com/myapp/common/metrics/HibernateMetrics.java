@@ -0,0 +1,102 @@
+package com.myapp.common.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.Supplier;
+
+/**
+ * متریک‌های Hibernate و connection pool از روی SessionFactory
+ *
+ * - آمار Hibernate (فعال با {@code hibernate.generate_statistics} در پیکربندی
+ *   production): کوئری‌ها، session ها، تراکنش‌ها، statement ها و کش سطح دوم.
+ *   این شمارنده‌ها در Hibernate با LongAdder نگهداری می‌شوند و خواندنشان قفل ندارد.
+ * - گیج‌های HikariCP در صورتی که ConnectionProvider از نوع Hikari باشد
+ *   (در SQLite توسعه، این بخش خروجی ندارد).
+ *
+ * SessionFactory به صورت Supplier گرفته می‌شود تا ثبت collector قبل از
+ * آماده شدن پایگاه داده ممکن باشد؛ Supplier می‌تواند null برگرداند.
+ */
+public final class HibernateMetrics implements MetricsCollector {
+
+    private final Supplier<SessionFactory> sessionFactory;
+
+    public HibernateMetrics(Supplier<SessionFactory> sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        SessionFactory factory = sessionFactory.get();
+        if (factory == null || factory.isClosed()) {
+            return;
+        }
+        collectStatistics(factory.getStatistics(), writer);
+        collectPool(factory, writer);
+    }
+
+    private static void collectStatistics(Statistics stats, PrometheusWriter writer) {
+        if (!stats.isStatisticsEnabled()) {
+            return;
+        }
+        writer.counter("hibernate_sessions_opened_total", "Hibernate sessions opened", stats.getSessionOpenCount());
+        writer.counter("hibernate_sessions_closed_total", "Hibernate sessions closed", stats.getSessionCloseCount());
+        writer.counter("hibernate_transactions_total", "Hibernate transactions completed",
+                       stats.getTransactionCount());
+        writer.counter("hibernate_transactions_successful_total", "Hibernate transactions committed",
+                       stats.getSuccessfulTransactionCount());
+        writer.counter("hibernate_optimistic_failures_total", "Optimistic lock failures",
+                       stats.getOptimisticFailureCount());
+        writer.counter("hibernate_statements_prepared_total", "JDBC statements prepared",
+                       stats.getPrepareStatementCount());
+        writer.counter("hibernate_flushes_total", "Session flushes", stats.getFlushCount());
+        writer.counter("hibernate_connections_obtained_total", "JDBC connections obtained by sessions",
+                       stats.getConnectCount());
+        writer.counter("hibernate_entities_loaded_total", "Entities loaded", stats.getEntityLoadCount());
+        writer.counter("hibernate_entities_fetched_total", "Entities fetched lazily", stats.getEntityFetchCount());
+        writer.counter("hibernate_collections_fetched_total", "Collections fetched lazily",
+                       stats.getCollectionFetchCount());
+        writer.counter("hibernate_queries_executed_total", "HQL/SQL queries executed",
+                       stats.getQueryExecutionCount());
+        writer.gauge("hibernate_query_execution_max_seconds", "Slowest query execution time",
+                     stats.getQueryExecutionMaxTime() / 1000.0);
+
+        writer.family("hibernate_cache_hits_total", "counter", "Hibernate cache hits")
+              .sample("hibernate_cache_hits_total", stats.getSecondLevelCacheHitCount(), "cache", "second_level")
+              .sample("hibernate_cache_hits_total", stats.getQueryCacheHitCount(), "cache", "query");
+        writer.family("hibernate_cache_misses_total", "counter", "Hibernate cache misses")
+              .sample("hibernate_cache_misses_total", stats.getSecondLevelCacheMissCount(), "cache", "second_level")
+              .sample("hibernate_cache_misses_total", stats.getQueryCacheMissCount(), "cache", "query");
+    }
+
+    private static void collectPool(SessionFactory factory, PrometheusWriter writer) {
+        ConnectionProvider provider = factory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        if (provider == null || !provider.isUnwrappableAs(HikariDataSource.class)) {
+            return;
+        }
+        HikariDataSource dataSource = provider.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // pool هنوز شروع نشده است
+        }
+        String name = dataSource.getPoolName();
+        writer.family("hikaricp_connections_active", "gauge", "Connections currently in use")
+              .sample("hikaricp_connections_active", pool.getActiveConnections(), "pool", name);
+        writer.family("hikaricp_connections_idle", "gauge", "Idle connections")
+              .sample("hikaricp_connections_idle", pool.getIdleConnections(), "pool", name);
+        writer.family("hikaricp_connections", "gauge", "Total connections")
+              .sample("hikaricp_connections", pool.getTotalConnections(), "pool", name);
+        writer.family("hikaricp_connections_pending", "gauge", "Threads waiting for a connection")
+              .sample("hikaricp_connections_pending", pool.getThreadsAwaitingConnection(), "pool", name);
+        writer.family("hikaricp_connections_max", "gauge", "Maximum pool size")
+              .sample("hikaricp_connections_max", dataSource.getMaximumPoolSize(), "pool", name);
+        writer.family("hikaricp_connections_min", "gauge", "Minimum idle connections")
+              .sample("hikaricp_connections_min", dataSource.getMinimumIdle(), "pool", name);
+    }
+}
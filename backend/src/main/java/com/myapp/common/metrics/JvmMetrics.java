@@ -0,0 +1,41 @@
+package com.myapp.common.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * متریک‌های پایه JVM (حافظه، GC و thread ها)
+ *
+ * نام‌ها همان نام‌های مورد استفاده در alerting-rules.yml و recording-rules.yml هستند.
+ */
+final class JvmMetrics implements MetricsCollector {
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+
+        writer.family("jvm_memory_used_bytes", "gauge", "Used JVM memory")
+              .sample("jvm_memory_used_bytes", heap.getUsed(), "area", "heap")
+              .sample("jvm_memory_used_bytes", nonHeap.getUsed(), "area", "nonheap");
+        writer.family("jvm_memory_committed_bytes", "gauge", "Committed JVM memory")
+              .sample("jvm_memory_committed_bytes", heap.getCommitted(), "area", "heap")
+              .sample("jvm_memory_committed_bytes", nonHeap.getCommitted(), "area", "nonheap");
+        // alert نسبت used به max را فقط برای heap معنادار می‌داند (nonheap معمولاً max ندارد)
+        writer.family("jvm_memory_max_bytes", "gauge", "Maximum JVM memory (-1 when undefined)")
+              .sample("jvm_memory_max_bytes", heap.getMax(), "area", "heap");
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        writer.family("jvm_gc_collection_seconds", "summary", "Time spent in garbage collection");
+        for (GarbageCollectorMXBean gc : collectors) {
+            writer.sample("jvm_gc_collection_seconds_count", Math.max(0, gc.getCollectionCount()), "gc", gc.getName());
+            writer.sample("jvm_gc_collection_seconds_sum", Math.max(0, gc.getCollectionTime()) / 1000.0,
+                          "gc", gc.getName());
+        }
+
+        writer.gauge("jvm_threads_current", "Current live JVM threads",
+                     ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+}
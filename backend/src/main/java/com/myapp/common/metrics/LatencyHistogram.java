@@ -0,0 +1,135 @@
+package com.myapp.common.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * هیستوگرام تأخیر با bucket های log-linear
+ *
+ * مرزها در هر دهه (decade) سه مقدار 1، 2.5 و 5 دارند و از 100 میکروثانیه تا
+ * 50 ثانیه را پوشش می‌دهند؛ مقادیر بزرگ‌تر در bucket آخر (+Inf) قرار می‌گیرند.
+ * این مرزها ثابت‌اند تا هیستوگرام همه نودها در Prometheus قابل جمع باشند.
+ *
+ * ثبت مقدار بدون قفل است: هر bucket یک {@link LongAdder} دارد و thread های
+ * درخواست هیچ‌وقت منتظر scrape یا یکدیگر نمی‌مانند. snapshot ممکن است
+ * درخواست‌های همزمان با خودش را نیمه ثبت ببیند، ولی count همیشه از مجموع
+ * bucket ها محاسبه می‌شود تا با bucket +Inf یکی باشد.
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BOUNDS_NANOS = buildBounds();
+
+    /** مقدار label {@code le} برای هر مرز به ثانیه (مثلاً "0.0025") */
+    private static final String[] LE_LABELS = buildLabels();
+
+    private final LongAdder[] counts = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * ثبت یک مدت زمان
+     *
+     * @param nanos مدت زمان به نانوثانیه (مقادیر منفی صفر در نظر گرفته می‌شوند)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts[bucketIndex(value)].increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * تصویر لحظه‌ای هیستوگرام برای خروجی
+     */
+    public Snapshot snapshot() {
+        long[] cumulative = new long[counts.length];
+        long running = 0;
+        for (int i = 0; i < counts.length; i++) {
+            running += counts[i].sum();
+            cumulative[i] = running;
+        }
+        return new Snapshot(cumulative, sumNanos.sum());
+    }
+
+    static int bucketIndex(long nanos) {
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            if (nanos <= BOUNDS_NANOS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_NANOS.length;
+    }
+
+    /**
+     * تعداد مرزهای متناهی
+     */
+    public static int boundCount() {
+        return BOUNDS_NANOS.length;
+    }
+
+    /**
+     * مقدار label {@code le} برای bucket شماره i (آخرین bucket برابر {@code +Inf} است)
+     */
+    public static String upperBoundLabel(int index) {
+        return index < LE_LABELS.length ? LE_LABELS[index] : "+Inf";
+    }
+
+    private static long[] buildBounds() {
+        long[] mantissas = {10, 25, 50};    // ضرب در 10^decade / 10
+        long[] bounds = new long[6 * mantissas.length];
+        long decade = 100_000L;             // 100 میکروثانیه
+        int index = 0;
+        for (int d = 0; d < 6; d++) {
+            for (long mantissa : mantissas) {
+                bounds[index++] = decade / 10 * mantissa;
+            }
+            decade *= 10;
+        }
+        return bounds;
+    }
+
+    private static String[] buildLabels() {
+        String[] labels = new String[BOUNDS_NANOS.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = BigDecimal.valueOf(BOUNDS_NANOS[i], 9).stripTrailingZeros().toPlainString();
+        }
+        return labels;
+    }
+
+    /**
+     * تصویر تغییرناپذیر هیستوگرام با شمارش تجمعی bucket ها
+     */
+    public static final class Snapshot {
+
+        private final long[] cumulativeCounts;
+        private final long sumNanos;
+
+        private Snapshot(long[] cumulativeCounts, long sumNanos) {
+            this.cumulativeCounts = cumulativeCounts;
+            this.sumNanos = sumNanos;
+        }
+
+        /**
+         * تعداد مقادیر کوچک‌تر یا مساوی مرز bucket شماره i
+         */
+        public long cumulativeCount(int index) {
+            return cumulativeCounts[index];
+        }
+
+        public int bucketCount() {
+            return cumulativeCounts.length;
+        }
+
+        public long count() {
+            return cumulativeCounts[cumulativeCounts.length - 1];
+        }
+
+        public double sumSeconds() {
+            return sumNanos / 1_000_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.myapp.common.metrics;
+
+/**
+ * منبع متریک‌هایی که هنگام scrape خوانده می‌شوند (gauge ها و شمارنده‌های خارجی)
+ *
+ * پیاده‌سازی باید فقط مقادیر موجود در حافظه را بخواند و کار شبکه‌ای یا
+ * قفل طولانی انجام ندهد؛ خطای یک collector باعث حذف بقیه خروجی نمی‌شود.
+ */
+@FunctionalInterface
+public interface MetricsCollector {
+
+    void collect(PrometheusWriter writer);
+}
@@ -0,0 +1,169 @@
+package com.myapp.common.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * رجیستری متریک‌های برنامه برای endpoint {@code /metrics}
+ *
+ * دو نوع داده نگهداری می‌شود:
+ * - متریک‌های درخواست HTTP به تفکیک route و method: هیستوگرام تأخیر،
+ *   شمارنده درخواست به تفکیک status و شمارنده خطا. ثبت آن‌ها بدون قفل است
+ *   (ConcurrentHashMap برای یافتن سری و LongAdder برای شمارش).
+ * - collector ها: منابعی مثل Executor، Hikari، Hibernate و کش که مقدارشان
+ *   فقط هنگام scrape خوانده می‌شود.
+ *
+ * نام متریک‌ها با قواعد موجود در monitoring/prometheus هماهنگ است
+ * ({@code http_requests_total}، {@code http_request_duration_seconds}، ...).
+ */
+public final class MetricsRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    /** method های شناخته شده؛ بقیه با OTHER ثبت می‌شوند تا تعداد سری‌ها محدود بماند */
+    private static final String[] KNOWN_METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"};
+
+    // route -> method -> سری
+    private final Map<String, Map<String, RequestSeries>> requests = new ConcurrentHashMap<>();
+    private final Map<String, MetricsCollector> collectors = new ConcurrentSkipListMap<>();
+
+    public MetricsRegistry() {
+        register("jvm", new JvmMetrics());
+    }
+
+    /**
+     * رجیستری مشترک کل برنامه
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    // ==================== ثبت ====================
+
+    /**
+     * ثبت یک درخواست پاسخ داده شده
+     *
+     * @param route الگوی مسیر (مثلاً {@code /api/orders/{orderId:long}}) یا مسیر context
+     * @param method HTTP method
+     * @param status کد پاسخ؛ صفر یا منفی یعنی پاسخی ارسال نشده
+     * @param failed آیا پردازش با exception تمام شد
+     * @param nanos مدت پردازش
+     */
+    public void recordRequest(String route, String method, int status, boolean failed, long nanos) {
+        String methodLabel = normalizeMethod(method);
+        // مسیر معمول فقط get است؛ computeIfAbsent تنها برای اولین درخواست هر سری اجرا می‌شود
+        Map<String, RequestSeries> byMethod = requests.get(route);
+        if (byMethod == null) {
+            byMethod = requests.computeIfAbsent(route, r -> new ConcurrentHashMap<>());
+        }
+        RequestSeries series = byMethod.get(methodLabel);
+        if (series == null) {
+            series = byMethod.computeIfAbsent(methodLabel, m -> new RequestSeries());
+        }
+        series.latency.record(nanos);
+        series.count(status);
+        if (failed || status >= 500) {
+            series.errors.increment();
+        }
+    }
+
+    /**
+     * ثبت (یا جایگزینی) یک collector با نام یکتا
+     */
+    public void register(String name, MetricsCollector collector) {
+        collectors.put(name, collector);
+    }
+
+    public void unregister(String name) {
+        collectors.remove(name);
+    }
+
+    // ==================== خروجی ====================
+
+    /**
+     * تولید خروجی کامل در قالب متنی Prometheus
+     *
+     * فقط شمارنده‌ها خوانده می‌شوند و هیچ قفلی که thread های درخواست به آن
+     * نیاز دارند گرفته نمی‌شود.
+     */
+    public String scrape() {
+        PrometheusWriter writer = new PrometheusWriter();
+        writeRequests(writer);
+        for (Map.Entry<String, MetricsCollector> entry : collectors.entrySet()) {
+            // خروجی هر collector جدا ساخته می‌شود تا خطای میانه کار، خروجی نیمه‌کاره نگذارد
+            PrometheusWriter part = new PrometheusWriter();
+            try {
+                entry.getValue().collect(part);
+                writer.append(part);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Metrics collector '{}' failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return writer.toString();
+    }
+
+    private void writeRequests(PrometheusWriter writer) {
+        writer.family("http_request_duration_seconds", "histogram",
+                      "HTTP request latency by route and method");
+        requests.forEach((route, byMethod) -> byMethod.forEach((method, series) ->
+            writer.histogram("http_request_duration_seconds", series.latency.snapshot(),
+                             "route", route, "method", method)));
+
+        writer.family("http_requests_total", "counter", "HTTP requests by route, method and status");
+        requests.forEach((route, byMethod) -> byMethod.forEach((method, series) ->
+            series.byStatus.forEach((status, count) ->
+                writer.sample("http_requests_total", count.sum(),
+                              "route", route, "method", method, "status", status))));
+
+        writer.family("http_request_errors_total", "counter",
+                      "HTTP requests that failed with an exception or a 5xx status");
+        requests.forEach((route, byMethod) -> byMethod.forEach((method, series) ->
+            writer.sample("http_request_errors_total", series.errors.sum(), "route", route, "method", method)));
+    }
+
+    private static String normalizeMethod(String method) {
+        for (String known : KNOWN_METHODS) {
+            if (known.equals(method)) {
+                return known;
+            }
+        }
+        return "OTHER";
+    }
+
+    /**
+     * متریک‌های یک route و method
+     */
+    private static final class RequestSeries {
+
+        private static final String NO_RESPONSE = "none";
+
+        // برچسب‌های status از پیش ساخته می‌شوند تا ثبت هر درخواست رشته جدید نسازد
+        private static final String[] STATUS_LABELS = new String[500];
+
+        static {
+            for (int i = 0; i < STATUS_LABELS.length; i++) {
+                STATUS_LABELS[i] = String.valueOf(i + 100);
+            }
+        }
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+
+        void count(int status) {
+            String label = status >= 100 && status <= 599 ? STATUS_LABELS[status - 100] : NO_RESPONSE;
+            LongAdder counter = byStatus.get(label);
+            if (counter == null) {
+                counter = byStatus.computeIfAbsent(label, s -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.myapp.common.metrics;
+
+/**
+ * نوشتن متریک‌ها در قالب متنی Prometheus (نسخه 0.0.4)
+ *
+ * هر خانواده متریک یک بار با {@link #family} معرفی می‌شود و سپس همه
+ * نمونه‌های آن با {@link #sample} پشت سر هم نوشته می‌شوند؛ Prometheus
+ * نمونه‌های پراکنده یک خانواده را نمی‌پذیرد.
+ *
+ * label ها به صورت جفت‌های نام و مقدار پشت سر هم داده می‌شوند:
+ * <pre>
+ * writer.sample("http_requests_total", 12, "route", "/api/orders", "status", "200");
+ * </pre>
+ */
+public final class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out;
+
+    public PrometheusWriter() {
+        this(new StringBuilder(4096));
+    }
+
+    public PrometheusWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * معرفی یک خانواده متریک (# HELP و # TYPE)
+     *
+     * @param type یکی از counter، gauge، histogram، summary یا untyped
+     */
+    public PrometheusWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ');
+        escape(help, false);
+        out.append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * نوشتن یک نمونه
+     */
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                escape(labels[i + 1], true);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        appendValue(value);
+        out.append('\n');
+        return this;
+    }
+
+    /**
+     * خانواده gauge با یک نمونه بدون label
+     */
+    public PrometheusWriter gauge(String name, String help, double value) {
+        return family(name, "gauge", help).sample(name, value);
+    }
+
+    /**
+     * خانواده counter با یک نمونه بدون label
+     */
+    public PrometheusWriter counter(String name, String help, double value) {
+        return family(name, "counter", help).sample(name, value);
+    }
+
+    /**
+     * نوشتن نمونه‌های یک هیستوگرام ({@code _bucket}، {@code _sum} و {@code _count})
+     *
+     * خانواده باید قبلاً با نوع histogram معرفی شده باشد.
+     */
+    public PrometheusWriter histogram(String name, LatencyHistogram.Snapshot snapshot, String... labels) {
+        String bucketName = name + "_bucket";
+        String[] bucketLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, bucketLabels, 0, labels.length);
+        bucketLabels[labels.length] = "le";
+        for (int i = 0; i < snapshot.bucketCount(); i++) {
+            bucketLabels[labels.length + 1] = LatencyHistogram.upperBoundLabel(i);
+            sample(bucketName, snapshot.cumulativeCount(i), bucketLabels);
+        }
+        sample(name + "_sum", snapshot.sumSeconds(), labels);
+        sample(name + "_count", snapshot.count(), labels);
+        return this;
+    }
+
+    /**
+     * افزودن خروجی یک writer دیگر
+     */
+    public PrometheusWriter append(PrometheusWriter other) {
+        out.append(other.out);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void appendValue(double value) {
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private void escape(String text, boolean quote) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '"' && quote) {
+                out.append("\\\"");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.myapp.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * وضعیت خوانده شدن broadcast های fan-out-on-read برای یک کاربر
+ *
+ * هر کاربر حداکثر یک ردیف دارد:
+ * - (readUpToAt, readUpTo): همه broadcast ها با (createdAt, id) کوچک‌تر یا مساوی
+ *   خوانده شده‌اند. ترتیب بر اساس زمان ایجاد است چون شناسه‌ها از بلوک‌های pooled
+ *   هر node گرفته می‌شوند و ترتیب آن‌ها با ترتیب ایجاد یکی نیست؛ شناسه فقط
+ *   زمان‌های برابر را از هم جدا می‌کند.
+ * - readIds: شناسه broadcast های خوانده شده بعد از این نشانگر (خارج از ترتیب)
+ *
+ * با خواندن broadcast ها به ترتیب، readIds در نشانگر ادغام می‌شود ({@link #compact}).
+ * تعداد readIds حداکثر {@link #MAX_READ_IDS} است؛ با رسیدن به آن قدیمی‌ترین
+ * broadcast های خوانده نشده نیز در نشانگر ادغام (خوانده شده فرض) می‌شوند.
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ */
+@Entity
+@Table(name = "broadcast_read_state")
+public class BroadcastReadState {
+
+    /** حداکثر تعداد readIds (هر شناسه با کاما حداکثر 20 کاراکتر در ستون 1000 کاراکتری) */
+    public static final int MAX_READ_IDS = 50;
+
+    /** ترتیب ایجاد broadcast ها */
+    private static final Comparator<NotificationBroadcast> CREATION_ORDER =
+        Comparator.comparing(NotificationBroadcast::getCreatedAt).thenComparing(NotificationBroadcast::getId);
+
+    /** شناسه کاربر - کلید اصلی */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** شناسه آخرین broadcast که خودش و همه قبلی‌هایش خوانده شده‌اند */
+    @Column(name = "read_up_to", nullable = false)
+    private Long readUpTo = 0L;
+
+    /** زمان ایجاد همان broadcast (null یعنی هنوز چیزی خوانده نشده) */
+    @Column(name = "read_up_to_at")
+    private LocalDateTime readUpToAt;
+
+    /** شناسه‌های خوانده شده بعد از نشانگر، جدا شده با کاما */
+    @Column(name = "read_ids", nullable = false, length = 1000)
+    private String readIds = "";
+
+    public BroadcastReadState() {}
+
+    public BroadcastReadState(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * آیا broadcast داده شده برای این کاربر خوانده شده است
+     */
+    public boolean isRead(NotificationBroadcast broadcast) {
+        return !isAfterWatermark(broadcast) || readIdSet().contains(broadcast.getId());
+    }
+
+    /**
+     * ثبت خوانده شدن یک broadcast
+     *
+     * @param broadcast broadcast خوانده شده
+     * @param active broadcast های قابل نمایش فعلی (برای ادغام در نشانگر)
+     * @return true اگر وضعیت تغییر کرد
+     */
+    public boolean markRead(NotificationBroadcast broadcast, Collection<NotificationBroadcast> active) {
+        if (isRead(broadcast)) {
+            return false;
+        }
+        TreeSet<Long> ids = readIdSet();
+        ids.add(broadcast.getId());
+        compact(ids, active);
+        return true;
+    }
+
+    /**
+     * علامت‌گذاری همه broadcast ها تا broadcast داده شده (جدیدترین نمایش داده شده)
+     */
+    public void markAllRead(NotificationBroadcast newest) {
+        if (isAfterWatermark(newest)) {
+            advanceTo(newest);
+        }
+        readIds = "";
+    }
+
+    /**
+     * ادغام شناسه‌های خوانده شده پیوسته در نشانگر
+     *
+     * نشانگر به ترتیب ایجاد تا جایی جلو می‌رود که هیچ broadcast فعال خوانده نشده‌ای
+     * قبل از آن نباشد؛ broadcast های منقضی (خارج از active) مانع جلو رفتن نیستند و
+     * شناسه آن‌ها از readIds حذف می‌شود. اگر readIds از سقف بیشتر باشد، broadcast های
+     * خوانده نشده قدیمی‌تر نیز تا رسیدن به سقف رد می‌شوند.
+     */
+    private void compact(TreeSet<Long> ids, Collection<NotificationBroadcast> active) {
+        List<NotificationBroadcast> pending = active.stream()
+            .filter(this::isAfterWatermark)
+            .sorted(CREATION_ORDER)
+            .toList();
+        Set<Long> pendingIds = pending.stream().map(NotificationBroadcast::getId).collect(Collectors.toSet());
+        ids.retainAll(pendingIds);
+        for (NotificationBroadcast broadcast : pending) {
+            boolean read = ids.remove(broadcast.getId());
+            if (!read && ids.size() <= MAX_READ_IDS) {
+                break;
+            }
+            advanceTo(broadcast);
+        }
+        readIds = join(ids);
+    }
+
+    private boolean isAfterWatermark(NotificationBroadcast broadcast) {
+        if (readUpToAt == null) {
+            return true;
+        }
+        int byTime = broadcast.getCreatedAt().compareTo(readUpToAt);
+        return byTime > 0 || (byTime == 0 && broadcast.getId() > readUpTo);
+    }
+
+    private void advanceTo(NotificationBroadcast broadcast) {
+        readUpToAt = broadcast.getCreatedAt();
+        readUpTo = broadcast.getId();
+    }
+
+    private TreeSet<Long> readIdSet() {
+        if (readIds == null || readIds.isEmpty()) {
+            return new TreeSet<>();
+        }
+        return Arrays.stream(readIds.split(","))
+            .map(Long::valueOf)
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static String join(Collection<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getReadUpTo() { return readUpTo; }
+    public void setReadUpTo(Long readUpTo) { this.readUpTo = readUpTo; }
+
+    public LocalDateTime getReadUpToAt() { return readUpToAt; }
+    public void setReadUpToAt(LocalDateTime readUpToAt) { this.readUpToAt = readUpToAt; }
+
+    public String getReadIds() { return readIds; }
+    public void setReadIds(String readIds) { this.readIds = readIds; }
+
+    @Override
+    public String toString() {
+        return "BroadcastReadState{userId=" + userId + ", readUpTo=" + readUpTo + ", readUpToAt=" + readUpToAt
+            + ", readIds='" + readIds + "'}";
+    }
+}
@@ -42,7 +42,8 @@ public class Coupon {
     
     /** شناسه یکتای کوپن */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupons_seq")
+    @SequenceGenerator(name = "coupons_seq", sequenceName = "coupons_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** کد یکتای کوپن برای استفاده توسط کاربر */
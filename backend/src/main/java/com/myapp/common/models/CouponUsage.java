@@ -33,12 +33,16 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "coupon_usage", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"coupon_id", "user_id", "order_id"}))
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"coupon_id", "user_id", "order_id"}),
+           @UniqueConstraint(name = "uk_coupon_usage_user_slot", columnNames = {"coupon_id", "user_id", "user_slot"})
+       })
 public class CouponUsage {
     
     /** شناسه یکتای استفاده از کوپن */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_usage_seq")
+    @SequenceGenerator(name = "coupon_usage_seq", sequenceName = "coupon_usage_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** کوپن استفاده شده (رابطه چند‌به‌یک) */
@@ -74,6 +78,16 @@ public class CouponUsage {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    /**
+     * شماره سهمیه کاربر (1 تا perUserLimit) برای استفاده‌های فعال
+     * 
+     * قید یکتای (کوپن، کاربر، سهمیه) محدودیت per-user را در خود دیتابیس
+     * تضمین می‌کند؛ دو درخواست همزمان نمی‌توانند یک سهمیه را بگیرند.
+     * با revert مقدار null می‌شود تا سهمیه آزاد شود.
+     */
+    @Column(name = "user_slot")
+    private Integer userSlot;
+    
     // ==================== CONSTRUCTORS ====================
     
     /**
@@ -117,6 +131,7 @@ public class CouponUsage {
         }
         this.isActive = false;
         this.revertedAt = LocalDateTime.now();
+        this.userSlot = null;
     }
     
     /**
@@ -205,6 +220,12 @@ public class CouponUsage {
     /** @param isActive وضعیت فعال بودن */
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
     
+    /** @return شماره سهمیه کاربر (null برای کوپن بدون محدودیت per-user یا استفاده برگشتی) */
+    public Integer getUserSlot() { return userSlot; }
+    
+    /** @param userSlot شماره سهمیه کاربر */
+    public void setUserSlot(Integer userSlot) { this.userSlot = userSlot; }
+    
     // ==================== OBJECT METHODS ====================
     
     /**
@@ -26,12 +26,18 @@ import java.time.temporal.ChronoUnit;
  * @since 2024
  */
 @Entity
-@Table(name = "deliveries")
+@Table(name = "deliveries",
+       indexes = {
+           // تحویل‌های فعال و آمار هر پیک (courier + status) به ترتیب زمان اختصاص
+           @Index(name = "idx_delivery_courier_status", columnList = "courier_id, status, assigned_at"),
+           @Index(name = "idx_delivery_status", columnList = "status, id")
+       })
 public class Delivery {
     
     /** شناسه یکتای تحویل */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deliveries_seq")
+    @SequenceGenerator(name = "deliveries_seq", sequenceName = "deliveries_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** 
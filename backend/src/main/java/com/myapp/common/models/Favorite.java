@@ -42,7 +42,8 @@ public class Favorite {
     
     /** شناسه یکتای علاقه‌مندی */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "favorites_seq")
+    @SequenceGenerator(name = "favorites_seq", sequenceName = "favorites_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** کاربر صاحب علاقه‌مندی (رابطه چند‌به‌یک) */
@@ -8,11 +8,17 @@ import jakarta.persistence.*;
  * با استفاده از JPA برای ذخیره‌سازی در دیتابیس تنظیم شده است
  */
 @Entity                         // نشان‌دهنده entity در JPA
-@Table(name = "food_items")    // نام جدول در دیتابیس
+@Table(name = "food_items",     // نام جدول در دیتابیس
+       indexes = {
+           // منوی در دسترس رستوران (restaurant + available + quantity > 0)
+           @Index(name = "idx_food_item_restaurant_available", columnList = "restaurant_id, available, quantity"),
+           @Index(name = "idx_food_item_category_available", columnList = "category, available")
+       })
 public class FoodItem {
     
     @Id                                                    // کلید اصلی
-    @GeneratedValue(strategy = GenerationType.AUTO)   // Auto-increment برای شناسه
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_items_seq") // pooled: یک بلوک شناسه در هر رفت و برگشت
+    @SequenceGenerator(name = "food_items_seq", sequenceName = "food_items_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;                                       // شناسه یکتای آیتم غذایی
     
     @Column(nullable = false, length = 100)  // نام آیتم - اجباری، حداکثر 100 کاراکتر
@@ -0,0 +1,25 @@
+package com.myapp.common.models;
+
+/**
+ * اندازه بلوک شناسه‌های pooled برای entity ها
+ *
+ * هر entity شناسه را از sequence خودش (&lt;table&gt;_SEQ) با optimizer از نوع
+ * pooled می‌گیرد: هر رفت و برگشت به sequence یک بلوک allocationSize تایی رزرو
+ * می‌کند و بقیه شناسه‌ها در حافظه داده می‌شوند، پس INSERT ها در JDBC batch
+ * (hibernate.jdbc.batch_size) ارسال می‌شوند. SQLite sequence ندارد و Hibernate
+ * همین را با جدول &lt;table&gt;_SEQ پیاده می‌کند.
+ *
+ * تغییر این مقادیر برای جدولی که داده دارد بدون migration باعث تکرار شناسه
+ * می‌شود؛ نمونه: db/migrations/*&#47;20261017100000_pooled_id_allocation.sql
+ */
+public final class IdAllocation {
+
+    /** برابر hibernate.jdbc.batch_size تولید: یک رفت و برگشت sequence به ازای هر batch */
+    public static final int DEFAULT = 50;
+
+    /** جداولی که دسته‌ای درج می‌شوند (اعلان‌ها و آیتم‌های سفارش) */
+    public static final int BULK = 500;
+
+    private IdAllocation() {
+    }
+}
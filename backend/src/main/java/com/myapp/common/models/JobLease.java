@@ -0,0 +1,71 @@
+package com.myapp.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * قفل اجرای یک job زمان‌بندی شده بین نودهای سرور
+ *
+ * هر job یک ردیف دارد. نودی که می‌خواهد job را اجرا کند ردیف را با یک
+ * UPDATE شرطی (فقط اگر lease منقضی شده باشد) به نام خودش می‌گیرد، پس در هر
+ * لحظه حداکثر یک نود صاحب lease است. اگر نود اجراکننده از کار بیفتد، lease
+ * بعد از leaseUntil منقضی و job در نوبت بعدی روی نود دیگری اجرا می‌شود.
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ */
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    /** نام job - کلید اصلی */
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    /** شناسه نود صاحب lease */
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+
+    /** lease تا این زمان معتبر است */
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    /** زمان گرفتن lease */
+    @Column(name = "acquired_at", nullable = false)
+    private LocalDateTime acquiredAt;
+
+    /** زمان پایان آخرین اجرای موفق */
+    @Column(name = "last_success_at")
+    private LocalDateTime lastSuccessAt;
+
+    public JobLease() {}
+
+    public JobLease(String jobName, String owner, LocalDateTime acquiredAt, LocalDateTime leaseUntil) {
+        this.jobName = jobName;
+        this.owner = owner;
+        this.acquiredAt = acquiredAt;
+        this.leaseUntil = leaseUntil;
+    }
+
+    // Getters and Setters
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+
+    public LocalDateTime getAcquiredAt() { return acquiredAt; }
+    public void setAcquiredAt(LocalDateTime acquiredAt) { this.acquiredAt = acquiredAt; }
+
+    public LocalDateTime getLastSuccessAt() { return lastSuccessAt; }
+    public void setLastSuccessAt(LocalDateTime lastSuccessAt) { this.lastSuccessAt = lastSuccessAt; }
+
+    @Override
+    public String toString() {
+        return "JobLease{jobName='" + jobName + "', owner='" + owner + "', leaseUntil=" + leaseUntil + "}";
+    }
+}
@@ -36,11 +36,16 @@ import java.util.Objects;
  * @since 2024
  */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+       indexes = {
+           // ایندکس keyset pagination روی (created_at, id)
+           @Index(name = "idx_notification_user_created", columnList = "userId, created_at, id")
+       })
 public class Notification {
     /** شناسه یکتای اعلان */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_SEQ", allocationSize = IdAllocation.BULK)
     private Long id;
     
     /** شناسه کاربر دریافت‌کننده اعلان */
@@ -0,0 +1,190 @@
+package com.myapp.common.models;
+
+import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.Notification.NotificationType;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * یک اعلان گروهی (broadcast) به همه کاربران فعال
+ *
+ * محتوای اعلان یک بار در این ردیف ذخیره می‌شود. دو روش تحویل وجود دارد:
+ *
+ * - READ (fan-out-on-read): هیچ ردیفی برای کاربران درج نمی‌شود؛ broadcast
+ *   هنگام خواندن اعلان‌های کاربر با آن‌ها ادغام می‌شود و وضعیت خوانده شدن
+ *   در {@link BroadcastReadState} نگهداری می‌شود. هزینه نوشتن O(1) است.
+ * - WRITE (fan-out-on-write): برای هر کاربر یک Notification درج می‌شود،
+ *   chunk به chunk (به ترتیب شناسه کاربر). پیشرفت تحویل (lastUserId و
+ *   deliveredCount) در همان تراکنش هر chunk ثبت می‌شود، پس اگر سرور وسط کار
+ *   متوقف شود، تحویل از آخرین chunk commit شده ادامه می‌یابد و به هیچ
+ *   کاربری اعلان تکراری نمی‌رسد.
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ */
+@Entity
+@Table(name = "notification_broadcasts")
+public class NotificationBroadcast {
+
+    /**
+     * وضعیت تحویل broadcast
+     */
+    public enum BroadcastStatus {
+        /** در حال تحویل (یا متوقف شده و منتظر ادامه) */
+        IN_PROGRESS,
+        /** به همه کاربران تحویل شد */
+        COMPLETED,
+        /** تحویل با خطا متوقف شد و قابل ادامه است */
+        FAILED
+    }
+
+    /**
+     * روش تحویل broadcast
+     */
+    public enum FanOut {
+        /** یک Notification برای هر کاربر */
+        WRITE,
+        /** ادغام در زمان خواندن */
+        READ
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_broadcasts_seq")
+    @SequenceGenerator(name = "notification_broadcasts_seq", sequenceName = "notification_broadcasts_SEQ", allocationSize = IdAllocation.DEFAULT)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fan_out", nullable = false, length = 10)
+    private FanOut fanOut = FanOut.WRITE;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationPriority priority;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(nullable = false, length = 500)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BroadcastStatus status = BroadcastStatus.IN_PROGRESS;
+
+    /** شناسه آخرین کاربری که اعلان به او تحویل شده (keyset پیشرفت) */
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId = 0L;
+
+    /** تعداد اعلان‌های تحویل شده */
+    @Column(name = "delivered_count", nullable = false)
+    private Long deliveredCount = 0L;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public NotificationBroadcast() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public NotificationBroadcast(NotificationType type, String title, String message, NotificationPriority priority) {
+        this();
+        this.type = type;
+        this.title = title;
+        this.message = message;
+        this.priority = priority;
+    }
+
+    /**
+     * ساخت broadcast از روی یک اعلان نمونه (بدون کاربر)
+     *
+     * @param template اعلان نمونه، مثلاً {@code Notification.systemMaintenance(null, time)}
+     */
+    public static NotificationBroadcast from(Notification template) {
+        return new NotificationBroadcast(template.getType(), template.getTitle(), template.getMessage(),
+                                         template.getPriority());
+    }
+
+    /**
+     * اعلان این broadcast برای یک کاربر
+     */
+    public Notification toNotification(Long userId) {
+        return new Notification(userId, title, message, type, priority);
+    }
+
+    /**
+     * نمایش این broadcast در لیست اعلان‌های یک کاربر (fan-out-on-read)
+     *
+     * شناسه اعلان برابر منفی شناسه broadcast است تا با اعلان‌های عادی تداخل
+     * نداشته باشد و عملیات خواندن بتواند آن را تشخیص دهد.
+     *
+     * @param userId شناسه کاربر
+     * @param read آیا کاربر آن را خوانده است
+     */
+    public Notification toFeedNotification(Long userId, boolean read) {
+        Notification notification = toNotification(userId);
+        notification.setId(-id);
+        notification.setCreatedAt(createdAt);
+        notification.setIsRead(read);
+        return notification;
+    }
+
+    /**
+     * آیا شناسه اعلان مربوط به یک broadcast fan-out-on-read است
+     */
+    public static boolean isFeedNotificationId(Long notificationId) {
+        return notificationId != null && notificationId < 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public FanOut getFanOut() { return fanOut; }
+    public void setFanOut(FanOut fanOut) { this.fanOut = fanOut; }
+
+    public NotificationType getType() { return type; }
+    public void setType(NotificationType type) { this.type = type; }
+
+    public NotificationPriority getPriority() { return priority; }
+    public void setPriority(NotificationPriority priority) { this.priority = priority; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public BroadcastStatus getStatus() { return status; }
+    public void setStatus(BroadcastStatus status) { this.status = status; }
+
+    public Long getLastUserId() { return lastUserId; }
+    public void setLastUserId(Long lastUserId) { this.lastUserId = lastUserId; }
+
+    public Long getDeliveredCount() { return deliveredCount; }
+    public void setDeliveredCount(Long deliveredCount) { this.deliveredCount = deliveredCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    @Override
+    public String toString() {
+        return "NotificationBroadcast{id=" + id + ", type=" + type + ", status=" + status +
+               ", delivered=" + deliveredCount + "}";
+    }
+}
@@ -11,11 +11,21 @@ import java.util.List;
  * یکی از پیچیده‌ترین مدل‌های سیستم با منطق کسب‌وکار قوی
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+       indexes = {
+           // ایندکس‌های keyset pagination روی (order_date, id)
+           @Index(name = "idx_order_customer_date", columnList = "customer_id, order_date, id"),
+           @Index(name = "idx_order_restaurant_date", columnList = "restaurant_id, order_date, id"),
+           @Index(name = "idx_order_status_date", columnList = "status, order_date, id"),
+           // فیلتر وضعیت سفارش‌های یک مشتری/رستوران با مرتب‌سازی تاریخ
+           @Index(name = "idx_order_customer_status_date", columnList = "customer_id, status, order_date"),
+           @Index(name = "idx_order_restaurant_status_date", columnList = "restaurant_id, status, order_date")
+       })
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
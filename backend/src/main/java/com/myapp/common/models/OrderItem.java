@@ -29,12 +29,18 @@ import jakarta.persistence.*;
  * @since 2024
  */
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items",
+       indexes = {
+           // کلیدهای خارجی در PostgreSQL و SQLite خودکار ایندکس نمی‌شوند
+           @Index(name = "idx_order_item_order", columnList = "order_id"),
+           @Index(name = "idx_order_item_food_item", columnList = "food_item_id")
+       })
 public class OrderItem {
     
     /** شناسه یکتای آیتم سفارش */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_SEQ", allocationSize = IdAllocation.BULK)
     private Long id;
     
     /** سفارش مربوطه (رابطه چند‌به‌یک) */
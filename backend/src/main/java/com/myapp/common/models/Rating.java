@@ -39,7 +39,8 @@ public class Rating {
     
     /** شناسه یکتای رتبه‌بندی */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ratings_seq")
+    @SequenceGenerator(name = "ratings_seq", sequenceName = "ratings_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** کاربر ثبت‌کننده نظر (رابطه چند‌به‌یک) */
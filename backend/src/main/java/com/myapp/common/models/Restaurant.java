@@ -14,7 +14,8 @@ public class Restaurant {
     /* ---------- فیلدهای کلاس ---------- */
     
     @Id                                                    // کلید اصلی
-    @GeneratedValue(strategy = GenerationType.AUTO)   // Auto-increment برای شناسه
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurants_seq") // pooled: یک بلوک شناسه در هر رفت و برگشت
+    @SequenceGenerator(name = "restaurants_seq", sequenceName = "restaurants_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;                                       // شناسه یکتای رستوران
 
     @Column(name = "owner_id", nullable = false)  // شناسه صاحب رستوران - اجباری
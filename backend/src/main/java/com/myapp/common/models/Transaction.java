@@ -39,12 +39,21 @@ import java.time.LocalDateTime;
  * @since 2024
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+       indexes = {
+           // ایندکس‌های keyset pagination روی (created_at, id)
+           @Index(name = "idx_transaction_user_created", columnList = "user_id, created_at, id"),
+           @Index(name = "idx_transaction_status_created", columnList = "status, created_at, id"),
+           @Index(name = "idx_transaction_type_created", columnList = "type, created_at, id"),
+           // جمع‌های کیف پول و آمار کاربر (user + type + status)
+           @Index(name = "idx_transaction_user_type_status", columnList = "user_id, type, status")
+       })
 public class Transaction {
     
     /** شناسه یکتای تراکنش */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;
     
     /** شناسه کاربر مرتبط با تراکنش */
@@ -14,7 +14,8 @@ public class User {
     /* ---------- فیلدهای کلاس ---------- */
     
     @Id                                                    // کلید اصلی
-    @GeneratedValue(strategy = GenerationType.AUTO)       // Auto برای سازگاری با SQLite
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq") // pooled: یک بلوک شناسه در هر رفت و برگشت
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_SEQ", allocationSize = IdAllocation.DEFAULT)
     private Long id;                                       // شناسه یکتای کاربر
 
     @Column(name = "full_name", nullable = false)  // نام کامل - اجباری
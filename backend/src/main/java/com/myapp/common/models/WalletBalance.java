@@ -0,0 +1,70 @@
+package com.myapp.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * مدل موجودی کیف پول - موجودی مادی‌سازی شده (materialized) هر کاربر
+ *
+ * به جای جمع زدن تمام تراکنش‌های کاربر در هر بار خواندن موجودی،
+ * یک ردیف به ازای هر کاربر نگهداری می‌شود که در همان تراکنش دیتابیسی
+ * ثبت هر Transaction کیف پول به‌روزرسانی می‌شود.
+ *
+ * === قوانین کسب‌وکار ===
+ * - برداشت فقط با UPDATE شرطی (balance >= amount) انجام می‌شود، پس موجودی منفی نمی‌شود
+ * - ستون version در هر تغییر افزایش می‌یابد (optimistic locking)
+ * - منبع حقیقت همچنان جدول transactions است و WalletBalanceReconciler
+ *   در صورت اختلاف، موجودی را از روی تراکنش‌ها بازسازی می‌کند
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+@Entity
+@Table(name = "wallet_balances")
+public class WalletBalance {
+
+    /** شناسه کاربر - کلید اصلی (یک ردیف برای هر کاربر) */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** موجودی فعلی کیف پول */
+    @Column(name = "balance", nullable = false)
+    private Double balance;
+
+    /** نسخه ردیف برای optimistic locking */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /** زمان آخرین تغییر موجودی */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public WalletBalance() {}
+
+    public WalletBalance(Long userId, Double balance) {
+        this.userId = userId;
+        this.balance = balance;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Double getBalance() { return balance; }
+    public void setBalance(Double balance) { this.balance = balance; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @Override
+    public String toString() {
+        return "WalletBalance{userId=" + userId + ", balance=" + balance + ", version=" + version + "}";
+    }
+}
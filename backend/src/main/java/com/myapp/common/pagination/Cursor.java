@@ -0,0 +1,90 @@
+package com.myapp.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * موقعیت آخرین رکورد یک صفحه در keyset pagination
+ *
+ * شامل کلید مرتب‌سازی (timestamp) و شناسه رکورد به عنوان tie-breaker است.
+ * برای کلاینت به صورت یک رشته opaque (base64url) ارسال می‌شود و کلاینت
+ * نباید به ساختار داخلی آن وابسته باشد.
+ *
+ * برای موجودیت‌هایی که ستون زمان ندارند timestamp می‌تواند null باشد
+ * و صفحه‌بندی فقط روی id انجام می‌شود.
+ */
+public final class Cursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    public Cursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * تبدیل cursor به توکن opaque
+     */
+    public String encode() {
+        String raw = VERSION + SEPARATOR + (timestamp != null ? timestamp.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * بازسازی cursor از توکن دریافتی از کلاینت
+     *
+     * @param token توکن opaque
+     * @return cursor متناظر
+     * @throws IllegalArgumentException اگر توکن معتبر نباشد
+     */
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime timestamp = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new Cursor(timestamp, Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException و خطای base64 هر دو IllegalArgumentException هستند
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Cursor)) return false;
+        Cursor other = (Cursor) o;
+        return id == other.id && Objects.equals(timestamp, other.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, id);
+    }
+
+    @Override
+    public String toString() {
+        return "Cursor{timestamp=" + timestamp + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,81 @@
+package com.myapp.common.pagination;
+
+import com.sun.net.httpserver.Headers;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * یک صفحه از نتایج keyset pagination
+ *
+ * بدنه پاسخ HTTP همچنان آرایه JSON آیتم‌هاست تا کلاینت‌های فعلی نشکنند؛
+ * اطلاعات صفحه‌بندی در هدرها ارسال می‌شود:
+ * - X-Next-Cursor: توکن صفحه بعد (فقط اگر صفحه بعدی وجود داشته باشد)
+ * - X-Page-Limit: اندازه صفحه اعمال شده
+ *
+ * @param <T> نوع آیتم‌ها
+ */
+public final class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String PAGE_LIMIT_HEADER = "X-Page-Limit";
+
+    private final List<T> items;
+    private final Cursor nextCursor;
+    private final int limit;
+
+    public CursorPage(List<T> items, Cursor nextCursor, int limit) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public static <T> CursorPage<T> empty(int limit) {
+        return new CursorPage<>(Collections.emptyList(), null, limit);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /** موقعیت آخرین آیتم این صفحه یا null اگر صفحه آخر باشد */
+    public Cursor getNextCursor() {
+        return nextCursor;
+    }
+
+    /** توکن opaque صفحه بعد یا null */
+    public String getNextCursorToken() {
+        return nextCursor != null ? nextCursor.encode() : null;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * تبدیل آیتم‌ها با حفظ cursor صفحه
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(mapped, nextCursor, limit);
+    }
+
+    /**
+     * نوشتن هدرهای صفحه‌بندی روی پاسخ
+     */
+    public void writeHeaders(Headers headers) {
+        if (headers == null) {
+            return;
+        }
+        headers.set(PAGE_LIMIT_HEADER, String.valueOf(limit));
+        if (nextCursor != null) {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor.encode());
+        }
+    }
+}
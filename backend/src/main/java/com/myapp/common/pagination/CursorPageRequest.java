@@ -0,0 +1,114 @@
+package com.myapp.common.pagination;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * درخواست یک صفحه در keyset pagination
+ *
+ * اندازه صفحه همیشه محدود است: اگر کلاینت limit نفرستد DEFAULT_LIMIT
+ * استفاده می‌شود و مقادیر بزرگ‌تر از MAX_LIMIT به همان سقف بریده می‌شوند.
+ *
+ * Query parameters:
+ * - cursor: توکن nextCursor صفحه قبل (برای صفحه اول ارسال نمی‌شود)
+ * - limit: تعداد رکورد صفحه (size هم به عنوان نام قدیمی پذیرفته می‌شود)
+ */
+public final class CursorPageRequest {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final Cursor cursor;
+    private final int limit;
+
+    private CursorPageRequest(Cursor cursor, int limit) {
+        this.cursor = cursor;
+        this.limit = limit;
+    }
+
+    /**
+     * صفحه اول با اندازه پیش‌فرض
+     */
+    public static CursorPageRequest firstPage() {
+        return new CursorPageRequest(null, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param cursor موقعیت صفحه قبل (null برای صفحه اول)
+     * @param limit اندازه درخواستی (null یا غیرمثبت یعنی پیش‌فرض)
+     */
+    public static CursorPageRequest of(Cursor cursor, Integer limit) {
+        return new CursorPageRequest(cursor, clampLimit(limit));
+    }
+
+    /**
+     * ساخت درخواست از query parameters
+     *
+     * @param params پارامترهای query string
+     * @return درخواست صفحه
+     * @throws IllegalArgumentException اگر cursor یا limit معتبر نباشد
+     */
+    public static CursorPageRequest fromQueryParams(Map<String, String> params) {
+        if (params == null) {
+            return firstPage();
+        }
+        String token = params.get("cursor");
+        Cursor cursor = token == null || token.isEmpty() ? null : Cursor.decode(token);
+
+        String limitValue = params.containsKey("limit") ? params.get("limit") : params.get("size");
+        Integer limit = null;
+        if (limitValue != null && !limitValue.isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitValue.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid limit: " + limitValue);
+            }
+        }
+        return of(cursor, limit);
+    }
+
+    /**
+     * ساخت درخواست از query string خام (برای کنترلرهایی که query را پارس نمی‌کنند)
+     *
+     * @param rawQuery مقدار URI.getRawQuery() (ممکن است null باشد)
+     * @return درخواست صفحه
+     */
+    public static CursorPageRequest fromQueryString(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null && !rawQuery.isEmpty()) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                               URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return fromQueryParams(params);
+    }
+
+    /**
+     * محدود کردن اندازه صفحه به بازه [1, MAX_LIMIT]
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /** موقعیت صفحه قبل یا null برای صفحه اول */
+    public Cursor getCursor() {
+        return cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isFirstPage() {
+        return cursor == null;
+    }
+}
@@ -0,0 +1,176 @@
+package com.myapp.common.pagination;
+
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * سازنده کوئری HQL برای keyset (seek) pagination
+ *
+ * به جای OFFSET که با عمیق شدن صفحه تمام رکوردهای قبلی را اسکن می‌کند،
+ * از موقعیت آخرین رکورد صفحه قبل (timestamp, id) جستجو می‌کند تا هزینه
+ * هر صفحه مستقل از عمق آن باشد:
+ *
+ * <pre>
+ * WHERE ... AND o.orderDate &lt;= :cursorTs
+ *           AND (o.orderDate &lt; :cursorTs OR o.id &lt; :cursorId)
+ * ORDER BY o.orderDate DESC, o.id DESC
+ * </pre>
+ *
+ * یک رکورد بیشتر از limit خوانده می‌شود تا وجود صفحه بعد بدون COUNT مشخص شود.
+ *
+ * مثال:
+ * <pre>
+ * KeysetQuery.from(Order.class, "Order o")
+ *     .where("o.customer.id = :customerId")
+ *     .param("customerId", customerId)
+ *     .orderBy("o.orderDate", Order::getOrderDate, "o.id", Order::getId)
+ *     .fetch(session, pageRequest);
+ * </pre>
+ *
+ * @param <T> نوع entity
+ */
+public final class KeysetQuery<T> {
+
+    private final Class<T> type;
+    private final String from;
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> params = new LinkedHashMap<>();
+    private String timestampPath;
+    private Function<T, LocalDateTime> timestampOf;
+    private String idPath;
+    private Function<T, Long> idOf;
+    private boolean descending = true;
+
+    private KeysetQuery(Class<T> type, String from) {
+        this.type = type;
+        this.from = from;
+    }
+
+    /**
+     * @param type کلاس entity
+     * @param from عبارت FROM همراه با alias (مثلاً "Order o")
+     */
+    public static <T> KeysetQuery<T> from(Class<T> type, String from) {
+        return new KeysetQuery<>(type, from);
+    }
+
+    /**
+     * افزودن شرط (با AND به بقیه شروط متصل می‌شود)
+     */
+    public KeysetQuery<T> where(String predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    /**
+     * تنظیم پارامتر کوئری (Collection ها به صورت parameter list ست می‌شوند)
+     */
+    public KeysetQuery<T> param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    /**
+     * مرتب‌سازی روی (timestamp, id)
+     */
+    public KeysetQuery<T> orderBy(String timestampPath, Function<T, LocalDateTime> timestampOf,
+                                  String idPath, Function<T, Long> idOf) {
+        this.timestampPath = timestampPath;
+        this.timestampOf = timestampOf;
+        this.idPath = idPath;
+        this.idOf = idOf;
+        return this;
+    }
+
+    /**
+     * مرتب‌سازی فقط روی id (برای entity های بدون ستون زمان ایجاد)
+     */
+    public KeysetQuery<T> orderById(String idPath, Function<T, Long> idOf) {
+        return orderBy(null, null, idPath, idOf);
+    }
+
+    /**
+     * ترتیب صعودی (قدیمی‌ترین اول)؛ پیش‌فرض نزولی است
+     */
+    public KeysetQuery<T> ascending() {
+        this.descending = false;
+        return this;
+    }
+
+    /**
+     * اجرای کوئری برای یک صفحه
+     *
+     * @param session session باز Hibernate
+     * @param request درخواست صفحه
+     * @return صفحه نتایج همراه با cursor صفحه بعد
+     */
+    public CursorPage<T> fetch(Session session, CursorPageRequest request) {
+        if (idPath == null) {
+            throw new IllegalStateException("Keyset order is not defined");
+        }
+        Cursor cursor = request.getCursor();
+        if (cursor != null && timestampPath != null && cursor.getTimestamp() == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        Query<T> query = session.createQuery(buildHql(cursor), type);
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (entry.getValue() instanceof Collection) {
+                query.setParameterList(entry.getKey(), (Collection<?>) entry.getValue());
+            } else {
+                query.setParameter(entry.getKey(), entry.getValue());
+            }
+        }
+        if (cursor != null) {
+            if (timestampPath != null) {
+                query.setParameter("cursorTs", cursor.getTimestamp());
+            }
+            query.setParameter("cursorId", cursor.getId());
+        }
+        query.setMaxResults(request.getLimit() + 1);
+
+        List<T> rows = new ArrayList<>(query.getResultList());
+        Cursor next = null;
+        if (rows.size() > request.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, request.getLimit()));
+            T last = rows.get(rows.size() - 1);
+            next = new Cursor(timestampOf != null ? timestampOf.apply(last) : null, idOf.apply(last));
+        }
+        return new CursorPage<>(rows, next, request.getLimit());
+    }
+
+    String buildHql(Cursor cursor) {
+        String direction = descending ? "DESC" : "ASC";
+        String seek = descending ? "<" : ">";
+
+        List<String> conditions = new ArrayList<>(predicates);
+        if (cursor != null) {
+            if (timestampPath != null) {
+                // شرط اول به دیتابیس اجازه می‌دهد از ایندکس (ts, id) به صورت range scan استفاده کند
+                conditions.add(timestampPath + " " + seek + "= :cursorTs");
+                conditions.add("(" + timestampPath + " " + seek + " :cursorTs OR " + idPath + " " + seek + " :cursorId)");
+            } else {
+                conditions.add(idPath + " " + seek + " :cursorId");
+            }
+        }
+
+        StringBuilder hql = new StringBuilder("FROM ").append(from);
+        if (!conditions.isEmpty()) {
+            hql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        hql.append(" ORDER BY ");
+        if (timestampPath != null) {
+            hql.append(timestampPath).append(' ').append(direction).append(", ");
+        }
+        hql.append(idPath).append(' ').append(direction);
+        return hql.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.myapp.common.scheduler;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * زمان‌بندی cron استاندارد پنج فیلدی: دقیقه ساعت روز-ماه ماه روز-هفته
+ *
+ * نحو پشتیبانی شده در هر فیلد: {@code *}، عدد، بازه {@code a-b}، گام
+ * {@code *}{@code /n} یا {@code a-b/n} و لیست با کاما. روز هفته ۰ تا ۷ است
+ * (۰ و ۷ هر دو یکشنبه). مانند cron معمول اگر هر دو فیلد روز-ماه و روز-هفته
+ * محدود شده باشند، تطابق با هر کدام کافی است.
+ *
+ * نام‌های کوتاه: {@code @hourly}، {@code @daily}، {@code @weekly}، {@code @monthly}
+ *
+ * مثال: {@code "30 3 * * *"} هر روز ساعت ۳:۳۰، {@code "*}{@code /5 * * * *"} هر پنج دقیقه
+ */
+public final class CronSchedule {
+
+    /** حداکثر بازه جستجوی زمان بعدی (برای عبارت‌هایی مثل ۳۱ فوریه) */
+    private static final int MAX_SEARCH_DAYS = 366 * 5;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronSchedule(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59);
+        this.hours = parseField(fields[1], 0, 23);
+        this.daysOfMonth = parseField(fields[2], 1, 31);
+        this.months = parseField(fields[3], 1, 12);
+        this.daysOfWeek = parseField(fields[4], 0, 7);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.dayOfMonthRestricted = !fields[2].equals("*");
+        this.dayOfWeekRestricted = !fields[4].equals("*");
+    }
+
+    /**
+     * @param expression عبارت cron
+     * @return زمان‌بندی
+     * @throws IllegalArgumentException در صورت نامعتبر بودن عبارت
+     */
+    public static CronSchedule parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression cannot be empty");
+        }
+        String trimmed = expression.trim();
+        String normalized = switch (trimmed) {
+            case "@hourly" -> "0 * * * *";
+            case "@daily", "@midnight" -> "0 0 * * *";
+            case "@weekly" -> "0 0 * * 0";
+            case "@monthly" -> "0 0 1 * *";
+            default -> trimmed;
+        };
+        String[] fields = normalized.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression must have 5 fields: " + expression);
+        }
+        return new CronSchedule(trimmed, fields);
+    }
+
+    /**
+     * اولین زمان اجرای بعد از زمان داده شده (دقت دقیقه)
+     *
+     * @param after زمان مرجع
+     * @return زمان اجرای بعدی، اکیداً بعد از after
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime candidate = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ZonedDateTime limit = after.plusDays(MAX_SEARCH_DAYS);
+        while (candidate.isBefore(limit)) {
+            if (!months.get(candidate.getMonthValue())) {
+                candidate = candidate.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!matchesDay(candidate)) {
+                candidate = candidate.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (!hours.get(candidate.getHour())) {
+                candidate = candidate.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (!minutes.get(candidate.getMinute())) {
+                candidate = candidate.plusMinutes(1);
+                continue;
+            }
+            return candidate;
+        }
+        throw new IllegalStateException("Cron expression never fires: " + expression);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(ZonedDateTime time) {
+        boolean dom = daysOfMonth.get(time.getDayOfMonth());
+        boolean dow = daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dom || dow;
+        }
+        return dom && dow;
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, Integer.MAX_VALUE, field);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (range.contains("-")) {
+                String[] bounds = range.split("-", 2);
+                from = parseNumber(bounds[0], min, max, field);
+                to = parseNumber(bounds[1], min, max, field);
+                if (from > to) {
+                    throw new IllegalArgumentException("Invalid cron range: " + field);
+                }
+            } else {
+                from = parseNumber(range, min, max, field);
+                to = slash >= 0 ? max : from;
+            }
+            for (int value = from; value <= to; value += step) {
+                bits.set(value);
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String value, int min, int max, String field) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException("Cron value out of range [" + min + "-" + max + "]: " + field);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron field: " + field, e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.myapp.common.scheduler;
+
+import com.myapp.common.models.JobLease;
+import com.myapp.common.utils.DatabaseUtil;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * دسترسی به lease های اجرای job ها در جدول job_leases
+ *
+ * گرفتن lease یک UPDATE شرطی اتمیک است؛ اگر ردیف job هنوز وجود نداشته باشد
+ * درج می‌شود و در صورت درج همزمان توسط نود دیگر، خطای کلید تکراری به معنای
+ * نگرفتن lease است.
+ */
+public class JobLeaseRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseRepository.class);
+
+    private final Supplier<SessionFactory> sessionFactory;
+
+    public JobLeaseRepository() {
+        this(DatabaseUtil::getSessionFactory);
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     */
+    public JobLeaseRepository(Supplier<SessionFactory> sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * تلاش برای گرفتن lease یک job
+     *
+     * lease گرفته می‌شود اگر ردیفی نباشد، lease قبلی منقضی شده باشد یا صاحب
+     * آن همین نود باشد.
+     *
+     * @param jobName نام job
+     * @param owner شناسه نود
+     * @param now زمان فعلی
+     * @param leaseUntil پایان اعتبار lease
+     * @return true اگر lease به این نود رسید
+     */
+    public boolean tryAcquire(String jobName, String owner, LocalDateTime now, LocalDateTime leaseUntil) {
+        return tryAcquire(jobName, owner, now, leaseUntil, null);
+    }
+
+    /**
+     * تلاش برای گرفتن lease یک نوبت زمان‌بندی شده
+     *
+     * علاوه بر شرایط {@link #tryAcquire(String, String, LocalDateTime, LocalDateTime)}،
+     * اگر آخرین اجرای موفق (روی هر نودی) بعد از زمان نوبت تمام شده باشد lease
+     * گرفته نمی‌شود؛ نودی که به خاطر jitter دیرتر بیدار شده همان نوبت را
+     * دوباره اجرا نمی‌کند.
+     *
+     * @param slot زمان زمان‌بندی شده نوبت (بدون jitter)؛ null یعنی بدون بررسی نوبت
+     * @return true اگر lease به این نود رسید
+     */
+    public boolean tryAcquire(String jobName, String owner, LocalDateTime now, LocalDateTime leaseUntil,
+                              LocalDateTime slot) {
+        try (Session session = sessionFactory.get().openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                String hql = "update JobLease l set l.owner = :owner, l.leaseUntil = :until, l.acquiredAt = :now " +
+                             "where l.jobName = :job and (l.leaseUntil <= :now or l.owner = :owner)";
+                if (slot != null) {
+                    hql += " and (l.lastSuccessAt is null or l.lastSuccessAt < :slot)";
+                }
+                var update = session.createMutationQuery(hql)
+                    .setParameter("owner", owner)
+                    .setParameter("until", leaseUntil)
+                    .setParameter("now", now)
+                    .setParameter("job", jobName);
+                if (slot != null) {
+                    update.setParameter("slot", slot);
+                }
+                int updated = update.executeUpdate();
+                if (updated == 0 && session.get(JobLease.class, jobName) == null) {
+                    session.persist(new JobLease(jobName, owner, now, leaseUntil));
+                    updated = 1;
+                }
+                tx.commit();
+                return updated == 1;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                // درج همزمان ردیف توسط نود دیگر
+                logger.debug("Lease {} not acquired by {}: {}", jobName, owner, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * آزاد کردن lease بعد از پایان اجرا
+     *
+     * @param jobName نام job
+     * @param owner شناسه نود
+     * @param now زمان فعلی (lease از این زمان منقضی می‌شود)
+     * @param succeeded آیا اجرا موفق بود
+     */
+    public void release(String jobName, String owner, LocalDateTime now, boolean succeeded) {
+        try (Session session = sessionFactory.get().openSession()) {
+            Transaction tx = session.beginTransaction();
+            String hql = succeeded
+                ? "update JobLease l set l.leaseUntil = :now, l.lastSuccessAt = :now where l.jobName = :job and l.owner = :owner"
+                : "update JobLease l set l.leaseUntil = :now where l.jobName = :job and l.owner = :owner";
+            session.createMutationQuery(hql)
+                .setParameter("now", now)
+                .setParameter("job", jobName)
+                .setParameter("owner", owner)
+                .executeUpdate();
+            tx.commit();
+        }
+    }
+
+    /**
+     * دریافت وضعیت lease یک job
+     */
+    public Optional<JobLease> find(String jobName) {
+        try (Session session = sessionFactory.get().openSession()) {
+            return Optional.ofNullable(session.get(JobLease.class, jobName));
+        }
+    }
+}
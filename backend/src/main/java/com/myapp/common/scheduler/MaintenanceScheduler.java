@@ -0,0 +1,458 @@
+package com.myapp.common.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * زمان‌بند درون پردازه‌ای job های نگهداری (پاک‌سازی اعلان‌ها، ETL، کش و ...)
+ *
+ * ویژگی‌ها:
+ * - زمان‌بندی cron ({@link CronSchedule}) بر اساس منطقه زمانی ساعت سیستم
+ * - jitter تصادفی قبل از هر اجرا تا نودها و job ها همزمان شروع نکنند
+ * - تضمین اجرای تکی: job های cluster-wide فقط با گرفتن lease در جدول
+ *   job_leases اجرا می‌شوند و lease در طول اجرا به صورت دوره‌ای تمدید می‌شود؛
+ *   job های محلی (مثل پاک‌سازی کش همین نود) روی همه نودها اجرا می‌شوند
+ * - هر نوبت cron حداکثر یک اجرای موفق دارد: اگر اجرای موفقی بعد از زمان نوبت
+ *   ثبت شده باشد، نودی که با jitter دیرتر بیدار شده آن نوبت را رد می‌کند
+ * - روی یک نود هیچ job ای با اجرای قبلی خودش همپوشانی ندارد
+ * - تاریخچه و آمار اجرا (تعداد، خطا، رد شده، مدت، آخرین اجراها)
+ *
+ * خطای یک اجرا ثبت و گزارش می‌شود و زمان‌بندی job را متوقف نمی‌کند.
+ */
+public class MaintenanceScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceScheduler.class);
+
+    /** تعداد اجراهای اخیر نگهداری شده برای هر job */
+    private static final int HISTORY_SIZE = 20;
+
+    /**
+     * کار یک job
+     */
+    @FunctionalInterface
+    public interface JobTask {
+        /**
+         * @return تعداد آیتم‌های پردازش شده (برای آمار)
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * وضعیت پایان یک اجرا
+     */
+    public enum RunStatus {
+        SUCCEEDED,
+        FAILED,
+        /** نود دیگری lease را در اختیار دارد یا اجرای قبلی هنوز تمام نشده */
+        SKIPPED
+    }
+
+    /**
+     * تعریف یک job
+     */
+    public static final class JobDefinition {
+        private final String name;
+        private final CronSchedule schedule;
+        private final boolean clustered;
+        private final long leaseMillis;
+        private final long maxJitterMillis;
+        private final JobTask task;
+
+        private JobDefinition(String name, CronSchedule schedule, boolean clustered, long leaseMillis,
+                              long maxJitterMillis, JobTask task) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Job name cannot be empty");
+            }
+            this.name = name;
+            this.schedule = schedule;
+            this.clustered = clustered;
+            this.leaseMillis = leaseMillis;
+            this.maxJitterMillis = Math.max(0, maxJitterMillis);
+            this.task = task;
+        }
+
+        /**
+         * job ای که در هر نوبت فقط روی یک نود اجرا می‌شود
+         *
+         * @param leaseMillis مدت اعتبار lease (در طول اجرا تمدید می‌شود)
+         */
+        public static JobDefinition clustered(String name, String cron, long leaseMillis, JobTask task) {
+            if (leaseMillis <= 0) {
+                throw new IllegalArgumentException("Lease duration must be positive");
+            }
+            return new JobDefinition(name, CronSchedule.parse(cron), true, leaseMillis, 0, task);
+        }
+
+        /**
+         * job ای که روی هر نود مستقل اجرا می‌شود (وضعیت درون حافظه‌ای همان نود)
+         */
+        public static JobDefinition local(String name, String cron, JobTask task) {
+            return new JobDefinition(name, CronSchedule.parse(cron), false, 0, 0, task);
+        }
+
+        /**
+         * @param maxJitterMillis حداکثر تأخیر تصادفی قبل از هر اجرا
+         */
+        public JobDefinition withJitter(long maxJitterMillis) {
+            return new JobDefinition(name, schedule, clustered, leaseMillis, maxJitterMillis, task);
+        }
+
+        public String getName() { return name; }
+        public CronSchedule getSchedule() { return schedule; }
+        public boolean isClustered() { return clustered; }
+        public long getLeaseMillis() { return leaseMillis; }
+        public long getMaxJitterMillis() { return maxJitterMillis; }
+    }
+
+    /**
+     * نتیجه یک اجرا
+     */
+    public static final class JobRun {
+        private final String jobName;
+        private final Instant startedAt;
+        private final long durationMillis;
+        private final RunStatus status;
+        private final long processed;
+        private final String error;
+
+        JobRun(String jobName, Instant startedAt, long durationMillis, RunStatus status, long processed, String error) {
+            this.jobName = jobName;
+            this.startedAt = startedAt;
+            this.durationMillis = durationMillis;
+            this.status = status;
+            this.processed = processed;
+            this.error = error;
+        }
+
+        public String getJobName() { return jobName; }
+        public Instant getStartedAt() { return startedAt; }
+        public long getDurationMillis() { return durationMillis; }
+        public RunStatus getStatus() { return status; }
+        public long getProcessed() { return processed; }
+        public String getError() { return error; }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startedAt", startedAt.toString());
+            map.put("status", status.name());
+            map.put("durationMillis", durationMillis);
+            map.put("processed", processed);
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * وضعیت زمان اجرای یک job روی این نود
+     */
+    private static final class JobState {
+        final JobDefinition definition;
+        final AtomicBoolean running = new AtomicBoolean();
+        final Deque<JobRun> history = new ArrayDeque<>();
+        long runs;
+        long failures;
+        long skipped;
+        long processedTotal;
+        long totalDurationMillis;
+        long maxDurationMillis;
+        volatile ZonedDateTime nextRunAt;
+        volatile ScheduledFuture<?> pending;
+
+        JobState(JobDefinition definition) {
+            this.definition = definition;
+        }
+
+        synchronized void record(JobRun run) {
+            if (run.getStatus() == RunStatus.SKIPPED) {
+                skipped++;
+            } else {
+                runs++;
+                totalDurationMillis += run.getDurationMillis();
+                maxDurationMillis = Math.max(maxDurationMillis, run.getDurationMillis());
+                if (run.getStatus() == RunStatus.FAILED) {
+                    failures++;
+                } else {
+                    processedTotal += run.getProcessed();
+                }
+            }
+            history.addFirst(run);
+            if (history.size() > HISTORY_SIZE) {
+                history.removeLast();
+            }
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("schedule", definition.getSchedule().getExpression());
+            map.put("clustered", definition.isClustered());
+            map.put("running", running.get());
+            map.put("runs", runs);
+            map.put("failures", failures);
+            map.put("skipped", skipped);
+            map.put("processedTotal", processedTotal);
+            map.put("avgDurationMillis", runs == 0 ? 0 : totalDurationMillis / runs);
+            map.put("maxDurationMillis", maxDurationMillis);
+            map.put("nextRunAt", nextRunAt != null ? nextRunAt.toString() : null);
+            List<Map<String, Object>> recent = new ArrayList<>();
+            for (JobRun run : history) {
+                recent.add(run.toMap());
+            }
+            map.put("history", recent);
+            return map;
+        }
+    }
+
+    private final JobLeaseRepository leases;
+    private final String nodeId;
+    private final Clock clock;
+    private final LongUnaryOperator jitter;
+    private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public MaintenanceScheduler() {
+        this(new JobLeaseRepository(), defaultNodeId(), Clock.systemDefaultZone(),
+             max -> max <= 0 ? 0 : ThreadLocalRandom.current().nextLong(max + 1));
+    }
+
+    /**
+     * @param leases مخزن lease ها
+     * @param nodeId شناسه یکتای این نود
+     * @param clock ساعت و منطقه زمانی زمان‌بندی
+     * @param jitter تولید jitter بین صفر و مقدار داده شده
+     */
+    public MaintenanceScheduler(JobLeaseRepository leases, String nodeId, Clock clock, LongUnaryOperator jitter) {
+        this.leases = leases;
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.jitter = jitter;
+    }
+
+    /**
+     * ثبت یک job (قبل یا بعد از start)
+     */
+    public synchronized void register(JobDefinition definition) {
+        JobState state = new JobState(definition);
+        if (jobs.putIfAbsent(definition.getName(), state) != null) {
+            throw new IllegalArgumentException("Job already registered: " + definition.getName());
+        }
+        if (executor != null) {
+            scheduleNext(state);
+        }
+    }
+
+    /**
+     * شروع زمان‌بندی همه job های ثبت شده
+     *
+     * @param threads تعداد thread های اجرای job ها (یکی برای تمدید lease ها لازم است)
+     */
+    public synchronized void start(int threads) {
+        if (executor != null) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Math.max(2, threads), runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-scheduler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (JobState state : jobs.values()) {
+            scheduleNext(state);
+        }
+        logger.info("🗓️ Maintenance scheduler started on node {} with {} jobs", nodeId, jobs.size());
+    }
+
+    /**
+     * توقف زمان‌بندی (اجرای در حال انجام قطع می‌شود)
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * اجرای فوری یک job روی thread فراخواننده با همان قوانین lease
+     *
+     * @param name نام job
+     * @return نتیجه اجرا
+     */
+    public JobRun runNow(String name) {
+        JobState state = jobs.get(name);
+        if (state == null) {
+            throw new IllegalArgumentException("Unknown job: " + name);
+        }
+        return execute(state, null);
+    }
+
+    /**
+     * اجرای یک نوبت زمان‌بندی شده روی thread فراخواننده (همان مسیر timer)
+     *
+     * @param name نام job
+     * @param slot زمان زمان‌بندی شده نوبت بدون jitter
+     * @return نتیجه اجرا
+     */
+    JobRun runSlot(String name, ZonedDateTime slot) {
+        JobState state = jobs.get(name);
+        if (state == null) {
+            throw new IllegalArgumentException("Unknown job: " + name);
+        }
+        return execute(state, slot);
+    }
+
+    /**
+     * آمار همه job ها
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        Map<String, Object> jobStats = new LinkedHashMap<>();
+        jobs.values().stream()
+            .sorted((a, b) -> a.definition.getName().compareTo(b.definition.getName()))
+            .forEach(state -> jobStats.put(state.definition.getName(), state.toMap()));
+        stats.put("jobs", jobStats);
+        return stats;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // ==================== اجرا ====================
+
+    private synchronized void scheduleNext(JobState state) {
+        if (executor == null) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime next = state.definition.getSchedule().next(now);
+        long delay = Duration.between(now, next).toMillis()
+            + jitter.applyAsLong(state.definition.getMaxJitterMillis());
+        state.nextRunAt = next;
+        state.pending = executor.schedule(() -> {
+            try {
+                execute(state, next);
+            } finally {
+                scheduleNext(state);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param slot نوبت زمان‌بندی شده؛ null برای اجرای دستی (بدون بررسی نوبت)
+     */
+    private JobRun execute(JobState state, ZonedDateTime slot) {
+        JobDefinition job = state.definition;
+        Instant startedAt = clock.instant();
+        if (!state.running.compareAndSet(false, true)) {
+            return record(state, new JobRun(job.getName(), startedAt, 0, RunStatus.SKIPPED, 0, "previous run still active"));
+        }
+        ScheduledFuture<?> renewal = null;
+        boolean succeeded = false;
+        try {
+            if (job.isClustered()) {
+                if (!acquireLease(job, slot)) {
+                    return record(state, new JobRun(job.getName(), startedAt, 0, RunStatus.SKIPPED, 0,
+                        "lease held by another node or slot already completed"));
+                }
+                renewal = scheduleLeaseRenewal(job);
+            }
+            long start = System.nanoTime();
+            try {
+                long processed = job.task.run();
+                succeeded = true;
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.info("✅ Job {} finished in {}ms (processed={})", job.getName(), duration, processed);
+                return record(state, new JobRun(job.getName(), startedAt, duration, RunStatus.SUCCEEDED, processed, null));
+            } catch (Exception e) {
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.error("❌ Job {} failed after {}ms", job.getName(), duration, e);
+                return record(state, new JobRun(job.getName(), startedAt, duration, RunStatus.FAILED, 0,
+                    e.getClass().getSimpleName() + ": " + e.getMessage()));
+            }
+        } finally {
+            if (renewal != null) {
+                renewal.cancel(false);
+            }
+            if (job.isClustered()) {
+                releaseLease(job, succeeded);
+            }
+            state.running.set(false);
+        }
+    }
+
+    private JobRun record(JobState state, JobRun run) {
+        state.record(run);
+        return run;
+    }
+
+    private boolean acquireLease(JobDefinition job, ZonedDateTime slot) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            return leases.tryAcquire(job.getName(), nodeId, now, now.plus(Duration.ofMillis(job.getLeaseMillis())),
+                slot != null ? slot.withZoneSameInstant(clock.getZone()).toLocalDateTime() : null);
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Could not acquire lease for job {}: {}", job.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * تمدید دوره‌ای lease در طول اجرا تا job های طولانی‌تر از lease روی نود دیگری شروع نشوند
+     */
+    private ScheduledFuture<?> scheduleLeaseRenewal(JobDefinition job) {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return null;
+        }
+        long period = Math.max(1000, job.getLeaseMillis() / 3);
+        return current.scheduleAtFixedRate(() -> {
+            if (!acquireLease(job, null)) {
+                logger.warn("⚠️ Lease for job {} could not be renewed", job.getName());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void releaseLease(JobDefinition job, boolean succeeded) {
+        try {
+            leases.release(job.getName(), nodeId, LocalDateTime.now(clock), succeeded);
+        } catch (RuntimeException e) {
+            // lease در بدترین حالت خودش منقضی می‌شود
+            logger.warn("⚠️ Could not release lease for job {}: {}", job.getName(), e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String configured = System.getProperty("node.id");
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        // pid@hostname به همراه پسوند تصادفی برای تمایز اجراهای پشت سر هم
+        return ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
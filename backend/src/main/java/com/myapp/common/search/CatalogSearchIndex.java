@@ -0,0 +1,448 @@
+package com.myapp.common.search;
+
+import com.myapp.common.cache.CacheService;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.RestaurantStatus;
+import com.myapp.common.utils.DatabaseUtil;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * ایندکس جستجوی کاتالوگ (آیتم‌های غذایی و رستوران‌ها)
+ *
+ * جایگزین اسکن‌های {@code LIKE '%keyword%'} روی جداول food_items و
+ * restaurants است. ایندکس در اولین جستجو یک بار از دیتابیس ساخته می‌شود
+ * و بعد از آن repository ها هر تغییر را به صورت افزایشی اعمال می‌کنند.
+ *
+ * وزن فیلدهای آیتم: نام ۳، کلیدواژه‌ها ۲، دسته‌بندی ۱
+ * وزن فیلدهای رستوران: نام ۳، آدرس ۱
+ *
+ * وضعیت در دسترس بودن آیتم و تایید رستوران جدا از متن نگه داشته می‌شود تا
+ * تغییر آن‌ها نیازی به ایندکس مجدد متن نداشته باشد. ایندکس فقط شناسه‌های
+ * رتبه‌بندی شده را برمی‌گرداند؛ repository ها entity ها را با همان شرط‌های
+ * قبلی (available / APPROVED) از دیتابیس می‌خوانند، پس یک به‌روزرسانی
+ * جامانده در بدترین حالت یک نتیجه را جا می‌اندازد و هرگز نتیجه نامعتبر
+ * برنمی‌گرداند.
+ *
+ * همگام‌سازی بین node ها (enableClusterSync): هر تغییر محلی کلید item:{id} یا
+ * restaurant:{id} را از طریق CacheService روی کانال cache:invalidate منتشر می‌کند.
+ * node های دیگر شناسه را کهنه علامت می‌زنند و جستجوی بعدی فقط همان ردیف‌ها را
+ * با یک query دوباره می‌خواند؛ کلید * (مثلاً پس از اتصال مجدد به Redis و از
+ * دست رفتن پیام‌ها) کل ایندکس را برای ساخت دوباره دور می‌اندازد.
+ */
+public class CatalogSearchIndex {
+
+    /** حداکثر تعداد نتایج یک جستجو */
+    public static final int DEFAULT_LIMIT = 200;
+
+    // پیشوند کلیدهای CacheService برای آیتم‌ها و رستوران‌ها
+    private static final String ITEM_KEY_PREFIX = "item:";
+    private static final String RESTAURANT_KEY_PREFIX = "restaurant:";
+    // سقف شناسه‌های کهنه در انتظار؛ بیشتر از آن ساخت کامل ارزان‌تر است
+    static final int MAX_STALE_IDS = 10_000;
+
+    private static final CatalogSearchIndex INSTANCE = new CatalogSearchIndex(DatabaseUtil::getSessionFactory);
+
+    private final Supplier<SessionFactory> sessionFactory;
+    private final InvertedIndex items = new InvertedIndex(3.0, 2.0, 1.0);
+    private final InvertedIndex restaurants = new InvertedIndex(3.0, 1.0);
+    private final Set<Long> availableItems = ConcurrentHashMap.newKeySet();
+    private final Set<Long> approvedRestaurants = ConcurrentHashMap.newKeySet();
+    // شناسه‌هایی که node دیگری تغییر داده و باید دوباره از دیتابیس خوانده شوند
+    private final Set<Long> staleItems = ConcurrentHashMap.newKeySet();
+    private final Set<Long> staleRestaurants = ConcurrentHashMap.newKeySet();
+    private volatile CacheService clusterCache;
+
+    private final Object buildLock = new Object();
+    private volatile boolean loaded;
+
+    CatalogSearchIndex(Supplier<SessionFactory> sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    public static CatalogSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * فعال‌سازی همگام‌سازی با سایر node ها از طریق کانال invalidation کش
+     *
+     * @param cacheService سرویس کش مشترک
+     */
+    public void enableClusterSync(CacheService cacheService) {
+        this.clusterCache = cacheService;
+        cacheService.addInvalidationListener(this::onRemoteInvalidation);
+    }
+
+    // ==================== جستجو ====================
+
+    /**
+     * جستجوی آیتم‌های در دسترس
+     *
+     * @param query متن جستجو
+     * @param limit حداکثر تعداد نتایج
+     * @return شناسه آیتم‌ها به ترتیب رتبه
+     */
+    public List<Long> searchItems(String query, int limit) {
+        ensureLoaded();
+        reloadStale();
+        return ids(items.search(query, limit, availableItems::contains));
+    }
+
+    /**
+     * جستجوی رستوران‌های تایید شده
+     *
+     * @param query متن جستجو
+     * @param limit حداکثر تعداد نتایج
+     * @return شناسه رستوران‌ها به ترتیب رتبه
+     */
+    public List<Long> searchRestaurants(String query, int limit) {
+        ensureLoaded();
+        reloadStale();
+        return ids(restaurants.search(query, limit, approvedRestaurants::contains));
+    }
+
+    /**
+     * مرتب کردن entity های خوانده شده از دیتابیس به ترتیب رتبه ایندکس
+     *
+     * @param entities نتیجه query با شرط {@code id in :ids}
+     * @param rankedIds شناسه‌ها به ترتیب رتبه
+     * @param idOf تابع استخراج شناسه
+     * @return entity ها به ترتیب rankedIds
+     */
+    public static <T> List<T> orderByRank(List<T> entities, List<Long> rankedIds, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(entities.size() * 2);
+        for (T entity : entities) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(entities.size());
+        for (Long id : rankedIds) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    // ==================== به‌روزرسانی افزایشی ====================
+
+    public void onItemSaved(FoodItem item) {
+        if (item == null || item.getId() == null) {
+            return;
+        }
+        publishItemChange(item.getId());
+        if (!acceptsUpdates()) {
+            return;
+        }
+        items.index(item.getId(), item.getName(), item.getKeywords(), item.getCategory());
+        setMembership(availableItems, item.getId(), Boolean.TRUE.equals(item.getAvailable()));
+    }
+
+    public void onItemAvailabilityChanged(Long itemId, boolean available) {
+        if (itemId == null) {
+            return;
+        }
+        publishItemChange(itemId);
+        if (acceptsUpdates()) {
+            setMembership(availableItems, itemId, available);
+        }
+    }
+
+    public void onItemDeleted(Long itemId) {
+        if (itemId == null) {
+            return;
+        }
+        publishItemChange(itemId);
+        if (acceptsUpdates()) {
+            items.remove(itemId);
+            availableItems.remove(itemId);
+        }
+    }
+
+    public void onItemsCleared() {
+        if (acceptsUpdates()) {
+            items.clear();
+            availableItems.clear();
+        }
+    }
+
+    public void onRestaurantSaved(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getId() == null) {
+            return;
+        }
+        publishRestaurantChange(restaurant.getId());
+        if (!acceptsUpdates()) {
+            return;
+        }
+        restaurants.index(restaurant.getId(), restaurant.getName(), restaurant.getAddress());
+        setMembership(approvedRestaurants, restaurant.getId(), restaurant.getStatus() == RestaurantStatus.APPROVED);
+    }
+
+    public void onRestaurantStatusChanged(Long restaurantId, RestaurantStatus status) {
+        if (restaurantId == null) {
+            return;
+        }
+        publishRestaurantChange(restaurantId);
+        if (acceptsUpdates()) {
+            setMembership(approvedRestaurants, restaurantId, status == RestaurantStatus.APPROVED);
+        }
+    }
+
+    public void onRestaurantDeleted(Long restaurantId) {
+        if (restaurantId == null) {
+            return;
+        }
+        publishRestaurantChange(restaurantId);
+        if (acceptsUpdates()) {
+            restaurants.remove(restaurantId);
+            approvedRestaurants.remove(restaurantId);
+        }
+    }
+
+    public void onRestaurantsCleared() {
+        if (acceptsUpdates()) {
+            restaurants.clear();
+            approvedRestaurants.clear();
+        }
+    }
+
+    /**
+     * دور انداختن ایندکس؛ جستجوی بعدی آن را دوباره از دیتابیس می‌سازد
+     */
+    public void invalidate() {
+        synchronized (buildLock) {
+            loaded = false;
+            items.clear();
+            restaurants.clear();
+            availableItems.clear();
+            approvedRestaurants.clear();
+            staleItems.clear();
+            staleRestaurants.clear();
+        }
+    }
+
+    // ==================== همگام‌سازی بین node ها ====================
+
+    /**
+     * دریافت کلید invalidation از node های دیگر (روی thread مشترک subscriber؛ بدون دسترسی به دیتابیس)
+     */
+    void onRemoteInvalidation(String key) {
+        if ("*".equals(key) || (ITEM_KEY_PREFIX + "*").equals(key) || (RESTAURANT_KEY_PREFIX + "*").equals(key)) {
+            invalidate();
+            return;
+        }
+        Long itemId = parseId(key, ITEM_KEY_PREFIX);
+        if (itemId != null) {
+            markStale(staleItems, itemId);
+            return;
+        }
+        Long restaurantId = parseId(key, RESTAURANT_KEY_PREFIX);
+        if (restaurantId != null) {
+            markStale(staleRestaurants, restaurantId);
+        }
+    }
+
+    private void markStale(Set<Long> stale, Long id) {
+        stale.add(id);
+        if (stale.size() > MAX_STALE_IDS) {
+            invalidate();
+        }
+    }
+
+    /**
+     * خواندن دوباره ردیف‌هایی که node دیگری تغییر داده است (یک query برای هر نوع)
+     */
+    private void reloadStale() {
+        List<Long> itemIds = drain(staleItems);
+        List<Long> restaurantIds = drain(staleRestaurants);
+        if (itemIds.isEmpty() && restaurantIds.isEmpty()) {
+            return;
+        }
+        try (Session session = sessionFactory.get().openSession()) {
+            if (!itemIds.isEmpty()) {
+                reloadItems(session, itemIds);
+            }
+            if (!restaurantIds.isEmpty()) {
+                reloadRestaurants(session, restaurantIds);
+            }
+        } catch (RuntimeException e) {
+            // در صورت خطا شناسه‌ها برای جستجوی بعدی باقی می‌مانند
+            staleItems.addAll(itemIds);
+            staleRestaurants.addAll(restaurantIds);
+            throw e;
+        }
+    }
+
+    private void reloadItems(Session session, List<Long> itemIds) {
+        Set<Long> missing = new HashSet<>(itemIds);
+        session.createQuery(
+                "select f.id, f.name, f.keywords, f.category, f.available from FoodItem f where f.id in :ids",
+                Object[].class)
+            .setParameterList("ids", itemIds)
+            .getResultList()
+            .forEach(row -> {
+                Long id = (Long) row[0];
+                missing.remove(id);
+                items.index(id, (String) row[1], (String) row[2], (String) row[3]);
+                setMembership(availableItems, id, Boolean.TRUE.equals(row[4]));
+            });
+        for (Long id : missing) {
+            items.remove(id);
+            availableItems.remove(id);
+        }
+    }
+
+    private void reloadRestaurants(Session session, List<Long> restaurantIds) {
+        Set<Long> missing = new HashSet<>(restaurantIds);
+        session.createQuery(
+                "select r.id, r.name, r.address, r.status from Restaurant r where r.id in :ids",
+                Object[].class)
+            .setParameterList("ids", restaurantIds)
+            .getResultList()
+            .forEach(row -> {
+                Long id = (Long) row[0];
+                missing.remove(id);
+                restaurants.index(id, (String) row[1], (String) row[2]);
+                setMembership(approvedRestaurants, id, row[3] == RestaurantStatus.APPROVED);
+            });
+        for (Long id : missing) {
+            restaurants.remove(id);
+            approvedRestaurants.remove(id);
+        }
+    }
+
+    private void publishItemChange(Long itemId) {
+        CacheService cache = clusterCache;
+        if (cache != null) {
+            cache.invalidateItem(itemId);
+        }
+    }
+
+    private void publishRestaurantChange(Long restaurantId) {
+        CacheService cache = clusterCache;
+        if (cache != null) {
+            cache.invalidateRestaurant(restaurantId);
+        }
+    }
+
+    /**
+     * آمار ایندکس
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("items", items.size());
+        stats.put("itemTerms", items.termCount());
+        stats.put("restaurants", restaurants.size());
+        stats.put("restaurantTerms", restaurants.termCount());
+        return stats;
+    }
+
+    // ==================== ساخت اولیه ====================
+
+    /**
+     * ساخت ایندکس از دیتابیس در اولین استفاده
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (buildLock) {
+            if (loaded) {
+                return;
+            }
+            try (Session session = sessionFactory.get().openSession()) {
+                try (Stream<Object[]> rows = session.createQuery(
+                        "select f.id, f.name, f.keywords, f.category, f.available from FoodItem f",
+                        Object[].class).getResultStream()) {
+                    rows.forEach(row -> {
+                        Long id = (Long) row[0];
+                        items.index(id, (String) row[1], (String) row[2], (String) row[3]);
+                        setMembership(availableItems, id, Boolean.TRUE.equals(row[4]));
+                    });
+                }
+                try (Stream<Object[]> rows = session.createQuery(
+                        "select r.id, r.name, r.address, r.status from Restaurant r",
+                        Object[].class).getResultStream()) {
+                    rows.forEach(row -> {
+                        Long id = (Long) row[0];
+                        restaurants.index(id, (String) row[1], (String) row[2]);
+                        setMembership(approvedRestaurants, id, row[3] == RestaurantStatus.APPROVED);
+                    });
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * به‌روزرسانی‌های قبل از ساخت ایندکس نادیده گرفته می‌شوند چون ساخت
+     * اولیه وضعیت commit شده را می‌خواند. اگر ساخت در جریان باشد منتظر
+     * می‌ماند تا تغییر بعد از آن اعمال شود و گم نشود.
+     */
+    private boolean acceptsUpdates() {
+        if (loaded) {
+            return true;
+        }
+        synchronized (buildLock) {
+            return loaded;
+        }
+    }
+
+    private static void setMembership(Set<Long> set, Long id, boolean member) {
+        if (member) {
+            set.add(id);
+        } else {
+            set.remove(id);
+        }
+    }
+
+    /**
+     * برداشتن شناسه‌ها از مجموعه؛ هر شناسه فقط توسط یک thread برداشته می‌شود
+     */
+    private static List<Long> drain(Collection<Long> stale) {
+        if (stale.isEmpty()) {
+            return List.of();
+        }
+        List<Long> drained = new ArrayList<>();
+        for (Long id : stale) {
+            if (stale.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    private static Long parseId(String key, String prefix) {
+        if (!key.startsWith(prefix) || key.length() == prefix.length()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(key.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;  // مثلاً restaurant:list:*
+        }
+    }
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+}
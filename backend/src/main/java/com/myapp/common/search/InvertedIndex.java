@@ -0,0 +1,302 @@
+package com.myapp.common.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * ایندکس معکوس درون حافظه‌ای با فیلدهای وزن‌دار
+ *
+ * برای هر token لیست سندهایی که آن را دارند (posting) به همراه bitmask
+ * فیلدهایی که token در آن‌ها آمده نگه داشته می‌شود. علاوه بر آن یک
+ * دیکشنری مرتب از پسوندهای هر token ساخته می‌شود تا جستجوی پیشوندی
+ * (type-ahead) و جستجوی وسط کلمه ("burger" در "cheeseburger") با یک
+ * range scan روی TreeMap انجام شود و نیازی به پیمایش همه سندها نباشد.
+ *
+ * امتیاز هر سند برای یک token جستجو برابر است با
+ * {@code وزن تطابق × بیشترین وزن فیلدی که تطابق در آن رخ داده}
+ * که وزن تطابق برای تطابق کامل {@link #EXACT}، پیشوندی {@link #PREFIX}
+ * و میانی {@link #INFIX} است. token های جستجو با AND ترکیب و امتیازشان
+ * جمع می‌شود.
+ *
+ * به‌روزرسانی‌ها افزایشی‌اند (هر سند جداگانه اضافه/جایگزین/حذف می‌شود).
+ * این کلاس thread-safe است؛ جستجوها فقط قفل خواندن می‌گیرند.
+ */
+public class InvertedIndex {
+
+    /** وزن تطابق کامل token */
+    public static final double EXACT = 1.0;
+
+    /** وزن تطابق پیشوندی (type-ahead) */
+    public static final double PREFIX = 0.6;
+
+    /** وزن تطابق وسط کلمه */
+    public static final double INFIX = 0.3;
+
+    /** token های کوتاه‌تر از این طول فقط به صورت پیشوندی تطبیق داده می‌شوند */
+    private static final int MIN_INFIX_LENGTH = 2;
+
+    /**
+     * نتیجه جستجو: شناسه سند و امتیاز آن
+     */
+    public static final class Hit {
+        private final long id;
+        private final double score;
+
+        Hit(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() { return id; }
+        public double getScore() { return score; }
+
+        @Override
+        public String toString() {
+            return id + ":" + score;
+        }
+    }
+
+    private static final Comparator<Hit> RANKING =
+        Comparator.comparingDouble(Hit::getScore).reversed().thenComparingLong(Hit::getId);
+
+    private final double[] fieldWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** token → (شناسه سند → bitmask فیلدها) */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    /** پسوند → token هایی که به آن ختم می‌شوند */
+    private final TreeMap<String, Set<String>> suffixes = new TreeMap<>();
+
+    /** شناسه سند → token های ایندکس شده آن (برای حذف و جایگزینی) */
+    private final Map<Long, Set<String>> documents = new HashMap<>();
+
+    /**
+     * @param fieldWeights وزن هر فیلد به ترتیبی که به {@link #index} داده می‌شود
+     */
+    public InvertedIndex(double... fieldWeights) {
+        if (fieldWeights.length == 0 || fieldWeights.length > Integer.SIZE) {
+            throw new IllegalArgumentException("Between 1 and 32 fields are supported");
+        }
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /**
+     * افزودن یا جایگزینی یک سند
+     *
+     * @param id شناسه سند
+     * @param fields متن فیلدها به ترتیب وزن‌های سازنده (null مجاز است)
+     */
+    public void index(long id, String... fields) {
+        if (fields.length > fieldWeights.length) {
+            throw new IllegalArgumentException("Expected at most " + fieldWeights.length + " fields");
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            Set<String> terms = new HashSet<>();
+            for (int field = 0; field < fields.length; field++) {
+                int bit = 1 << field;
+                for (String token : TextNormalizer.tokenize(fields[field])) {
+                    Map<Long, Integer> posting = postings.get(token);
+                    if (posting == null) {
+                        posting = new HashMap<>(4);
+                        postings.put(token, posting);
+                        addSuffixes(token);
+                    }
+                    posting.merge(id, bit, (a, b) -> a | b);
+                    terms.add(token);
+                }
+            }
+            if (!terms.isEmpty()) {
+                documents.put(id, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * حذف یک سند از ایندکس
+     *
+     * @param id شناسه سند
+     * @return true اگر سند در ایندکس بود
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * پاک کردن کامل ایندکس
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            suffixes.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * جستجوی رتبه‌بندی شده
+     *
+     * @param query متن جستجو
+     * @param limit حداکثر تعداد نتایج
+     * @param filter فیلتر روی شناسه سند (مثلاً فقط آیتم‌های در دسترس)
+     * @return نتایج به ترتیب امتیاز نزولی و سپس شناسه صعودی
+     */
+    public List<Hit> search(String query, int limit, LongPredicate filter) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Double>> perToken = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Map<Long, Double> matches = match(token);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                perToken.add(matches);
+            }
+            // اشتراک از کوچک‌ترین مجموعه شروع می‌شود
+            perToken.sort(Comparator.comparingInt(Map::size));
+            Map<Long, Double> scores = perToken.get(0);
+            List<Hit> hits = new ArrayList<>(Math.min(scores.size(), 256));
+            for (Map.Entry<Long, Double> candidate : scores.entrySet()) {
+                long id = candidate.getKey();
+                double score = candidate.getValue();
+                for (int i = 1; i < perToken.size() && score > 0; i++) {
+                    Double other = perToken.get(i).get(id);
+                    score = other == null ? 0 : score + other;
+                }
+                if (score > 0 && filter.test(id)) {
+                    hits.add(new Hit(id, score));
+                }
+            }
+            hits.sort(RANKING);
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * تعداد سندهای ایندکس شده
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * تعداد token های یکتا
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== متدهای داخلی ====================
+
+    /**
+     * سندهای منطبق با یک token جستجو و بهترین امتیاز هر کدام
+     */
+    private Map<Long, Double> match(String queryToken) {
+        Map<Long, Double> scores = new HashMap<>();
+        Set<String> visited = new HashSet<>();
+        boolean allowInfix = queryToken.length() >= MIN_INFIX_LENGTH;
+        for (Set<String> terms : suffixes.subMap(queryToken, queryToken + Character.MAX_VALUE).values()) {
+            for (String term : terms) {
+                if (!visited.add(term)) {
+                    continue;
+                }
+                double matchWeight;
+                if (term.equals(queryToken)) {
+                    matchWeight = EXACT;
+                } else if (term.startsWith(queryToken)) {
+                    matchWeight = PREFIX;
+                } else if (allowInfix) {
+                    matchWeight = INFIX;
+                } else {
+                    continue;
+                }
+                for (Map.Entry<Long, Integer> posting : postings.get(term).entrySet()) {
+                    double score = matchWeight * fieldWeight(posting.getValue());
+                    scores.merge(posting.getKey(), score, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private double fieldWeight(int mask) {
+        double best = 0;
+        for (int field = 0; field < fieldWeights.length; field++) {
+            if ((mask & (1 << field)) != 0) {
+                best = Math.max(best, fieldWeights[field]);
+            }
+        }
+        return best;
+    }
+
+    private boolean removeInternal(long id) {
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return false;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+                removeSuffixes(term);
+            }
+        }
+        return true;
+    }
+
+    private void addSuffixes(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            suffixes.computeIfAbsent(term.substring(i), k -> new HashSet<>(2)).add(term);
+        }
+    }
+
+    private void removeSuffixes(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            String suffix = term.substring(i);
+            Set<String> terms = suffixes.get(suffix);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    suffixes.remove(suffix);
+                }
+            }
+        }
+    }
+}
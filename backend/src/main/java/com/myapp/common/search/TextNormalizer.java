@@ -0,0 +1,88 @@
+package com.myapp.common.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * یکسان‌سازی و token بندی متن فارسی و لاتین برای ایندکس جستجو
+ *
+ * متن ایندکس و متن جستجو هر دو از همین مسیر عبور می‌کنند تا شکل‌های
+ * مختلف نوشتن یک کلمه به یک token برسند:
+ * - حذف اعراب و علائم ترکیبی (café → cafe، کبابِ → کباب)
+ * - یکسان‌سازی حروف عربی و فارسی (ي → ی، ك → ک، ة → ه)
+ * - حذف کشیده (ـ) و نیم‌فاصله
+ * - تبدیل ارقام فارسی و عربی به ارقام لاتین
+ * - حروف کوچک مستقل از locale
+ *
+ * جداکننده token ها هر کاراکتری است که حرف یا رقم نباشد.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * یکسان‌سازی متن بدون جدا کردن token ها
+     *
+     * @param text متن ورودی
+     * @return متن یکسان شده (برای null رشته خالی)
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case '\u064A', '\u0649' -> sb.append('\u06CC');   // ي ى → ی
+                case '\u0643' -> sb.append('\u06A9');             // ك → ک
+                case '\u0629' -> sb.append('\u0647');             // ة → ه
+                case '\u0640', '\u200C', '\u200D' -> { }         // کشیده و نیم‌فاصله
+                default -> {
+                    if (c >= '\u06F0' && c <= '\u06F9') {         // ارقام فارسی
+                        sb.append((char) ('0' + (c - '\u06F0')));
+                    } else if (c >= '\u0660' && c <= '\u0669') {  // ارقام عربی
+                        sb.append((char) ('0' + (c - '\u0660')));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * تبدیل متن به token های یکتا به ترتیب اولین ظهور
+     *
+     * @param text متن ورودی
+     * @return لیست token ها (برای متن خالی لیست خالی)
+     */
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean tokenChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -1,9 +1,13 @@
 package com.myapp.common.utils;
 
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Database Utility Class - Environment-based Database Configuration
  * This class manages the Hibernate SessionFactory for the Food Ordering System
@@ -12,17 +16,27 @@ import org.hibernate.cfg.Configuration;
  * - Development: SQLite (single-file database)
  * - Production: PostgreSQL (with HikariCP connection pooling)
  * 
+ * Read Replicas (production only):
+ * - db.replica.urls / DATABASE_REPLICA_URLS: comma-separated JDBC URLs of read replicas
+ * - db.replica.max.lag.millis: replicas lagging more than this are skipped (default 1000)
+ * - db.replica.sticky.millis: reads stay on primary this long after a user's write (default 5000)
+ * - db.replica.check.millis: lag check interval (default 1000)
+ * - DB_REPLICA_MAX_POOL_SIZE: Hikari pool size per replica (default 30)
+ * 
  * @author Food Ordering System Team
  * @version 2.0 - Production Ready
  */
 public class DatabaseUtil {
-    // نمونه یکتای SessionFactory برای کل برنامه
-    private static final SessionFactory sessionFactory = buildSessionFactory();
-    
-    // Environment variables
+    // Environment variables (باید قبل از ساخت SessionFactory مقداردهی شوند)
     private static final String ENVIRONMENT = System.getProperty("app.environment", "development");
     private static final boolean IS_PRODUCTION = "production".equals(ENVIRONMENT);
 
+    // مسیریاب خواندن‌ها بین primary و replica ها
+    private static final ReplicaRouter replicaRouter = buildReplicaRouter();
+
+    // نمونه یکتای SessionFactory برای کل برنامه
+    private static final SessionFactory sessionFactory = buildSessionFactory();
+
     /**
      * ساخت SessionFactory با استفاده از Environment-based Configuration
      * 
@@ -53,6 +67,11 @@ public class DatabaseUtil {
                 // Override with environment variables if provided
                 overrideWithEnvironmentVariables(configuration);
                 
+                // ثبت نوشتن‌های هر کاربر برای read-your-writes روی replica ها
+                if (replicaRouter.hasReplicas()) {
+                    configuration.setStatementInspector(replicaRouter.writeTracker());
+                }
+                
             } else {
                 // Development Environment - SQLite
                 System.out.println("   Environment: Development");
@@ -82,6 +101,67 @@ public class DatabaseUtil {
         }
     }
     
+    /**
+     * ساخت مسیریاب خواندن‌ها از روی تنظیمات replica
+     * 
+     * در محیط development یا بدون replica تعریف شده، همه خواندن‌ها روی primary انجام می‌شوند.
+     * replica ای که SessionFactory آن ساخته نشود نادیده گرفته می‌شود.
+     * 
+     * @return مسیریاب خواندن‌ها
+     */
+    private static ReplicaRouter buildReplicaRouter() {
+        String urls = System.getProperty("db.replica.urls", System.getenv("DATABASE_REPLICA_URLS"));
+        if (!IS_PRODUCTION || urls == null || urls.isBlank()) {
+            return ReplicaRouter.primaryOnly(DatabaseUtil::getSessionFactory);
+        }
+        
+        Map<String, SessionFactory> replicas = new LinkedHashMap<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            try {
+                replicas.put(name, buildReplicaSessionFactory(url.trim(), name));
+                System.out.println("   📖 Read replica configured: " + name);
+            } catch (Exception e) {
+                System.err.println("⚠️ Read replica " + name + " skipped: " + e.getMessage());
+            }
+        }
+        
+        ReplicaRouter router = new ReplicaRouter(DatabaseUtil::getSessionFactory, replicas,
+            ReplicaRouter.POSTGRES_LAG_PROBE,
+            Long.getLong("db.replica.max.lag.millis", 1000),
+            Long.getLong("db.replica.sticky.millis", 5000),
+            System::currentTimeMillis);
+        router.start(Long.getLong("db.replica.check.millis", 1000));
+        return router;
+    }
+    
+    /**
+     * ساخت SessionFactory یک replica با همان mapping ها و یک pool فقط خواندنی کوچک‌تر
+     * 
+     * @param url آدرس JDBC replica
+     * @param name نام replica برای pool
+     * @return SessionFactory replica
+     */
+    private static SessionFactory buildReplicaSessionFactory(String url, String name) {
+        Configuration configuration = new Configuration().configure("hibernate-production.cfg.xml");
+        overrideWithEnvironmentVariables(configuration);
+        String poolSize = System.getenv("DB_REPLICA_MAX_POOL_SIZE");
+        
+        configuration.setProperty("hibernate.connection.url", url);
+        configuration.setProperty("hibernate.hikari.poolName", "FoodOrdering-" + name);
+        configuration.setProperty("hibernate.hikari.maximumPoolSize", poolSize != null ? poolSize : "30");
+        configuration.setProperty("hibernate.hikari.minimumIdle", "5");
+        configuration.setProperty("hibernate.hikari.readOnly", "true");
+        // schema فقط روی primary اعتبارسنجی می‌شود و cache سطح دوم مال primary است
+        configuration.setProperty("hibernate.hbm2ddl.auto", "none");
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "false");
+        configuration.setProperty("hibernate.cache.use_query_cache", "false");
+        return configuration.buildSessionFactory();
+    }
+    
     /**
      * Override configuration with environment variables for production
      * 
@@ -172,6 +252,28 @@ public class DatabaseUtil {
         return sessionFactory;
     }
     
+    /**
+     * باز کردن session فقط خواندنی برای متدهای finder
+     * 
+     * روی یک replica سالم باز می‌شود، مگر اینکه replica ای تعریف نشده باشد،
+     * همه replica ها عقب باشند یا کاربر جاری به تازگی نوشتنی انجام داده باشد.
+     * فراخواننده باید session را ببندد.
+     * 
+     * @return session در حالت read-only
+     */
+    public static Session openReadSession() {
+        return replicaRouter.openReadSession();
+    }
+    
+    /**
+     * دریافت مسیریاب خواندن‌ها (آمار و تنظیمات replica ها)
+     * 
+     * @return مسیریاب خواندن‌ها
+     */
+    public static ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+    
     /**
      * Check if running in production environment
      * 
@@ -196,6 +298,7 @@ public class DatabaseUtil {
      */
     public static void shutdown() {
         try {
+            replicaRouter.shutdown();
             if (sessionFactory != null && !sessionFactory.isClosed()) {
                 sessionFactory.close();
                 System.out.println("🔒 SessionFactory closed successfully");
@@ -23,6 +23,13 @@ public class JWTUtil {
     // صادرکننده JWT
     private static final String ISSUER = "food-ordering-app";
     
+    // کلید امضا و parser یکبار ساخته می‌شوند (JwtParser در jjwt 0.12 immutable و thread-safe است)
+    private static final SecretKey SIGNING_KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser PARSER = Jwts.parser()
+            .verifyWith(SIGNING_KEY)            // بررسی امضا
+            .requireIssuer(ISSUER)              // بررسی صادرکننده
+            .build();
+    
     /**
      * دریافت کلید امضای رمزنگاری شده
      * این متد کلید مخفی را به فرمت SecretKey تبدیل می‌کند
@@ -30,7 +37,7 @@ public class JWTUtil {
      * @return کلید امضای رمزنگاری شده
      */
     private static SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        return SIGNING_KEY;
     }
     
     /**
@@ -98,15 +105,10 @@ public class JWTUtil {
      * @param token JWT token برای اعتبارسنجی
      * @return true اگر token معتبر باشد، در غیر اینصورت false
      */
-    @SuppressWarnings("deprecation")
     public static boolean validateToken(String token) {
         try {
             // پردازش و اعتبارسنجی token
-            Jwts.parser()
-                .setSigningKey(getSigningKey())     // بررسی امضا
-                .requireIssuer(ISSUER)              // بررسی صادرکننده
-                .build()
-                .parseClaimsJws(token);             // پردازش claims
+            PARSER.parseSignedClaims(token);        // بررسی امضا، صادرکننده و انقضا
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false; // token نامعتبر
@@ -300,16 +302,25 @@ public class JWTUtil {
      * @return شیء Claims
      * @throws JwtException در صورت نامعتبر بودن token
      */
-    @SuppressWarnings("deprecation")
     private static Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())        // بررسی امضا
-                .requireIssuer(ISSUER)              // بررسی صادرکننده
-                .build()
-                .parseSignedClaims(token)           // پردازش token
+        return PARSER.parseSignedClaims(token)      // پردازش token
                 .getPayload();                      // دریافت payload (claims)
     }
     
+    /**
+     * پردازش یکباره token و بازگرداندن تمام claims
+     * برخلاف فراخوانی جداگانه getUserIdFromToken/getPhoneFromToken/getRoleFromToken
+     * که هر کدام امضا را دوباره بررسی می‌کنند، این متد فقط یک بار امضای HMAC را بررسی می‌کند
+     * 
+     * @param token JWT token
+     * @return شیء Claims شامل subject، phone، role، type و زمان انقضا
+     * @throws JwtException در صورت نامعتبر بودن یا منقضی بودن token
+     * @throws IllegalArgumentException در صورت null یا خالی بودن token
+     */
+    public static Claims parseClaims(String token) {
+        return getClaimsFromToken(token);
+    }
+    
     /**
      * تولید هر دو نوع token (Access و Refresh) برای کاربر
      * این متد هر دو token مورد نیاز را به صورت همزمان تولید می‌کند
@@ -1,5 +1,7 @@
 package com.myapp.common.utils;
 
+import com.myapp.common.cache.LocalCache;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -9,12 +11,9 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.util.function.Supplier;
@@ -33,58 +32,16 @@ public class PerformanceUtil {
     
     // ==================== سیستم کش پیشرفته (ADVANCED CACHING SYSTEM) ====================
     
-    // نقشه thread-safe برای ذخیره‌سازی داده‌های کش شده
-    private static final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
-    // کش برای آمار عملکرد
-    private static final Map<String, PerformanceStats> performanceCache = new ConcurrentHashMap<>();
-    // صف برای مدیریت LRU (Least Recently Used)
-    private static final Queue<String> lruQueue = new ConcurrentLinkedQueue<>();
-    
     // تنظیمات پیشرفته کش
     private static final long DEFAULT_CACHE_TTL_MINUTES = 30;
     private static final int MAX_CACHE_SIZE = 1000; // کاهش اندازه کش برای هماهنگی با تست
-    private static final int LRU_CLEANUP_THRESHOLD = 100; // آستانه پاک‌سازی LRU
-    private static final AtomicLong cacheHits = new AtomicLong(0);
-    private static final AtomicLong cacheMisses = new AtomicLong(0);
     
-    /**
-     * کلاس داخلی پیشرفته برای ذخیره‌سازی آیتم‌های کش با پشتیبانی از TTL و LRU
-     */
-    private static class CacheEntry {
-        private final Object value;
-        private final LocalDateTime expiryTime;
-        private LocalDateTime lastAccessTime; // حذف final برای امکان تغییر
-        private final AtomicInteger accessCount;
-        
-        public CacheEntry(Object value, long ttlMinutes) {
-            this.value = value;
-            this.expiryTime = LocalDateTime.now().plusMinutes(ttlMinutes);
-            this.lastAccessTime = LocalDateTime.now();
-            this.accessCount = new AtomicInteger(0);
-        }
-        
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expiryTime);
-        }
-        
-        public Object getValue() {
-            lastAccessTime = LocalDateTime.now();
-            accessCount.incrementAndGet();
-            return value;
-        }
-        
-        public LocalDateTime getLastAccessTime() {
-            return lastAccessTime;
-        }
-        
-        public int getAccessCount() {
-            return accessCount.get();
-        }
-        
-        public boolean isHot() {
-            return accessCount.get() > 10; // آیتم‌های داغ
-        }
-    }
+    // کش درون پردازه‌ای با همان پیاده‌سازی L1 در CacheService (LRU واقعی، TTL و آمار)
+    // وزن هر ورودی ۱ است تا سقف کش دقیقاً بر حسب تعداد باشد
+    private static final LocalCache cache = new LocalCache(MAX_CACHE_SIZE, MAX_CACHE_SIZE,
+        value -> 1, System::currentTimeMillis);
+    // کش برای آمار عملکرد
+    private static final Map<String, PerformanceStats> performanceCache = new ConcurrentHashMap<>();
     
     /**
      * کلاس آمار عملکرد برای مانیتورینگ
@@ -158,59 +115,16 @@ public class PerformanceUtil {
      * ذخیره‌سازی داده در کش با TTL سفارشی و مدیریت LRU
      */
     public static void cacheData(String key, Object data, long ttlMinutes) {
-        // مدیریت LRU و اندازه کش
-        if (cache.size() >= MAX_CACHE_SIZE) {
-            cleanupLRU();
-        }
-        
-        cache.put(key, new CacheEntry(data, ttlMinutes));
-        lruQueue.offer(key);
+        // LocalCache در زمان پر شدن قدیمی‌ترین ورودی‌ها را حذف می‌کند
+        cache.put(key, data, TimeUnit.MINUTES.toMillis(ttlMinutes));
     }
     
     /**
      * دریافت داده از کش با آمارگیری
      */
-    @SuppressWarnings("unchecked")
     public static <T> T getCachedData(String key, Class<T> type) {
-        CacheEntry entry = cache.get(key);
-        if (entry == null || entry.isExpired()) {
-            cache.remove(key);
-            cacheMisses.incrementAndGet();
-            return null;
-        }
-        
-        cacheHits.incrementAndGet();
-        try {
-            return type.cast(entry.getValue());
-        } catch (ClassCastException e) {
-            cache.remove(key);
-            cacheMisses.incrementAndGet();
-            return null;
-        }
-    }
-    
-    /**
-     * پاک‌سازی LRU برای آزادسازی فضا
-     */
-    private static void cleanupLRU() {
-        int itemsToRemove = LRU_CLEANUP_THRESHOLD;
-        List<String> itemsToRemoveList = new ArrayList<>();
-        
-        // پیدا کردن آیتم‌های کم‌استفاده
-        for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
-            if (itemsToRemoveList.size() >= itemsToRemove) break;
-            
-            CacheEntry cacheEntry = entry.getValue();
-            if (!cacheEntry.isHot() && !cacheEntry.isExpired()) {
-                itemsToRemoveList.add(entry.getKey());
-            }
-        }
-        
-        // حذف آیتم‌های انتخاب شده
-        for (String key : itemsToRemoveList) {
-            cache.remove(key);
-            lruQueue.remove(key);
-        }
+        // ورودی با نوع نامتناسب حذف و miss شمرده می‌شود
+        return cache.get(key, type);
     }
     
     /**
@@ -218,23 +132,21 @@ public class PerformanceUtil {
      */
     public static Map<String, Object> getAdvancedCacheStats() {
         Map<String, Object> stats = new ConcurrentHashMap<>();
-        stats.put("totalEntries", cache.size());
+        int totalEntries = (int) cache.size();
+        stats.put("totalEntries", totalEntries);
         stats.put("maxSize", MAX_CACHE_SIZE);
-        stats.put("cacheHits", cacheHits.get());
-        stats.put("cacheMisses", cacheMisses.get());
+        stats.put("cacheHits", cache.getHits());
+        stats.put("cacheMisses", cache.getMisses());
         
-        long totalRequests = cacheHits.get() + cacheMisses.get();
-        double hitRate = totalRequests > 0 ? (double) cacheHits.get() / totalRequests : 0;
+        long totalRequests = cache.getHits() + cache.getMisses();
+        double hitRate = totalRequests > 0 ? (double) cache.getHits() / totalRequests : 0;
         stats.put("hitRate", String.format("%.2f%%", hitRate * 100));
-        
-        // آمار آیتم‌های داغ
-        long hotItems = cache.values().stream().mapToLong(entry -> entry.isHot() ? 1 : 0).sum();
-        stats.put("hotItems", hotItems);
+        stats.put("evictions", cache.getEvictions());
         
         // آمار آیتم‌های منقضی
-        long expiredCount = cache.values().stream().mapToLong(entry -> entry.isExpired() ? 1 : 0).sum();
+        long expiredCount = cache.expiredCount();
         stats.put("expiredEntries", expiredCount);
-        stats.put("activeEntries", cache.size() - expiredCount);
+        stats.put("activeEntries", totalEntries - expiredCount);
         
         return stats;
     }
@@ -520,23 +432,16 @@ public class PerformanceUtil {
     // ==================== متدهای موجود (EXISTING METHODS) ====================
     
     public static boolean isCached(String key) {
-        CacheEntry entry = cache.get(key);
-        if (entry == null || entry.isExpired()) {
-            cache.remove(key);
-            return false;
-        }
-        return true;
+        return cache.containsKey(key);
     }
     
     public static void clearCache() {
-        cache.clear();
-        lruQueue.clear();
-        cacheHits.set(0);
-        cacheMisses.set(0);
+        cache.invalidateAll();
+        cache.resetStatistics();
     }
     
     public static void cleanExpiredEntries() {
-        cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        cache.cleanUp();
     }
     
     public static Map<String, Object> getCacheStats() {
@@ -659,13 +564,8 @@ public class PerformanceUtil {
         // بهینه‌سازی حافظه
         optimizeMemory();
         
-        // پاک‌سازی کش
+        // پاک‌سازی کش (سقف اندازه را خود LocalCache کنترل می‌کند)
         cleanExpiredEntries();
-        
-        // بررسی اندازه کش
-        if (cache.size() > MAX_CACHE_SIZE * 0.8) {
-            cleanupLRU();
-        }
     }
     
     /**
@@ -3,7 +3,6 @@ package com.myapp.common.utils;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
-import org.hibernate.cfg.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,7 +20,7 @@ import java.util.function.Function;
  * - Connection pooling with HikariCP
  * - Async operations for non-blocking I/O
  * - Proper transaction management
- * - Read/Write separation support
+ * - Read/Write separation (reads routed to lag-checked replicas via ReplicaRouter)
  * - Connection leak detection
  * - Performance monitoring
  */
@@ -29,53 +28,32 @@ public class ProductionDatabaseManager {
     
     private static final Logger logger = LoggerFactory.getLogger(ProductionDatabaseManager.class);
     
-    private static SessionFactory sessionFactory;
-    private static SessionFactory readOnlySessionFactory;
+    // همان SessionFactory و مسیریاب DatabaseUtil - pool جداگانه‌ای برای خواندن روی primary ساخته نمی‌شود
+    private static final SessionFactory sessionFactory = DatabaseUtil.getSessionFactory();
+    private static final ReplicaRouter replicaRouter = DatabaseUtil.getReplicaRouter();
     
     // Thread pool for async operations
     private static final ExecutorService asyncExecutor = Executors.newFixedThreadPool(
         Runtime.getRuntime().availableProcessors() * 2
     );
     
-    static {
-        try {
-            // Master database for writes
-            Configuration masterConfig = new Configuration();
-            masterConfig.configure("hibernate-production.cfg.xml");
-            sessionFactory = masterConfig.buildSessionFactory();
-            
-            // Read replica for reads (در production محیط)
-            Configuration replicaConfig = new Configuration();
-            replicaConfig.configure("hibernate-production.cfg.xml");
-            // در production اینجا URL به read replica تغییر می‌کند
-            readOnlySessionFactory = replicaConfig.buildSessionFactory();
-            
-            logger.info("Production database connections initialized successfully");
-            
-        } catch (Exception e) {
-            logger.error("Failed to initialize production database", e);
-            throw new RuntimeException("Database initialization failed", e);
-        }
-    }
-    
     /**
-     * Execute read operation (uses read replica)
+     * Execute read operation (uses a healthy read replica, or primary as fallback)
      */
     public static <T> T executeRead(Function<Session, T> operation) {
-        Session session = null;
-        try {
-            session = readOnlySessionFactory.getCurrentSession();
-            session.beginTransaction();
-            
-            T result = operation.apply(session);
-            
-            session.getTransaction().commit();
-            return result;
-            
-        } catch (Exception e) {
-            if (session != null && session.getTransaction() != null) {
-                session.getTransaction().rollback();
+        try (Session session = replicaRouter.openReadSession()) {
+            Transaction transaction = session.beginTransaction();
+            try {
+                T result = operation.apply(session);
+                transaction.commit();
+                return result;
+            } catch (Exception e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
             }
+        } catch (Exception e) {
             logger.error("Read operation failed", e);
             throw new RuntimeException("Read operation failed", e);
         }
@@ -168,8 +146,7 @@ public class ProductionDatabaseManager {
      * Get connection pool statistics
      */
     public static String getConnectionPoolStats() {
-        // در production محیط، HikariCP metrics اینجا برگردانده می‌شود
-        return "Connection pool stats would be available here in production";
+        return "Read routing: " + replicaRouter.getStatistics();
     }
     
     /**
@@ -182,12 +159,7 @@ public class ProductionDatabaseManager {
                 asyncExecutor.shutdownNow();
             }
             
-            if (sessionFactory != null) {
-                sessionFactory.close();
-            }
-            if (readOnlySessionFactory != null) {
-                readOnlySessionFactory.close();
-            }
+            DatabaseUtil.shutdown();
             
             logger.info("Database connections shut down gracefully");
             
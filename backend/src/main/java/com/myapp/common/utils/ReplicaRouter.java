@@ -0,0 +1,398 @@
+package com.myapp.common.utils;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * مسیریابی خواندن‌ها بین دیتابیس اصلی (primary) و replica ها
+ *
+ * متدهای finder در repository ها به جای {@code openSession()} روی primary از
+ * {@link DatabaseUtil#openReadSession()} استفاده می‌کنند و این کلاس تصمیم می‌گیرد
+ * session روی کدام دیتابیس باز شود:
+ *
+ * - replica ها به صورت round-robin انتخاب می‌شوند
+ * - تأخیر replication هر replica به صورت دوره‌ای اندازه‌گیری می‌شود و replica ای که
+ *   تأخیرش از حد مجاز بیشتر است یا پاسخ نمی‌دهد تا بررسی بعدی کنار گذاشته می‌شود
+ * - اگر هیچ replica سالمی نباشد خواندن روی primary انجام می‌شود
+ * - read-your-writes: بعد از هر نوشتن یک کاربر (تشخیص از روی SQL ارسالی با
+ *   {@link #writeTracker()})، خواندن‌های همان کاربر تا مدت کوتاهی روی primary می‌مانند
+ *
+ * کاربر درخواست جاری با {@link #bindCurrentUser(Long)} در AuthMiddleware مشخص و در
+ * پایان درخواست توسط ServerRuntime پاک می‌شود. وضعیت چسبندگی در حافظه همین نود
+ * نگهداری می‌شود.
+ *
+ * session های خواندنی در حالت read-only باز می‌شوند (بدون dirty checking).
+ */
+public class ReplicaRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    /**
+     * اندازه‌گیری تأخیر replication بر حسب میلی‌ثانیه برای PostgreSQL
+     *
+     * اگر replica همه WAL دریافتی را اعمال کرده باشد تأخیر صفر است (حتی اگر مدتی
+     * تراکنشی روی primary نبوده باشد)، در غیر این صورت فاصله تا آخرین تراکنش اعمال شده.
+     */
+    public static final String POSTGRES_LAG_SQL =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    /** کاربر احراز هویت شده درخواست جاری */
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+
+    /**
+     * اندازه‌گیری تأخیر یک replica
+     */
+    @FunctionalInterface
+    public interface LagProbe {
+        /**
+         * @return تأخیر replication بر حسب میلی‌ثانیه
+         * @throws Exception در صورت در دسترس نبودن replica
+         */
+        long lagMillis(SessionFactory replica) throws Exception;
+    }
+
+    /** اندازه‌گیری تأخیر با {@link #POSTGRES_LAG_SQL} */
+    public static final LagProbe POSTGRES_LAG_PROBE = replica -> {
+        try (Session session = replica.openSession()) {
+            Object lag = session.createNativeQuery(POSTGRES_LAG_SQL, Object.class).getSingleResult();
+            return lag == null ? 0L : Math.round(((Number) lag).doubleValue());
+        }
+    };
+
+    /**
+     * یک replica و آخرین وضعیت سلامت آن
+     */
+    static final class Replica {
+        final String name;
+        final SessionFactory sessionFactory;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+        volatile String lastError;
+        final LongAdder reads = new LongAdder();
+
+        Replica(String name, SessionFactory sessionFactory) {
+            this.name = name;
+            this.sessionFactory = sessionFactory;
+        }
+    }
+
+    private final Supplier<SessionFactory> primary;
+    private final List<Replica> replicas;
+    private final LagProbe lagProbe;
+    private final long maxLagMillis;
+    private final long stickyMillis;
+    private final LongSupplier clock;
+
+    /** شناسه کاربر → زمانی که خواندن‌هایش تا آن زمان روی primary می‌ماند */
+    private final Map<Long, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile ScheduledExecutorService monitor;
+
+    // آمار مسیریابی
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private final LongAdder trackedWrites = new LongAdder();
+
+    /**
+     * @param primary SessionFactory اصلی (به صورت lazy، چون قبل از ساخت آن نیز لازم است)
+     * @param replicas نام و SessionFactory هر replica
+     * @param lagProbe روش اندازه‌گیری تأخیر
+     * @param maxLagMillis حداکثر تأخیر مجاز replica
+     * @param stickyMillis مدت ماندن خواندن‌های کاربر روی primary بعد از نوشتن
+     * @param clock ساعت بر حسب میلی‌ثانیه
+     */
+    public ReplicaRouter(Supplier<SessionFactory> primary, Map<String, SessionFactory> replicas, LagProbe lagProbe,
+                         long maxLagMillis, long stickyMillis, LongSupplier clock) {
+        this.primary = primary;
+        List<Replica> list = new ArrayList<>();
+        replicas.forEach((name, factory) -> list.add(new Replica(name, factory)));
+        this.replicas = Collections.unmodifiableList(list);
+        this.lagProbe = lagProbe;
+        this.maxLagMillis = maxLagMillis;
+        this.stickyMillis = stickyMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * مسیریاب بدون replica - همه خواندن‌ها روی primary
+     */
+    public static ReplicaRouter primaryOnly(Supplier<SessionFactory> primary) {
+        return new ReplicaRouter(primary, Map.of(), POSTGRES_LAG_PROBE, 0, 0, System::currentTimeMillis);
+    }
+
+    // ==================== زمینه درخواست ====================
+
+    /**
+     * ثبت کاربر درخواست جاری (برای read-your-writes)
+     */
+    public static void bindCurrentUser(Long userId) {
+        if (userId == null) {
+            CURRENT_USER.remove();
+        } else {
+            CURRENT_USER.set(userId);
+        }
+    }
+
+    /**
+     * پاک کردن کاربر درخواست جاری در پایان درخواست
+     */
+    public static void clearCurrentUser() {
+        CURRENT_USER.remove();
+    }
+
+    /**
+     * تبدیل session به read-only (برای repository هایی که SessionFactory تزریق شده دارند)
+     */
+    public static Session readOnly(Session session) {
+        session.setDefaultReadOnly(true);
+        return session;
+    }
+
+    // ==================== مسیریابی ====================
+
+    /**
+     * باز کردن session خواندنی روی replica مناسب یا primary
+     *
+     * @return session در حالت read-only که فراخواننده باید آن را ببندد
+     */
+    public Session openReadSession() {
+        Replica replica = chooseReplica();
+        if (replica != null) {
+            try {
+                return readOnly(replica.sessionFactory.openSession());
+            } catch (RuntimeException e) {
+                markUnhealthy(replica, e);
+                fallbackReads.increment();
+            }
+        }
+        return readOnly(primary.get().openSession());
+    }
+
+    /**
+     * انتخاب replica برای خواندن جاری؛ null یعنی primary
+     */
+    Replica chooseReplica() {
+        if (replicas.isEmpty()) {
+            primaryReads.increment();
+            return null;
+        }
+        Long userId = CURRENT_USER.get();
+        if (userId != null && isSticky(userId)) {
+            stickyReads.increment();
+            return null;
+        }
+        int count = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.healthy) {
+                replica.reads.increment();
+                replicaReads.increment();
+                return replica;
+            }
+        }
+        fallbackReads.increment();
+        return null;
+    }
+
+    /**
+     * ثبت نوشتن برای کاربر درخواست جاری
+     */
+    public void recordWrite() {
+        Long userId = CURRENT_USER.get();
+        if (userId != null) {
+            recordWrite(userId);
+        }
+    }
+
+    /**
+     * ثبت نوشتن برای یک کاربر مشخص
+     */
+    public void recordWrite(Long userId) {
+        if (userId == null || replicas.isEmpty()) {
+            return;
+        }
+        trackedWrites.increment();
+        stickyUntil.put(userId, clock.getAsLong() + stickyMillis);
+    }
+
+    /**
+     * آیا خواندن‌های کاربر هنوز باید روی primary انجام شوند
+     */
+    public boolean isSticky(Long userId) {
+        Long until = stickyUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until > clock.getAsLong()) {
+            return true;
+        }
+        stickyUntil.remove(userId, until);
+        return false;
+    }
+
+    /**
+     * StatementInspector ای که روی SessionFactory اصلی نصب می‌شود و هر دستور
+     * INSERT/UPDATE/DELETE/MERGE را به عنوان نوشتن کاربر جاری ثبت می‌کند
+     */
+    public StatementInspector writeTracker() {
+        return sql -> {
+            if (isWriteStatement(sql)) {
+                recordWrite();
+            }
+            return sql;
+        };
+    }
+
+    static boolean isWriteStatement(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                if (end < 0) {
+                    return false;
+                }
+                i = end + 2;
+            } else {
+                break;
+            }
+        }
+        return sql.regionMatches(true, i, "insert", 0, 6)
+            || sql.regionMatches(true, i, "update", 0, 6)
+            || sql.regionMatches(true, i, "delete", 0, 6)
+            || sql.regionMatches(true, i, "merge", 0, 5);
+    }
+
+    // ==================== پایش تأخیر ====================
+
+    /**
+     * شروع بررسی دوره‌ای تأخیر replica ها (اولین بررسی همزمان انجام می‌شود)
+     *
+     * @param intervalMillis فاصله بررسی‌ها
+     */
+    public synchronized void start(long intervalMillis) {
+        if (replicas.isEmpty() || monitor != null) {
+            return;
+        }
+        checkReplicas();
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * اندازه‌گیری تأخیر همه replica ها و به‌روزرسانی وضعیت سلامت آن‌ها
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                long lag = lagProbe.lagMillis(replica.sessionFactory);
+                boolean wasHealthy = replica.healthy;
+                replica.lagMillis = lag;
+                replica.lastError = null;
+                replica.healthy = lag >= 0 && lag <= maxLagMillis;
+                if (wasHealthy && !replica.healthy) {
+                    logger.warn("Replica {} lag {}ms exceeds {}ms; reads fall back to primary",
+                        replica.name, lag, maxLagMillis);
+                } else if (!wasHealthy && replica.healthy) {
+                    logger.info("Replica {} is serving reads (lag {}ms)", replica.name, lag);
+                }
+            } catch (Exception e) {
+                markUnhealthy(replica, e);
+            }
+        }
+        long now = clock.getAsLong();
+        stickyUntil.values().removeIf(until -> until <= now);
+    }
+
+    private void markUnhealthy(Replica replica, Exception e) {
+        if (replica.healthy) {
+            logger.warn("Replica {} unavailable; reads fall back to primary: {}", replica.name, e.getMessage());
+        }
+        replica.healthy = false;
+        replica.lastError = e.getMessage();
+    }
+
+    // ==================== آمار و خاموش کردن ====================
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * آمار مسیریابی و وضعیت هر replica
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        stats.put("stickyReads", stickyReads.sum());
+        stats.put("fallbackReads", fallbackReads.sum());
+        stats.put("trackedWrites", trackedWrites.sum());
+        stats.put("stickyUsers", stickyUntil.size());
+        stats.put("maxLagMillis", maxLagMillis);
+        List<Map<String, Object>> replicaStats = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", replica.name);
+            entry.put("healthy", replica.healthy);
+            entry.put("lagMillis", replica.lagMillis);
+            entry.put("reads", replica.reads.sum());
+            if (replica.lastError != null) {
+                entry.put("lastError", replica.lastError);
+            }
+            replicaStats.add(entry);
+        }
+        stats.put("replicas", replicaStats);
+        return stats;
+    }
+
+    /**
+     * توقف پایش و بستن SessionFactory های replica
+     */
+    public synchronized void shutdown() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+        for (Replica replica : replicas) {
+            try {
+                if (!replica.sessionFactory.isClosed()) {
+                    replica.sessionFactory.close();
+                }
+            } catch (Exception e) {
+                logger.warn("Error closing replica {}: {}", replica.name, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.myapp.coupon;
+
+import com.myapp.common.models.Coupon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * کاتالوگ درون حافظه‌ای کوپن‌ها برای جستجوی کد و کوپن‌های قابل اعمال
+ *
+ * applyCoupon برای هر کد، از جمله کدهای اشتباه ربات‌ها و کاربران، یک کوئری
+ * findByCode اجرا می‌کرد. این کلاس کوپن‌های فعال و منقضی نشده را نگه می‌دارد:
+ *
+ * - جستجوی کد: ابتدا کاتالوگ؛ کدهای خارج از کاتالوگ (کد اشتباه، کوپن غیرفعال
+ *   یا منقضی، یا کوپنی که node دیگری پس از آخرین بارگذاری ایجاد کرده) یک بار
+ *   از دیتابیس خوانده و نتیجه تا negativeTtlMillis نگه داشته می‌شود. کدی که در
+ *   کاتالوگ نیست هرگز بدون کوئری رد نمی‌شود تا کوپن تازه ایجاد شده روی node
+ *   دیگر تا بارگذاری بعدی «وجود ندارد» برنگرداند.
+ * - کوپن‌های قابل اعمال: ایندکس کوپن‌های سراسری و هر رستوران، مرتب بر اساس
+ *   حداقل مبلغ سفارش؛ با جستجوی دودویی فقط کوپن‌هایی بررسی می‌شوند که
+ *   minOrderAmount آن‌ها از مبلغ سفارش بیشتر نیست.
+ *
+ * داده‌ها در یک snapshot تغییرناپذیر هستند و خواندن هیچ قفلی ندارد. ایجاد،
+ * ویرایش و غیرفعال‌سازی کوپن روی همین نود با {@link #upsert} و {@link #evict}
+ * snapshot جدید می‌سازند (copy-on-write؛ تعداد کوپن‌های فعال کم و تغییراتشان
+ * نادر است). تغییرات نودهای دیگر با بارگذاری کامل دوره‌ای (refreshMillis)
+ * دیده می‌شوند. usedCount کوپن‌های کاتالوگ ممکن است کهنه باشد؛ این برای
+ * اعمال کوپن فقط جنبه راهنما دارد و ظرفیت در زمان استفاده توسط
+ * {@link CouponRedemptionEngine} به صورت اتمیک در دیتابیس بررسی می‌شود.
+ *
+ * کوپن‌های برگشتی بین درخواست‌ها مشترک‌اند و نباید تغییر داده شوند.
+ */
+public class CouponCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponCatalog.class);
+
+    /** فاصله پیش‌فرض بارگذاری کامل */
+    public static final long DEFAULT_REFRESH_MILLIS = 60_000L;
+
+    /** مدت پیش‌فرض نگهداری نتیجه کدهای خارج از کاتالوگ */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 30_000L;
+
+    /** حداکثر پیش‌فرض تعداد کدهای خارج از کاتالوگ نگه داشته شده */
+    public static final int DEFAULT_MAX_NEGATIVE_ENTRIES = 10_000;
+
+    // نسبت ورودی‌هایی که در زمان پر شدن کش منفی حذف می‌شوند
+    private static final int EVICTION_DIVISOR = 10;
+
+    /** ترتیب findApplicableCoupons در repository (type و سپس value نزولی) */
+    private static final Comparator<Coupon> APPLICABLE_ORDER =
+        Comparator.comparing((Coupon coupon) -> coupon.getType().name())
+                  .thenComparing(Coupon::getValue, Comparator.reverseOrder());
+
+    /**
+     * کوپن‌های یک دامنه (سراسری یا یک رستوران) مرتب بر اساس حداقل مبلغ سفارش
+     */
+    private static final class MinOrderIndex {
+        private final double[] minOrderAmounts;
+        private final Coupon[] coupons;
+
+        private MinOrderIndex(List<Coupon> coupons) {
+            coupons.sort(Comparator.comparingDouble(CouponCatalog::minOrderAmount));
+            this.coupons = coupons.toArray(new Coupon[0]);
+            this.minOrderAmounts = new double[this.coupons.length];
+            for (int i = 0; i < this.coupons.length; i++) {
+                minOrderAmounts[i] = minOrderAmount(this.coupons[i]);
+            }
+        }
+
+        /** تعداد کوپن‌هایی که minOrderAmount آن‌ها حداکثر orderAmount است */
+        private int eligibleCount(double orderAmount) {
+            int low = 0;
+            int high = minOrderAmounts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (minOrderAmounts[mid] <= orderAmount) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * وضعیت تغییرناپذیر کاتالوگ
+     */
+    private static final class Snapshot {
+        private final Map<Long, Coupon> byId;
+        private final Map<String, Coupon> byCode;
+        private final MinOrderIndex global;
+        private final Map<Long, MinOrderIndex> byRestaurant;
+        private final long loadedAtMillis;
+
+        private Snapshot(Collection<Coupon> coupons, long loadedAtMillis) {
+            Map<Long, Coupon> ids = new HashMap<>();
+            Map<String, Coupon> codes = new HashMap<>();
+            List<Coupon> globalCoupons = new ArrayList<>();
+            Map<Long, List<Coupon>> restaurantCoupons = new HashMap<>();
+            for (Coupon coupon : coupons) {
+                ids.put(coupon.getId(), coupon);
+                codes.put(normalize(coupon.getCode()), coupon);
+                if (coupon.getRestaurant() == null) {
+                    globalCoupons.add(coupon);
+                } else {
+                    restaurantCoupons.computeIfAbsent(coupon.getRestaurant().getId(), id -> new ArrayList<>())
+                                     .add(coupon);
+                }
+            }
+            Map<Long, MinOrderIndex> restaurants = new HashMap<>();
+            restaurantCoupons.forEach((id, list) -> restaurants.put(id, new MinOrderIndex(list)));
+
+            this.byId = ids;
+            this.byCode = codes;
+            this.global = new MinOrderIndex(globalCoupons);
+            this.byRestaurant = restaurants;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        /** snapshot جدید با جایگزینی یا حذف یک کوپن (coupon برابر null یعنی حذف) */
+        private Snapshot replace(Long couponId, Coupon coupon) {
+            Map<Long, Coupon> next = new HashMap<>(byId);
+            next.remove(couponId);
+            if (coupon != null) {
+                next.put(coupon.getId(), coupon);
+            }
+            return new Snapshot(next.values(), loadedAtMillis);
+        }
+
+        private Snapshot reloadedAt(long loadedAtMillis) {
+            return new Snapshot(byId.values(), loadedAtMillis);
+        }
+    }
+
+    /**
+     * نتیجه دیتابیس برای کد خارج از کاتالوگ (coupon برابر null یعنی کد وجود ندارد)
+     */
+    private static final class Miss {
+        private final Coupon coupon;
+        private final long expiresAtMillis;
+
+        private Miss(Coupon coupon, long expiresAtMillis) {
+            this.coupon = coupon;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final CouponRepository couponRepository;
+    private final long refreshMillis;
+    private final long negativeTtlMillis;
+    private final int maxNegativeEntries;
+    private final LongSupplier clock;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    private final Map<String, Miss> misses = new ConcurrentHashMap<>();
+    // با هر تغییر افزایش می‌یابد تا نتیجه کوئری هم‌زمان با تغییر در کش منفی ننشیند
+    private final AtomicLong generation = new AtomicLong();
+
+    // آمار
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    /**
+     * سازنده با تنظیمات system property ها و ساعت سیستم
+     */
+    public CouponCatalog(CouponRepository couponRepository) {
+        this(couponRepository,
+             Long.getLong("coupon.catalog.refresh.millis", DEFAULT_REFRESH_MILLIS),
+             Long.getLong("coupon.catalog.negative.ttl.millis", DEFAULT_NEGATIVE_TTL_MILLIS),
+             Integer.getInteger("coupon.catalog.negative.max", DEFAULT_MAX_NEGATIVE_ENTRIES),
+             System::currentTimeMillis);
+    }
+
+    /**
+     * @param refreshMillis فاصله بارگذاری کامل از دیتابیس
+     * @param negativeTtlMillis مدت نگهداری نتیجه کدهای خارج از کاتالوگ
+     * @param maxNegativeEntries حداکثر تعداد این کدها
+     * @param clock منبع زمان بر حسب میلی‌ثانیه (برای تست)
+     */
+    public CouponCatalog(CouponRepository couponRepository, long refreshMillis, long negativeTtlMillis,
+                         int maxNegativeEntries, LongSupplier clock) {
+        if (maxNegativeEntries <= 0) {
+            throw new IllegalArgumentException("Max negative entries must be positive");
+        }
+        this.couponRepository = couponRepository;
+        this.refreshMillis = refreshMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxNegativeEntries = maxNegativeEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * جستجوی کوپن بر اساس کد (بدون حساسیت به حروف و فاصله‌های اطراف)
+     *
+     * @param code کد کوپن
+     * @return کوپن (ممکن است غیرفعال یا منقضی باشد) یا empty اگر کد وجود ندارد
+     */
+    public Optional<Coupon> findByCode(String code) {
+        String key = normalize(code);
+        Snapshot current = current();
+
+        Coupon coupon = current.byCode.get(key);
+        if (coupon != null) {
+            hits.increment();
+            return Optional.of(coupon);
+        }
+        long now = clock.getAsLong();
+        Miss miss = misses.get(key);
+        if (miss != null) {
+            if (now < miss.expiresAtMillis) {
+                negativeHits.increment();
+                return Optional.ofNullable(miss.coupon);
+            }
+            misses.remove(key, miss);
+        }
+
+        databaseLookups.increment();
+        long observedGeneration = generation.get();
+        Optional<Coupon> found = couponRepository.findByCode(key);
+        if (negativeTtlMillis > 0 && generation.get() == observedGeneration) {
+            rememberMiss(key, new Miss(found.orElse(null), now + negativeTtlMillis));
+        }
+        return found;
+    }
+
+    /**
+     * کوپن‌های قابل اعمال برای سفارش (معادل CouponRepository.findApplicableCoupons)
+     *
+     * @param orderAmount مبلغ سفارش
+     * @param restaurantId شناسه رستوران (null فقط کوپن‌های سراسری)
+     * @return کوپن‌های فعال، در بازه اعتبار، دارای ظرفیت و با حداقل مبلغ برآورده شده
+     */
+    public List<Coupon> findApplicable(double orderAmount, Long restaurantId) {
+        Snapshot current = current();
+        LocalDateTime now = LocalDateTime.now();
+        List<Coupon> result = new ArrayList<>();
+        collectApplicable(current.global, orderAmount, now, result);
+        if (restaurantId != null) {
+            MinOrderIndex restaurant = current.byRestaurant.get(restaurantId);
+            if (restaurant != null) {
+                collectApplicable(restaurant, orderAmount, now, result);
+            }
+        }
+        result.sort(APPLICABLE_ORDER);
+        return result;
+    }
+
+    /**
+     * اعمال کوپن ایجاد یا ویرایش شده روی همین نود
+     *
+     * کوپن فعال و منقضی نشده در کاتالوگ قرار می‌گیرد و بقیه حذف می‌شوند.
+     *
+     * @param coupon وضعیت ذخیره شده کوپن
+     */
+    public void upsert(Coupon coupon) {
+        String key = normalize(coupon.getCode());
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            misses.remove(key);
+            Snapshot current = snapshot;
+            if (current == null) {
+                return; // اولین بارگذاری کوپن را از دیتابیس می‌خواند
+            }
+            snapshot = current.replace(coupon.getId(), inCatalog(coupon) ? coupon : null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * حذف کوپن از کاتالوگ (حذف کوپن یا تغییر usedCount آن)
+     *
+     * جستجوی بعدی کد از دیتابیس انجام می‌شود تا بارگذاری کامل بعدی.
+     *
+     * @param couponId شناسه کوپن
+     */
+    public void evict(Long couponId) {
+        Snapshot current = snapshot;
+        boolean cached = current != null && current.byId.containsKey(couponId);
+        boolean missCached = misses.values().stream()
+            .anyMatch(miss -> miss.coupon != null && couponId.equals(miss.coupon.getId()));
+        if (!cached && !missCached) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            misses.values().removeIf(miss -> miss.coupon != null && couponId.equals(miss.coupon.getId()));
+            if (snapshot != null && snapshot.byId.containsKey(couponId)) {
+                snapshot = snapshot.replace(couponId, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * بارگذاری کامل کاتالوگ از دیتابیس
+     */
+    public void reload() {
+        writeLock.lock();
+        try {
+            load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * آمار کاتالوگ
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coupons", current == null ? 0 : current.byId.size());
+        stats.put("hits", hits.sum());
+        stats.put("negativeHits", negativeHits.sum());
+        stats.put("databaseLookups", databaseLookups.sum());
+        stats.put("negativeEntries", misses.size());
+        stats.put("reloads", reloads.sum());
+        return stats;
+    }
+
+    /**
+     * شکل استاندارد کد کوپن (کدها با حروف بزرگ ذخیره می‌شوند)
+     *
+     * Locale.ROOT تا کد در locale هایی مانند ترکی (i → İ) متفاوت نشود
+     */
+    public static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ==================== متدهای داخلی ====================
+
+    /**
+     * snapshot جاری؛ در صورت گذشتن refreshMillis یک thread آن را دوباره
+     * بارگذاری می‌کند و بقیه تا پایان بارگذاری از snapshot قبلی می‌خوانند
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            writeLock.lock();
+            try {
+                if (snapshot == null) {
+                    load();
+                }
+                return snapshot;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        if (clock.getAsLong() - current.loadedAtMillis >= refreshMillis && writeLock.tryLock()) {
+            try {
+                if (snapshot == current) {
+                    load();
+                }
+            } catch (RuntimeException e) {
+                // تا دوره بعد با داده قبلی ادامه می‌دهیم تا خطای دیتابیس هر درخواست را کند نکند
+                logger.warn("Coupon catalog reload failed, serving previous snapshot: {}", e.getMessage());
+                snapshot = current.reloadedAt(clock.getAsLong());
+            } finally {
+                writeLock.unlock();
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    // فقط با writeLock فراخوانی می‌شود
+    private void load() {
+        long startedAt = clock.getAsLong();
+        List<Coupon> coupons = couponRepository.findCatalogCoupons();
+
+        generation.incrementAndGet();
+        misses.clear();
+        snapshot = new Snapshot(coupons, startedAt);
+        reloads.increment();
+        logger.debug("Coupon catalog loaded: {} coupons", coupons.size());
+    }
+
+    private void rememberMiss(String key, Miss miss) {
+        if (misses.size() >= maxNegativeEntries) {
+            long now = clock.getAsLong();
+            misses.values().removeIf(entry -> entry.expiresAtMillis <= now);
+            int toRemove = misses.size() - maxNegativeEntries + Math.max(1, maxNegativeEntries / EVICTION_DIVISOR);
+            Iterator<String> iterator = misses.keySet().iterator();
+            while (toRemove > 0 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                toRemove--;
+            }
+        }
+        misses.put(key, miss);
+    }
+
+    private static void collectApplicable(MinOrderIndex index, double orderAmount, LocalDateTime now,
+                                          List<Coupon> result) {
+        int eligible = index.eligibleCount(orderAmount);
+        for (int i = 0; i < eligible; i++) {
+            Coupon coupon = index.coupons[i];
+            if (Boolean.TRUE.equals(coupon.getIsActive())
+                    && !coupon.getValidFrom().isAfter(now)
+                    && coupon.getValidUntil().isAfter(now)
+                    && (coupon.getUsageLimit() == null || coupon.getUsedCount() < coupon.getUsageLimit())) {
+                result.add(coupon);
+            }
+        }
+    }
+
+    private static boolean inCatalog(Coupon coupon) {
+        return Boolean.TRUE.equals(coupon.getIsActive()) && coupon.getValidUntil().isAfter(LocalDateTime.now());
+    }
+
+    private static double minOrderAmount(Coupon coupon) {
+        return coupon.getMinOrderAmount() == null ? 0.0 : coupon.getMinOrderAmount();
+    }
+}
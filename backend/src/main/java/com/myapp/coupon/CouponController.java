@@ -1,6 +1,7 @@
 package com.myapp.coupon;
 
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.Coupon;
 import com.myapp.common.utils.JsonUtil;
 import com.sun.net.httpserver.HttpExchange;
@@ -60,11 +61,15 @@ public class CouponController implements HttpHandler {
     /** سرویس منطق کسب‌وکار کوپن‌ها */
     private final CouponService couponService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض - CouponService را ایجاد می‌کند
      */
     public CouponController() {
         this.couponService = new CouponService();
+        registerRoutes();
     }
     
     /**
@@ -74,6 +79,35 @@ public class CouponController implements HttpHandler {
      */
     public CouponController(CouponService couponService) {
         this.couponService = couponService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     */
+    private void registerRoutes() {
+        // GET
+        router.get("/api/coupons/{id:long}", (exchange, match) -> getCouponById(exchange, match.longParam("id")));
+        router.get("/api/coupons/code/{code}", (exchange, match) -> getCouponByCode(exchange, match.param("code")));
+        router.get("/api/coupons/valid", (exchange, match) -> getValidCoupons(exchange));
+        router.get("/api/coupons/restaurant/{restaurantId:long}", (exchange, match) ->
+            getRestaurantCoupons(exchange, match.longParam("restaurantId")));
+        router.get("/api/coupons/global", (exchange, match) -> getGlobalCoupons(exchange));
+        router.get("/api/coupons/applicable", (exchange, match) -> getApplicableCoupons(exchange));
+        router.get("/api/coupons/statistics", (exchange, match) -> getCouponStatistics(exchange));
+        router.get("/api/coupons/expiring", (exchange, match) -> getCouponsExpiringSoon(exchange));
+        
+        // POST
+        router.post("/api/coupons", (exchange, match) -> createCoupon(exchange));
+        router.post("/api/coupons/{id:long}/activate", (exchange, match) ->
+            activateCoupon(exchange, match.longParam("id")));
+        router.post("/api/coupons/{id:long}/deactivate", (exchange, match) ->
+            deactivateCoupon(exchange, match.longParam("id")));
+        router.post("/api/coupons/apply", (exchange, match) -> applyCoupon(exchange));
+        
+        // PUT و DELETE
+        router.put("/api/coupons/{id:long}", (exchange, match) -> updateCoupon(exchange, match.longParam("id")));
+        router.delete("/api/coupons/{id:long}", (exchange, match) -> deleteCoupon(exchange, match.longParam("id")));
     }
     
     /**
@@ -90,21 +124,12 @@ public class CouponController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
         } catch (IllegalArgumentException e) {
             // خطاهای validation (400 Bad Request)
@@ -120,48 +145,6 @@ public class CouponController implements HttpHandler {
     
     // ==================== GET ENDPOINTS ====================
     
-    /**
-     * پردازش تمام GET requests
-     * 
-     * این متد path را بررسی کرده و درخواست را به handler مناسب ارسال می‌کند
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در ورودی/خروجی
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/coupons/\\d+")) {
-            // GET /api/coupons/{id} - دریافت کوپن بر اساس شناسه
-            Long id = extractIdFromPath(path);
-            getCouponById(exchange, id);
-        } else if (path.matches("/api/coupons/code/.+")) {
-            // GET /api/coupons/code/{code} - دریافت کوپن بر اساس کد
-            String code = extractCodeFromPath(path);
-            getCouponByCode(exchange, code);
-        } else if (path.equals("/api/coupons/valid")) {
-            // GET /api/coupons/valid - دریافت تمام کوپن‌های معتبر
-            getValidCoupons(exchange);
-        } else if (path.matches("/api/coupons/restaurant/\\d+")) {
-            // GET /api/coupons/restaurant/{id} - دریافت کوپن‌های رستوران
-            Long restaurantId = extractIdFromPath(path, "/api/coupons/restaurant/");
-            getRestaurantCoupons(exchange, restaurantId);
-        } else if (path.equals("/api/coupons/global")) {
-            // GET /api/coupons/global - دریافت کوپن‌های سراسری
-            getGlobalCoupons(exchange);
-        } else if (path.equals("/api/coupons/applicable")) {
-            // GET /api/coupons/applicable - دریافت کوپن‌های قابل اعمال
-            getApplicableCoupons(exchange);
-        } else if (path.equals("/api/coupons/statistics")) {
-            // GET /api/coupons/statistics - دریافت آمار کوپن‌ها
-            getCouponStatistics(exchange);
-        } else if (path.equals("/api/coupons/expiring")) {
-            // GET /api/coupons/expiring - دریافت کوپن‌های نزدیک به انقضا
-            getCouponsExpiringSoon(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت کوپن بر اساس شناسه
      * 
@@ -298,33 +281,6 @@ public class CouponController implements HttpHandler {
     
     // ==================== POST ENDPOINTS ====================
     
-    /**
-     * پردازش تمام POST requests
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در ورودی/خروجی
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/coupons")) {
-            // POST /api/coupons - ایجاد کوپن جدید
-            createCoupon(exchange);
-        } else if (path.matches("/api/coupons/\\d+/activate")) {
-            // POST /api/coupons/{id}/activate - فعال‌سازی کوپن
-            Long id = extractIdFromPath(path, "/api/coupons/", "/activate");
-            activateCoupon(exchange, id);
-        } else if (path.matches("/api/coupons/\\d+/deactivate")) {
-            // POST /api/coupons/{id}/deactivate - غیرفعال‌سازی کوپن
-            Long id = extractIdFromPath(path, "/api/coupons/", "/deactivate");
-            deactivateCoupon(exchange, id);
-        } else if (path.equals("/api/coupons/apply")) {
-            // POST /api/coupons/apply - اعمال کوپن به سفارش
-            applyCoupon(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * ایجاد کوپن جدید
      * 
@@ -483,23 +439,6 @@ public class CouponController implements HttpHandler {
     
     // ==================== PUT ENDPOINTS ====================
     
-    /**
-     * پردازش تمام PUT requests
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در ورودی/خروجی
-     */
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/coupons/\\d+")) {
-            // PUT /api/coupons/{id} - به‌روزرسانی کوپن
-            Long id = extractIdFromPath(path);
-            updateCoupon(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * به‌روزرسانی اطلاعات کوپن
      * 
@@ -542,23 +481,6 @@ public class CouponController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    /**
-     * پردازش تمام DELETE requests
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در ورودی/خروجی
-     */
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/coupons/\\d+")) {
-            // DELETE /api/coupons/{id} - حذف کوپن
-            Long id = extractIdFromPath(path);
-            deleteCoupon(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * حذف کوپن
      * 
@@ -591,54 +513,6 @@ public class CouponController implements HttpHandler {
         return JsonUtil.fromJson(requestBody, Map.class);
     }
     
-    /**
-     * استخراج شناسه از انتهای path
-     * 
-     * مثال: "/api/coupons/123" -> 123
-     * 
-     * @param path مسیر URL
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[parts.length - 1]);
-    }
-    
-    /**
-     * استخراج شناسه از path با prefix مشخص
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند مسیر
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix) {
-        String idStr = path.substring(prefix.length());
-        return Long.parseLong(idStr);
-    }
-    
-    /**
-     * استخراج شناسه از path با prefix و suffix
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند مسیر
-     * @param suffix پسوند مسیر
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        String idStr = path.substring(prefix.length(), path.length() - suffix.length());
-        return Long.parseLong(idStr);
-    }
-    
-    /**
-     * استخراج کد کوپن از path
-     * 
-     * @param path مسیر URL
-     * @return کد کوپن استخراج شده
-     */
-    private String extractCodeFromPath(String path) {
-        return path.substring("/api/coupons/code/".length());
-    }
-    
     /**
      * پارس کردن رشته تاریخ و زمان به LocalDateTime
      * 
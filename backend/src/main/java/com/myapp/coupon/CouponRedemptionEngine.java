@@ -0,0 +1,240 @@
+package com.myapp.coupon;
+
+import com.myapp.common.models.Coupon;
+import com.myapp.common.models.CouponUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * موتور استفاده اتمیک از کوپن
+ *
+ * جایگزین الگوی خواندن کوپن، {@code coupon.use()} و update کامل آن است که در
+ * درخواست‌های همزمان (مثلاً کد تخفیف یک کمپین) افزایش‌ها را از دست می‌داد و
+ * از usageLimit عبور می‌کرد. مراحل استفاده:
+ *
+ * 1. رزرو ظرفیت کلی با یک UPDATE شرطی ({@code used_count < usage_limit})؛
+ *    اعتبارسنجی وضعیت، بازه زمانی و ظرفیت در همان دستور انجام می‌شود
+ * 2. ثبت CouponUsage با گرفتن یکی از سهمیه‌های کاربر؛ قید یکتای
+ *    (کوپن، کاربر، سهمیه) محدودیت per-user را دقیق نگه می‌دارد
+ * 3. اگر مرحله 2 شکست بخورد، ظرفیت رزرو شده در مرحله 1 برگردانده می‌شود
+ *
+ * هیچ قفلی بین مراحل نگه داشته نمی‌شود؛ قفل ردیف کوپن فقط در طول یک
+ * UPDATE کوتاه وجود دارد. وقتی ظرفیت کوپن تمام شود، این نود برای مدت کوتاهی
+ * (exhaustedTtlMillis) درخواست‌های همان کوپن را بدون رفتن به دیتابیس رد می‌کند
+ * تا موج درخواست‌های بعد از اتمام ظرفیت به ردیف داغ نرسد. برگرداندن استفاده
+ * روی همین نود این حالت را فوراً پاک می‌کند.
+ */
+public class CouponRedemptionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponRedemptionEngine.class);
+
+    /** مدت پیش‌فرض رد سریع کوپن تمام شده */
+    public static final long DEFAULT_EXHAUSTED_TTL_MILLIS = 1000L;
+
+    /**
+     * نتیجه تلاش برای استفاده از کوپن
+     */
+    public enum Outcome {
+        REDEEMED(null),
+        NOT_FOUND("Coupon not found"),
+        INACTIVE("Coupon is not active"),
+        NOT_STARTED("Coupon is not yet valid"),
+        EXPIRED("Coupon has expired"),
+        LIMIT_REACHED("Coupon usage limit exceeded"),
+        USER_LIMIT_REACHED("User has exceeded the per-user limit for this coupon");
+
+        private final String message;
+
+        Outcome(String message) {
+            this.message = message;
+        }
+
+        /** پیام خطا (برای REDEEMED برابر null) */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final CouponRepository couponRepository;
+    private final CouponUsageRepository couponUsageRepository;
+    private final long exhaustedTtlMillis;
+    private final LongSupplier clock;
+
+    // couponId -> زمانی که تا آن درخواست‌ها بدون دیتابیس رد می‌شوند
+    private final Map<Long, Long> exhaustedUntil = new ConcurrentHashMap<>();
+
+    private final LongAdder redeemed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder fastRejected = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    public CouponRedemptionEngine(CouponRepository couponRepository, CouponUsageRepository couponUsageRepository) {
+        this(couponRepository, couponUsageRepository,
+             Long.getLong("coupon.exhausted.ttl.millis", DEFAULT_EXHAUSTED_TTL_MILLIS), System::currentTimeMillis);
+    }
+
+    /**
+     * @param exhaustedTtlMillis مدت رد سریع بعد از اتمام ظرفیت (0 برای غیرفعال)
+     * @param clock ساعت بر حسب میلی‌ثانیه (برای تست)
+     */
+    public CouponRedemptionEngine(CouponRepository couponRepository, CouponUsageRepository couponUsageRepository,
+                                  long exhaustedTtlMillis, LongSupplier clock) {
+        this.couponRepository = couponRepository;
+        this.couponUsageRepository = couponUsageRepository;
+        this.exhaustedTtlMillis = exhaustedTtlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * رزرو اتمیک یک استفاده از ظرفیت کلی کوپن (بدون ثبت CouponUsage)
+     *
+     * @param couponId شناسه کوپن
+     * @return REDEEMED یا دلیل رد
+     */
+    public Outcome claim(Long couponId) {
+        Long until = exhaustedUntil.get(couponId);
+        if (until != null) {
+            if (clock.getAsLong() < until) {
+                fastRejected.increment();
+                return Outcome.LIMIT_REACHED;
+            }
+            exhaustedUntil.remove(couponId, until);
+        }
+
+        if (couponRepository.claimUsage(couponId)) {
+            redeemed.increment();
+            return Outcome.REDEEMED;
+        }
+
+        rejected.increment();
+        Outcome reason = diagnose(couponId);
+        if (reason == Outcome.LIMIT_REACHED && exhaustedTtlMillis > 0) {
+            exhaustedUntil.put(couponId, clock.getAsLong() + exhaustedTtlMillis);
+        }
+        return reason;
+    }
+
+    /**
+     * استفاده کامل از کوپن: رزرو ظرفیت کلی و ثبت استفاده در سهمیه کاربر
+     *
+     * @param coupon کوپن (برای perUserLimit و ارتباط CouponUsage)
+     * @return نتیجه؛ در حالت موفق شامل CouponUsage ذخیره شده
+     */
+    public Redemption redeem(Coupon coupon, Long userId, Long orderId, Double discountAmount, Double orderAmount) {
+        Outcome outcome = claim(coupon.getId());
+        if (outcome != Outcome.REDEEMED) {
+            return new Redemption(outcome, null);
+        }
+
+        CouponUsage usage = new CouponUsage(coupon, userId, orderId, discountAmount, orderAmount);
+        boolean saved;
+        try {
+            saved = couponUsageRepository.saveWithinUserLimit(usage, coupon.getPerUserLimit());
+        } catch (RuntimeException e) {
+            release(coupon.getId());
+            throw e;
+        }
+        if (!saved) {
+            release(coupon.getId());
+            redeemed.decrement();
+            rejected.increment();
+            return new Redemption(Outcome.USER_LIMIT_REACHED, null);
+        }
+        return new Redemption(Outcome.REDEEMED, usage);
+    }
+
+    /**
+     * برگرداندن یک استفاده به ظرفیت کلی کوپن
+     *
+     * @return true اگر کوپن وجود داشت
+     */
+    public boolean release(Long couponId) {
+        exhaustedUntil.remove(couponId);
+        boolean found = couponRepository.decrementUsageCount(couponId);
+        if (found) {
+            released.increment();
+        }
+        return found;
+    }
+
+    /**
+     * برگرداندن استفاده ثبت شده برای یک سفارش (سهمیه کاربر و ظرفیت کلی)
+     *
+     * @return استفاده برگشت داده شده یا empty اگر سفارش استفاده فعالی نداشت
+     */
+    public Optional<CouponUsage> releaseOrder(Long orderId) {
+        Optional<CouponUsage> usage = couponUsageRepository.revertByOrderId(orderId);
+        usage.ifPresent(reverted -> release(reverted.getCoupon().getId()));
+        return usage;
+    }
+
+    /**
+     * آمار موتور استفاده
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("redeemed", redeemed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("fastRejected", fastRejected.sum());
+        stats.put("released", released.sum());
+        stats.put("exhaustedCoupons", exhaustedUntil.size());
+        return stats;
+    }
+
+    /**
+     * تشخیص دلیل شکست UPDATE شرطی (فقط در مسیر رد اجرا می‌شود)
+     */
+    private Outcome diagnose(Long couponId) {
+        Optional<Coupon> couponOpt = couponRepository.findById(couponId);
+        if (couponOpt.isEmpty()) {
+            return Outcome.NOT_FOUND;
+        }
+        Coupon coupon = couponOpt.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (!Boolean.TRUE.equals(coupon.getIsActive())) {
+            return Outcome.INACTIVE;
+        }
+        if (!now.isAfter(coupon.getValidFrom())) {
+            return Outcome.NOT_STARTED;
+        }
+        if (!now.isBefore(coupon.getValidUntil())) {
+            return Outcome.EXPIRED;
+        }
+        logger.debug("Coupon {} reached its usage limit ({})", couponId, coupon.getUsageLimit());
+        return Outcome.LIMIT_REACHED;
+    }
+
+    /**
+     * نتیجه {@link #redeem}
+     */
+    public static final class Redemption {
+
+        private final Outcome outcome;
+        private final CouponUsage usage;
+
+        private Redemption(Outcome outcome, CouponUsage usage) {
+            this.outcome = outcome;
+            this.usage = usage;
+        }
+
+        public boolean isRedeemed() {
+            return outcome == Outcome.REDEEMED;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public CouponUsage getUsage() {
+            return usage;
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.myapp.coupon;
 
 import com.myapp.common.models.Coupon;
 import com.myapp.common.models.Restaurant;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
@@ -44,8 +48,10 @@ import java.util.Optional;
  * - findAll(): تمام کوپن‌ها
  * - countAll(): تعداد کل کوپن‌ها
  * - countActive(): تعداد کوپن‌های فعال
+ * - findCatalogCoupons(): کوپن‌های فعال و منقضی نشده برای CouponCatalog
  * 
  * === مدیریت استفاده ===
+ * - claimUsage(): رزرو اتمیک یک استفاده (UPDATE شرطی روی used_count < usage_limit)
  * - incrementUsageCount(): افزایش تعداد استفاده
  * - decrementUsageCount(): کاهش تعداد استفاده (برای استرداد)
  * 
@@ -68,6 +74,26 @@ public class CouponRepository {
     /** Logger برای ثبت عملیات و خطاها */
     private static final Logger logger = LoggerFactory.getLogger(CouponRepository.class);
     
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+    
+    public CouponRepository() {
+        this.sessionFactory = null;
+    }
+    
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها و بنچمارک‌ها)
+     * 
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public CouponRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+    
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+    
     // ==================== BASIC CRUD OPERATIONS ====================
     
     /**
@@ -79,7 +105,7 @@ public class CouponRepository {
      */
     public Coupon save(Coupon coupon) {
         Transaction tx = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             session.save(coupon);
             tx.commit();
@@ -103,7 +129,7 @@ public class CouponRepository {
      */
     public Coupon update(Coupon coupon) {
         Transaction tx = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             coupon.setUpdatedAt(LocalDateTime.now());
             session.update(coupon);
@@ -125,7 +151,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public Optional<Coupon> findById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Coupon coupon = session.get(Coupon.class, id);
             return Optional.ofNullable(coupon);
         } catch (Exception e) {
@@ -144,7 +170,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public Optional<Coupon> findByCode(String code) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.code = :code", Coupon.class);
             query.setParameter("code", code);
@@ -165,7 +191,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در بررسی
      */
     public boolean existsByCode(String code) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(c) FROM Coupon c WHERE c.code = :code", Long.class);
             query.setParameter("code", code);
@@ -185,7 +211,7 @@ public class CouponRepository {
      */
     public boolean delete(Long id) {
         Transaction tx = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             Coupon coupon = session.get(Coupon.class, id);
             if (coupon != null) {
@@ -214,7 +240,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findActiveCoupons() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.isActive = true ORDER BY c.createdAt DESC", Coupon.class);
             return query.list();
@@ -236,7 +262,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findValidCoupons() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime now = LocalDateTime.now();
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.isActive = true " +
@@ -259,7 +285,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findByRestaurant(Restaurant restaurant) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query;
             if (restaurant == null) {
                 // کوپن‌های سراسری
@@ -286,7 +312,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findByRestaurantId(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query;
             if (restaurantId == null) {
                 // کوپن‌های سراسری
@@ -314,7 +340,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findGlobalCoupons() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.restaurant IS NULL ORDER BY c.createdAt DESC", Coupon.class);
             return query.list();
@@ -333,7 +359,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findExpiredCoupons() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime now = LocalDateTime.now();
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.validUntil <= :now ORDER BY c.validUntil DESC", Coupon.class);
@@ -356,7 +382,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findCouponsExpiringSoon(int days) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime future = now.plusDays(days);
             Query<Coupon> query = session.createQuery(
@@ -380,7 +406,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findByType(Coupon.CouponType type) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.type = :type ORDER BY c.createdAt DESC", Coupon.class);
             query.setParameter("type", type);
@@ -401,7 +427,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findByCreatedBy(Long createdBy) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.createdBy = :createdBy ORDER BY c.createdAt DESC", Coupon.class);
             query.setParameter("createdBy", createdBy);
@@ -415,20 +441,17 @@ public class CouponRepository {
     /**
      * دریافت کوپن‌ها با صفحه‌بندی
      * 
-     * برای بهبود عملکرد در صفحات مدیریت با تعداد زیاد کوپن
+     * برای بهبود عملکرد در صفحات مدیریت با تعداد زیاد کوپن؛ seek روی (createdAt, id)
      * 
-     * @param page شماره صفحه (شروع از 0)
-     * @param size تعداد رکورد در هر صفحه
-     * @return لیست کوپن‌ها با صفحه‌بندی
+     * @param request درخواست صفحه (cursor صفحه قبل و limit)
+     * @return صفحه کوپن‌ها همراه با cursor صفحه بعد
      * @throws RuntimeException در صورت خطا در جستجو
      */
-    public List<Coupon> findWithPagination(int page, int size) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            Query<Coupon> query = session.createQuery(
-                "FROM Coupon c ORDER BY c.createdAt DESC", Coupon.class);
-            query.setFirstResult(page * size);
-            query.setMaxResults(size);
-            return query.list();
+    public CursorPage<Coupon> findWithPagination(CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            return KeysetQuery.from(Coupon.class, "Coupon c")
+                .orderBy("c.createdAt", Coupon::getCreatedAt, "c.id", Coupon::getId)
+                .fetch(session, request);
         } catch (Exception e) {
             logger.error("Error finding coupons with pagination: {}", e.getMessage());
             throw new RuntimeException("Failed to find coupons with pagination", e);
@@ -444,7 +467,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در شمارش
      */
     public Long countAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery("SELECT COUNT(c) FROM Coupon c", Long.class);
             return query.uniqueResult();
         } catch (Exception e) {
@@ -462,7 +485,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در شمارش
      */
     public Long countActive() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(c) FROM Coupon c WHERE c.isActive = true", Long.class);
             return query.uniqueResult();
@@ -481,7 +504,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c ORDER BY c.createdAt DESC", Coupon.class);
             return query.list();
@@ -491,6 +514,29 @@ public class CouponRepository {
         }
     }
     
+    /**
+     * کوپن‌های فعال و منقضی نشده برای بارگذاری کاتالوگ درون حافظه‌ای
+     * 
+     * کوپن‌هایی که هنوز شروع نشده‌اند هم برگردانده می‌شوند تا کاتالوگ بدون
+     * بارگذاری دوباره در زمان شروع اعتبارشان آن‌ها را داشته باشد. رستوران
+     * همراه کوپن خوانده می‌شود چون کوپن‌ها بعد از بسته شدن session استفاده می‌شوند.
+     * 
+     * @return لیست کوپن‌های فعال و منقضی نشده
+     * @throws RuntimeException در صورت خطا در جستجو
+     */
+    public List<Coupon> findCatalogCoupons() {
+        try (Session session = sessionFactory().openSession()) {
+            Query<Coupon> query = session.createQuery(
+                "FROM Coupon c LEFT JOIN FETCH c.restaurant " +
+                "WHERE c.isActive = true AND c.validUntil > :now", Coupon.class);
+            query.setParameter("now", LocalDateTime.now());
+            return query.list();
+        } catch (Exception e) {
+            logger.error("Error finding catalog coupons: {}", e.getMessage());
+            throw new RuntimeException("Failed to find catalog coupons", e);
+        }
+    }
+    
     // ==================== BUSINESS LOGIC QUERIES ====================
     
     /**
@@ -509,7 +555,7 @@ public class CouponRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Coupon> findApplicableCoupons(Double orderAmount, Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             LocalDateTime now = LocalDateTime.now();
             Query<Coupon> query = session.createQuery(
                 "FROM Coupon c WHERE c.isActive = true " +
@@ -528,6 +574,39 @@ public class CouponRepository {
         }
     }
     
+    /**
+     * رزرو اتمیک یک استفاده از کوپن
+     * 
+     * اعتبارسنجی و افزایش شمارنده در یک UPDATE شرطی انجام می‌شود، پس برخلاف
+     * خواندن کوپن و update کامل آن، درخواست‌های همزمان افزایش یکدیگر را از بین
+     * نمی‌برند و used_count هیچ‌وقت از usage_limit بیشتر نمی‌شود. قفل ردیف فقط
+     * در طول همین یک دستور نگه داشته می‌شود.
+     * 
+     * @param couponId شناسه کوپن
+     * @return true اگر کوپن فعال، در بازه اعتبار و دارای ظرفیت بود و یک استفاده رزرو شد
+     * @throws RuntimeException در صورت خطا در به‌روزرسانی
+     */
+    public boolean claimUsage(Long couponId) {
+        Transaction tx = null;
+        try (Session session = sessionFactory().openSession()) {
+            tx = session.beginTransaction();
+            LocalDateTime now = LocalDateTime.now();
+            Query query = session.createQuery(
+                "UPDATE Coupon c SET c.usedCount = c.usedCount + 1, c.updatedAt = :now " +
+                "WHERE c.id = :id AND c.isActive = true AND c.validFrom < :now AND c.validUntil > :now " +
+                "AND (c.usageLimit IS NULL OR c.usedCount < c.usageLimit)");
+            query.setParameter("now", now);
+            query.setParameter("id", couponId);
+            int updated = query.executeUpdate();
+            tx.commit();
+            return updated == 1;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            logger.error("Error claiming usage for coupon {}: {}", couponId, e.getMessage());
+            throw new RuntimeException("Failed to claim coupon usage", e);
+        }
+    }
+    
     /**
      * افزایش تعداد استفاده کوپن
      * 
@@ -539,7 +618,7 @@ public class CouponRepository {
      */
     public void incrementUsageCount(Long couponId) {
         Transaction tx = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             Query query = session.createQuery(
                 "UPDATE Coupon c SET c.usedCount = c.usedCount + 1, c.updatedAt = :now WHERE c.id = :id");
@@ -561,19 +640,21 @@ public class CouponRepository {
      * تعداد استفاده نمی‌تواند کمتر از 0 شود
      * 
      * @param couponId شناسه کوپن
+     * @return true اگر کوپن وجود داشت
      * @throws RuntimeException در صورت خطا در به‌روزرسانی
      */
-    public void decrementUsageCount(Long couponId) {
+    public boolean decrementUsageCount(Long couponId) {
         Transaction tx = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             tx = session.beginTransaction();
             Query query = session.createQuery(
                 "UPDATE Coupon c SET c.usedCount = CASE WHEN c.usedCount > 0 THEN c.usedCount - 1 ELSE 0 END, " +
                 "c.updatedAt = :now WHERE c.id = :id");
             query.setParameter("now", LocalDateTime.now());
             query.setParameter("id", couponId);
-            query.executeUpdate();
+            int updated = query.executeUpdate();
             tx.commit();
+            return updated > 0;
         } catch (Exception e) {
             if (tx != null) tx.rollback();
             logger.error("Error decrementing usage count for coupon {}: {}", couponId, e.getMessage());
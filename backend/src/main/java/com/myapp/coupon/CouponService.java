@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -30,6 +31,10 @@ import java.util.Optional;
  * - useCoupon(): استفاده از کوپن (افزایش شمارنده)
  * - useCouponWithTracking(): استفاده با ردیابی کامل
  * - revertCouponUsage(): برگشت استفاده (برای لغو سفارش)
+ * - revertCouponUsageForOrder(): برگشت استفاده ثبت شده یک سفارش
+ * 
+ * جستجوی کد در applyCoupon و getApplicableCoupons در صورت وجود CouponCatalog
+ * از حافظه پاسخ داده می‌شوند و تغییرات کوپن‌ها در کاتالوگ اعمال می‌شوند.
  * 
  * === مدیریت کوپن ===
  * - getCoupon(): دریافت کوپن با ID
@@ -78,6 +83,10 @@ public class CouponService {
     private final RestaurantRepository restaurantRepository;
     /** Repository لایه دسترسی داده استفاده از کوپن‌ها */
     private final CouponUsageRepository couponUsageRepository;
+    /** موتور استفاده اتمیک از کوپن */
+    private final CouponRedemptionEngine redemptionEngine;
+    /** کاتالوگ درون حافظه‌ای کوپن‌ها (null یعنی جستجو مستقیم از repository) */
+    private final CouponCatalog catalog;
     
     /**
      * سازنده پیش‌فرض - Repository های مورد نیاز را ایجاد می‌کند
@@ -87,6 +96,8 @@ public class CouponService {
         this.authRepository = new AuthRepository();
         this.restaurantRepository = new RestaurantRepository();
         this.couponUsageRepository = new CouponUsageRepository();
+        this.redemptionEngine = new CouponRedemptionEngine(couponRepository, couponUsageRepository);
+        this.catalog = new CouponCatalog(couponRepository);
     }
     
     /**
@@ -99,10 +110,23 @@ public class CouponService {
      */
     public CouponService(CouponRepository couponRepository, AuthRepository authRepository, 
                         RestaurantRepository restaurantRepository, CouponUsageRepository couponUsageRepository) {
+        this(couponRepository, authRepository, restaurantRepository, couponUsageRepository, null);
+    }
+    
+    /**
+     * سازنده برای تزریق وابستگی‌ها به همراه کاتالوگ کوپن‌ها
+     * 
+     * @param catalog کاتالوگ درون حافظه‌ای (null برای جستجوی مستقیم از repository)
+     */
+    public CouponService(CouponRepository couponRepository, AuthRepository authRepository, 
+                        RestaurantRepository restaurantRepository, CouponUsageRepository couponUsageRepository,
+                        CouponCatalog catalog) {
         this.couponRepository = couponRepository;
         this.authRepository = authRepository;
         this.restaurantRepository = restaurantRepository;
         this.couponUsageRepository = couponUsageRepository;
+        this.redemptionEngine = new CouponRedemptionEngine(couponRepository, couponUsageRepository);
+        this.catalog = catalog;
     }
     
     // ==================== COUPON CREATION ====================
@@ -152,6 +176,7 @@ public class CouponService {
         }
         
         Coupon savedCoupon = couponRepository.save(coupon);
+        catalogUpsert(savedCoupon);
         logger.info("Created percentage coupon with ID: {}", savedCoupon.getId());
         return savedCoupon;
     }
@@ -201,6 +226,7 @@ public class CouponService {
         }
         
         Coupon savedCoupon = couponRepository.save(coupon);
+        catalogUpsert(savedCoupon);
         logger.info("Created fixed amount coupon with ID: {}", savedCoupon.getId());
         return savedCoupon;
     }
@@ -246,7 +272,9 @@ public class CouponService {
         // اعمال تنظیمات پیشرفته
         coupon.updateInfo(description, minOrderAmount, maxDiscountAmount, usageLimit, perUserLimit, validUntil);
         
-        return couponRepository.update(coupon);
+        Coupon updated = couponRepository.update(coupon);
+        catalogUpsert(updated);
+        return updated;
     }
     
     // ==================== COUPON VALIDATION AND APPLICATION ====================
@@ -282,8 +310,10 @@ public class CouponService {
             throw new IllegalArgumentException("User ID cannot be null");
         }
         
-        // جستجوی کوپن با کد (تبدیل به حروف بزرگ)
-        Optional<Coupon> couponOpt = couponRepository.findByCode(couponCode.trim().toUpperCase());
+        // جستجوی کوپن با کد (تبدیل به حروف بزرگ) - از کاتالوگ در صورت وجود
+        Optional<Coupon> couponOpt = catalog != null
+            ? catalog.findByCode(couponCode)
+            : couponRepository.findByCode(CouponCatalog.normalize(couponCode));
         if (couponOpt.isEmpty()) {
             return CouponApplicationResult.failed("Coupon code not found");
         }
@@ -357,30 +387,34 @@ public class CouponService {
     /**
      * استفاده از کوپن (افزایش شمارنده استفاده)
      * 
-     * این متد زمانی فراخوانی می‌شود که کوپن در سفارش اعمال شده است
+     * این متد زمانی فراخوانی می‌شود که کوپن در سفارش اعمال شده است.
+     * افزایش شمارنده با یک UPDATE شرطی اتمیک انجام می‌شود، پس درخواست‌های
+     * همزمان از usageLimit عبور نمی‌کنند.
      * 
      * @param couponId شناسه کوپن
      * @throws NotFoundException در صورت عدم وجود کوپن
+     * @throws IllegalStateException اگر کوپن معتبر نباشد یا ظرفیت آن تمام شده باشد
      */
     public void useCoupon(Long couponId) {
         logger.info("Using coupon with ID: {}", couponId);
         
-        Optional<Coupon> couponOpt = couponRepository.findById(couponId);
-        if (couponOpt.isEmpty()) {
+        CouponRedemptionEngine.Outcome outcome = redemptionEngine.claim(couponId);
+        if (outcome == CouponRedemptionEngine.Outcome.NOT_FOUND) {
             throw new NotFoundException("Coupon", couponId);
         }
+        if (outcome != CouponRedemptionEngine.Outcome.REDEEMED) {
+            catalogEvict(couponId);
+            throw new IllegalStateException(outcome.getMessage());
+        }
         
-        Coupon coupon = couponOpt.get();
-        coupon.use(); // افزایش شمارنده استفاده
-        couponRepository.update(coupon);
-        
-        logger.info("Used coupon {}, new usage count: {}", couponId, coupon.getUsedCount());
+        logger.info("Used coupon {}", couponId);
     }
     
     /**
      * استفاده از کوپن با ردیابی کامل (روش توصیه شده)
      * 
-     * این متد علاوه بر افزایش شمارنده، رکورد کاملی از استفاده ایجاد می‌کند
+     * این متد علاوه بر افزایش شمارنده، رکورد کاملی از استفاده ایجاد می‌کند.
+     * محدودیت کلی و محدودیت هر کاربر هر دو در دیتابیس به صورت اتمیک اعمال می‌شوند.
      * 
      * @param couponId شناسه کوپن
      * @param userId شناسه کاربر
@@ -388,18 +422,26 @@ public class CouponService {
      * @param discountAmount مبلغ تخفیف اعمال شده
      * @param orderAmount مبلغ کل سفارش
      * @return رکورد استفاده از کوپن
+     * @throws NotFoundException در صورت عدم وجود کوپن
+     * @throws IllegalStateException اگر کوپن معتبر نباشد یا ظرفیت کلی یا کاربر تمام شده باشد
      */
     public CouponUsage useCouponWithTracking(Long couponId, Long userId, Long orderId, Double discountAmount, Double orderAmount) {
         logger.info("Using coupon with tracking: couponId={}, userId={}, orderId={}", couponId, userId, orderId);
         
-        // استفاده از کوپن
-        useCoupon(couponId);
-        
-        // ایجاد رکورد استفاده
         Coupon coupon = getCoupon(couponId);
-        CouponUsage usage = new CouponUsage(coupon, userId, orderId, discountAmount, orderAmount);
+        CouponRedemptionEngine.Redemption redemption =
+            redemptionEngine.redeem(coupon, userId, orderId, discountAmount, orderAmount);
+        if (redemption.getOutcome() == CouponRedemptionEngine.Outcome.NOT_FOUND) {
+            throw new NotFoundException("Coupon", couponId);
+        }
+        if (!redemption.isRedeemed()) {
+            if (redemption.getOutcome() != CouponRedemptionEngine.Outcome.USER_LIMIT_REACHED) {
+                catalogEvict(couponId);
+            }
+            throw new IllegalStateException(redemption.getOutcome().getMessage());
+        }
         
-        return couponUsageRepository.save(usage);
+        return redemption.getUsage();
     }
     
     /**
@@ -411,16 +453,45 @@ public class CouponService {
     public void revertCouponUsage(Long couponId) {
         logger.info("Reverting coupon usage for ID: {}", couponId);
         
-        Optional<Coupon> couponOpt = couponRepository.findById(couponId);
-        if (couponOpt.isEmpty()) {
+        if (!redemptionEngine.release(couponId)) {
             throw new NotFoundException("Coupon", couponId);
         }
+        catalogEvict(couponId);
         
-        Coupon coupon = couponOpt.get();
-        coupon.revertUsage(); // کاهش شمارنده استفاده
-        couponRepository.update(coupon);
+        logger.info("Reverted coupon usage {}", couponId);
+    }
+    
+    /**
+     * برگشت استفاده ثبت شده برای یک سفارش
+     * 
+     * هم رکورد CouponUsage برگشت می‌خورد (سهمیه کاربر آزاد می‌شود) و هم
+     * شمارنده کلی کوپن کاهش می‌یابد.
+     * 
+     * @param orderId شناسه سفارش
+     * @return رکورد استفاده برگشت داده شده
+     * @throws NotFoundException اگر سفارش استفاده فعالی از کوپن نداشته باشد
+     */
+    public CouponUsage revertCouponUsageForOrder(Long orderId) {
+        logger.info("Reverting coupon usage for order: {}", orderId);
         
-        logger.info("Reverted coupon usage {}, new usage count: {}", couponId, coupon.getUsedCount());
+        CouponUsage usage = redemptionEngine.releaseOrder(orderId)
+                .orElseThrow(() -> new NotFoundException("Coupon usage for order", orderId));
+        catalogEvict(usage.getCoupon().getId());
+        return usage;
+    }
+    
+    /**
+     * آمار موتور استفاده از کوپن (استفاده‌ها، ردها و ردهای سریع)
+     */
+    public Map<String, Object> getRedemptionStats() {
+        return redemptionEngine.getStats();
+    }
+    
+    /**
+     * آمار کاتالوگ کوپن‌ها (hit، کش منفی و کوئری‌های دیتابیس)
+     */
+    public Map<String, Object> getCatalogStats() {
+        return catalog != null ? catalog.getStats() : Map.of();
     }
     
     // ==================== COUPON MANAGEMENT ====================
@@ -457,7 +528,7 @@ public class CouponService {
             throw new IllegalArgumentException("Coupon code cannot be empty");
         }
         
-        return couponRepository.findByCode(code.trim().toUpperCase())
+        return couponRepository.findByCode(CouponCatalog.normalize(code))
             .orElseThrow(() -> new NotFoundException("Coupon with code", code));
     }
     
@@ -483,6 +554,9 @@ public class CouponService {
             throw new IllegalArgumentException("Order amount must be positive");
         }
         
+        if (catalog != null) {
+            return catalog.findApplicable(orderAmount, restaurantId);
+        }
         return couponRepository.findApplicableCoupons(orderAmount, restaurantId);
     }
     
@@ -561,7 +635,9 @@ public class CouponService {
         // به‌روزرسانی اطلاعات
         coupon.updateInfo(description, minOrderAmount, maxDiscountAmount, usageLimit, perUserLimit, validUntil);
         
-        return couponRepository.update(coupon);
+        Coupon updated = couponRepository.update(coupon);
+        catalogUpsert(updated);
+        return updated;
     }
     
     /**
@@ -577,7 +653,7 @@ public class CouponService {
         validateUpdatePermissions(coupon, activatedBy);
         
         coupon.activate();
-        couponRepository.update(coupon);
+        catalogUpsert(couponRepository.update(coupon));
     }
     
     /**
@@ -593,7 +669,7 @@ public class CouponService {
         validateUpdatePermissions(coupon, deactivatedBy);
         
         coupon.deactivate();
-        couponRepository.update(coupon);
+        catalogUpsert(couponRepository.update(coupon));
     }
     
     /**
@@ -617,6 +693,7 @@ public class CouponService {
         }
         
         couponRepository.delete(couponId);
+        catalogEvict(couponId);
     }
     
     /**
@@ -761,6 +838,24 @@ public class CouponService {
         }
     }
     
+    /**
+     * اعمال وضعیت ذخیره شده کوپن در کاتالوگ
+     */
+    private void catalogUpsert(Coupon coupon) {
+        if (catalog != null && coupon != null) {
+            catalog.upsert(coupon);
+        }
+    }
+    
+    /**
+     * حذف کوپن از کاتالوگ تا جستجوی بعدی وضعیت تازه را از دیتابیس بخواند
+     */
+    private void catalogEvict(Long couponId) {
+        if (catalog != null) {
+            catalog.evict(couponId);
+        }
+    }
+    
     // ==================== RESULT CLASSES ====================
     
     /**
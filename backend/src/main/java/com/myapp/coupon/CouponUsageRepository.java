@@ -4,6 +4,8 @@ import com.myapp.common.models.CouponUsage;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.query.Query;
 
 import java.util.List;
@@ -17,6 +19,8 @@ import java.util.Optional;
  * === عملیات CRUD پایه ===
  * - save(): ذخیره استفاده جدید از کوپن
  * - update(): به‌روزرسانی استفاده موجود
+ * - saveWithinUserLimit(): ذخیره با گرفتن سهمیه کاربر (محدودیت per-user دقیق)
+ * - revertByOrderId(): بازگشت استفاده سفارش و آزاد کردن سهمیه
  * - findById(): جستجو بر اساس شناسه
  * - delete(): حذف رکورد استفاده
  * - deleteAll(): پاکسازی کامل (تست)
@@ -103,6 +107,111 @@ public class CouponUsageRepository {
         }
     }
     
+    /**
+     * ذخیره استفاده جدید در صورتی که کاربر هنوز سهمیه آزاد داشته باشد
+     * 
+     * کوچک‌ترین شماره سهمیه آزاد (1 تا perUserLimit) به استفاده داده می‌شود و
+     * قید یکتای (coupon_id, user_id, user_slot) از گرفتن یک سهمیه توسط دو
+     * درخواست همزمان جلوگیری می‌کند؛ درخواست بازنده با سهمیه بعدی دوباره
+     * امتحان می‌کند. به این ترتیب محدودیت per-user بدون قفل روی ردیف کوپن
+     * و بدون شمارش جداگانه (که بین چند درخواست همزمان دقیق نیست) اعمال می‌شود.
+     * 
+     * @param couponUsage استفاده جدید
+     * @param perUserLimit محدودیت هر کاربر (null یعنی بدون محدودیت)
+     * @return true اگر ذخیره شد، false اگر همه سهمیه‌های کاربر فعال هستند
+     * @throws IllegalStateException اگر همین سفارش قبلاً این کوپن را استفاده کرده باشد
+     */
+    public boolean saveWithinUserLimit(CouponUsage couponUsage, Integer perUserLimit) {
+        if (perUserLimit == null) {
+            save(couponUsage);
+            return true;
+        }
+        Long couponId = couponUsage.getCoupon().getId();
+        // هر تلاش ناموفق یعنی یک سهمیه توسط درخواست دیگری گرفته شده است
+        for (int attempt = 0; attempt <= perUserLimit; attempt++) {
+            Transaction tx = null;
+            try (Session session = sessionFactory.openSession()) {
+                tx = session.beginTransaction();
+                // سهمیه استفاده‌های برگشتی null است، پس فقط استفاده‌های فعال سهمیه اشغال می‌کنند
+                List<Object[]> usages = session.createQuery(
+                    "SELECT cu.userSlot, cu.orderId FROM CouponUsage cu " +
+                    "WHERE cu.coupon.id = :couponId AND cu.userId = :userId",
+                    Object[].class)
+                    .setParameter("couponId", couponId)
+                    .setParameter("userId", couponUsage.getUserId())
+                    .getResultList();
+                boolean[] taken = new boolean[perUserLimit + 1];
+                for (Object[] row : usages) {
+                    if (couponUsage.getOrderId().equals(row[1])) {
+                        tx.rollback();
+                        throw new IllegalStateException("Coupon already used for order " + couponUsage.getOrderId());
+                    }
+                    Integer slot = (Integer) row[0];
+                    if (slot != null && slot <= perUserLimit) {
+                        taken[slot] = true;
+                    }
+                }
+                int freeSlot = 0;
+                for (int slot = 1; slot <= perUserLimit && freeSlot == 0; slot++) {
+                    if (!taken[slot]) {
+                        freeSlot = slot;
+                    }
+                }
+                if (freeSlot == 0) {
+                    tx.rollback();
+                    return false;
+                }
+                couponUsage.setUserSlot(freeSlot);
+                session.persist(couponUsage);
+                tx.commit();
+                return true;
+            } catch (RuntimeException e) {
+                if (tx != null && tx.isActive()) {
+                    tx.rollback();
+                }
+                if (!isConstraintViolation(e)) {
+                    throw e;
+                }
+                // شیء برای persist دوباره آماده می‌شود
+                couponUsage.setId(null);
+                couponUsage.setUserSlot(null);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * بازگشت استفاده فعال کوپن در یک سفارش
+     * 
+     * استفاده غیرفعال و سهمیه کاربر آزاد می‌شود.
+     * 
+     * @param orderId شناسه سفارش
+     * @return استفاده برگشت داده شده یا empty اگر استفاده فعالی وجود نداشت
+     */
+    public Optional<CouponUsage> revertByOrderId(Long orderId) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            Optional<CouponUsage> usage = session.createQuery(
+                    "FROM CouponUsage cu JOIN FETCH cu.coupon WHERE cu.orderId = :orderId AND cu.isActive = true",
+                    CouponUsage.class)
+                .setParameter("orderId", orderId)
+                .getResultStream()
+                .findFirst();
+            usage.ifPresent(CouponUsage::revert);
+            session.getTransaction().commit();
+            return usage;
+        }
+    }
+    
+    private static boolean isConstraintViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * جستجوی استفاده از کوپن بر اساس شناسه
      * 
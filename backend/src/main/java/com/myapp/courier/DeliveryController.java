@@ -1,9 +1,12 @@
 package com.myapp.courier;
 
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.Delivery;
 import com.myapp.common.models.DeliveryStatus;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.auth.AuthRepository;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -40,6 +43,9 @@ import java.util.HashMap;
  * GET    /api/deliveries/active                        - تمام تحویل‌های فعال
  * GET    /api/deliveries/pending                       - تحویل‌های در انتظار
  * 
+ * لیست‌ها (به جز تحویل‌های فعال یک پیک) صفحه‌بندی keyset دارند: ?limit=N&cursor=TOKEN
+ * (پیش‌فرض ۲۰، حداکثر ۱۰۰). توکن صفحه بعد در هدر X-Next-Cursor برمی‌گردد.
+ * 
  * === مدیریت پیک‌ها ===
  * GET    /api/deliveries/courier/{courierId}/available - بررسی در دسترس بودن پیک
  * GET    /api/deliveries/courier/{courierId}/statistics - آمار عملکرد پیک
@@ -61,6 +67,9 @@ public class DeliveryController implements HttpHandler {
     /** سرویس منطق کسب‌وکار تحویل */
     private final DeliveryService deliveryService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض
      * Dependencies را به صورت خودکار ایجاد می‌کند
@@ -71,6 +80,7 @@ public class DeliveryController implements HttpHandler {
             new AuthRepository(),
             new com.myapp.order.OrderRepository()
         );
+        registerRoutes();
     }
     
     /**
@@ -80,6 +90,49 @@ public class DeliveryController implements HttpHandler {
      */
     public DeliveryController(DeliveryService deliveryService) {
         this.deliveryService = deliveryService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     */
+    private void registerRoutes() {
+        // GET
+        router.get("/api/deliveries/{deliveryId:long}", (exchange, match) ->
+            getDeliveryDetails(exchange, match.longParam("deliveryId")));
+        router.get("/api/deliveries/order/{orderId:long}", (exchange, match) ->
+            getDeliveryByOrder(exchange, match.longParam("orderId")));
+        router.get("/api/deliveries/courier/{courierId:long}", (exchange, match) ->
+            getCourierDeliveries(exchange, match.longParam("courierId")));
+        router.get("/api/deliveries/courier/{courierId:long}/active", (exchange, match) ->
+            getCourierActiveDeliveries(exchange, match.longParam("courierId")));
+        router.get("/api/deliveries/courier/{courierId:long}/available", (exchange, match) ->
+            checkCourierAvailability(exchange, match.longParam("courierId")));
+        router.get("/api/deliveries/courier/{courierId:long}/statistics", (exchange, match) ->
+            getCourierStatistics(exchange, match.longParam("courierId")));
+        router.get("/api/deliveries/status/{status:word}", (exchange, match) ->
+            getDeliveriesByStatus(exchange, match.param("status")));
+        router.get("/api/deliveries/active", (exchange, match) -> getActiveDeliveries(exchange));
+        router.get("/api/deliveries/pending", (exchange, match) -> getPendingDeliveries(exchange));
+        
+        // POST
+        router.post("/api/deliveries", (exchange, match) -> createDelivery(exchange));
+        
+        // PUT
+        router.put("/api/deliveries/{deliveryId:long}/assign", (exchange, match) ->
+            assignCourier(exchange, match.longParam("deliveryId")));
+        router.put("/api/deliveries/{deliveryId:long}/pickup", (exchange, match) ->
+            markPickedUp(exchange, match.longParam("deliveryId")));
+        router.put("/api/deliveries/{deliveryId:long}/deliver", (exchange, match) ->
+            markDelivered(exchange, match.longParam("deliveryId")));
+        router.put("/api/deliveries/{deliveryId:long}/cancel", (exchange, match) ->
+            cancelDelivery(exchange, match.longParam("deliveryId")));
+        router.put("/api/deliveries/{deliveryId:long}/status", (exchange, match) ->
+            updateDeliveryStatus(exchange, match.longParam("deliveryId")));
+        
+        // DELETE
+        router.delete("/api/deliveries/{deliveryId:long}", (exchange, match) ->
+            deleteDelivery(exchange, match.longParam("deliveryId")));
     }
     
     /**
@@ -96,22 +149,12 @@ public class DeliveryController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی بر اساس HTTP method
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
         } catch (IllegalArgumentException e) {
             // خطای پارامتر نامعتبر - 400 Bad Request
@@ -130,55 +173,6 @@ public class DeliveryController implements HttpHandler {
     
     // ==================== GET ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام GET requests
-     * 
-     * بر اساس pattern های مختلف URL، درخواست‌ها را مسیریابی می‌کند
-     * از regex pattern matching برای انعطاف‌پذیری استفاده می‌کند
-     * 
-     * @param exchange HTTP exchange object
-     * @param path مسیر درخواست
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/deliveries/\\d+")) {
-            // GET /api/deliveries/{deliveryId} - دریافت جزئیات تحویل
-            Long deliveryId = extractDeliveryIdFromPath(path);
-            getDeliveryDetails(exchange, deliveryId);
-        } else if (path.matches("/api/deliveries/order/\\d+")) {
-            // GET /api/deliveries/order/{orderId} - تحویل بر اساس سفارش
-            Long orderId = extractIdFromPath(path, "/api/deliveries/order/");
-            getDeliveryByOrder(exchange, orderId);
-        } else if (path.matches("/api/deliveries/courier/\\d+/active")) {
-            // GET /api/deliveries/courier/{courierId}/active - تحویل‌های فعال پیک
-            Long courierId = extractIdFromPath(path, "/api/deliveries/courier/", "/active");
-            getCourierActiveDeliveries(exchange, courierId);
-        } else if (path.matches("/api/deliveries/courier/\\d+/available")) {
-            // GET /api/deliveries/courier/{courierId}/available - بررسی در دسترس بودن پیک
-            Long courierId = extractIdFromPath(path, "/api/deliveries/courier/", "/available");
-            checkCourierAvailability(exchange, courierId);
-        } else if (path.matches("/api/deliveries/courier/\\d+/statistics")) {
-            // GET /api/deliveries/courier/{courierId}/statistics - آمار پیک
-            Long courierId = extractIdFromPath(path, "/api/deliveries/courier/", "/statistics");
-            getCourierStatistics(exchange, courierId);
-        } else if (path.matches("/api/deliveries/courier/\\d+")) {
-            // GET /api/deliveries/courier/{courierId} - تاریخچه تحویل‌های پیک
-            Long courierId = extractIdFromPath(path, "/api/deliveries/courier/");
-            getCourierDeliveries(exchange, courierId);
-        } else if (path.matches("/api/deliveries/status/\\w+")) {
-            // GET /api/deliveries/status/{status} - تحویل‌ها بر اساس وضعیت
-            String statusStr = extractStatusFromPath(path);
-            getDeliveriesByStatus(exchange, statusStr);
-        } else if (path.equals("/api/deliveries/active")) {
-            // GET /api/deliveries/active - تمام تحویل‌های فعال
-            getActiveDeliveries(exchange);
-        } else if (path.equals("/api/deliveries/pending")) {
-            // GET /api/deliveries/pending - تحویل‌های در انتظار اختصاص پیک
-            getPendingDeliveries(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت جزئیات کامل یک تحویل
      * 
@@ -208,8 +202,8 @@ public class DeliveryController implements HttpHandler {
      * @param courierId شناسه پیک
      */
     private void getCourierDeliveries(HttpExchange exchange, Long courierId) throws IOException {
-        List<Delivery> deliveries = deliveryService.getCourierDeliveryHistory(courierId);
-        sendJsonResponse(exchange, 200, deliveries);
+        CursorPage<Delivery> page = deliveryService.getCourierDeliveryHistoryPage(courierId, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     /**
@@ -230,13 +224,15 @@ public class DeliveryController implements HttpHandler {
      * @param statusStr وضعیت تحویل (رشته)
      */
     private void getDeliveriesByStatus(HttpExchange exchange, String statusStr) throws IOException {
+        DeliveryStatus status;
         try {
-            DeliveryStatus status = DeliveryStatus.valueOf(statusStr.toUpperCase());
-            List<Delivery> deliveries = deliveryService.getDeliveriesByStatus(status);
-            sendJsonResponse(exchange, 200, deliveries);
+            status = DeliveryStatus.valueOf(statusStr.toUpperCase());
         } catch (IllegalArgumentException e) {
             sendErrorResponse(exchange, 400, "Invalid status: " + statusStr);
+            return;
         }
+        CursorPage<Delivery> page = deliveryService.getDeliveriesByStatusPage(status, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     /**
@@ -245,8 +241,8 @@ public class DeliveryController implements HttpHandler {
      * @param exchange HTTP exchange
      */
     private void getActiveDeliveries(HttpExchange exchange) throws IOException {
-        List<Delivery> deliveries = deliveryService.getActiveDeliveries();
-        sendJsonResponse(exchange, 200, deliveries);
+        CursorPage<Delivery> page = deliveryService.getActiveDeliveriesPage(pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     /**
@@ -255,8 +251,8 @@ public class DeliveryController implements HttpHandler {
      * @param exchange HTTP exchange
      */
     private void getPendingDeliveries(HttpExchange exchange) throws IOException {
-        List<Delivery> deliveries = deliveryService.getDeliveriesByStatus(DeliveryStatus.PENDING);
-        sendJsonResponse(exchange, 200, deliveries);
+        CursorPage<Delivery> page = deliveryService.getDeliveriesByStatusPage(DeliveryStatus.PENDING, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     /**
@@ -288,21 +284,6 @@ public class DeliveryController implements HttpHandler {
     
     // ==================== POST ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام POST requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/deliveries")) {
-            // POST /api/deliveries - ایجاد تحویل جدید
-            createDelivery(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * ایجاد درخواست تحویل جدید برای سفارش
      * 
@@ -337,40 +318,6 @@ public class DeliveryController implements HttpHandler {
     
     // ==================== PUT ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام PUT requests
-     * 
-     * شامل عملیات‌های به‌روزرسانی وضعیت تحویل
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/deliveries/\\d+/assign")) {
-            // PUT /api/deliveries/{deliveryId}/assign - اختصاص پیک
-            Long deliveryId = extractDeliveryIdFromPath(path, "/assign");
-            assignCourier(exchange, deliveryId);
-        } else if (path.matches("/api/deliveries/\\d+/pickup")) {
-            // PUT /api/deliveries/{deliveryId}/pickup - تحویل گرفتن از رستوران
-            Long deliveryId = extractDeliveryIdFromPath(path, "/pickup");
-            markPickedUp(exchange, deliveryId);
-        } else if (path.matches("/api/deliveries/\\d+/deliver")) {
-            // PUT /api/deliveries/{deliveryId}/deliver - تحویل به مشتری
-            Long deliveryId = extractDeliveryIdFromPath(path, "/deliver");
-            markDelivered(exchange, deliveryId);
-        } else if (path.matches("/api/deliveries/\\d+/cancel")) {
-            // PUT /api/deliveries/{deliveryId}/cancel - لغو تحویل
-            Long deliveryId = extractDeliveryIdFromPath(path, "/cancel");
-            cancelDelivery(exchange, deliveryId);
-        } else if (path.matches("/api/deliveries/\\d+/status")) {
-            // PUT /api/deliveries/{deliveryId}/status - به‌روزرسانی وضعیت (مدیر)
-            Long deliveryId = extractDeliveryIdFromPath(path, "/status");
-            updateDeliveryStatus(exchange, deliveryId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * اختصاص پیک به تحویل
      * 
@@ -498,22 +445,6 @@ public class DeliveryController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام DELETE requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/deliveries/\\d+")) {
-            // DELETE /api/deliveries/{deliveryId} - حذف تحویل (مدیر)
-            Long deliveryId = extractDeliveryIdFromPath(path);
-            deleteDelivery(exchange, deliveryId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * حذف تحویل (فقط برای مدیر و تحویل‌های لغو شده)
      * 
@@ -531,80 +462,6 @@ public class DeliveryController implements HttpHandler {
     
     // ==================== UTILITY METHODS ====================
     
-    /**
-     * استخراج شناسه تحویل از path ساده
-     * 
-     * Pattern: /api/deliveries/{id}
-     * 
-     * @param path مسیر URL
-     * @return شناسه تحویل
-     */
-    private Long extractDeliveryIdFromPath(String path) {
-        String[] parts = path.split("/");
-        if (parts.length <= 3) {
-            throw new IllegalArgumentException("Invalid path format: " + path);
-        }
-        return Long.parseLong(parts[3]); // /api/deliveries/{id}
-    }
-    
-    /**
-     * استخراج شناسه تحویل از path با suffix
-     * 
-     * Pattern: /api/deliveries/{id}/action
-     * 
-     * @param path مسیر URL
-     * @param suffix پسوند برای حذف
-     * @return شناسه تحویل
-     */
-    private Long extractDeliveryIdFromPath(String path, String suffix) {
-        // حذف suffix فقط از انتهای path
-        if (path.endsWith(suffix)) {
-            String pathWithoutSuffix = path.substring(0, path.length() - suffix.length());
-            return extractDeliveryIdFromPath(pathWithoutSuffix);
-        } else {
-            throw new IllegalArgumentException("Path does not end with expected suffix: " + suffix);
-        }
-    }
-    
-    /**
-     * استخراج ID از path با prefix
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند برای حذف
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix) {
-        String idPart = path.substring(prefix.length());
-        return Long.parseLong(idPart);
-    }
-    
-    /**
-     * استخراج ID از path با prefix و suffix
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند برای حذف
-     * @param suffix پسوند برای حذف
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        String idPart = path.substring(prefix.length());
-        idPart = idPart.replace(suffix, "");
-        return Long.parseLong(idPart);
-    }
-    
-    /**
-     * استخراج وضعیت از path
-     * 
-     * Pattern: /api/deliveries/status/{status}
-     * 
-     * @param path مسیر URL
-     * @return رشته وضعیت
-     */
-    private String extractStatusFromPath(String path) {
-        String[] parts = path.split("/");
-        return parts[4]; // /api/deliveries/status/{status}
-    }
-    
     /**
      * پارس درخواست JSON از HTTP request body
      * 
@@ -753,6 +610,27 @@ public class DeliveryController implements HttpHandler {
         return null;
     }
     
+    /**
+     * پارامترهای cursor و limit از query string (اندازه صفحه همیشه محدود است)
+     * 
+     * @param exchange HTTP exchange
+     */
+    private CursorPageRequest pageRequest(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        return CursorPageRequest.fromQueryString(uri != null ? uri.getRawQuery() : null);
+    }
+    
+    /**
+     * ارسال آیتم‌های صفحه به صورت آرایه JSON همراه با هدرهای X-Next-Cursor و X-Page-Limit
+     * 
+     * @param exchange HTTP exchange
+     * @param page صفحه تحویل‌ها
+     */
+    private void sendPageResponse(HttpExchange exchange, CursorPage<Delivery> page) throws IOException {
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJsonResponse(exchange, 200, page.getItems());
+    }
+    
     /**
      * ارسال پاسخ JSON
      * 
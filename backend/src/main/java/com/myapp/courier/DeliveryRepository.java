@@ -4,11 +4,20 @@ import com.myapp.common.models.Delivery;
 import com.myapp.common.models.DeliveryStatus;
 import com.myapp.common.models.Order;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +43,36 @@ import java.util.Optional;
  */
 public class DeliveryRepository {
 
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    public DeliveryRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public DeliveryRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
+    /**
+     * session فقط خواندنی برای لیست‌ها و شمارش‌ها
+     * (با SessionFactory تزریق شده مستقیم، در غیر این صورت از طریق مسیریاب replica)
+     */
+    private Session readSession() {
+        return sessionFactory != null
+            ? ReplicaRouter.readOnly(sessionFactory.openSession())
+            : DatabaseUtil.openReadSession();
+    }
+
     /**
      * ذخیره تحویل جدید در دیتابیس
      * 
@@ -41,7 +80,7 @@ public class DeliveryRepository {
      * @return تحویل ذخیره شده با ID تولید شده
      */
     public Delivery save(Delivery delivery) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             session.beginTransaction();
             session.persist(delivery); // JPA persist برای entity جدید
             session.getTransaction().commit();
@@ -56,7 +95,7 @@ public class DeliveryRepository {
      * @return تحویل به‌روزرسانی شده
      */
     public Delivery update(Delivery delivery) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             session.beginTransaction();
             Delivery updated = session.merge(delivery); // merge برای به‌روزرسانی
             session.getTransaction().commit();
@@ -71,7 +110,7 @@ public class DeliveryRepository {
      * @return Optional حاوی تحویل یا خالی
      */
     public Optional<Delivery> findById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Delivery delivery = session.get(Delivery.class, id);
             return Optional.ofNullable(delivery);
         }
@@ -86,7 +125,7 @@ public class DeliveryRepository {
      * @return Optional حاوی تحویل یا خالی
      */
     public Optional<Delivery> findByOrderId(Long orderId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.order.id = :orderId", Delivery.class);
             query.setParameter("orderId", orderId);
@@ -103,7 +142,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های پیک
      */
     public List<Delivery> findByCourierId(Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.courier.id = :courierId ORDER BY d.assignedAt DESC", Delivery.class);
             query.setParameter("courierId", courierId);
@@ -118,7 +157,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های با وضعیت مشخص
      */
     public List<Delivery> findByStatus(DeliveryStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.status = :status ORDER BY d.id DESC", Delivery.class);
             query.setParameter("status", status);
@@ -144,7 +183,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های فعال پیک
      */
     public List<Delivery> findActiveByCourier(Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.courier.id = :courierId AND d.status IN (:statuses) ORDER BY d.assignedAt", 
                 Delivery.class);
@@ -162,7 +201,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های فعال
      */
     public List<Delivery> findActiveDeliveries() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.status IN (:statuses) ORDER BY d.id DESC", Delivery.class);
             query.setParameter("statuses", List.of(
@@ -174,6 +213,50 @@ public class DeliveryRepository {
         }
     }
 
+    // ==================== KEYSET PAGINATION ====================
+
+    /**
+     * صفحه‌ای از تحویل‌ها با یکی از وضعیت‌های داده شده
+     * 
+     * Delivery ستون زمان ایجاد ندارد؛ شناسه به ترتیب ایجاد تولید می‌شود
+     * بنابراین صفحه‌بندی فقط روی id (جدیدترین اول) انجام می‌شود.
+     * 
+     * @param statuses وضعیت‌های مورد نظر
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه تحویل‌ها همراه با cursor صفحه بعد
+     */
+    public CursorPage<Delivery> findPageByStatuses(Collection<DeliveryStatus> statuses, CursorPageRequest request) {
+        return fetchPage(KeysetQuery.from(Delivery.class, "Delivery d")
+            .where("d.status IN (:statuses)")
+            .param("statuses", statuses), request);
+    }
+
+    /**
+     * صفحه‌ای از تاریخچه تحویل‌های یک پیک (جدیدترین اول)
+     * 
+     * @param courierId شناسه پیک
+     * @param request درخواست صفحه
+     * @return صفحه تحویل‌ها
+     */
+    public CursorPage<Delivery> findPageByCourier(Long courierId, CursorPageRequest request) {
+        return fetchPage(KeysetQuery.from(Delivery.class, "Delivery d")
+            .where("d.courier.id = :courierId")
+            .param("courierId", courierId), request);
+    }
+
+    /**
+     * صفحه‌ای از تمام تحویل‌ها (جدیدترین اول)
+     */
+    public CursorPage<Delivery> findAllPage(CursorPageRequest request) {
+        return fetchPage(KeysetQuery.from(Delivery.class, "Delivery d"), request);
+    }
+
+    private CursorPage<Delivery> fetchPage(KeysetQuery<Delivery> query, CursorPageRequest request) {
+        try (Session session = sessionFactory().openSession()) {
+            return query.orderById("d.id", Delivery::getId).fetch(session, request);
+        }
+    }
+
     /**
      * یافتن تحویل‌ها در بازه زمانی مشخص
      * 
@@ -184,7 +267,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌ها در بازه زمانی
      */
     public List<Delivery> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.assignedAt BETWEEN :startDate AND :endDate ORDER BY d.assignedAt DESC", 
                 Delivery.class);
@@ -203,7 +286,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های پیک در بازه زمانی
      */
     public List<Delivery> findByCourierAndDateRange(Long courierId, LocalDateTime startDate, LocalDateTime endDate) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.courier.id = :courierId AND d.assignedAt BETWEEN :startDate AND :endDate ORDER BY d.assignedAt DESC", 
                 Delivery.class);
@@ -222,7 +305,7 @@ public class DeliveryRepository {
      * @return لیست تحویل‌های فیلتر شده
      */
     public List<Delivery> findByCourierAndStatus(Long courierId, DeliveryStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d WHERE d.courier.id = :courierId AND d.status = :status ORDER BY d.assignedAt DESC", 
                 Delivery.class);
@@ -239,7 +322,7 @@ public class DeliveryRepository {
      * @return تعداد کل تحویل‌ها
      */
     public Long countByCourier(Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(d) FROM Delivery d WHERE d.courier.id = :courierId", Long.class);
             query.setParameter("courierId", courierId);
@@ -255,7 +338,7 @@ public class DeliveryRepository {
      * @return تعداد تحویل‌ها
      */
     public Long countByCourierAndStatus(Long courierId, DeliveryStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(d) FROM Delivery d WHERE d.courier.id = :courierId AND d.status = :status", Long.class);
             query.setParameter("courierId", courierId);
@@ -271,7 +354,7 @@ public class DeliveryRepository {
      * @return true اگر وجود داشته باشد
      */
     public boolean existsById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(d) FROM Delivery d WHERE d.id = :id", Long.class);
             query.setParameter("id", id);
@@ -286,7 +369,7 @@ public class DeliveryRepository {
      * @return true اگر تحویل وجود داشته باشد
      */
     public boolean existsByOrderId(Long orderId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery(
                 "SELECT COUNT(d) FROM Delivery d WHERE d.order.id = :orderId", Long.class);
             query.setParameter("orderId", orderId);
@@ -302,7 +385,7 @@ public class DeliveryRepository {
      * @param id شناسه تحویل
      */
     public void delete(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             session.beginTransaction();
             Delivery delivery = session.get(Delivery.class, id);
             if (delivery != null) {
@@ -318,13 +401,40 @@ public class DeliveryRepository {
      * @return لیست کامل تحویل‌ها
      */
     public List<Delivery> findAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Delivery> query = session.createQuery(
                 "FROM Delivery d ORDER BY d.id DESC", Delivery.class);
             return query.getResultList();
         }
     }
 
+    /**
+     * مدت بین pickup و delivery بر حسب ثانیه
+     * 
+     * تفاضل دو LocalDateTime در HQL از نوع Duration است و EXTRACT(EPOCH ...) روی
+     * آن پذیرفته نمی‌شود؛ «by second» آن را به عدد تبدیل می‌کند.
+     */
+    private static final String DELIVERY_SECONDS = "((d.deliveredAt - d.pickedUpAt) by second)";
+
+    /**
+     * مدت بین pickup و delivery بر حسب ثانیه روی SQLite
+     * 
+     * درایور SQLite زمان‌ها را به صورت عدد میلی‌ثانیه (epoch) ذخیره می‌کند ولی
+     * dialect تفاضل زمان را با strftime روی متن محاسبه می‌کند و نتیجه NULL است؛
+     * تفاضل مستقیم دو عدد میلی‌ثانیه درست است.
+     */
+    private static final String SQLITE_DELIVERY_SECONDS =
+        "((cast(d.deliveredAt as Long) - cast(d.pickedUpAt as Long)) / 1000.0)";
+
+    /**
+     * عبارت مدت تحویل متناسب با دیتابیس session
+     */
+    private static String deliverySeconds(Session session) {
+        Dialect dialect = session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices().getDialect();
+        return dialect instanceof SQLiteDialect ? SQLITE_DELIVERY_SECONDS : DELIVERY_SECONDS;
+    }
+
     /**
      * محاسبه میانگین زمان تحویل برای پیک (بر حسب دقیقه)
      * 
@@ -334,10 +444,10 @@ public class DeliveryRepository {
      * @return میانگین زمان تحویل یا null
      */
     public Double getAverageDeliveryTimeMinutes(Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             // محاسبه میانگین زمان بین pickup و delivery به دقیقه
             Query<Double> query = session.createQuery(
-                "SELECT AVG(EXTRACT(EPOCH FROM (d.deliveredAt - d.pickedUpAt)) / 60) " +
+                "SELECT AVG(" + deliverySeconds(session) + ") / 60.0 " +
                 "FROM Delivery d WHERE d.courier.id = :courierId AND d.status = :delivered AND d.pickedUpAt IS NOT NULL AND d.deliveredAt IS NOT NULL", 
                 Double.class);
             query.setParameter("courierId", courierId);
@@ -349,44 +459,37 @@ public class DeliveryRepository {
     /**
      * دریافت آمار کامل پیک
      * 
-     * شامل تعداد تحویل‌ها، درآمد، میانگین زمان و نرخ موفقیت
+     * شامل تعداد تحویل‌ها، درآمد، میانگین زمان و نرخ موفقیت؛ همه با یک کوئری
+     * و شمارش/جمع شرطی (FILTER) روی تحویل‌های پیک محاسبه می‌شوند
      * 
      * @param courierId شناسه پیک
      * @return آمار کامل پیک
      */
     public CourierStatistics getCourierStatistics(Long courierId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            // تعداد کل تحویل‌ها
-            Long totalDeliveries = countByCourier(courierId);
-            
-            // تحویل‌های تکمیل شده
-            Long completedDeliveries = countByCourierAndStatus(courierId, DeliveryStatus.DELIVERED);
-            
-            // تحویل‌های فعال
-            Long activeDeliveries = countByCourierAndStatus(courierId, DeliveryStatus.ASSIGNED) +
-                                   countByCourierAndStatus(courierId, DeliveryStatus.PICKED_UP);
-            
-            // تحویل‌های لغو شده
-            Long cancelledDeliveries = countByCourierAndStatus(courierId, DeliveryStatus.CANCELLED);
-            
-            // میانگین زمان تحویل
-            Double avgDeliveryTime = getAverageDeliveryTimeMinutes(courierId);
-            
-            // کل درآمد (مجموع هزینه‌های تحویل موفق)
-            Query<Double> earningsQuery = session.createQuery(
-                "SELECT COALESCE(SUM(d.deliveryFee), 0.0) FROM Delivery d WHERE d.courier.id = :courierId AND d.status = :delivered", 
-                Double.class);
-            earningsQuery.setParameter("courierId", courierId);
-            earningsQuery.setParameter("delivered", DeliveryStatus.DELIVERED);
-            Double totalEarnings = earningsQuery.uniqueResult();
+        try (Session session = readSession()) {
+            Object[] row = session.createQuery(
+                "SELECT COUNT(*), " +
+                "       COUNT(*) FILTER (WHERE d.status = :delivered), " +
+                "       COUNT(*) FILTER (WHERE d.status IN (:assigned, :pickedUp)), " +
+                "       COUNT(*) FILTER (WHERE d.status = :cancelled), " +
+                "       AVG(" + deliverySeconds(session) + ") FILTER (WHERE d.status = :delivered " +
+                "           AND d.pickedUpAt IS NOT NULL AND d.deliveredAt IS NOT NULL) / 60.0, " +
+                "       SUM(d.deliveryFee) FILTER (WHERE d.status = :delivered) " +
+                "FROM Delivery d WHERE d.courier.id = :courierId", Object[].class)
+                .setParameter("courierId", courierId)
+                .setParameter("delivered", DeliveryStatus.DELIVERED)
+                .setParameter("assigned", DeliveryStatus.ASSIGNED)
+                .setParameter("pickedUp", DeliveryStatus.PICKED_UP)
+                .setParameter("cancelled", DeliveryStatus.CANCELLED)
+                .uniqueResult();
             
             return new CourierStatistics(
-                totalDeliveries,
-                completedDeliveries,
-                activeDeliveries,
-                cancelledDeliveries,
-                avgDeliveryTime != null ? avgDeliveryTime : 0.0,
-                totalEarnings
+                row[0] != null ? ((Number) row[0]).longValue() : 0L,
+                row[1] != null ? ((Number) row[1]).longValue() : 0L,
+                row[2] != null ? ((Number) row[2]).longValue() : 0L,
+                row[3] != null ? ((Number) row[3]).longValue() : 0L,
+                row[4] != null ? ((Number) row[4]).doubleValue() : 0.0,
+                row[5] != null ? ((Number) row[5]).doubleValue() : 0.0
             );
         }
     }
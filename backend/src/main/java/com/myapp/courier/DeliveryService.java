@@ -1,12 +1,18 @@
 package com.myapp.courier;
 
+import com.myapp.common.cache.SnapshotCache;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.auth.AuthRepository;
+import com.myapp.common.events.EventBus;
 import com.myapp.order.OrderRepository;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,6 +41,9 @@ public class DeliveryService {
     private final DeliveryRepository deliveryRepository;
     private final AuthRepository authRepository;
     private final OrderRepository orderRepository;
+    // snapshot کوتاه‌مدت آمار هر پیک
+    private final SnapshotCache<Long, DeliveryRepository.CourierStatistics> courierStatistics =
+        new SnapshotCache<>(SnapshotCache.DEFAULT_TTL_MILLIS, 10_000);
 
     public DeliveryService(DeliveryRepository deliveryRepository, 
                           AuthRepository authRepository,
@@ -123,7 +132,9 @@ public class DeliveryService {
         }
 
         delivery.markAsPickedUp();
-        return deliveryRepository.update(delivery);
+        Delivery updated = deliveryRepository.update(delivery);
+        publishDeliveryEvent(delivery);
+        return updated;
     }
 
     /**
@@ -148,7 +159,28 @@ public class DeliveryService {
         delivery.markAsDelivered();
         
         // The order status is updated automatically in the entity method
-        return deliveryRepository.update(delivery);
+        Delivery updated = deliveryRepository.update(delivery);
+        publishDeliveryEvent(delivery);
+        return updated;
+    }
+
+    /**
+     * ارسال وضعیت تحویل به اتصال‌های لحظه‌ای (SSE) مشتری سفارش
+     *
+     * شناسه مشتری از رابطه سفارشِ همین تحویل خوانده می‌شود (شناسه proxy بدون کوئری در دسترس است)
+     */
+    private void publishDeliveryEvent(Delivery delivery) {
+        Order order = delivery.getOrder();
+        if (order == null || order.getCustomer() == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("deliveryId", delivery.getId());
+        payload.put("orderId", order.getId());
+        payload.put("status", delivery.getStatus());
+        payload.put("courierId", delivery.getCourier() != null ? delivery.getCourier().getId() : null);
+        payload.put("updatedAt", LocalDateTime.now().toString());
+        EventBus.global().publish(order.getCustomer().getId(), "delivery-status", payload);
     }
 
     /**
@@ -262,7 +294,7 @@ public class DeliveryService {
             throw new IllegalArgumentException("User is not a courier");
         }
 
-        return deliveryRepository.getCourierStatistics(courierId);
+        return courierStatistics.get(courierId, () -> deliveryRepository.getCourierStatistics(courierId));
     }
 
     /**
@@ -291,6 +323,58 @@ public class DeliveryService {
         return deliveryRepository.findActiveDeliveries();
     }
 
+    // ==================== CURSOR PAGINATION ====================
+
+    /**
+     * Gets one page of a courier's delivery history (newest first)
+     */
+    public CursorPage<Delivery> getCourierDeliveryHistoryPage(Long courierId, CursorPageRequest request) {
+        if (courierId == null) {
+            throw new IllegalArgumentException("Courier ID cannot be null");
+        }
+
+        // Verify courier exists
+        User courier = authRepository.findById(courierId)
+            .orElseThrow(() -> new NotFoundException("Courier", courierId));
+
+        if (courier.getRole() != User.Role.COURIER) {
+            throw new IllegalArgumentException("User is not a courier");
+        }
+
+        return deliveryRepository.findPageByCourier(courierId, pageRequest(request));
+    }
+
+    /**
+     * Gets one page of deliveries by status (newest first)
+     */
+    public CursorPage<Delivery> getDeliveriesByStatusPage(DeliveryStatus status, CursorPageRequest request) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+
+        return deliveryRepository.findPageByStatuses(List.of(status), pageRequest(request));
+    }
+
+    /**
+     * Gets one page of active deliveries (newest first)
+     */
+    public CursorPage<Delivery> getActiveDeliveriesPage(CursorPageRequest request) {
+        return deliveryRepository.findPageByStatuses(
+            List.of(DeliveryStatus.PENDING, DeliveryStatus.ASSIGNED, DeliveryStatus.PICKED_UP),
+            pageRequest(request));
+    }
+
+    /**
+     * Gets one page of all deliveries (admin function, newest first)
+     */
+    public CursorPage<Delivery> getAllDeliveriesPage(CursorPageRequest request) {
+        return deliveryRepository.findAllPage(pageRequest(request));
+    }
+
+    private static CursorPageRequest pageRequest(CursorPageRequest request) {
+        return request != null ? request : CursorPageRequest.firstPage();
+    }
+
     /**
      * Deletes a delivery (admin function - use with caution)
      */
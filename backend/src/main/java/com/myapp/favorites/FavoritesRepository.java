@@ -3,6 +3,9 @@ package com.myapp.favorites;
 import com.myapp.common.models.Favorite;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
@@ -443,24 +446,20 @@ public class FavoritesRepository {
     /**
      * دریافت علاقه‌مندی‌ها با صفحه‌بندی
      * 
-     * برای بهبود عملکرد در صفحات با تعداد زیاد علاقه‌مندی
+     * برای بهبود عملکرد در صفحات با تعداد زیاد علاقه‌مندی؛ seek روی (createdAt, id)
      * 
-     * @param offset نقطه شروع (تعداد رکوردهای skip شده)
-     * @param limit حداکثر تعداد رکوردهای برگشتی
-     * @return لیست علاقه‌مندی‌ها با صفحه‌بندی
+     * @param request درخواست صفحه (cursor صفحه قبل و limit)
+     * @return صفحه علاقه‌مندی‌ها همراه با cursor صفحه بعد
      */
-    public List<Favorite> findWithPagination(int offset, int limit) {
+    public CursorPage<Favorite> findWithPagination(CursorPageRequest request) {
         try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Favorite f ORDER BY f.createdAt DESC";
-            Query<Favorite> query = session.createQuery(hql, Favorite.class);
-            query.setFirstResult(offset);
-            query.setMaxResults(limit);
-            
-            return query.getResultList();
+            return KeysetQuery.from(Favorite.class, "Favorite f")
+                .orderBy("f.createdAt", Favorite::getCreatedAt, "f.id", Favorite::getId)
+                .fetch(session, request);
             
         } catch (Exception e) {
             logger.error("Error finding favorites with pagination: {}", e.getMessage(), e);
-            return List.of();
+            return CursorPage.empty(request.getLimit());
         }
     }
 
@@ -5,6 +5,8 @@ import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.Favorite;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.restaurant.RestaurantRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -422,18 +424,16 @@ public class FavoritesService {
      * 
      * برای بهبود عملکرد در UI های با تعداد زیاد داده
      * 
-     * @param page شماره صفحه (شروع از 0)
-     * @param size تعداد آیتم در هر صفحه
-     * @return لیست علاقه‌مندی‌ها با صفحه‌بندی
-     * @throws IllegalArgumentException اگر پارامترها نامعتبر باشند
+     * @param request درخواست صفحه keyset (cursor صفحه قبل و limit)
+     * @return صفحه علاقه‌مندی‌ها همراه با cursor صفحه بعد
+     * @throws IllegalArgumentException اگر درخواست null باشد
      */
-    public List<Favorite> getFavoritesWithPagination(int page, int size) {
-        if (page < 0 || size < 1) {
-            throw new IllegalArgumentException("Page must be non-negative and size must be positive");
+    public CursorPage<Favorite> getFavoritesWithPagination(CursorPageRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Page request cannot be null");
         }
         
-        int offset = page * size;
-        return favoritesRepository.findWithPagination(offset, size);
+        return favoritesRepository.findWithPagination(request);
     }
     
     /**
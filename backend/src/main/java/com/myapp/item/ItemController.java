@@ -2,6 +2,7 @@ package com.myapp.item;
 
 import com.myapp.common.constants.ApplicationConstants;
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.FoodItem;
 import com.myapp.common.utils.JsonUtil;
 import com.myapp.common.utils.MapParsingUtil;
@@ -63,12 +64,16 @@ public class ItemController implements HttpHandler {
     /** سرویس مدیریت آیتم‌های غذایی */
     private final ItemService itemService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض
      * Dependencies را به صورت خودکار ایجاد می‌کند
      */
     public ItemController() {
         this.itemService = new ItemService(new ItemRepository(), new com.myapp.restaurant.RestaurantRepository());
+        registerRoutes();
     }
     
     /**
@@ -78,6 +83,41 @@ public class ItemController implements HttpHandler {
      */
     public ItemController(ItemService itemService) {
         this.itemService = itemService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     */
+    private void registerRoutes() {
+        // GET
+        router.get("/api/items/{id:long}", (exchange, match) -> getItemById(exchange, match.longParam("id")));
+        router.get("/api/items/restaurant/{restaurantId:long}", (exchange, match) ->
+            getItemsByRestaurant(exchange, match.longParam("restaurantId")));
+        router.get("/api/items/restaurant/{restaurantId:long}/available", (exchange, match) ->
+            getAvailableItemsByRestaurant(exchange, match.longParam("restaurantId")));
+        router.get("/api/items/restaurant/{restaurantId:long}/categories", (exchange, match) ->
+            getCategoriesByRestaurant(exchange, match.longParam("restaurantId")));
+        router.get("/api/items/restaurant/{restaurantId:long}/low-stock", (exchange, match) ->
+            getLowStockItems(exchange, match.longParam("restaurantId")));
+        router.get("/api/items/restaurant/{restaurantId:long}/statistics", (exchange, match) ->
+            getMenuStatistics(exchange, match.longParam("restaurantId")));
+        router.get("/api/items/search", (exchange, match) -> searchItems(exchange));
+        router.get("/api/items/category/{category}", (exchange, match) ->
+            getItemsByCategory(exchange, match.param("category")));
+        
+        // POST
+        router.post("/api/items", (exchange, match) -> addItem(exchange));
+        
+        // PUT
+        router.put("/api/items/{id:long}", (exchange, match) -> updateItem(exchange, match.longParam("id")));
+        router.put("/api/items/{id:long}/availability", (exchange, match) ->
+            updateItemAvailability(exchange, match.longParam("id")));
+        router.put("/api/items/{id:long}/quantity", (exchange, match) ->
+            updateItemQuantity(exchange, match.longParam("id")));
+        
+        // DELETE
+        router.delete("/api/items/{id:long}", (exchange, match) -> deleteItem(exchange, match.longParam("id")));
     }
     
     /**
@@ -94,22 +134,12 @@ public class ItemController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی بر اساس HTTP method
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
         } catch (IllegalArgumentException e) {
             // خطای پارامتر نامعتبر - 400 Bad Request
@@ -125,52 +155,6 @@ public class ItemController implements HttpHandler {
     
     // ==================== GET ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام GET requests
-     * 
-     * بر اساس pattern های مختلف URL، درخواست‌ها را مسیریابی می‌کند
-     * از regex pattern matching برای انعطاف‌پذیری استفاده می‌کند
-     * 
-     * @param exchange HTTP exchange object
-     * @param path مسیر درخواست
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/items/\\d+")) {
-            // GET /api/items/{id} - دریافت آیتم بر اساس شناسه
-            Long id = extractIdFromPath(path, "/api/items/");
-            getItemById(exchange, id);
-        } else if (path.matches("/api/items/restaurant/\\d+$")) {
-            // GET /api/items/restaurant/{restaurantId} - آیتم‌های رستوران
-            Long restaurantId = extractIdFromPath(path, "/api/items/restaurant/");
-            getItemsByRestaurant(exchange, restaurantId);
-        } else if (path.matches("/api/items/restaurant/\\d+/available")) {
-            // GET /api/items/restaurant/{restaurantId}/available - آیتم‌های در دسترس
-            Long restaurantId = extractIdFromPath(path, "/api/items/restaurant/", "/available");
-            getAvailableItemsByRestaurant(exchange, restaurantId);
-        } else if (path.matches("/api/items/restaurant/\\d+/categories")) {
-            // GET /api/items/restaurant/{restaurantId}/categories - دسته‌بندی‌ها
-            Long restaurantId = extractIdFromPath(path, "/api/items/restaurant/", "/categories");
-            getCategoriesByRestaurant(exchange, restaurantId);
-        } else if (path.matches("/api/items/restaurant/\\d+/low-stock")) {
-            // GET /api/items/restaurant/{restaurantId}/low-stock - آیتم‌های کم موجودی
-            Long restaurantId = extractIdFromPath(path, "/api/items/restaurant/", "/low-stock");
-            getLowStockItems(exchange, restaurantId);
-        } else if (path.matches("/api/items/restaurant/\\d+/statistics")) {
-            // GET /api/items/restaurant/{restaurantId}/statistics - آمار منو
-            Long restaurantId = extractIdFromPath(path, "/api/items/restaurant/", "/statistics");
-            getMenuStatistics(exchange, restaurantId);
-        } else if (path.equals("/api/items/search")) {
-            // GET /api/items/search?keyword={keyword} - جستجوی آیتم‌ها
-            searchItems(exchange);
-        } else if (path.matches("/api/items/category/.+")) {
-            // GET /api/items/category/{category} - آیتم‌ها بر اساس دسته‌بندی
-            String category = extractStringFromPath(path, "/api/items/category/");
-            getItemsByCategory(exchange, category);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت آیتم غذایی بر اساس شناسه
      * 
@@ -285,21 +269,6 @@ public class ItemController implements HttpHandler {
     
     // ==================== POST ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام POST requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/items")) {
-            // POST /api/items - افزودن آیتم جدید
-            addItem(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * افزودن آیتم غذایی جدید
      * 
@@ -343,32 +312,6 @@ public class ItemController implements HttpHandler {
     
     // ==================== PUT ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام PUT requests
-     * 
-     * شامل عملیات‌های به‌روزرسانی آیتم‌ها
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/items/\\d+$")) {
-            // PUT /api/items/{id} - به‌روزرسانی آیتم
-            Long id = extractIdFromPath(path, "/api/items/");
-            updateItem(exchange, id);
-        } else if (path.matches("/api/items/\\d+/availability")) {
-            // PUT /api/items/{id}/availability - به‌روزرسانی وضعیت در دسترس بودن
-            Long id = extractIdFromPath(path, "/api/items/", "/availability");
-            updateItemAvailability(exchange, id);
-        } else if (path.matches("/api/items/\\d+/quantity")) {
-            // PUT /api/items/{id}/quantity - به‌روزرسانی موجودی
-            Long id = extractIdFromPath(path, "/api/items/", "/quantity");
-            updateItemQuantity(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * به‌روزرسانی آیتم غذایی
      * 
@@ -449,22 +392,6 @@ public class ItemController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام DELETE requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/items/\\d+")) {
-            // DELETE /api/items/{id} - حذف آیتم
-            Long id = extractIdFromPath(path, "/api/items/");
-            deleteItem(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * حذف آیتم غذایی
      * 
@@ -478,42 +405,6 @@ public class ItemController implements HttpHandler {
     
     // ==================== UTILITY METHODS ====================
     
-    /**
-     * استخراج شناسه از مسیر URL با prefix
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند برای حذف
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix) {
-        return Long.parseLong(path.substring(prefix.length()));
-    }
-    
-    /**
-     * استخراج شناسه از مسیر URL با prefix و suffix
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند برای حذف
-     * @param suffix پسوند برای حذف
-     * @return شناسه استخراج شده
-     */
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        int start = prefix.length();
-        int end = path.indexOf(suffix, start);
-        return Long.parseLong(path.substring(start, end));
-    }
-    
-    /**
-     * استخراج رشته از مسیر URL
-     * 
-     * @param path مسیر URL
-     * @param prefix پیشوند برای حذف
-     * @return رشته استخراج شده
-     */
-    private String extractStringFromPath(String path, String prefix) {
-        return path.substring(prefix.length());
-    }
-    
     /**
      * استخراج پارامتر از query string
      * 
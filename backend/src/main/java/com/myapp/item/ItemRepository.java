@@ -1,8 +1,11 @@
 package com.myapp.item;
 
 import com.myapp.common.models.FoodItem;
+import com.myapp.common.search.CatalogSearchIndex;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
@@ -49,6 +52,36 @@ import java.util.Optional;
  */
 public class ItemRepository {
 
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    public ItemRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public ItemRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
+    /**
+     * session فقط خواندنی برای لیست‌ها و شمارش‌ها
+     * (با SessionFactory تزریق شده مستقیم، در غیر این صورت از طریق مسیریاب replica)
+     */
+    private Session readSession() {
+        return sessionFactory != null
+            ? ReplicaRouter.readOnly(sessionFactory.openSession())
+            : DatabaseUtil.openReadSession();
+    }
+
     /**
      * ذخیره آیتم غذایی جدید در دیتابیس
      * 
@@ -59,10 +92,11 @@ public class ItemRepository {
      * @return آیتم ذخیره شده همراه با ID تولید شده
      */
     public FoodItem saveNew(FoodItem foodItem) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.persist(foodItem);   // شناسه به صورت خودکار تولید می‌شود
             tx.commit();
+            CatalogSearchIndex.getInstance().onItemSaved(foodItem);
             return foodItem;
         }
     }
@@ -81,10 +115,11 @@ public class ItemRepository {
         if (foodItem.getId() == null) {
             return saveNew(foodItem);
         } else {
-            try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+            try (Session session = sessionFactory().openSession()) {
                 Transaction tx = session.beginTransaction();
                 session.merge(foodItem);
                 tx.commit();
+                CatalogSearchIndex.getInstance().onItemSaved(foodItem);
                 return foodItem;
             }
         }
@@ -97,7 +132,7 @@ public class ItemRepository {
      * @return Optional حاوی آیتم یافت شده یا خالی اگر وجود نداشته باشد
      */
     public Optional<FoodItem> findById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             return Optional.ofNullable(session.get(FoodItem.class, id));
         }
     }
@@ -112,7 +147,7 @@ public class ItemRepository {
      * @return لیست تمام آیتم‌های رستوران
      */
     public List<FoodItem> findByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery(
                     "from FoodItem where restaurant.id = :restaurantId", FoodItem.class);
             q.setParameter("restaurantId", restaurantId);
@@ -132,7 +167,7 @@ public class ItemRepository {
      * @return لیست آیتم‌های قابل سفارش رستوران
      */
     public List<FoodItem> findAvailableByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery(
                     "from FoodItem where restaurant.id = :restaurantId and available = true and quantity > 0", 
                     FoodItem.class);
@@ -151,7 +186,7 @@ public class ItemRepository {
      * @return لیست آیتم‌های در دسترس در آن دسته‌بندی
      */
     public List<FoodItem> findByCategory(String category) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery(
                     "from FoodItem where category = :category and available = true", FoodItem.class);
             q.setParameter("category", category);
@@ -162,9 +197,11 @@ public class ItemRepository {
     /**
      * جستجوی آیتم‌ها بر اساس کلیدواژه
      * 
-     * این متد در نام و کلیدواژه‌های آیتم‌ها جستجو می‌کند:
-     * - جستجو case-insensitive است
-     * - هم در نام و هم در فیلد keywords جستجو می‌شود
+     * این متد از ایندکس درون حافظه‌ای {@link CatalogSearchIndex} استفاده می‌کند
+     * و به جای اسکن LIKE فقط آیتم‌های یافت شده را با شناسه از دیتابیس می‌خواند:
+     * - جستجو case-insensitive و مستقل از اعراب/شکل حروف فارسی است
+     * - در نام، کلیدواژه‌ها و دسته‌بندی جستجو می‌شود (تطابق کامل، پیشوندی و وسط کلمه)
+     * - نتایج بر اساس امتیاز مرتب و به {@link CatalogSearchIndex#DEFAULT_LIMIT} محدود می‌شوند
      * - فقط آیتم‌های در دسترس (available = true) برگردانده می‌شوند
      * - اگر کلیدواژه خالی باشد، لیست خالی برگردانده می‌شود
      * 
@@ -177,12 +214,17 @@ public class ItemRepository {
             return List.of();
         }
         
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        List<Long> rankedIds = CatalogSearchIndex.getInstance()
+                .searchItems(keyword, CatalogSearchIndex.DEFAULT_LIMIT);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery(
-                    "from FoodItem where (lower(name) like :keyword or lower(keywords) like :keyword) and available = true", 
-                    FoodItem.class);
-            q.setParameter("keyword", "%" + keyword.toLowerCase().trim() + "%");
-            return q.getResultList();
+                    "from FoodItem where id in :ids and available = true", FoodItem.class);
+            q.setParameter("ids", rankedIds);
+            return CatalogSearchIndex.orderByRank(q.getResultList(), rankedIds, FoodItem::getId);
         }
     }
 
@@ -195,7 +237,7 @@ public class ItemRepository {
      * @return لیست تمام آیتم‌های غذایی
      */
     public List<FoodItem> findAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery("from FoodItem", FoodItem.class);
             return q.getResultList();
         }
@@ -210,13 +252,14 @@ public class ItemRepository {
      * @param id شناسه آیتم برای حذف
      */
     public void delete(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             FoodItem foodItem = session.get(FoodItem.class, id);
             if (foodItem != null) {
                 session.remove(foodItem);
             }
             tx.commit();
+            CatalogSearchIndex.getInstance().onItemDeleted(id);
         }
     }
 
@@ -230,13 +273,16 @@ public class ItemRepository {
      * @param available وضعیت جدید در دسترس بودن
      */
     public void updateAvailability(Long id, boolean available) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             FoodItem foodItem = session.get(FoodItem.class, id);
             if (foodItem != null) {
                 foodItem.setAvailable(available);
             }
             tx.commit();
+            if (foodItem != null) {
+                CatalogSearchIndex.getInstance().onItemAvailabilityChanged(id, available);
+            }
         }
     }
 
@@ -250,7 +296,7 @@ public class ItemRepository {
      * @param quantity مقدار جدید موجودی
      */
     public void updateQuantity(Long id, Integer quantity) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             FoodItem foodItem = session.get(FoodItem.class, id);
             if (foodItem != null) {
@@ -269,10 +315,11 @@ public class ItemRepository {
      * ⚠️ توجه: این متد تمام داده‌ها را پاک می‌کند
      */
     public void deleteAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.createQuery("delete from FoodItem").executeUpdate();
             tx.commit();
+            CatalogSearchIndex.getInstance().onItemsCleared();
         }
     }
     
@@ -285,7 +332,7 @@ public class ItemRepository {
      * @return true اگر آیتم وجود داشته باشد، در غیر این صورت false
      */
     public boolean existsById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             FoodItem foodItem = session.get(FoodItem.class, id);
             return foodItem != null;
         }
@@ -302,7 +349,7 @@ public class ItemRepository {
      * @return لیست آیتم‌های یافت شده
      */
     public List<FoodItem> findByRestaurantAndCategory(Long restaurantId, String category) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<FoodItem> q = session.createQuery(
                     "from FoodItem where restaurant.id = :restaurantId and category = :category", 
                     FoodItem.class);
@@ -322,7 +369,7 @@ public class ItemRepository {
      * @return لیست نام دسته‌بندی‌های منحصر به فرد
      */
     public List<String> getCategoriesByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<String> q = session.createQuery(
                     "select distinct category from FoodItem where restaurant.id = :restaurantId", 
                     String.class);
@@ -342,7 +389,7 @@ public class ItemRepository {
      * @return لیست آیتم‌های کم موجودی
      */
     public List<FoodItem> findLowStockByRestaurant(Long restaurantId, int threshold) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<FoodItem> q = session.createQuery(
                     "from FoodItem where restaurant.id = :restaurantId and quantity <= :threshold", 
                     FoodItem.class);
@@ -362,7 +409,7 @@ public class ItemRepository {
      * @return تعداد کل آیتم‌های رستوران
      */
     public int countByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Long> q = session.createQuery(
                     "select count(*) from FoodItem where restaurant.id = :restaurantId", 
                     Long.class);
@@ -383,7 +430,7 @@ public class ItemRepository {
      * @return تعداد آیتم‌های قابل سفارش رستوران
      */
     public int countAvailableByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Long> q = session.createQuery(
                     "select count(*) from FoodItem where restaurant.id = :restaurantId and available = true and quantity > 0", 
                     Long.class);
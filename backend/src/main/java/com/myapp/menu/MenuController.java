@@ -1,6 +1,9 @@
 package com.myapp.menu;
 
+import com.myapp.common.exceptions.InvalidRequestException;
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.RequestBodyDecoder;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.FoodItem;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -10,7 +13,6 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * کنترلر REST API برای مدیریت منوی رستوران‌ها
@@ -55,12 +57,16 @@ public class MenuController implements HttpHandler {
     /** سرویس مدیریت منو */
     private final MenuService menuService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض
      * MenuService را به صورت خودکار ایجاد می‌کند
      */
     public MenuController() {
         this.menuService = new MenuService();
+        registerRoutes();
     }
     
     /**
@@ -70,6 +76,45 @@ public class MenuController implements HttpHandler {
      */
     public MenuController(MenuService menuService) {
         this.menuService = menuService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     */
+    private void registerRoutes() {
+        // GET
+        router.get("/api/menus/restaurant/{restaurantId:long}", (exchange, match) ->
+            getRestaurantMenu(exchange, match.longParam("restaurantId")));
+        router.get("/api/menus/restaurant/{restaurantId:long}/available", (exchange, match) ->
+            getAvailableMenu(exchange, match.longParam("restaurantId")));
+        router.get("/api/menus/restaurant/{restaurantId:long}/categories", (exchange, match) ->
+            getMenuCategories(exchange, match.longParam("restaurantId")));
+        router.get("/api/menus/restaurant/{restaurantId:long}/category/{category}", (exchange, match) ->
+            getMenuByCategory(exchange, match.longParam("restaurantId"), match.param("category")));
+        router.get("/api/menus/restaurant/{restaurantId:long}/low-stock", (exchange, match) -> {
+            String thresholdParam = getQueryParameter(exchange, "threshold");
+            int threshold = thresholdParam != null ? Integer.parseInt(thresholdParam) : 10;
+            getLowStockItems(exchange, match.longParam("restaurantId"), threshold);
+        });
+        router.get("/api/menus/restaurant/{restaurantId:long}/statistics", (exchange, match) ->
+            getMenuStatistics(exchange, match.longParam("restaurantId")));
+        
+        // POST
+        router.post("/api/menus/restaurant/{restaurantId:long}/items", (exchange, match) ->
+            addItemToMenu(exchange, match.longParam("restaurantId")));
+        
+        // PUT
+        router.put("/api/menus/items/{itemId:long}", (exchange, match) ->
+            updateMenuItem(exchange, match.longParam("itemId")));
+        router.put("/api/menus/items/{itemId:long}/availability", (exchange, match) ->
+            setItemAvailability(exchange, match.longParam("itemId")));
+        router.put("/api/menus/items/{itemId:long}/quantity", (exchange, match) ->
+            updateItemQuantity(exchange, match.longParam("itemId")));
+        
+        // DELETE
+        router.delete("/api/menus/items/{itemId:long}", (exchange, match) ->
+            removeItemFromMenu(exchange, match.longParam("itemId")));
     }
     
     /**
@@ -86,23 +131,16 @@ public class MenuController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی بر اساس HTTP method
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
+        } catch (InvalidRequestException e) {
+            // بدنه درخواست نامعتبر - 400 یا 413
+            sendErrorResponse(exchange, e.getStatusCode(), e.getMessage());
         } catch (IllegalArgumentException e) {
             // خطای پارامتر نامعتبر - 400 Bad Request
             sendErrorResponse(exchange, 400, e.getMessage());
@@ -117,48 +155,6 @@ public class MenuController implements HttpHandler {
     
     // ==================== GET ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام GET requests
-     * 
-     * بر اساس pattern های مختلف URL، درخواست‌ها را مسیریابی می‌کند
-     * از regex pattern matching برای تشخیص endpoint ها استفاده می‌کند
-     * 
-     * @param exchange HTTP exchange object
-     * @param path مسیر درخواست
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/menus/restaurant/\\d+")) {
-            // GET /api/menus/restaurant/{restaurantId} - دریافت منوی کامل
-            Long restaurantId = extractRestaurantIdFromPath(path);
-            getRestaurantMenu(exchange, restaurantId);
-        } else if (path.matches("/api/menus/restaurant/\\d+/available")) {
-            // GET /api/menus/restaurant/{restaurantId}/available - منوی در دسترس
-            Long restaurantId = extractRestaurantIdFromPath(path, "/available");
-            getAvailableMenu(exchange, restaurantId);
-        } else if (path.matches("/api/menus/restaurant/\\d+/categories")) {
-            // GET /api/menus/restaurant/{restaurantId}/categories - دسته‌بندی‌ها
-            Long restaurantId = extractRestaurantIdFromPath(path, "/categories");
-            getMenuCategories(exchange, restaurantId);
-        } else if (path.matches("/api/menus/restaurant/\\d+/category/[^/]+")) {
-            // GET /api/menus/restaurant/{restaurantId}/category/{category} - فیلتر دسته
-            Long restaurantId = extractRestaurantIdFromPath(path, "/category/[^/]+");
-            String category = extractCategoryFromPath(path);
-            getMenuByCategory(exchange, restaurantId, category);
-        } else if (path.matches("/api/menus/restaurant/\\d+/low-stock")) {
-            // GET /api/menus/restaurant/{restaurantId}/low-stock - آیتم‌های کم موجودی
-            Long restaurantId = extractRestaurantIdFromPath(path, "/low-stock");
-            String thresholdParam = getQueryParameter(exchange, "threshold");
-            int threshold = thresholdParam != null ? Integer.parseInt(thresholdParam) : 10;
-            getLowStockItems(exchange, restaurantId, threshold);
-        } else if (path.matches("/api/menus/restaurant/\\d+/statistics")) {
-            // GET /api/menus/restaurant/{restaurantId}/statistics - آمار منو
-            Long restaurantId = extractRestaurantIdFromPath(path, "/statistics");
-            getMenuStatistics(exchange, restaurantId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت منوی کامل رستوران
      * 
@@ -238,22 +234,6 @@ public class MenuController implements HttpHandler {
     
     // ==================== POST ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام POST requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/menus/restaurant/\\d+/items")) {
-            // POST /api/menus/restaurant/{restaurantId}/items - افزودن آیتم به منو
-            Long restaurantId = extractRestaurantIdFromPath(path, "/items");
-            addItemToMenu(exchange, restaurantId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * افزودن آیتم جدید به منوی رستوران
      * 
@@ -282,32 +262,6 @@ public class MenuController implements HttpHandler {
     
     // ==================== PUT ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام PUT requests
-     * 
-     * شامل عملیات‌های به‌روزرسانی آیتم‌ها و تنظیمات
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/menus/items/\\d+")) {
-            // PUT /api/menus/items/{itemId} - به‌روزرسانی آیتم منو
-            Long itemId = extractItemIdFromPath(path);
-            updateMenuItem(exchange, itemId);
-        } else if (path.matches("/api/menus/items/\\d+/availability")) {
-            // PUT /api/menus/items/{itemId}/availability - تنظیم وضعیت در دسترس بودن
-            Long itemId = extractItemIdFromPath(path, "/availability");
-            setItemAvailability(exchange, itemId);
-        } else if (path.matches("/api/menus/items/\\d+/quantity")) {
-            // PUT /api/menus/items/{itemId}/quantity - به‌روزرسانی موجودی
-            Long itemId = extractItemIdFromPath(path, "/quantity");
-            updateItemQuantity(exchange, itemId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * به‌روزرسانی آیتم منو
      * 
@@ -390,22 +344,6 @@ public class MenuController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام DELETE requests
-     * 
-     * @param exchange HTTP exchange
-     * @param path مسیر درخواست
-     */
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/menus/items/\\d+")) {
-            // DELETE /api/menus/items/{itemId} - حذف آیتم از منو
-            Long itemId = extractItemIdFromPath(path);
-            removeItemFromMenu(exchange, itemId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * حذف آیتم از منوی رستوران
      * 
@@ -419,80 +357,6 @@ public class MenuController implements HttpHandler {
     
     // ==================== UTILITY METHODS ====================
     
-    /**
-     * استخراج شناسه رستوران از مسیر ساده
-     * 
-     * Pattern: /api/menus/restaurant/{restaurantId}
-     * 
-     * @param path مسیر URL
-     * @return شناسه رستوران
-     */
-    private Long extractRestaurantIdFromPath(String path) {
-        // استخراج از /api/menus/restaurant/{restaurantId}
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[4]); // /api/menus/restaurant/{restaurantId}
-    }
-    
-    /**
-     * استخراج شناسه رستوران از مسیر با suffix
-     * 
-     * Pattern: /api/menus/restaurant/{restaurantId}/suffix
-     * 
-     * @param path مسیر URL
-     * @param suffix پسوند برای حذف
-     * @return شناسه رستوران
-     */
-    private Long extractRestaurantIdFromPath(String path, String suffix) {
-        // استخراج از /api/menus/restaurant/{restaurantId}/suffix
-        String pathWithoutSuffix = path.substring(0, path.lastIndexOf(suffix));
-        String[] parts = pathWithoutSuffix.split("/");
-        return Long.parseLong(parts[4]);
-    }
-    
-    /**
-     * استخراج شناسه آیتم از مسیر ساده
-     * 
-     * Pattern: /api/menus/items/{itemId}
-     * 
-     * @param path مسیر URL
-     * @return شناسه آیتم
-     */
-    private Long extractItemIdFromPath(String path) {
-        // استخراج از /api/menus/items/{itemId}
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[4]); // /api/menus/items/{itemId}
-    }
-    
-    /**
-     * استخراج شناسه آیتم از مسیر با suffix
-     * 
-     * Pattern: /api/menus/items/{itemId}/suffix
-     * 
-     * @param path مسیر URL
-     * @param suffix پسوند برای حذف
-     * @return شناسه آیتم
-     */
-    private Long extractItemIdFromPath(String path, String suffix) {
-        // استخراج از /api/menus/items/{itemId}/suffix
-        String pathWithoutSuffix = path.substring(0, path.lastIndexOf(suffix));
-        String[] parts = pathWithoutSuffix.split("/");
-        return Long.parseLong(parts[4]);
-    }
-    
-    /**
-     * استخراج نام دسته‌بندی از مسیر
-     * 
-     * Pattern: /api/menus/restaurant/{restaurantId}/category/{category}
-     * 
-     * @param path مسیر URL
-     * @return نام دسته‌بندی
-     */
-    private String extractCategoryFromPath(String path) {
-        // استخراج از /api/menus/restaurant/{restaurantId}/category/{category}
-        String[] parts = path.split("/");
-        return parts[6]; // /api/menus/restaurant/{restaurantId}/category/{category}
-    }
-    
     /**
      * دریافت پارامتر از query string
      * 
@@ -515,50 +379,18 @@ public class MenuController implements HttpHandler {
     }
     
     /**
-     * پارس درخواست JSON
+     * خواندن بدنه درخواست JSON به صورت Map
      * 
-     * پیاده‌سازی ساده JSON parser برای کاهش dependencies
-     * در محیط production از Jackson یا Gson استفاده کنید
+     * با parser جریانی Jackson (RequestBodyDecoder) خوانده می‌شود؛ اشیاء تو در تو
+     * و مقادیر دارای کاما درست پردازش می‌شوند و اندازه بدنه محدود است.
      * 
-     * @param exchange HTTP exchange
-     * @return Map حاوی داده‌های JSON پارس شده
+     * @param exchange HttpExchange حاوی request body
+     * @return Map شامل key-value های JSON (برای بدنه خالی، Map خالی)
+     * @throws InvalidRequestException اگر JSON نامعتبر یا بیش از حد بزرگ باشد
+     * @throws IOException در صورت خطا در خواندن request body
      */
     private Map<String, Object> parseJsonRequest(HttpExchange exchange) throws IOException {
-        // پارس ساده JSON - در production از Jackson یا Gson استفاده کنید
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        Map<String, Object> result = new HashMap<>();
-        
-        // پارس ابتدایی JSON (ساده‌سازی شده برای این پیاده‌سازی)
-        if (requestBody.trim().isEmpty()) {
-            return result;
-        }
-        
-        // حذف آکولاد و تقسیم بر اساس کاما
-        String content = requestBody.trim().replaceAll("[{}]", "");
-        String[] pairs = content.split(",");
-        
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(":");
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().replaceAll("\"", "");
-                String value = keyValue[1].trim().replaceAll("\"", "");
-                
-                // تلاش برای پارس به عنوان عدد یا boolean
-                try {
-                    if (value.equals("true") || value.equals("false")) {
-                        result.put(key, Boolean.parseBoolean(value));
-                    } else if (value.contains(".")) {
-                        result.put(key, Double.parseDouble(value));
-                    } else {
-                        result.put(key, Long.parseLong(value));
-                    }
-                } catch (NumberFormatException e) {
-                    result.put(key, value);
-                }
-            }
-        }
-        
-        return result;
+        return RequestBodyDecoder.global().readMap(exchange);
     }
     
     /**
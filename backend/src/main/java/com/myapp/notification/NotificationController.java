@@ -1,18 +1,23 @@
 package com.myapp.notification;
 
+import com.myapp.common.http.JsonResponseWriter;
 import com.myapp.common.models.Notification;
+import com.myapp.common.models.NotificationBroadcast;
 import com.myapp.common.models.Notification.NotificationType;
 import com.myapp.common.models.Notification.NotificationPriority;
 import com.myapp.common.models.OrderStatus;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.common.utils.JsonUtil;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -301,7 +306,7 @@ public class NotificationController implements HttpHandler {
                         handleGetUserNotificationsPaginated(exchange, userId, Integer.parseInt(page), Integer.parseInt(size));
                         return;
                     } else {
-                        // تمام اعلان‌های کاربر
+                        // اعلان‌های کاربر با keyset pagination (limit و cursor)
                         handleGetUserNotifications(exchange, userId, queryParams);
                         return;
                     }
@@ -456,8 +461,9 @@ public class NotificationController implements HttpHandler {
         int baseIndex = hasApiPrefix ? 2 : 1;
 
         // PUT /api/notifications/{id}/read - علامت‌گذاری خوانده شده
+        // (شناسه منفی = broadcast و نیازمند ?userId={id})
         if (pathParts.length == baseIndex + 3 && "notifications".equals(pathParts[baseIndex]) && "read".equals(pathParts[baseIndex + 2])) {
-            handleMarkAsRead(exchange, pathParts[baseIndex + 1]);
+            handleMarkAsRead(exchange, pathParts[baseIndex + 1], queryParams.get("userId"));
             return;
         }
         
@@ -544,7 +550,10 @@ public class NotificationController implements HttpHandler {
     // ==================== HANDLER IMPLEMENTATIONS ====================
     
     /**
-     * دریافت تمام اعلان‌های کاربر
+     * دریافت یک صفحه از اعلان‌های کاربر (جدیدترین اول)
+     * 
+     * پارامترهای limit (پیش‌فرض ۲۰، حداکثر ۱۰۰) و cursor از query خوانده می‌شوند
+     * و توکن صفحه بعد در هدر X-Next-Cursor برمی‌گردد.
      * 
      * @param exchange HTTP exchange
      * @param userIdStr شناسه کاربر به صورت رشته
@@ -554,8 +563,10 @@ public class NotificationController implements HttpHandler {
     private void handleGetUserNotifications(HttpExchange exchange, String userIdStr, Map<String, String> queryParams) throws IOException {
         try {
             Long userId = Long.parseLong(userIdStr);
-            List<Notification> notifications = notificationService.getUserNotifications(userId);
-            sendSuccessResponse(exchange, notifications);
+            CursorPage<Notification> page = notificationService.getUserNotificationsPage(
+                userId, CursorPageRequest.fromQueryParams(queryParams));
+            page.writeHeaders(exchange.getResponseHeaders());
+            sendSuccessResponse(exchange, page.getItems());
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
         } catch (IllegalArgumentException e) {
@@ -636,11 +647,21 @@ public class NotificationController implements HttpHandler {
      * 
      * @param exchange HTTP exchange
      * @param idStr شناسه اعلان به صورت رشته
+     * @param userIdStr شناسه کاربر (فقط برای broadcast ها)
      * @throws IOException در صورت خطا در پردازش
      */
-    private void handleMarkAsRead(HttpExchange exchange, String idStr) throws IOException {
+    private void handleMarkAsRead(HttpExchange exchange, String idStr, String userIdStr) throws IOException {
         try {
             Long id = Long.parseLong(idStr);
+            if (NotificationBroadcast.isFeedNotificationId(id)) {
+                if (userIdStr == null) {
+                    sendErrorResponse(exchange, 400, "userId parameter is required for broadcast notifications");
+                    return;
+                }
+                boolean changed = notificationService.markBroadcastAsRead(Long.parseLong(userIdStr), -id);
+                sendSuccessResponse(exchange, Map.of("id", id, "isRead", true, "changed", changed));
+                return;
+            }
             Notification notification = notificationService.markAsRead(id);
             sendSuccessResponse(exchange, notification);
         } catch (NumberFormatException e) {
@@ -815,7 +836,7 @@ public class NotificationController implements HttpHandler {
         try {
             Long userId = Long.parseLong(userIdStr);
             Long count = notificationService.getUnreadCount(userId);
-            sendSuccessResponse(exchange, Map.of("count", count));
+            sendCountResponse(exchange, "unread", count);
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
         } catch (Exception e) {
@@ -1002,7 +1023,7 @@ public class NotificationController implements HttpHandler {
         try {
             Long userId = Long.parseLong(userIdStr);
             Long count = notificationService.getHighPriorityUnreadCount(userId);
-            sendSuccessResponse(exchange, Map.of("count", count));
+            sendCountResponse(exchange, "high-priority-unread", count);
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
         } catch (Exception e) {
@@ -1287,12 +1308,34 @@ public class NotificationController implements HttpHandler {
      * @throws IOException در صورت خطا در پردازش
      */
     private void sendSuccessResponse(HttpExchange exchange, Object data, int statusCode) throws IOException {
-        String jsonResponse = JsonUtil.toJson(data);
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, jsonResponse.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(jsonResponse.getBytes());
+        JsonResponseWriter.global().write(exchange, statusCode, data);
+    }
+
+    /**
+     * ارسال شمارنده با ETag
+     * 
+     * ETag از خود مقدار ساخته می‌شود؛ اگر کلاینت همان مقدار را در If-None-Match
+     * بفرستد پاسخ 304 بدون بدنه برمی‌گردد. شمارنده‌ها از حافظه خوانده می‌شوند،
+     * پس polling بدون تغییر نه به دیتابیس می‌رسد و نه بدنه‌ای منتقل می‌کند.
+     * 
+     * @param exchange HTTP exchange
+     * @param kind نوع شمارنده (بخشی از ETag)
+     * @param count مقدار شمارنده
+     * @throws IOException در صورت خطا در پردازش
+     */
+    private void sendCountResponse(HttpExchange exchange, String kind, long count) throws IOException {
+        String etag = "\"" + kind + "-" + count + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        Headers requestHeaders = exchange.getRequestHeaders();
+        String ifNoneMatch = requestHeaders != null ? requestHeaders.getFirst("If-None-Match") : null;
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*")
+                || Arrays.stream(ifNoneMatch.split(",")).map(String::trim).anyMatch(etag::equals))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
         }
+        sendSuccessResponse(exchange, Map.of("count", count));
     }
 
     /**
@@ -1304,11 +1347,6 @@ public class NotificationController implements HttpHandler {
      * @throws IOException در صورت خطا در پردازش
      */
     private void sendErrorResponse(HttpExchange exchange, int statusCode, String message) throws IOException {
-        String jsonResponse = JsonUtil.toJson(Map.of("error", message, "status", statusCode));
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, jsonResponse.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(jsonResponse.getBytes());
-        }
+        JsonResponseWriter.global().write(exchange, statusCode, Map.of("error", message, "status", statusCode));
     }
 } 
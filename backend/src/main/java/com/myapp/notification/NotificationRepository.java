@@ -1,16 +1,32 @@
 package com.myapp.notification;
 
+import com.myapp.common.events.EventBus;
 import com.myapp.common.models.Notification;
 import com.myapp.common.models.Notification.NotificationType;
 import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.NotificationBroadcast.BroadcastStatus;
+import com.myapp.common.models.NotificationBroadcast.FanOut;
+import com.myapp.common.models.BroadcastReadState;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.LockMode;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 /**
  * لایه دسترسی به داده‌های اعلان‌ها (Repository Pattern)
@@ -30,8 +46,8 @@ import java.util.Optional;
  * 
  * === عملیات گروهی ===
  * - علامت‌گذاری دسته‌ای به عنوان خوانده شده
- * - حذف منطقی اعلان‌های قدیمی
- * - حذف فیزیکی اعلان‌های منقضی
+ * - حذف منطقی اعلان‌های قدیمی (در chunk های کوچک با تراکنش جداگانه)
+ * - حذف فیزیکی اعلان‌های منقضی (در chunk های کوچک با تراکنش جداگانه)
  * - ذخیره دسته‌ای اعلان‌ها
  * 
  * === آمار و گزارش ===
@@ -54,6 +70,60 @@ import java.util.Optional;
  */
 public class NotificationRepository {
 
+    /** تعداد ردیف هر chunk در حذف/به‌روزرسانی‌های نگهداری */
+    public static final int DEFAULT_MAINTENANCE_CHUNK_SIZE = 1000;
+
+    /** اندازه batch JDBC هنگام درج اعلان‌های broadcast */
+    private static final int BROADCAST_JDBC_BATCH_SIZE = 100;
+
+    /** مدت نمایش broadcast های fan-out-on-read (هم‌اندازه نگهداری اعلان‌های عادی) */
+    public static final int BROADCAST_VISIBLE_DAYS = 90;
+
+    /** ترتیب لیست اعلان‌ها: جدیدترین اول */
+    private static final Comparator<Notification> NEWEST_FIRST =
+        Comparator.comparing(Notification::getCreatedAt).reversed();
+
+    /** مدت اعتبار کش لیست broadcast های فعال */
+    private final long broadcastCacheMillis = Long.getLong("notification.broadcast.cache.millis", 5000);
+
+    /** شمارنده‌های خوانده نشده هر کاربر برای polling کلاینت */
+    private final UnreadCounters unreadCounters = new UnreadCounters(
+        Long.getLong("notification.unread.cache.ttl.millis", 30_000L), System::currentTimeMillis);
+
+    /** کش لیست broadcast های فعال (تعداد کم، مشترک بین همه کاربران) */
+    private volatile List<NotificationBroadcast> activeBroadcasts;
+    private volatile long activeBroadcastsExpireAt;
+
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    public NotificationRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public NotificationRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
+    /**
+     * session فقط خواندنی برای لیست‌ها و شمارش‌ها
+     * (با SessionFactory تزریق شده مستقیم، در غیر این صورت از طریق مسیریاب replica)
+     */
+    private Session readSession() {
+        return sessionFactory != null
+            ? ReplicaRouter.readOnly(sessionFactory.openSession())
+            : DatabaseUtil.openReadSession();
+    }
+
     // ==================== BASIC CRUD OPERATIONS ====================
     
     /**
@@ -68,10 +138,12 @@ public class NotificationRepository {
      */
     public Notification save(Notification notification) {
         Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
             session.persist(notification);
             transaction.commit();
+            unreadCounters.apply(notification.getUserId(), unreadWeight(notification), highPriorityWeight(notification));
+            publishCreated(notification.getUserId(), notification);
             return notification;
         } catch (Exception e) {
             if (transaction != null) {
@@ -89,7 +161,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public Optional<Notification> findById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Notification notification = session.get(Notification.class, id);
             return Optional.ofNullable(notification);
         } catch (Exception e) {
@@ -125,10 +197,15 @@ public class NotificationRepository {
         Exception lastException = null;
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
+            Notification previous = notification.getId() != null ? session.get(Notification.class, notification.getId()) : null;
+            long previousUnread = previous != null ? unreadWeight(previous) : 0;
+            long previousHigh = previous != null ? highPriorityWeight(previous) : 0;
             session.merge(notification);
             transaction.commit();
+            unreadCounters.apply(notification.getUserId(),
+                unreadWeight(notification) - previousUnread, highPriorityWeight(notification) - previousHigh);
             return notification;
         } catch (Exception e) {
                 lastException = e;
@@ -177,10 +254,17 @@ public class NotificationRepository {
      */
     public void delete(Notification notification) {
         Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            session.remove(session.contains(notification) ? notification : session.merge(notification));
+            Notification managed = notification.getId() != null ? session.get(Notification.class, notification.getId()) : null;
+            if (managed == null) {
+                managed = session.contains(notification) ? notification : session.merge(notification);
+            }
+            long unread = unreadWeight(managed);
+            long high = highPriorityWeight(managed);
+            session.remove(managed);
             transaction.commit();
+            unreadCounters.apply(managed.getUserId(), -unread, -high);
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
@@ -202,11 +286,11 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findByUserId(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
-            return query.getResultList();
+            return mergeBroadcasts(query.getResultList(), feedBroadcasts(session, userId, false));
         } catch (Exception e) {
             throw new RuntimeException("Error finding notifications by user id: " + e.getMessage(), e);
         }
@@ -216,6 +300,7 @@ public class NotificationRepository {
      * دریافت اعلان‌های کاربر با صفحه‌بندی
      * 
      * برای نمایش اعلان‌ها در قسمت‌های مختلف UI
+     * broadcast های fan-out-on-read به ترتیب زمان در صفحه‌ها ادغام می‌شوند
      * 
      * @param userId شناسه کاربر
      * @param page شماره صفحه (شروع از 0)
@@ -224,18 +309,67 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findByUserIdPaginated(Long userId, int page, int size) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
+            List<Notification> broadcasts = feedBroadcasts(session, userId, false);
+            int offset = page * size;
+            // اعلان عادی شماره j در لیست ادغام شده بین j و j + |broadcasts| قرار می‌گیرد،
+            // پس فقط همین پنجره از اعلان‌های عادی برای ساخت صفحه لازم است
+            int personalStart = Math.max(0, offset - broadcasts.size());
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
-            query.setFirstResult(page * size);
-            query.setMaxResults(size);
-            return query.getResultList();
+            query.setFirstResult(personalStart);
+            query.setMaxResults(size + broadcasts.size());
+            List<Notification> personal = query.getResultList();
+            if (broadcasts.isEmpty()) {
+                return personal;
+            }
+            int mergedStart = 0;
+            if (personalStart > 0) {
+                if (personal.isEmpty()) {
+                    return List.of();
+                }
+                // broadcast های جدیدتر از اولین اعلان پنجره همگی قبل از این صفحه‌اند
+                Notification first = personal.get(0);
+                int newer = (int) broadcasts.stream().filter(b -> NEWEST_FIRST.compare(b, first) < 0).count();
+                broadcasts = broadcasts.subList(newer, broadcasts.size());
+                mergedStart = personalStart + newer;
+            }
+            List<Notification> merged = mergeBroadcasts(personal, broadcasts);
+            int from = Math.min(merged.size(), offset - mergedStart);
+            int to = Math.min(merged.size(), from + size);
+            return new ArrayList<>(merged.subList(from, to));
         } catch (Exception e) {
             throw new RuntimeException("Error finding paginated notifications: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * دریافت یک صفحه از اعلان‌های کاربر با keyset pagination روی (createdAt, id)
+     * 
+     * برخلاف findByUserIdPaginated هزینه هر صفحه به عمق آن وابسته نیست
+     * و اعلان‌های جدید باعث تکرار یا جا افتادن رکوردها بین صفحات نمی‌شوند.
+     * 
+     * @param userId شناسه کاربر
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه اعلان‌ها (جدیدترین اول) همراه با cursor صفحه بعد
+     * @throws RuntimeException در صورت خطا در جستجو
+     */
+    public CursorPage<Notification> findPageByUserId(Long userId, CursorPageRequest request) {
+        try (Session session = readSession()) {
+            return KeysetQuery.from(Notification.class, "Notification n")
+                .where("n.userId = :userId")
+                .where("n.isDeleted = false")
+                .param("userId", userId)
+                .orderBy("n.createdAt", Notification::getCreatedAt, "n.id", Notification::getId)
+                .fetch(session, request);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding notification page: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * دریافت اعلان‌های خوانده نشده کاربر
      * 
@@ -246,11 +380,11 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findUnreadByUserId(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
-            return query.getResultList();
+            return mergeBroadcasts(query.getResultList(), feedBroadcasts(session, userId, true));
         } catch (Exception e) {
             throw new RuntimeException("Error finding unread notifications: " + e.getMessage(), e);
         }
@@ -265,7 +399,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findByUserIdAndType(Long userId, NotificationType type) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.type = :type AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
@@ -285,7 +419,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findByUserIdAndPriority(Long userId, NotificationPriority priority) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.priority = :priority AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
@@ -306,7 +440,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findHighPriorityByUserId(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.priority = :priority AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
@@ -326,7 +460,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findRecentByUserId(Long userId, int days) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             LocalDateTime since = LocalDateTime.now().minusDays(days);
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.createdAt >= :since AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
@@ -350,7 +484,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findOrderNotifications(Long orderId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             String hql = "FROM Notification n WHERE n.relatedEntityId = :orderId AND n.type IN (:orderTypes) AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("orderId", orderId);
@@ -370,7 +504,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findUserOrderNotifications(Long userId, Long orderId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.relatedEntityId = :orderId AND n.type IN (:orderTypes) AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
@@ -390,7 +524,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findRestaurantNotifications(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             String hql = "FROM Notification n WHERE n.relatedEntityId = :restaurantId AND n.type = :type AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("restaurantId", restaurantId);
@@ -409,7 +543,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Notification> findDeliveryNotifications(Long deliveryId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             String hql = "FROM Notification n WHERE n.relatedEntityId = :deliveryId AND n.type = :type AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("deliveryId", deliveryId);
@@ -433,14 +567,22 @@ public class NotificationRepository {
      */
     public int markAllAsReadForUser(Long userId) {
         Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
             String hql = "UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.userId = :userId AND n.isRead = false AND n.isDeleted = false";
             Query<?> query = session.createQuery(hql);
             query.setParameter("readAt", LocalDateTime.now());
             query.setParameter("userId", userId);
             int result = query.executeUpdate();
+            List<NotificationBroadcast> broadcasts = activeFeedBroadcasts(session);
+            if (!broadcasts.isEmpty()) {
+                BroadcastReadState state = lockReadState(session, userId);
+                result += (int) broadcasts.stream().filter(b -> !state.isRead(b)).count();
+                // لیست جدیدترین اول است
+                state.markAllRead(broadcasts.get(0));
+            }
             transaction.commit();
+            unreadCounters.invalidate(userId);
             return result;
         } catch (Exception e) {
             if (transaction != null) {
@@ -460,7 +602,7 @@ public class NotificationRepository {
      */
     public int markAsReadByType(Long userId, NotificationType type) {
         Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
             String hql = "UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.userId = :userId AND n.type = :type AND n.isRead = false AND n.isDeleted = false";
             Query<?> query = session.createQuery(hql);
@@ -469,6 +611,7 @@ public class NotificationRepository {
             query.setParameter("type", type);
             int result = query.executeUpdate();
             transaction.commit();
+            unreadCounters.invalidate(userId);
             return result;
         } catch (Exception e) {
             if (transaction != null) {
@@ -489,23 +632,31 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در حذف
      */
     public int softDeleteOldNotifications(int daysOld) {
-        Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysOld);
-            String hql = "UPDATE Notification n SET n.isDeleted = true, n.deletedAt = :deletedAt WHERE n.createdAt < :cutoffDate AND n.isDeleted = false";
-            Query<?> query = session.createQuery(hql);
-            query.setParameter("deletedAt", LocalDateTime.now());
-            query.setParameter("cutoffDate", cutoffDate);
-            int result = query.executeUpdate();
-            transaction.commit();
-            return result;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error soft deleting old notifications: " + e.getMessage(), e);
-        }
+        return softDeleteOldNotifications(daysOld, DEFAULT_MAINTENANCE_CHUNK_SIZE);
+    }
+
+    /**
+     * حذف منطقی اعلان‌های قدیمی در chunk های محدود
+     * 
+     * هر chunk در تراکنش جداگانه انجام می‌شود تا قفل‌های جدول کوتاه بمانند.
+     * در صورت خطا، chunk های قبلی commit شده باقی می‌مانند و اجرای بعدی ادامه می‌دهد.
+     * 
+     * @param daysOld تعداد روزهای قدیمی بودن
+     * @param chunkSize حداکثر ردیف هر تراکنش
+     * @return تعداد اعلان‌های حذف شده
+     * @throws RuntimeException در صورت خطا در حذف
+     */
+    public int softDeleteOldNotifications(int daysOld, int chunkSize) {
+        LocalDateTime now = LocalDateTime.now();
+        return processInChunks(
+            "SELECT n.id FROM Notification n WHERE n.createdAt < :cutoffDate AND n.isDeleted = false AND n.id > :lastId ORDER BY n.id",
+            now.minusDays(daysOld), chunkSize,
+            (session, ids) -> session.createMutationQuery(
+                    "UPDATE Notification n SET n.isDeleted = true, n.deletedAt = :deletedAt WHERE n.id IN :ids")
+                .setParameter("deletedAt", now)
+                .setParameter("ids", ids)
+                .executeUpdate(),
+            "Error soft deleting old notifications: ");
     }
 
     /**
@@ -519,21 +670,89 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در حذف
      */
     public int hardDeleteOldNotifications(int daysOld) {
-        Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysOld);
-            String hql = "DELETE FROM Notification n WHERE n.deletedAt < :cutoffDate AND n.isDeleted = true";
-            Query<?> query = session.createQuery(hql);
-            query.setParameter("cutoffDate", cutoffDate);
-            int result = query.executeUpdate();
-            transaction.commit();
-            return result;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        return hardDeleteOldNotifications(daysOld, DEFAULT_MAINTENANCE_CHUNK_SIZE);
+    }
+
+    /**
+     * حذف فیزیکی اعلان‌های منقضی در chunk های محدود
+     * 
+     * به جای یک DELETE بزرگ که کل جدول را برای مدت طولانی قفل می‌کند،
+     * شناسه‌ها chunk به chunk (به ترتیب id) انتخاب و هر chunk در تراکنش
+     * جداگانه حذف می‌شود.
+     * 
+     * @param daysOld تعداد روزهای انقضا
+     * @param chunkSize حداکثر ردیف هر تراکنش
+     * @return تعداد اعلان‌های حذف شده
+     * @throws RuntimeException در صورت خطا در حذف
+     */
+    public int hardDeleteOldNotifications(int daysOld, int chunkSize) {
+        return processInChunks(
+            "SELECT n.id FROM Notification n WHERE n.deletedAt < :cutoffDate AND n.isDeleted = true AND n.id > :lastId ORDER BY n.id",
+            LocalDateTime.now().minusDays(daysOld), chunkSize,
+            (session, ids) -> session.createMutationQuery("DELETE FROM Notification n WHERE n.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate(),
+            "Error hard deleting old notifications: ");
+    }
+
+    /**
+     * اجرای یک عملیات گروهی روی ردیف‌های منطبق، chunk به chunk
+     * 
+     * شناسه‌ها با keyset (id > آخرین شناسه) انتخاب می‌شوند، پس هر chunk
+     * یک range scan کوتاه روی کلید اصلی است و ردیفی دوبار پردازش نمی‌شود.
+     * بین chunk ها مکث کوتاهی (notification.maintenance.chunk.pause.millis،
+     * پیش‌فرض ۱۰) انجام می‌شود تا ترافیک عادی بین آن‌ها جا شود.
+     */
+    private int processInChunks(String idQuery, LocalDateTime cutoffDate, int chunkSize,
+                                BiFunction<Session, List<Long>, Integer> action, String errorMessage) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        try {
+            return runChunks(idQuery, cutoffDate, chunkSize, action, errorMessage);
+        } finally {
+            // اعلان‌های خوانده نشده قدیمی هم ممکن است حذف شده باشند
+            unreadCounters.invalidateAll();
+        }
+    }
+
+    private int runChunks(String idQuery, LocalDateTime cutoffDate, int chunkSize,
+                          BiFunction<Session, List<Long>, Integer> action, String errorMessage) {
+        long pauseMillis = Long.getLong("notification.maintenance.chunk.pause.millis", 10);
+        int total = 0;
+        long lastId = 0;
+        while (true) {
+            List<Long> ids;
+            Transaction transaction = null;
+            try (Session session = sessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+                ids = session.createQuery(idQuery, Long.class)
+                    .setParameter("cutoffDate", cutoffDate)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(chunkSize)
+                    .getResultList();
+                if (!ids.isEmpty()) {
+                    total += action.apply(session, ids);
+                }
+                transaction.commit();
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw new RuntimeException(errorMessage + e.getMessage(), e);
+            }
+            if (ids.size() < chunkSize) {
+                return total;
+            }
+            lastId = ids.get(ids.size() - 1);
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return total;
+                }
             }
-            throw new RuntimeException("Error hard deleting old notifications: " + e.getMessage(), e);
         }
     }
 
@@ -547,14 +766,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در شمارش
      */
     public long getUnreadCount(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.isDeleted = false";
-            Query<Long> query = session.createQuery(hql, Long.class);
-            query.setParameter("userId", userId);
-            return query.getSingleResult();
-        } catch (Exception e) {
-            throw new RuntimeException("Error getting unread count: " + e.getMessage(), e);
-        }
+        return unreadCounters.get(userId, () -> loadUnreadCounts(userId)).unread();
     }
 
     /**
@@ -566,7 +778,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در شمارش
      */
     public long getNotificationCountByType(Long userId, NotificationType type) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             String hql = "SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.type = :type AND n.isDeleted = false";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("userId", userId);
@@ -585,17 +797,72 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در شمارش
      */
     public long getHighPriorityUnreadCount(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.priority = :priority AND n.isRead = false AND n.isDeleted = false";
-            Query<Long> query = session.createQuery(hql, Long.class);
-            query.setParameter("userId", userId);
-            query.setParameter("priority", NotificationPriority.HIGH);
-            return query.getSingleResult();
+        return unreadCounters.get(userId, () -> loadUnreadCounts(userId)).highPriority();
+    }
+
+    /**
+     * آیا شمارش خوانده نشده‌های کاربر بدون مراجعه به دیتابیس در دسترس است
+     * 
+     * @param userId شناسه کاربر
+     * @return true اگر شمارنده معتبر در حافظه باشد
+     */
+    public boolean hasCachedUnreadCounts(Long userId) {
+        return unreadCounters.isCached(userId);
+    }
+
+    /**
+     * آمار شمارنده‌های خوانده نشده (برای مانیتورینگ)
+     */
+    public Map<String, Object> getUnreadCounterStatistics() {
+        return unreadCounters.getStatistics();
+    }
+
+    /**
+     * خواندن شمارش‌های خوانده نشده از دیتابیس (در صورت نبود در حافظه)
+     *
+     * از primary خوانده می‌شود، نه replica: مقدار بارگذاری شده پایه شمارنده
+     * حافظه است و تغییرات بعدی به صورت افزایشی روی آن اعمال می‌شوند، پس
+     * خواندن از replica عقب‌مانده خطا را تا انقضای شمارنده نگه می‌داشت.
+     */
+    private UnreadCounters.Counts loadUnreadCounts(Long userId) {
+        try (Session session = sessionFactory().openSession()) {
+            String hql = "SELECT COUNT(n), COALESCE(SUM(CASE WHEN n.priority = :priority THEN 1 ELSE 0 END), 0) " +
+                         "FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.isDeleted = false";
+            Object[] row = session.createQuery(hql, Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("priority", NotificationPriority.HIGH)
+                .getSingleResult();
+            long unread = ((Number) row[0]).longValue() + feedBroadcasts(session, userId, true).size();
+            return new UnreadCounters.Counts(unread, ((Number) row[1]).longValue());
         } catch (Exception e) {
-            throw new RuntimeException("Error getting high priority unread count: " + e.getMessage(), e);
+            throw new RuntimeException("Error getting unread count: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * ارسال اعلان جدید به اتصال‌های لحظه‌ای (SSE) کاربر
+     */
+    private static void publishCreated(Long userId, Notification notification) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", notification.getId());
+        payload.put("title", notification.getTitle());
+        payload.put("message", notification.getMessage());
+        payload.put("type", notification.getType());
+        payload.put("priority", notification.getPriority());
+        payload.put("createdAt", String.valueOf(notification.getCreatedAt()));
+        EventBus.global().publish(userId, "notification", payload);
+    }
+
+    /** سهم یک اعلان در شمارش خوانده نشده‌ها */
+    private static long unreadWeight(Notification notification) {
+        return !notification.isRead() && !notification.isDeleted() ? 1 : 0;
+    }
+
+    /** سهم یک اعلان در شمارش خوانده نشده‌های فوری */
+    private static long highPriorityWeight(Notification notification) {
+        return unreadWeight(notification) == 1 && notification.getPriority() == NotificationPriority.HIGH ? 1 : 0;
+    }
+
     /**
      * دریافت آخرین اعلان کاربر
      * 
@@ -604,7 +871,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public Optional<Notification> getLatestNotification(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false ORDER BY n.createdAt DESC";
             Query<Notification> query = session.createQuery(hql, Notification.class);
             query.setParameter("userId", userId);
@@ -626,7 +893,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در محاسبه آمار
      */
     public List<Object[]> getNotificationStatsByType(Long userId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             String hql = "SELECT n.type, COUNT(n), SUM(CASE WHEN n.isRead = false THEN 1 ELSE 0 END) FROM Notification n WHERE n.userId = :userId AND n.isDeleted = false GROUP BY n.type";
             Query<Object[]> query = session.createQuery(hql, Object[].class);
             query.setParameter("userId", userId);
@@ -647,7 +914,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در محاسبه آمار
      */
     public List<Object[]> getDailyNotificationCounts(Long userId, int days) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             LocalDateTime since = LocalDateTime.now().minusDays(days);
             String hql = "SELECT DATE(n.createdAt), COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.createdAt >= :since AND n.isDeleted = false GROUP BY DATE(n.createdAt) ORDER BY DATE(n.createdAt) DESC";
             Query<Object[]> query = session.createQuery(hql, Object[].class);
@@ -670,7 +937,7 @@ public class NotificationRepository {
      * @throws RuntimeException در صورت خطا در جستجو
      */
     public List<Long> getAllActiveUserIds() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             String hql = "SELECT DISTINCT u.id FROM User u WHERE u.isActive = true";
             Query<Long> query = session.createQuery(hql, Long.class);
             return query.getResultList();
@@ -682,31 +949,344 @@ public class NotificationRepository {
     /**
      * ذخیره دسته‌ای اعلان‌ها
      * 
-     * برای بهینه‌سازی performance هنگام ارسال اعلان‌های گروهی
-     * از batch processing برای کاهش تعداد round-trip ها استفاده می‌کند
+     * شناسه‌ها هنگام persist از بلوک‌های pooled گرفته می‌شوند و INSERT ها در
+     * commit با JDBC batch (hibernate.jdbc.batch_size) ارسال می‌شوند.
+     * 
+     * flush میانی عمداً انجام نمی‌شود: در SQLite رزرو بلوک شناسه جدید با
+     * connection جداگانه روی جدول notifications_SEQ نوشته می‌شود و اگر این
+     * تراکنش قبلاً ردیفی نوشته باشد، قفل نوشتن دیتابیس را نگه داشته و رزرو
+     * بلوک منتظر خودش می‌ماند (database is locked). پس همه شناسه‌ها قبل از
+     * اولین INSERT رزرو می‌شوند.
      * 
      * @param notifications لیست اعلان‌ها برای ذخیره
      * @throws RuntimeException در صورت خطا در ذخیره‌سازی
      */
     public void saveBatch(List<Notification> notifications) {
         Transaction transaction = null;
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            int batchSize = 50; // بهینه‌سازی برای SQLite
-            for (int i = 0; i < notifications.size(); i++) {
-                session.persist(notifications.get(i));
-                if (i % batchSize == 0 && i > 0) {
-                    // flush و clear برای جلوگیری از OutOfMemory
+            for (Notification notification : notifications) {
+                session.persist(notification);
+            }
+            transaction.commit();
+            notifications.stream().map(Notification::getUserId).distinct().forEach(unreadCounters::invalidate);
+            notifications.forEach(notification -> publishCreated(notification.getUserId(), notification));
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error saving batch notifications: " + e.getMessage(), e);
+        }
+    }
+
+    // ==================== BROADCAST DELIVERY ====================
+
+    /**
+     * شناسه کاربران فعال بعد از یک شناسه (keyset)
+     * 
+     * @param afterUserId شناسه آخرین کاربر chunk قبلی (0 برای شروع)
+     * @param limit حداکثر تعداد
+     * @return شناسه‌ها به ترتیب صعودی
+     */
+    public List<Long> findActiveUserIdsAfter(long afterUserId, int limit) {
+        try (Session session = readSession()) {
+            return session.createQuery(
+                    "SELECT u.id FROM User u WHERE u.isActive = true AND u.id > :afterId ORDER BY u.id", Long.class)
+                .setParameter("afterId", afterUserId)
+                .setMaxResults(limit)
+                .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Error getting active user ids: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * ذخیره یک broadcast جدید
+     * 
+     * @param broadcast broadcast برای ذخیره
+     * @return broadcast ذخیره شده با شناسه
+     */
+    public NotificationBroadcast saveBroadcast(NotificationBroadcast broadcast) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            session.persist(broadcast);
+            transaction.commit();
+            if (broadcast.getFanOut() == FanOut.READ) {
+                invalidateBroadcastCache();
+                unreadCounters.invalidateAll();
+                publishCreated(EventBus.ALL_USERS, broadcast.toFeedNotification(null, false));
+            }
+            return broadcast;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error saving broadcast: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * تحویل یک chunk از broadcast به کاربران داده شده
+     * 
+     * درج اعلان‌ها (با batch JDBC) و ثبت پیشرفت broadcast در یک تراکنش انجام
+     * می‌شود. به‌روزرسانی پیشرفت شرطی است (lastUserId باید هنوز قبل از این
+     * chunk باشد)، پس اگر اجرای دیگری همین chunk را تحویل داده باشد کل تراکنش
+     * برگردانده می‌شود و اعلان تکراری ثبت نمی‌شود.
+     * 
+     * رویداد لحظه‌ای (SSE) فقط یک بار، با تحویل اولین chunk و برای
+     * {@link EventBus#ALL_USERS} منتشر می‌شود؛ broadcast همه کاربران فعال را
+     * هدف می‌گیرد و انتشار به ازای هر گیرنده قفل EventBus را به اندازه تعداد
+     * کاربران اشغال می‌کرد.
+     * 
+     * @param broadcast broadcast در حال تحویل
+     * @param userIds شناسه کاربران chunk به ترتیب صعودی
+     * @return تعداد اعلان‌های درج شده (0 اگر chunk قبلاً تحویل شده بود)
+     * @throws RuntimeException در صورت خطا در ذخیره‌سازی
+     */
+    public int deliverBroadcastChunk(NotificationBroadcast broadcast, List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Long lastUserId = userIds.get(userIds.size() - 1);
+        boolean firstChunk = broadcast.getLastUserId() == null || broadcast.getLastUserId() == 0L;
+        Transaction transaction = null;
+        try (Session session = sessionFactory().openSession()) {
+            session.setJdbcBatchSize(BROADCAST_JDBC_BATCH_SIZE);
+            transaction = session.beginTransaction();
+            int claimed = session.createMutationQuery(
+                    "UPDATE NotificationBroadcast b SET b.lastUserId = :lastUserId, " +
+                    "b.deliveredCount = b.deliveredCount + :count, b.updatedAt = :now " +
+                    "WHERE b.id = :id AND b.lastUserId < :firstUserId")
+                .setParameter("lastUserId", lastUserId)
+                .setParameter("count", (long) userIds.size())
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", broadcast.getId())
+                .setParameter("firstUserId", userIds.get(0))
+                .executeUpdate();
+            if (claimed == 0) {
+                transaction.rollback();
+                return 0;
+            }
+            for (int i = 0; i < userIds.size(); i++) {
+                session.persist(broadcast.toNotification(userIds.get(i)));
+                if ((i + 1) % BROADCAST_JDBC_BATCH_SIZE == 0) {
                     session.flush();
                     session.clear();
                 }
             }
             transaction.commit();
+            long high = broadcast.getPriority() == NotificationPriority.HIGH ? 1 : 0;
+            userIds.forEach(userId -> unreadCounters.apply(userId, 1, high));
+            if (firstChunk) {
+                // یک رویداد برای کل broadcast، نه یک رویداد به ازای هر گیرنده
+                publishCreated(EventBus.ALL_USERS, broadcast.toNotification(null));
+            }
+            broadcast.setLastUserId(lastUserId);
+            broadcast.setDeliveredCount(broadcast.getDeliveredCount() + userIds.size());
+            return userIds.size();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error delivering broadcast chunk: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * تغییر وضعیت broadcast
+     * 
+     * @param broadcastId شناسه broadcast
+     * @param status وضعیت جدید
+     */
+    public void updateBroadcastStatus(Long broadcastId, BroadcastStatus status) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            LocalDateTime now = LocalDateTime.now();
+            session.createMutationQuery(
+                    "UPDATE NotificationBroadcast b SET b.status = :status, b.updatedAt = :now, " +
+                    "b.completedAt = :completedAt WHERE b.id = :id")
+                .setParameter("status", status)
+                .setParameter("now", now)
+                .setParameter("completedAt", status == BroadcastStatus.COMPLETED ? now : null)
+                .setParameter("id", broadcastId)
+                .executeUpdate();
+            transaction.commit();
         } catch (Exception e) {
             if (transaction != null) {
                 transaction.rollback();
             }
-            throw new RuntimeException("Error saving batch notifications: " + e.getMessage(), e);
+            throw new RuntimeException("Error updating broadcast status: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * جستجوی broadcast با شناسه
+     */
+    public Optional<NotificationBroadcast> findBroadcastById(Long broadcastId) {
+        try (Session session = sessionFactory().openSession()) {
+            return Optional.ofNullable(session.get(NotificationBroadcast.class, broadcastId));
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding broadcast: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * broadcast هایی که تحویلشان تمام نشده (برای ادامه بعد از توقف)
+     */
+    public List<NotificationBroadcast> findUnfinishedBroadcasts() {
+        try (Session session = sessionFactory().openSession()) {
+            return session.createQuery(
+                    "FROM NotificationBroadcast b WHERE b.status <> :completed ORDER BY b.id", NotificationBroadcast.class)
+                .setParameter("completed", BroadcastStatus.COMPLETED)
+                .getResultList();
+        } catch (Exception e) {
+            throw new RuntimeException("Error finding unfinished broadcasts: " + e.getMessage(), e);
+        }
+    }
+
+    // ==================== FAN-OUT-ON-READ BROADCASTS ====================
+
+    /**
+     * علامت‌گذاری یک broadcast به عنوان خوانده شده برای کاربر
+     * 
+     * @param userId شناسه کاربر
+     * @param broadcastId شناسه broadcast
+     * @return true اگر broadcast فعال بود و قبلاً خوانده نشده بود
+     * @throws RuntimeException در صورت خطا در به‌روزرسانی
+     */
+    public boolean markBroadcastAsRead(Long userId, Long broadcastId) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            List<NotificationBroadcast> active = activeFeedBroadcasts(session);
+            NotificationBroadcast broadcast = active.stream()
+                .filter(b -> b.getId().equals(broadcastId))
+                .findFirst()
+                .orElse(null);
+            boolean changed = broadcast != null && lockReadState(session, userId).markRead(broadcast, active);
+            transaction.commit();
+            if (changed) {
+                unreadCounters.apply(userId, -1, 0);
+            }
+            return changed;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error marking broadcast as read: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * حذف broadcast های fan-out-on-read قدیمی‌تر از بازه نمایش
+     * 
+     * @param daysOld حداقل سن broadcast
+     * @return تعداد broadcast های حذف شده
+     */
+    public int deleteExpiredBroadcasts(int daysOld) {
+        Transaction transaction = null;
+        try (Session session = sessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int deleted = session.createMutationQuery(
+                    "DELETE FROM NotificationBroadcast b WHERE b.fanOut = :fanOut AND b.createdAt < :cutoffDate")
+                .setParameter("fanOut", FanOut.READ)
+                .setParameter("cutoffDate", LocalDateTime.now().minusDays(daysOld))
+                .executeUpdate();
+            transaction.commit();
+            invalidateBroadcastCache();
+            unreadCounters.invalidateAll();
+            return deleted;
+        } catch (Exception e) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw new RuntimeException("Error deleting expired broadcasts: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * broadcast های فعال کاربر به شکل Notification (جدیدترین اول)
+     * 
+     * @param unreadOnly فقط موارد خوانده نشده
+     */
+    private List<Notification> feedBroadcasts(Session session, Long userId, boolean unreadOnly) {
+        List<NotificationBroadcast> broadcasts = activeFeedBroadcasts(session);
+        if (broadcasts.isEmpty()) {
+            return List.of();
+        }
+        BroadcastReadState state = session.get(BroadcastReadState.class, userId);
+        List<Notification> feed = new ArrayList<>(broadcasts.size());
+        for (NotificationBroadcast broadcast : broadcasts) {
+            boolean read = state != null && state.isRead(broadcast);
+            if (!unreadOnly || !read) {
+                feed.add(broadcast.toFeedNotification(userId, read));
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * broadcast های fan-out-on-read داخل بازه نمایش، جدیدترین اول
+     * 
+     * تعداد آن‌ها (کمپین‌ها) کم و برای همه کاربران یکسان است، پس برای مدت
+     * کوتاهی (notification.broadcast.cache.millis) در حافظه نگه داشته می‌شوند
+     * و شمارش خوانده نشده‌ها به ازای هر کاربر فقط یک خواندن با کلید اصلی
+     * (BroadcastReadState) اضافه می‌کند.
+     */
+    private List<NotificationBroadcast> activeFeedBroadcasts(Session session) {
+        List<NotificationBroadcast> cached = activeBroadcasts;
+        long now = System.currentTimeMillis();
+        if (cached != null && now < activeBroadcastsExpireAt) {
+            return cached;
+        }
+        List<NotificationBroadcast> loaded = session.createQuery(
+                "FROM NotificationBroadcast b WHERE b.fanOut = :fanOut AND b.createdAt >= :since " +
+                "ORDER BY b.createdAt DESC, b.id DESC", NotificationBroadcast.class)
+            .setParameter("fanOut", FanOut.READ)
+            .setParameter("since", LocalDateTime.now().minusDays(BROADCAST_VISIBLE_DAYS))
+            .getResultList();
+        loaded.forEach(session::detach);
+        activeBroadcasts = List.copyOf(loaded);
+        activeBroadcastsExpireAt = now + broadcastCacheMillis;
+        return activeBroadcasts;
+    }
+
+    private void invalidateBroadcastCache() {
+        activeBroadcasts = null;
+    }
+
+    /**
+     * وضعیت خواندن broadcast های کاربر با قفل ردیف (یا ردیف جدید)
+     */
+    private BroadcastReadState lockReadState(Session session, Long userId) {
+        BroadcastReadState state = session.get(BroadcastReadState.class, userId, LockMode.PESSIMISTIC_WRITE);
+        if (state == null) {
+            state = new BroadcastReadState(userId);
+            session.persist(state);
+        }
+        return state;
+    }
+
+    /**
+     * ادغام دو لیست مرتب (جدیدترین اول)؛ در زمان برابر اعلان عادی جلوتر است
+     */
+    private static List<Notification> mergeBroadcasts(List<Notification> personal, List<Notification> broadcasts) {
+        if (broadcasts.isEmpty()) {
+            return personal;
+        }
+        List<Notification> merged = new ArrayList<>(personal.size() + broadcasts.size());
+        int i = 0;
+        int j = 0;
+        while (i < personal.size() || j < broadcasts.size()) {
+            if (j == broadcasts.size()
+                || (i < personal.size() && NEWEST_FIRST.compare(personal.get(i), broadcasts.get(j)) <= 0)) {
+                merged.add(personal.get(i++));
+            } else {
+                merged.add(broadcasts.get(j++));
+            }
         }
+        return merged;
     }
 } 
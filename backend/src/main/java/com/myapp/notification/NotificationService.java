@@ -3,7 +3,11 @@ package com.myapp.notification;
 import com.myapp.common.models.Notification;
 import com.myapp.common.models.Notification.NotificationType;
 import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.NotificationBroadcast.BroadcastStatus;
 import com.myapp.common.models.OrderStatus;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.auth.AuthRepository;
 
 import java.time.LocalDateTime;
@@ -163,6 +167,20 @@ public class NotificationService {
         return notificationRepository.findByUserIdPaginated(userId, page, size);
     }
 
+    /**
+     * دریافت یک صفحه از اعلان‌های کاربر (keyset pagination)
+     * 
+     * @param userId شناسه کاربر
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه اعلان‌ها همراه با cursor صفحه بعد
+     * @throws IllegalArgumentException در صورت نامعتبر بودن پارامترها
+     */
+    public CursorPage<Notification> getUserNotificationsPage(Long userId, CursorPageRequest request) {
+        validateUserId(userId);
+        return notificationRepository.findPageByUserId(userId,
+            request != null ? request : CursorPageRequest.firstPage());
+    }
+
     /**
      * دریافت اعلان‌های خوانده نشده کاربر
      * 
@@ -515,34 +533,18 @@ public class NotificationService {
     /**
      * پخش اعلان نگهداری سیستم به تمام کاربران فعال
      * 
-     * از batch processing برای بهینه‌سازی performance استفاده می‌کند
+     * روش تحویل با {@link #publishBroadcast} انتخاب می‌شود
      * 
      * @param maintenanceTime زمان نگهداری
+     * @return broadcast ثبت شده با آمار تحویل
      * @throws IllegalArgumentException در صورت null بودن زمان
      */
-    public void broadcastSystemMaintenance(LocalDateTime maintenanceTime) {
+    public NotificationBroadcast broadcastSystemMaintenance(LocalDateTime maintenanceTime) {
         if (maintenanceTime == null) {
             throw new IllegalArgumentException("Maintenance time cannot be null");
         }
 
-        // دریافت تمام کاربران فعال و ایجاد اعلان‌ها به صورت دسته‌ای
-        List<Long> activeUserIds = notificationRepository.getAllActiveUserIds();
-        List<Notification> notifications = new java.util.ArrayList<>();
-        
-        for (Long userId : activeUserIds) {
-            try {
-                Notification notification = Notification.systemMaintenance(userId, maintenanceTime);
-                notifications.add(notification);
-            } catch (Exception e) {
-                // log خطا ولی ادامه کار با سایر کاربران
-                System.err.println("Failed to create maintenance notification for user " + userId + ": " + e.getMessage());
-            }
-        }
-        
-        // ذخیره تمام اعلان‌ها به صورت دسته‌ای
-        if (!notifications.isEmpty()) {
-            notificationRepository.saveBatch(notifications);
-        }
+        return publishBroadcast(NotificationBroadcast.from(Notification.systemMaintenance(null, maintenanceTime)));
     }
 
     /**
@@ -551,9 +553,10 @@ public class NotificationService {
      * @param title عنوان پیام تبلیغاتی
      * @param message متن پیام
      * @param priority سطح اولویت (پیش‌فرض: LOW)
+     * @return broadcast ثبت شده با آمار تحویل
      * @throws IllegalArgumentException در صورت نامعتبر بودن ورودی‌ها
      */
-    public void broadcastPromotionalMessage(String title, String message, NotificationPriority priority) {
+    public NotificationBroadcast broadcastPromotionalMessage(String title, String message, NotificationPriority priority) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title cannot be null or empty");
         }
@@ -564,24 +567,99 @@ public class NotificationService {
             priority = NotificationPriority.LOW;
         }
 
-        // دریافت تمام کاربران فعال و ایجاد اعلان‌ها به صورت دسته‌ای
-        List<Long> activeUserIds = notificationRepository.getAllActiveUserIds();
-        List<Notification> notifications = new java.util.ArrayList<>();
-        
-        for (Long userId : activeUserIds) {
-            try {
-                Notification notification = new Notification(userId, title, message, NotificationType.PROMOTIONAL, priority);
-                notifications.add(notification);
-            } catch (Exception e) {
-                // log خطا ولی ادامه کار با سایر کاربران
-                System.err.println("Failed to create promotional notification for user " + userId + ": " + e.getMessage());
+        return publishBroadcast(new NotificationBroadcast(NotificationType.PROMOTIONAL, title, message, priority));
+    }
+
+    /**
+     * ثبت و تحویل یک broadcast
+     * 
+     * به صورت پیش‌فرض broadcast فقط یک بار ذخیره و هنگام خواندن اعلان‌های
+     * هر کاربر با آن‌ها ادغام می‌شود (fan-out-on-read، هزینه نوشتن O(1)).
+     * با notification.broadcast.fanout=write برای هر کاربر فعال یک اعلان درج
+     * می‌شود ({@link #deliverBroadcast}).
+     * 
+     * @param broadcast broadcast جدید
+     * @return broadcast ذخیره شده
+     */
+    public NotificationBroadcast publishBroadcast(NotificationBroadcast broadcast) {
+        if ("write".equalsIgnoreCase(System.getProperty("notification.broadcast.fanout", "read"))) {
+            broadcast.setFanOut(NotificationBroadcast.FanOut.WRITE);
+            return deliverBroadcast(notificationRepository.saveBroadcast(broadcast));
+        }
+        broadcast.setFanOut(NotificationBroadcast.FanOut.READ);
+        broadcast.setStatus(BroadcastStatus.COMPLETED);
+        broadcast.setCompletedAt(broadcast.getCreatedAt());
+        return notificationRepository.saveBroadcast(broadcast);
+    }
+
+    /**
+     * علامت‌گذاری یک broadcast به عنوان خوانده شده برای کاربر
+     * 
+     * broadcast ها در لیست اعلان‌ها با شناسه منفی (منفی شناسه broadcast) نمایش
+     * داده می‌شوند.
+     * 
+     * @param userId شناسه کاربر
+     * @param broadcastId شناسه broadcast (مثبت)
+     * @return true اگر وضعیت تغییر کرد
+     * @throws IllegalArgumentException در صورت نامعتبر بودن شناسه‌ها
+     */
+    public boolean markBroadcastAsRead(Long userId, Long broadcastId) {
+        validateUserId(userId);
+        if (broadcastId == null || broadcastId <= 0) {
+            throw new IllegalArgumentException("Broadcast ID must be positive");
+        }
+        return notificationRepository.markBroadcastAsRead(userId, broadcastId);
+    }
+
+    /**
+     * تحویل (یا ادامه تحویل) یک broadcast به کاربران فعال
+     * 
+     * شناسه کاربران با keyset و در chunk های محدود
+     * (notification.broadcast.chunk.size، پیش‌فرض ۵۰۰) خوانده می‌شوند و هر
+     * chunk در تراکنش جداگانه درج می‌شود، پس نه کل لیست کاربران در حافظه
+     * نگه داشته می‌شود و نه جدول برای مدت طولانی قفل می‌ماند. پیشرفت در
+     * broadcast ثبت می‌شود و تحویل متوقف شده با فراخوانی دوباره از همان
+     * نقطه ادامه می‌یابد.
+     * 
+     * @param broadcast broadcast ذخیره شده
+     * @return همان broadcast با وضعیت و آمار به‌روز
+     */
+    public NotificationBroadcast deliverBroadcast(NotificationBroadcast broadcast) {
+        int chunkSize = Math.max(1, Integer.getInteger("notification.broadcast.chunk.size", 500));
+        try {
+            while (true) {
+                List<Long> userIds = notificationRepository.findActiveUserIdsAfter(broadcast.getLastUserId(), chunkSize);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                if (notificationRepository.deliverBroadcastChunk(broadcast, userIds) == 0) {
+                    // اجرای دیگری همین broadcast را تحویل می‌دهد
+                    return broadcast;
+                }
             }
+            notificationRepository.updateBroadcastStatus(broadcast.getId(), BroadcastStatus.COMPLETED);
+            broadcast.setStatus(BroadcastStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            System.err.println("Broadcast " + broadcast.getId() + " stopped after " +
+                               broadcast.getDeliveredCount() + " deliveries: " + e.getMessage());
+            notificationRepository.updateBroadcastStatus(broadcast.getId(), BroadcastStatus.FAILED);
+            broadcast.setStatus(BroadcastStatus.FAILED);
         }
-        
-        // ذخیره تمام اعلان‌ها به صورت دسته‌ای
-        if (!notifications.isEmpty()) {
-            notificationRepository.saveBatch(notifications);
+        return broadcast;
+    }
+
+    /**
+     * ادامه تحویل broadcast هایی که ناتمام مانده‌اند (مثلاً بعد از restart)
+     * 
+     * @return تعداد اعلان‌های تحویل شده در این اجرا
+     */
+    public long resumeUnfinishedBroadcasts() {
+        long delivered = 0;
+        for (NotificationBroadcast broadcast : notificationRepository.findUnfinishedBroadcasts()) {
+            long before = broadcast.getDeliveredCount();
+            delivered += deliverBroadcast(broadcast).getDeliveredCount() - before;
         }
+        return delivered;
     }
 
     // ==================== ANALYTICS AND STATISTICS ====================
@@ -594,7 +672,7 @@ public class NotificationService {
      * @throws IllegalArgumentException در صورت نامعتبر بودن شناسه کاربر
      */
     public long getUnreadCount(Long userId) {
-        validateUserId(userId);
+        validateCountUserId(userId);
         return notificationRepository.getUnreadCount(userId);
     }
 
@@ -620,7 +698,7 @@ public class NotificationService {
      * @throws IllegalArgumentException در صورت نامعتبر بودن شناسه کاربر
      */
     public long getHighPriorityUnreadCount(Long userId) {
-        validateUserId(userId);
+        validateCountUserId(userId);
         return notificationRepository.getHighPriorityUnreadCount(userId);
     }
 
@@ -632,7 +710,7 @@ public class NotificationService {
      * @throws IllegalArgumentException در صورت نامعتبر بودن شناسه کاربر
      */
     public boolean hasUnreadHighPriorityNotifications(Long userId) {
-        validateUserId(userId);
+        validateCountUserId(userId);
         return notificationRepository.getHighPriorityUnreadCount(userId) > 0;
     }
 
@@ -752,6 +830,19 @@ public class NotificationService {
      * @throws RuntimeException در صورت خطا در عملیات نگهداری
      */
     public void performDailyMaintenance() {
+        runDailyMaintenance();
+    }
+
+    /**
+     * اجرای نگهداری روزانه و برگرداندن تعداد کل اعلان‌های پردازش شده
+     * 
+     * توسط MaintenanceScheduler فراخوانی می‌شود؛ حذف‌ها در repository
+     * به صورت chunk به chunk انجام می‌شوند.
+     * 
+     * @return مجموع اعلان‌های حذف منطقی و فیزیکی شده
+     * @throws RuntimeException در صورت خطا در عملیات نگهداری
+     */
+    public int runDailyMaintenance() {
         try {
             // حذف منطقی اعلان‌های قدیمی‌تر از 90 روز
             int softDeleted = cleanupOldNotifications(90);
@@ -761,6 +852,10 @@ public class NotificationService {
             int hardDeleted = purgeOldNotifications(120);
             System.out.println("Daily maintenance: Hard deleted " + hardDeleted + " old notifications");
             
+            // حذف broadcast های fan-out-on-read خارج از بازه نمایش
+            int expiredBroadcasts = notificationRepository.deleteExpiredBroadcasts(NotificationRepository.BROADCAST_VISIBLE_DAYS);
+            
+            return softDeleted + hardDeleted + expiredBroadcasts;
         } catch (Exception e) {
             System.err.println("Error during daily maintenance: " + e.getMessage());
             throw e;
@@ -789,6 +884,19 @@ public class NotificationService {
         }
     }
 
+    /**
+     * اعتبارسنجی شناسه کاربر برای شمارش خوانده نشده‌ها
+     * 
+     * اگر شمارش کاربر در حافظه باشد، کاربر قبلاً اعتبارسنجی شده و polling
+     * شمارنده نباید به دیتابیس برسد.
+     */
+    private void validateCountUserId(Long userId) {
+        if (userId != null && userId > 0 && notificationRepository.hasCachedUnreadCounts(userId)) {
+            return;
+        }
+        validateUserId(userId);
+    }
+
     /**
      * اعتبارسنجی محتوای اعلان
      * 
@@ -0,0 +1,163 @@
+package com.myapp.notification;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * شمارنده‌های درون حافظه‌ای اعلان‌های خوانده نشده هر کاربر
+ *
+ * شمارش‌ها یک بار از دیتابیس خوانده می‌شوند (COUNT) و بعد از آن با هر
+ * تغییر (ایجاد، خواندن، حذف) به صورت delta به‌روز می‌شوند، پس polling
+ * مکرر کلاینت به دیتابیس نمی‌رسد. دیتابیس منبع اصلی است: عملیات گروهی
+ * شمارنده را باطل می‌کنند و هر شمارنده بعد از TTL دوباره از دیتابیس خوانده
+ * می‌شود تا تغییرات نودهای دیگر هم دیده شوند.
+ *
+ * هماهنگی با lock های راه‌راه (striped): هر تغییر نسخه stripe کاربر را
+ * افزایش می‌دهد و مقدار خوانده شده از دیتابیس فقط در صورتی نصب می‌شود که
+ * در حین خواندن تغییری روی همان stripe رخ نداده باشد؛ بنابراین شمارش قدیمی
+ * هیچ‌وقت جای delta های جدیدتر را نمی‌گیرد.
+ */
+final class UnreadCounters {
+
+    /**
+     * شمارش خوانده نشده‌های یک کاربر
+     *
+     * @param unread همه اعلان‌های خوانده نشده (به همراه broadcast ها)
+     * @param highPriority اعلان‌های خوانده نشده با اولویت HIGH
+     */
+    record Counts(long unread, long highPriority) {}
+
+    private record Entry(Counts counts, long loadedAt) {}
+
+    private static final int STRIPES = 64;
+
+    /** حداکثر تعداد کاربران نگهداری شده؛ بعد از آن کل کش خالی می‌شود */
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicLong epoch = new AtomicLong();
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    UnreadCounters(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * شمارش کاربر از حافظه یا در صورت نبود/انقضا از دیتابیس
+     *
+     * @param userId شناسه کاربر
+     * @param loader خواندن شمارش از دیتابیس
+     */
+    Counts get(Long userId, Supplier<Counts> loader) {
+        Entry entry = entries.get(userId);
+        if (entry != null && clock.getAsLong() - entry.loadedAt() < ttlMillis) {
+            hits.incrementAndGet();
+            return entry.counts();
+        }
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        long currentEpoch = epoch.get();
+        Counts counts = loader.get();
+        loads.incrementAndGet();
+        synchronized (locks[stripe]) {
+            if (versions.get(stripe) == version && epoch.get() == currentEpoch) {
+                if (entries.size() >= MAX_ENTRIES) {
+                    entries.clear();
+                }
+                entries.put(userId, new Entry(counts, clock.getAsLong()));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * آیا شمارش معتبر کاربر در حافظه موجود است
+     */
+    boolean isCached(Long userId) {
+        Entry entry = entries.get(userId);
+        return entry != null && clock.getAsLong() - entry.loadedAt() < ttlMillis;
+    }
+
+    /**
+     * اعمال تغییر بعد از commit
+     *
+     * @param unreadDelta تغییر تعداد خوانده نشده‌ها
+     * @param highPriorityDelta تغییر تعداد خوانده نشده‌های فوری
+     */
+    void apply(Long userId, long unreadDelta, long highPriorityDelta) {
+        if (userId == null || (unreadDelta == 0 && highPriorityDelta == 0)) {
+            return;
+        }
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return;
+            }
+            long unread = entry.counts().unread() + unreadDelta;
+            long high = entry.counts().highPriority() + highPriorityDelta;
+            if (unread < 0 || high < 0) {
+                // شمارنده از دیتابیس عقب افتاده (مثلاً تغییر روی نود دیگر)
+                entries.remove(userId);
+            } else {
+                entries.put(userId, new Entry(new Counts(unread, high), entry.loadedAt()));
+            }
+        }
+    }
+
+    /**
+     * باطل کردن شمارش یک کاربر (بعد از عملیات گروهی)
+     */
+    void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        int stripe = stripe(userId);
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * باطل کردن همه شمارش‌ها (نگهداری، broadcast)
+     */
+    void invalidateAll() {
+        epoch.incrementAndGet();
+        // صبر برای پایان نصب‌هایی که epoch قبلی را دیده‌اند
+        for (Object lock : locks) {
+            synchronized (lock) {
+                // barrier
+            }
+        }
+        entries.clear();
+    }
+
+    Map<String, Object> getStatistics() {
+        return Map.of(
+            "entries", entries.size(),
+            "hits", hits.get(),
+            "loads", loads.get(),
+            "ttlMillis", ttlMillis
+        );
+    }
+
+    private static int stripe(Long userId) {
+        return (int) ((userId ^ (userId >>> 32)) & (STRIPES - 1));
+    }
+}
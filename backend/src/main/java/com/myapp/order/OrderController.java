@@ -1,19 +1,30 @@
 package com.myapp.order;
 
+import com.myapp.common.exceptions.InvalidRequestException;
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.JsonResponseWriter;
+import com.myapp.common.http.RequestBodyDecoder;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.Order;
 import com.myapp.common.models.OrderStatus;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.item.ItemRepository;
+import com.myapp.order.dto.CreateOrderRequest;
+import com.myapp.order.dto.OrderItemRequest;
 import com.myapp.restaurant.RestaurantRepository;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URI;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * کنترلر REST API مدیریت سفارشات و سبد خرید
@@ -39,6 +50,9 @@ import java.util.HashMap;
  * GET    /api/orders/active                    - سفارشات فعال
  * GET    /api/orders/pending                   - سفارشات در انتظار
  * 
+ * endpoint های لیستی صفحه‌بندی keyset دارند: ?limit=N&cursor=TOKEN
+ * (پیش‌فرض ۲۰، حداکثر ۱۰۰). توکن صفحه بعد در هدر X-Next-Cursor برمی‌گردد.
+ * 
  * === گزارش و آمار ===
  * GET    /api/orders/customer/{customerId}/statistics - آمار سفارشات مشتری
  * 
@@ -59,6 +73,9 @@ public class OrderController implements HttpHandler {
     /** سرویس اصلی مدیریت سفارشات */
     private final OrderService orderService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض کنترلر
      * 
@@ -71,6 +88,7 @@ public class OrderController implements HttpHandler {
             new ItemRepository(), 
             new RestaurantRepository()
         );
+        registerRoutes();
     }
     
     /**
@@ -82,13 +100,52 @@ public class OrderController implements HttpHandler {
      */
     public OrderController(OrderService orderService) {
         this.orderService = orderService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     * 
+     * مسیرهای ثابت (active، pending) بر پارامترها اولویت دارند، پس ترتیب ثبت مهم نیست.
+     */
+    private void registerRoutes() {
+        // === سبد خرید و چرخه حیات سفارش ===
+        router.post("/api/orders", (exchange, match) -> createOrder(exchange));
+        router.get("/api/orders/{orderId:long}", (exchange, match) ->
+            getOrderDetails(exchange, match.longParam("orderId")));
+        router.post("/api/orders/{orderId:long}/items", (exchange, match) ->
+            addItemToCart(exchange, match.longParam("orderId")));
+        router.put("/api/orders/{orderId:long}/items/{itemId:long}", (exchange, match) ->
+            updateItemQuantity(exchange, match.longParam("orderId"), match.longParam("itemId")));
+        router.delete("/api/orders/{orderId:long}/items/{itemId:long}", (exchange, match) ->
+            removeItemFromCart(exchange, match.longParam("orderId"), match.longParam("itemId")));
+        router.post("/api/orders/{orderId:long}/place", (exchange, match) ->
+            placeOrder(exchange, match.longParam("orderId")));
+        router.put("/api/orders/{orderId:long}/cancel", (exchange, match) ->
+            cancelOrder(exchange, match.longParam("orderId")));
+        router.put("/api/orders/{orderId:long}/status", (exchange, match) ->
+            updateOrderStatus(exchange, match.longParam("orderId")));
+        
+        // === جستجو و فیلتر ===
+        router.get("/api/orders/customer/{customerId:long}", (exchange, match) ->
+            getCustomerOrders(exchange, match.longParam("customerId")));
+        router.get("/api/orders/restaurant/{restaurantId:long}", (exchange, match) ->
+            getRestaurantOrders(exchange, match.longParam("restaurantId")));
+        router.get("/api/orders/status/{status:word}", (exchange, match) ->
+            getOrdersByStatus(exchange, match.param("status")));
+        router.get("/api/orders/active", (exchange, match) -> getActiveOrders(exchange));
+        router.get("/api/orders/pending", (exchange, match) -> getPendingOrders(exchange));
+        
+        // === گزارش و آمار ===
+        router.get("/api/orders/customer/{customerId:long}/statistics", (exchange, match) ->
+            getCustomerStatistics(exchange, match.longParam("customerId")));
     }
     
     /**
      * متد اصلی مدیریت درخواست‌های HTTP
      * 
-     * تمام درخواست‌های HTTP را دریافت و بر اساس method و path آن‌ها
-     * را به متدهای مناسب هدایت می‌کند.
+     * تمام درخواست‌های HTTP را دریافت و با Router (بر اساس method و path)
+     * به متدهای مناسب هدایت می‌کند.
      * 
      * شامل مدیریت جامع خطاها:
      * - 400 Bad Request: برای پارامترهای نامعتبر
@@ -105,23 +162,16 @@ public class OrderController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی بر اساس HTTP method
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
+        } catch (InvalidRequestException e) {
+            // بدنه درخواست نامعتبر - 400 یا 413
+            sendErrorResponse(exchange, e.getStatusCode(), e.getMessage());
         } catch (IllegalArgumentException e) {
             // خطای پارامتر نامعتبر - 400 Bad Request
             sendErrorResponse(exchange, 400, e.getMessage());
@@ -136,48 +186,6 @@ public class OrderController implements HttpHandler {
     
     // ==================== GET ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام درخواست‌های GET
-     * 
-     * بر اساس pattern های مختلف URL، درخواست‌ها را به متدهای مناسب هدایت می‌کند.
-     * از regex pattern matching برای شناسایی مسیرها استفاده می‌کند.
-     * 
-     * @param exchange HttpExchange شامل request و response
-     * @param path مسیر URL درخواست
-     * @throws IOException در صورت خطا در ارسال پاسخ
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/orders/\\d+")) {
-            // GET /api/orders/{orderId} - Get order details
-            Long orderId = extractOrderIdFromPath(path);
-            getOrderDetails(exchange, orderId);
-        } else if (path.matches("/api/orders/customer/\\d+")) {
-            // GET /api/orders/customer/{customerId} - Get customer orders
-            Long customerId = extractIdFromPath(path, "/api/orders/customer/");
-            getCustomerOrders(exchange, customerId);
-        } else if (path.matches("/api/orders/restaurant/\\d+")) {
-            // GET /api/orders/restaurant/{restaurantId} - Get restaurant orders
-            Long restaurantId = extractIdFromPath(path, "/api/orders/restaurant/");
-            getRestaurantOrders(exchange, restaurantId);
-        } else if (path.matches("/api/orders/status/\\w+")) {
-            // GET /api/orders/status/{status} - Get orders by status
-            String statusStr = extractStatusFromPath(path);
-            getOrdersByStatus(exchange, statusStr);
-        } else if (path.equals("/api/orders/active")) {
-            // GET /api/orders/active - Get active orders
-            getActiveOrders(exchange);
-        } else if (path.equals("/api/orders/pending")) {
-            // GET /api/orders/pending - Get pending orders
-            getPendingOrders(exchange);
-        } else if (path.matches("/api/orders/customer/\\d+/statistics")) {
-            // GET /api/orders/customer/{customerId}/statistics - Get customer statistics
-            Long customerId = extractIdFromPath(path, "/api/orders/customer/", "/statistics");
-            getCustomerStatistics(exchange, customerId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت جزئیات کامل یک سفارش
      * 
@@ -198,8 +206,8 @@ public class OrderController implements HttpHandler {
      * @throws IOException در صورت خطا در ارسال پاسخ
      */
     private void getCustomerOrders(HttpExchange exchange, Long customerId) throws IOException {
-        List<Order> orders = orderService.getCustomerOrders(customerId);
-        sendJsonResponse(exchange, 200, orders);
+        CursorPage<Order> page = orderService.getCustomerOrdersPage(customerId, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     /**
@@ -210,28 +218,30 @@ public class OrderController implements HttpHandler {
      * @throws IOException در صورت خطا در ارسال پاسخ
      */
     private void getRestaurantOrders(HttpExchange exchange, Long restaurantId) throws IOException {
-        List<Order> orders = orderService.getRestaurantOrders(restaurantId);
-        sendJsonResponse(exchange, 200, orders);
+        CursorPage<Order> page = orderService.getRestaurantOrdersPage(restaurantId, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     private void getOrdersByStatus(HttpExchange exchange, String statusStr) throws IOException {
+        OrderStatus status;
         try {
-            OrderStatus status = OrderStatus.valueOf(statusStr.toUpperCase());
-            List<Order> orders = orderService.getOrdersByStatus(status);
-            sendJsonResponse(exchange, 200, orders);
+            status = OrderStatus.valueOf(statusStr.toUpperCase());
         } catch (IllegalArgumentException e) {
             sendErrorResponse(exchange, 400, "Invalid status: " + statusStr);
+            return;
         }
+        CursorPage<Order> page = orderService.getOrdersByStatusPage(status, pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     private void getActiveOrders(HttpExchange exchange) throws IOException {
-        List<Order> orders = orderService.getActiveOrders();
-        sendJsonResponse(exchange, 200, orders);
+        CursorPage<Order> page = orderService.getActiveOrdersPage(pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     private void getPendingOrders(HttpExchange exchange) throws IOException {
-        List<Order> orders = orderService.getPendingOrders();
-        sendJsonResponse(exchange, 200, orders);
+        CursorPage<Order> page = orderService.getPendingOrdersPage(pageRequest(exchange));
+        sendPageResponse(exchange, page);
     }
     
     private void getCustomerStatistics(HttpExchange exchange, Long customerId) throws IOException {
@@ -241,35 +251,6 @@ public class OrderController implements HttpHandler {
     
     // ==================== POST ENDPOINTS ====================
     
-    /**
-     * مدیریت تمام درخواست‌های POST
-     * 
-     * شامل عملیات ایجاد و افزودن:
-     * - ایجاد سفارش جدید (سبد خرید)
-     * - افزودن آیتم به سبد خرید
-     * - ثبت نهایی سفارش (checkout)
-     * 
-     * @param exchange HttpExchange object
-     * @param path مسیر URL درخواست
-     * @throws IOException در صورت خطا در پردازش
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/orders")) {
-            // POST /api/orders - Create new order (shopping cart)
-            createOrder(exchange);
-        } else if (path.matches("/api/orders/\\d+/items")) {
-            // POST /api/orders/{orderId}/items - Add item to cart
-            Long orderId = extractOrderIdFromPath(path, "/items");
-            addItemToCart(exchange, orderId);
-        } else if (path.matches("/api/orders/\\d+/place")) {
-            // POST /api/orders/{orderId}/place - Place order (checkout)
-            Long orderId = extractOrderIdFromPath(path, "/place");
-            placeOrder(exchange, orderId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * ایجاد سفارش جدید (سبد خرید خالی)
      * 
@@ -285,70 +266,57 @@ public class OrderController implements HttpHandler {
      * @throws IOException در صورت خطا در پردازش
      */
     private void createOrder(HttpExchange exchange) throws IOException {
-        Map<String, Object> requestData = parseJsonRequest(exchange);
-        
-        // استخراج اطلاعات مورد نیاز از JSON
-        Long customerId = getLongFromMap(requestData, "customerId");
-        Long restaurantId = getLongFromMap(requestData, "restaurantId");
-        String deliveryAddress = getStringFromMap(requestData, "deliveryAddress");
-        String phone = getStringFromMap(requestData, "phone");
+        CreateOrderRequest request = RequestBodyDecoder.global().read(exchange, CreateOrderRequest.class);
         
         // ایجاد سفارش جدید و ارسال پاسخ
-        Order order = orderService.createOrder(customerId, restaurantId, deliveryAddress, phone);
+        Order order = orderService.createOrder(request.getCustomerId(), request.getRestaurantId(),
+                                               request.getDeliveryAddress(), request.getPhone());
         sendJsonResponse(exchange, 201, order);
     }
     
     private void addItemToCart(HttpExchange exchange, Long orderId) throws IOException {
-        Map<String, Object> requestData = parseJsonRequest(exchange);
-        
-        Long itemId = getLongFromMap(requestData, "itemId");
-        Integer quantity = getIntegerFromMap(requestData, "quantity");
+        OrderItemRequest request = RequestBodyDecoder.global().read(exchange, OrderItemRequest.class);
         
-        if (quantity == null) {
+        if (request.getQuantity() == null) {
             sendErrorResponse(exchange, 400, "Quantity is required");
             return;
         }
         
-        Order order = orderService.addItemToCart(orderId, itemId, quantity);
+        Order order = orderService.addItemToCart(orderId, request.getItemId(), request.getQuantity());
         sendJsonResponse(exchange, 200, order);
     }
     
     private void placeOrder(HttpExchange exchange, Long orderId) throws IOException {
-        Order order = orderService.placeOrder(orderId);
-        sendJsonResponse(exchange, 200, order);
+        OrderPlacementResult result = orderService.tryPlaceOrder(orderId);
+        if (result.isSuccess()) {
+            sendJsonResponse(exchange, 200, result.getOrder());
+            return;
+        }
+        
+        // گزارش خطای هر ردیف سفارش
+        List<Map<String, Object>> failures = new ArrayList<>();
+        for (OrderPlacementResult.LineFailure failure : result.getFailures()) {
+            failures.add(failure.toMap());
+        }
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", result.getFailureMessage());
+        error.put("status", 400);
+        error.put("failures", failures);
+        sendJsonResponse(exchange, 400, error);
     }
     
     // ==================== PUT ENDPOINTS ====================
     
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/orders/\\d+/items/\\d+")) {
-            // PUT /api/orders/{orderId}/items/{itemId} - Update item quantity in cart
-            Long orderId = extractOrderIdFromPath(path, "/items/\\d+");
-            Long itemId = extractItemIdFromPath(path);
-            updateItemQuantity(exchange, orderId, itemId);
-        } else if (path.matches("/api/orders/\\d+/cancel")) {
-            // PUT /api/orders/{orderId}/cancel - Cancel order
-            Long orderId = extractOrderIdFromPath(path, "/cancel");
-            cancelOrder(exchange, orderId);
-        } else if (path.matches("/api/orders/\\d+/status")) {
-            // PUT /api/orders/{orderId}/status - Update order status
-            Long orderId = extractOrderIdFromPath(path, "/status");
-            updateOrderStatus(exchange, orderId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     private void updateItemQuantity(HttpExchange exchange, Long orderId, Long itemId) throws IOException {
-        Map<String, Object> requestData = parseJsonRequest(exchange);
-        Integer quantity = getIntegerFromMap(requestData, "quantity");
+        OrderItemRequest request = RequestBodyDecoder.global().read(exchange, OrderItemRequest.class);
         
-        if (quantity == null) {
+        if (request.getQuantity() == null) {
             sendErrorResponse(exchange, 400, "Quantity is required");
             return;
         }
         
-        Order order = orderService.updateItemQuantity(orderId, itemId, quantity);
+        Order order = orderService.updateItemQuantity(orderId, itemId, request.getQuantity());
         sendJsonResponse(exchange, 200, order);
     }
     
@@ -375,17 +343,6 @@ public class OrderController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/orders/\\d+/items/\\d+")) {
-            // DELETE /api/orders/{orderId}/items/{itemId} - Remove item from cart
-            Long orderId = extractOrderIdFromPath(path, "/items/\\d+");
-            Long itemId = extractItemIdFromPath(path);
-            removeItemFromCart(exchange, orderId, itemId);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     private void removeItemFromCart(HttpExchange exchange, Long orderId, Long itemId) throws IOException {
         Order order = orderService.removeItemFromCart(orderId, itemId);
         sendJsonResponse(exchange, 200, order);
@@ -394,99 +351,18 @@ public class OrderController implements HttpHandler {
     // ==================== UTILITY METHODS ====================
     
     /**
-     * استخراج شناسه سفارش از مسیر URL
+     * خواندن بدنه درخواست JSON به صورت Map
      * 
-     * برای مسیرهای با فرمت /api/orders/{orderId}
-     * 
-     * @param path مسیر URL کامل
-     * @return شناسه سفارش
-     */
-    private Long extractOrderIdFromPath(String path) {
-        // استخراج از /api/orders/{orderId}
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[3]); // /api/orders/{orderId}
-    }
-    
-    private Long extractOrderIdFromPath(String path, String suffix) {
-        // Extract from /api/orders/{orderId}/suffix
-        String pathWithoutSuffix = path.substring(0, path.lastIndexOf(suffix));
-        String[] parts = pathWithoutSuffix.split("/");
-        return Long.parseLong(parts[3]);
-    }
-    
-    private Long extractItemIdFromPath(String path) {
-        // Extract from /api/orders/{orderId}/items/{itemId}
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[5]); // /api/orders/{orderId}/items/{itemId}
-    }
-    
-    private Long extractIdFromPath(String path, String prefix) {
-        String idStr = path.substring(prefix.length());
-        return Long.parseLong(idStr);
-    }
-    
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        String withoutPrefix = path.substring(prefix.length());
-        String idStr = withoutPrefix.substring(0, withoutPrefix.indexOf(suffix));
-        return Long.parseLong(idStr);
-    }
-    
-    private String extractStatusFromPath(String path) {
-        String[] parts = path.split("/");
-        return parts[parts.length - 1];
-    }
-    
-    /**
-     * پارس کردن درخواست JSON از HTTP request body
-     * 
-     * این متد ساده JSON parsing انجام می‌دهد. در محیط production
-     * بهتر است از کتابخانه‌هایی مثل Jackson یا Gson استفاده کرد.
-     * 
-     * ویژگی‌ها:
-     * - پشتیبانی از String، Number، Boolean
-     * - تشخیص خودکار نوع داده
-     * - مدیریت فیلدهای خالی
+     * با parser جریانی Jackson (RequestBodyDecoder) خوانده می‌شود؛ اشیاء تو در تو
+     * و مقادیر دارای کاما درست پردازش می‌شوند و اندازه بدنه محدود است.
      * 
      * @param exchange HttpExchange حاوی request body
-     * @return Map شامل key-value های JSON
+     * @return Map شامل key-value های JSON (برای بدنه خالی، Map خالی)
+     * @throws InvalidRequestException اگر JSON نامعتبر یا بیش از حد بزرگ باشد
      * @throws IOException در صورت خطا در خواندن request body
      */
     private Map<String, Object> parseJsonRequest(HttpExchange exchange) throws IOException {
-        // JSON parsing ساده - در production از Jackson یا Gson استفاده کنید
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        Map<String, Object> result = new HashMap<>();
-        
-        // پارسینگ JSON ساده (پیاده‌سازی ساده شده)
-        if (requestBody.trim().isEmpty()) {
-            return result;
-        }
-        
-        // حذف آکولاد و تقسیم بر اساس کاما
-        String content = requestBody.trim().replaceAll("[{}]", "");
-        String[] pairs = content.split(",");
-        
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(":");
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().replaceAll("\"", "");
-                String value = keyValue[1].trim().replaceAll("\"", "");
-                
-                // تلاش برای پارس کردن به عنوان عدد یا boolean
-                try {
-                    if (value.equals("true") || value.equals("false")) {
-                        result.put(key, Boolean.parseBoolean(value));
-                    } else if (value.contains(".")) {
-                        result.put(key, Double.parseDouble(value));
-                    } else {
-                        result.put(key, Long.parseLong(value));
-                    }
-                } catch (NumberFormatException e) {
-                    result.put(key, value);
-                }
-            }
-        }
-        
-        return result;
+        return RequestBodyDecoder.global().readMap(exchange);
     }
     
     private String getStringFromMap(Map<String, Object> map, String key) {
@@ -494,39 +370,31 @@ public class OrderController implements HttpHandler {
         return value != null ? value.toString() : null;
     }
     
-    private Long getLongFromMap(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) return null;
-        if (value instanceof Long) return (Long) value;
-        if (value instanceof Number) return ((Number) value).longValue();
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid number format for " + key + ": " + value);
-        }
+    /**
+     * ارسال پاسخ JSON به صورت جریانی
+     * 
+     * موجودیت‌ها ابتدا به نمای تخت API (همان فیلدهای قبلی) تبدیل می‌شوند و
+     * سپس Jackson آن‌ها را مستقیماً روی بدنه پاسخ می‌نویسد؛ لیست‌ها به صورت
+     * تنبل (lazy) تبدیل می‌شوند تا برای هر ردیف فقط یک Map موقت ساخته شود.
+     */
+    private void sendJsonResponse(HttpExchange exchange, int statusCode, Object data) throws IOException {
+        JsonResponseWriter.global().write(exchange, statusCode, toView(data));
     }
     
-    private Integer getIntegerFromMap(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) return null;
-        if (value instanceof Integer) return (Integer) value;
-        if (value instanceof Number) return ((Number) value).intValue();
-        try {
-            return Integer.parseInt(value.toString());
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid number format for " + key + ": " + value);
-        }
+    /**
+     * پارامترهای cursor و limit از query string (اندازه صفحه همیشه محدود است)
+     */
+    private CursorPageRequest pageRequest(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        return CursorPageRequest.fromQueryString(uri != null ? uri.getRawQuery() : null);
     }
     
-    private void sendJsonResponse(HttpExchange exchange, int statusCode, Object data) throws IOException {
-        String jsonResponse = convertToJson(data);
-        
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, jsonResponse.getBytes().length);
-        
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(jsonResponse.getBytes());
-        }
+    /**
+     * ارسال آیتم‌های صفحه به صورت آرایه JSON همراه با هدرهای صفحه‌بندی
+     */
+    private void sendPageResponse(HttpExchange exchange, CursorPage<Order> page) throws IOException {
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendJsonResponse(exchange, 200, page.getItems());
     }
     
     private void sendErrorResponse(HttpExchange exchange, int statusCode, String message) throws IOException {
@@ -538,73 +406,67 @@ public class OrderController implements HttpHandler {
         sendJsonResponse(exchange, statusCode, error);
     }
     
-    private String convertToJson(Object data) {
-        // Simple JSON serialization - in production, use Jackson or Gson
-        if (data == null) {
-            return "null";
-        }
-        
-        if (data instanceof String) {
-            return "\"" + data + "\"";
-        }
-        
-        if (data instanceof Number || data instanceof Boolean) {
-            return data.toString();
+    /**
+     * تبدیل داده پاسخ به ساختار قابل سریال‌سازی
+     */
+    private Object toView(Object data) {
+        if (data == null || data instanceof String || data instanceof Number || data instanceof Boolean) {
+            return data;
         }
         
         if (data instanceof Map) {
-            Map<?, ?> map = (Map<?, ?>) data;
-            StringBuilder sb = new StringBuilder("{");
-            boolean first = true;
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                if (!first) sb.append(",");
-                sb.append("\"").append(entry.getKey()).append("\":");
-                sb.append(convertToJson(entry.getValue()));
-                first = false;
-            }
-            sb.append("}");
-            return sb.toString();
+            Map<Object, Object> view = new LinkedHashMap<>();
+            ((Map<?, ?>) data).forEach((key, value) -> view.put(String.valueOf(key), toView(value)));
+            return view;
         }
         
         if (data instanceof List) {
             List<?> list = (List<?>) data;
-            StringBuilder sb = new StringBuilder("[");
-            boolean first = true;
-            for (Object item : list) {
-                if (!first) sb.append(",");
-                sb.append(convertToJson(item));
-                first = false;
-            }
-            sb.append("]");
-            return sb.toString();
+            return new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    return toView(list.get(index));
+                }
+                
+                @Override
+                public int size() {
+                    return list.size();
+                }
+            };
         }
         
-        // For complex objects like Order, use reflection-based serialization
-        return serializeObject(data);
-    }
-    
-    private String serializeObject(Object obj) {
-        // Simple object serialization for Order and other entities
-        if (obj instanceof Order) {
-            Order order = (Order) obj;
-            return String.format(
-                "{\"id\":%d,\"customerId\":%d,\"restaurantId\":%d,\"status\":\"%s\",\"totalAmount\":%.2f,\"deliveryAddress\":\"%s\",\"phone\":\"%s\",\"orderDate\":\"%s\",\"itemCount\":%d}",
-                order.getId(), order.getCustomer().getId(), order.getRestaurant().getId(),
-                order.getStatus(), order.getTotalAmount(), order.getDeliveryAddress(),
-                order.getPhone(), order.getOrderDate(), order.getOrderItems().size()
-            );
+        if (data instanceof Order) {
+            Order order = (Order) data;
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("id", order.getId());
+            view.put("customerId", order.getCustomer().getId());
+            view.put("restaurantId", order.getRestaurant().getId());
+            view.put("status", String.valueOf(order.getStatus()));
+            view.put("totalAmount", money(order.getTotalAmount()));
+            view.put("deliveryAddress", String.valueOf(order.getDeliveryAddress()));
+            view.put("phone", String.valueOf(order.getPhone()));
+            view.put("orderDate", String.valueOf(order.getOrderDate()));
+            view.put("itemCount", order.getOrderItems().size());
+            return view;
         }
         
-        if (obj instanceof OrderService.OrderStatistics) {
-            OrderService.OrderStatistics stats = (OrderService.OrderStatistics) obj;
-            return String.format(
-                "{\"totalOrders\":%d,\"completedOrders\":%d,\"cancelledOrders\":%d,\"totalSpent\":%.2f,\"activeOrders\":%d,\"averageOrderValue\":%.2f}",
-                stats.getTotalOrders(), stats.getCompletedOrders(), stats.getCancelledOrders(),
-                stats.getTotalSpent(), stats.getActiveOrders(), stats.getAverageOrderValue()
-            );
+        if (data instanceof OrderService.OrderStatistics) {
+            OrderService.OrderStatistics stats = (OrderService.OrderStatistics) data;
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("totalOrders", stats.getTotalOrders());
+            view.put("completedOrders", stats.getCompletedOrders());
+            view.put("cancelledOrders", stats.getCancelledOrders());
+            view.put("totalSpent", money(stats.getTotalSpent()));
+            view.put("activeOrders", stats.getActiveOrders());
+            view.put("averageOrderValue", money(stats.getAverageOrderValue()));
+            return view;
         }
         
-        // Fallback to toString
-        return "\"" + obj.toString() + "\"";
+        // سایر اشیاء (مثلاً enum ها) به صورت متن
+        return data.toString();
+    }
+    
+    private static BigDecimal money(Double amount) {
+        return amount == null ? null : BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
     }
 }
@@ -0,0 +1,122 @@
+package com.myapp.order;
+
+import com.myapp.common.models.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * نتیجه ثبت نهایی سفارش به همراه گزارش خطای هر ردیف
+ *
+ * در صورت موفقیت، سفارش تأیید شده و موجودی تمام آیتم‌ها کم شده است.
+ * در صورت شکست، هیچ تغییری در دیتابیس اعمال نشده و برای هر ردیف مشکل‌دار
+ * یک LineFailure گزارش می‌شود.
+ */
+public class OrderPlacementResult {
+
+    /**
+     * دلیل رد شدن یک ردیف سفارش
+     */
+    public enum FailureReason {
+        ITEM_NOT_FOUND,
+        ITEM_UNAVAILABLE,
+        INSUFFICIENT_STOCK
+    }
+
+    /**
+     * خطای یک ردیف سفارش
+     */
+    public static class LineFailure {
+        private final Long itemId;
+        private final String itemName;
+        private final int requested;
+        private final int available;
+        private final FailureReason reason;
+
+        public LineFailure(Long itemId, String itemName, int requested, int available, FailureReason reason) {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.requested = requested;
+            this.available = available;
+            this.reason = reason;
+        }
+
+        public Long getItemId() { return itemId; }
+        public String getItemName() { return itemName; }
+        public int getRequested() { return requested; }
+        public int getAvailable() { return available; }
+        public FailureReason getReason() { return reason; }
+
+        /**
+         * پیام خطا با همان قالب قبلی placeOrder
+         */
+        public String getMessage() {
+            switch (reason) {
+                case ITEM_NOT_FOUND:
+                    return "Item no longer exists: " + itemName;
+                case ITEM_UNAVAILABLE:
+                    return "Item is no longer available: " + itemName;
+                default:
+                    return "Insufficient stock for item: " + itemName +
+                           ". Available: " + available + ", Ordered: " + requested;
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("itemId", itemId);
+            map.put("itemName", itemName);
+            map.put("requested", requested);
+            map.put("available", available);
+            map.put("reason", reason.name());
+            map.put("message", getMessage());
+            return map;
+        }
+    }
+
+    private final Order order;
+    private final List<LineFailure> failures;
+
+    private OrderPlacementResult(Order order, List<LineFailure> failures) {
+        this.order = order;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public static OrderPlacementResult placed(Order order) {
+        return new OrderPlacementResult(order, Collections.emptyList());
+    }
+
+    public static OrderPlacementResult rejected(List<LineFailure> failures) {
+        return new OrderPlacementResult(null, new ArrayList<>(failures));
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /** سفارش تأیید شده (در صورت شکست null) */
+    public Order getOrder() {
+        return order;
+    }
+
+    public List<LineFailure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * پیام خلاصه خطا: پیام اولین ردیف و تعداد ردیف‌های مشکل‌دار دیگر
+     */
+    public String getFailureMessage() {
+        if (failures.isEmpty()) {
+            return null;
+        }
+        String message = failures.get(0).getMessage();
+        if (failures.size() > 1) {
+            message += " (and " + (failures.size() - 1) + " more line(s) failed)";
+        }
+        return message;
+    }
+}
@@ -1,13 +1,30 @@
 package com.myapp.order;
 
+import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.models.FoodItem;
 import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
 import com.myapp.common.models.OrderStatus;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
+import com.myapp.common.search.CatalogSearchIndex;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,6 +35,51 @@ import java.util.Optional;
  */
 public class OrderRepository {
 
+    /** وضعیت‌های سفارش فعال (غیر از تحویل شده و لغو شده) */
+    static final List<OrderStatus> ACTIVE_STATUSES = List.of(
+        OrderStatus.PENDING,         // در انتظار
+        OrderStatus.CONFIRMED,       // تأیید شده
+        OrderStatus.PREPARING,       // در حال آماده‌سازی
+        OrderStatus.READY,           // آماده
+        OrderStatus.OUT_FOR_DELIVERY // در حال تحویل
+    );
+
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    /**
+     * آیا درایور تعداد ردیف‌های هر دستور batch را گزارش می‌کند
+     * پس از اولین Statement.SUCCESS_NO_INFO کاهش موجودی ردیف به ردیف اجرا می‌شود
+     */
+    private volatile boolean batchRowCountsReported = true;
+
+    public OrderRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها و بنچمارک‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public OrderRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
+    /**
+     * session فقط خواندنی برای لیست‌ها و تاریخچه سفارشات
+     * (با SessionFactory تزریق شده مستقیم، در غیر این صورت از طریق مسیریاب replica)
+     */
+    private Session readSession() {
+        return sessionFactory != null
+            ? ReplicaRouter.readOnly(sessionFactory.openSession())
+            : DatabaseUtil.openReadSession();
+    }
+
     /**
      * ذخیره سفارش جدید در دیتابیس
      * شناسه به صورت خودکار توسط Hibernate تولید می‌شود
@@ -26,7 +88,7 @@ public class OrderRepository {
      * @return سفارش ذخیره شده همراه با شناسه تولید شده
      */
     public Order saveNew(Order order) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.persist(order);   // شناسه به صورت خودکار تولید می‌شود
             tx.commit();
@@ -46,7 +108,7 @@ public class OrderRepository {
         if (order.getId() == null) {
             return saveNew(order);  // ایجاد سفارش جدید
         } else {
-            try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+            try (Session session = sessionFactory().openSession()) {
                 Transaction tx = session.beginTransaction();
                 session.merge(order);  // به‌روزرسانی سفارش موجود
                 tx.commit();
@@ -63,7 +125,7 @@ public class OrderRepository {
      * @return Optional حاوی سفارش کامل یا خالی در صورت عدم وجود
      */
     public Optional<Order> findById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Order> q = session.createQuery(
                     "select o from Order o left join fetch o.orderItems oi left join fetch oi.foodItem where o.id = :id", Order.class);
             q.setParameter("id", id);
@@ -79,7 +141,7 @@ public class OrderRepository {
      * @return لیست سفارشات مشتری
      */
     public List<Order> findByCustomer(Long customerId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Order> q = session.createQuery(
                     "select distinct o from Order o left join fetch o.orderItems oi left join fetch oi.foodItem where o.customer.id = :customerId order by o.orderDate desc", Order.class);
             q.setParameter("customerId", customerId);
@@ -95,7 +157,7 @@ public class OrderRepository {
      * @return لیست سفارشات رستوران
      */
     public List<Order> findByRestaurant(Long restaurantId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Order> q = session.createQuery(
                     "select distinct o from Order o left join fetch o.orderItems oi left join fetch oi.foodItem where o.restaurant.id = :restaurantId order by o.orderDate desc", Order.class);
             q.setParameter("restaurantId", restaurantId);
@@ -111,7 +173,7 @@ public class OrderRepository {
      * @return لیست سفارشات با وضعیت مشخص
      */
     public List<Order> findByStatus(OrderStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Order> q = session.createQuery(
                     "from Order where status = :status order by orderDate desc", Order.class);
             q.setParameter("status", status);
@@ -127,7 +189,7 @@ public class OrderRepository {
      * @return لیست سفارشات مشتری با وضعیت مشخص
      */
     public List<Order> findByCustomerAndStatus(Long customerId, OrderStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Order> q = session.createQuery(
                     "from Order where customer.id = :customerId and status = :status order by orderDate desc", 
                     Order.class);
@@ -145,7 +207,7 @@ public class OrderRepository {
      * @return لیست سفارشات رستوران با وضعیت مشخص
      */
     public List<Order> findByRestaurantAndStatus(Long restaurantId, OrderStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Order> q = session.createQuery(
                     "from Order where restaurant.id = :restaurantId and status = :status order by orderDate desc", 
                     Order.class);
@@ -162,7 +224,7 @@ public class OrderRepository {
      * @return لیست سفارشات PENDING
      */
     public List<Order> findPendingOrders() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Order> q = session.createQuery(
                     "from Order where status = :pending order by orderDate asc", Order.class);
             q.setParameter("pending", OrderStatus.PENDING);
@@ -177,16 +239,10 @@ public class OrderRepository {
      * @return لیست سفارشات فعال
      */
     public List<Order> findActiveOrders() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Order> q = session.createQuery(
                     "from Order where status in (:statuses) order by orderDate desc", Order.class);
-            q.setParameterList("statuses", List.of(
-                OrderStatus.PENDING,         // در انتظار
-                OrderStatus.CONFIRMED,       // تأیید شده
-                OrderStatus.PREPARING,       // در حال آماده‌سازی
-                OrderStatus.READY,           // آماده
-                OrderStatus.OUT_FOR_DELIVERY // در حال تحویل
-            ));
+            q.setParameterList("statuses", ACTIVE_STATUSES);
             return q.getResultList();
         }
     }
@@ -198,12 +254,97 @@ public class OrderRepository {
      * @return لیست همه سفارشات
      */
     public List<Order> findAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Order> q = session.createQuery("from Order order by orderDate desc", Order.class);
             return q.getResultList();
         }
     }
 
+    // ==================== KEYSET PAGINATION ====================
+
+    /**
+     * صفحه‌ای از سفارشات یک مشتری (جدیدترین اول)
+     *
+     * @param customerId شناسه مشتری
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه سفارشات همراه با cursor صفحه بعد
+     */
+    public CursorPage<Order> findPageByCustomer(Long customerId, CursorPageRequest request) {
+        return fetchOrderPage(KeysetQuery.from(Order.class, "Order o")
+            .where("o.customer.id = :customerId")
+            .param("customerId", customerId), request);
+    }
+
+    /**
+     * صفحه‌ای از سفارشات یک رستوران (جدیدترین اول)
+     *
+     * @param restaurantId شناسه رستوران
+     * @param request درخواست صفحه
+     * @return صفحه سفارشات
+     */
+    public CursorPage<Order> findPageByRestaurant(Long restaurantId, CursorPageRequest request) {
+        return fetchOrderPage(KeysetQuery.from(Order.class, "Order o")
+            .where("o.restaurant.id = :restaurantId")
+            .param("restaurantId", restaurantId), request);
+    }
+
+    /**
+     * صفحه‌ای از سفارشات با یکی از وضعیت‌های داده شده (جدیدترین اول)
+     *
+     * @param statuses وضعیت‌های مورد نظر
+     * @param request درخواست صفحه
+     * @return صفحه سفارشات
+     */
+    public CursorPage<Order> findPageByStatuses(Collection<OrderStatus> statuses, CursorPageRequest request) {
+        return fetchOrderPage(KeysetQuery.from(Order.class, "Order o")
+            .where("o.status in (:statuses)")
+            .param("statuses", statuses), request);
+    }
+
+    /**
+     * صفحه‌ای از سفارشات فعال (جدیدترین اول)
+     */
+    public CursorPage<Order> findActivePage(CursorPageRequest request) {
+        return findPageByStatuses(ACTIVE_STATUSES, request);
+    }
+
+    /**
+     * صفحه‌ای از سفارشات در انتظار تأیید (قدیمی‌ترین اول برای پردازش)
+     */
+    public CursorPage<Order> findPendingPage(CursorPageRequest request) {
+        return fetchOrderPage(KeysetQuery.from(Order.class, "Order o")
+            .where("o.status = :pending")
+            .param("pending", OrderStatus.PENDING)
+            .ascending(), request);
+    }
+
+    /**
+     * اجرای کوئری صفحه و بارگذاری آیتم‌های سفارشات همان صفحه
+     *
+     * fetch join روی collection همراه با setMaxResults باعث صفحه‌بندی در حافظه
+     * می‌شود، بنابراین آیتم‌ها با یک کوئری دوم روی شناسه‌های صفحه بارگذاری می‌شوند.
+     */
+    private CursorPage<Order> fetchOrderPage(KeysetQuery<Order> query, CursorPageRequest request) {
+        try (Session session = readSession()) {
+            CursorPage<Order> page = query
+                .orderBy("o.orderDate", Order::getOrderDate, "o.id", Order::getId)
+                .fetch(session, request);
+            if (!page.getItems().isEmpty()) {
+                List<Long> ids = new ArrayList<>();
+                for (Order order : page.getItems()) {
+                    ids.add(order.getId());
+                }
+                // نمونه‌های همین session مقداردهی می‌شوند
+                session.createQuery(
+                        "select distinct o from Order o left join fetch o.orderItems oi left join fetch oi.foodItem where o.id in (:ids)",
+                        Order.class)
+                    .setParameterList("ids", ids)
+                    .getResultList();
+            }
+            return page;
+        }
+    }
+
     /**
      * به‌روزرسانی وضعیت سفارش
      * 
@@ -211,7 +352,7 @@ public class OrderRepository {
      * @param status وضعیت جدید
      */
     public void updateStatus(Long id, OrderStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Order order = session.get(Order.class, id);
             if (order != null) {
@@ -227,7 +368,7 @@ public class OrderRepository {
      * @param id شناسه سفارش برای حذف
      */
     public void delete(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Order order = session.get(Order.class, id);
             if (order != null) {
@@ -247,7 +388,7 @@ public class OrderRepository {
         if (id == null || id <= 0) {
             return false;
         }
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Query<Long> query = session.createQuery("SELECT COUNT(o) FROM Order o WHERE o.id = :id", Long.class);
             query.setParameter("id", id);
             Long count = query.uniqueResult();
@@ -262,7 +403,7 @@ public class OrderRepository {
      * @return سفارش به‌روزرسانی شده
      */
     public Order update(Order order) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Order updated = (Order) session.merge(order);  // merge برای به‌روزرسانی
             tx.commit();
@@ -270,12 +411,209 @@ public class OrderRepository {
         }
     }
 
+    /**
+     * ثبت نهایی سفارش و رزرو موجودی در یک تراکنش دیتابیسی
+     * 
+     * مراحل (همه در یک session و یک تراکنش):
+     * 1. بارگذاری سفارش به همراه ردیف‌ها
+     * 2. بارگذاری تمام آیتم‌های غذایی با یک IN query
+     * 3. بررسی هر ردیف و جمع‌آوری خطاها (در صورت خطا rollback)
+     * 4. کاهش موجودی با UPDATE شرطی (quantity >= n) در یک JDBC batch؛
+     *    اگر درخواست همزمانی زودتر موجودی را برداشته باشد، ردیف رد می‌شود.
+     *    اگر درایور به جای تعداد ردیف SUCCESS_NO_INFO برگرداند، تراکنش rollback و
+     *    یک بار دیگر با UPDATE های جداگانه (تعداد ردیف دقیق) اجرا می‌شود
+     * 5. تغییر وضعیت سفارش از PENDING به CONFIRMED با UPDATE شرطی
+     * 
+     * @param orderId شناسه سفارش
+     * @param estimatedDeliveryTime زمان تخمینی تحویل
+     * @return نتیجه ثبت به همراه گزارش خطای ردیف‌ها
+     * @throws NotFoundException در صورت یافت نشدن سفارش
+     * @throws IllegalArgumentException در صورت نامعتبر بودن وضعیت یا خالی بودن سفارش
+     */
+    public OrderPlacementResult placeOrder(Long orderId, LocalDateTime estimatedDeliveryTime) {
+        try {
+            return placeOrderOnce(orderId, estimatedDeliveryTime);
+        } catch (UnreportedRowCountsException e) {
+            batchRowCountsReported = false;
+            return placeOrderOnce(orderId, estimatedDeliveryTime);
+        }
+    }
+
+    private OrderPlacementResult placeOrderOnce(Long orderId, LocalDateTime estimatedDeliveryTime) {
+        try (Session session = sessionFactory().openSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                Order order = session.createQuery(
+                        "select distinct o from Order o left join fetch o.orderItems where o.id = :id", Order.class)
+                    .setParameter("id", orderId)
+                    .setReadOnly(true)
+                    .uniqueResult();
+                if (order == null) {
+                    throw new NotFoundException("Order", orderId);
+                }
+                if (order.getStatus() != OrderStatus.PENDING) {
+                    throw new IllegalArgumentException("Order cannot be placed. Current status: " + order.getStatus());
+                }
+                if (order.getOrderItems().isEmpty()) {
+                    throw new IllegalArgumentException("Cannot place empty order");
+                }
+
+                // جمع تعداد درخواستی هر آیتم (به ترتیب ردیف‌های سفارش)
+                Map<Long, Integer> requested = new LinkedHashMap<>();
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    requested.merge(orderItem.getFoodItem().getId(), orderItem.getQuantity(), Integer::sum);
+                }
+
+                Map<Long, FoodItem> items = new HashMap<>();
+                for (FoodItem item : session.createQuery("from FoodItem f where f.id in (:ids)", FoodItem.class)
+                        .setParameterList("ids", requested.keySet())
+                        .setReadOnly(true)
+                        .getResultList()) {
+                    items.put(item.getId(), item);
+                }
+
+                List<OrderPlacementResult.LineFailure> failures = validateStock(requested, items);
+                if (failures.isEmpty()) {
+                    failures = decrementStock(session, requested, items, batchRowCountsReported);
+                }
+                if (!failures.isEmpty()) {
+                    tx.rollback();
+                    return OrderPlacementResult.rejected(failures);
+                }
+
+                int confirmed = session.createMutationQuery(
+                        "update Order o set o.status = :confirmed, o.estimatedDeliveryTime = :eta " +
+                        "where o.id = :id and o.status = :pending")
+                    .setParameter("confirmed", OrderStatus.CONFIRMED)
+                    .setParameter("eta", estimatedDeliveryTime)
+                    .setParameter("id", orderId)
+                    .setParameter("pending", OrderStatus.PENDING)
+                    .executeUpdate();
+                if (confirmed == 0) {
+                    // سفارش همزمان توسط درخواست دیگری ثبت یا لغو شده است
+                    throw new IllegalArgumentException("Order cannot be placed. Current status changed concurrently");
+                }
+                tx.commit();
+
+                // همگام‌سازی شیء برگشتی با مقادیر ذخیره شده
+                order.setStatus(OrderStatus.CONFIRMED);
+                order.setEstimatedDeliveryTime(estimatedDeliveryTime);
+                // موجودی از snapshot قبل از تراکنش محاسبه نمی‌شود؛ ورودی کش‌ها حذف و از دیتابیس خوانده می‌شوند
+                for (Long itemId : requested.keySet()) {
+                    afterStockChanged(items.get(itemId));
+                }
+                return OrderPlacementResult.placed(order);
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * بررسی وجود، در دسترس بودن و موجودی کافی هر آیتم بر اساس داده‌های بارگذاری شده
+     */
+    private static List<OrderPlacementResult.LineFailure> validateStock(Map<Long, Integer> requested,
+                                                                       Map<Long, FoodItem> items) {
+        List<OrderPlacementResult.LineFailure> failures = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : requested.entrySet()) {
+            FoodItem item = items.get(line.getKey());
+            int quantity = line.getValue();
+            if (item == null) {
+                failures.add(new OrderPlacementResult.LineFailure(line.getKey(), "#" + line.getKey(), quantity, 0,
+                    OrderPlacementResult.FailureReason.ITEM_NOT_FOUND));
+            } else if (!Boolean.TRUE.equals(item.getAvailable())) {
+                failures.add(new OrderPlacementResult.LineFailure(item.getId(), item.getName(), quantity, item.getQuantity(),
+                    OrderPlacementResult.FailureReason.ITEM_UNAVAILABLE));
+            } else if (item.getQuantity() < quantity) {
+                failures.add(new OrderPlacementResult.LineFailure(item.getId(), item.getName(), quantity, item.getQuantity(),
+                    OrderPlacementResult.FailureReason.INSUFFICIENT_STOCK));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * کاهش موجودی با UPDATE شرطی در یک JDBC batch (یا ردیف به ردیف)
+     * فقط ردیفی که تعداد تغییر آن دقیقاً 1 باشد موفق است؛ ردیف‌هایی که شرط quantity >= n
+     * برایشان برقرار نباشد (رقابت همزمان) یا EXECUTE_FAILED برگردانند به عنوان خطا گزارش می‌شوند.
+     *
+     * @throws UnreportedRowCountsException اگر درایور برای batch تعداد ردیف گزارش نکند
+     */
+    private static List<OrderPlacementResult.LineFailure> decrementStock(Session session, Map<Long, Integer> requested,
+                                                                        Map<Long, FoodItem> items, boolean batched) {
+        List<Long> itemIds = new ArrayList<>(requested.keySet());
+        int[] updated = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE food_items SET quantity = quantity - ? WHERE id = ? AND quantity >= ?")) {
+                int[] counts = new int[itemIds.size()];
+                for (int i = 0; i < itemIds.size(); i++) {
+                    int quantity = requested.get(itemIds.get(i));
+                    statement.setInt(1, quantity);
+                    statement.setLong(2, itemIds.get(i));
+                    statement.setInt(3, quantity);
+                    if (batched) {
+                        statement.addBatch();
+                    } else {
+                        counts[i] = statement.executeUpdate();
+                    }
+                }
+                return batched ? statement.executeBatch() : counts;
+            }
+        });
+
+        for (int count : updated) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                // نمی‌دانیم کدام ردیف کم شده است؛ فراخواننده rollback و بدون batch تکرار می‌کند
+                throw new UnreportedRowCountsException();
+            }
+        }
+
+        List<OrderPlacementResult.LineFailure> failures = new ArrayList<>();
+        for (int i = 0; i < itemIds.size(); i++) {
+            if (updated[i] != 1) {
+                FoodItem item = items.get(itemIds.get(i));
+                failures.add(new OrderPlacementResult.LineFailure(item.getId(), item.getName(),
+                    requested.get(item.getId()), currentQuantity(session, item.getId()),
+                    OrderPlacementResult.FailureReason.INSUFFICIENT_STOCK));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * به‌روزرسانی کش‌ها پس از commit - UPDATE مستقیم JDBC از مسیر entity عبور نمی‌کند
+     * (ایندکس جستجو و از طریق آن کلید item:{id} در CacheService و سایر node ها)
+     */
+    private void afterStockChanged(FoodItem item) {
+        sessionFactory().getCache().evictEntityData(FoodItem.class, item.getId());
+        CatalogSearchIndex.getInstance().onItemSaved(item);
+    }
+
+    /**
+     * درایور برای دستورات batch به جای تعداد ردیف Statement.SUCCESS_NO_INFO برگردانده است
+     */
+    private static final class UnreportedRowCountsException extends RuntimeException {
+        private UnreportedRowCountsException() {
+            super("JDBC driver did not report batch update counts", null, false, false);
+        }
+    }
+
+    private static int currentQuantity(Session session, Long itemId) {
+        Integer quantity = session.createQuery("select f.quantity from FoodItem f where f.id = :id", Integer.class)
+            .setParameter("id", itemId)
+            .uniqueResult();
+        return quantity != null ? quantity : 0;
+    }
+
     /**
      * حذف همه سفارشات (متد کمکی برای تست‌ها)
      * این متد فقط در محیط تست استفاده می‌شود
      */
     public void deleteAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.createQuery("delete from Order").executeUpdate();
             tx.commit();
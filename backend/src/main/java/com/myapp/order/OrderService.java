@@ -1,12 +1,18 @@
 package com.myapp.order;
 
+import com.myapp.analytics.dashboard.DashboardCounters;
+import com.myapp.common.events.EventBus;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.item.ItemRepository;
 import com.myapp.restaurant.RestaurantRepository;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -112,7 +118,9 @@ public class OrderService {
         
         // ایجاد سفارش جدید
         Order order = Order.createNew(customer, restaurant, deliveryAddress.trim(), phone.trim());
-        return orderRepository.saveNew(order);
+        Order saved = orderRepository.saveNew(order);
+        DashboardCounters.global().recordOrderCreated();
+        return saved;
     }
     
     /**
@@ -287,66 +295,45 @@ public class OrderService {
      * 
      * @param orderId شناسه سفارش
      * @return سفارش تأیید شده
-     * @throws IllegalArgumentException در صورت نامعتبر بودن وضعیت یا خالی بودن سبد
+     * @throws IllegalArgumentException در صورت نامعتبر بودن وضعیت، خالی بودن سبد یا کمبود موجودی
      * @throws NotFoundException در صورت یافت نشدن سفارش
      */
     public Order placeOrder(Long orderId) {
+        OrderPlacementResult result = tryPlaceOrder(orderId);
+        if (!result.isSuccess()) {
+            throw new IllegalArgumentException(result.getFailureMessage());
+        }
+        return result.getOrder();
+    }
+    
+    /**
+     * ثبت نهایی سفارش با گزارش خطای هر ردیف
+     * 
+     * رزرو موجودی و تأیید سفارش به صورت اتمیک در یک تراکنش انجام می‌شود:
+     * تمام آیتم‌ها با یک IN query خوانده شده و موجودی با UPDATE شرطی
+     * (quantity >= n) کم می‌شود، پس دو مشتری همزمان نمی‌توانند بیش از موجودی بخرند.
+     * در صورت شکست هر ردیف، هیچ تغییری اعمال نمی‌شود.
+     * 
+     * @param orderId شناسه سفارش
+     * @return نتیجه ثبت سفارش به همراه خطاهای هر ردیف
+     * @throws IllegalArgumentException در صورت نامعتبر بودن وضعیت یا خالی بودن سبد
+     * @throws NotFoundException در صورت یافت نشدن سفارش
+     */
+    public OrderPlacementResult tryPlaceOrder(Long orderId) {
         if (orderId == null) {
             throw new IllegalArgumentException("Order ID cannot be null");
         }
         
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty()) {
-            throw new NotFoundException("Order", orderId);
-        }
-        
-        Order order = orderOpt.get();
-        
-        if (order.getStatus() != OrderStatus.PENDING) {
-            throw new IllegalArgumentException("Order cannot be placed. Current status: " + order.getStatus());
-        }
-        
-        if (order.getOrderItems().isEmpty()) {
-            throw new IllegalArgumentException("Cannot place empty order");
-        }
-        
-        // Validate all items are still available and in stock
-        for (OrderItem orderItem : order.getOrderItems()) {
-            FoodItem item = orderItem.getFoodItem();
-            
-            // Refresh item from database to get latest stock info
-            Optional<FoodItem> currentItemOpt = itemRepository.findById(item.getId());
-            if (currentItemOpt.isEmpty()) {
-                throw new IllegalArgumentException("Item no longer exists: " + item.getName());
-            }
-            
-            FoodItem currentItem = currentItemOpt.get();
-            if (!currentItem.getAvailable()) {
-                throw new IllegalArgumentException("Item is no longer available: " + item.getName());
-            }
-            
-            if (currentItem.getQuantity() < orderItem.getQuantity()) {
-                throw new IllegalArgumentException("Insufficient stock for item: " + item.getName() + 
-                                                 ". Available: " + currentItem.getQuantity() + 
-                                                 ", Ordered: " + orderItem.getQuantity());
-            }
-        }
-        
-        // Decrease inventory for all items
-        for (OrderItem orderItem : order.getOrderItems()) {
-            FoodItem item = orderItem.getFoodItem();
-            item.decreaseQuantity(orderItem.getQuantity());
-            itemRepository.save(item);
-        }
-        
-        // Confirm the order
-        order.confirm();
-        
         // Set estimated delivery time (30-60 minutes from now)
         LocalDateTime estimatedDelivery = LocalDateTime.now().plusMinutes(30 + (int)(Math.random() * 30));
-        order.setEstimatedDeliveryTime(estimatedDelivery);
         
-        return orderRepository.save(order);
+        OrderPlacementResult result = orderRepository.placeOrder(orderId, estimatedDelivery);
+        if (result.isSuccess()) {
+            DashboardCounters.global().recordOrderStatusChange(
+                OrderStatus.PENDING, OrderStatus.CONFIRMED, result.getOrder().getTotalAmount());
+            publishStatusChange(result.getOrder(), OrderStatus.PENDING);
+        }
+        return result;
     }
     
     /**
@@ -386,12 +373,16 @@ public class OrderService {
             }
         }
         
+        OrderStatus previousStatus = order.getStatus();
         order.cancel();
         if (reason != null && !reason.trim().isEmpty()) {
             order.setNotes(reason.trim());
         }
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        DashboardCounters.global().recordOrderStatusChange(previousStatus, OrderStatus.CANCELLED, order.getTotalAmount());
+        publishStatusChange(order, previousStatus);
+        return saved;
     }
     
     /**
@@ -500,7 +491,25 @@ public class OrderService {
             order.setStatus(newStatus);
         }
         
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        DashboardCounters.global().recordOrderStatusChange(currentStatus, newStatus, order.getTotalAmount());
+        publishStatusChange(order, currentStatus);
+        return saved;
+    }
+
+    /**
+     * ارسال تغییر وضعیت سفارش به اتصال‌های لحظه‌ای (SSE) مشتری
+     */
+    private void publishStatusChange(Order order, OrderStatus previousStatus) {
+        if (order == null || order.getCustomer() == null) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("status", order.getStatus());
+        payload.put("previousStatus", previousStatus);
+        payload.put("updatedAt", LocalDateTime.now().toString());
+        EventBus.global().publish(order.getCustomer().getId(), "order-status", payload);
     }
     
     /**
@@ -540,6 +549,64 @@ public class OrderService {
         return orderRepository.findPendingOrders();
     }
     
+    // ==================== CURSOR PAGINATION ====================
+    
+    /**
+     * دریافت یک صفحه از سفارش‌های مشتری (جدیدترین ابتدا)
+     * 
+     * @param customerId شناسه مشتری
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه سفارش‌ها همراه با cursor صفحه بعد
+     * @throws IllegalArgumentException در صورت null بودن شناسه
+     */
+    public CursorPage<Order> getCustomerOrdersPage(Long customerId, CursorPageRequest request) {
+        if (customerId == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null");
+        }
+        
+        return orderRepository.findPageByCustomer(customerId, pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از سفارش‌های رستوران (جدیدترین ابتدا)
+     */
+    public CursorPage<Order> getRestaurantOrdersPage(Long restaurantId, CursorPageRequest request) {
+        if (restaurantId == null) {
+            throw new IllegalArgumentException("Restaurant ID cannot be null");
+        }
+        
+        return orderRepository.findPageByRestaurant(restaurantId, pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از سفارش‌ها با وضعیت مشخص
+     */
+    public CursorPage<Order> getOrdersByStatusPage(OrderStatus status, CursorPageRequest request) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        
+        return orderRepository.findPageByStatuses(List.of(status), pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از سفارش‌های فعال
+     */
+    public CursorPage<Order> getActiveOrdersPage(CursorPageRequest request) {
+        return orderRepository.findActivePage(pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از سفارش‌های در انتظار (قدیمی‌ترین ابتدا)
+     */
+    public CursorPage<Order> getPendingOrdersPage(CursorPageRequest request) {
+        return orderRepository.findPendingPage(pageRequest(request));
+    }
+    
+    private static CursorPageRequest pageRequest(CursorPageRequest request) {
+        return request != null ? request : CursorPageRequest.firstPage();
+    }
+    
     /**
      * Calculates order statistics for a customer.
      */
@@ -0,0 +1,40 @@
+package com.myapp.order.dto;
+
+/**
+ * کلاس درخواست ایجاد سفارش - DTO برای POST /api/orders
+ * بدنه JSON مستقیماً با RequestBodyDecoder به این کلاس متصل می‌شود
+ */
+public class CreateOrderRequest {
+    private Long customerId;       // شناسه مشتری
+    private Long restaurantId;     // شناسه رستوران
+    private String deliveryAddress; // آدرس تحویل
+    private String phone;          // شماره تماس
+
+    /**
+     * سازنده پیش‌فرض - برای framework های serialization
+     */
+    public CreateOrderRequest() {
+    }
+
+    /**
+     * سازنده کامل
+     */
+    public CreateOrderRequest(Long customerId, Long restaurantId, String deliveryAddress, String phone) {
+        this.customerId = customerId;
+        this.restaurantId = restaurantId;
+        this.deliveryAddress = deliveryAddress;
+        this.phone = phone;
+    }
+
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+}
@@ -0,0 +1,29 @@
+package com.myapp.order.dto;
+
+/**
+ * کلاس درخواست افزودن/تغییر آیتم سبد خرید - DTO برای endpoint های items
+ */
+public class OrderItemRequest {
+    private Long itemId;      // شناسه آیتم غذا (برای افزودن)
+    private Integer quantity; // تعداد
+
+    /**
+     * سازنده پیش‌فرض - برای framework های serialization
+     */
+    public OrderItemRequest() {
+    }
+
+    /**
+     * سازنده کامل
+     */
+    public OrderItemRequest(Long itemId, Integer quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -1,8 +1,11 @@
 package com.myapp.payment;
 
+import com.myapp.common.http.RequestBodyDecoder;
 import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionStatus;
 import com.myapp.common.models.TransactionType;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
@@ -119,8 +122,7 @@ public class PaymentController implements HttpHandler {
     private void processPayment(HttpExchange exchange) throws IOException {
         try {
             // خواندن body درخواست
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             // استخراج پارامترهای ضروری
             Long userId = extractLong(request, "userId");
@@ -156,8 +158,7 @@ public class PaymentController implements HttpHandler {
             Long paymentId = extractPathParameter(path, "/api/payments/", "/refund");
             
             // خواندن body درخواست
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             // استخراج دلیل استرداد
             String reason = extractString(request, "reason");
@@ -261,11 +262,10 @@ public class PaymentController implements HttpHandler {
             Long userId = extractPathParameter(path, "/api/payments/user/", "/history");
             
             // دریافت تاریخچه تراکنش‌ها
-            List<Transaction> transactions = paymentService.getUserTransactionHistory(userId);
+            CursorPage<Transaction> page = paymentService.getUserTransactionHistoryPage(userId, pageRequest(exchange));
             
-            // سریالایز کردن لیست و ارسال پاسخ
-            String response = serializeTransactionList(transactions);
-            sendResponse(exchange, 200, response);
+            // سریالایز کردن صفحه و ارسال پاسخ
+            sendPageResponse(exchange, page);
             
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
@@ -283,10 +283,9 @@ public class PaymentController implements HttpHandler {
         try {
             Long userId = extractPathParameter(path, "/api/payments/user/", "/wallet-transactions");
             
-            List<Transaction> transactions = paymentService.getUserWalletTransactions(userId);
+            CursorPage<Transaction> page = paymentService.getUserWalletTransactionsPage(userId, pageRequest(exchange));
             
-            String response = serializeTransactionList(transactions);
-            sendResponse(exchange, 200, response);
+            sendPageResponse(exchange, page);
             
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
@@ -304,10 +303,9 @@ public class PaymentController implements HttpHandler {
         try {
             Long userId = extractPathParameter(path, "/api/payments/user/", "/payment-transactions");
             
-            List<Transaction> transactions = paymentService.getUserPaymentTransactions(userId);
+            CursorPage<Transaction> page = paymentService.getUserPaymentTransactionsPage(userId, pageRequest(exchange));
             
-            String response = serializeTransactionList(transactions);
-            sendResponse(exchange, 200, response);
+            sendPageResponse(exchange, page);
             
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
@@ -372,10 +370,9 @@ public class PaymentController implements HttpHandler {
             String statusStr = extractPathParameter(path, "/api/payments/status/", "").toString();
             TransactionStatus status = TransactionStatus.valueOf(statusStr.toUpperCase());
             
-            List<Transaction> transactions = paymentService.getTransactionsByStatus(status);
+            CursorPage<Transaction> page = paymentService.getTransactionsByStatusPage(status, pageRequest(exchange));
             
-            String response = serializeTransactionList(transactions);
-            sendResponse(exchange, 200, response);
+            sendPageResponse(exchange, page);
             
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\":\"Invalid status: " + e.getMessage() + "\"}");
@@ -394,10 +391,9 @@ public class PaymentController implements HttpHandler {
             String typeStr = extractPathParameter(path, "/api/payments/type/", "").toString();
             TransactionType type = TransactionType.valueOf(typeStr.toUpperCase());
             
-            List<Transaction> transactions = paymentService.getTransactionsByType(type);
+            CursorPage<Transaction> page = paymentService.getTransactionsByTypePage(type, pageRequest(exchange));
             
-            String response = serializeTransactionList(transactions);
-            sendResponse(exchange, 200, response);
+            sendPageResponse(exchange, page);
             
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "{\"error\":\"Invalid type: " + e.getMessage() + "\"}");
@@ -476,8 +472,7 @@ public class PaymentController implements HttpHandler {
             Long transactionId = extractPathParameter(path, "/api/payments/", "/status");
             
             // خواندن body درخواست
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             // استخراج پارامترها
             String statusStr = extractString(request, "status");
@@ -521,6 +516,22 @@ public class PaymentController implements HttpHandler {
         }
     }
     
+    /**
+     * ارسال یک صفحه تراکنش به صورت آرایه JSON همراه با هدرهای صفحه‌بندی
+     * (X-Next-Cursor و X-Page-Limit)
+     */
+    private void sendPageResponse(HttpExchange exchange, CursorPage<Transaction> page) throws IOException {
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendResponse(exchange, 200, serializeTransactionList(page.getItems()));
+    }
+    
+    /**
+     * پارامترهای cursor و limit از query string
+     */
+    private CursorPageRequest pageRequest(HttpExchange exchange) {
+        return CursorPageRequest.fromQueryString(exchange.getRequestURI().getRawQuery());
+    }
+    
     /**
      * استخراج پارامتر از مسیر URL
      * 
@@ -540,48 +551,6 @@ public class PaymentController implements HttpHandler {
         return Long.parseLong(param);
     }
     
-    /**
-     * پارس کردن JSON ساده برای درخواست‌های API
-     * 
-     * توجه: این یک JSON parser ساده است و برای production باید از کتابخانه‌های
-     * حرفه‌ای مثل Jackson یا Gson استفاده کرد
-     * 
-     * @param json رشته JSON ورودی
-     * @return Map حاوی key-value های پارس شده
-     */
-    private Map<String, Object> parseJsonRequest(String json) {
-        Map<String, Object> result = new java.util.HashMap<>();
-        
-        // حذف آکولادهای ابتدا و انتها
-        json = json.trim();
-        if (json.startsWith("{") && json.endsWith("}")) {
-            json = json.substring(1, json.length() - 1);
-            String[] pairs = json.split(",");
-            
-            // پردازش هر جفت key:value
-            for (String pair : pairs) {
-                String[] keyValue = pair.split(":");
-                if (keyValue.length == 2) {
-                    String key = keyValue[0].trim().replaceAll("\"", "");
-                    String value = keyValue[1].trim().replaceAll("\"", "");
-                    
-                    // تلاش برای تبدیل به عدد
-                    try {
-                        if (value.contains(".")) {
-                            result.put(key, Double.parseDouble(value));
-                        } else {
-                            result.put(key, Long.parseLong(value));
-                        }
-                    } catch (NumberFormatException e) {
-                        // اگر عدد نبود، به عنوان رشته ذخیره کن
-                        result.put(key, value);
-                    }
-                }
-            }
-        }
-        
-        return result;
-    }
     
     /**
      * پارس کردن query parameters از URL
@@ -1,16 +1,29 @@
 package com.myapp.payment;
 
+import com.myapp.common.exceptions.InsufficientFundsException;
 import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionStatus;
 import com.myapp.common.models.TransactionType;
+import com.myapp.common.models.WalletBalance;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.LockMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.MutationQuery;
 import org.hibernate.query.Query;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Repository برای مدیریت عملیات دیتابیس مربوط به تراکنش‌ها و پرداخت‌ها
@@ -48,14 +61,26 @@ import java.util.Optional;
  */
 public class PaymentRepository {
     
+    /** انواع تراکنش‌هایی که روی موجودی کیف پول اثر دارند */
+    private static final List<TransactionType> WALLET_TYPES = List.of(
+        TransactionType.WALLET_CHARGE, TransactionType.WALLET_WITHDRAWAL,
+        TransactionType.CREDIT, TransactionType.DEBIT);
+    
+    /** حد تحمل خطای ممیز شناور در تشخیص اختلاف موجودی هنگام reconcile (نه در برداشت) */
+    private static final double BALANCE_EPSILON = 0.005;
+    
     /** SessionFactory برای مدیریت ارتباط با دیتابیس */
     private final SessionFactory sessionFactory;
     
+    /** آیا خواندن‌ها از replica ها سرویس داده شوند (فقط برای SessionFactory اصلی برنامه) */
+    private final boolean routeReads;
+    
     /**
      * سازنده پیش‌فرض - دریافت SessionFactory از DatabaseUtil
      */
     public PaymentRepository() {
         this.sessionFactory = DatabaseUtil.getSessionFactory();
+        this.routeReads = true;
     }
     
     /**
@@ -66,6 +91,17 @@ public class PaymentRepository {
      */
     public PaymentRepository(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
+        this.routeReads = false;
+    }
+    
+    /**
+     * session فقط خواندنی برای تاریخچه تراکنش‌ها
+     * (در حالت پیش‌فرض از طریق مسیریاب replica، با SessionFactory تزریق شده مستقیم)
+     */
+    private Session readSession() {
+        return routeReads
+            ? DatabaseUtil.openReadSession()
+            : ReplicaRouter.readOnly(sessionFactory.openSession());
     }
     
     /**
@@ -75,10 +111,23 @@ public class PaymentRepository {
      * @return تراکنش ذخیره شده با ID تولید شده
      */
     public Transaction save(Transaction transaction) {
+        double walletDelta = walletDelta(transaction);
+        if (walletDelta != 0) {
+            ensureWalletBalance(transaction.getUserId());
+        }
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
-            session.persist(transaction); // Hibernate 6+ syntax
-            session.getTransaction().commit();
+            try {
+                // موجودی و تراکنش در یک تراکنش دیتابیسی ثبت می‌شوند
+                if (walletDelta != 0) {
+                    applyWalletDelta(session, transaction.getUserId(), walletDelta, true);
+                }
+                session.persist(transaction); // Hibernate 6+ syntax
+                session.getTransaction().commit();
+            } catch (RuntimeException e) {
+                rollbackQuietly(session);
+                throw e;
+            }
             return transaction;
         }
     }
@@ -90,11 +139,38 @@ public class PaymentRepository {
      * @return تراکنش به‌روزرسانی شده
      */
     public Transaction update(Transaction transaction) {
+        if (transaction.getUserId() != null && walletDelta(transaction) != 0) {
+            ensureWalletBalance(transaction.getUserId());
+        }
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
-            Transaction updated = session.merge(transaction); // merge برای update
-            session.getTransaction().commit();
-            return updated;
+            try {
+                // تفاوت اثر تراکنش روی موجودی قبل و بعد از تغییر (مثلاً PENDING -> COMPLETED)
+                double walletDelta = walletDelta(transaction);
+                if (transaction.getId() != null) {
+                    // قفل ردیف: دو به‌روزرسانی همزمان یک تراکنش (مثلاً PENDING -> COMPLETED)
+                    // هر دو وضعیت قبلی را نبینند و اثر موجودی دو بار اعمال نشود
+                    Transaction previous = session.get(Transaction.class, transaction.getId(), LockMode.PESSIMISTIC_WRITE);
+                    if (previous != null) {
+                        double previousDelta = walletDelta(previous);
+                        if (previousDelta != 0 && !previous.getUserId().equals(transaction.getUserId())) {
+                            applyWalletDelta(session, previous.getUserId(), -previousDelta, false);
+                            previousDelta = 0;
+                        }
+                        walletDelta -= previousDelta;
+                    }
+                }
+                if (walletDelta != 0) {
+                    ensureWalletBalanceRow(session, transaction.getUserId());
+                    applyWalletDelta(session, transaction.getUserId(), walletDelta, true);
+                }
+                Transaction updated = session.merge(transaction); // merge برای update
+                session.getTransaction().commit();
+                return updated;
+            } catch (RuntimeException e) {
+                rollbackQuietly(session);
+                throw e;
+            }
         }
     }
     
@@ -143,7 +219,7 @@ public class PaymentRepository {
      * @return لیست تراکنش‌های کاربر
      */
     public List<Transaction> findByUserId(Long userId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = readSession()) {
             session.beginTransaction();
             Query<Transaction> query = session.createQuery(
                 "FROM Transaction t WHERE t.userId = :userId ORDER BY t.createdAt DESC", Transaction.class);
@@ -302,6 +378,53 @@ public class PaymentRepository {
         }
     }
     
+    // ==================== KEYSET PAGINATION ====================
+    
+    /**
+     * صفحه‌ای از تراکنش‌های کاربر (جدیدترین اول) روی (createdAt, id)
+     * 
+     * @param userId شناسه کاربر
+     * @param types انواع تراکنش مورد نظر (null یعنی همه انواع)
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه تراکنش‌ها همراه با cursor صفحه بعد
+     */
+    public CursorPage<Transaction> findPageByUserId(Long userId, Collection<TransactionType> types,
+                                                    CursorPageRequest request) {
+        KeysetQuery<Transaction> query = KeysetQuery.from(Transaction.class, "Transaction t")
+            .where("t.userId = :userId")
+            .param("userId", userId);
+        if (types != null) {
+            query.where("t.type IN (:types)").param("types", types);
+        }
+        return fetchPage(query, request);
+    }
+    
+    /**
+     * صفحه‌ای از تراکنش‌ها با وضعیت مشخص (جدیدترین اول)
+     */
+    public CursorPage<Transaction> findPageByStatus(TransactionStatus status, CursorPageRequest request) {
+        return fetchPage(KeysetQuery.from(Transaction.class, "Transaction t")
+            .where("t.status = :status")
+            .param("status", status), request);
+    }
+    
+    /**
+     * صفحه‌ای از تراکنش‌ها با نوع مشخص (جدیدترین اول)
+     */
+    public CursorPage<Transaction> findPageByType(TransactionType type, CursorPageRequest request) {
+        return fetchPage(KeysetQuery.from(Transaction.class, "Transaction t")
+            .where("t.type = :type")
+            .param("type", type), request);
+    }
+    
+    private CursorPage<Transaction> fetchPage(KeysetQuery<Transaction> query, CursorPageRequest request) {
+        try (Session session = readSession()) {
+            return query
+                .orderBy("t.createdAt", Transaction::getCreatedAt, "t.id", Transaction::getId)
+                .fetch(session, request);
+        }
+    }
+    
     /**
      * یافتن تراکنش‌ها در بازه زمانی مشخص
      * 
@@ -347,41 +470,208 @@ public class PaymentRepository {
     }
     
     /**
-     * محاسبه موجودی کل کیف پول برای کاربر
+     * دریافت موجودی کیف پول کاربر
      * 
-     * این متد با استفاده از aggregate function موجودی را محاسبه می‌کند:
-     * - تراکنش‌های شارژ (WALLET_CHARGE) به موجودی اضافه می‌شوند
-     * - تراکنش‌های برداشت (WALLET_WITHDRAWAL) از موجودی کم می‌شوند
-     * - فقط تراکنش‌های موفق (COMPLETED) محاسبه می‌شوند
+     * موجودی از ردیف مادی‌سازی شده wallet_balances خوانده می‌شود (O(1)) و
+     * دیگر نیازی به جمع زدن تمام تراکنش‌های کاربر نیست. اگر ردیف هنوز وجود
+     * نداشته باشد (کاربران قدیمی)، یک بار از روی تراکنش‌ها ساخته می‌شود.
      * 
      * @param userId شناسه کاربر
      * @return موجودی فعلی کیف پول
      */
     public Double calculateWalletBalance(Long userId) {
-        try (Session session = sessionFactory.getCurrentSession()) {
+        try (Session session = sessionFactory.openSession()) {
+            WalletBalance walletBalance = session.get(WalletBalance.class, userId);
+            if (walletBalance != null) {
+                return walletBalance.getBalance();
+            }
+        }
+        return ensureWalletBalance(userId).getBalance();
+    }
+    
+    /**
+     * محاسبه موجودی کیف پول از روی تراکنش‌ها (منبع حقیقت)
+     * 
+     * این متد با استفاده از aggregate function موجودی را محاسبه می‌کند:
+     * - تراکنش‌های شارژ (WALLET_CHARGE, CREDIT) به موجودی اضافه می‌شوند
+     * - تراکنش‌های برداشت (WALLET_WITHDRAWAL, DEBIT) از موجودی کم می‌شوند
+     * - فقط تراکنش‌های موفق (COMPLETED) محاسبه می‌شوند
+     * 
+     * توسط WalletBalanceReconciler و در ساخت اولیه ردیف موجودی استفاده می‌شود.
+     * 
+     * @param userId شناسه کاربر
+     * @return موجودی محاسبه شده از روی تراکنش‌ها
+     */
+    public Double calculateWalletBalanceFromTransactions(Long userId) {
+        try (Session session = sessionFactory.openSession()) {
+            return sumWalletTransactions(session, userId);
+        }
+    }
+    
+    /**
+     * یافتن شناسه تمام کاربرانی که تراکنش کیف پول یا ردیف موجودی دارند
+     * 
+     * @return لیست شناسه کاربران
+     */
+    public List<Long> findWalletUserIds() {
+        try (Session session = sessionFactory.openSession()) {
+            Set<Long> userIds = new TreeSet<>(session.createQuery(
+                "SELECT DISTINCT t.userId FROM Transaction t WHERE t.type IN (:walletTypes)", Long.class)
+                .setParameter("walletTypes", WALLET_TYPES)
+                .getResultList());
+            userIds.addAll(session.createQuery("SELECT w.userId FROM WalletBalance w", Long.class).getResultList());
+            return new ArrayList<>(userIds);
+        }
+    }
+    
+    /**
+     * بازسازی موجودی یک کاربر از روی تراکنش‌ها
+     * 
+     * ردیف موجودی با قفل نوشتن (SELECT ... FOR UPDATE) خوانده می‌شود تا
+     * برداشت‌های همزمان تا پایان بازسازی منتظر بمانند.
+     * 
+     * @param userId شناسه کاربر
+     * @return اختلاف موجودی ذخیره شده با موجودی واقعی (صفر یعنی بدون اختلاف)
+     */
+    public double reconcileWalletBalance(Long userId) {
+        ensureWalletBalance(userId);
+        try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
-            Query<Double> query = session.createQuery(
-                "SELECT COALESCE(SUM(CASE " +
-                "WHEN t.type = :charge THEN t.amount " +
-                "WHEN t.type = :withdrawal THEN -t.amount " +
-                "ELSE 0 END), 0.0) " +
-                "FROM Transaction t WHERE t.userId = :userId AND t.status = :status AND t.type IN (:walletTypes)", 
-                Double.class);
-            query.setParameter("userId", userId);
-            query.setParameter("charge", TransactionType.WALLET_CHARGE);
-            query.setParameter("withdrawal", TransactionType.WALLET_WITHDRAWAL);
-            query.setParameter("status", TransactionStatus.COMPLETED);
-            query.setParameter("walletTypes", List.of(TransactionType.WALLET_CHARGE, TransactionType.WALLET_WITHDRAWAL));
-            Double balance = query.uniqueResult();
-            session.getTransaction().commit();
-            return balance != null ? balance : 0.0;
+            try {
+                WalletBalance walletBalance = session.get(WalletBalance.class, userId, LockMode.PESSIMISTIC_WRITE);
+                double expected = sumWalletTransactions(session, userId);
+                double drift = walletBalance.getBalance() - expected;
+                if (Math.abs(drift) >= BALANCE_EPSILON) {
+                    walletBalance.setBalance(expected);
+                    walletBalance.setUpdatedAt(LocalDateTime.now());
+                } else {
+                    drift = 0.0;
+                }
+                session.getTransaction().commit();
+                return drift;
+            } catch (RuntimeException e) {
+                rollbackQuietly(session);
+                throw e;
+            }
+        }
+    }
+    
+    // ==================== WALLET BALANCE LEDGER ====================
+    
+    /**
+     * اثر یک تراکنش روی موجودی کیف پول
+     * 
+     * @param transaction تراکنش
+     * @return مقدار مثبت برای شارژ، منفی برای برداشت و صفر برای سایر تراکنش‌ها
+     */
+    static double walletDelta(Transaction transaction) {
+        if (transaction == null || transaction.getStatus() != TransactionStatus.COMPLETED
+                || transaction.getAmount() == null || transaction.getType() == null) {
+            return 0.0;
+        }
+        switch (transaction.getType()) {
+            case WALLET_CHARGE:
+            case CREDIT:
+                return transaction.getAmount();
+            case WALLET_WITHDRAWAL:
+            case DEBIT:
+                return -transaction.getAmount();
+            default:
+                return 0.0;
+        }
+    }
+    
+    /**
+     * اعمال اتمیک تغییر موجودی در session جاری
+     * 
+     * برداشت با UPDATE شرطی انجام می‌شود؛ اگر موجودی کافی نباشد هیچ ردیفی
+     * تغییر نمی‌کند و InsufficientFundsException پرتاب می‌شود (تراکنش rollback می‌شود).
+     */
+    private void applyWalletDelta(Session session, Long userId, double delta, boolean requireFunds) {
+        // Native SQL: HQL برای پارامتر عددی در عبارت SET یک cast وابسته به dialect تولید می‌کند
+        String sql = "UPDATE wallet_balances SET balance = balance + :delta, " +
+                     "version = version + 1, updated_at = :now WHERE user_id = :userId";
+        if (delta < 0 && requireFunds) {
+            sql += " AND balance >= :required";
+        }
+        MutationQuery query = session.createNativeMutationQuery(sql)
+            .setParameter("delta", delta)
+            .setParameter("now", LocalDateTime.now())
+            .setParameter("userId", userId);
+        if (delta < 0 && requireFunds) {
+            query.setParameter("required", -delta);  // بدون حد تحمل؛ موجودی هرگز منفی نمی‌شود
+        }
+        if (query.executeUpdate() == 0) {
+            WalletBalance current = session.get(WalletBalance.class, userId);
+            throw InsufficientFundsException.forWallet(current != null ? current.getBalance() : 0.0, -delta);
+        }
+    }
+    
+    /**
+     * اطمینان از وجود ردیف موجودی کاربر (ساخت از روی تراکنش‌ها در اولین استفاده)
+     * 
+     * @param userId شناسه کاربر
+     * @return ردیف موجودی کاربر
+     */
+    private WalletBalance ensureWalletBalance(Long userId) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                WalletBalance walletBalance = ensureWalletBalanceRow(session, userId);
+                session.getTransaction().commit();
+                return walletBalance;
+            } catch (PersistenceException e) {
+                // thread دیگری همزمان ردیف را ساخته است
+                rollbackQuietly(session);
+            }
+        }
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(WalletBalance.class, userId);
+        }
+    }
+    
+    private WalletBalance ensureWalletBalanceRow(Session session, Long userId) {
+        WalletBalance walletBalance = session.get(WalletBalance.class, userId);
+        if (walletBalance == null) {
+            walletBalance = new WalletBalance(userId, sumWalletTransactions(session, userId));
+            session.persist(walletBalance);
+            session.flush();
+        }
+        return walletBalance;
+    }
+    
+    private Double sumWalletTransactions(Session session, Long userId) {
+        Query<Double> query = session.createQuery(
+            "SELECT COALESCE(SUM(CASE " +
+            "WHEN t.type IN (:credits) THEN t.amount " +
+            "WHEN t.type IN (:debits) THEN -t.amount " +
+            "ELSE 0 END), 0.0) " +
+            "FROM Transaction t WHERE t.userId = :userId AND t.status = :status AND t.type IN (:walletTypes)", 
+            Double.class);
+        query.setParameter("userId", userId);
+        query.setParameter("credits", List.of(TransactionType.WALLET_CHARGE, TransactionType.CREDIT));
+        query.setParameter("debits", List.of(TransactionType.WALLET_WITHDRAWAL, TransactionType.DEBIT));
+        query.setParameter("status", TransactionStatus.COMPLETED);
+        query.setParameter("walletTypes", WALLET_TYPES);
+        Double balance = query.uniqueResult();
+        return balance != null ? balance : 0.0;
+    }
+    
+    private static void rollbackQuietly(Session session) {
+        try {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+        } catch (RuntimeException ignored) {
+            // خطای اصلی مهم‌تر است
         }
     }
     
     /**
      * دریافت آمار کامل تراکنش‌های کاربر
      * 
-     * این متد مجموعه‌ای از query های aggregate برای محاسبه آمار اجرا می‌کند:
+     * تمام مقادیر با یک کوئری و یک پیمایش روی تراکنش‌های کاربر محاسبه می‌شوند
+     * (شمارش و جمع شرطی با FILTER):
      * - تعداد کل تراکنش‌ها
      * - تعداد تراکنش‌های موفق/ناموفق/در انتظار
      * - مجموع مبلغ خرج شده (پرداخت‌های موفق)
@@ -391,64 +681,35 @@ public class PaymentRepository {
      * @return آمار کامل تراکنش‌های کاربر
      */
     public TransactionStatistics getUserTransactionStatistics(Long userId) {
-        try (Session session = sessionFactory.openSession()) {
+        try (Session session = readSession()) {
             session.beginTransaction();
             
-            // تعداد کل تراکنش‌ها
-            Query<Long> totalQuery = session.createQuery(
-                "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId", Long.class);
-            totalQuery.setParameter("userId", userId);
-            Long totalTransactions = totalQuery.uniqueResult();
-            
-            // تعداد تراکنش‌های موفق
-            Query<Long> completedQuery = session.createQuery(
-                "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = :status", Long.class);
-            completedQuery.setParameter("userId", userId);
-            completedQuery.setParameter("status", TransactionStatus.COMPLETED);
-            Long completedTransactions = completedQuery.uniqueResult();
-            
-            // تعداد تراکنش‌های در انتظار
-            Query<Long> pendingQuery = session.createQuery(
-                "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = :status", Long.class);
-            pendingQuery.setParameter("userId", userId);
-            pendingQuery.setParameter("status", TransactionStatus.PENDING);
-            Long pendingTransactions = pendingQuery.uniqueResult();
-            
-            // تعداد تراکنش‌های ناموفق
-            Query<Long> failedQuery = session.createQuery(
-                "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = :status", Long.class);
-            failedQuery.setParameter("userId", userId);
-            failedQuery.setParameter("status", TransactionStatus.FAILED);
-            Long failedTransactions = failedQuery.uniqueResult();
-            
-            // مجموع مبلغ خرج شده (پرداخت‌های موفق)
-            Query<Double> spentQuery = session.createQuery(
-                "SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.type = :type AND t.status = :status", 
-                Double.class);
-            spentQuery.setParameter("userId", userId);
-            spentQuery.setParameter("type", TransactionType.PAYMENT);
-            spentQuery.setParameter("status", TransactionStatus.COMPLETED);
-            Double totalSpent = spentQuery.uniqueResult();
-            
-            // مجموع مبلغ استرداد شده
-            Query<Double> refundQuery = session.createQuery(
-                "SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.type = :type AND t.status = :status", 
-                Double.class);
-            refundQuery.setParameter("userId", userId);
-            refundQuery.setParameter("type", TransactionType.REFUND);
-            refundQuery.setParameter("status", TransactionStatus.COMPLETED);
-            Double totalRefunded = refundQuery.uniqueResult();
+            Object[] row = session.createQuery(
+                "SELECT COUNT(*), " +
+                "       COUNT(*) FILTER (WHERE t.status = :completed), " +
+                "       COUNT(*) FILTER (WHERE t.status = :pending), " +
+                "       COUNT(*) FILTER (WHERE t.status = :failed), " +
+                "       SUM(t.amount) FILTER (WHERE t.type = :payment AND t.status = :completed), " +
+                "       SUM(t.amount) FILTER (WHERE t.type = :refund AND t.status = :completed) " +
+                "FROM Transaction t WHERE t.userId = :userId", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("completed", TransactionStatus.COMPLETED)
+                .setParameter("pending", TransactionStatus.PENDING)
+                .setParameter("failed", TransactionStatus.FAILED)
+                .setParameter("payment", TransactionType.PAYMENT)
+                .setParameter("refund", TransactionType.REFUND)
+                .uniqueResult();
             
             session.getTransaction().commit();
             
-            // ایجاد شیء آمار با تمام اطلاعات محاسبه شده
+            // ایجاد شیء آمار با تمام اطلاعات محاسبه شده (SUM روی ردیف‌های خالی null است)
             return new TransactionStatistics(
-                totalTransactions != null ? totalTransactions : 0L,
-                completedTransactions != null ? completedTransactions : 0L,
-                pendingTransactions != null ? pendingTransactions : 0L,
-                failedTransactions != null ? failedTransactions : 0L,
-                totalSpent != null ? totalSpent : 0.0,
-                totalRefunded != null ? totalRefunded : 0.0
+                row[0] != null ? ((Number) row[0]).longValue() : 0L,
+                row[1] != null ? ((Number) row[1]).longValue() : 0L,
+                row[2] != null ? ((Number) row[2]).longValue() : 0L,
+                row[3] != null ? ((Number) row[3]).longValue() : 0L,
+                row[4] != null ? ((Number) row[4]).doubleValue() : 0.0,
+                row[5] != null ? ((Number) row[5]).doubleValue() : 0.0
             );
         }
     }
@@ -484,6 +745,10 @@ public class PaymentRepository {
             session.beginTransaction();
             Transaction transaction = session.get(Transaction.class, id);
             if (transaction != null) {
+                double walletDelta = walletDelta(transaction);
+                if (walletDelta != 0 && session.get(WalletBalance.class, transaction.getUserId()) != null) {
+                    applyWalletDelta(session, transaction.getUserId(), -walletDelta, false);
+                }
                 session.remove(transaction);
             }
             session.getTransaction().commit();
@@ -501,6 +766,7 @@ public class PaymentRepository {
             session.beginTransaction();
             Query<?> query = session.createQuery("DELETE FROM Transaction");
             query.executeUpdate();
+            session.createMutationQuery("DELETE FROM WalletBalance").executeUpdate();
             session.getTransaction().commit();
         }
     }
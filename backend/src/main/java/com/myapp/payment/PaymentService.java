@@ -1,11 +1,15 @@
 package com.myapp.payment;
 
+import com.myapp.analytics.dashboard.DashboardCounters;
+import com.myapp.common.cache.SnapshotCache;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionStatus;
 import com.myapp.common.models.TransactionType;
 import com.myapp.common.models.Order;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.auth.AuthRepository;
 import com.myapp.order.OrderRepository;
 
@@ -45,6 +49,10 @@ public class PaymentService {
     /** Repository برای اعتبارسنجی سفارشات */
     private final OrderRepository orderRepository;
     
+    /** snapshot کوتاه‌مدت آمار تراکنش‌های هر کاربر */
+    private final SnapshotCache<Long, PaymentRepository.TransactionStatistics> transactionStatistics =
+        new SnapshotCache<>(SnapshotCache.DEFAULT_TTL_MILLIS, 10_000);
+    
     /**
      * سازنده پیش‌فرض - ایجاد instance های جدید از repository ها
      */
@@ -154,9 +162,11 @@ public class PaymentService {
             // در صورت خطا، تراکنش را failed علامت‌گذاری کن
             payment.markAsFailed(e.getMessage());
             paymentRepository.update(payment);
+            DashboardCounters.global().recordPayment(TransactionStatus.FAILED);
             throw e;
         }
         
+        DashboardCounters.global().recordPayment(payment.getStatus());
         return payment;
     }
     
@@ -509,6 +519,77 @@ public class PaymentService {
         return paymentRepository.findByType(type);
     }
     
+    // ==================== CURSOR PAGINATION ====================
+    
+    /**
+     * دریافت یک صفحه از تاریخچه تراکنش‌های کاربر
+     * 
+     * @param userId شناسه کاربر
+     * @param request درخواست صفحه (cursor و limit)
+     * @return صفحه تراکنش‌ها (جدیدترین ابتدا)
+     * @throws IllegalArgumentException در صورت نامعتبر بودن شناسه
+     * @throws NotFoundException در صورت عدم وجود کاربر
+     */
+    public CursorPage<Transaction> getUserTransactionHistoryPage(Long userId, CursorPageRequest request) {
+        return getUserTransactionsPage(userId, null, request);
+    }
+    
+    /**
+     * دریافت یک صفحه از تراکنش‌های کیف پول کاربر (شارژ و برداشت)
+     */
+    public CursorPage<Transaction> getUserWalletTransactionsPage(Long userId, CursorPageRequest request) {
+        return getUserTransactionsPage(userId,
+            List.of(TransactionType.WALLET_CHARGE, TransactionType.WALLET_WITHDRAWAL), request);
+    }
+    
+    /**
+     * دریافت یک صفحه از تراکنش‌های پرداخت کاربر (پرداخت و استرداد)
+     */
+    public CursorPage<Transaction> getUserPaymentTransactionsPage(Long userId, CursorPageRequest request) {
+        return getUserTransactionsPage(userId,
+            List.of(TransactionType.PAYMENT, TransactionType.REFUND), request);
+    }
+    
+    private CursorPage<Transaction> getUserTransactionsPage(Long userId, List<TransactionType> types,
+                                                            CursorPageRequest request) {
+        if (userId == null || userId <= 0) {
+            throw new IllegalArgumentException("User ID must be positive");
+        }
+        
+        // بررسی وجود کاربر
+        if (!authRepository.existsById(userId)) {
+            throw new NotFoundException("User", userId);
+        }
+        
+        return paymentRepository.findPageByUserId(userId, types, pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از تراکنش‌ها بر اساس وضعیت
+     */
+    public CursorPage<Transaction> getTransactionsByStatusPage(TransactionStatus status, CursorPageRequest request) {
+        if (status == null) {
+            throw new IllegalArgumentException("Transaction status cannot be null");
+        }
+        
+        return paymentRepository.findPageByStatus(status, pageRequest(request));
+    }
+    
+    /**
+     * دریافت یک صفحه از تراکنش‌ها بر اساس نوع
+     */
+    public CursorPage<Transaction> getTransactionsByTypePage(TransactionType type, CursorPageRequest request) {
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type cannot be null");
+        }
+        
+        return paymentRepository.findPageByType(type, pageRequest(request));
+    }
+    
+    private static CursorPageRequest pageRequest(CursorPageRequest request) {
+        return request != null ? request : CursorPageRequest.firstPage();
+    }
+    
     /**
      * دریافت تراکنش‌ها در بازه زمانی مشخص
      * 
@@ -591,7 +672,8 @@ public class PaymentService {
             throw new NotFoundException("User", userId);
         }
         
-        return paymentRepository.getUserTransactionStatistics(userId);
+        // تراکنش‌های چند ثانیه اخیر ممکن است تا انقضای snapshot در آمار دیده نشوند
+        return transactionStatistics.get(userId, () -> paymentRepository.getUserTransactionStatistics(userId));
     }
     
     // ==================== PAYMENT VALIDATION ====================
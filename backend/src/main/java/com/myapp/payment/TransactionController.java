@@ -2,6 +2,8 @@ package com.myapp.payment;
 
 import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionType;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.common.utils.JsonUtil;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -82,7 +84,8 @@ public class TransactionController implements HttpHandler {
      * GET /api/transactions/wallet/history?userId={userId}&startDate={date}&endDate={date}
      * دریافت تاریخچه تراکنش‌های کیف پول برای کاربر
      * 
-     * این endpoint امکان دریافت تاریخچه کامل یا در بازه زمانی مشخص را فراهم می‌کند
+     * این endpoint امکان دریافت تاریخچه در بازه زمانی مشخص یا به صورت صفحه‌بندی شده
+     * (limit و cursor) را فراهم می‌کند
      * 
      * @param exchange شیء HttpExchange
      * @param params پارامترهای query شامل userId و تاریخ‌ها
@@ -97,7 +100,6 @@ public class TransactionController implements HttpHandler {
             }
 
             Long userId = Long.parseLong(userIdStr);
-            List<Transaction> transactions;
 
             String startDateStr = params.get("startDate");
             String endDateStr = params.get("endDate");
@@ -106,15 +108,15 @@ public class TransactionController implements HttpHandler {
                 // Get history within date range
                 LocalDateTime startDate = LocalDateTime.parse(startDateStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
                 LocalDateTime endDate = LocalDateTime.parse(endDateStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                transactions = walletService.getWalletTransactionHistory(userId, startDate, endDate);
+                List<Transaction> transactions = walletService.getWalletTransactionHistory(userId, startDate, endDate);
+                sendSuccessResponse(exchange, JsonUtil.toJson(transactions));
             } else {
-                // Get all history
-                transactions = walletService.getWalletTransactionHistory(userId);
+                // Get one page of history (cursor/limit)
+                CursorPage<Transaction> page = walletService.getWalletTransactionHistoryPage(
+                    userId, CursorPageRequest.fromQueryParams(params));
+                sendPageResponse(exchange, page);
             }
 
-            String jsonResponse = JsonUtil.toJson(transactions);
-            sendSuccessResponse(exchange, jsonResponse);
-
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
         } catch (Exception e) {
@@ -135,10 +137,9 @@ public class TransactionController implements HttpHandler {
             }
 
             Long userId = Long.parseLong(userIdStr);
-            List<Transaction> chargeHistory = walletService.getWalletChargeHistory(userId);
-
-            String jsonResponse = JsonUtil.toJson(chargeHistory);
-            sendSuccessResponse(exchange, jsonResponse);
+            CursorPage<Transaction> page = walletService.getWalletChargeHistoryPage(
+                userId, CursorPageRequest.fromQueryParams(params));
+            sendPageResponse(exchange, page);
 
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
@@ -160,10 +161,9 @@ public class TransactionController implements HttpHandler {
             }
 
             Long userId = Long.parseLong(userIdStr);
-            List<Transaction> withdrawalHistory = walletService.getWalletWithdrawalHistory(userId);
-
-            String jsonResponse = JsonUtil.toJson(withdrawalHistory);
-            sendSuccessResponse(exchange, jsonResponse);
+            CursorPage<Transaction> page = walletService.getWalletWithdrawalHistoryPage(
+                userId, CursorPageRequest.fromQueryParams(params));
+            sendPageResponse(exchange, page);
 
         } catch (NumberFormatException e) {
             sendErrorResponse(exchange, 400, "Invalid user ID format");
@@ -252,6 +252,14 @@ public class TransactionController implements HttpHandler {
         exchange.getResponseBody().close();
     }
 
+    /**
+     * Sends the page items as a JSON array; paging state goes in the X-Next-Cursor / X-Page-Limit headers
+     */
+    private void sendPageResponse(HttpExchange exchange, CursorPage<Transaction> page) throws IOException {
+        page.writeHeaders(exchange.getResponseHeaders());
+        sendSuccessResponse(exchange, JsonUtil.toJson(page.getItems()));
+    }
+
     private void sendErrorResponse(HttpExchange exchange, int statusCode, String message) throws IOException {
         String errorResponse = "{\"error\":\"" + message + "\"}";
         exchange.getResponseHeaders().set("Content-Type", "application/json");
@@ -0,0 +1,172 @@
+package com.myapp.payment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * تطبیق‌دهنده موجودی کیف پول با دفتر تراکنش‌ها
+ *
+ * موجودی مادی‌سازی شده (wallet_balances) در هر ثبت تراکنش به‌روزرسانی می‌شود؛
+ * این کلاس به صورت دوره‌ای موجودی هر کاربر را از روی جدول transactions بازسازی
+ * می‌کند، اختلاف‌ها (drift) را اصلاح و گزارش می‌دهد.
+ *
+ * پیکربندی از طریق System Property:
+ * - wallet.reconcile.interval.minutes: فاصله اجرای دوره‌ای (پیش‌فرض ۶۰، صفر یعنی غیرفعال)
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public class WalletBalanceReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletBalanceReconciler.class);
+
+    public static final long DEFAULT_INTERVAL_MINUTES = 60;
+
+    private final PaymentRepository paymentRepository;
+    private ScheduledExecutorService scheduler;
+    private volatile ReconciliationReport lastReport;
+
+    public WalletBalanceReconciler() {
+        this(new PaymentRepository());
+    }
+
+    public WalletBalanceReconciler(PaymentRepository paymentRepository) {
+        this.paymentRepository = paymentRepository;
+    }
+
+    /**
+     * شروع اجرای دوره‌ای بر اساس System Property
+     */
+    public void startFromSystemProperties() {
+        long interval = Long.getLong("wallet.reconcile.interval.minutes", DEFAULT_INTERVAL_MINUTES);
+        if (interval > 0) {
+            start(interval, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * شروع اجرای دوره‌ای تطبیق در یک thread پس‌زمینه
+     *
+     * @param interval فاصله اجرا
+     * @param unit واحد زمان
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcileAll();
+            } catch (RuntimeException e) {
+                logger.error("❌ Wallet balance reconciliation failed", e);
+            }
+        }, interval, interval, unit);
+        logger.info("🔁 Wallet balance reconciler scheduled every {} {}", interval, unit);
+    }
+
+    /**
+     * توقف اجرای دوره‌ای
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * تطبیق موجودی تمام کاربران دارای کیف پول
+     *
+     * @return گزارش تطبیق
+     */
+    public ReconciliationReport reconcileAll() {
+        long start = System.currentTimeMillis();
+        List<Long> userIds = paymentRepository.findWalletUserIds();
+        List<Drift> drifts = new ArrayList<>();
+        int failed = 0;
+
+        for (Long userId : userIds) {
+            try {
+                double drift = paymentRepository.reconcileWalletBalance(userId);
+                if (drift != 0.0) {
+                    drifts.add(new Drift(userId, drift));
+                    logger.warn("⚠️ Wallet balance drift for user {}: {} (corrected)", userId, drift);
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                logger.error("❌ Could not reconcile wallet balance for user {}", userId, e);
+            }
+        }
+
+        ReconciliationReport report = new ReconciliationReport(
+            userIds.size(), drifts, failed, System.currentTimeMillis() - start);
+        lastReport = report;
+        logger.info("✅ Wallet reconciliation: checked={}, drifted={}, failed={}, took={}ms",
+                   report.getCheckedUsers(), drifts.size(), failed, report.getDurationMillis());
+        return report;
+    }
+
+    /**
+     * آخرین گزارش تطبیق (یا null اگر هنوز اجرا نشده)
+     */
+    public ReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * اختلاف موجودی یک کاربر
+     */
+    public static class Drift {
+        private final Long userId;
+        private final double amount;
+
+        public Drift(Long userId, double amount) {
+            this.userId = userId;
+            this.amount = amount;
+        }
+
+        public Long getUserId() { return userId; }
+        /** موجودی ذخیره شده منهای موجودی واقعی */
+        public double getAmount() { return amount; }
+    }
+
+    /**
+     * گزارش یک دور تطبیق
+     */
+    public static class ReconciliationReport {
+        private final int checkedUsers;
+        private final List<Drift> drifts;
+        private final int failedUsers;
+        private final long durationMillis;
+        private final LocalDateTime completedAt = LocalDateTime.now();
+
+        public ReconciliationReport(int checkedUsers, List<Drift> drifts, int failedUsers, long durationMillis) {
+            this.checkedUsers = checkedUsers;
+            this.drifts = Collections.unmodifiableList(drifts);
+            this.failedUsers = failedUsers;
+            this.durationMillis = durationMillis;
+        }
+
+        public int getCheckedUsers() { return checkedUsers; }
+        public List<Drift> getDrifts() { return drifts; }
+        public int getFailedUsers() { return failedUsers; }
+        public long getDurationMillis() { return durationMillis; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+        public double getTotalDrift() { return drifts.stream().mapToDouble(Drift::getAmount).sum(); }
+        public boolean isClean() { return drifts.isEmpty() && failedUsers == 0; }
+    }
+}
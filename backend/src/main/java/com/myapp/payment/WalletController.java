@@ -1,5 +1,6 @@
 package com.myapp.payment;
 
+import com.myapp.common.http.RequestBodyDecoder;
 import com.myapp.common.models.Transaction;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -276,8 +277,7 @@ public class WalletController implements HttpHandler {
      */
     private void chargeWallet(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -304,8 +304,7 @@ public class WalletController implements HttpHandler {
      */
     private void chargeWalletWithCard(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -330,8 +329,7 @@ public class WalletController implements HttpHandler {
      */
     private void chargeWalletWithBankTransfer(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -358,8 +356,7 @@ public class WalletController implements HttpHandler {
      */
     private void withdrawFromWallet(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -387,8 +384,7 @@ public class WalletController implements HttpHandler {
      */
     private void adminCreditWallet(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -416,8 +412,7 @@ public class WalletController implements HttpHandler {
      */
     private void adminDebitWallet(HttpExchange exchange) throws IOException {
         try {
-            String requestBody = new String(exchange.getRequestBody().readAllBytes());
-            Map<String, Object> request = parseJsonRequest(requestBody);
+            Map<String, Object> request = RequestBodyDecoder.global().readMap(exchange);
             
             Long userId = extractLong(request, "userId");
             Double amount = extractDouble(request, "amount");
@@ -455,37 +450,6 @@ public class WalletController implements HttpHandler {
         return Long.parseLong(param);
     }
     
-    private Map<String, Object> parseJsonRequest(String json) {
-        // پارس ساده JSON برای درخواست‌های پایه
-        Map<String, Object> result = new java.util.HashMap<>();
-        
-        json = json.trim();
-        if (json.startsWith("{") && json.endsWith("}")) {
-            json = json.substring(1, json.length() - 1);
-            String[] pairs = json.split(",");
-            
-            for (String pair : pairs) {
-                String[] keyValue = pair.split(":");
-                if (keyValue.length == 2) {
-                    String key = keyValue[0].trim().replaceAll("\"", "");
-                    String value = keyValue[1].trim().replaceAll("\"", "");
-                    
-                    // تلاش برای پارس به عنوان عدد
-                    try {
-                        if (value.contains(".")) {
-                            result.put(key, Double.parseDouble(value));
-                        } else {
-                            result.put(key, Long.parseLong(value));
-                        }
-                    } catch (NumberFormatException e) {
-                        result.put(key, value);
-                    }
-                }
-            }
-        }
-        
-        return result;
-    }
     
     private Map<String, String> parseQueryParams(String query) {
         Map<String, String> params = new java.util.HashMap<>();
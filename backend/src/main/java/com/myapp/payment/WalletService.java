@@ -22,6 +22,8 @@ import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionStatus;
 import com.myapp.common.models.TransactionType;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.auth.AuthRepository;
 
 import java.math.BigDecimal;
@@ -105,7 +107,8 @@ public class WalletService {
             throw new IllegalArgumentException("Debit amount must be positive");
         }
         
-        // بررسی موجودی کافی
+        // بررسی سریع موجودی - ضمانت اصلی UPDATE شرطی در PaymentRepository.save است
+        // که برداشت‌های همزمان را اتمیک می‌کند و اجازه منفی شدن موجودی را نمی‌دهد
         Double currentBalance = getWalletBalance(userId);
         Double debitAmount = amount.doubleValue();
         
@@ -222,6 +225,8 @@ public class WalletService {
     /**
      * دریافت موجودی کیف پول کاربر
      * 
+     * موجودی از ردیف مادی‌سازی شده کاربر خوانده می‌شود (O(1))
+     * 
      * @param userId شناسه کاربر
      * @return موجودی کیف پول
      */
@@ -465,6 +470,7 @@ public class WalletService {
         }
         
         // Create and complete withdrawal transaction
+        // (save debits the balance row atomically and throws InsufficientFundsException on a lost race)
         String description = "Payment withdrawal for order: " + orderReference;
         Transaction withdrawal = Transaction.forWalletWithdrawal(userId, amount, description);
         
@@ -574,6 +580,42 @@ public class WalletService {
         return paymentRepository.findByUserIdAndType(userId, TransactionType.WALLET_WITHDRAWAL);
     }
     
+    /**
+     * Get one page of wallet transaction history (newest first)
+     */
+    public CursorPage<Transaction> getWalletTransactionHistoryPage(Long userId, CursorPageRequest request) {
+        return getWalletPage(userId,
+            List.of(TransactionType.WALLET_CHARGE, TransactionType.WALLET_WITHDRAWAL), request);
+    }
+    
+    /**
+     * Get one page of wallet charge history (newest first)
+     */
+    public CursorPage<Transaction> getWalletChargeHistoryPage(Long userId, CursorPageRequest request) {
+        return getWalletPage(userId, List.of(TransactionType.WALLET_CHARGE), request);
+    }
+    
+    /**
+     * Get one page of wallet withdrawal history (newest first)
+     */
+    public CursorPage<Transaction> getWalletWithdrawalHistoryPage(Long userId, CursorPageRequest request) {
+        return getWalletPage(userId, List.of(TransactionType.WALLET_WITHDRAWAL), request);
+    }
+    
+    private CursorPage<Transaction> getWalletPage(Long userId, List<TransactionType> types, CursorPageRequest request) {
+        if (userId == null || userId <= 0) {
+            throw new IllegalArgumentException("User ID must be positive");
+        }
+        
+        // Verify user exists
+        if (!authRepository.existsById(userId)) {
+            throw new NotFoundException("User", userId);
+        }
+        
+        return paymentRepository.findPageByUserId(userId, types,
+            request != null ? request : CursorPageRequest.firstPage());
+    }
+    
     // ==================== WALLET STATISTICS ====================
     
     /**
@@ -1,6 +1,9 @@
 package com.myapp.restaurant;
 
+import com.myapp.common.exceptions.InvalidRequestException;
 import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.http.RequestBodyDecoder;
+import com.myapp.common.http.Router;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
 import com.sun.net.httpserver.HttpExchange;
@@ -11,7 +14,6 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 /**
  * کنترلر REST API برای مدیریت رستوران‌ها
@@ -46,11 +48,15 @@ public class RestaurantController implements HttpHandler {
     /** سرویس مدیریت رستوران‌ها برای پردازش منطق کسب‌وکار */
     private final RestaurantService restaurantService;
     
+    /** جدول مسیرها؛ یک بار در سازنده ساخته می‌شود */
+    private final Router router = new Router();
+    
     /**
      * سازنده پیش‌فرض - ایجاد instance جدید از RestaurantService
      */
     public RestaurantController() {
         this.restaurantService = new RestaurantService();
+        registerRoutes();
     }
     
     /**
@@ -61,6 +67,41 @@ public class RestaurantController implements HttpHandler {
      */
     public RestaurantController(RestaurantService restaurantService) {
         this.restaurantService = restaurantService;
+        registerRoutes();
+    }
+    
+    /**
+     * ثبت مسیرهای کنترلر در Router
+     */
+    private void registerRoutes() {
+        // GET
+        router.get("/api/restaurants", (exchange, match) -> getAllApprovedRestaurants(exchange));
+        router.get("/api/restaurants/{id:long}", (exchange, match) ->
+            getRestaurantById(exchange, match.longParam("id")));
+        router.get("/api/restaurants/owner/{ownerId:long}", (exchange, match) ->
+            getRestaurantsByOwner(exchange, match.longParam("ownerId")));
+        router.get("/api/restaurants/status/{status:word}", (exchange, match) ->
+            getRestaurantsByStatus(exchange, match.param("status")));
+        router.get("/api/restaurants/statistics", (exchange, match) -> getRestaurantStatistics(exchange));
+        
+        // POST
+        router.post("/api/restaurants", (exchange, match) -> registerRestaurant(exchange));
+        router.post("/api/restaurants/{id:long}/approve", (exchange, match) ->
+            approveRestaurant(exchange, match.longParam("id")));
+        router.post("/api/restaurants/{id:long}/reject", (exchange, match) ->
+            rejectRestaurant(exchange, match.longParam("id")));
+        router.post("/api/restaurants/{id:long}/suspend", (exchange, match) ->
+            suspendRestaurant(exchange, match.longParam("id")));
+        
+        // PUT
+        router.put("/api/restaurants/{id:long}", (exchange, match) ->
+            updateRestaurant(exchange, match.longParam("id")));
+        router.put("/api/restaurants/{id:long}/status", (exchange, match) ->
+            updateRestaurantStatus(exchange, match.longParam("id")));
+        
+        // DELETE
+        router.delete("/api/restaurants/{id:long}", (exchange, match) ->
+            deleteRestaurant(exchange, match.longParam("id")));
     }
     
     /**
@@ -77,24 +118,16 @@ public class RestaurantController implements HttpHandler {
         String path = exchange.getRequestURI().getPath();
         
         try {
-            // مسیریابی درخواست بر اساس HTTP method
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
-                    break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
-                    break;
-                default:
-                    // HTTP method پشتیبانی نشده
-                    sendErrorResponse(exchange, 405, "Method not allowed");
+            Router.Match match = router.dispatch(exchange, method, path);
+            if (match.status() == Router.Status.METHOD_NOT_ALLOWED) {
+                match.applyAllowHeader(exchange);
+                sendErrorResponse(exchange, 405, "Method not allowed");
+            } else if (match.status() == Router.Status.NOT_FOUND) {
+                sendErrorResponse(exchange, 404, "Endpoint not found");
             }
+        } catch (InvalidRequestException e) {
+            // بدنه درخواست نامعتبر - 400 یا 413
+            sendErrorResponse(exchange, e.getStatusCode(), e.getMessage());
         } catch (IllegalArgumentException e) {
             // خطای validation ورودی‌ها
             sendErrorResponse(exchange, 400, e.getMessage());
@@ -109,37 +142,6 @@ public class RestaurantController implements HttpHandler {
     
     // ==================== GET ENDPOINTS - پردازش درخواست‌های GET ====================
     
-    /**
-     * پردازش تمام درخواست‌های GET مربوط به رستوران‌ها
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در پردازش
-     */
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/restaurants")) {
-            // GET /api/restaurants - دریافت همه رستوران‌های تأیید شده
-            getAllApprovedRestaurants(exchange);
-        } else if (path.matches("/api/restaurants/\\d+")) {
-            // GET /api/restaurants/{id} - دریافت رستوران با شناسه
-            Long id = extractIdFromPath(path);
-            getRestaurantById(exchange, id);
-        } else if (path.matches("/api/restaurants/owner/\\d+")) {
-            // GET /api/restaurants/owner/{ownerId} - دریافت رستوران‌های یک مالک
-            Long ownerId = extractIdFromPath(path, "/api/restaurants/owner/");
-            getRestaurantsByOwner(exchange, ownerId);
-        } else if (path.matches("/api/restaurants/status/\\w+")) {
-            // GET /api/restaurants/status/{status} - دریافت رستوران‌ها بر اساس وضعیت
-            String statusStr = extractStatusFromPath(path);
-            getRestaurantsByStatus(exchange, statusStr);
-        } else if (path.equals("/api/restaurants/statistics")) {
-            // GET /api/restaurants/statistics - دریافت آمار رستوران‌ها
-            getRestaurantStatistics(exchange);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * دریافت همه رستوران‌های تأیید شده (برای نمایش عمومی)
      * فقط رستوران‌هایی که وضعیت APPROVED دارند نمایش داده می‌شوند
@@ -211,34 +213,6 @@ public class RestaurantController implements HttpHandler {
     
     // ==================== POST ENDPOINTS - پردازش درخواست‌های POST ====================
     
-    /**
-     * پردازش تمام درخواست‌های POST مربوط به رستوران‌ها
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در پردازش
-     */
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/restaurants")) {
-            // POST /api/restaurants - ثبت رستوران جدید
-            registerRestaurant(exchange);
-        } else if (path.matches("/api/restaurants/\\d+/approve")) {
-            // POST /api/restaurants/{id}/approve - تأیید رستوران
-            Long id = extractIdFromPath(path, "/api/restaurants/", "/approve");
-            approveRestaurant(exchange, id);
-        } else if (path.matches("/api/restaurants/\\d+/reject")) {
-            // POST /api/restaurants/{id}/reject - رد رستوران
-            Long id = extractIdFromPath(path, "/api/restaurants/", "/reject");
-            rejectRestaurant(exchange, id);
-        } else if (path.matches("/api/restaurants/\\d+/suspend")) {
-            // POST /api/restaurants/{id}/suspend - تعلیق رستوران
-            Long id = extractIdFromPath(path, "/api/restaurants/", "/suspend");
-            suspendRestaurant(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     /**
      * ثبت رستوران جدید در سیستم
      * رستوران با وضعیت PENDING ثبت می‌شود و منتظر تأیید مدیر است
@@ -301,27 +275,6 @@ public class RestaurantController implements HttpHandler {
     
     // ==================== PUT ENDPOINTS - پردازش درخواست‌های PUT ====================
     
-    /**
-     * پردازش تمام درخواست‌های PUT مربوط به رستوران‌ها
-     * 
-     * @param exchange شیء HttpExchange
-     * @param path مسیر درخواست
-     * @throws IOException در صورت خطا در پردازش
-     */
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/restaurants/\\d+")) {
-            // PUT /api/restaurants/{id} - به‌روزرسانی اطلاعات رستوران
-            Long id = extractIdFromPath(path);
-            updateRestaurant(exchange, id);
-        } else if (path.matches("/api/restaurants/\\d+/status")) {
-            // PUT /api/restaurants/{id}/status - به‌روزرسانی وضعیت رستوران
-            Long id = extractIdFromPath(path, "/api/restaurants/", "/status");
-            updateRestaurantStatus(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     private void updateRestaurant(HttpExchange exchange, Long id) throws IOException {
         Map<String, Object> requestData = parseJsonRequest(exchange);
         
@@ -348,16 +301,6 @@ public class RestaurantController implements HttpHandler {
     
     // ==================== DELETE ENDPOINTS ====================
     
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/restaurants/\\d+")) {
-            // DELETE /api/restaurants/{id} - Delete restaurant
-            Long id = extractIdFromPath(path);
-            deleteRestaurant(exchange, id);
-        } else {
-            sendErrorResponse(exchange, 404, "Endpoint not found");
-        }
-    }
-    
     private void deleteRestaurant(HttpExchange exchange, Long id) throws IOException {
         restaurantService.deleteRestaurant(id);
         sendJsonResponse(exchange, 200, Map.of("message", "Restaurant deleted successfully"));
@@ -366,67 +309,18 @@ public class RestaurantController implements HttpHandler {
     // ==================== UTILITY METHODS - متدهای کمکی ====================
     
     /**
-     * استخراج شناسه از انتهای مسیر
-     * مثال: /api/restaurants/123 -> 123
+     * خواندن بدنه درخواست JSON به صورت Map
+     * 
+     * با parser جریانی Jackson (RequestBodyDecoder) خوانده می‌شود؛ اشیاء تو در تو
+     * و مقادیر دارای کاما درست پردازش می‌شوند و اندازه بدنه محدود است.
      * 
-     * @param path مسیر درخواست
-     * @return شناسه استخراج شده
+     * @param exchange HttpExchange حاوی request body
+     * @return Map شامل key-value های JSON (برای بدنه خالی، Map خالی)
+     * @throws InvalidRequestException اگر JSON نامعتبر یا بیش از حد بزرگ باشد
+     * @throws IOException در صورت خطا در خواندن request body
      */
-    private Long extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-        return Long.parseLong(parts[parts.length - 1]);
-    }
-    
-    private Long extractIdFromPath(String path, String prefix) {
-        String idStr = path.substring(prefix.length());
-        return Long.parseLong(idStr);
-    }
-    
-    private Long extractIdFromPath(String path, String prefix, String suffix) {
-        String withoutPrefix = path.substring(prefix.length());
-        String idStr = withoutPrefix.substring(0, withoutPrefix.indexOf(suffix));
-        return Long.parseLong(idStr);
-    }
-    
-    private String extractStatusFromPath(String path) {
-        String[] parts = path.split("/");
-        return parts[parts.length - 1];
-    }
-    
     private Map<String, Object> parseJsonRequest(HttpExchange exchange) throws IOException {
-        // Simple JSON parsing - in production, use Jackson or Gson
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        Map<String, Object> result = new HashMap<>();
-        
-        // Basic JSON parsing (simplified for this implementation)
-        if (requestBody.trim().isEmpty()) {
-            return result;
-        }
-        
-        // Remove curly braces and split by comma
-        String content = requestBody.trim().replaceAll("[{}]", "");
-        String[] pairs = content.split(",");
-        
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(":");
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().replaceAll("\"", "");
-                String value = keyValue[1].trim().replaceAll("\"", "");
-                
-                // Try to parse as number
-                try {
-                    if (value.contains(".")) {
-                        result.put(key, Double.parseDouble(value));
-                    } else {
-                        result.put(key, Long.parseLong(value));
-                    }
-                } catch (NumberFormatException e) {
-                    result.put(key, value);
-                }
-            }
-        }
-        
-        return result;
+        return RequestBodyDecoder.global().readMap(exchange);
     }
     
     private String getStringFromMap(Map<String, Object> map, String key) {
@@ -2,12 +2,17 @@ package com.myapp.restaurant;
 
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
+import com.myapp.common.search.CatalogSearchIndex;
 import com.myapp.common.utils.DatabaseUtil;
+import com.myapp.common.utils.ReplicaRouter;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -17,6 +22,36 @@ import java.util.Optional;
  */
 public class RestaurantRepository {
 
+    /** SessionFactory تزریق شده (در صورت null از DatabaseUtil استفاده می‌شود) */
+    private final SessionFactory sessionFactory;
+
+    public RestaurantRepository() {
+        this.sessionFactory = null;
+    }
+
+    /**
+     * سازنده برای تزریق SessionFactory (تست‌ها)
+     *
+     * @param sessionFactory SessionFactory سفارشی
+     */
+    public RestaurantRepository(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private SessionFactory sessionFactory() {
+        return sessionFactory != null ? sessionFactory : DatabaseUtil.getSessionFactory();
+    }
+
+    /**
+     * session فقط خواندنی برای لیست‌ها و شمارش‌ها
+     * (با SessionFactory تزریق شده مستقیم، در غیر این صورت از طریق مسیریاب replica)
+     */
+    private Session readSession() {
+        return sessionFactory != null
+            ? ReplicaRouter.readOnly(sessionFactory.openSession())
+            : DatabaseUtil.openReadSession();
+    }
+
     /**
      * ذخیره رستوران جدید در دیتابیس
      * شناسه به صورت خودکار توسط Hibernate تولید می‌شود
@@ -25,10 +60,11 @@ public class RestaurantRepository {
      * @return رستوران ذخیره شده همراه با شناسه تولید شده
      */
     public Restaurant saveNew(Restaurant toPersist) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.persist(toPersist);   // شناسه به صورت خودکار تولید می‌شود
             tx.commit();
+            CatalogSearchIndex.getInstance().onRestaurantSaved(toPersist);
             return toPersist;
         }
     }
@@ -40,7 +76,7 @@ public class RestaurantRepository {
      * @return Optional حاوی رستوران یا خالی در صورت عدم وجود
      */
     public Optional<Restaurant> findById(long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             return Optional.ofNullable(session.get(Restaurant.class, id));
         }
     }
@@ -52,7 +88,7 @@ public class RestaurantRepository {
      * @return لیست رستوران‌های مالک
      */
     public List<Restaurant> listByOwner(long ownerId) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Restaurant> q = session.createQuery(
                     "from Restaurant where ownerId = :o", Restaurant.class);
             q.setParameter("o", ownerId);
@@ -67,7 +103,7 @@ public class RestaurantRepository {
      * @return لیست رستوران‌های با وضعیت APPROVED
      */
     public List<Restaurant> listApproved() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Restaurant> q = session.createQuery(
                     "from Restaurant where status = :s", Restaurant.class);
             q.setParameter("s", RestaurantStatus.APPROVED);
@@ -82,11 +118,12 @@ public class RestaurantRepository {
      * @param status وضعیت جدید
      */
     public void updateStatus(long id, RestaurantStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Restaurant r = session.get(Restaurant.class, id);
             if (r != null) r.setStatus(status);  // تنها در صورت وجود رستوران به‌روزرسانی می‌شود
             tx.commit();
+            if (r != null) CatalogSearchIndex.getInstance().onRestaurantStatusChanged(id, status);
         }
     }
 
@@ -95,10 +132,11 @@ public class RestaurantRepository {
      * این متد فقط در محیط تست استفاده می‌شود
      */
     public void deleteAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             session.createQuery("delete from Restaurant").executeUpdate();
             tx.commit();
+            CatalogSearchIndex.getInstance().onRestaurantsCleared();
         }
     }
 
@@ -114,10 +152,11 @@ public class RestaurantRepository {
         if (restaurant.getId() == null) {
             return saveNew(restaurant);  // ایجاد رستوران جدید
         } else {
-            try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+            try (Session session = sessionFactory().openSession()) {
                 Transaction tx = session.beginTransaction();
                 session.merge(restaurant);  // به‌روزرسانی رستوران موجود
                 tx.commit();
+                CatalogSearchIndex.getInstance().onRestaurantSaved(restaurant);
                 return restaurant;
             }
         }
@@ -129,12 +168,28 @@ public class RestaurantRepository {
      * @return لیست همه رستوران‌ها
      */
     public List<Restaurant> findAll() {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Restaurant> q = session.createQuery("from Restaurant", Restaurant.class);
             return q.getResultList();
         }
     }
 
+    /**
+     * شمارش رستوران‌ها بر اساس وضعیت با یک کوئری GROUP BY
+     * 
+     * @return تعداد رستوران‌های هر وضعیت (وضعیت‌های بدون رستوران در Map نیستند)
+     */
+    public Map<RestaurantStatus, Long> countByStatus() {
+        try (Session session = readSession()) {
+            Map<RestaurantStatus, Long> counts = new EnumMap<>(RestaurantStatus.class);
+            for (Object[] row : session.createQuery(
+                    "select r.status, count(r) from Restaurant r group by r.status", Object[].class).list()) {
+                counts.put((RestaurantStatus) row[0], (Long) row[1]);
+            }
+            return counts;
+        }
+    }
+
     /**
      * دریافت رستوران‌ها بر اساس وضعیت
      * 
@@ -142,7 +197,7 @@ public class RestaurantRepository {
      * @return لیست رستوران‌ها با وضعیت مشخص
      */
     public List<Restaurant> findByStatus(RestaurantStatus status) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = readSession()) {
             Query<Restaurant> q = session.createQuery(
                     "from Restaurant where status = :s", Restaurant.class);
             q.setParameter("s", status);
@@ -156,13 +211,14 @@ public class RestaurantRepository {
      * @param id شناسه رستوران برای حذف
      */
     public void delete(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Restaurant restaurant = session.get(Restaurant.class, id);
             if (restaurant != null) {
                 session.remove(restaurant);  // حذف تنها در صورت وجود رستوران
             }
             tx.commit();
+            CatalogSearchIndex.getInstance().onRestaurantDeleted(id);
         }
     }
     
@@ -173,7 +229,7 @@ public class RestaurantRepository {
      * @return true اگر رستوران وجود داشته باشد
      */
     public boolean existsById(Long id) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Restaurant restaurant = session.get(Restaurant.class, id);
             return restaurant != null;
         }
@@ -186,10 +242,11 @@ public class RestaurantRepository {
      * @return رستوران به‌روزرسانی شده
      */
     public Restaurant update(Restaurant restaurant) {
-        try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
+        try (Session session = sessionFactory().openSession()) {
             Transaction tx = session.beginTransaction();
             Restaurant updated = (Restaurant) session.merge(restaurant);  // merge برای به‌روزرسانی
             tx.commit();
+            CatalogSearchIndex.getInstance().onRestaurantSaved(updated);
             return updated;
         }
     }
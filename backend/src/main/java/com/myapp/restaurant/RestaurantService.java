@@ -1,5 +1,6 @@
 package com.myapp.restaurant;
 
+import com.myapp.common.cache.SnapshotCache;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
@@ -8,6 +9,7 @@ import com.myapp.common.utils.AdvancedOptimizer;
 import com.myapp.common.utils.ValidationUtil;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Future;
 import java.util.ArrayList;
@@ -22,6 +24,10 @@ public class RestaurantService {
     // repository برای دسترسی به داده‌های رستوران
     private final RestaurantRepository restaurantRepository;
     
+    // snapshot کوتاه‌مدت آمار رستوران‌ها (یک کلید)
+    private final SnapshotCache<String, RestaurantStatistics> statistics =
+        new SnapshotCache<>(SnapshotCache.DEFAULT_TTL_MILLIS, 1);
+    
     /**
      * سازنده پیش‌فرض - ایجاد نمونه repository
      */
@@ -405,47 +411,28 @@ public class RestaurantService {
     }
     
     /**
-     * Get restaurant statistics - Optimized with caching and performance monitoring
+     * دریافت آمار رستوران‌ها
+     * 
+     * شمارش هر وضعیت با یک کوئری GROUP BY در دیتابیس انجام می‌شود و نتیجه
+     * به مدت کوتاهی به صورت snapshot نگه داشته می‌شود؛ در این مدت فراخوانی‌های
+     * همزمان کوئری تکراری نمی‌فرستند.
      */
     public RestaurantStatistics getRestaurantStatistics() {
-        String cacheKey = PerformanceUtil.createQueryCacheKey("restaurant_statistics");
-        
-        return PerformanceUtil.executeWithCache(
-            cacheKey,
-            () -> {
-                return PerformanceUtil.measurePerformance("calculateRestaurantStatistics", () -> {
-                    return calculateRestaurantStatisticsInternal();
-                }).getResult();
-            },
-            RestaurantStatistics.class,
-            30 // Cache for 30 minutes
-        );
+        return statistics.get("restaurants", () ->
+            PerformanceUtil.measurePerformance("calculateRestaurantStatistics",
+                this::calculateRestaurantStatisticsInternal).getResult());
     }
     
     /**
-     * Calculate restaurant statistics without caching - for testing and internal use
+     * محاسبه آمار رستوران‌ها بدون cache
      */
     private RestaurantStatistics calculateRestaurantStatisticsInternal() {
-        List<Restaurant> allRestaurants = getAllRestaurants();
-        
-        // Check memory usage before processing large dataset
-        if (PerformanceUtil.isMemoryUsageCritical()) {
-            PerformanceUtil.forceGarbageCollection();
-        }
-        
-        long totalCount = allRestaurants.size();
-        long approvedCount = allRestaurants.parallelStream()
-                .filter(r -> r.getStatus() == RestaurantStatus.APPROVED)
-                .count();
-        long pendingCount = allRestaurants.parallelStream()
-                .filter(r -> r.getStatus() == RestaurantStatus.PENDING)
-                .count();
-        long rejectedCount = allRestaurants.parallelStream()
-                .filter(r -> r.getStatus() == RestaurantStatus.REJECTED)
-                .count();
-        long suspendedCount = allRestaurants.parallelStream()
-                .filter(r -> r.getStatus() == RestaurantStatus.SUSPENDED)
-                .count();
+        Map<RestaurantStatus, Long> counts = restaurantRepository.countByStatus();
+        long approvedCount = counts.getOrDefault(RestaurantStatus.APPROVED, 0L);
+        long pendingCount = counts.getOrDefault(RestaurantStatus.PENDING, 0L);
+        long rejectedCount = counts.getOrDefault(RestaurantStatus.REJECTED, 0L);
+        long suspendedCount = counts.getOrDefault(RestaurantStatus.SUSPENDED, 0L);
+        long totalCount = counts.values().stream().mapToLong(Long::longValue).sum();
         
         return new RestaurantStatistics(totalCount, approvedCount, pendingCount, 
                                       rejectedCount, suspendedCount);
@@ -3,6 +3,9 @@ package com.myapp.review;
 import com.myapp.common.models.Rating;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
+import com.myapp.common.pagination.KeysetQuery;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
@@ -487,24 +490,21 @@ public class RatingRepository {
     /**
      * دریافت نظرات با صفحه‌بندی
      * 
-     * برای بهبود عملکرد در صفحات مدیریت با تعداد زیاد نظرات
+     * برای بهبود عملکرد در صفحات مدیریت با تعداد زیاد نظرات؛ به جای OFFSET روی
+     * (createdAt, id) seek می‌کند تا هزینه صفحات عمیق با صفحه اول برابر بماند
      * 
-     * @param offset شروع از رکورد (شروع از 0)
-     * @param limit تعداد رکوردها در هر صفحه
-     * @return لیست نظرات با صفحه‌بندی
+     * @param request درخواست صفحه (cursor صفحه قبل و limit)
+     * @return صفحه نظرات همراه با cursor صفحه بعد
      */
-    public List<Rating> findWithPagination(int offset, int limit) {
+    public CursorPage<Rating> findWithPagination(CursorPageRequest request) {
         try (Session session = DatabaseUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Rating r ORDER BY r.createdAt DESC";
-            Query<Rating> query = session.createQuery(hql, Rating.class);
-            query.setFirstResult(offset);
-            query.setMaxResults(limit);
-            
-            return query.getResultList();
+            return KeysetQuery.from(Rating.class, "Rating r")
+                .orderBy("r.createdAt", Rating::getCreatedAt, "r.id", Rating::getId)
+                .fetch(session, request);
             
         } catch (Exception e) {
             logger.error("Error finding ratings with pagination: {}", e.getMessage(), e);
-            return List.of();
+            return CursorPage.empty(request.getLimit());
         }
     }
     
@@ -5,6 +5,8 @@ import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.Rating;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.restaurant.RestaurantRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -509,18 +511,16 @@ public class RatingService {
      * 
      * برای بهبود عملکرد در صفحات مدیریت
      * 
-     * @param page شماره صفحه (شروع از 0)
-     * @param size تعداد رکورد در هر صفحه
-     * @return لیست نظرات با صفحه‌بندی
-     * @throws IllegalArgumentException در صورت پارامترهای نامعتبر
+     * @param request درخواست صفحه keyset (cursor صفحه قبل و limit)
+     * @return صفحه نظرات همراه با cursor صفحه بعد
+     * @throws IllegalArgumentException در صورت null بودن درخواست
      */
-    public List<Rating> getRatingsWithPagination(int page, int size) {
-        if (page < 0 || size < 1) {
-            throw new IllegalArgumentException("Page must be non-negative and size must be positive");
+    public CursorPage<Rating> getRatingsWithPagination(CursorPageRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Page request cannot be null");
         }
         
-        int offset = page * size;
-        return ratingRepository.findWithPagination(offset, size);
+        return ratingRepository.findWithPagination(request);
     }
     
     /**
@@ -0,0 +1,17 @@
+-- Migration: notification_unread_index
+-- Version: 20261017090200
+-- Created: 2026-10-17
+
+-- UP Migration
+-- CONCURRENTLY جدول را هنگام ساخت ایندکس قفل نمی‌کند؛ هر دستور باید خارج از
+-- transaction اجرا شود (psql با autocommit، بدون BEGIN/COMMIT)
+-- ایندکس جزئی فقط روی اعلان‌های خوانده نشده و حذف نشده؛ بیشتر ردیف‌ها
+-- خوانده شده‌اند، پس این ایندکس بسیار کوچک‌تر از (userId, isRead, isDeleted) است.
+-- شرط‌ها باید دقیقاً مانند SQL تولید شده Hibernate باشند (isRead=false and isDeleted=false)
+-- تا planner بتواند از ایندکس جزئی استفاده کند.
+-- (NotificationRepository.findUnreadByUserId / loadUnreadCounts / markAllAsReadForUser)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notification_user_unread ON notifications (userId, created_at)
+    WHERE isRead = false AND isDeleted = false;
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX CONCURRENTLY IF EXISTS idx_notification_user_unread;
@@ -0,0 +1,17 @@
+-- Migration: delivery_indexes
+-- Version: 20261017090300
+-- Created: 2026-10-17
+
+-- UP Migration
+-- CONCURRENTLY جدول را هنگام ساخت ایندکس قفل نمی‌کند؛ هر دستور باید خارج از
+-- transaction اجرا شود (psql با autocommit، بدون BEGIN/COMMIT)
+-- تحویل‌های فعال و آمار هر پیک (courier_id + status) به ترتیب زمان اختصاص
+-- (DeliveryRepository.findActiveByCourier / findByCourierAndStatus / countByCourierAndStatus)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_delivery_courier_status ON deliveries (courier_id, status, assigned_at);
+
+-- صف تحویل‌های PENDING و لیست وضعیت‌ها (ORDER BY id DESC)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_delivery_status ON deliveries (status, id);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX CONCURRENTLY IF EXISTS idx_delivery_courier_status;
+-- DROP INDEX CONCURRENTLY IF EXISTS idx_delivery_status;
@@ -0,0 +1,23 @@
+-- Migration: pooled_id_allocation
+-- Version: 20261017100000
+-- Created: 2026-10-17
+
+-- UP Migration
+-- بلوک شناسه notifications و order_items از 50 به 500 (IdAllocation.BULK) رسیده است.
+-- Hibernate هنگام شروع increment هر sequence را با allocationSize مقایسه می‌کند و در صورت
+-- اختلاف خطا می‌دهد، پس این migration باید قبل از deploy نسخه جدید اجرا شود.
+-- optimizer از نوع pooled با مقدار v از nextval شناسه‌های [v - 499, v] را می‌دهد، پس
+-- sequence جلوتر از بزرگترین شناسه موجود و آخرین بلوک رزرو شده قرار می‌گیرد.
+ALTER SEQUENCE notifications_seq INCREMENT BY 500;
+SELECT setval('notifications_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM notifications),
+                       (SELECT last_value FROM notifications_seq)) + 1);
+
+ALTER SEQUENCE order_items_seq INCREMENT BY 500;
+SELECT setval('order_items_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM order_items),
+                       (SELECT last_value FROM order_items_seq)) + 1);
+
+-- DOWN Migration (for rollback)
+-- ALTER SEQUENCE notifications_seq INCREMENT BY 50;
+-- ALTER SEQUENCE order_items_seq INCREMENT BY 50;
@@ -0,0 +1,34 @@
+-- Migration: wallet_balances
+-- Version: 20261017110000
+-- Created: 2026-10-17
+
+-- UP Migration
+-- موجودی مادی‌سازی شده کیف پول (WalletBalance)؛ تولید با hbm2ddl.auto=validate اجرا
+-- می‌شود، پس جدول باید قبل از deploy نسخه جدید ساخته شود.
+CREATE TABLE IF NOT EXISTS wallet_balances (
+    user_id bigint NOT NULL,
+    balance float(53) NOT NULL,
+    version bigint NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+-- پر کردن اولیه با همان جمع PaymentRepository.sumWalletTransactions تا اولین خواندن
+-- هر کاربر تراکنش‌هایش را جمع نزند؛ ردیف‌های ساخته نشده همچنان lazy ساخته می‌شوند
+-- و WalletBalanceReconciler اختلاف احتمالی را اصلاح می‌کند.
+INSERT INTO wallet_balances (user_id, balance, version, updated_at)
+SELECT t.user_id,
+       COALESCE(SUM(CASE
+                    WHEN t.type IN ('WALLET_CHARGE', 'CREDIT') THEN t.amount
+                    WHEN t.type IN ('WALLET_WITHDRAWAL', 'DEBIT') THEN -t.amount
+                    ELSE 0 END), 0.0),
+       0,
+       now()
+  FROM transactions t
+ WHERE t.status = 'COMPLETED'
+   AND t.type IN ('WALLET_CHARGE', 'WALLET_WITHDRAWAL', 'CREDIT', 'DEBIT')
+ GROUP BY t.user_id
+ON CONFLICT (user_id) DO NOTHING;
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS wallet_balances;
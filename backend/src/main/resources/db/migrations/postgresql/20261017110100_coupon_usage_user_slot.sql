@@ -0,0 +1,27 @@
+-- Migration: coupon_usage_user_slot
+-- Version: 20261017110100
+-- Created: 2026-10-17
+
+-- UP Migration
+-- سهمیه per-user استفاده از کوپن (CouponUsage.userSlot) با قید یکتای
+-- (coupon_id, user_id, user_slot)؛ NULL ها برابر نیستند، پس استفاده‌های برگشتی
+-- (user_slot = NULL) محدودیتی ایجاد نمی‌کنند.
+ALTER TABLE coupon_usage ADD COLUMN IF NOT EXISTS user_slot integer;
+
+-- استفاده‌های فعال موجود به ترتیب زمان استفاده از 1 شماره‌گذاری می‌شوند؛ بدون این کار
+-- سهمیه آن‌ها NULL می‌ماند و CouponUsageRepository.saveWithinUserLimit آن‌ها را
+-- نمی‌شمارد و کاربر دوباره perUserLimit استفاده دیگر می‌گیرد.
+UPDATE coupon_usage cu
+   SET user_slot = numbered.slot
+  FROM (SELECT id,
+               ROW_NUMBER() OVER (PARTITION BY coupon_id, user_id ORDER BY used_at, id) AS slot
+          FROM coupon_usage
+         WHERE is_active = true) numbered
+ WHERE cu.id = numbered.id
+   AND cu.user_slot IS NULL;
+
+ALTER TABLE coupon_usage ADD CONSTRAINT uk_coupon_usage_user_slot UNIQUE (coupon_id, user_id, user_slot);
+
+-- DOWN Migration (for rollback)
+-- ALTER TABLE coupon_usage DROP CONSTRAINT IF EXISTS uk_coupon_usage_user_slot;
+-- ALTER TABLE coupon_usage DROP COLUMN IF EXISTS user_slot;
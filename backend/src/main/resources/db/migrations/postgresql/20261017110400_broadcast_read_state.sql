@@ -0,0 +1,18 @@
+-- Migration: broadcast_read_state
+-- Version: 20261017110400
+-- Created: 2026-10-17
+
+-- UP Migration
+-- وضعیت خوانده شدن broadcast های fan-out-on-read، یک ردیف برای هر کاربر (BroadcastReadState).
+-- نشانگر (read_up_to_at, read_up_to) به ترتیب زمان ایجاد broadcast است؛ read_ids حداکثر
+-- MAX_READ_IDS شناسه دارد و در 1000 کاراکتر جا می‌شود.
+CREATE TABLE IF NOT EXISTS broadcast_read_state (
+    user_id bigint NOT NULL,
+    read_up_to bigint NOT NULL,
+    read_up_to_at timestamp(6),
+    read_ids varchar(1000) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS broadcast_read_state;
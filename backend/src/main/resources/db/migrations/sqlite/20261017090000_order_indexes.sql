@@ -0,0 +1,20 @@
+-- Migration: order_indexes
+-- Version: 20261017090000
+-- Created: 2026-10-17
+
+-- UP Migration
+-- سفارش‌های یک مشتری/رستوران با وضعیت مشخص، جدیدترین اول
+-- (OrderRepository.findByCustomerAndStatus / findByRestaurantAndStatus)
+CREATE INDEX IF NOT EXISTS idx_order_customer_status_date ON orders (customer_id, status, order_date);
+CREATE INDEX IF NOT EXISTS idx_order_restaurant_status_date ON orders (restaurant_id, status, order_date);
+
+-- کلیدهای خارجی order_items در PostgreSQL و SQLite خودکار ایندکس نمی‌شوند
+-- و هر fetch join سفارش روی order_id انجام می‌شود
+CREATE INDEX IF NOT EXISTS idx_order_item_order ON order_items (order_id);
+CREATE INDEX IF NOT EXISTS idx_order_item_food_item ON order_items (food_item_id);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS idx_order_customer_status_date;
+-- DROP INDEX IF EXISTS idx_order_restaurant_status_date;
+-- DROP INDEX IF EXISTS idx_order_item_order;
+-- DROP INDEX IF EXISTS idx_order_item_food_item;
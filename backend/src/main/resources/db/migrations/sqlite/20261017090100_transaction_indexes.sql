@@ -0,0 +1,15 @@
+-- Migration: transaction_indexes
+-- Version: 20261017090100
+-- Created: 2026-10-17
+
+-- UP Migration
+-- جمع موجودی کیف پول و آمار کاربر (user_id + type + status)
+-- (PaymentRepository.sumWalletTransactions / getUserTransactionStatistics)
+CREATE INDEX IF NOT EXISTS idx_transaction_user_type_status ON transactions (user_id, type, status);
+
+-- لیست و صفحه‌بندی تراکنش‌ها بر اساس نوع، جدیدترین اول
+CREATE INDEX IF NOT EXISTS idx_transaction_type_created ON transactions (type, created_at, id);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS idx_transaction_user_type_status;
+-- DROP INDEX IF EXISTS idx_transaction_type_created;
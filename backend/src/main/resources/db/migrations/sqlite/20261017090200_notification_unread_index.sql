@@ -0,0 +1,15 @@
+-- Migration: notification_unread_index
+-- Version: 20261017090200
+-- Created: 2026-10-17
+
+-- UP Migration
+-- ایندکس جزئی فقط روی اعلان‌های خوانده نشده و حذف نشده؛ بیشتر ردیف‌ها
+-- خوانده شده‌اند، پس این ایندکس بسیار کوچک‌تر از (userId, isRead, isDeleted) است.
+-- شرط‌ها باید دقیقاً مانند SQL تولید شده Hibernate باشند تا planner بتواند از
+-- ایندکس جزئی استفاده کند؛ SQLiteDialect مقدار false را 0 می‌نویسد (isRead=0).
+-- (NotificationRepository.findUnreadByUserId / loadUnreadCounts / markAllAsReadForUser)
+CREATE INDEX IF NOT EXISTS idx_notification_user_unread ON notifications (userId, created_at)
+    WHERE isRead = 0 AND isDeleted = 0;
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS idx_notification_user_unread;
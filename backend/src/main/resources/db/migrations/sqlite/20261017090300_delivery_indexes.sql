@@ -0,0 +1,15 @@
+-- Migration: delivery_indexes
+-- Version: 20261017090300
+-- Created: 2026-10-17
+
+-- UP Migration
+-- تحویل‌های فعال و آمار هر پیک (courier_id + status) به ترتیب زمان اختصاص
+-- (DeliveryRepository.findActiveByCourier / findByCourierAndStatus / countByCourierAndStatus)
+CREATE INDEX IF NOT EXISTS idx_delivery_courier_status ON deliveries (courier_id, status, assigned_at);
+
+-- صف تحویل‌های PENDING و لیست وضعیت‌ها (ORDER BY id DESC)
+CREATE INDEX IF NOT EXISTS idx_delivery_status ON deliveries (status, id);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS idx_delivery_courier_status;
+-- DROP INDEX IF EXISTS idx_delivery_status;
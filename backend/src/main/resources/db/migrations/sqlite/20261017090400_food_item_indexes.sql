@@ -0,0 +1,14 @@
+-- Migration: food_item_indexes
+-- Version: 20261017090400
+-- Created: 2026-10-17
+
+-- UP Migration
+-- منوی رستوران و فیلتر دسته‌بندی روی آیتم‌های در دسترس؛ ایندکس اول شرط
+-- restaurant_id = ? AND available = true AND quantity > 0 را کامل پوشش می‌دهد
+-- (ItemRepository.findAvailableByRestaurant / countAvailableByRestaurant / findByCategory)
+CREATE INDEX IF NOT EXISTS idx_food_item_restaurant_available ON food_items (restaurant_id, available, quantity);
+CREATE INDEX IF NOT EXISTS idx_food_item_category_available ON food_items (category, available);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS idx_food_item_restaurant_available;
+-- DROP INDEX IF EXISTS idx_food_item_category_available;
@@ -0,0 +1,17 @@
+-- Migration: pooled_id_allocation
+-- Version: 20261017100000
+-- Created: 2026-10-17
+
+-- UP Migration
+-- بلوک شناسه notifications و order_items از 50 به 500 (IdAllocation.BULK) رسیده است.
+-- optimizer از نوع pooled با مقدار v از جدول _SEQ شناسه‌های [v - 499, v] را می‌دهد،
+-- پس next_val باید حداقل 500 بالاتر از بزرگترین شناسه موجود و مقدار قبلی باشد؛
+-- در غیر این صورت اولین بلوک جدید با ردیف‌های موجود هم‌پوشانی دارد.
+-- قبل از اجرا برنامه را متوقف کنید (بلوک‌های رزرو شده در حافظه نباید باقی بمانند).
+UPDATE notifications_SEQ
+   SET next_val = MAX(next_val, (SELECT COALESCE(MAX(id), 0) FROM notifications) + 1) + 500;
+UPDATE order_items_SEQ
+   SET next_val = MAX(next_val, (SELECT COALESCE(MAX(id), 0) FROM order_items) + 1) + 500;
+
+-- DOWN Migration (for rollback)
+-- فقط همراه با برگرداندن allocationSize به 50؛ مقدار next_val بزرگتر برای بلوک 50 هم امن است
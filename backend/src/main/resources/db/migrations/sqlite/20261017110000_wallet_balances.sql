@@ -0,0 +1,32 @@
+-- Migration: wallet_balances
+-- Version: 20261017110000
+-- Created: 2026-10-17
+
+-- UP Migration
+-- موجودی مادی‌سازی شده کیف پول (WalletBalance)
+CREATE TABLE IF NOT EXISTS wallet_balances (
+    user_id bigint NOT NULL,
+    balance float NOT NULL,
+    version bigint NOT NULL,
+    updated_at timestamp NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+-- پر کردن اولیه با همان جمع PaymentRepository.sumWalletTransactions تا اولین خواندن
+-- هر کاربر تراکنش‌هایش را جمع نزند؛ ردیف‌های ساخته نشده همچنان lazy ساخته می‌شوند.
+-- SQLiteDialect زمان را به صورت میلی‌ثانیه epoch ذخیره می‌کند.
+INSERT OR IGNORE INTO wallet_balances (user_id, balance, version, updated_at)
+SELECT t.user_id,
+       COALESCE(SUM(CASE
+                    WHEN t.type IN ('WALLET_CHARGE', 'CREDIT') THEN t.amount
+                    WHEN t.type IN ('WALLET_WITHDRAWAL', 'DEBIT') THEN -t.amount
+                    ELSE 0 END), 0.0),
+       0,
+       CAST(strftime('%s', 'now') AS INTEGER) * 1000
+  FROM transactions t
+ WHERE t.status = 'COMPLETED'
+   AND t.type IN ('WALLET_CHARGE', 'WALLET_WITHDRAWAL', 'CREDIT', 'DEBIT')
+ GROUP BY t.user_id;
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS wallet_balances;
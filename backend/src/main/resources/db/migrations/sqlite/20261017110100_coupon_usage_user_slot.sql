@@ -0,0 +1,30 @@
+-- Migration: coupon_usage_user_slot
+-- Version: 20261017110100
+-- Created: 2026-10-17
+
+-- UP Migration
+-- سهمیه per-user استفاده از کوپن (CouponUsage.userSlot)؛ ستون user_slot را
+-- hbm2ddl.auto=update (hibernate.cfg.xml) اضافه می‌کند و SQLite ستون را به شکل
+-- شرطی (IF NOT EXISTS) اضافه نمی‌کند، پس این migration فقط داده و ایندکس را می‌سازد.
+-- SQLite قید یکتا را با ALTER TABLE اضافه نمی‌کند، پس قید (coupon_id, user_id, user_slot)
+-- ایندکس یکتا است. NULL ها برابر نیستند، پس استفاده‌های برگشتی (user_slot = NULL)
+-- محدودیتی ایجاد نمی‌کنند.
+
+-- استفاده‌های فعال موجود به ترتیب زمان استفاده از 1 شماره‌گذاری می‌شوند؛ بدون این کار
+-- سهمیه آن‌ها NULL می‌ماند و CouponUsageRepository.saveWithinUserLimit آن‌ها را نمی‌شمارد.
+-- SQLiteDialect مقدار true را 1 می‌نویسد.
+UPDATE coupon_usage
+   SET user_slot = (SELECT COUNT(*)
+                      FROM coupon_usage p
+                     WHERE p.coupon_id = coupon_usage.coupon_id
+                       AND p.user_id = coupon_usage.user_id
+                       AND p.is_active = 1
+                       AND (p.used_at < coupon_usage.used_at
+                            OR (p.used_at = coupon_usage.used_at AND p.id <= coupon_usage.id)))
+ WHERE is_active = 1
+   AND user_slot IS NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_coupon_usage_user_slot ON coupon_usage (coupon_id, user_id, user_slot);
+
+-- DOWN Migration (for rollback)
+-- DROP INDEX IF EXISTS uk_coupon_usage_user_slot;
@@ -0,0 +1,18 @@
+-- Migration: job_leases
+-- Version: 20261017110200
+-- Created: 2026-10-17
+
+-- UP Migration
+-- lease اجرای job های زمان‌بندی شده بین نودها (JobLease / MaintenanceScheduler)؛
+-- last_success_at اسلات cron اجرا شده را نگه می‌دارد تا هر اسلات فقط یک بار اجرا شود.
+CREATE TABLE IF NOT EXISTS job_leases (
+    job_name varchar(100) NOT NULL,
+    owner varchar(100) NOT NULL,
+    lease_until timestamp NOT NULL,
+    acquired_at timestamp NOT NULL,
+    last_success_at timestamp,
+    PRIMARY KEY (job_name)
+);
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS job_leases;
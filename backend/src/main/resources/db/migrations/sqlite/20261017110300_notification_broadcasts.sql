@@ -0,0 +1,36 @@
+-- Migration: notification_broadcasts
+-- Version: 20261017110300
+-- Created: 2026-10-17
+
+-- UP Migration
+-- اعلان‌های گروهی (NotificationBroadcast) با پیشرفت تحویل قابل ادامه (last_user_id).
+-- SQLite sequence ندارد و Hibernate آن را با جدول notification_broadcasts_SEQ پیاده می‌کند.
+CREATE TABLE IF NOT EXISTS notification_broadcasts (
+    id bigint NOT NULL,
+    fan_out varchar(10) NOT NULL CHECK (fan_out IN ('WRITE', 'READ')),
+    type varchar(255) NOT NULL,
+    priority varchar(255) NOT NULL,
+    title varchar(100) NOT NULL,
+    message varchar(500) NOT NULL,
+    status varchar(20) NOT NULL CHECK (status IN ('IN_PROGRESS', 'COMPLETED', 'FAILED')),
+    last_user_id bigint NOT NULL,
+    delivered_count bigint NOT NULL,
+    created_at timestamp NOT NULL,
+    updated_at timestamp,
+    completed_at timestamp,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS notification_broadcasts_SEQ (
+    next_val bigint
+);
+INSERT INTO notification_broadcasts_SEQ (next_val)
+SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM notification_broadcasts_SEQ);
+
+-- broadcast های fan-out-on-read داخل بازه نمایش (NotificationRepository.activeFeedBroadcasts)
+CREATE INDEX IF NOT EXISTS idx_notification_broadcasts_fan_out_created
+    ON notification_broadcasts (fan_out, created_at);
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS notification_broadcasts;
+-- DROP TABLE IF EXISTS notification_broadcasts_SEQ;
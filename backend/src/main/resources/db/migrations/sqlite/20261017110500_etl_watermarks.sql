@@ -0,0 +1,18 @@
+-- Migration: etl_watermarks
+-- Version: 20261017110500
+-- Created: 2026-10-17
+
+-- UP Migration
+-- نشانگر پیشرفت ETL افزایشی برای هر منبع (ETLWatermark)؛ نبود ردیف یعنی استخراج
+-- از ابتدا، پس اولین اجرا پس از این migration یک بارگذاری کامل است.
+CREATE TABLE IF NOT EXISTS etl_watermarks (
+    source varchar(50) NOT NULL,
+    last_timestamp timestamp,
+    last_id bigint NOT NULL,
+    rows_processed bigint NOT NULL,
+    updated_at timestamp NOT NULL,
+    PRIMARY KEY (source)
+);
+
+-- DOWN Migration (for rollback)
+-- DROP TABLE IF EXISTS etl_watermarks;
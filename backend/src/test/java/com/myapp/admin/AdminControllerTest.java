@@ -2,6 +2,8 @@ package com.myapp.admin;
 
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.jupiter.api.*;
 import org.mockito.Mock;
@@ -126,17 +128,18 @@ class AdminControllerTest {
         );
         
         when(exchange.getRequestMethod()).thenReturn("GET");
-        when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/users?page=0&size=10"));
+        when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/users?limit=10"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllUsers(null, null, 0, 10)).thenReturn(users);
+        when(adminService.getAllUsers(isNull(), isNull(), argThat(request -> request.getLimit() == 10)))
+            .thenReturn(new CursorPage<>(users, null, 10));
         when(adminService.countUsers(null, null)).thenReturn(2L);
         
         // Act
         adminController.handle(exchange);
         
         // Assert
-        verify(adminService, times(1)).getAllUsers(null, null, 0, 10);
+        verify(adminService, times(1)).getAllUsers(isNull(), isNull(), argThat(request -> request.getLimit() == 10));
         verify(adminService, times(1)).countUsers(null, null);
         verify(exchange, times(1)).sendResponseHeaders(eq(200), anyLong());
     }
@@ -212,14 +215,15 @@ class AdminControllerTest {
         when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/restaurants"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllRestaurants(null, null, 0, 20)).thenReturn(restaurants);
+        when(adminService.getAllRestaurants(isNull(), isNull(), any(CursorPageRequest.class)))
+            .thenReturn(new CursorPage<>(restaurants, null, 20));
         when(adminService.countRestaurants(null, null)).thenReturn(2L);
         
         // Act
         adminController.handle(exchange);
         
         // Assert
-        verify(adminService, times(1)).getAllRestaurants(null, null, 0, 20);
+        verify(adminService, times(1)).getAllRestaurants(isNull(), isNull(), any(CursorPageRequest.class));
         verify(adminService, times(1)).countRestaurants(null, null);
         verify(exchange, times(1)).sendResponseHeaders(eq(200), anyLong());
     }
@@ -259,14 +263,15 @@ class AdminControllerTest {
         when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/orders"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllOrders(null, null, null, null, 0, 20)).thenReturn(orders);
+        when(adminService.getAllOrders(isNull(), isNull(), isNull(), isNull(), any(CursorPageRequest.class)))
+            .thenReturn(new CursorPage<>(orders, null, 20));
         when(adminService.countOrders(null, null, null, null)).thenReturn(1L);
         
         // Act
         adminController.handle(exchange);
         
         // Assert
-        verify(adminService, times(1)).getAllOrders(null, null, null, null, 0, 20);
+        verify(adminService, times(1)).getAllOrders(isNull(), isNull(), isNull(), isNull(), any(CursorPageRequest.class));
         verify(adminService, times(1)).countOrders(null, null, null, null);
         verify(exchange, times(1)).sendResponseHeaders(eq(200), anyLong());
     }
@@ -305,14 +310,15 @@ class AdminControllerTest {
         when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/transactions"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllTransactions(null, null, null, null, 0, 20)).thenReturn(transactions);
+        when(adminService.getAllTransactions(isNull(), isNull(), isNull(), isNull(), any(CursorPageRequest.class)))
+            .thenReturn(new CursorPage<>(transactions, null, 20));
         when(adminService.countTransactions(null, null, null, null)).thenReturn(2L);
         
         // Act
         adminController.handle(exchange);
         
         // Assert
-        verify(adminService, times(1)).getAllTransactions(null, null, null, null, 0, 20);
+        verify(adminService, times(1)).getAllTransactions(isNull(), isNull(), isNull(), isNull(), any(CursorPageRequest.class));
         verify(adminService, times(1)).countTransactions(null, null, null, null);
         verify(exchange, times(1)).sendResponseHeaders(eq(200), anyLong());
     }
@@ -352,14 +358,15 @@ class AdminControllerTest {
         when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/deliveries"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllDeliveries(null, null, null, 0, 20)).thenReturn(deliveries);
+        when(adminService.getAllDeliveries(isNull(), isNull(), isNull(), any(CursorPageRequest.class)))
+            .thenReturn(new CursorPage<>(deliveries, null, 20));
         when(adminService.countDeliveries(null, null, null)).thenReturn(1L);
         
         // Act
         adminController.handle(exchange);
         
         // Assert
-        verify(adminService, times(1)).getAllDeliveries(null, null, null, 0, 20);
+        verify(adminService, times(1)).getAllDeliveries(isNull(), isNull(), isNull(), any(CursorPageRequest.class));
         verify(adminService, times(1)).countDeliveries(null, null, null);
         verify(exchange, times(1)).sendResponseHeaders(eq(200), anyLong());
     }
@@ -508,7 +515,7 @@ class AdminControllerTest {
         when(exchange.getRequestURI()).thenReturn(new URI("/api/admin/users"));
         when(exchange.getResponseBody()).thenReturn(responseStream);
         when(exchange.getResponseHeaders()).thenReturn(new com.sun.net.httpserver.Headers());
-        when(adminService.getAllUsers(null, null, 0, 20)).thenThrow(new IllegalArgumentException("Invalid parameters"));
+        when(adminService.getAllUsers(isNull(), isNull(), any(CursorPageRequest.class))).thenThrow(new IllegalArgumentException("Invalid parameters"));
         
         // Act
         adminController.handle(exchange);
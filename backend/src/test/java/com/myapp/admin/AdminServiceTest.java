@@ -3,6 +3,8 @@ package com.myapp.admin;
 import com.myapp.auth.AuthRepository;
 import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.*;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.courier.DeliveryRepository;
 import com.myapp.order.OrderRepository;
 import com.myapp.payment.PaymentRepository;
@@ -161,33 +163,38 @@ class AdminServiceTest {
                 new User(1L, "John Doe", "1234567890", "john@test.com", "hash", User.Role.BUYER, "Address 1"),
                 new User(2L, "Jane Smith", "0987654321", "jane@test.com", "hash", User.Role.SELLER, "Address 2")
             );
-            when(adminRepository.getAllUsers("john", User.Role.BUYER, 20, 0)).thenReturn(expectedUsers);
+            CursorPageRequest request = CursorPageRequest.of(null, 20);
+            when(adminRepository.getAllUsers("john", User.Role.BUYER, request))
+                .thenReturn(new CursorPage<>(expectedUsers, null, 20));
             
             // Act - فراخوانی متد تحت تست
-            List<User> result = adminService.getAllUsers("john", "buyer", 0, 20);
+            CursorPage<User> result = adminService.getAllUsers("john", "buyer", request);
             
             // Assert - بررسی نتایج
-            assertEquals(expectedUsers, result);
-            verify(adminRepository, times(1)).getAllUsers("john", User.Role.BUYER, 20, 0);
+            assertEquals(expectedUsers, result.getItems());
+            assertFalse(result.hasMore());
+            verify(adminRepository, times(1)).getAllUsers("john", User.Role.BUYER, request);
         }
         
         /**
-         * تست مدیریت شماره صفحه منفی
+         * تست اندازه صفحه منفی
          * 
-         * Scenario: ارسال شماره صفحه منفی
-         * Expected: شماره صفحه به 0 تنظیم شود
+         * Scenario: ارسال limit منفی
+         * Expected: اندازه صفحه پیش‌فرض (20) استفاده شود و صفحه اول برگردد
          */
         @Test
-        @DisplayName("Should handle negative page numbers by defaulting to 0")
+        @DisplayName("Should handle negative limit by defaulting page size")
         void testGetAllUsers_NegativePage() {
             // Arrange
-            when(adminRepository.getAllUsers(null, null, 20, 0)).thenReturn(Collections.emptyList());
+            when(adminRepository.getAllUsers(isNull(), isNull(), any(CursorPageRequest.class)))
+                .thenReturn(CursorPage.empty(20));
             
             // Act
-            List<User> result = adminService.getAllUsers(null, null, -1, 20);
+            adminService.getAllUsers(null, null, CursorPageRequest.of(null, -1));
             
-            // Assert - صفحه منفی باید به 0 تبدیل شود
-            verify(adminRepository, times(1)).getAllUsers(null, null, 20, 0);
+            // Assert - limit منفی باید به مقدار پیش‌فرض تبدیل شود
+            verify(adminRepository, times(1)).getAllUsers(isNull(), isNull(),
+                argThat(request -> request.getLimit() == 20 && request.isFirstPage()));
         }
         
         /**
@@ -200,13 +207,15 @@ class AdminServiceTest {
         @DisplayName("Should limit page size to maximum allowed")
         void testGetAllUsers_LargePageSize() {
             // Arrange
-            when(adminRepository.getAllUsers(null, null, 100, 0)).thenReturn(Collections.emptyList());
+            when(adminRepository.getAllUsers(isNull(), isNull(), any(CursorPageRequest.class)))
+                .thenReturn(CursorPage.empty(100));
             
             // Act - درخواست با اندازه صفحه 200
-            List<User> result = adminService.getAllUsers(null, null, 0, 200);
+            adminService.getAllUsers(null, null, CursorPageRequest.of(null, 200));
             
             // Assert - باید به 100 محدود شود
-            verify(adminRepository, times(1)).getAllUsers(null, null, 100, 0);
+            verify(adminRepository, times(1)).getAllUsers(isNull(), isNull(),
+                argThat(request -> request.getLimit() == CursorPageRequest.MAX_LIMIT));
         }
         
         /**
@@ -219,13 +228,15 @@ class AdminServiceTest {
         @DisplayName("Should default page size when invalid")
         void testGetAllUsers_InvalidPageSize() {
             // Arrange
-            when(adminRepository.getAllUsers(null, null, 20, 0)).thenReturn(Collections.emptyList());
+            when(adminRepository.getAllUsers(isNull(), isNull(), any(CursorPageRequest.class)))
+                .thenReturn(CursorPage.empty(20));
             
             // Act
-            List<User> result = adminService.getAllUsers(null, null, 0, 0);
+            adminService.getAllUsers(null, null, CursorPageRequest.of(null, 0));
             
             // Assert
-            verify(adminRepository, times(1)).getAllUsers(null, null, 20, 0);
+            verify(adminRepository, times(1)).getAllUsers(isNull(), isNull(),
+                argThat(request -> request.getLimit() == CursorPageRequest.DEFAULT_LIMIT));
         }
         
         /**
@@ -239,7 +250,7 @@ class AdminServiceTest {
         void testGetAllUsers_InvalidRole() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllUsers(null, "INVALID_ROLE", 0, 20));
+                () -> adminService.getAllUsers(null, "INVALID_ROLE", CursorPageRequest.firstPage()));
             
             assertEquals("Invalid role: INVALID_ROLE", exception.getMessage());
         }
@@ -459,14 +470,16 @@ class AdminServiceTest {
                 new Restaurant(1L, 1L, "Pizza Palace", "123 Main St", "1234567890", RestaurantStatus.APPROVED),
                 new Restaurant(2L, 2L, "Burger Joint", "456 Oak Ave", "0987654321", RestaurantStatus.PENDING)
             );
-            when(adminRepository.getAllRestaurants("pizza", RestaurantStatus.APPROVED, 20, 0)).thenReturn(expectedRestaurants);
+            CursorPageRequest request = CursorPageRequest.of(null, 20);
+            when(adminRepository.getAllRestaurants("pizza", RestaurantStatus.APPROVED, request))
+                .thenReturn(new CursorPage<>(expectedRestaurants, null, 20));
             
             // Act
-            List<Restaurant> result = adminService.getAllRestaurants("pizza", "approved", 0, 20);
+            CursorPage<Restaurant> result = adminService.getAllRestaurants("pizza", "approved", request);
             
             // Assert
-            assertEquals(expectedRestaurants, result);
-            verify(adminRepository, times(1)).getAllRestaurants("pizza", RestaurantStatus.APPROVED, 20, 0);
+            assertEquals(expectedRestaurants, result.getItems());
+            verify(adminRepository, times(1)).getAllRestaurants("pizza", RestaurantStatus.APPROVED, request);
         }
         
         /**
@@ -480,7 +493,7 @@ class AdminServiceTest {
         void testGetAllRestaurants_InvalidStatus() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllRestaurants(null, "INVALID_STATUS", 0, 20));
+                () -> adminService.getAllRestaurants(null, "INVALID_STATUS", CursorPageRequest.firstPage()));
             
             assertEquals("Invalid restaurant status: INVALID_STATUS", exception.getMessage());
         }
@@ -636,14 +649,16 @@ class AdminServiceTest {
                 com.myapp.common.models.Order.createNew(customer, restaurant, "Delivery Address", "1234567890")
             );
             
-            when(adminRepository.getAllOrders("pizza", OrderStatus.PENDING, 1L, 1L, 20, 0)).thenReturn(expectedOrders);
+            CursorPageRequest request = CursorPageRequest.of(null, 20);
+            when(adminRepository.getAllOrders("pizza", OrderStatus.PENDING, 1L, 1L, request))
+                .thenReturn(new CursorPage<>(expectedOrders, null, 20));
             
             // Act
-            List<com.myapp.common.models.Order> result = adminService.getAllOrders("pizza", "pending", 1L, 1L, 0, 20);
+            CursorPage<com.myapp.common.models.Order> result = adminService.getAllOrders("pizza", "pending", 1L, 1L, request);
             
             // Assert
-            assertEquals(expectedOrders, result);
-            verify(adminRepository, times(1)).getAllOrders("pizza", OrderStatus.PENDING, 1L, 1L, 20, 0);
+            assertEquals(expectedOrders, result.getItems());
+            verify(adminRepository, times(1)).getAllOrders("pizza", OrderStatus.PENDING, 1L, 1L, request);
         }
         
         /**
@@ -657,7 +672,7 @@ class AdminServiceTest {
         void testGetAllOrders_InvalidStatus() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllOrders(null, "INVALID_STATUS", null, null, 0, 20));
+                () -> adminService.getAllOrders(null, "INVALID_STATUS", null, null, CursorPageRequest.firstPage()));
             
             assertEquals("Invalid order status: INVALID_STATUS", exception.getMessage());
         }
@@ -793,15 +808,16 @@ class AdminServiceTest {
                 Transaction.forWalletCharge(2L, 100.0, "CARD")
             );
             
-            when(adminRepository.getAllTransactions("card", TransactionStatus.COMPLETED, TransactionType.PAYMENT, 1L, 20, 0))
-                .thenReturn(expectedTransactions);
+            CursorPageRequest request = CursorPageRequest.of(null, 20);
+            when(adminRepository.getAllTransactions("card", TransactionStatus.COMPLETED, TransactionType.PAYMENT, 1L, request))
+                .thenReturn(new CursorPage<>(expectedTransactions, null, 20));
             
             // Act
-            List<Transaction> result = adminService.getAllTransactions("card", "completed", "payment", 1L, 0, 20);
+            CursorPage<Transaction> result = adminService.getAllTransactions("card", "completed", "payment", 1L, request);
             
             // Assert
-            assertEquals(expectedTransactions, result);
-            verify(adminRepository, times(1)).getAllTransactions("card", TransactionStatus.COMPLETED, TransactionType.PAYMENT, 1L, 20, 0);
+            assertEquals(expectedTransactions, result.getItems());
+            verify(adminRepository, times(1)).getAllTransactions("card", TransactionStatus.COMPLETED, TransactionType.PAYMENT, 1L, request);
         }
         
         /**
@@ -815,7 +831,7 @@ class AdminServiceTest {
         void testGetAllTransactions_InvalidStatus() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllTransactions(null, "INVALID_STATUS", null, null, 0, 20));
+                () -> adminService.getAllTransactions(null, "INVALID_STATUS", null, null, CursorPageRequest.firstPage()));
             
             assertEquals("Invalid transaction status: INVALID_STATUS", exception.getMessage());
         }
@@ -831,7 +847,7 @@ class AdminServiceTest {
         void testGetAllTransactions_InvalidType() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllTransactions(null, null, "INVALID_TYPE", null, 0, 20));
+                () -> adminService.getAllTransactions(null, null, "INVALID_TYPE", null, CursorPageRequest.firstPage()));
             
             assertEquals("Invalid transaction type: INVALID_TYPE", exception.getMessage());
         }
@@ -911,14 +927,16 @@ class AdminServiceTest {
                 new Delivery(order, 10.0)
             );
             
-            when(adminRepository.getAllDeliveries("notes", DeliveryStatus.PENDING, 1L, 20, 0)).thenReturn(expectedDeliveries);
+            CursorPageRequest request = CursorPageRequest.of(null, 20);
+            when(adminRepository.getAllDeliveries("notes", DeliveryStatus.PENDING, 1L, request))
+                .thenReturn(new CursorPage<>(expectedDeliveries, null, 20));
             
             // Act
-            List<Delivery> result = adminService.getAllDeliveries("notes", "pending", 1L, 0, 20);
+            CursorPage<Delivery> result = adminService.getAllDeliveries("notes", "pending", 1L, request);
             
             // Assert
-            assertEquals(expectedDeliveries, result);
-            verify(adminRepository, times(1)).getAllDeliveries("notes", DeliveryStatus.PENDING, 1L, 20, 0);
+            assertEquals(expectedDeliveries, result.getItems());
+            verify(adminRepository, times(1)).getAllDeliveries("notes", DeliveryStatus.PENDING, 1L, request);
         }
         
         /**
@@ -932,7 +950,7 @@ class AdminServiceTest {
         void testGetAllDeliveries_InvalidStatus() {
             // Act & Assert
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
-                () -> adminService.getAllDeliveries(null, "INVALID_STATUS", null, 0, 20));
+                () -> adminService.getAllDeliveries(null, "INVALID_STATUS", null, CursorPageRequest.firstPage()));
             
             assertEquals("Invalid delivery status: INVALID_STATUS", exception.getMessage());
         }
@@ -1220,17 +1238,17 @@ class AdminServiceTest {
         @DisplayName("Should handle empty and null search terms gracefully")
         void testSearchTermHandling() {
             // Arrange
-            when(adminRepository.getAllUsers(null, null, 20, 0)).thenReturn(Collections.emptyList());
-            when(adminRepository.getAllUsers("", null, 20, 0)).thenReturn(Collections.emptyList());
+            when(adminRepository.getAllUsers(any(), isNull(), any(CursorPageRequest.class)))
+                .thenReturn(CursorPage.empty(20));
             
             // Act & Assert - null search term
-            assertDoesNotThrow(() -> adminService.getAllUsers(null, null, 0, 20));
+            assertDoesNotThrow(() -> adminService.getAllUsers(null, null, CursorPageRequest.firstPage()));
             
             // Act & Assert - empty search term
-            assertDoesNotThrow(() -> adminService.getAllUsers("", null, 0, 20));
+            assertDoesNotThrow(() -> adminService.getAllUsers("", null, CursorPageRequest.firstPage()));
             
             // Act & Assert - whitespace search term
-            assertDoesNotThrow(() -> adminService.getAllUsers("   ", null, 0, 20));
+            assertDoesNotThrow(() -> adminService.getAllUsers("   ", null, CursorPageRequest.firstPage()));
         }
     }
 }
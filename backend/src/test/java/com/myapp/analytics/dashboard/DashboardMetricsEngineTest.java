@@ -0,0 +1,240 @@
+package com.myapp.analytics.dashboard;
+
+import com.myapp.analytics.models.DashboardMetrics;
+import com.myapp.analytics.repository.AnalyticsRepository;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Rating;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.RestaurantStatus;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های snapshot داشبورد روی H2 درون حافظه‌ای
+ */
+@DisplayName("Dashboard Metrics Engine Tests")
+class DashboardMetricsEngineTest {
+
+    private static SessionFactory sessionFactory;
+
+    private MutableClock clock;
+    private DashboardCounters counters;
+    private DashboardMetricsEngine engine;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("dashboard_engine",
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Transaction.class,
+            Rating.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.now());
+        counters = new DashboardCounters(clock);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createMutationQuery("delete from Rating").executeUpdate();
+            session.createMutationQuery("delete from Transaction").executeUpdate();
+            session.createMutationQuery("delete from OrderItem").executeUpdate();
+            session.createMutationQuery("delete from Order").executeUpdate();
+            session.createMutationQuery("delete from FoodItem").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+            session.createMutationQuery("delete from User").executeUpdate();
+
+            User customer = User.forRegistration("Customer", "09120000000", "c@test.com", "hash", "Tehran");
+            Restaurant approved = Restaurant.forRegistration(1L, "Approved", "Tehran", "02100000000");
+            approved.setStatus(RestaurantStatus.APPROVED);
+            Restaurant pending = Restaurant.forRegistration(2L, "Pending", "Tehran", "02100000001");
+            session.persist(customer);
+            session.persist(approved);
+            session.persist(pending);
+            FoodItem pizza = FoodItem.forMenu("Pizza", "Pizza", 100.0, "Food", approved);
+            session.persist(pizza);
+
+            persistOrder(session, customer, approved, pizza, OrderStatus.DELIVERED);
+            persistOrder(session, customer, approved, pizza, OrderStatus.DELIVERED);
+            persistOrder(session, customer, approved, pizza, OrderStatus.PENDING);
+            persistOrder(session, customer, approved, pizza, OrderStatus.CANCELLED);
+
+            Transaction completed = Transaction.forPayment(customer.getId(), 1L, 100.0, "CARD");
+            completed.setStatus(TransactionStatus.COMPLETED);
+            Transaction failed = Transaction.forPayment(customer.getId(), 2L, 100.0, "CARD");
+            failed.setStatus(TransactionStatus.FAILED);
+            session.persist(completed);
+            session.persist(failed);
+            session.persist(new Rating(customer, approved, 4));
+            session.getTransaction().commit();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("first read builds the snapshot from the database")
+    void current_firstRead_loadsSnapshot() {
+        engine = new DashboardMetricsEngine(sessionFactory, new AnalyticsRepository(sessionFactory), counters, clock);
+
+        DashboardMetrics metrics = engine.current();
+
+        assertEquals(4L, metrics.getTotalOrders());
+        assertEquals(1L, metrics.getPendingOrders());
+        assertEquals(2L, metrics.getCompletedOrders());
+        assertEquals(1L, metrics.getCancelledOrders());
+        assertEquals(200.0, metrics.getTotalRevenue(), 0.001);
+        assertEquals(100.0, metrics.getAverageOrderValue(), 0.001);
+        assertEquals(1L, metrics.getTotalUsers());
+        assertEquals(2L, metrics.getTotalRestaurants());
+        assertEquals(1L, metrics.getActiveRestaurants());
+        assertEquals(4.0, metrics.getCustomerSatisfactionScore(), 0.001);
+        assertEquals(50.0, metrics.getSuccessfulPaymentRate(), 0.001);
+        assertEquals(1, metrics.getTopRestaurants().size());
+        assertEquals(1, metrics.getTopCustomers().size());
+        assertEquals(1L, engine.getRefreshCount());
+    }
+
+    @Test
+    @DisplayName("live counters are applied on top of the snapshot without another refresh")
+    void current_appliesCounterDeltas() {
+        engine = new DashboardMetricsEngine(sessionFactory, new AnalyticsRepository(sessionFactory), counters, clock);
+        engine.current();
+
+        counters.recordOrderCreated();
+        counters.recordOrderStatusChange(OrderStatus.PENDING, OrderStatus.CONFIRMED, 50.0);
+        counters.recordOrderStatusChange(OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED, 50.0);
+        counters.recordPayment(TransactionStatus.COMPLETED);
+        counters.recordPayment(TransactionStatus.COMPLETED);
+        counters.recordUserRegistered();
+        DashboardMetrics metrics = engine.current();
+
+        assertEquals(5L, metrics.getTotalOrders());
+        assertEquals(1L, metrics.getPendingOrders());
+        assertEquals(3L, metrics.getCompletedOrders());
+        assertEquals(250.0, metrics.getTotalRevenue(), 0.001);
+        assertEquals(2L, metrics.getTotalUsers());
+        assertEquals(1L, metrics.getNewUsersToday());
+        assertEquals(75.0, metrics.getSuccessfulPaymentRate(), 0.001);
+        assertEquals(1L, engine.getRefreshCount());
+    }
+
+    @Test
+    @DisplayName("concurrent refresh requests share a single database refresh")
+    void refreshAsync_coalescesConcurrentRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AnalyticsRepository slowRepository = new AnalyticsRepository(sessionFactory) {
+            @Override
+            public DashboardMetrics loadDashboardSnapshot(Session session, LocalDateTime now) {
+                loads.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.loadDashboardSnapshot(session, now);
+            }
+        };
+        engine = new DashboardMetricsEngine(sessionFactory, slowRepository, counters, clock);
+
+        CompletableFuture<DashboardMetricsEngine.Snapshot> first = engine.refreshAsync();
+        CompletableFuture<DashboardMetricsEngine.Snapshot> second = engine.refreshAsync();
+        CompletableFuture<DashboardMetricsEngine.Snapshot> third = engine.refreshAsync();
+        release.countDown();
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(2L, engine.getCoalescedRefreshes());
+    }
+
+    @Test
+    @DisplayName("a stale snapshot is still served and reports its age")
+    void current_staleSnapshot_reportsAge() throws Exception {
+        engine = new DashboardMetricsEngine(sessionFactory, new AnalyticsRepository(sessionFactory), counters, clock);
+        engine.current();
+
+        clock.advance(TimeUnit.MINUTES.toMillis(5));
+        DashboardMetrics metrics = engine.current();
+
+        assertEquals(TimeUnit.MINUTES.toMillis(5), metrics.getSnapshotAgeMillis());
+        assertEquals(4L, metrics.getTotalOrders());
+        // درخواست خواندن snapshot کهنه یک refresh پس‌زمینه راه می‌اندازد
+        engine.refreshAsync().get(5, TimeUnit.SECONDS);
+        assertTrue(engine.getRefreshCount() >= 2);
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private static void persistOrder(Session session, User customer, Restaurant restaurant, FoodItem item,
+                                     OrderStatus status) {
+        Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+        order.addItem(item, 1);
+        order.setStatus(status);
+        session.persist(order);
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(long millis) {
+            instant = instant.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.myapp.analytics.etl;
+
+import com.myapp.analytics.models.ETLResult;
+import com.myapp.analytics.models.ETLWatermark;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های ETL افزایشی روی H2 درون حافظه‌ای
+ *
+ * جداول analytics با DDL دستی ساخته می‌شوند چون entity های آن‌ها روی
+ * ستون‌های Double مقدار scale دارند و schema آن‌ها با Hibernate ساخته نمی‌شود؛
+ * بارگذاری هم با JDBC انجام می‌شود پس فقط وجود جدول لازم است.
+ */
+@DisplayName("ETL Processor Tests")
+class ETLProcessorTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private static SessionFactory sessionFactory;
+
+    private User customer;
+    private Restaurant restaurant;
+    private FoodItem pizza;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("etl_processor;NON_KEYWORDS=MONTH,YEAR",
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Transaction.class,
+            ETLWatermark.class);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeMutationQuery("CREATE TABLE order_analytics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "order_id BIGINT, user_id BIGINT, restaurant_id BIGINT, order_date TIMESTAMP, status VARCHAR(50), " +
+                "total_amount DOUBLE, delivery_fee DOUBLE, tax DOUBLE, discount DOUBLE, net_amount DOUBLE, " +
+                "hour_of_day INT, day_of_week INT, month INT, year INT, delivery_time BIGINT, item_count INT, " +
+                "order_value_category VARCHAR(20), created_at TIMESTAMP, updated_at TIMESTAMP)").executeUpdate();
+            session.createNativeMutationQuery("CREATE TABLE user_analytics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id BIGINT, user_role VARCHAR(50), registration_date TIMESTAMP, is_active BOOLEAN, " +
+                "total_orders INT, total_spent DOUBLE, average_order_value DOUBLE, last_order_date TIMESTAMP, " +
+                "customer_segment VARCHAR(20), created_at TIMESTAMP, updated_at TIMESTAMP)").executeUpdate();
+            session.createNativeMutationQuery("CREATE TABLE restaurant_analytics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "restaurant_id BIGINT, name VARCHAR(200), category VARCHAR(100), city VARCHAR(100), " +
+                "registration_date TIMESTAMP, total_orders INT, total_revenue DOUBLE, average_rating DOUBLE, " +
+                "created_at TIMESTAMP)").executeUpdate();
+            session.createNativeMutationQuery("CREATE TABLE payment_analytics (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "transaction_id BIGINT, amount DOUBLE, payment_method VARCHAR(50), status VARCHAR(50), " +
+                "transaction_date TIMESTAMP, created_at TIMESTAMP)").executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (String table : List.of("order_analytics", "user_analytics", "restaurant_analytics",
+                                        "payment_analytics", "etl_watermarks")) {
+                session.createNativeMutationQuery("DELETE FROM " + table).executeUpdate();
+            }
+            session.createMutationQuery("delete from Transaction").executeUpdate();
+            session.createMutationQuery("delete from OrderItem").executeUpdate();
+            session.createMutationQuery("delete from Order").executeUpdate();
+            session.createMutationQuery("delete from FoodItem").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+            session.createMutationQuery("delete from User").executeUpdate();
+            customer = User.forRegistration("Customer", "09120000000", "c@test.com", "hash", "Tehran");
+            restaurant = Restaurant.forRegistration(1L, "Restaurant", "Tehran", "02100000000");
+            session.persist(customer);
+            session.persist(restaurant);
+            pizza = FoodItem.forMenu("Pizza", "Pizza", 100.0, "Food", restaurant);
+            session.persist(pizza);
+            session.getTransaction().commit();
+        }
+    }
+
+    @Test
+    @DisplayName("first run loads every source in chunks and advances the watermarks")
+    void runIncremental_firstRun_loadsAllInChunks() {
+        for (int i = 0; i < 7; i++) {
+            order(BASE_TIME.plusMinutes(i / 2), i % 2 == 0 ? OrderStatus.DELIVERED : OrderStatus.PENDING, 2);
+        }
+        payment(BASE_TIME);
+        payment(BASE_TIME.plusMinutes(1));
+
+        ETLResult result = new ETLProcessor(sessionFactory, 3).runIncremental();
+
+        assertTrue(result.isSuccessful());
+        assertEquals(7, result.getExtractedOrders());
+        assertEquals(7, result.getLoadedOrders());
+        assertEquals(2, result.getLoadedPayments());
+        assertEquals(7, count("order_analytics"));
+        assertEquals(7L, scalar("SELECT COUNT(DISTINCT order_id) FROM order_analytics"));
+        assertEquals(14L, scalar("SELECT SUM(item_count) FROM order_analytics"));
+        assertEquals(2, count("payment_analytics"));
+        assertTrue(result.getExtractionRate() > 0);
+        assertTrue(result.getLoadingRate() > 0);
+
+        // یک snapshot برای هر کاربر حتی اگر در چند chunk سفارش داشته باشد
+        assertEquals(1L, scalar("SELECT COUNT(*) FROM user_analytics WHERE user_id = " + customer.getId()));
+        assertEquals(7L, scalar("SELECT total_orders FROM user_analytics WHERE user_id = " + customer.getId()));
+        assertEquals(1L, scalar("SELECT COUNT(*) FROM restaurant_analytics WHERE restaurant_id = " + restaurant.getId()));
+
+        ETLWatermark watermark = new ETLProcessor(sessionFactory).getWatermark(ETLProcessor.SOURCE_ORDERS);
+        assertEquals(7L, watermark.getRowsProcessed());
+        assertEquals(BASE_TIME.plusMinutes(3), watermark.getLastTimestamp());
+    }
+
+    @Test
+    @DisplayName("second run only picks up rows after the watermark")
+    void runIncremental_secondRun_isIncremental() {
+        ETLProcessor processor = new ETLProcessor(sessionFactory, 2);
+        order(BASE_TIME, OrderStatus.DELIVERED, 1);
+        order(BASE_TIME.plusMinutes(1), OrderStatus.DELIVERED, 1);
+        processor.runIncremental();
+
+        ETLResult idle = processor.runIncremental();
+        assertEquals(0, idle.getExtractedOrders());
+        assertEquals(0, idle.getExtractedUsers());
+
+        // سفارش جدید با timestamp یکسان با watermark نیز نباید جا بماند
+        order(BASE_TIME.plusMinutes(1), OrderStatus.DELIVERED, 1);
+        ETLResult next = processor.runIncremental();
+
+        assertEquals(1, next.getExtractedOrders());
+        assertEquals(3, count("order_analytics"));
+        assertEquals(1L, scalar("SELECT COUNT(*) FROM user_analytics WHERE user_id = " + customer.getId()));
+        assertEquals(3L, scalar("SELECT total_orders FROM user_analytics WHERE user_id = " + customer.getId()));
+    }
+
+    @Test
+    @DisplayName("rows inside the settle window are deferred to a later run")
+    void runIncremental_recentRows_areDeferred() {
+        order(LocalDateTime.now(), OrderStatus.PENDING, 1);
+
+        ETLResult result = new ETLProcessor(sessionFactory).runIncremental();
+
+        assertEquals(0, result.getExtractedOrders());
+        assertEquals(0, count("order_analytics"));
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private void order(LocalDateTime orderDate, OrderStatus status, int quantity) {
+        Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+        order.addItem(pizza, 1);
+        for (int i = 1; i < quantity; i++) {
+            order.addItem(FoodItem.forMenu("Extra" + i, "Extra", 10.0, "Food", restaurant), 1);
+        }
+        order.setOrderDate(orderDate);
+        order.setStatus(status);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (OrderItem item : order.getOrderItems()) {
+                if (item.getFoodItem().getId() == null) {
+                    session.persist(item.getFoodItem());
+                }
+            }
+            session.persist(order);
+            session.getTransaction().commit();
+        }
+    }
+
+    private void payment(LocalDateTime createdAt) {
+        Transaction transaction = Transaction.forPayment(customer.getId(), 1L, 10.0, "CARD");
+        transaction.setCreatedAt(createdAt);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(transaction);
+            session.getTransaction().commit();
+        }
+    }
+
+    private long count(String table) {
+        return scalar("SELECT COUNT(*) FROM " + table);
+    }
+
+    private long scalar(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            Object value = session.createNativeQuery(sql, Object.class).getSingleResult();
+            return ((Number) value).longValue();
+        }
+    }
+}
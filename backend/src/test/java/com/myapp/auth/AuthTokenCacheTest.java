@@ -0,0 +1,194 @@
+package com.myapp.auth;
+
+import com.myapp.common.utils.JWTUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * تست‌های کش نتایج احراز هویت (AuthTokenCache)
+ * و مسیر تک‌پردازشی AuthMiddleware
+ */
+@DisplayName("AuthTokenCache Tests")
+class AuthTokenCacheTest {
+
+    private AtomicLong now;
+    private AuthTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000L);
+        cache = new AuthTokenCache(4, now::get);
+    }
+
+    private static AuthResult principal(long userId) {
+        return AuthResult.authenticated(userId, "0912000000" + userId, null, "BUYER", "token-" + userId);
+    }
+
+    @Nested
+    @DisplayName("Cache Behaviour Tests")
+    class CacheBehaviourTests {
+
+        @Test
+        @DisplayName("cached principal is returned until token expiry")
+        void get_beforeAndAfterExpiry() {
+            cache.put("t1", principal(1), now.get() + 1000);
+
+            assertThat(cache.get("t1")).isNotNull();
+            now.addAndGet(1000);
+            assertThat(cache.get("t1")).isNull();
+            assertThat(cache.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("unauthenticated or already expired results are not cached")
+        void put_invalidResults_ignored() {
+            cache.put("bad", AuthResult.unauthenticated("Invalid token"), now.get() + 1000);
+            cache.put("old", principal(1), now.get() - 1);
+
+            assertThat(cache.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("cache size stays bounded")
+        void put_overCapacity_evicts() {
+            for (int i = 0; i < 20; i++) {
+                cache.put("t" + i, principal(i), now.get() + 10_000);
+            }
+
+            assertThat(cache.size()).isLessThanOrEqualTo(4);
+            assertThat(cache.getStats().get("evictions")).isNotEqualTo(0L);
+        }
+
+        @Test
+        @DisplayName("invalid capacity is rejected")
+        void constructor_invalidCapacity_throws() {
+            assertThatThrownBy(() -> new AuthTokenCache(0, now::get))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Revocation Tests")
+    class RevocationTests {
+
+        @Test
+        @DisplayName("revoked token is removed and cannot be cached again until expiry")
+        void revoke_removesAndBlocks() {
+            long expiry = now.get() + 5000;
+            cache.put("t1", principal(1), expiry);
+
+            cache.revoke("t1", expiry);
+
+            assertThat(cache.get("t1")).isNull();
+            assertThat(cache.isRevoked("t1")).isTrue();
+            cache.put("t1", principal(1), expiry);
+            assertThat(cache.size()).isZero();
+
+            now.set(expiry);
+            assertThat(cache.isRevoked("t1")).isFalse();
+        }
+
+        @Test
+        @DisplayName("expired revocations are swept without waiting for the list to fill")
+        void revoke_expiredEntriesSwept() {
+            cache.revoke("t1", now.get() + 1000);
+            cache.revoke("t2", now.get() + 1000);
+            assertThat(cache.getStats()).containsEntry("revoked", 2);
+
+            now.addAndGet(AuthTokenCache.REVOKED_SWEEP_INTERVAL_MILLIS);
+            cache.revoke("t3", now.get() + 1000);
+
+            assertThat(cache.getStats()).containsEntry("revoked", 1);
+            assertThat(cache.isRevoked("t3")).isTrue();
+        }
+
+        @Test
+        @DisplayName("full revocation list never drops a live entry and fails closed instead")
+        void revoke_overCapacity_failsClosed() {
+            cache.put("live", principal(1), now.get() + 10_000);
+            for (int i = 0; i < 4; i++) {
+                cache.revoke("t" + i, now.get() + 10_000 + i);
+            }
+            assertThat(cache.isIssuedBeforeRevocation(now.get() - 1)).isFalse();
+
+            long overflowAt = now.get();
+            cache.revoke("t4", now.get() + 10_000);
+
+            assertThat(cache.getStats())
+                .containsEntry("revoked", 0)
+                .containsEntry("revokedOverflows", 1L);
+            assertThat(cache.get("live")).isNull();
+            assertThat(cache.isIssuedBeforeRevocation(overflowAt - 5000)).isTrue();
+            assertThat(cache.isIssuedBeforeRevocation(overflowAt)).isTrue();
+            assertThat(cache.isIssuedBeforeRevocation(null)).isTrue();
+            assertThat(cache.isIssuedBeforeRevocation(overflowAt + 1000)).isFalse();
+        }
+
+        @Test
+        @DisplayName("invalidateUser removes only that user's entries")
+        void invalidateUser_removesUserEntries() {
+            cache.put("a", principal(1), now.get() + 5000);
+            cache.put("b", principal(1), now.get() + 5000);
+            cache.put("c", principal(2), now.get() + 5000);
+
+            assertThat(cache.invalidateUser(1L)).isEqualTo(2);
+            assertThat(cache.get("c")).isNotNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("AuthMiddleware Integration Tests")
+    class MiddlewareTests {
+
+        @BeforeEach
+        void clearMiddlewareCache() {
+            AuthMiddleware.clearTokenCache();
+        }
+
+        @Test
+        @DisplayName("second authentication of the same token is a cache hit")
+        void authenticateToken_secondCall_hitsCache() {
+            String token = JWTUtil.generateAccessToken(7L, "09123456789", "BUYER");
+
+            AuthResult first = AuthMiddleware.authenticateToken(token);
+            AuthResult second = AuthMiddleware.authenticateToken(token);
+
+            assertThat(first.isAuthenticated()).isTrue();
+            assertThat(second).isSameAs(first);
+            assertThat(second.getUserId()).isEqualTo(7L);
+            assertThat(second.getRole()).isEqualTo("BUYER");
+            assertThat(AuthMiddleware.getTokenCacheStats().get("hits")).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("revoked token is rejected after logout")
+        void revokeToken_rejectsFurtherUse() {
+            String token = JWTUtil.generateAccessToken(8L, "09123456788", "BUYER");
+            assertThat(AuthMiddleware.authenticateToken(token).isAuthenticated()).isTrue();
+
+            AuthMiddleware.revokeToken(token);
+
+            AuthResult result = AuthMiddleware.authenticateToken(token);
+            assertThat(result.isAuthenticated()).isFalse();
+            assertThat(result.getErrorMessage()).isEqualTo("Token revoked");
+        }
+
+        @Test
+        @DisplayName("refresh token is still rejected on the single-parse path")
+        void authenticateToken_refreshToken_rejected() {
+            String refreshToken = JWTUtil.generateRefreshToken(9L);
+
+            AuthResult result = AuthMiddleware.authenticateToken(refreshToken);
+
+            assertThat(result.isAuthenticated()).isFalse();
+            assertThat(result.getErrorMessage()).contains("Access token required");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.myapp.benchmark;
+
+import com.myapp.auth.AuthMiddleware;
+import com.myapp.auth.AuthResult;
+import com.myapp.common.utils.JWTUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای مقایسه مسیرهای احراز هویت JWT
+ *
+ * - legacySixParses: مسیر قبلی AuthMiddleware - شش فراخوانی که هر کدام کلید و JwtParser را از نو
+ *   می‌سازند و امضا را بررسی می‌کنند. JWTUtil دیگر این مسیر را ندارد و کلید آن خصوصی است، پس
+ *   بنچمارک token هم‌ساختاری را با کلید خودش امضا و همان شش مرحله را بازسازی می‌کند
+ * - singleParse: یک بار پردازش token با JWTUtil.parseClaims
+ * - cachedAuthenticate: AuthMiddleware.authenticateToken با کش گرم (بدون بررسی امضا)
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="AuthMiddlewareBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthMiddlewareBenchmark {
+
+    private static final byte[] LEGACY_SECRET =
+        "benchmarkSecretKeyForLegacyJwtPathThatIsLongEnoughForHmacSha256".getBytes(StandardCharsets.UTF_8);
+    private static final String ISSUER = "food-ordering-app";
+
+    private String accessToken;
+    private String legacyToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        accessToken = JWTUtil.generateAccessToken(42L, "09123456789", "BUYER");
+        Date now = new Date();
+        legacyToken = Jwts.builder()
+            .subject("42")
+            .claim("phone", "09123456789")
+            .claim("role", "BUYER")
+            .claim("type", "access")
+            .issuer(ISSUER)
+            .issuedAt(now)
+            .expiration(new Date(now.getTime() + TimeUnit.HOURS.toMillis(24)))
+            .signWith(Keys.hmacShaKeyFor(LEGACY_SECRET))
+            .compact();
+        AuthMiddleware.clearTokenCache();
+        AuthMiddleware.authenticateToken(accessToken); // گرم کردن کش
+    }
+
+    @Benchmark
+    public void legacySixParses(Blackhole blackhole) {
+        blackhole.consume(legacyParse(legacyToken) != null);                           // validateToken
+        blackhole.consume(legacyParse(legacyToken).getExpiration().before(new Date())); // isTokenExpired
+        blackhole.consume("access".equals(legacyParse(legacyToken).get("type", String.class)));
+        blackhole.consume(Long.parseLong(legacyParse(legacyToken).getSubject()));
+        blackhole.consume(legacyParse(legacyToken).get("phone", String.class));
+        blackhole.consume(legacyParse(legacyToken).get("role", String.class));
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return JWTUtil.parseClaims(accessToken);
+    }
+
+    @Benchmark
+    public AuthResult cachedAuthenticate() {
+        return AuthMiddleware.authenticateToken(accessToken);
+    }
+
+    /**
+     * پیاده‌سازی قبلی JWTUtil.getClaimsFromToken: ساخت کلید و parser در هر فراخوانی
+     */
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(LEGACY_SECRET))
+            .requireIssuer(ISSUER)
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
+    }
+}
@@ -0,0 +1,104 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.models.Coupon;
+import com.myapp.common.models.CouponUsage;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.coupon.CouponRedemptionEngine;
+import com.myapp.coupon.CouponRepository;
+import com.myapp.coupon.CouponUsageRepository;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای استفاده همزمان از یک کوپن روی H2
+ *
+ * همه thread ها روی یک ردیف کوپن رقابت می‌کنند (مثل کد تخفیف یک کمپین):
+ * - legacyReadModifyWrite: مسیر قبلی useCoupon (findById، coupon.use() و update کامل در دو session)
+ * - atomicClaim: CouponRepository.claimUsage (یک UPDATE شرطی)
+ * - exhaustedCoupon: درخواست برای کوپن تمام شده که از حافظه موتور رد می‌شود
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="CouponRedemptionBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CouponRedemptionBenchmark {
+
+    private SessionFactory sessionFactory;
+    private CouponRepository couponRepository;
+    private CouponRedemptionEngine engine;
+    private Long unlimitedCouponId;
+    private Long exhaustedCouponId;
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() {
+        // لاگ DEBUG دستورات SQL زمان اندازه‌گیری را تحت تأثیر قرار می‌دهد
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.hibernate.SQL"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+        sessionFactory = H2TestSessionFactory.create("coupon_redemption_benchmark;NON_KEYWORDS=VALUE",
+            Restaurant.class, Coupon.class, CouponUsage.class);
+        couponRepository = new CouponRepository(sessionFactory);
+        engine = new CouponRedemptionEngine(couponRepository, new CouponUsageRepository(sessionFactory),
+                                            60_000L, System::currentTimeMillis);
+
+        unlimitedCouponId = couponRepository.save(coupon("UNLIMITED", null)).getId();
+        exhaustedCouponId = couponRepository.save(coupon("SOLDOUT", 0)).getId();
+        // اولین رد از دیتابیس، کوپن را در حافظه موتور تمام شده علامت می‌زند
+        engine.claim(exhaustedCouponId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Coupon legacyReadModifyWrite() {
+        Coupon coupon = couponRepository.findById(unlimitedCouponId).orElseThrow();
+        coupon.use();
+        return couponRepository.update(coupon);
+    }
+
+    @Benchmark
+    public boolean atomicClaim() {
+        return couponRepository.claimUsage(unlimitedCouponId);
+    }
+
+    @Benchmark
+    public CouponRedemptionEngine.Outcome exhaustedCoupon() {
+        return engine.claim(exhaustedCouponId);
+    }
+
+    private static Coupon coupon(String code, Integer usageLimit) {
+        Coupon coupon = Coupon.createPercentageCoupon(code, code, 10.0,
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(30));
+        coupon.setCreatedBy(1L);
+        coupon.setUsageLimit(usageLimit);
+        return coupon;
+    }
+}
@@ -0,0 +1,78 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.search.InvertedIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای جستجوی منو روی ایندکس معکوس درون حافظه‌ای
+ *
+ * - exactToken: جستجوی یک کلمه کامل
+ * - typeAheadPrefix: جستجوی پیشوندی کوتاه (حالت type-ahead)
+ * - multiToken: جستجوی دو کلمه‌ای فارسی
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="MenuSearchBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MenuSearchBenchmark {
+
+    private static final String[] NAMES = {
+        "Pizza", "Burger", "Cheeseburger", "Pasta", "Salad", "Sandwich", "Steak", "Soup",
+        "پیتزا", "کباب کوبیده", "جوجه کباب", "قورمه سبزی", "زرشک پلو", "سالاد فصل", "آش رشته", "دوغ"
+    };
+    private static final String[] CATEGORIES = {"Fast Food", "Italian", "ایرانی", "نوشیدنی", "پیش غذا"};
+
+    @Param({"100000"})
+    public int items;
+
+    private InvertedIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new InvertedIndex(3.0, 2.0, 1.0);
+        for (long id = 1; id <= items; id++) {
+            String name = NAMES[random.nextInt(NAMES.length)] + " " + (id % 1000);
+            String keywords = NAMES[random.nextInt(NAMES.length)];
+            index.index(id, name, keywords, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> exactToken() {
+        return index.search("cheeseburger", 20, id -> true);
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> typeAheadPrefix() {
+        return index.search("ste", 20, id -> true);
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> multiToken() {
+        return index.search("کباب کوب", 20, id -> true);
+    }
+}
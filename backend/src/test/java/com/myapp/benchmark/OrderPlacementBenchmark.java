@@ -0,0 +1,150 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.order.OrderPlacementResult;
+import com.myapp.order.OrderRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای ثبت نهایی سفارش روی H2
+ *
+ * - legacyPerLine: مسیر قبلی placeOrder (یک findById و یک save در تراکنش جدا برای هر ردیف)
+ * - batchedReservation: OrderRepository.placeOrder (یک IN query و UPDATE های شرطی در یک تراکنش)
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="OrderPlacementBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPlacementBenchmark {
+
+    @Param({"1", "10"})
+    public int lines;
+
+    private SessionFactory sessionFactory;
+    private OrderRepository orderRepository;
+    private User customer;
+    private Restaurant restaurant;
+    private final List<FoodItem> items = new ArrayList<>();
+    private Long orderId;
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() {
+        // لاگ DEBUG دستورات SQL زمان اندازه‌گیری را تحت تأثیر قرار می‌دهد
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.hibernate.SQL"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+        sessionFactory = H2TestSessionFactory.create("order_placement_benchmark",
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class);
+        orderRepository = new OrderRepository(sessionFactory);
+        customer = User.forRegistration("Benchmark", "09120000000", "b@test.com", "hash", "Tehran");
+        restaurant = Restaurant.forRegistration(1L, "Benchmark Restaurant", "Tehran", "02100000000");
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(customer);
+            session.persist(restaurant);
+            for (int i = 0; i < lines; i++) {
+                FoodItem item = FoodItem.forMenu("Item " + i, "Item " + i, 100.0, "Food", restaurant);
+                item.setQuantity(Integer.MAX_VALUE / 2);
+                session.persist(item);
+                items.add(item);
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createPendingOrder() {
+        Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+        for (FoodItem item : items) {
+            order.addItem(item, 1);
+        }
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(order);
+            session.getTransaction().commit();
+        }
+        orderId = order.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Order legacyPerLine() {
+        Order order;
+        try (Session session = sessionFactory.openSession()) {
+            order = session.createQuery(
+                    "select o from Order o left join fetch o.orderItems oi left join fetch oi.foodItem where o.id = :id",
+                    Order.class)
+                .setParameter("id", orderId)
+                .uniqueResult();
+        }
+        // یک round-trip برای خواندن هر آیتم
+        for (OrderItem orderItem : order.getOrderItems()) {
+            try (Session session = sessionFactory.openSession()) {
+                FoodItem current = session.get(FoodItem.class, orderItem.getFoodItem().getId());
+                if (current.getQuantity() < orderItem.getQuantity()) {
+                    throw new IllegalStateException("Insufficient stock");
+                }
+            }
+        }
+        // یک تراکنش برای ذخیره هر آیتم
+        for (OrderItem orderItem : order.getOrderItems()) {
+            FoodItem item = orderItem.getFoodItem();
+            item.decreaseQuantity(orderItem.getQuantity());
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.merge(item);
+                session.getTransaction().commit();
+            }
+        }
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30));
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.merge(order);
+            session.getTransaction().commit();
+        }
+        return order;
+    }
+
+    @Benchmark
+    public OrderPlacementResult batchedReservation() {
+        return orderRepository.placeOrder(orderId, LocalDateTime.now().plusMinutes(30));
+    }
+}
@@ -0,0 +1,137 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.notification.NotificationRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای درج 10 هزار اعلان و 10 هزار آیتم سفارش روی H2
+ *
+ * - perRow: هر شناسه یک فراخوانی sequence (optimizer none) و هر INSERT یک round-trip جدا،
+ *   مانند مسیر identity که batch را غیرفعال می‌کند
+ * - pooled: بلوک‌های شناسه {@link com.myapp.common.models.IdAllocation} و JDBC batch
+ *   با تنظیمات hibernate-production.cfg.xml
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="PooledIdInsertBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PooledIdInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int ORDERS = 100;
+
+    @Param({"perRow", "pooled"})
+    public String strategy;
+
+    private SessionFactory sessionFactory;
+    private NotificationRepository notificationRepository;
+    private final List<Long> orderIds = new ArrayList<>();
+    private Long foodItemId;
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() {
+        // لاگ DEBUG دستورات SQL زمان اندازه‌گیری را تحت تأثیر قرار می‌دهد
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.hibernate.SQL"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+        Map<String, Object> settings = "pooled".equals(strategy)
+            ? Map.of("hibernate.jdbc.batch_size", "50", "hibernate.order_inserts", "true")
+            : Map.of("hibernate.jdbc.batch_size", "1", "hibernate.id.optimizer.pooled.preferred", "none");
+        sessionFactory = H2TestSessionFactory.create("pooled_id_benchmark_" + strategy, settings,
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Notification.class);
+        notificationRepository = new NotificationRepository(sessionFactory);
+
+        User customer = User.forRegistration("Benchmark", "09120000000", "b@test.com", "hash", "Tehran");
+        Restaurant restaurant = Restaurant.forRegistration(1L, "Benchmark Restaurant", "Tehran", "02100000000");
+        FoodItem item = FoodItem.forMenu("Item", "Item", 100.0, "Food", restaurant);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(customer);
+            session.persist(restaurant);
+            session.persist(item);
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+                session.persist(order);
+                orders.add(order);
+            }
+            session.getTransaction().commit();
+            orders.forEach(order -> orderIds.add(order.getId()));
+        }
+        foodItemId = item.getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearInsertedRows() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createMutationQuery("delete from Notification").executeUpdate();
+            session.createMutationQuery("delete from OrderItem").executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public int notifications() {
+        List<Notification> notifications = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            notifications.add(new Notification(1L + i % 100, "Title " + i, "Message " + i,
+                Notification.NotificationType.ORDER_CREATED));
+        }
+        notificationRepository.saveBatch(notifications);
+        return notifications.size();
+    }
+
+    @Benchmark
+    public int orderLines() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            FoodItem item = session.getReference(FoodItem.class, foodItemId);
+            for (int i = 0; i < ROWS; i++) {
+                Order order = session.getReference(Order.class, orderIds.get(i % ORDERS));
+                session.persist(new OrderItem(order, item, 1, 100.0));
+            }
+            session.getTransaction().commit();
+        }
+        return ROWS;
+    }
+}
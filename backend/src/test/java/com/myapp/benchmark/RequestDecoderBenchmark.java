@@ -0,0 +1,103 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.http.RequestBodyDecoder;
+import com.myapp.order.dto.CreateOrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای خواندن بدنه درخواست سفارش
+ *
+ * - legacySplitParser: parser دستی قبلی controller ها (readAllBytes، replaceAll و split)
+ * - streamingMap: RequestBodyDecoder.readMap
+ * - streamingDto: RequestBodyDecoder.read با اتصال مستقیم به CreateOrderRequest
+ *
+ * برای مقایسه تخصیص حافظه با {@code -prof gc} اجرا کنید:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="RequestDecoderBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestDecoderBenchmark {
+
+    private byte[] payload;
+    private RequestBodyDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = ("{\"customerId\":1024,\"restaurantId\":37,\"deliveryAddress\":\"Tehran Valiasr St No 125\"," +
+                   "\"phone\":\"09123456789\",\"notes\":\"ring twice\",\"express\":true}")
+            .getBytes(StandardCharsets.UTF_8);
+        decoder = RequestBodyDecoder.global();
+    }
+
+    @Benchmark
+    public Map<String, Object> legacySplitParser() throws IOException {
+        return legacyParse(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public Map<String, Object> streamingMap() throws IOException {
+        return decoder.readMap(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public CreateOrderRequest streamingDto() throws IOException {
+        return decoder.read(new ByteArrayInputStream(payload), CreateOrderRequest.class);
+    }
+
+    /**
+     * کپی parser قبلی OrderController (فقط برای مقایسه)
+     */
+    private static Map<String, Object> legacyParse(InputStream body) throws IOException {
+        String requestBody = new String(body.readAllBytes());
+        Map<String, Object> result = new HashMap<>();
+        if (requestBody.trim().isEmpty()) {
+            return result;
+        }
+        String content = requestBody.trim().replaceAll("[{}]", "");
+        String[] pairs = content.split(",");
+        for (String pair : pairs) {
+            String[] keyValue = pair.split(":");
+            if (keyValue.length == 2) {
+                String key = keyValue[0].trim().replaceAll("\"", "");
+                String value = keyValue[1].trim().replaceAll("\"", "");
+                try {
+                    if (value.equals("true") || value.equals("false")) {
+                        result.put(key, Boolean.parseBoolean(value));
+                    } else if (value.contains(".")) {
+                        result.put(key, Double.parseDouble(value));
+                    } else {
+                        result.put(key, Long.parseLong(value));
+                    }
+                } catch (NumberFormatException e) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+}
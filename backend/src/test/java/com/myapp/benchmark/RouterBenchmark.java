@@ -0,0 +1,150 @@
+package com.myapp.benchmark;
+
+import com.myapp.common.http.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * بنچمارک JMH برای هزینه مسیریابی هر درخواست در OrderController
+ *
+ * - legacyRegexChain: زنجیره قبلی {@code path.matches(...)} به همراه استخراج شناسه با split
+ * - router: {@link Router#dispatch} روی همان مجموعه مسیرها؛ route ها شناسه را با {@code longParam} می‌خوانند
+ *
+ * مجموعه مسیرها ترکیبی از شاخه‌های ابتدایی، انتهایی و ناموجود زنجیره است.
+ * برای مقایسه تخصیص حافظه با {@code -prof gc} اجرا کنید:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="RouterBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    private static final String[][] REQUESTS = {
+        {"GET", "/api/orders/1024"},
+        {"GET", "/api/orders/customer/77/statistics"},
+        {"GET", "/api/orders/pending"},
+        {"POST", "/api/orders/1024/place"},
+        {"PUT", "/api/orders/1024/items/9"},
+        {"PUT", "/api/orders/1024/status"},
+        {"DELETE", "/api/orders/1024/items/9"},
+        {"GET", "/api/orders/unknown/path"},
+    };
+
+    private Router router;
+    private long lastId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Router.Route none = (exchange, match) -> lastId = 0L;
+        Router.Route orderId = (exchange, match) -> lastId = match.longParam("orderId");
+        Router.Route itemId = (exchange, match) -> lastId = match.longParam("itemId");
+        Router.Route customerId = (exchange, match) -> lastId = match.longParam("customerId");
+        router = new Router()
+            .post("/api/orders", none)
+            .get("/api/orders/{orderId:long}", orderId)
+            .post("/api/orders/{orderId:long}/items", orderId)
+            .put("/api/orders/{orderId:long}/items/{itemId:long}", itemId)
+            .delete("/api/orders/{orderId:long}/items/{itemId:long}", itemId)
+            .post("/api/orders/{orderId:long}/place", orderId)
+            .put("/api/orders/{orderId:long}/cancel", orderId)
+            .put("/api/orders/{orderId:long}/status", orderId)
+            .get("/api/orders/customer/{customerId:long}", customerId)
+            .get("/api/orders/restaurant/{restaurantId:long}", (exchange, match) ->
+                lastId = match.longParam("restaurantId"))
+            .get("/api/orders/status/{status:word}", (exchange, match) -> lastId = match.param("status").length())
+            .get("/api/orders/active", none)
+            .get("/api/orders/pending", none)
+            .get("/api/orders/customer/{customerId:long}/statistics", customerId);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void legacyRegexChain(Blackhole blackhole) {
+        for (String[] request : REQUESTS) {
+            blackhole.consume(legacyRoute(request[0], request[1]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void router(Blackhole blackhole) throws IOException {
+        for (String[] request : REQUESTS) {
+            lastId = -1L;
+            router.dispatch(null, request[0], request[1]);
+            blackhole.consume(lastId);
+        }
+    }
+
+    /**
+     * کپی مسیریابی قبلی OrderController (فقط برای مقایسه)
+     */
+    private static long legacyRoute(String method, String path) {
+        switch (method) {
+            case "GET":
+                if (path.matches("/api/orders/\\d+")) {
+                    return Long.parseLong(path.split("/")[3]);
+                } else if (path.matches("/api/orders/customer/\\d+")) {
+                    return Long.parseLong(path.substring("/api/orders/customer/".length()));
+                } else if (path.matches("/api/orders/restaurant/\\d+")) {
+                    return Long.parseLong(path.substring("/api/orders/restaurant/".length()));
+                } else if (path.matches("/api/orders/status/\\w+")) {
+                    return path.split("/").length;
+                } else if (path.equals("/api/orders/active") || path.equals("/api/orders/pending")) {
+                    return 0L;
+                } else if (path.matches("/api/orders/customer/\\d+/statistics")) {
+                    String withoutPrefix = path.substring("/api/orders/customer/".length());
+                    return Long.parseLong(withoutPrefix.substring(0, withoutPrefix.indexOf("/statistics")));
+                }
+                return -1L;
+            case "POST":
+                if (path.equals("/api/orders")) {
+                    return 0L;
+                } else if (path.matches("/api/orders/\\d+/items")) {
+                    return idBefore(path, "/items");
+                } else if (path.matches("/api/orders/\\d+/place")) {
+                    return idBefore(path, "/place");
+                }
+                return -1L;
+            case "PUT":
+                if (path.matches("/api/orders/\\d+/items/\\d+")) {
+                    return Long.parseLong(path.split("/")[5]);
+                } else if (path.matches("/api/orders/\\d+/cancel")) {
+                    return idBefore(path, "/cancel");
+                } else if (path.matches("/api/orders/\\d+/status")) {
+                    return idBefore(path, "/status");
+                }
+                return -1L;
+            case "DELETE":
+                if (path.matches("/api/orders/\\d+/items/\\d+")) {
+                    return Long.parseLong(path.split("/")[5]);
+                }
+                return -1L;
+            default:
+                return -1L;
+        }
+    }
+
+    private static long idBefore(String path, String suffix) {
+        return Long.parseLong(path.substring(0, path.lastIndexOf(suffix)).split("/")[3]);
+    }
+}
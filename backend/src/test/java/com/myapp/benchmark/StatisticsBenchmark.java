@@ -0,0 +1,231 @@
+package com.myapp.benchmark;
+
+import com.myapp.admin.AdminRepository;
+import com.myapp.admin.AdminService;
+import com.myapp.common.models.Delivery;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.models.TransactionType;
+import com.myapp.common.models.User;
+import com.myapp.common.models.WalletBalance;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.payment.PaymentRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * بنچمارک JMH برای آمار پنل مدیریت و آمار تراکنش‌های کاربر روی H2
+ *
+ * - legacySystemStatistics / legacyTransactionStatistics: کوئری‌های جداگانه قبلی (11 و 6 round-trip)
+ * - systemStatistics / transactionStatistics: یک کوئری با شمارش و جمع شرطی
+ * - cachedSystemStatistics: AdminService با snapshot کوتاه‌مدت (بدون کوئری تا انقضای TTL)
+ *
+ * ستون statements در خروجی تعداد دستورات ارسال شده به دیتابیس در هر فراخوانی است.
+ *
+ * اجرا:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="StatisticsBenchmark"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+
+    private SessionFactory sessionFactory;
+    private AdminRepository adminRepository;
+    private AdminService adminService;
+    private PaymentRepository paymentRepository;
+    private Long customerId;
+
+    /**
+     * شمارنده دستورات هر فراخوانی (به صورت متریک ثانویه در خروجی JMH)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        private long statements;
+        private long invocations;
+
+        public double statements() {
+            return invocations == 0 ? 0 : (double) statements / invocations;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() {
+        // لاگ DEBUG دستورات SQL زمان اندازه‌گیری را تحت تأثیر قرار می‌دهد
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.hibernate.SQL"))
+            .setLevel(ch.qos.logback.classic.Level.WARN);
+        sessionFactory = H2TestSessionFactory.create("statistics_benchmark",
+            Map.of("hibernate.generate_statistics", "true"),
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Delivery.class,
+            Transaction.class, WalletBalance.class);
+        adminRepository = new AdminRepository(sessionFactory);
+        adminService = new AdminService(adminRepository, null, null, null, null, null);
+        paymentRepository = new PaymentRepository(sessionFactory);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public AdminRepository.SystemStatistics legacySystemStatistics(RoundTrips roundTrips) {
+        return counted(roundTrips, this::legacySystemStatisticsQueries);
+    }
+
+    @Benchmark
+    public AdminRepository.SystemStatistics systemStatistics(RoundTrips roundTrips) {
+        return counted(roundTrips, adminRepository::getSystemStatistics);
+    }
+
+    @Benchmark
+    public AdminRepository.SystemStatistics cachedSystemStatistics(RoundTrips roundTrips) {
+        return counted(roundTrips, adminService::getSystemStatistics);
+    }
+
+    @Benchmark
+    public PaymentRepository.TransactionStatistics legacyTransactionStatistics(RoundTrips roundTrips) {
+        return counted(roundTrips, this::legacyTransactionStatisticsQueries);
+    }
+
+    @Benchmark
+    public PaymentRepository.TransactionStatistics transactionStatistics(RoundTrips roundTrips) {
+        return counted(roundTrips, () -> paymentRepository.getUserTransactionStatistics(customerId));
+    }
+
+    private <T> T counted(RoundTrips roundTrips, Supplier<T> work) {
+        long before = sessionFactory.getStatistics().getPrepareStatementCount();
+        T result = work.get();
+        roundTrips.statements += sessionFactory.getStatistics().getPrepareStatementCount() - before;
+        roundTrips.invocations++;
+        return result;
+    }
+
+    // ==================== کوئری‌های قبلی ====================
+
+    private AdminRepository.SystemStatistics legacySystemStatisticsQueries() {
+        try (Session session = sessionFactory.openSession()) {
+            LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
+            Long totalUsers = session.createQuery("SELECT COUNT(u) FROM User u", Long.class).uniqueResult();
+            Long totalRestaurants = session.createQuery("SELECT COUNT(r) FROM Restaurant r", Long.class).uniqueResult();
+            Long totalOrders = session.createQuery("SELECT COUNT(o) FROM Order o", Long.class).uniqueResult();
+            Long totalDeliveries = session.createQuery("SELECT COUNT(d) FROM Delivery d", Long.class).uniqueResult();
+            Double totalRevenue = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :type AND t.status = :status", Double.class)
+                .setParameter("type", TransactionType.PAYMENT)
+                .setParameter("status", TransactionStatus.COMPLETED).uniqueResult();
+            Double totalRefunds = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :type AND t.status = :status", Double.class)
+                .setParameter("type", TransactionType.REFUND)
+                .setParameter("status", TransactionStatus.COMPLETED).uniqueResult();
+            Long todayOrders = session.createQuery("SELECT COUNT(o) FROM Order o WHERE o.orderDate >= :startOfDay", Long.class)
+                .setParameter("startOfDay", startOfDay).uniqueResult();
+            Double todayRevenue = session.createQuery("SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.type = :type AND t.status = :status AND t.createdAt >= :startOfDay", Double.class)
+                .setParameter("type", TransactionType.PAYMENT)
+                .setParameter("status", TransactionStatus.COMPLETED)
+                .setParameter("startOfDay", startOfDay).uniqueResult();
+            Long activeRestaurants = session.createQuery("SELECT COUNT(r) FROM Restaurant r WHERE r.status = 'APPROVED'", Long.class).uniqueResult();
+            Long pendingOrders = session.createQuery("SELECT COUNT(o) FROM Order o WHERE o.status = 'PENDING'", Long.class).uniqueResult();
+            Long activeDeliveries = session.createQuery("SELECT COUNT(d) FROM Delivery d WHERE d.status IN ('PENDING', 'ASSIGNED', 'PICKED_UP')", Long.class).uniqueResult();
+            return new AdminRepository.SystemStatistics(totalUsers, totalRestaurants, totalOrders, totalDeliveries,
+                totalRevenue, totalRefunds, todayOrders, todayRevenue, activeRestaurants, pendingOrders, activeDeliveries);
+        }
+    }
+
+    private PaymentRepository.TransactionStatistics legacyTransactionStatisticsQueries() {
+        try (Session session = sessionFactory.openSession()) {
+            String countByStatus = "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.status = :status";
+            String sumByType = "SELECT COALESCE(SUM(t.amount), 0.0) FROM Transaction t WHERE t.userId = :userId AND t.type = :type AND t.status = :status";
+            Long total = session.createQuery("SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId", Long.class)
+                .setParameter("userId", customerId).uniqueResult();
+            Long completed = session.createQuery(countByStatus, Long.class)
+                .setParameter("userId", customerId).setParameter("status", TransactionStatus.COMPLETED).uniqueResult();
+            Long pending = session.createQuery(countByStatus, Long.class)
+                .setParameter("userId", customerId).setParameter("status", TransactionStatus.PENDING).uniqueResult();
+            Long failed = session.createQuery(countByStatus, Long.class)
+                .setParameter("userId", customerId).setParameter("status", TransactionStatus.FAILED).uniqueResult();
+            Double spent = session.createQuery(sumByType, Double.class)
+                .setParameter("userId", customerId).setParameter("type", TransactionType.PAYMENT)
+                .setParameter("status", TransactionStatus.COMPLETED).uniqueResult();
+            Double refunded = session.createQuery(sumByType, Double.class)
+                .setParameter("userId", customerId).setParameter("type", TransactionType.REFUND)
+                .setParameter("status", TransactionStatus.COMPLETED).uniqueResult();
+            return new PaymentRepository.TransactionStatistics(total, completed, pending, failed, spent, refunded);
+        }
+    }
+
+    // ==================== داده نمونه ====================
+
+    private void seed() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            LocalDateTime now = LocalDateTime.now();
+            List<User> customers = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                User customer = User.forRegistration("Customer " + i, String.format("0912%07d", i),
+                    "c" + i + "@test.com", "hash", "Tehran");
+                session.persist(customer);
+                customers.add(customer);
+            }
+            List<Restaurant> restaurants = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Restaurant restaurant = Restaurant.forRegistration((long) i + 1, "Restaurant " + i,
+                    "Tehran", String.format("021%08d", i));
+                session.persist(restaurant);
+                restaurants.add(restaurant);
+            }
+            OrderStatus[] statuses = OrderStatus.values();
+            TransactionType[] types = {TransactionType.PAYMENT, TransactionType.PAYMENT, TransactionType.REFUND};
+            for (int i = 0; i < 5000; i++) {
+                User customer = customers.get(i % customers.size());
+                Order order = Order.createNew(customer, restaurants.get(i % restaurants.size()), "Tehran", "09120000000");
+                order.setStatus(statuses[i % statuses.length]);
+                order.setOrderDate(now.minusHours(i));
+                session.persist(order);
+                if (i % 2 == 0) {
+                    session.persist(new Delivery(order, 20.0));
+                }
+                Transaction transaction = types[i % types.length] == TransactionType.PAYMENT
+                    ? Transaction.forPayment(customer.getId(), order.getId(), 50.0, "CARD")
+                    : Transaction.forRefund(customer.getId(), order.getId(), 50.0, "test");
+                transaction.setStatus(i % 7 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED);
+                transaction.setCreatedAt(now.minusHours(i));
+                session.persist(transaction);
+            }
+            session.getTransaction().commit();
+            customerId = customers.get(0).getId();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.myapp.common;
+
+import com.myapp.admin.AdminRepository;
+import com.myapp.admin.AdminService;
+import com.myapp.common.models.Delivery;
+import com.myapp.common.models.DeliveryStatus;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.RestaurantStatus;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.models.User;
+import com.myapp.common.models.WalletBalance;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.courier.DeliveryRepository;
+import com.myapp.payment.PaymentRepository;
+import com.myapp.restaurant.RestaurantRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست کوئری‌های آماری تک round-trip
+ *
+ * مقادیر هر آمار روی داده‌ای با نتیجه معلوم بررسی می‌شوند و تعداد دستورات
+ * اجرا شده برای هر فراخوانی با آمار Hibernate شمرده می‌شود. FILTER روی H2 و
+ * SQLite به شکل متفاوتی ترجمه می‌شود، پس هر دو دیتابیس بررسی می‌شوند.
+ */
+@DisplayName("Aggregate Statistics Tests")
+class AggregateStatisticsTest {
+
+    private static final Class<?>[] ENTITIES = {
+        User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Delivery.class,
+        Transaction.class, WalletBalance.class
+    };
+
+    // ==================== H2 ====================
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @DisplayName("H2 Statistics Tests")
+    class H2StatisticsTests extends StatisticsChecks {
+
+        @BeforeAll
+        void setUpDatabase() {
+            sessionFactory = H2TestSessionFactory.create("aggregate_statistics",
+                Map.of("hibernate.generate_statistics", "true"), ENTITIES);
+            seed = Seed.populate(sessionFactory);
+        }
+
+        @AfterAll
+        void tearDownDatabase() {
+            sessionFactory.close();
+        }
+    }
+
+    // ==================== SQLite ====================
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @DisplayName("SQLite Statistics Tests")
+    class SQLiteStatisticsTests extends StatisticsChecks {
+
+        private Path file;
+
+        @BeforeAll
+        void setUpDatabase() throws IOException {
+            file = Files.createTempFile("aggregate_statistics", ".db");
+            Configuration configuration = new Configuration()
+                .setProperty("hibernate.connection.driver_class", "org.sqlite.JDBC")
+                .setProperty("hibernate.connection.url", "jdbc:sqlite:" + file)
+                .setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect")
+                .setProperty("hibernate.connection.pool_size", "5")
+                .setProperty("hibernate.hbm2ddl.auto", "create")
+                .setProperty("hibernate.generate_statistics", "true")
+                .setProperty("hibernate.current_session_context_class", "thread")
+                .setProperty("hibernate.show_sql", "false");
+            for (Class<?> entity : ENTITIES) {
+                configuration.addAnnotatedClass(entity);
+            }
+            sessionFactory = configuration.buildSessionFactory();
+            seed = Seed.populate(sessionFactory);
+        }
+
+        @AfterAll
+        void tearDownDatabase() throws IOException {
+            if (sessionFactory != null) {
+                sessionFactory.close();
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // ==================== آمارهای بررسی شده ====================
+
+    /**
+     * آمارهای هر repository (برای هر دو دیتابیس)
+     */
+    abstract static class StatisticsChecks {
+
+        SessionFactory sessionFactory;
+        Seed seed;
+
+        @Test
+        @DisplayName("system statistics are read in one statement")
+        void systemStatistics() {
+            AdminRepository.SystemStatistics stats = inOneStatement(
+                () -> new AdminRepository(sessionFactory).getSystemStatistics());
+
+            assertEquals(7L, stats.getTotalUsers());
+            assertEquals(4L, stats.getTotalRestaurants());
+            assertEquals(6L, stats.getTotalOrders());
+            assertEquals(6L, stats.getTotalDeliveries());
+            assertEquals(1150.0, stats.getTotalRevenue(), 0.001);
+            assertEquals(30.0, stats.getTotalRefunds(), 0.001);
+            assertEquals(4L, stats.getTodayOrders());
+            assertEquals(1100.0, stats.getTodayRevenue(), 0.001);
+            assertEquals(2L, stats.getActiveRestaurants());
+            assertEquals(3L, stats.getPendingOrders());
+            assertEquals(3L, stats.getActiveDeliveries());
+        }
+
+        @Test
+        @DisplayName("user transaction statistics are read in one statement")
+        void transactionStatistics() {
+            PaymentRepository.TransactionStatistics stats = inOneStatement(
+                () -> new PaymentRepository(sessionFactory).getUserTransactionStatistics(seed.customerId));
+
+            assertEquals(5L, stats.getTotalTransactions());
+            assertEquals(3L, stats.getCompletedTransactions());
+            assertEquals(1L, stats.getPendingTransactions());
+            assertEquals(1L, stats.getFailedTransactions());
+            assertEquals(150.0, stats.getTotalSpent(), 0.001);
+            assertEquals(30.0, stats.getTotalRefunded(), 0.001);
+
+            PaymentRepository.TransactionStatistics empty =
+                new PaymentRepository(sessionFactory).getUserTransactionStatistics(seed.courierId);
+            assertEquals(0L, empty.getTotalTransactions());
+            assertEquals(0.0, empty.getTotalSpent(), 0.001);
+        }
+
+        @Test
+        @DisplayName("courier statistics are read in one statement")
+        void courierStatistics() {
+            DeliveryRepository.CourierStatistics stats = inOneStatement(
+                () -> new DeliveryRepository(sessionFactory).getCourierStatistics(seed.courierId));
+
+            assertEquals(5L, stats.getTotalDeliveries());
+            assertEquals(2L, stats.getCompletedDeliveries());
+            assertEquals(2L, stats.getActiveDeliveries());
+            assertEquals(1L, stats.getCancelledDeliveries());
+            assertEquals(50.0, stats.getTotalEarnings(), 0.001);
+            assertEquals(15.0, stats.getAverageDeliveryTimeMinutes(), 0.01);
+            assertEquals(15.0, new DeliveryRepository(sessionFactory)
+                .getAverageDeliveryTimeMinutes(seed.courierId), 0.01);
+        }
+
+        @Test
+        @DisplayName("restaurant status counts are read in one statement")
+        void restaurantStatusCounts() {
+            Map<RestaurantStatus, Long> counts = inOneStatement(
+                () -> new RestaurantRepository(sessionFactory).countByStatus());
+
+            assertEquals(Map.of(RestaurantStatus.APPROVED, 2L, RestaurantStatus.PENDING, 1L,
+                                RestaurantStatus.SUSPENDED, 1L), counts);
+        }
+
+        @Test
+        @DisplayName("the admin service serves repeated requests from the snapshot")
+        void adminService_servesSnapshot() {
+            AdminService service = new AdminService(new AdminRepository(sessionFactory),
+                null, null, null, null, null);
+            AdminRepository.SystemStatistics first = inOneStatement(service::getSystemStatistics);
+
+            long before = sessionFactory.getStatistics().getPrepareStatementCount();
+            for (int i = 0; i < 10; i++) {
+                assertSame(first, service.getSystemStatistics());
+            }
+            assertEquals(before, sessionFactory.getStatistics().getPrepareStatementCount());
+        }
+
+        private <T> T inOneStatement(Supplier<T> work) {
+            long before = sessionFactory.getStatistics().getPrepareStatementCount();
+            T result = work.get();
+            assertEquals(1, sessionFactory.getStatistics().getPrepareStatementCount() - before,
+                         "statistics should be read in a single round-trip");
+            return result;
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    /**
+     * داده نمونه با آمار معلوم
+     */
+    private static final class Seed {
+        Long customerId;
+        Long courierId;
+
+        static Seed populate(SessionFactory sessionFactory) {
+            Seed seed = new Seed();
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime lastWeek = now.minusDays(7);
+
+                User customer = User.forRegistration("Customer", "09120000000", "c@test.com", "hash", "Tehran");
+                session.persist(customer);
+                User otherCustomer = User.forRegistration("Other", "09120000001", "o@test.com", "hash", "Tehran");
+                session.persist(otherCustomer);
+                for (int i = 2; i < 5; i++) {
+                    session.persist(User.forRegistration("Customer " + i, "0912000000" + i,
+                        "c" + i + "@test.com", "hash", "Tehran"));
+                }
+                User courier = User.forRegistration("Courier", "09350000000", "k@test.com", "hash", "Tehran");
+                courier.setRole(User.Role.COURIER);
+                session.persist(courier);
+                User otherCourier = User.forRegistration("Other Courier", "09350000001", "k1@test.com", "hash", "Tehran");
+                otherCourier.setRole(User.Role.COURIER);
+                session.persist(otherCourier);
+
+                RestaurantStatus[] restaurantStatuses = {
+                    RestaurantStatus.APPROVED, RestaurantStatus.APPROVED, RestaurantStatus.PENDING,
+                    RestaurantStatus.SUSPENDED
+                };
+                Restaurant restaurant = null;
+                for (int i = 0; i < restaurantStatuses.length; i++) {
+                    Restaurant created = Restaurant.forRegistration((long) i + 1, "Restaurant " + i,
+                        "Tehran", "0210000000" + i);
+                    created.setStatus(restaurantStatuses[i]);
+                    session.persist(created);
+                    if (restaurant == null) {
+                        restaurant = created;
+                    }
+                }
+
+                // 4 سفارش امروز، 3 سفارش PENDING
+                OrderStatus[] orderStatuses = {
+                    OrderStatus.PENDING, OrderStatus.PENDING, OrderStatus.PENDING,
+                    OrderStatus.DELIVERED, OrderStatus.DELIVERED, OrderStatus.CANCELLED
+                };
+                Order[] orders = new Order[orderStatuses.length];
+                for (int i = 0; i < orders.length; i++) {
+                    orders[i] = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+                    orders[i].setStatus(orderStatuses[i]);
+                    orders[i].setOrderDate(i < 4 ? now : lastWeek);
+                    session.persist(orders[i]);
+                }
+
+                // پیک اصلی: 2 تحویل موفق (10 و 20 دقیقه)، 2 فعال، 1 لغو شده؛ به علاوه 1 تحویل بدون پیک
+                session.persist(delivery(orders[0], courier, DeliveryStatus.DELIVERED, 20.0, now, 10));
+                session.persist(delivery(orders[1], courier, DeliveryStatus.DELIVERED, 30.0, now, 20));
+                session.persist(delivery(orders[2], courier, DeliveryStatus.ASSIGNED, 40.0, null, 0));
+                session.persist(delivery(orders[3], courier, DeliveryStatus.PICKED_UP, 40.0, null, 0));
+                session.persist(delivery(orders[4], courier, DeliveryStatus.CANCELLED, 40.0, null, 0));
+                session.persist(new Delivery(orders[5], 15.0));
+
+                Long orderId = orders[0].getId();
+                session.persist(transaction(Transaction.forPayment(customer.getId(), orderId, 100.0, "CARD"),
+                    TransactionStatus.COMPLETED, now));
+                session.persist(transaction(Transaction.forPayment(customer.getId(), orderId, 50.0, "CARD"),
+                    TransactionStatus.COMPLETED, lastWeek));
+                session.persist(transaction(Transaction.forRefund(customer.getId(), orderId, 30.0, "test"),
+                    TransactionStatus.COMPLETED, lastWeek));
+                session.persist(transaction(Transaction.forPayment(customer.getId(), orderId, 70.0, "CARD"),
+                    TransactionStatus.FAILED, now));
+                session.persist(transaction(Transaction.forPayment(customer.getId(), orderId, 10.0, "CARD"),
+                    TransactionStatus.PENDING, now));
+                session.persist(transaction(Transaction.forPayment(otherCustomer.getId(), orderId, 1000.0, "CARD"),
+                    TransactionStatus.COMPLETED, now));
+
+                session.getTransaction().commit();
+                seed.customerId = customer.getId();
+                seed.courierId = courier.getId();
+            }
+            return seed;
+        }
+
+        private static Delivery delivery(Order order, User courier, DeliveryStatus status, double fee,
+                                         LocalDateTime pickedUpAt, int minutes) {
+            Delivery delivery = new Delivery(order, fee);
+            delivery.assignToCourier(courier);
+            delivery.setStatus(status);
+            if (pickedUpAt != null) {
+                delivery.setPickedUpAt(pickedUpAt.minusMinutes(minutes));
+                delivery.setDeliveredAt(pickedUpAt);
+            }
+            return delivery;
+        }
+
+        private static Transaction transaction(Transaction transaction, TransactionStatus status,
+                                               LocalDateTime createdAt) {
+            transaction.setStatus(status);
+            transaction.setCreatedAt(createdAt);
+            return transaction;
+        }
+    }
+}
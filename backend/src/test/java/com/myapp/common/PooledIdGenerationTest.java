@@ -0,0 +1,230 @@
+package com.myapp.common;
+
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.IdAllocation;
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.User;
+import com.myapp.notification.NotificationRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های تولید شناسه pooled روی SQLite
+ *
+ * SQLite sequence ندارد و بلوک‌های شناسه از جدول &lt;table&gt;_SEQ با connection
+ * جداگانه رزرو می‌شوند؛ این تست‌ها درج دسته‌ای چند بلوکی و migration افزایش
+ * اندازه بلوک را روی یک فایل واقعی بررسی می‌کنند.
+ */
+@DisplayName("Pooled Id Generation Tests")
+class PooledIdGenerationTest {
+
+    private static final String MIGRATION = "db/migrations/sqlite/20261017100000_pooled_id_allocation.sql";
+
+    private Path file;
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("pooled_ids", ".db");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Nested
+    @DisplayName("Batch Insert Tests")
+    class BatchInsertTests {
+
+        @Test
+        @DisplayName("saveBatch spanning several id blocks completes with batched inserts")
+        void saveBatch_severalIdBlocks_batchedWithoutLocking() {
+            sessionFactory = sqliteSessionFactory("create");
+            int count = IdAllocation.BULK * 2 + 200;
+
+            new NotificationRepository(sessionFactory).saveBatch(notifications(count));
+
+            assertEquals(count, countNotifications());
+            assertEquals(count, distinctIds());
+            // بدون batch هر INSERT یک PreparedStatement جدا می‌گیرد
+            assertTrue(sessionFactory.getStatistics().getPrepareStatementCount() < 10,
+                       "inserts should be sent as JDBC batches");
+        }
+    }
+
+    @Nested
+    @DisplayName("Allocation Migration Tests")
+    class AllocationMigrationTests {
+
+        @Test
+        @DisplayName("after the migration new ids start above rows allocated with the old block size")
+        void migration_newBlocksStartAboveExistingRows() {
+            long legacyMaxId = seedLegacyNotifications();
+
+            sessionFactory = sqliteSessionFactory("none");
+            executeStatements(migrationStatements());
+            new NotificationRepository(sessionFactory).saveBatch(notifications(600));
+
+            assertEquals(1800, countNotifications());
+            assertEquals(600, countIdsAbove(legacyMaxId));
+        }
+
+        @Test
+        @DisplayName("without the migration the first new block overlaps existing rows")
+        void noMigration_firstBlockOverlapsExistingRows() {
+            seedLegacyNotifications();
+
+            sessionFactory = sqliteSessionFactory("none");
+            NotificationRepository repository = new NotificationRepository(sessionFactory);
+
+            assertThrows(RuntimeException.class, () -> repository.saveBatch(notifications(600)));
+        }
+
+        /**
+         * 1200 ردیف با بلوک 50 تایی قدیمی: next_val یک بلوک جلوتر از بزرگترین شناسه
+         *
+         * @return بزرگترین شناسه موجود
+         */
+        private long seedLegacyNotifications() {
+            sessionFactory = sqliteSessionFactory("create");
+            new NotificationRepository(sessionFactory).saveBatch(notifications(1));
+            long seedId = queryLong("SELECT MAX(id) FROM notifications");
+            String columns;
+            try (Session session = sessionFactory.openSession()) {
+                columns = session.doReturningWork(connection -> {
+                    List<String> names = new ArrayList<>();
+                    try (Statement statement = connection.createStatement();
+                         var rs = statement.executeQuery("PRAGMA table_info(notifications)")) {
+                        while (rs.next()) {
+                            if (!"id".equals(rs.getString("name"))) {
+                                names.add(rs.getString("name"));
+                            }
+                        }
+                    }
+                    return String.join(", ", names);
+                });
+            }
+            long legacyMaxId = seedId + 1199;
+            executeStatements(List.of(
+                "WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 1199) " +
+                "INSERT INTO notifications (id, " + columns + ") " +
+                "SELECT " + seedId + " + n, " + columns + " FROM seq, notifications WHERE id = " + seedId,
+                "UPDATE notifications_SEQ SET next_val = " + (legacyMaxId + 51)));
+            sessionFactory.close();
+            sessionFactory = null;
+            return legacyMaxId;
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private SessionFactory sqliteSessionFactory(String hbm2ddl) {
+        Configuration configuration = new Configuration()
+            .setProperty("hibernate.connection.driver_class", "org.sqlite.JDBC")
+            .setProperty("hibernate.connection.url", "jdbc:sqlite:" + file)
+            .setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect")
+            .setProperty("hibernate.connection.pool_size", "5")
+            .setProperty("hibernate.hbm2ddl.auto", hbm2ddl)
+            .setProperty("hibernate.jdbc.batch_size", "25")
+            .setProperty("hibernate.order_inserts", "true")
+            .setProperty("hibernate.generate_statistics", "true")
+            .setProperty("hibernate.current_session_context_class", "thread")
+            .setProperty("hibernate.show_sql", "false");
+        // migration جداول _SEQ هر دو جدول notifications و order_items را به‌روز می‌کند
+        for (Class<?> entity : new Class<?>[]{User.class, Restaurant.class, FoodItem.class, Order.class,
+                                              OrderItem.class, Notification.class}) {
+            configuration.addAnnotatedClass(entity);
+        }
+        return configuration.buildSessionFactory();
+    }
+
+    private static List<Notification> notifications(int count) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notifications.add(new Notification(1L + i % 20, "Title " + i, "Message " + i,
+                Notification.NotificationType.ORDER_CREATED));
+        }
+        return notifications;
+    }
+
+    private long countNotifications() {
+        return queryLong("SELECT COUNT(*) FROM notifications");
+    }
+
+    private long distinctIds() {
+        return queryLong("SELECT COUNT(DISTINCT id) FROM notifications");
+    }
+
+    private long countIdsAbove(long id) {
+        return queryLong("SELECT COUNT(*) FROM notifications WHERE id > " + id);
+    }
+
+    private long queryLong(String sql) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     var rs = statement.executeQuery(sql)) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            });
+        }
+    }
+
+    private void executeStatements(List<String> statements) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : statements) {
+                        statement.execute(sql);
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        }
+    }
+
+    private static List<String> migrationStatements() {
+        try (InputStream in = PooledIdGenerationTest.class.getClassLoader().getResourceAsStream(MIGRATION)) {
+            assertNotNull(in, MIGRATION + " not found on classpath");
+            String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.trim().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+            List<String> statements = new ArrayList<>();
+            for (String statement : sql.split(";")) {
+                if (!statement.isBlank()) {
+                    statements.add(statement.trim());
+                }
+            }
+            return statements;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + MIGRATION, e);
+        }
+    }
+}
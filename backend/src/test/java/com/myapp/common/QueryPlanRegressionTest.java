@@ -0,0 +1,556 @@
+package com.myapp.common;
+
+import com.myapp.common.models.BroadcastReadState;
+import com.myapp.common.models.Coupon;
+import com.myapp.common.models.CouponUsage;
+import com.myapp.common.models.Delivery;
+import com.myapp.common.models.DeliveryStatus;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.models.TransactionType;
+import com.myapp.common.models.User;
+import com.myapp.common.models.WalletBalance;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.courier.DeliveryRepository;
+import com.myapp.item.ItemRepository;
+import com.myapp.notification.NotificationRepository;
+import com.myapp.order.OrderRepository;
+import com.myapp.payment.PaymentRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست رگرسیون plan کوئری‌های پرتکرار
+ *
+ * متدهای واقعی repository ها روی دیتابیس seed شده اجرا می‌شوند، SQL تولید
+ * شده توسط Hibernate با StatementInspector گرفته می‌شود و EXPLAIN هر دستور
+ * بررسی می‌شود. اگر یکی از کوئری‌ها روی جداول پرحجم به full scan برگردد
+ * (مثلاً ایندکسی حذف یا شکل کوئری عوض شود) تست شکست می‌خورد.
+ *
+ * - H2: ایندکس‌های تعریف شده در entity ها (hbm2ddl)
+ * - SQLite: ایندکس‌های entity به اضافه migration های db/migrations/sqlite، از جمله ایندکس‌های جزئی
+ */
+@DisplayName("Query Plan Regression Tests")
+class QueryPlanRegressionTest {
+
+    /** جداولی که full scan روی آن‌ها مجاز نیست */
+    private static final List<String> HOT_TABLES = List.of(
+        "orders", "order_items", "transactions", "notifications", "deliveries", "food_items");
+
+    private static final Class<?>[] ENTITIES = {
+        User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Delivery.class,
+        Transaction.class, WalletBalance.class, Notification.class, NotificationBroadcast.class,
+        BroadcastReadState.class, Coupon.class, CouponUsage.class
+    };
+
+    /** SQL دستورات اجرا شده (فقط در زمان ضبط) */
+    private static final List<String> CAPTURED = Collections.synchronizedList(new ArrayList<>());
+    private static volatile boolean capturing;
+
+    private static final StatementInspector INSPECTOR = sql -> {
+        if (capturing) {
+            CAPTURED.add(sql);
+        }
+        return sql;
+    };
+
+    /**
+     * دیتابیس seed شده همراه با repository های متصل به آن
+     */
+    private abstract static class PlanDatabase {
+        final SessionFactory sessionFactory;
+        final Seed seed;
+        final OrderRepository orders;
+        final PaymentRepository payments;
+        final NotificationRepository notifications;
+        final DeliveryRepository deliveries;
+        final ItemRepository items;
+
+        PlanDatabase(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+            this.seed = Seed.populate(sessionFactory);
+            this.orders = new OrderRepository(sessionFactory);
+            this.payments = new PaymentRepository(sessionFactory);
+            this.notifications = new NotificationRepository(sessionFactory);
+            this.deliveries = new DeliveryRepository(sessionFactory);
+            this.items = new ItemRepository(sessionFactory);
+        }
+
+        /** @return خطوط plan که full scan یکی از جداول پرحجم هستند */
+        abstract List<String> fullScans(Session session, String sql);
+
+        /**
+         * اجرای کار و بررسی plan همه دستورات خواندن/به‌روزرسانی آن
+         */
+        void assertIndexed(String label, Runnable work) {
+            List<String> statements;
+            synchronized (CAPTURED) {
+                CAPTURED.clear();
+                capturing = true;
+                try {
+                    work.run();
+                } finally {
+                    capturing = false;
+                }
+                statements = new ArrayList<>(CAPTURED);
+            }
+            List<String> explained = statements.stream()
+                .filter(sql -> !sql.trim().toLowerCase(Locale.ROOT).startsWith("insert"))
+                .toList();
+            assertFalse(explained.isEmpty(), label + ": no statements captured");
+
+            List<String> violations = new ArrayList<>();
+            try (Session session = sessionFactory.openSession()) {
+                for (String sql : explained) {
+                    for (String scan : fullScans(session, sql)) {
+                        violations.add(scan + "\n    in: " + sql);
+                    }
+                }
+            }
+            assertTrue(violations.isEmpty(), label + " falls back to a full scan:\n" + String.join("\n", violations));
+        }
+
+        void close() {
+            sessionFactory.close();
+        }
+    }
+
+    private static final class H2Database extends PlanDatabase {
+
+        H2Database() {
+            super(H2TestSessionFactory.create("query_plan",
+                Map.of(AvailableSettings.STATEMENT_INSPECTOR, INSPECTOR), ENTITIES));
+        }
+
+        @Override
+        List<String> fullScans(Session session, String sql) {
+            // H2 برای full scan این را در plan می‌نویسد: /* PUBLIC.ORDERS.tableScan */
+            String plan = session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+                    StringBuilder text = new StringBuilder();
+                    while (rs.next()) {
+                        text.append(rs.getString(1)).append('\n');
+                    }
+                    return text.toString();
+                }
+            });
+            return HOT_TABLES.stream()
+                .map(table -> "PUBLIC." + table.toUpperCase(Locale.ROOT) + ".tableScan")
+                .filter(plan::contains)
+                .map(scan -> scan + "\n" + plan)
+                .toList();
+        }
+    }
+
+    private static final class SQLiteDatabase extends PlanDatabase {
+
+        /** SCAN بدون USING یعنی خواندن کل جدول (در SQLite 3.36+ به شکل "SCAN alias") */
+        private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (TABLE )?(\\w+)( AS (\\w+))?$");
+
+        SQLiteDatabase(Path file) {
+            super(sqliteSessionFactory(file));
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.doWork(connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        for (String migration : migrationStatements()) {
+                            statement.execute(migration);
+                        }
+                        statement.execute("ANALYZE");
+                    }
+                });
+                session.getTransaction().commit();
+            }
+        }
+
+        @Override
+        List<String> fullScans(Session session, String sql) {
+            Map<String, String> aliases = tableAliases(sql);
+            return session.doReturningWork(connection -> {
+                List<String> scans = new ArrayList<>();
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+                    while (rs.next()) {
+                        String detail = rs.getString("detail");
+                        var matcher = FULL_SCAN.matcher(detail);
+                        if (matcher.matches()) {
+                            String name = matcher.group(2);
+                            String table = aliases.getOrDefault(name, name);
+                            if (HOT_TABLES.contains(table)) {
+                                scans.add(detail + " (" + table + ")");
+                            }
+                        }
+                    }
+                }
+                return scans;
+            });
+        }
+
+        /** نگاشت alias های Hibernate (مثل o1_0) به نام جدول */
+        private static Map<String, String> tableAliases(String sql) {
+            Map<String, String> aliases = new java.util.HashMap<>();
+            var matcher = Pattern.compile("(?:from|join|update)\\s+(\\w+)\\s+(\\w+)", Pattern.CASE_INSENSITIVE)
+                .matcher(sql);
+            while (matcher.find()) {
+                aliases.put(matcher.group(2), matcher.group(1));
+            }
+            return aliases;
+        }
+
+        private static SessionFactory sqliteSessionFactory(Path file) {
+            Configuration configuration = new Configuration()
+                .setProperty("hibernate.connection.driver_class", "org.sqlite.JDBC")
+                .setProperty("hibernate.connection.url", "jdbc:sqlite:" + file)
+                .setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect")
+                .setProperty("hibernate.connection.pool_size", "5")
+                .setProperty("hibernate.hbm2ddl.auto", "create")
+                .setProperty("hibernate.current_session_context_class", "thread")
+                .setProperty("hibernate.show_sql", "false");
+            configuration.getProperties().put(AvailableSettings.STATEMENT_INSPECTOR, INSPECTOR);
+            for (Class<?> entity : ENTITIES) {
+                configuration.addAnnotatedClass(entity);
+            }
+            return configuration.buildSessionFactory();
+        }
+    }
+
+    // ==================== H2 ====================
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @DisplayName("H2 Entity Index Tests")
+    class H2PlanTests extends RepositoryPlanChecks {
+
+        @BeforeAll
+        void setUpDatabase() {
+            database = new H2Database();
+            try (Session session = database.sessionFactory.openSession()) {
+                session.doWork(connection -> {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("ANALYZE");
+                    }
+                });
+            }
+        }
+
+        @AfterAll
+        void tearDownDatabase() {
+            database.close();
+        }
+    }
+
+    // ==================== SQLite ====================
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @DisplayName("SQLite Migration Index Tests")
+    class SQLitePlanTests extends RepositoryPlanChecks {
+
+        private Path file;
+
+        @BeforeAll
+        void setUpDatabase() throws IOException {
+            file = Files.createTempFile("query_plan", ".db");
+            database = new SQLiteDatabase(file);
+        }
+
+        @AfterAll
+        void tearDownDatabase() throws IOException {
+            if (database != null) {
+                database.close();
+            }
+            Files.deleteIfExists(file);
+        }
+
+        @Test
+        @DisplayName("unread notifications use the partial index from the migrations")
+        void partialIndex_isUsed() {
+            assertUsesIndex("idx_notification_user_unread",
+                () -> database.notifications.findUnreadByUserId(database.seed.customerId));
+        }
+
+        private void assertUsesIndex(String index, Runnable work) {
+            List<String> plans = new ArrayList<>();
+            synchronized (CAPTURED) {
+                CAPTURED.clear();
+                capturing = true;
+                try {
+                    work.run();
+                } finally {
+                    capturing = false;
+                }
+                try (Session session = database.sessionFactory.openSession()) {
+                    for (String sql : CAPTURED) {
+                        plans.add(session.doReturningWork(connection -> {
+                            try (Statement statement = connection.createStatement();
+                                 ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+                                StringBuilder text = new StringBuilder();
+                                while (rs.next()) {
+                                    text.append(rs.getString("detail")).append('\n');
+                                }
+                                return sql + "\n  " + text;
+                            }
+                        }));
+                    }
+                }
+            }
+            assertTrue(plans.stream().anyMatch(plan -> plan.contains(index)),
+                       "expected " + index + " in:\n" + String.join("\n", plans));
+        }
+    }
+
+    // ==================== کوئری‌های بررسی شده ====================
+
+    /**
+     * کوئری‌های پرتکرار هر repository (برای هر دو دیتابیس)
+     */
+    abstract static class RepositoryPlanChecks {
+
+        PlanDatabase database;
+
+        @Test
+        @DisplayName("order lists by customer, restaurant and status")
+        void orderQueries() {
+            Seed seed = database.seed;
+            database.assertIndexed("OrderRepository.findByCustomerAndStatus",
+                () -> database.orders.findByCustomerAndStatus(seed.customerId, OrderStatus.DELIVERED));
+            database.assertIndexed("OrderRepository.findByRestaurantAndStatus",
+                () -> database.orders.findByRestaurantAndStatus(seed.restaurantId, OrderStatus.PENDING));
+            database.assertIndexed("OrderRepository.findByCustomer",
+                () -> database.orders.findByCustomer(seed.customerId));
+            database.assertIndexed("OrderRepository.findPendingOrders",
+                () -> database.orders.findPendingOrders());
+        }
+
+        @Test
+        @DisplayName("transaction lists, wallet sums and user statistics")
+        void transactionQueries() {
+            Seed seed = database.seed;
+            database.assertIndexed("PaymentRepository.findByUserIdAndType",
+                () -> database.payments.findByUserIdAndType(seed.customerId, TransactionType.PAYMENT));
+            database.assertIndexed("PaymentRepository.findByUserIdAndStatus",
+                () -> database.payments.findByUserIdAndStatus(seed.customerId, TransactionStatus.COMPLETED));
+            database.assertIndexed("PaymentRepository.findByType",
+                () -> database.payments.findByType(TransactionType.REFUND));
+            database.assertIndexed("PaymentRepository.calculateWalletBalanceFromTransactions",
+                () -> database.payments.calculateWalletBalanceFromTransactions(seed.customerId));
+            database.assertIndexed("PaymentRepository.getUserTransactionStatistics",
+                () -> database.payments.getUserTransactionStatistics(seed.customerId));
+        }
+
+        @Test
+        @DisplayName("unread notifications and unread counts")
+        void notificationQueries() {
+            Seed seed = database.seed;
+            database.assertIndexed("NotificationRepository.findUnreadByUserId",
+                () -> database.notifications.findUnreadByUserId(seed.customerId));
+            database.assertIndexed("NotificationRepository.getUnreadCount",
+                () -> database.notifications.getUnreadCount(seed.customerId));
+            database.assertIndexed("NotificationRepository.getNotificationStatsByType",
+                () -> database.notifications.getNotificationStatsByType(seed.customerId));
+        }
+
+        @Test
+        @DisplayName("courier deliveries by status and the pending queue")
+        void deliveryQueries() {
+            Seed seed = database.seed;
+            database.assertIndexed("DeliveryRepository.findActiveByCourier",
+                () -> database.deliveries.findActiveByCourier(seed.courierId));
+            database.assertIndexed("DeliveryRepository.findByCourierAndStatus",
+                () -> database.deliveries.findByCourierAndStatus(seed.courierId, DeliveryStatus.DELIVERED));
+            database.assertIndexed("DeliveryRepository.countByCourierAndStatus",
+                () -> database.deliveries.countByCourierAndStatus(seed.courierId, DeliveryStatus.ASSIGNED));
+            database.assertIndexed("DeliveryRepository.getCourierStatistics",
+                () -> database.deliveries.getCourierStatistics(seed.courierId));
+            database.assertIndexed("DeliveryRepository.findPendingDeliveries",
+                () -> database.deliveries.findPendingDeliveries());
+        }
+
+        @Test
+        @DisplayName("restaurant menu and category filters")
+        void foodItemQueries() {
+            Seed seed = database.seed;
+            database.assertIndexed("ItemRepository.findAvailableByRestaurant",
+                () -> database.items.findAvailableByRestaurant(seed.restaurantId));
+            database.assertIndexed("ItemRepository.countAvailableByRestaurant",
+                () -> database.items.countAvailableByRestaurant(seed.restaurantId));
+            database.assertIndexed("ItemRepository.findByRestaurant",
+                () -> database.items.findByRestaurant(seed.restaurantId));
+            database.assertIndexed("ItemRepository.findByCategory",
+                () -> database.items.findByCategory("Category3"));
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    /**
+     * داده نمونه با توزیع نزدیک به محیط واقعی (بیشتر سفارش‌ها تحویل شده، بیشتر اعلان‌ها خوانده شده)
+     */
+    private static final class Seed {
+        Long customerId;
+        Long courierId;
+        Long restaurantId;
+
+        static Seed populate(SessionFactory sessionFactory) {
+            Seed seed = new Seed();
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                LocalDateTime now = LocalDateTime.now();
+
+                List<User> customers = new ArrayList<>();
+                for (int i = 0; i < 40; i++) {
+                    User customer = User.forRegistration("Customer " + i, String.format("0912%07d", i),
+                        "c" + i + "@test.com", "hash", "Tehran");
+                    session.persist(customer);
+                    customers.add(customer);
+                }
+                List<User> couriers = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    User courier = User.forRegistration("Courier " + i, String.format("0935%07d", i),
+                        "k" + i + "@test.com", "hash", "Tehran");
+                    courier.setRole(User.Role.COURIER);
+                    session.persist(courier);
+                    couriers.add(courier);
+                }
+                List<Restaurant> restaurants = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    Restaurant restaurant = Restaurant.forRegistration((long) i + 1, "Restaurant " + i,
+                        "Tehran", String.format("021%08d", i));
+                    session.persist(restaurant);
+                    restaurants.add(restaurant);
+                }
+                List<FoodItem> items = new ArrayList<>();
+                for (int i = 0; i < 300; i++) {
+                    FoodItem item = FoodItem.forMenu("Item " + i, "Item " + i, 100.0 + i,
+                        "Category" + (i % 20), restaurants.get(i % restaurants.size()));
+                    item.setQuantity(i % 7 == 0 ? 0 : 10);
+                    item.setAvailable(i % 5 != 0);
+                    session.persist(item);
+                    items.add(item);
+                }
+
+                OrderStatus[] orderStatuses = OrderStatus.values();
+                List<Order> orders = new ArrayList<>();
+                for (int i = 0; i < 1500; i++) {
+                    Order order = Order.createNew(customers.get(i % customers.size()),
+                        restaurants.get(i % restaurants.size()), "Address " + i, "09120000000");
+                    order.setStatus(i % 4 == 0 ? orderStatuses[i % orderStatuses.length] : OrderStatus.DELIVERED);
+                    order.setOrderDate(now.minusMinutes(i));
+                    session.persist(order);
+                    FoodItem item = items.get(i % items.size());
+                    session.persist(new OrderItem(order, item, 1, item.getPrice()));
+                    orders.add(order);
+                }
+
+                DeliveryStatus[] deliveryStatuses = DeliveryStatus.values();
+                for (int i = 0; i < 600; i++) {
+                    Delivery delivery = new Delivery(orders.get(i), 20.0);
+                    if (i % 10 != 0) {
+                        delivery.assignToCourier(couriers.get(i % couriers.size()));
+                        delivery.setAssignedAt(now.minusMinutes(i));
+                        delivery.setStatus(i % 3 == 0 ? deliveryStatuses[i % deliveryStatuses.length]
+                                                      : DeliveryStatus.DELIVERED);
+                    }
+                    session.persist(delivery);
+                }
+
+                TransactionType[] types = TransactionType.values();
+                for (int i = 0; i < 3000; i++) {
+                    Long userId = customers.get(i % customers.size()).getId();
+                    Transaction transaction = switch (types[i % types.length]) {
+                        case PAYMENT -> Transaction.forPayment(userId, orders.get(i % orders.size()).getId(), 50.0, "CARD");
+                        case REFUND -> Transaction.forRefund(userId, orders.get(i % orders.size()).getId(), 50.0, "test");
+                        case WALLET_WITHDRAWAL -> Transaction.forWalletWithdrawal(userId, 10.0, "test");
+                        default -> Transaction.forWalletCharge(userId, 20.0, "CARD");
+                    };
+                    transaction.setStatus(i % 6 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED);
+                    transaction.setCreatedAt(now.minusMinutes(i));
+                    session.persist(transaction);
+                }
+
+                for (int i = 0; i < 3000; i++) {
+                    Notification notification = new Notification(customers.get(i % customers.size()).getId(),
+                        "Title " + i, "Message " + i, Notification.NotificationType.ORDER_CREATED);
+                    notification.setCreatedAt(now.minusMinutes(i));
+                    if (i % 10 != 0) {
+                        notification.markAsRead();
+                    }
+                    session.persist(notification);
+                }
+
+                session.getTransaction().commit();
+                seed.customerId = customers.get(0).getId();
+                seed.courierId = couriers.get(1).getId();
+                seed.restaurantId = restaurants.get(0).getId();
+            }
+            return seed;
+        }
+    }
+
+    /**
+     * دستورات migration های SQLite به ترتیب نسخه
+     */
+    private static List<String> migrationStatements() {
+        URL directory = QueryPlanRegressionTest.class.getClassLoader().getResource("db/migrations/sqlite");
+        assertNotNull(directory, "db/migrations/sqlite not found on classpath");
+        try (Stream<Path> files = Files.list(Paths.get(directory.toURI()))) {
+            List<String> statements = new ArrayList<>();
+            for (Path file : files.filter(f -> f.toString().endsWith(".sql")).sorted().toList()) {
+                String sql;
+                try (InputStream in = Files.newInputStream(file)) {
+                    sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                String withoutComments = sql.lines()
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+                for (String statement : withoutComments.split(";")) {
+                    if (!statement.isBlank()) {
+                        statements.add(statement.trim());
+                    }
+                }
+            }
+            return statements;
+        } catch (IOException | URISyntaxException e) {
+            throw new IllegalStateException("Cannot read migrations", e);
+        }
+    }
+}
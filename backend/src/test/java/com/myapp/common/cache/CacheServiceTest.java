@@ -0,0 +1,277 @@
+package com.myapp.common.cache;
+
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * تست‌های cache دو لایه (L1 درون پردازه‌ای + Redis)
+ */
+@DisplayName("CacheService Two-Tier Tests")
+class CacheServiceTest {
+
+    private RedisCacheManager redis;
+    private AtomicLong now;
+    private LocalCache localCache;
+    private CacheService cacheService;
+    private Consumer<String> invalidationListener;
+    private Runnable onSubscribed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(RedisCacheManager.class);
+        now = new AtomicLong(1_000L);
+        localCache = new LocalCache(100, 1000, LocalCache.DEFAULT_WEIGHER, now::get);
+        cacheService = new CacheService(redis, localCache, 60_000, 30_000);
+
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        ArgumentCaptor<Runnable> subscribed = ArgumentCaptor.forClass(Runnable.class);
+        verify(redis).subscribe(eq(CacheService.INVALIDATION_CHANNEL), listener.capture(), subscribed.capture());
+        invalidationListener = listener.getValue();
+        onSubscribed = subscribed.getValue();
+    }
+
+    @Test
+    @DisplayName("L1 hit is served without touching Redis")
+    void getRestaurant_l1Hit_skipsRedis() {
+        Restaurant restaurant = restaurant(1L);
+        AtomicInteger loads = new AtomicInteger();
+
+        cacheService.getRestaurant(1L, () -> { loads.incrementAndGet(); return restaurant; });
+        Restaurant second = cacheService.getRestaurant(1L, () -> { loads.incrementAndGet(); return restaurant; });
+
+        assertThat(second).isSameAs(restaurant);
+        assertThat(loads.get()).isEqualTo(1);
+        verify(redis, times(1)).get("restaurant:1", Restaurant.class);
+        verify(redis).set(eq("restaurant:1"), eq(restaurant), anyInt());
+    }
+
+    @Test
+    @DisplayName("L2 hit fills L1 so the next read stays local")
+    void getMenuItems_l2Hit_populatesL1() {
+        List<FoodItem> menu = List.of(new FoodItem());
+        when(redis.getList("menu:5", FoodItem.class)).thenReturn(menu);
+
+        assertThat(cacheService.getMenuItems(5L, List::of)).isSameAs(menu);
+        assertThat(cacheService.getMenuItems(5L, List::of)).isSameAs(menu);
+
+        verify(redis, times(1)).getList("menu:5", FoodItem.class);
+    }
+
+    @Test
+    @DisplayName("with Redis unavailable the cache degrades to L1 only")
+    void getItem_redisDown_usesL1() {
+        // mock پیش‌فرض: get ها null و set ها false مانند RedisCacheManager در زمان قطعی
+        FoodItem item = new FoodItem();
+        item.setId(7L);
+        AtomicInteger loads = new AtomicInteger();
+
+        cacheService.getItem(7L, () -> { loads.incrementAndGet(); return item; });
+        FoodItem cached = cacheService.getItem(7L, () -> { loads.incrementAndGet(); return item; });
+
+        assertThat(cached).isSameAs(item);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("invalidation clears L1 and is broadcast to other nodes")
+    void invalidateMenu_publishesInvalidation() {
+        cacheService.cacheMenuItems(5L, List.of(new FoodItem()));
+
+        cacheService.invalidateMenu(5L);
+
+        assertThat(localCache.containsKey("menu:5")).isFalse();
+        verify(redis).delete("menu:5");
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redis).publish(eq(CacheService.INVALIDATION_CHANNEL), message.capture());
+        assertThat(message.getValue()).endsWith(" menu:5");
+    }
+
+    @Test
+    @DisplayName("invalidations from other nodes evict L1 entries and prefixes")
+    void remoteInvalidation_evictsL1() {
+        cacheService.cacheRestaurant(restaurant(1L));
+        cacheService.cacheRestaurantList("popular", List.of(restaurant(2L)));
+        cacheService.cacheRestaurantList("new", List.of(restaurant(3L)));
+
+        invalidationListener.accept("other-node restaurant:1");
+        invalidationListener.accept("other-node restaurant:list:*");
+
+        assertThat(localCache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("registered listeners receive remote keys and a wildcard after (re)subscribing")
+    void invalidationListeners_receiveRemoteKeys() {
+        List<String> received = new ArrayList<>();
+        cacheService.addInvalidationListener(received::add);
+        cacheService.cacheRestaurant(restaurant(1L));
+
+        invalidationListener.accept("other-node item:7");
+        cacheService.invalidateItem(8L);  // پیام خود این node به شنونده‌ها نمی‌رسد
+        onSubscribed.run();
+
+        assertThat(received).containsExactly("item:7", "*");
+        assertThat(localCache.size()).isZero();
+        verify(redis).delete("item:8");
+    }
+
+    @Test
+    @DisplayName("own invalidation messages are ignored")
+    void ownInvalidation_isIgnored() {
+        cacheService.cacheRestaurant(restaurant(1L));
+        cacheService.invalidateMenu(9L);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redis).publish(anyString(), message.capture());
+        cacheService.cacheMenuItems(9L, List.of(new FoodItem()));
+
+        invalidationListener.accept(message.getValue());
+
+        assertThat(localCache.containsKey("menu:9")).isTrue();
+    }
+
+    @Test
+    @DisplayName("concurrent misses for one key run the fallback once")
+    void getMenuItems_concurrentMisses_coalesced() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<FoodItem> menu = List.of(new FoodItem());
+        when(redis.getList("menu:5", FoodItem.class)).thenReturn(null);
+        Supplier<List<FoodItem>> slowFallback = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return menu;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<FoodItem>>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cacheService.getMenuItems(5L, slowFallback)));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> cacheService.getMenuItems(5L, slowFallback)));
+            }
+            waitForCoalesced(3);
+            release.countDown();
+
+            for (Future<List<FoodItem>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(menu);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        verify(redis, times(1)).set(eq("menu:5"), eq(menu), anyInt());
+    }
+
+    @Test
+    @DisplayName("expired catalog entries are served stale while one background refresh runs")
+    void getRestaurant_staleWhileRevalidate() throws Exception {
+        Restaurant old = restaurant(1L);
+        Restaurant fresh = restaurant(1L);
+        cacheService.getRestaurant(1L, () -> old);
+        now.addAndGet(60_000);  // بعد از TTL و داخل پنجره stale
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        Restaurant served = cacheService.getRestaurant(1L, () -> { refreshed.countDown(); return fresh; });
+
+        assertThat(served).isSameAs(old);
+        assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+        waitUntil(() -> localCache.lookup("restaurant:1", Restaurant.class).getValue() == fresh);
+        assertThat(cacheService.getRestaurant(1L, () -> null)).isSameAs(fresh);
+        assertThat(loadStats()).containsEntry("staleServed", 1L);
+    }
+
+    @Test
+    @DisplayName("user entries are never served stale")
+    void getUser_expired_reloadsSynchronously() {
+        User first = new User();
+        first.setId(3L);
+        User second = new User();
+        second.setId(3L);
+        cacheService.getUser(3L, () -> first);
+        now.addAndGet(60_000);
+
+        assertThat(cacheService.getUser(3L, () -> second)).isSameAs(second);
+    }
+
+    @Test
+    @DisplayName("a load finishing after invalidation does not repopulate the cache")
+    void invalidationDuringLoad_discardsResult() {
+        Restaurant restaurant = restaurant(1L);
+
+        Restaurant loaded = cacheService.getRestaurant(1L, () -> {
+            cacheService.invalidateRestaurant(1L);
+            return restaurant;
+        });
+
+        assertThat(loaded).isSameAs(restaurant);
+        assertThat(localCache.containsKey("restaurant:1")).isFalse();
+        verify(redis, never()).set(eq("restaurant:1"), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("statistics expose both tiers")
+    void getCacheStatistics_reportsBothTiers() {
+        assertThat(cacheService.getCacheStatistics()).containsKeys("l1", "l2");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> loadStats() {
+        return (Map<String, Object>) cacheService.getCacheStatistics().get("loads");
+    }
+
+    private void waitForCoalesced(long expected) throws InterruptedException {
+        waitUntil(() -> ((Number) loadStats().get("coalescedLoads")).longValue() >= expected);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Restaurant restaurant(Long id) {
+        Restaurant restaurant = Restaurant.forRegistration(1L, "Restaurant " + id, "Tehran", "02100000000");
+        restaurant.setId(id);
+        return restaurant;
+    }
+}
@@ -0,0 +1,140 @@
+package com.myapp.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * تست‌های کش درون پردازه‌ای (LocalCache)
+ */
+@DisplayName("LocalCache Tests")
+class LocalCacheTest {
+
+    private AtomicLong now;
+    private LocalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000L);
+        cache = new LocalCache(3, 10, LocalCache.DEFAULT_WEIGHER, now::get);
+    }
+
+    @Test
+    @DisplayName("entries are served until their TTL expires")
+    void get_beforeAndAfterTtl() {
+        cache.put("a", "A", 1000);
+
+        assertThat(cache.get("a", String.class)).isEqualTo("A");
+        now.addAndGet(1000);
+        assertThat(cache.get("a", String.class)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("lookup returns expired entries as stale until the stale window ends")
+    void lookup_withinStaleWindow_returnsStale() {
+        cache.put("a", "A", 1000, 500, 20);
+
+        assertThat(cache.lookup("a", String.class).isStale()).isFalse();
+        assertThat(cache.lookup("a", String.class).getLoadMillis()).isEqualTo(20);
+        now.addAndGet(1000);
+        assertThat(cache.get("a", String.class)).isNull();
+        assertThat(cache.lookup("a", String.class).isStale()).isTrue();
+        now.addAndGet(500);
+        assertThat(cache.lookup("a", String.class)).isNull();
+        assertThat(cache.getStaleHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("least recently used entry is evicted when the entry limit is reached")
+    void put_overCapacity_evictsLeastRecentlyUsed() {
+        cache.put("a", "A", 10_000);
+        cache.put("b", "B", 10_000);
+        cache.put("c", "C", 10_000);
+        cache.get("a", String.class);
+
+        cache.put("d", "D", 10_000);
+
+        assertThat(cache.containsKey("a")).isTrue();
+        assertThat(cache.containsKey("b")).isFalse();
+        assertThat(cache.containsKey("d")).isTrue();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("heavy values evict older entries to stay within the weight limit")
+    void put_overWeight_evicts() {
+        cache.put("small", "S", 10_000);
+        cache.put("menu1", List.of(1, 2, 3, 4, 5), 10_000);
+        cache.put("menu2", List.of(1, 2, 3, 4, 5), 10_000);
+
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(10);
+        assertThat(cache.containsKey("small")).isFalse();
+        assertThat(cache.containsKey("menu2")).isTrue();
+
+        // مقداری سنگین‌تر از کل بودجه ذخیره نمی‌شود
+        cache.put("huge", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), 10_000);
+        assertThat(cache.containsKey("huge")).isFalse();
+    }
+
+    @Test
+    @DisplayName("entry of unexpected type is dropped and counted as a miss")
+    void get_wrongType_returnsNull() {
+        cache.put("a", 42, 10_000);
+
+        assertThat(cache.get("a", String.class)).isNull();
+        assertThat(cache.containsKey("a")).isFalse();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("prefix invalidation removes only matching keys")
+    void invalidatePrefix_removesMatchingKeys() {
+        cache.put("restaurant:list:a", "A", 10_000);
+        cache.put("restaurant:list:b", "B", 10_000);
+        cache.put("restaurant:1", "R", 10_000);
+
+        assertThat(cache.invalidatePrefix("restaurant:list:")).isEqualTo(2);
+        assertThat(cache.containsKey("restaurant:1")).isTrue();
+        assertThat(cache.weightedSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("statistics report hits and misses")
+    void statistics_trackHitsAndMisses() {
+        cache.put("a", "A", 10_000);
+        cache.get("a", String.class);
+        cache.get("a", String.class);
+        cache.get("missing", String.class);
+
+        assertThat(cache.getStatistics())
+            .containsEntry("cacheHits", 2L)
+            .containsEntry("cacheMisses", 1L)
+            .containsEntry("hitRate", String.format("%.2f%%", 200.0 / 3));
+    }
+
+    @Test
+    @DisplayName("large caches are split into segments and stay bounded")
+    void largeCache_staysBounded() {
+        LocalCache large = new LocalCache(1024, 1024, LocalCache.DEFAULT_WEIGHER, now::get);
+        for (int i = 0; i < 5000; i++) {
+            large.put("key" + i, i, 10_000);
+        }
+
+        assertThat(large.size()).isLessThanOrEqualTo(1024);
+        assertThat((Integer) large.getStatistics().get("segments")).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("non-positive limits are rejected")
+    void constructor_invalidLimits() {
+        assertThatThrownBy(() -> new LocalCache(0, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,162 @@
+package com.myapp.common.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * تست‌های کش snapshot آمار (SnapshotCache)
+ */
+@DisplayName("SnapshotCache Tests")
+class SnapshotCacheTest {
+
+    private AtomicLong now;
+    private SnapshotCache<String, String> cache;
+    private AtomicInteger loads;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000L);
+        cache = new SnapshotCache<>(1000, 3, now::get);
+        loads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("snapshots are served until the TTL expires and then reloaded")
+    void get_beforeAndAfterTtl() {
+        assertThat(cache.get("a", () -> "A" + loads.incrementAndGet())).isEqualTo("A1");
+        now.addAndGet(999);
+        assertThat(cache.get("a", () -> "A" + loads.incrementAndGet())).isEqualTo("A1");
+        now.addAndGet(1);
+        assertThat(cache.get("a", () -> "A" + loads.incrementAndGet())).isEqualTo("A2");
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("loads", 2L);
+    }
+
+    @Test
+    @DisplayName("concurrent callers without a snapshot wait for a single load")
+    void get_coldKey_loadsOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> cache.get("a", () -> {
+            loading.countDown();
+            await(release);
+            return "A" + loads.incrementAndGet();
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiters.add(executor.submit(() -> cache.get("a", () -> "A" + loads.incrementAndGet())));
+        }
+        waitUntil(() -> (Long) cache.getStats().get("coalescedLoads") == 5L);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("A1");
+        for (Future<String> waiter : waiters) {
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("A1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("while one caller refreshes an expired snapshot the others get the previous one")
+    void get_expiredDuringRefresh_servesPreviousSnapshot() throws Exception {
+        cache.get("a", () -> "old");
+        now.addAndGet(1000);
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> refresher = executor.submit(() -> cache.get("a", () -> {
+            loading.countDown();
+            await(release);
+            return "new";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(cache.get("a", () -> "unexpected")).isEqualTo("old");
+        release.countDown();
+        assertThat(refresher.get(5, TimeUnit.SECONDS)).isEqualTo("new");
+        assertThat(cache.get("a", () -> "unexpected")).isEqualTo("new");
+        assertThat(cache.getStats()).containsEntry("staleServed", 1L);
+    }
+
+    @Test
+    @DisplayName("a failed load is rethrown and the next call retries")
+    void get_loaderFails_retriedOnNextCall() {
+        assertThatThrownBy(() -> cache.get("a", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+
+        assertThat(cache.get("a", () -> "A")).isEqualTo("A");
+        assertThat(cache.getStats()).containsEntry("loadFailures", 1L).containsEntry("loads", 2L);
+    }
+
+    @Test
+    @DisplayName("a load finishing after invalidate is returned but not cached")
+    void invalidate_duringLoad_resultNotStored() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> cache.get("a", () -> {
+            loading.countDown();
+            await(release);
+            return "before";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        cache.invalidate("a");
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(cache.get("a", () -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    @DisplayName("the number of keys stays within the limit")
+    void get_overCapacity_evicts() {
+        for (int i = 0; i < 10; i++) {
+            String key = "k" + i;
+            cache.get(key, () -> key);
+        }
+
+        assertThat(cache.getStats()).containsEntry("entries", 3);
+        assertThat(cache.get("k9", () -> "reloaded")).isEqualTo("k9");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,74 @@
+package com.myapp.common.events;
+
+import com.myapp.common.events.EventBus.Event;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های گذرگاه رویدادهای درون process
+ */
+@DisplayName("EventBus Tests")
+class EventBusTest {
+
+    private final EventBus bus = new EventBus(4);
+
+    @Test
+    @DisplayName("subscribers receive only their own and broadcast events")
+    void publish_deliversToMatchingSubscribers() {
+        List<Event> received = new ArrayList<>();
+        EventBus.Subscription subscription = bus.subscribe(1L, received::add);
+
+        bus.publish(1L, "order-status", Map.of("orderId", 10));
+        bus.publish(2L, "order-status", Map.of("orderId", 11));
+        bus.publishToAll("notification", Map.of("title", "Offer"));
+        subscription.close();
+        bus.publish(1L, "order-status", Map.of("orderId", 12));
+
+        assertThat(received).extracting(Event::type).containsExactly("order-status", "notification");
+        assertThat(received.get(0).data()).isEqualTo("{\"orderId\":10}");
+        assertThat(bus.getStatistics()).containsEntry("subscribedUsers", 0);
+    }
+
+    @Test
+    @DisplayName("resuming after an id replays the missed events of the user before live ones")
+    void subscribe_afterId_replaysMissedEvents() {
+        Event first = bus.publish(1L, "a", Map.of());
+        bus.publish(2L, "b", Map.of());
+        bus.publish(1L, "c", Map.of());
+
+        List<Event> received = new ArrayList<>();
+        EventBus.Subscription subscription = bus.subscribe(1L, first.id(), received::add);
+        bus.publish(1L, "d", Map.of());
+
+        assertThat(subscription.isReplayComplete()).isTrue();
+        assertThat(received).extracting(Event::type).containsExactly("c", "d");
+    }
+
+    @Test
+    @DisplayName("resuming from an id that left the ring reports an incomplete replay")
+    void subscribe_afterEvictedId_isIncomplete() {
+        Event first = bus.publish(1L, "a", Map.of());
+        for (int i = 0; i < 5; i++) {
+            bus.publish(1L, "x", Map.of());
+        }
+
+        assertThat(bus.subscribe(1L, first.id(), event -> { }).isReplayComplete()).isFalse();
+        assertThat(bus.subscribe(1L, bus.getLastEventId() + 10, event -> { }).isReplayComplete()).isFalse();
+        assertThat(bus.eventsAfter(1L, bus.getLastEventId() - 2)).get().asList().hasSize(2);
+    }
+
+    @Test
+    @DisplayName("a failing subscriber or a null user never breaks the publisher")
+    void publish_isolatesFailures() {
+        bus.subscribe(1L, event -> { throw new IllegalStateException("boom"); });
+
+        assertThat(bus.publish(1L, "a", Map.of())).isNotNull();
+        assertThat(bus.publish(null, "a", Map.of())).isNull();
+    }
+}
@@ -0,0 +1,147 @@
+package com.myapp.common.http;
+
+import com.myapp.common.utils.JsonUtil;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های نوشتن جریانی پاسخ JSON روی یک HttpServer واقعی
+ */
+@DisplayName("JsonResponseWriter Tests")
+@Timeout(20)
+class JsonResponseWriterTest {
+
+    private HttpServer server;
+    private JsonResponseWriter writer;
+    private volatile Object body;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writer = new JsonResponseWriter(1024, 4);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/json", exchange -> writer.write(exchange, 200, body));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("small responses are sent with Content-Length and without compression")
+    void smallResponseIsBuffered() throws IOException {
+        body = Map.of("count", 3);
+
+        HttpURLConnection connection = open("gzip");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("{\"count\":3}".length(), connection.getContentLengthLong());
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals("{\"count\":3}", read(connection.getInputStream()));
+        assertEquals(1L, writer.getStats().get("buffered"));
+    }
+
+    @Test
+    @DisplayName("large responses are streamed chunked and gzipped when accepted")
+    void largeResponseIsStreamedWithGzip() throws IOException {
+        body = rows(500);
+
+        HttpURLConnection connection = open("gzip, deflate");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        assertEquals(JsonUtil.toJson(body), read(new GZIPInputStream(connection.getInputStream())));
+        assertEquals(1L, writer.getStats().get("compressed"));
+    }
+
+    @Test
+    @DisplayName("large responses are streamed uncompressed when gzip is not accepted")
+    void largeResponseWithoutGzip() throws IOException {
+        body = rows(500);
+
+        HttpURLConnection connection = open("gzip;q=0");
+
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals(JsonUtil.toJson(body), read(connection.getInputStream()));
+        assertEquals(0L, writer.getStats().get("compressed"));
+    }
+
+    @Test
+    @DisplayName("buffers are returned to the pool after each response")
+    void buffersAreReused() throws IOException {
+        body = rows(500);
+        for (int i = 0; i < 3; i++) {
+            read(open(null).getInputStream());
+        }
+        // بافر بعد از بسته شدن پاسخ برگردانده می‌شود
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!Integer.valueOf(1).equals(writer.getStats().get("pooledBuffers"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertEquals(1, writer.getStats().get("pooledBuffers"));
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding parsing honours q=0 and wildcards")
+    void acceptsGzip() {
+        assertTrue(JsonResponseWriter.acceptsGzip(headers("gzip")));
+        assertTrue(JsonResponseWriter.acceptsGzip(headers("br, gzip;q=0.5")));
+        assertTrue(JsonResponseWriter.acceptsGzip(headers("*")));
+        assertFalse(JsonResponseWriter.acceptsGzip(headers("gzip;q=0")));
+        assertFalse(JsonResponseWriter.acceptsGzip(headers("identity")));
+        assertFalse(JsonResponseWriter.acceptsGzip(new Headers()));
+        assertFalse(JsonResponseWriter.acceptsGzip(null));
+    }
+
+    private HttpURLConnection open(String acceptEncoding) throws IOException {
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/json");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (acceptEncoding != null) {
+            connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        }
+        return connection;
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Map.of("id", i, "title", "سفارش " + i));
+        }
+        return rows;
+    }
+
+    private static Headers headers(String acceptEncoding) {
+        Headers headers = new Headers();
+        headers.add("Accept-Encoding", acceptEncoding);
+        return headers;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.myapp.common.http;
+
+import com.myapp.auth.dto.LoginRequest;
+import com.myapp.common.exceptions.InvalidRequestException;
+import com.myapp.common.exceptions.InvalidRequestException.Reason;
+import com.myapp.order.dto.CreateOrderRequest;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * تست‌های خواندن بدنه درخواست با parser جریانی
+ */
+@DisplayName("RequestBodyDecoder Tests")
+class RequestBodyDecoderTest {
+
+    private final RequestBodyDecoder decoder = new RequestBodyDecoder(256);
+
+    @Test
+    @DisplayName("binds a typed DTO, including values with commas and colons")
+    void bindsDto() throws IOException {
+        CreateOrderRequest request = decoder.read(body(
+            "{\"customerId\":7,\"restaurantId\":\"3\",\"deliveryAddress\":\"Tehran, Valiasr St: No 5\"," +
+            "\"phone\":\"09123456789\",\"unknown\":{\"nested\":[1,2]}}"), CreateOrderRequest.class);
+
+        assertEquals(7L, request.getCustomerId());
+        assertEquals(3L, request.getRestaurantId());
+        assertEquals("Tehran, Valiasr St: No 5", request.getDeliveryAddress());
+        assertEquals("09123456789", request.getPhone());
+    }
+
+    @Test
+    @DisplayName("login body binds password to LoginRequest")
+    void bindsLoginRequest() throws IOException {
+        LoginRequest request = decoder.read(body("{\"phone\":\"09123456789\",\"password\":\"secret\"}"),
+                                            LoginRequest.class);
+
+        assertEquals("09123456789", request.getPhone());
+        assertEquals("secret", request.getPasswordHash());
+    }
+
+    @Test
+    @DisplayName("maps keep nested objects and empty bodies yield an empty map")
+    void readsMaps() throws IOException {
+        Map<String, Object> map = decoder.readMap(body("{\"reason\":\"late, cold\",\"items\":[{\"id\":1}]}"));
+
+        assertEquals("late, cold", map.get("reason"));
+        assertEquals(List.of(Map.of("id", 1)), map.get("items"));
+        assertTrue(decoder.readMap(body("  ")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("type mismatches are reported with the field name")
+    void invalidField() {
+        InvalidRequestException e = assertThrows(InvalidRequestException.class,
+            () -> decoder.read(body("{\"customerId\":\"abc\"}"), CreateOrderRequest.class));
+
+        assertEquals(Reason.INVALID_FIELD, e.getReason());
+        assertEquals("customerId", e.getField());
+        assertEquals(400, e.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("malformed JSON, trailing content and empty DTO bodies are rejected")
+    void malformedBody() {
+        assertEquals(Reason.MALFORMED_BODY, assertThrows(InvalidRequestException.class,
+            () -> decoder.readMap(body("{\"a\":"))).getReason());
+        assertEquals(Reason.MALFORMED_BODY, assertThrows(InvalidRequestException.class,
+            () -> decoder.readMap(body("{\"a\":1} {\"b\":2}"))).getReason());
+        assertEquals(Reason.MALFORMED_BODY, assertThrows(InvalidRequestException.class,
+            () -> decoder.read(body(""), LoginRequest.class)).getReason());
+    }
+
+    @Test
+    @DisplayName("bodies above the limit are rejected while reading and from Content-Length")
+    void bodyTooLarge() {
+        String large = "{\"reason\":\"" + "x".repeat(300) + "\"}";
+        InvalidRequestException e = assertThrows(InvalidRequestException.class,
+            () -> decoder.readMap(body(large)));
+        assertEquals(Reason.BODY_TOO_LARGE, e.getReason());
+        assertEquals(413, e.getStatusCode());
+
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers headers = new Headers();
+        headers.add("Content-Length", "100000");
+        when(exchange.getRequestHeaders()).thenReturn(headers);
+        assertEquals(Reason.BODY_TOO_LARGE, assertThrows(InvalidRequestException.class,
+            () -> decoder.readMap(exchange)).getReason());
+        verify(exchange, never()).getRequestBody();
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,130 @@
+package com.myapp.common.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * تست‌های مسیریاب درختی
+ */
+@DisplayName("Router Tests")
+class RouterTest {
+
+    private static final Router.Route NOOP = (exchange, match) -> { };
+
+    @Test
+    @DisplayName("typed parameters are extracted without regex")
+    void extractsTypedParameters() {
+        Router router = new Router()
+            .put("/api/orders/{orderId:long}/items/{itemId:long}", NOOP)
+            .get("/api/orders/status/{status:word}", NOOP)
+            .get("/api/menus/restaurant/{restaurantId:long}/category/{category}", NOOP);
+
+        Router.Match match = router.match("PUT", "/api/orders/42/items/7");
+        assertEquals(Router.Status.FOUND, match.status());
+        assertEquals(42L, match.longParam("orderId"));
+        assertEquals(7L, match.longParam("itemId"));
+
+        assertEquals("PENDING", router.match("GET", "/api/orders/status/PENDING").param("status"));
+        assertEquals("fast-food", router.match("GET", "/api/menus/restaurant/3/category/fast-food").param("category"));
+    }
+
+    @Test
+    @DisplayName("segments that violate the parameter type do not match")
+    void rejectsInvalidSegments() {
+        Router router = new Router()
+            .get("/api/orders/{orderId:long}", NOOP)
+            .get("/api/orders/status/{status:word}", NOOP);
+
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders/abc").status());
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders/12345678901234567890").status());
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders/status/in-progress").status());
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders/").status());
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders//1").status());
+        assertEquals(Router.Status.NOT_FOUND, router.match("GET", "/api/orders/1/extra").status());
+        assertThrows(IllegalArgumentException.class,
+            () -> router.match("GET", "/api/orders/9999999999999999999").longParam("orderId"));
+    }
+
+    @Test
+    @DisplayName("literal segments win over parameters and fall back on backtracking")
+    void literalsBeforeParameters() {
+        Router router = new Router()
+            .get("/api/vendors/{id:long}", NOOP)
+            .get("/api/vendors/featured", NOOP)
+            .get("/api/vendors/{name}/menu", NOOP)
+            .get("/api/vendors/featured/stats", NOOP);
+
+        assertEquals(Router.Status.FOUND, router.match("GET", "/api/vendors/featured").status());
+        assertEquals(12L, router.match("GET", "/api/vendors/12").longParam("id"));
+        // "featured" ثابت است ولی زیرمسیر menu فقط برای پارامتر ثبت شده
+        assertEquals("featured", router.match("GET", "/api/vendors/featured/menu").param("name"));
+        assertEquals(Router.Status.FOUND, router.match("GET", "/api/vendors/featured/stats").status());
+    }
+
+    @Test
+    @DisplayName("known paths with another method report 405 with the allowed methods")
+    void methodNotAllowed() {
+        Router router = new Router()
+            .get("/api/coupons/{id:long}", NOOP)
+            .put("/api/coupons/{id:long}", NOOP)
+            .delete("/api/coupons/{id:long}", NOOP);
+
+        Router.Match match = router.match("POST", "/api/coupons/5");
+        assertEquals(Router.Status.METHOD_NOT_ALLOWED, match.status());
+        assertEquals("GET, PUT, DELETE", match.allowedMethods());
+
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers headers = new Headers();
+        when(exchange.getResponseHeaders()).thenReturn(headers);
+        match.applyAllowHeader(exchange);
+        assertEquals("GET, PUT, DELETE", headers.getFirst("Allow"));
+
+        assertEquals(Router.Status.NOT_FOUND, router.match("POST", "/api/unknown").status());
+    }
+
+    @Test
+    @DisplayName("the method-specific route is preferred over a route of another method")
+    void prefersRouteForRequestMethod() {
+        Router router = new Router()
+            .get("/api/vendors/featured", NOOP)
+            .post("/api/vendors/{name}", NOOP);
+
+        Router.Match match = router.match("POST", "/api/vendors/featured");
+        assertEquals(Router.Status.FOUND, match.status());
+        assertEquals("featured", match.param("name"));
+    }
+
+    @Test
+    @DisplayName("dispatch invokes the route with the exchange")
+    void dispatchInvokesRoute() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        Router router = new Router()
+            .delete("/api/items/{id:long}", (exchange, match) -> ids.add(match.longParam("id")));
+        HttpExchange exchange = mock(HttpExchange.class);
+
+        assertEquals(Router.Status.FOUND, router.dispatch(exchange, "DELETE", "/api/items/15").status());
+        assertEquals(Router.Status.NOT_FOUND, router.dispatch(exchange, "DELETE", "/api/items/x").status());
+        assertEquals(List.of(15L), ids);
+    }
+
+    @Test
+    @DisplayName("invalid and duplicate patterns are rejected at registration")
+    void rejectsInvalidPatterns() {
+        Router router = new Router().get("/api/orders/{orderId:long}", NOOP);
+
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/orders/{id:long}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("api/orders", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api//orders", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/{id:uuid}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/{id}/x/{id}", NOOP));
+    }
+}
@@ -0,0 +1,224 @@
+package com.myapp.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * تست‌های محیط اجرای سرور HTTP (ServerRuntime)
+ * شامل انتخاب حالت Executor، کنترل پذیرش و گیج‌ها
+ */
+@DisplayName("ServerRuntime Tests")
+class ServerRuntimeTest {
+
+    private HttpServer server;
+    private ServerRuntime runtime;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (runtime != null) {
+            runtime.shutdown(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Executor Mode Tests")
+    class ExecutorModeTests {
+
+        @Test
+        @DisplayName("parsing of executor mode names")
+        void from_variousNames_parsedCorrectly() {
+            assertEquals(ServerRuntime.ExecutorMode.BOUNDED, ServerRuntime.ExecutorMode.from(null));
+            assertEquals(ServerRuntime.ExecutorMode.BOUNDED, ServerRuntime.ExecutorMode.from(" "));
+            assertEquals(ServerRuntime.ExecutorMode.VIRTUAL, ServerRuntime.ExecutorMode.from("virtual"));
+            assertEquals(ServerRuntime.ExecutorMode.WORK_STEALING, ServerRuntime.ExecutorMode.from("work-stealing"));
+            assertThrows(IllegalArgumentException.class, () -> ServerRuntime.ExecutorMode.from("unknown"));
+        }
+
+        @Test
+        @DisplayName("virtual mode falls back to bounded when virtual threads are unavailable")
+        void virtualMode_resolvesToSupportedMode() {
+            runtime = new ServerRuntime(ServerRuntime.ExecutorMode.VIRTUAL, 4, 10, 1);
+            if (Runtime.version().feature() >= 21) {
+                assertEquals(ServerRuntime.ExecutorMode.VIRTUAL, runtime.getMode());
+            } else {
+                assertEquals(ServerRuntime.ExecutorMode.BOUNDED, runtime.getMode());
+            }
+        }
+
+        @Test
+        @DisplayName("invalid configuration is rejected")
+        void invalidConfiguration_throws() {
+            assertThrows(IllegalArgumentException.class,
+                () -> new ServerRuntime(ServerRuntime.ExecutorMode.BOUNDED, 0, 10, 1));
+            assertThrows(IllegalArgumentException.class,
+                () -> new ServerRuntime(ServerRuntime.ExecutorMode.BOUNDED, 1, -1, 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Admission Control Tests")
+    class AdmissionControlTests {
+
+        @Test
+        @Timeout(value = 20, unit = TimeUnit.SECONDS)
+        @DisplayName("saturated server answers 503 with Retry-After")
+        void saturatedServer_returns503WithRetryAfter() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            runtime = new ServerRuntime(ServerRuntime.ExecutorMode.BOUNDED, 1, 0, 7);
+            int port = startServer(started, release);
+
+            // درخواست اول تنها thread موجود را اشغال می‌کند
+            CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> status(port, null));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(1, runtime.getInFlight());
+
+            // درخواست دوم باید بلافاصله رد شود
+            String[] retryAfter = new String[1];
+            assertEquals(503, status(port, retryAfter));
+            assertEquals("7", retryAfter[0]);
+            assertEquals(1, runtime.getRejectedCount());
+
+            release.countDown();
+            assertEquals(200, first.get(10, TimeUnit.SECONDS));
+            stopServerAndDrain();
+            assertEquals(1, runtime.getAcceptedCount());
+            assertEquals(1, runtime.getCompletedCount());
+            assertEquals(1, runtime.getRejectedCount());
+        }
+
+        @Test
+        @Timeout(value = 20, unit = TimeUnit.SECONDS)
+        @DisplayName("gauges return to zero after requests complete")
+        void gauges_afterCompletion_areZero() throws Exception {
+            CountDownLatch release = new CountDownLatch(0);
+            runtime = new ServerRuntime(ServerRuntime.ExecutorMode.WORK_STEALING, 4, 16, 1);
+            int port = startServer(new CountDownLatch(1), release);
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(200, status(port, null));
+            }
+
+            // task های EOF اتصال‌های keep-alive بعد از پاسخ هم dispatch می‌شوند؛ پس از توقف
+            // سرور و خاموش شدن worker ها هیچ task دیگری باقی نمی‌ماند
+            stopServerAndDrain();
+
+            Map<String, Object> stats = runtime.getStats();
+            assertEquals("WORK_STEALING", stats.get("mode"));
+            assertEquals(5L, stats.get("accepted"));
+            assertEquals(5L, stats.get("completed"));
+            assertEquals(0L, stats.get("rejected"));
+            assertEquals(0, stats.get("queueDepth"));
+            assertEquals(0, stats.get("inFlight"));
+        }
+
+        @Test
+        @Timeout(value = 20, unit = TimeUnit.SECONDS)
+        @DisplayName("virtual mode runs at most the configured number of requests at once")
+        void virtualMode_concurrencyCappedAtThreads() throws Exception {
+            assumeTrue(Runtime.version().feature() >= 21, "virtual threads require Java 21+");
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger maxActive = new AtomicInteger();
+            runtime = new ServerRuntime(ServerRuntime.ExecutorMode.VIRTUAL, 2, 10, 1);
+            int port = startServer(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                started.countDown();
+                awaitRelease(release);
+                active.decrementAndGet();
+            });
+
+            List<CompletableFuture<Integer>> requests = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                requests.add(CompletableFuture.supplyAsync(() -> status(port, null)));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (CompletableFuture<Integer> request : requests) {
+                assertEquals(200, request.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(2, maxActive.get());
+            stopServerAndDrain();
+            assertEquals(4, runtime.getCompletedCount());
+        }
+    }
+
+    private int startServer(CountDownLatch started, CountDownLatch release) throws IOException {
+        return startServer(() -> {
+            started.countDown();
+            awaitRelease(release);
+        });
+    }
+
+    private int startServer(Runnable work) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        runtime.bind(server.createContext("/slow", exchange -> {
+            work.run();
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }));
+        runtime.install(server);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * توقف سرور و انتظار برای پایان همه task های ارسال شده به worker ها
+     */
+    private void stopServerAndDrain() {
+        server.stop(0);
+        server = null;
+        runtime.shutdown(10);
+    }
+
+    private static void awaitRelease(CountDownLatch release) {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int status(int port, String[] retryAfter) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/slow").openConnection();
+            connection.setReadTimeout(15000);
+            int code = connection.getResponseCode();
+            if (retryAfter != null) {
+                retryAfter[0] = connection.getHeaderField("Retry-After");
+            }
+            connection.disconnect();
+            return code;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.myapp.common.http;
+
+import com.myapp.common.events.EventBus;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های endpoint رویدادهای لحظه‌ای (SSE) روی یک HttpServer واقعی
+ */
+@DisplayName("SseHandler Tests")
+@Timeout(20)
+class SseHandlerTest {
+
+    private HttpServer server;
+    private EventBus bus;
+    private SseHandler handler;
+    private final List<HttpURLConnection> connections = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bus = new EventBus(8);
+        // کاربر از پارامتر user خوانده می‌شود (به جای JWT)
+        handler = new SseHandler(bus, exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            return query != null && query.startsWith("user=") ? Long.valueOf(query.substring(5)) : null;
+        }, 4, 100, 2, 200, 1, 500);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/events", handler);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connections.forEach(HttpURLConnection::disconnect);
+        handler.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("events of the user are streamed with id, type and data")
+    void stream_deliversUserEvents() throws Exception {
+        BlockingQueue<String> lines = open("user=1", null);
+        assertEquals("retry: " + SseHandler.RETRY_MILLIS, next(lines));
+        awaitConnections(1);
+
+        bus.publish(2L, "order-status", Map.of("orderId", 5));
+        EventBus.Event event = bus.publish(1L, "order-status", Map.of("orderId", 7));
+
+        assertEquals("id: " + event.id(), next(lines));
+        assertEquals("event: order-status", next(lines));
+        assertEquals("data: {\"orderId\":7}", next(lines));
+    }
+
+    @Test
+    @DisplayName("a reconnect with Last-Event-ID resumes after the last received event")
+    void stream_resumesFromLastEventId() throws Exception {
+        EventBus.Event first = bus.publish(1L, "a", Map.of());
+        EventBus.Event second = bus.publish(1L, "b", Map.of());
+
+        BlockingQueue<String> lines = open("user=1", String.valueOf(first.id()));
+
+        assertEquals("retry: " + SseHandler.RETRY_MILLIS, next(lines));
+        assertEquals("id: " + second.id(), next(lines));
+        assertEquals("event: b", next(lines));
+    }
+
+    @Test
+    @DisplayName("a resume point that is no longer retained asks the client to resync")
+    void stream_evictedResumePoint_sendsResync() throws Exception {
+        EventBus.Event first = bus.publish(1L, "a", Map.of());
+        for (int i = 0; i < 10; i++) {
+            bus.publish(2L, "x", Map.of());
+        }
+
+        BlockingQueue<String> lines = open("user=1", String.valueOf(first.id()));
+
+        assertEquals("retry: " + SseHandler.RETRY_MILLIS, next(lines));
+        assertEquals("id: " + bus.getLastEventId(), next(lines));
+        assertEquals("event: resync", next(lines));
+    }
+
+    @Test
+    @DisplayName("idle streams receive heartbeats")
+    void stream_sendsHeartbeats() throws Exception {
+        BlockingQueue<String> lines = open("user=1", null);
+
+        assertEquals("retry: " + SseHandler.RETRY_MILLIS, next(lines));
+        assertEquals(": heartbeat", lines.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("unauthenticated requests and connections over the per-user limit are rejected")
+    void stream_rejectsUnauthenticatedAndOverLimit() throws Exception {
+        assertEquals(401, connect("", null).getResponseCode());
+
+        open("user=1", null);
+        open("user=1", null);
+        awaitConnections(2);
+        HttpURLConnection third = connect("user=1", null);
+
+        assertEquals(503, third.getResponseCode());
+        assertEquals(1L, handler.getStats().get("rejected"));
+    }
+
+    @Test
+    @DisplayName("a client that stops reading is closed at the write deadline and does not stall other streams")
+    void stream_stalledClient_closedAfterWriteTimeout() throws Exception {
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(server.getAddress());
+            stalled.getOutputStream().write(
+                "GET /api/events?user=2 HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            stalled.getOutputStream().flush();
+            awaitConnections(1);
+            BlockingQueue<String> lines = open("user=1", null);
+            assertEquals("retry: " + SseHandler.RETRY_MILLIS, next(lines));
+            awaitConnections(2);
+
+            // بافرهای socket کلاینتی که نمی‌خواند پر می‌شوند و تنها thread نویسنده روی آن block می‌شود
+            bus.publish(2L, "bulk", Map.of("payload", "x".repeat(16 << 20)));
+            EventBus.Event event = bus.publish(1L, "order-status", Map.of("orderId", 7));
+
+            assertEquals("id: " + event.id(), next(lines));
+            awaitConnections(1);
+            assertEquals(1L, handler.getStats().get("writeTimeouts"));
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private HttpURLConnection connect(String query, String lastEventId) throws IOException {
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/api/events?" + query);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setReadTimeout(10_000);
+        if (lastEventId != null) {
+            connection.setRequestProperty("Last-Event-ID", lastEventId);
+        }
+        connections.add(connection);
+        return connection;
+    }
+
+    /**
+     * باز کردن stream و خواندن خطوط غیر خالی آن در یک thread جداگانه
+     */
+    private BlockingQueue<String> open(String query, String lastEventId) throws IOException {
+        HttpURLConnection connection = connect(query, lastEventId);
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/event-stream"));
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        Thread thread = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        lines.add(line);
+                    }
+                }
+            } catch (IOException ignored) {
+                // اتصال بسته شد
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return lines;
+    }
+
+    /**
+     * خط بعدی stream بدون heartbeat ها
+     */
+    private static String next(BlockingQueue<String> lines) throws InterruptedException {
+        String line;
+        do {
+            line = lines.poll(5, TimeUnit.SECONDS);
+            assertNotNull(line, "no SSE line received");
+        } while (line.startsWith(":"));
+        return line;
+    }
+
+    private void awaitConnections(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((Integer) handler.getStats().get("connections") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, handler.getStats().get("connections"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.myapp.common.metrics;
+
+import com.myapp.common.http.RequestMetricsFilter;
+import com.myapp.common.http.Router;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * تست‌های رجیستری متریک و خروجی Prometheus
+ */
+@DisplayName("MetricsRegistry Tests")
+class MetricsRegistryTest {
+
+    @Test
+    @DisplayName("latency histogram uses cumulative log-linear buckets")
+    void histogramBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(50_000L);          // 50µs  -> le=0.0001
+        histogram.record(1_000_000L);       // 1ms   -> le=0.001 (مرز شامل است)
+        histogram.record(3_000_000L);       // 3ms   -> le=0.005
+        histogram.record(120_000_000_000L); // 120s  -> +Inf
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals("0.0001", LatencyHistogram.upperBoundLabel(0));
+        assertEquals("0.001", LatencyHistogram.upperBoundLabel(3));
+        assertEquals("0.0025", LatencyHistogram.upperBoundLabel(4));
+        assertEquals("50", LatencyHistogram.upperBoundLabel(LatencyHistogram.boundCount() - 1));
+        assertEquals("+Inf", LatencyHistogram.upperBoundLabel(LatencyHistogram.boundCount()));
+
+        assertEquals(1, snapshot.cumulativeCount(0));
+        assertEquals(2, snapshot.cumulativeCount(3));
+        assertEquals(3, snapshot.cumulativeCount(5));
+        assertEquals(3, snapshot.cumulativeCount(LatencyHistogram.boundCount() - 1));
+        assertEquals(4, snapshot.count());
+        assertEquals(120.00405, snapshot.sumSeconds(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("requests are exported as histogram, status counters and error counters")
+    void exportsRequests() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.recordRequest("/api/orders/{orderId:long}", "GET", 200, false, 2_000_000L);
+        registry.recordRequest("/api/orders/{orderId:long}", "GET", 404, false, 1_000_000L);
+        registry.recordRequest("/api/orders/{orderId:long}", "GET", 500, false, 1_000_000L);
+        registry.recordRequest("/api/orders/", "BREW", -1, true, 1_000_000L);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE http_request_duration_seconds histogram\n"));
+        assertTrue(text.contains(
+            "http_request_duration_seconds_bucket{route=\"/api/orders/{orderId:long}\",method=\"GET\",le=\"0.001\"} 2\n"));
+        assertTrue(text.contains(
+            "http_request_duration_seconds_count{route=\"/api/orders/{orderId:long}\",method=\"GET\"} 3\n"));
+        assertTrue(text.contains(
+            "http_requests_total{route=\"/api/orders/{orderId:long}\",method=\"GET\",status=\"404\"} 1\n"));
+        assertTrue(text.contains(
+            "http_request_errors_total{route=\"/api/orders/{orderId:long}\",method=\"GET\"} 1\n"));
+        // method ناشناخته و درخواست بدون پاسخ
+        assertTrue(text.contains("http_requests_total{route=\"/api/orders/\",method=\"OTHER\",status=\"none\"} 1\n"));
+        assertTrue(text.contains("http_request_errors_total{route=\"/api/orders/\",method=\"OTHER\"} 1\n"));
+        assertTrue(text.contains("# TYPE jvm_memory_used_bytes gauge\n"));
+    }
+
+    @Test
+    @DisplayName("a failing collector is skipped without breaking the scrape")
+    void failingCollector() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.register("broken", writer -> {
+            writer.gauge("broken_partial", "written before failure", 1);
+            throw new IllegalStateException("boom");
+        });
+        registry.register("pool", writer -> writer.gauge("pool_size", "Pool \"main\"\nsize", 10));
+
+        String text = registry.scrape();
+        assertFalse(text.contains("broken_partial"));
+        assertTrue(text.contains("# HELP pool_size Pool \"main\"\\nsize\n"));
+        assertTrue(text.contains("pool_size 10\n"));
+    }
+
+    @Test
+    @DisplayName("label values are escaped and fractional values keep their precision")
+    void writerFormatting() {
+        PrometheusWriter writer = new PrometheusWriter();
+        writer.family("x", "gauge", "help")
+              .sample("x", 0.25, "path", "a\"b\\c")
+              .sample("x", Double.NaN);
+
+        assertEquals("# HELP x help\n# TYPE x gauge\nx{path=\"a\\\"b\\\\c\"} 0.25\nx NaN\n", writer.toString());
+        assertThrows(IllegalArgumentException.class, () -> writer.sample("x", 1, "odd"));
+    }
+
+    @Test
+    @DisplayName("the request filter labels requests with the matched route pattern")
+    void filterUsesRoutePattern() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Router router = new Router().get("/api/orders/{orderId:long}", (exchange, match) -> { });
+        HttpExchange exchange = mock(HttpExchange.class);
+        HttpContext context = mock(HttpContext.class);
+        when(exchange.getHttpContext()).thenReturn(context);
+        when(context.getPath()).thenReturn("/api/orders/");
+        when(exchange.getRequestMethod()).thenReturn("GET");
+        when(exchange.getResponseCode()).thenReturn(200);
+
+        Filter filter = new RequestMetricsFilter(registry);
+        filter.doFilter(exchange, new Filter.Chain(List.of(),
+            ex -> router.dispatch(ex, "GET", "/api/orders/42")));
+        filter.doFilter(exchange, new Filter.Chain(List.of(),
+            ex -> router.dispatch(ex, "GET", "/api/orders/unknown")));
+
+        String text = registry.scrape();
+        assertTrue(text.contains(
+            "http_requests_total{route=\"/api/orders/{orderId:long}\",method=\"GET\",status=\"200\"} 1\n"));
+        assertTrue(text.contains("http_requests_total{route=\"/api/orders/\",method=\"GET\",status=\"200\"} 1\n"));
+        assertFalse(text.contains("/api/orders/42"));
+    }
+}
@@ -0,0 +1,261 @@
+package com.myapp.common.pagination;
+
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionType;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import com.myapp.order.OrderRepository;
+import com.myapp.payment.PaymentRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های keyset pagination
+ *
+ * کدگذاری cursor به صورت unit و پیمایش صفحات روی H2 درون حافظه‌ای
+ * برای سفارشات و تراکنش‌ها (شامل رکوردهای هم‌زمان با timestamp یکسان).
+ */
+@DisplayName("Keyset Pagination Tests")
+class KeysetPaginationTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private static SessionFactory sessionFactory;
+
+    private OrderRepository orderRepository;
+    private PaymentRepository paymentRepository;
+    private User customer;
+    private Restaurant restaurant;
+    private FoodItem pizza;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("keyset_pagination",
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class, Transaction.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = new OrderRepository(sessionFactory);
+        paymentRepository = new PaymentRepository(sessionFactory);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createMutationQuery("delete from Transaction").executeUpdate();
+            session.createMutationQuery("delete from OrderItem").executeUpdate();
+            session.createMutationQuery("delete from Order").executeUpdate();
+            session.createMutationQuery("delete from FoodItem").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+            session.createMutationQuery("delete from User").executeUpdate();
+            customer = User.forRegistration("Customer", "09120000000", "c@test.com", "hash", "Tehran");
+            restaurant = Restaurant.forRegistration(1L, "Restaurant", "Tehran", "02100000000");
+            session.persist(customer);
+            session.persist(restaurant);
+            pizza = FoodItem.forMenu("Pizza", "Pizza", 100.0, "Food", restaurant);
+            session.persist(pizza);
+            session.getTransaction().commit();
+        }
+    }
+
+    @Nested
+    @DisplayName("Cursor Token Tests")
+    class CursorTokenTests {
+
+        @Test
+        @DisplayName("cursor round-trips through its opaque token")
+        void encodeDecode_roundTrip() {
+            Cursor cursor = new Cursor(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000), 42L);
+
+            String token = cursor.encode();
+
+            assertFalse(token.contains("2024"), "token should be opaque");
+            assertEquals(cursor, Cursor.decode(token));
+            assertEquals(new Cursor(null, 7L), Cursor.decode(new Cursor(null, 7L).encode()));
+        }
+
+        @Test
+        @DisplayName("malformed tokens are rejected")
+        void decode_malformed_throws() {
+            assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not-a-cursor"));
+            assertThrows(IllegalArgumentException.class, () -> Cursor.decode("%%%"));
+            assertThrows(IllegalArgumentException.class, () -> Cursor.decode(""));
+        }
+
+        @Test
+        @DisplayName("page size defaults and is capped")
+        void pageRequest_limitIsBounded() {
+            assertEquals(CursorPageRequest.DEFAULT_LIMIT, CursorPageRequest.fromQueryParams(Map.of()).getLimit());
+            assertEquals(CursorPageRequest.MAX_LIMIT,
+                CursorPageRequest.fromQueryParams(Map.of("limit", "100000")).getLimit());
+            assertEquals(15, CursorPageRequest.fromQueryString("userId=1&size=15").getLimit());
+            assertEquals(CursorPageRequest.DEFAULT_LIMIT, CursorPageRequest.fromQueryString("limit=0").getLimit());
+            assertThrows(IllegalArgumentException.class, () -> CursorPageRequest.fromQueryString("limit=abc"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Order Pagination Tests")
+    class OrderPaginationTests {
+
+        @Test
+        @DisplayName("walking all pages returns every order once in (orderDate, id) desc order")
+        void findPageByCustomer_walkAllPages_noDuplicatesOrGaps() {
+            // دو سفارش در هر timestamp تا tie-breaker روی id آزموده شود
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < 11; i++) {
+                created.add(order(BASE_TIME.plusMinutes(i / 2)).getId());
+            }
+
+            List<Order> walked = new ArrayList<>();
+            CursorPageRequest request = CursorPageRequest.of(null, 3);
+            int pages = 0;
+            while (true) {
+                CursorPage<Order> page = orderRepository.findPageByCustomer(customer.getId(), request);
+                pages++;
+                walked.addAll(page.getItems());
+                if (!page.hasMore()) {
+                    break;
+                }
+                request = CursorPageRequest.of(Cursor.decode(page.getNextCursorToken()), 3);
+            }
+
+            assertEquals(4, pages);
+            assertEquals(11, walked.size());
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < walked.size(); i++) {
+                Order current = walked.get(i);
+                assertTrue(ids.add(current.getId()), "duplicate order " + current.getId());
+                // آیتم‌های سفارش باید بعد از بسته شدن session قابل استفاده باشند
+                assertEquals(1, current.getOrderItems().size());
+                if (i > 0) {
+                    Order previous = walked.get(i - 1);
+                    int byDate = previous.getOrderDate().compareTo(current.getOrderDate());
+                    assertTrue(byDate > 0 || (byDate == 0 && previous.getId() > current.getId()));
+                }
+            }
+            assertEquals(new HashSet<>(created), ids);
+        }
+
+        @Test
+        @DisplayName("orders created after the first page do not shift later pages")
+        void findPageByCustomer_insertBetweenPages_isStable() {
+            for (int i = 0; i < 4; i++) {
+                order(BASE_TIME.plusMinutes(i));
+            }
+            CursorPage<Order> first = orderRepository.findPageByCustomer(customer.getId(), CursorPageRequest.of(null, 2));
+            order(BASE_TIME.plusHours(1));
+
+            CursorPage<Order> second = orderRepository.findPageByCustomer(customer.getId(),
+                CursorPageRequest.of(first.getNextCursor(), 2));
+
+            assertEquals(BASE_TIME.plusMinutes(1), second.getItems().get(0).getOrderDate());
+            assertEquals(BASE_TIME, second.getItems().get(1).getOrderDate());
+            assertFalse(second.hasMore());
+        }
+
+        @Test
+        @DisplayName("pending orders page oldest first and status filters apply")
+        void findPendingPage_oldestFirst() {
+            Order oldest = order(BASE_TIME);
+            order(BASE_TIME.plusMinutes(5));
+            Order confirmed = order(BASE_TIME.plusMinutes(10));
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.createMutationQuery("update Order o set o.status = :s where o.id = :id")
+                    .setParameter("s", OrderStatus.CONFIRMED)
+                    .setParameter("id", confirmed.getId())
+                    .executeUpdate();
+                session.getTransaction().commit();
+            }
+
+            CursorPage<Order> pending = orderRepository.findPendingPage(CursorPageRequest.of(null, 1));
+            CursorPage<Order> rest = orderRepository.findPendingPage(CursorPageRequest.of(pending.getNextCursor(), 5));
+
+            assertEquals(oldest.getId(), pending.getItems().get(0).getId());
+            assertEquals(1, rest.getItems().size());
+            assertFalse(rest.hasMore());
+            assertEquals(3, orderRepository.findActivePage(CursorPageRequest.firstPage()).getItems().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Transaction Pagination Tests")
+    class TransactionPaginationTests {
+
+        @Test
+        @DisplayName("user transactions page by (createdAt, id) and honour the type filter")
+        void findPageByUserId_typesAndCursor() {
+            for (int i = 0; i < 5; i++) {
+                transaction(7L, TransactionType.WALLET_CHARGE, BASE_TIME);
+            }
+            transaction(7L, TransactionType.PAYMENT, BASE_TIME.plusMinutes(1));
+            transaction(8L, TransactionType.WALLET_CHARGE, BASE_TIME);
+
+            CursorPage<Transaction> first = paymentRepository.findPageByUserId(7L,
+                List.of(TransactionType.WALLET_CHARGE), CursorPageRequest.of(null, 3));
+            CursorPage<Transaction> second = paymentRepository.findPageByUserId(7L,
+                List.of(TransactionType.WALLET_CHARGE), CursorPageRequest.of(first.getNextCursor(), 3));
+            CursorPage<Transaction> all = paymentRepository.findPageByUserId(7L, null, CursorPageRequest.firstPage());
+
+            assertEquals(3, first.getItems().size());
+            assertTrue(first.hasMore());
+            assertEquals(2, second.getItems().size());
+            assertFalse(second.hasMore());
+            assertTrue(first.getItems().get(2).getId() > second.getItems().get(0).getId());
+            assertEquals(6, all.getItems().size());
+            assertEquals(TransactionType.PAYMENT, all.getItems().get(0).getType());
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private Order order(LocalDateTime orderDate) {
+        Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+        order.addItem(pizza, 1);
+        order.setOrderDate(orderDate);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(order);
+            session.getTransaction().commit();
+        }
+        return order;
+    }
+
+    private void transaction(Long userId, TransactionType type, LocalDateTime createdAt) {
+        Transaction transaction = type == TransactionType.PAYMENT
+            ? Transaction.forPayment(userId, 1L, 10.0, "CARD")
+            : Transaction.forWalletCharge(userId, 10.0, "CARD");
+        transaction.setCreatedAt(createdAt);
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.persist(transaction);
+            session.getTransaction().commit();
+        }
+    }
+}
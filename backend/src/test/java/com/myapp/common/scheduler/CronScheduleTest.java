@@ -0,0 +1,72 @@
+package com.myapp.common.scheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * تست‌های محاسبه زمان اجرای بعدی cron
+ */
+@DisplayName("CronSchedule Tests")
+class CronScheduleTest {
+
+    private static final ZoneId TEHRAN = ZoneId.of("Asia/Tehran");
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, TEHRAN);
+    }
+
+    @Test
+    @DisplayName("daily schedule fires at the configured time, strictly after the reference")
+    void next_daily() {
+        CronSchedule cron = CronSchedule.parse("30 3 * * *");
+
+        assertThat(cron.next(at(2024, 5, 1, 1, 0))).isEqualTo(at(2024, 5, 1, 3, 30));
+        assertThat(cron.next(at(2024, 5, 1, 3, 30))).isEqualTo(at(2024, 5, 2, 3, 30));
+        assertThat(cron.next(at(2024, 12, 31, 4, 0))).isEqualTo(at(2025, 1, 1, 3, 30));
+    }
+
+    @Test
+    @DisplayName("steps, ranges and lists are expanded")
+    void next_stepsRangesLists() {
+        assertThat(CronSchedule.parse("*/5 * * * *").next(at(2024, 5, 1, 10, 7)))
+            .isEqualTo(at(2024, 5, 1, 10, 10));
+        assertThat(CronSchedule.parse("0 9-17/4 * * *").next(at(2024, 5, 1, 13, 1)))
+            .isEqualTo(at(2024, 5, 1, 17, 0));
+        assertThat(CronSchedule.parse("15,45 * * * *").next(at(2024, 5, 1, 10, 20)))
+            .isEqualTo(at(2024, 5, 1, 10, 45));
+    }
+
+    @Test
+    @DisplayName("day of week 0 and 7 both mean Sunday; restricted day fields are OR-ed")
+    void next_dayOfWeek() {
+        // 2024-05-01 چهارشنبه است
+        assertThat(CronSchedule.parse("0 0 * * 7").next(at(2024, 5, 1, 0, 0)))
+            .isEqualTo(at(2024, 5, 5, 0, 0));
+        assertThat(CronSchedule.parse("@weekly").next(at(2024, 5, 1, 0, 0)))
+            .isEqualTo(at(2024, 5, 5, 0, 0));
+        assertThat(CronSchedule.parse("0 0 10 * 5").next(at(2024, 5, 1, 0, 0)))
+            .isEqualTo(at(2024, 5, 3, 0, 0));
+    }
+
+    @Test
+    @DisplayName("short month days are skipped")
+    void next_skipsMissingDays() {
+        assertThat(CronSchedule.parse("0 0 31 * *").next(at(2024, 4, 1, 0, 0)))
+            .isEqualTo(at(2024, 5, 31, 0, 0));
+    }
+
+    @Test
+    @DisplayName("invalid expressions are rejected")
+    void parse_invalid() {
+        assertThatThrownBy(() -> CronSchedule.parse("* * * *")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CronSchedule.parse("60 * * * *")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CronSchedule.parse("5-1 * * * *")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CronSchedule.parse("*/x * * * *")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
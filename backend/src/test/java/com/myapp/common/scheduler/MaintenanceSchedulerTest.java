@@ -0,0 +1,202 @@
+package com.myapp.common.scheduler;
+
+import com.myapp.common.models.JobLease;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های زمان‌بند نگهداری و lease بین نودها
+ */
+@DisplayName("MaintenanceScheduler Tests")
+class MaintenanceSchedulerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private static SessionFactory sessionFactory;
+    private JobLeaseRepository leases;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("maintenance_scheduler", JobLease.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        leases = new JobLeaseRepository(() -> sessionFactory);
+        try (var session = sessionFactory.openSession()) {
+            var tx = session.beginTransaction();
+            session.createMutationQuery("delete from JobLease").executeUpdate();
+            tx.commit();
+        }
+    }
+
+    private MaintenanceScheduler node(String id) {
+        return node(id, CLOCK);
+    }
+
+    private MaintenanceScheduler node(String id, Clock clock) {
+        return new MaintenanceScheduler(leases, id, clock, max -> 0);
+    }
+
+    private static Clock clockAt(String instant) {
+        return Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+    }
+
+    @Test
+    @DisplayName("a clustered job runs on only one node while the lease is held")
+    void clusteredJob_runsOnceAcrossNodes() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        MaintenanceScheduler.JobTask task = () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 3;
+        };
+        MaintenanceScheduler nodeA = node("node-a");
+        MaintenanceScheduler nodeB = node("node-b");
+        nodeA.register(MaintenanceScheduler.JobDefinition.clustered("purge", "@daily", 60_000, task));
+        nodeB.register(MaintenanceScheduler.JobDefinition.clustered("purge", "@daily", 60_000, task));
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<MaintenanceScheduler.JobRun> first = pool.submit(() -> nodeA.runNow("purge"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            MaintenanceScheduler.JobRun second = nodeB.runNow("purge");
+            release.countDown();
+
+            assertThat(second.getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SKIPPED);
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+            assertThat(executions).hasValue(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // بعد از آزاد شدن lease نود دیگر می‌تواند اجرا کند
+        assertThat(nodeB.runNow("purge").getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+        assertThat(leases.find("purge")).get()
+            .satisfies(lease -> assertThat(lease.getLastSuccessAt()).isNotNull());
+    }
+
+    @Test
+    @DisplayName("a node firing later because of jitter does not repeat a completed slot")
+    void completedSlot_isNotRepeatedByLaterNode() {
+        AtomicInteger executions = new AtomicInteger();
+        MaintenanceScheduler.JobTask task = executions::incrementAndGet;
+        MaintenanceScheduler nodeA = node("node-a", clockAt("2024-05-01T10:00:05Z"));
+        MaintenanceScheduler nodeB = node("node-b", clockAt("2024-05-01T10:00:25Z"));
+        MaintenanceScheduler nodeBNextHour = node("node-b", clockAt("2024-05-01T11:00:12Z"));
+        for (MaintenanceScheduler scheduler : List.of(nodeA, nodeB, nodeBNextHour)) {
+            scheduler.register(MaintenanceScheduler.JobDefinition.clustered("etl", "@hourly", 60_000, task));
+        }
+        ZonedDateTime slot = ZonedDateTime.parse("2024-05-01T10:00:00Z");
+
+        assertThat(nodeA.runSlot("etl", slot).getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+        assertThat(nodeB.runSlot("etl", slot).getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SKIPPED);
+        assertThat(nodeBNextHour.runSlot("etl", slot.plusHours(1)).getStatus())
+            .isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("a failed slot is retried by the next node that fires for it")
+    void failedSlot_isRetriedByAnotherNode() {
+        MaintenanceScheduler nodeA = node("node-a", clockAt("2024-05-01T10:00:05Z"));
+        MaintenanceScheduler nodeB = node("node-b", clockAt("2024-05-01T10:00:25Z"));
+        nodeA.register(MaintenanceScheduler.JobDefinition.clustered("etl", "@hourly", 60_000, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        nodeB.register(MaintenanceScheduler.JobDefinition.clustered("etl", "@hourly", 60_000, () -> 1));
+        ZonedDateTime slot = ZonedDateTime.parse("2024-05-01T10:00:00Z");
+
+        assertThat(nodeA.runSlot("etl", slot).getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.FAILED);
+        assertThat(nodeB.runSlot("etl", slot).getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+    }
+
+    @Test
+    @DisplayName("an expired lease of a crashed node is taken over")
+    void expiredLease_isTakenOver() {
+        LocalDateTime past = LocalDateTime.now(CLOCK).minusMinutes(10);
+        assertThat(leases.tryAcquire("etl", "crashed-node", past, past.plusMinutes(1))).isTrue();
+
+        MaintenanceScheduler scheduler = node("node-a");
+        scheduler.register(MaintenanceScheduler.JobDefinition.clustered("etl", "@hourly", 60_000, () -> 1));
+
+        assertThat(scheduler.runNow("etl").getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.SUCCEEDED);
+        assertThat(leases.find("etl")).get()
+            .satisfies(lease -> assertThat(lease.getOwner()).isEqualTo("node-a"));
+    }
+
+    @Test
+    @DisplayName("run history and metrics record successes and failures")
+    @SuppressWarnings("unchecked")
+    void statistics_recordRuns() {
+        AtomicInteger calls = new AtomicInteger();
+        MaintenanceScheduler scheduler = node("node-a");
+        scheduler.register(MaintenanceScheduler.JobDefinition.local("cache", "*/5 * * * *", () -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("boom");
+            }
+            return 10;
+        }));
+
+        scheduler.runNow("cache");
+        MaintenanceScheduler.JobRun failed = scheduler.runNow("cache");
+        scheduler.runNow("cache");
+
+        assertThat(failed.getStatus()).isEqualTo(MaintenanceScheduler.RunStatus.FAILED);
+        assertThat(failed.getError()).contains("boom");
+        Map<String, Object> job = (Map<String, Object>) ((Map<String, Object>) scheduler.getStatistics().get("jobs")).get("cache");
+        assertThat(job)
+            .containsEntry("runs", 3L)
+            .containsEntry("failures", 1L)
+            .containsEntry("processedTotal", 20L)
+            .containsEntry("clustered", false);
+        List<Map<String, Object>> history = (List<Map<String, Object>>) job.get("history");
+        assertThat(history).extracting(run -> run.get("status"))
+            .containsExactly("SUCCEEDED", "FAILED", "SUCCEEDED");
+    }
+
+    @Test
+    @DisplayName("started scheduler computes the next cron fire time")
+    @SuppressWarnings("unchecked")
+    void start_schedulesNextRun() {
+        MaintenanceScheduler scheduler = node("node-a");
+        scheduler.register(MaintenanceScheduler.JobDefinition.local("tuning", "*/10 * * * *", () -> 0));
+        scheduler.start(2);
+        try {
+            Map<String, Object> job = (Map<String, Object>) ((Map<String, Object>) scheduler.getStatistics().get("jobs")).get("tuning");
+            assertThat(job).containsEntry("nextRunAt", "2024-05-01T10:10Z");
+        } finally {
+            scheduler.stop();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.myapp.common.search;
+
+import com.myapp.common.cache.CacheService;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.RestaurantStatus;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * تست‌های ایندکس جستجوی کاتالوگ روی H2 درون حافظه‌ای
+ */
+@DisplayName("CatalogSearchIndex Tests")
+class CatalogSearchIndexTest {
+
+    private static SessionFactory sessionFactory;
+
+    private CatalogSearchIndex searchIndex;
+    private Restaurant approved;
+    private FoodItem burger;
+    private FoodItem soldOut;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("catalog_search", Restaurant.class, FoodItem.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createMutationQuery("delete from FoodItem").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+
+            approved = Restaurant.forRegistration(1L, "Burger House", "Tehran, Valiasr", "02100000000");
+            approved.setStatus(RestaurantStatus.APPROVED);
+            Restaurant pending = Restaurant.forRegistration(2L, "Burger Pending", "Tehran", "02100000001");
+            session.persist(approved);
+            session.persist(pending);
+
+            burger = FoodItem.forMenu("Cheeseburger", "Burger", 100.0, "Fast Food", approved);
+            soldOut = FoodItem.forMenu("Double Burger", "Burger", 150.0, "Fast Food", approved);
+            soldOut.setAvailable(false);
+            session.persist(burger);
+            session.persist(soldOut);
+            session.getTransaction().commit();
+        }
+        searchIndex = new CatalogSearchIndex(() -> sessionFactory);
+    }
+
+    @Test
+    @DisplayName("first search builds the index and applies availability and approval")
+    void search_buildsFromDatabase() {
+        assertThat(searchIndex.searchItems("burger", 10)).containsExactly(burger.getId());
+        assertThat(searchIndex.searchRestaurants("burger", 10)).containsExactly(approved.getId());
+        assertThat(searchIndex.searchRestaurants("valiasr", 10)).containsExactly(approved.getId());
+        assertThat(searchIndex.getStatistics()).containsEntry("loaded", true).containsEntry("items", 2);
+    }
+
+    @Test
+    @DisplayName("repository notifications update the index incrementally")
+    void notifications_updateIndex() {
+        searchIndex.searchItems("burger", 10);
+
+        searchIndex.onItemAvailabilityChanged(soldOut.getId(), true);
+        assertThat(searchIndex.searchItems("burger", 10)).containsExactly(soldOut.getId(), burger.getId());
+
+        FoodItem renamed = FoodItem.forMenu("Veggie Wrap", "Wrap", 90.0, "Fast Food", approved);
+        renamed.setId(burger.getId());
+        searchIndex.onItemSaved(renamed);
+        assertThat(searchIndex.searchItems("burger", 10)).containsExactly(soldOut.getId());
+        assertThat(searchIndex.searchItems("wrap", 10)).containsExactly(burger.getId());
+
+        searchIndex.onItemDeleted(soldOut.getId());
+        assertThat(searchIndex.searchItems("burger", 10)).isEmpty();
+
+        searchIndex.onRestaurantStatusChanged(approved.getId(), RestaurantStatus.REJECTED);
+        assertThat(searchIndex.searchRestaurants("burger", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("notifications before the first build are ignored and the build reads committed state")
+    void notifications_beforeBuild_ignored() {
+        searchIndex.onItemDeleted(burger.getId());
+
+        assertThat(searchIndex.searchItems("cheeseburger", 10)).containsExactly(burger.getId());
+    }
+
+    @Test
+    @DisplayName("changes made on another node are reloaded on the next search")
+    void remoteInvalidation_reloadsChangedRows() {
+        searchIndex.searchItems("burger", 10);
+        Long restaurantId;
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.get(FoodItem.class, soldOut.getId()).setAvailable(true);
+            session.remove(session.get(FoodItem.class, burger.getId()));
+            Restaurant approvedElsewhere = Restaurant.forRegistration(3L, "Pizza Place", "Tehran", "02100000003");
+            approvedElsewhere.setStatus(RestaurantStatus.APPROVED);
+            session.persist(approvedElsewhere);
+            session.getTransaction().commit();
+            restaurantId = approvedElsewhere.getId();
+        }
+
+        searchIndex.onRemoteInvalidation("item:" + soldOut.getId());
+        searchIndex.onRemoteInvalidation("item:" + burger.getId());
+        searchIndex.onRemoteInvalidation("restaurant:" + restaurantId);
+        searchIndex.onRemoteInvalidation("restaurant:list:*");
+
+        assertThat(searchIndex.searchItems("burger", 10)).containsExactly(soldOut.getId());
+        assertThat(searchIndex.searchRestaurants("pizza", 10)).containsExactly(restaurantId);
+        assertThat(searchIndex.getStatistics()).containsEntry("loaded", true).containsEntry("items", 1);
+    }
+
+    @Test
+    @DisplayName("a wildcard invalidation discards the index so it is rebuilt")
+    void remoteInvalidation_wildcard_rebuilds() {
+        searchIndex.searchItems("burger", 10);
+
+        searchIndex.onRemoteInvalidation("*");
+
+        assertThat(searchIndex.getStatistics()).containsEntry("loaded", false);
+        assertThat(searchIndex.searchItems("burger", 10)).containsExactly(burger.getId());
+    }
+
+    @Test
+    @DisplayName("local changes are published to other nodes even before the index is built")
+    void localChanges_publishedThroughCache() {
+        CacheService cacheService = mock(CacheService.class);
+        searchIndex.enableClusterSync(cacheService);
+        verify(cacheService).addInvalidationListener(any());
+
+        searchIndex.onItemSaved(burger);
+        searchIndex.onItemAvailabilityChanged(soldOut.getId(), true);
+        searchIndex.onRestaurantStatusChanged(approved.getId(), RestaurantStatus.SUSPENDED);
+
+        verify(cacheService).invalidateItem(burger.getId());
+        verify(cacheService).invalidateItem(soldOut.getId());
+        verify(cacheService).invalidateRestaurant(approved.getId());
+    }
+
+    @Test
+    @DisplayName("entities loaded by id are returned in rank order")
+    void orderByRank_followsRanking() {
+        List<FoodItem> loaded = List.of(burger, soldOut);
+
+        assertThat(CatalogSearchIndex.orderByRank(loaded, List.of(soldOut.getId(), 999L, burger.getId()),
+            FoodItem::getId)).containsExactly(soldOut, burger);
+    }
+}
@@ -0,0 +1,106 @@
+package com.myapp.common.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های ایندکس معکوس و یکسان‌سازی متن جستجو
+ */
+@DisplayName("InvertedIndex Tests")
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // نام، کلیدواژه‌ها، دسته‌بندی
+        index = new InvertedIndex(3.0, 2.0, 1.0);
+    }
+
+    @Test
+    @DisplayName("normalizer folds accents, Arabic letter forms, ZWNJ and Persian digits")
+    void normalizer_foldsVariants() {
+        assertThat(TextNormalizer.tokenize("Café Latté")).containsExactly("cafe", "latte");
+        assertThat(TextNormalizer.tokenize("كباب كوبيده")).containsExactly("کباب", "کوبیده");
+        assertThat(TextNormalizer.tokenize("می‌خانه ۱۲")).containsExactly("میخانه", "12");
+        assertThat(TextNormalizer.tokenize("پیتزا، پیتزا - Pizza!")).containsExactly("پیتزا", "pizza");
+        assertThat(TextNormalizer.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("exact, prefix and infix matches are found and ranked in that order")
+    void search_ranksExactBeforePrefixBeforeInfix() {
+        index.index(1, "Cheeseburger", null, "Fast Food");
+        index.index(2, "Burger", null, "Fast Food");
+        index.index(3, "Burgundy Steak", null, "Steak");
+
+        assertThat(ids(index.search("burger", 10, id -> true))).containsExactly(2L, 1L);
+        assertThat(ids(index.search("burg", 10, id -> true))).containsExactly(2L, 3L, 1L);
+        assertThat(ids(index.search("cheese", 10, id -> true))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("matches in the name outrank matches in keywords and category")
+    void search_weighsFields() {
+        index.index(1, "Margherita", "pizza cheese", "Italian");
+        index.index(2, "Pizza Pepperoni", null, "Italian");
+        index.index(3, "Lasagna", null, "Pizza");
+
+        assertThat(ids(index.search("pizza", 10, id -> true))).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("multi-word queries require every token and work for Persian text")
+    void search_multipleTokens_intersect() {
+        index.index(1, "کباب کوبیده", "گوشت", "ایرانی");
+        index.index(2, "کباب برگ", "گوشت", "ایرانی");
+        index.index(3, "جوجه کباب", "مرغ", "ایرانی");
+
+        assertThat(ids(index.search("كباب كوب", 10, id -> true))).containsExactly(1L);
+        assertThat(ids(index.search("کباب", 10, id -> true))).containsExactly(1L, 2L, 3L);
+        assertThat(index.search("کباب پیتزا", 10, id -> true)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("single-character queries only match prefixes")
+    void search_singleCharacter_prefixOnly() {
+        index.index(1, "Tea", null, null);
+        index.index(2, "Pasta", null, null);
+
+        assertThat(ids(index.search("t", 10, id -> true))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("re-indexing replaces old terms and removal drops the document")
+    void index_incrementalUpdates() {
+        index.index(1, "Pizza", null, null);
+        index.index(1, "Pasta", null, null);
+
+        assertThat(index.search("pizza", 10, id -> true)).isEmpty();
+        assertThat(ids(index.search("pasta", 10, id -> true))).containsExactly(1L);
+
+        assertThat(index.remove(1)).isTrue();
+        assertThat(index.search("pasta", 10, id -> true)).isEmpty();
+        assertThat(index.size()).isZero();
+        assertThat(index.termCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("filter and limit are applied to ranked results")
+    void search_filterAndLimit() {
+        for (long id = 1; id <= 10; id++) {
+            index.index(id, "Salad " + id, null, null);
+        }
+
+        assertThat(ids(index.search("salad", 3, id -> id % 2 == 0))).containsExactly(2L, 4L, 6L);
+    }
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::getId).toList();
+    }
+}
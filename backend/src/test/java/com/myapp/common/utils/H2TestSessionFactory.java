@@ -0,0 +1,51 @@
+package com.myapp.common.utils;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import java.util.Map;
+
+/**
+ * ساخت SessionFactory مستقل روی H2 درون حافظه‌ای برای تست‌ها و بنچمارک‌ها
+ *
+ * فقط entity های داده شده map می‌شوند، پس این SessionFactory به
+ * hibernate.cfg.xml و فایل SQLite پروژه وابسته نیست و تست‌های همزمانی
+ * روی یک دیتابیس واقعی با قفل سطح ردیف اجرا می‌شوند.
+ */
+public final class H2TestSessionFactory {
+
+    private H2TestSessionFactory() {
+    }
+
+    /**
+     * @param databaseName نام دیتابیس درون حافظه‌ای (برای جداسازی تست‌ها)
+     * @param entities entity هایی که باید map شوند
+     * @return SessionFactory با schema ساخته شده (create-drop)
+     */
+    public static SessionFactory create(String databaseName, Class<?>... entities) {
+        return create(databaseName, Map.of(), entities);
+    }
+
+    /**
+     * @param databaseName نام دیتابیس درون حافظه‌ای (برای جداسازی تست‌ها)
+     * @param settings تنظیمات اضافه Hibernate (مثلاً StatementInspector)
+     * @param entities entity هایی که باید map شوند
+     * @return SessionFactory با schema ساخته شده (create-drop)
+     */
+    public static SessionFactory create(String databaseName, Map<String, Object> settings, Class<?>... entities) {
+        Configuration configuration = new Configuration()
+            .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+            .setProperty("hibernate.connection.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1")
+            .setProperty("hibernate.connection.username", "sa")
+            .setProperty("hibernate.connection.password", "")
+            .setProperty("hibernate.connection.pool_size", "20")
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            .setProperty("hibernate.current_session_context_class", "thread")
+            .setProperty("hibernate.show_sql", "false");
+        configuration.getProperties().putAll(settings);
+        for (Class<?> entity : entities) {
+            configuration.addAnnotatedClass(entity);
+        }
+        return configuration.buildSessionFactory();
+    }
+}
@@ -0,0 +1,139 @@
+package com.myapp.common.utils;
+
+import com.myapp.common.models.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های مسیریابی خواندن بین primary و replica
+ */
+@DisplayName("ReplicaRouter Tests")
+class ReplicaRouterTest {
+
+    private static SessionFactory primary;
+    private static SessionFactory replica;
+
+    private AtomicLong now;
+    private AtomicLong lag;
+    private AtomicBoolean replicaDown;
+    private ReplicaRouter router;
+
+    @BeforeAll
+    static void setUpDatabases() {
+        primary = H2TestSessionFactory.create("router_primary", User.class);
+        replica = H2TestSessionFactory.create("router_replica", User.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabases() {
+        primary.close();
+        replica.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000L);
+        lag = new AtomicLong(0);
+        replicaDown = new AtomicBoolean();
+        ReplicaRouter.LagProbe probe = factory -> {
+            if (replicaDown.get()) {
+                throw new IllegalStateException("connection refused");
+            }
+            return lag.get();
+        };
+        router = new ReplicaRouter(() -> primary, Map.of("replica-1", replica), probe, 500, 2000, now::get);
+        router.checkReplicas();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRouter.clearCurrentUser();
+    }
+
+    @Test
+    @DisplayName("reads go to a healthy replica in read-only mode")
+    void openReadSession_healthyReplica() {
+        try (Session session = router.openReadSession()) {
+            assertThat(session.getSessionFactory()).isSameAs(replica);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+        }
+        assertThat(router.getStatistics()).containsEntry("replicaReads", 1L);
+    }
+
+    @Test
+    @DisplayName("a replica lagging beyond the limit is skipped until it catches up")
+    void openReadSession_laggingReplica_fallsBackToPrimary() {
+        lag.set(501);
+        router.checkReplicas();
+        assertThat(factoryOfReadSession()).isSameAs(primary);
+
+        lag.set(100);
+        router.checkReplicas();
+        assertThat(factoryOfReadSession()).isSameAs(replica);
+        assertThat(router.getStatistics()).containsEntry("fallbackReads", 1L);
+    }
+
+    @Test
+    @DisplayName("an unreachable replica is marked unhealthy")
+    void openReadSession_replicaDown_fallsBackToPrimary() {
+        replicaDown.set(true);
+        router.checkReplicas();
+
+        assertThat(factoryOfReadSession()).isSameAs(primary);
+    }
+
+    @Test
+    @DisplayName("after a user's own write their reads stay on primary for the sticky window")
+    void writeTracker_readYourWrites() {
+        ReplicaRouter.bindCurrentUser(7L);
+        router.writeTracker().inspect("insert into orders (id) values (?)");
+        assertThat(factoryOfReadSession()).isSameAs(primary);
+
+        ReplicaRouter.bindCurrentUser(8L);
+        assertThat(factoryOfReadSession()).isSameAs(replica);
+
+        now.addAndGet(2000);
+        ReplicaRouter.bindCurrentUser(7L);
+        assertThat(factoryOfReadSession()).isSameAs(replica);
+    }
+
+    @Test
+    @DisplayName("only data-modifying statements count as writes")
+    void isWriteStatement_detectsWrites() {
+        assertThat(ReplicaRouter.isWriteStatement("  UPDATE food_items set quantity=?")).isTrue();
+        assertThat(ReplicaRouter.isWriteStatement("/* delete Order */ delete from orders where id=?")).isTrue();
+        assertThat(ReplicaRouter.isWriteStatement("merge into wallet_balances")).isTrue();
+        assertThat(ReplicaRouter.isWriteStatement("select o.id from orders o")).isFalse();
+        assertThat(ReplicaRouter.isWriteStatement(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("without replicas every read uses primary")
+    void primaryOnly_usesPrimary() {
+        ReplicaRouter primaryOnly = ReplicaRouter.primaryOnly(() -> primary);
+
+        try (Session session = primaryOnly.openReadSession()) {
+            assertThat(session.getSessionFactory()).isSameAs(primary);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+        }
+        assertThat(primaryOnly.hasReplicas()).isFalse();
+    }
+
+    private SessionFactory factoryOfReadSession() {
+        try (Session session = router.openReadSession()) {
+            return session.getSessionFactory();
+        }
+    }
+}
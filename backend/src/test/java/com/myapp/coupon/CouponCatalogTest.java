@@ -0,0 +1,229 @@
+package com.myapp.coupon;
+
+import com.myapp.common.models.Coupon;
+import com.myapp.common.models.CouponUsage;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های کاتالوگ درون حافظه‌ای کوپن‌ها
+ *
+ * روی H2 اجرا می‌شود تا تعداد جستجوهای دیتابیس و نتایج کوئری
+ * findApplicableCoupons با کاتالوگ مقایسه شوند.
+ */
+@DisplayName("Coupon Catalog Tests")
+class CouponCatalogTest {
+
+    private static SessionFactory sessionFactory;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private CouponRepository couponRepository;
+    private CouponCatalog catalog;
+    private Restaurant restaurant;
+    private Restaurant otherRestaurant;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("coupon_catalog;NON_KEYWORDS=VALUE",
+            Restaurant.class, Coupon.class, CouponUsage.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        couponRepository = new CouponRepository(sessionFactory);
+        catalog = new CouponCatalog(couponRepository, 60_000L, 30_000L, 100, clock::get);
+        inTransaction(session -> {
+            session.createMutationQuery("delete from CouponUsage").executeUpdate();
+            session.createMutationQuery("delete from Coupon").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+        });
+        restaurant = Restaurant.forRegistration(1L, "Catalog Restaurant", "Tehran", "02100000000");
+        otherRestaurant = Restaurant.forRegistration(2L, "Other Restaurant", "Tehran", "02100000001");
+        inTransaction(session -> {
+            session.persist(restaurant);
+            session.persist(otherRestaurant);
+        });
+    }
+
+    @Nested
+    @DisplayName("Code Lookup Tests")
+    class CodeLookupTests {
+
+        @Test
+        @DisplayName("active coupons are served from memory regardless of case")
+        void findByCode_activeCoupon_servedFromCatalog() {
+            Coupon saved = coupon("SAVE20", null, null);
+
+            assertEquals(saved.getId(), catalog.findByCode(" save20 ").orElseThrow().getId());
+            assertEquals(saved.getId(), catalog.findByCode("SAVE20").orElseThrow().getId());
+            assertEquals(2L, catalog.getStats().get("hits"));
+            assertEquals(0L, catalog.getStats().get("databaseLookups"));
+        }
+
+        @Test
+        @DisplayName("unknown codes are queried once and then served from the negative cache")
+        void findByCode_unknownCode_negativelyCached() {
+            coupon("SAVE20", null, null);
+
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(catalog.findByCode("TYPO" + i).isEmpty());
+                }
+            }
+
+            assertEquals(20L, catalog.getStats().get("databaseLookups"));
+            assertEquals(40L, catalog.getStats().get("negativeHits"));
+        }
+
+        @Test
+        @DisplayName("a coupon created on another node after the last load is still found")
+        void findByCode_createdElsewhereAfterLoad_found() {
+            coupon("FIRST", null, null);
+            assertTrue(catalog.findByCode("FIRST").isPresent());
+
+            // بدون upsert روی این node (مانند ایجاد روی node دیگر)
+            Coupon created = coupon("REMOTE", null, null);
+
+            assertEquals(created.getId(), catalog.findByCode("remote").orElseThrow().getId());
+        }
+
+        @Test
+        @DisplayName("inactive coupons are read once and cached until the negative TTL expires")
+        void findByCode_inactiveCoupon_negativelyCached() {
+            Coupon inactive = coupon("OLD", null, null);
+            inactive.setIsActive(false);
+            couponRepository.update(inactive);
+
+            assertFalse(catalog.findByCode("OLD").orElseThrow().getIsActive());
+            assertFalse(catalog.findByCode("OLD").orElseThrow().getIsActive());
+            assertEquals(1L, catalog.getStats().get("databaseLookups"));
+            assertEquals(1L, catalog.getStats().get("negativeHits"));
+
+            clock.addAndGet(30_000L);
+            catalog.findByCode("OLD");
+            assertEquals(2L, catalog.getStats().get("databaseLookups"));
+        }
+
+        @Test
+        @DisplayName("coupons created, deactivated and evicted on this node are visible immediately")
+        void upsertAndEvict_visibleImmediately() {
+            coupon("FIRST", null, null);
+            assertTrue(catalog.findByCode("NEW").isEmpty());
+
+            Coupon created = coupon("NEW", null, null);
+            catalog.upsert(created);
+            assertEquals(created.getId(), catalog.findByCode("new").orElseThrow().getId());
+
+            created.setIsActive(false);
+            catalog.upsert(couponRepository.update(created));
+            assertFalse(catalog.findByCode("NEW").orElseThrow().getIsActive());
+            assertTrue(catalog.findApplicable(100.0, null).stream().noneMatch(c -> c.getCode().equals("NEW")));
+
+            couponRepository.delete(created.getId());
+            catalog.evict(created.getId());
+            assertTrue(catalog.findByCode("NEW").isEmpty());
+        }
+
+        @Test
+        @DisplayName("changes made by other nodes are picked up by the periodic reload")
+        void reload_picksUpExternalChanges() {
+            coupon("FIRST", null, null);
+            assertTrue(catalog.findByCode("FIRST").isPresent());
+
+            // کوپنی که نود دیگری ساخته است (بدون upsert روی این نود)
+            Coupon external = coupon("EXTERNAL", null, null);
+
+            clock.addAndGet(60_000L);
+            assertEquals(external.getId(), catalog.findByCode("EXTERNAL").orElseThrow().getId());
+            assertEquals(2L, catalog.getStats().get("reloads"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Applicable Coupon Tests")
+    class ApplicableCouponTests {
+
+        @Test
+        @DisplayName("in-memory filtering matches the repository query")
+        void findApplicable_matchesRepositoryQuery() {
+            coupon("GLOBAL0", null, null);
+            coupon("GLOBAL50", 50.0, null);
+            coupon("GLOBAL200", 200.0, null);
+            coupon("REST30", 30.0, restaurant);
+            coupon("OTHER10", 10.0, otherRestaurant);
+            Coupon exhausted = coupon("EXHAUSTED", null, null);
+            exhausted.setUsageLimit(1);
+            exhausted.setUsedCount(1);
+            couponRepository.update(exhausted);
+            Coupon upcoming = coupon("UPCOMING", null, null);
+            upcoming.setValidFrom(LocalDateTime.now().plusDays(1));
+            couponRepository.update(upcoming);
+            Coupon fixed = Coupon.createFixedAmountCoupon("FIXED", "FIXED", 15.0,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+            fixed.setCreatedBy(1L);
+            couponRepository.save(fixed);
+
+            for (double amount : new double[]{10.0, 49.99, 50.0, 100.0, 500.0}) {
+                for (Long restaurantId : new Long[]{null, restaurant.getId(), otherRestaurant.getId(), 999L}) {
+                    // ترتیب کوپن‌های هم‌نوع و هم‌مقدار در SQL مشخص نیست
+                    assertEquals(sortedCodes(couponRepository.findApplicableCoupons(amount, restaurantId)),
+                                 sortedCodes(catalog.findApplicable(amount, restaurantId)),
+                                 "amount=" + amount + ", restaurant=" + restaurantId);
+                }
+            }
+            List<String> applicable = catalog.findApplicable(100.0, restaurant.getId()).stream()
+                .map(Coupon::getCode).toList();
+            assertEquals(List.of("FIXED", "GLOBAL0", "GLOBAL50", "REST30"), applicable.stream().sorted().toList());
+            // FIXED_AMOUNT قبل از PERCENTAGE، مانند ORDER BY c.type
+            assertEquals("FIXED", applicable.get(0));
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private Coupon coupon(String code, Double minOrderAmount, Restaurant owner) {
+        Coupon coupon = Coupon.createPercentageCoupon(code, code, 10.0,
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+        coupon.setCreatedBy(1L);
+        coupon.setMinOrderAmount(minOrderAmount);
+        coupon.setRestaurant(owner);
+        return couponRepository.save(coupon);
+    }
+
+    private static List<String> sortedCodes(List<Coupon> coupons) {
+        return coupons.stream().map(Coupon::getCode).sorted().toList();
+    }
+
+    private interface SessionWork {
+        void run(Session session);
+    }
+
+    private static void inTransaction(SessionWork work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            work.run(session);
+            session.getTransaction().commit();
+        }
+    }
+}
@@ -174,17 +174,36 @@ public class CouponCompleteTest {
         void shouldTrackCouponUsageWithFullDetails() {
             // Arrange
             when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
-            when(couponRepository.update(any(Coupon.class))).thenReturn(percentageCoupon);
-            when(couponUsageRepository.save(any(CouponUsage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(couponRepository.claimUsage(1L)).thenReturn(true);
+            when(couponUsageRepository.saveWithinUserLimit(any(CouponUsage.class), any())).thenReturn(true);
             
             // Act
             CouponUsage result = couponService.useCouponWithTracking(1L, 3L, 100L, 20.0, 100.0);
             
             // Assert
             assertNotNull(result);
-            verify(couponUsageRepository).save(any(CouponUsage.class));
-            verify(couponRepository).update(percentageCoupon);
-            assertEquals(1, percentageCoupon.getUsedCount());
+            assertEquals(3L, result.getUserId());
+            assertEquals(100L, result.getOrderId());
+            verify(couponUsageRepository).saveWithinUserLimit(result, percentageCoupon.getPerUserLimit());
+            verify(couponRepository).claimUsage(1L);
+            verify(couponRepository, never()).decrementUsageCount(1L);
+        }
+        
+        @Test
+        @DisplayName("Should give back the claimed usage when the user limit is reached")
+        void shouldReleaseClaimWhenUserLimitReached() {
+            // Arrange
+            percentageCoupon.setPerUserLimit(1);
+            when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
+            when(couponRepository.claimUsage(1L)).thenReturn(true);
+            when(couponRepository.decrementUsageCount(1L)).thenReturn(true);
+            when(couponUsageRepository.saveWithinUserLimit(any(CouponUsage.class), eq(1))).thenReturn(false);
+            
+            // Act & Assert
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> couponService.useCouponWithTracking(1L, 3L, 100L, 20.0, 100.0));
+            assertEquals("User has exceeded the per-user limit for this coupon", exception.getMessage());
+            verify(couponRepository).decrementUsageCount(1L);
         }
         
         @Test
@@ -317,21 +336,22 @@ public class CouponCompleteTest {
         void shouldHandleComplexCouponChainScenarios() {
             // Arrange - Scenario: User applies coupon, order is cancelled, coupon is reverted
             when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
-            when(couponRepository.update(any(Coupon.class))).thenReturn(percentageCoupon);
-            when(couponUsageRepository.save(any(CouponUsage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(couponRepository.claimUsage(1L)).thenReturn(true);
+            when(couponRepository.decrementUsageCount(1L)).thenReturn(true);
+            when(couponUsageRepository.saveWithinUserLimit(any(CouponUsage.class), any())).thenReturn(true);
             
             // Act
             // 1. Use coupon
             CouponUsage usage = couponService.useCouponWithTracking(1L, 3L, 100L, 20.0, 100.0);
-            assertEquals(1, percentageCoupon.getUsedCount());
+            assertNotNull(usage);
             
             // 2. Revert coupon (order cancelled)
             couponService.revertCouponUsage(1L);
-            assertEquals(0, percentageCoupon.getUsedCount());
+            verify(couponRepository).decrementUsageCount(1L);
             
             // 3. Use again (new order)
             couponService.useCouponWithTracking(1L, 3L, 101L, 15.0, 75.0);
-            assertEquals(1, percentageCoupon.getUsedCount());
+            verify(couponRepository, times(2)).claimUsage(1L);
         }
     }
     
@@ -0,0 +1,249 @@
+package com.myapp.coupon;
+
+import com.myapp.common.models.Coupon;
+import com.myapp.common.models.CouponUsage;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های استفاده اتمیک از کوپن
+ *
+ * روی H2 درون حافظه‌ای اجرا می‌شود تا درخواست‌های همزمان واقعاً برای
+ * ظرفیت یک کوپن و سهمیه‌های یک کاربر رقابت کنند.
+ */
+@DisplayName("Coupon Redemption Tests")
+class CouponRedemptionTest {
+
+    private static SessionFactory sessionFactory;
+
+    private CouponRepository couponRepository;
+    private CouponUsageRepository couponUsageRepository;
+    private CouponRedemptionEngine engine;
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("coupon_redemption;NON_KEYWORDS=VALUE",
+            Restaurant.class, Coupon.class, CouponUsage.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        couponRepository = new CouponRepository(sessionFactory);
+        couponUsageRepository = new CouponUsageRepository(sessionFactory);
+        engine = new CouponRedemptionEngine(couponRepository, couponUsageRepository, 1000L, clock::get);
+        inTransaction(session -> {
+            session.createMutationQuery("delete from CouponUsage").executeUpdate();
+            session.createMutationQuery("delete from Coupon").executeUpdate();
+        });
+    }
+
+    @Nested
+    @DisplayName("Global Limit Tests")
+    class GlobalLimitTests {
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("concurrent redemptions never exceed the usage limit")
+        void redeem_concurrentUsers_neverExceedLimit() throws Exception {
+            Coupon coupon = coupon("FLASH", 10, null);
+
+            AtomicInteger redeemed = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            runConcurrently(50, index -> {
+                CouponRedemptionEngine.Redemption result =
+                    engine.redeem(coupon, 100L + index, 1000L + index, 10.0, 100.0);
+                if (result.isRedeemed()) {
+                    redeemed.incrementAndGet();
+                } else {
+                    assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED, result.getOutcome());
+                    rejected.incrementAndGet();
+                }
+            });
+
+            assertEquals(10, redeemed.get());
+            assertEquals(40, rejected.get());
+            assertEquals(10, usedCount(coupon));
+            assertEquals(10L, couponUsageRepository.countActiveUsage());
+        }
+
+        @Test
+        @DisplayName("an exhausted coupon is rejected without a database round trip until the memo expires")
+        void claim_exhaustedCoupon_isRejectedFromMemo() {
+            Coupon coupon = coupon("ONCE", 1, null);
+            assertEquals(CouponRedemptionEngine.Outcome.REDEEMED, engine.claim(coupon.getId()));
+            assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED, engine.claim(coupon.getId()));
+
+            assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED, engine.claim(coupon.getId()));
+            assertEquals(1L, engine.getStats().get("fastRejected"));
+
+            // برگرداندن استفاده روی همین نود، حالت تمام شده را فوراً پاک می‌کند
+            assertTrue(engine.release(coupon.getId()));
+            assertEquals(CouponRedemptionEngine.Outcome.REDEEMED, engine.claim(coupon.getId()));
+
+            assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED, engine.claim(coupon.getId()));
+            clock.addAndGet(1001L);
+            assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED, engine.claim(coupon.getId()));
+            assertEquals(1L, engine.getStats().get("fastRejected"));
+            assertEquals(1, usedCount(coupon));
+        }
+
+        @Test
+        @DisplayName("rejections report why the coupon cannot be used")
+        void claim_invalidCoupons_reportReason() {
+            Coupon inactive = coupon("INACTIVE", null, null);
+            inactive.setIsActive(false);
+            couponRepository.update(inactive);
+            Coupon expired = coupon("EXPIRED", null, null);
+            expired.setValidUntil(LocalDateTime.now().minusDays(1));
+            couponRepository.update(expired);
+            Coupon future = coupon("FUTURE", null, null);
+            future.setValidFrom(LocalDateTime.now().plusDays(1));
+            couponRepository.update(future);
+
+            assertEquals(CouponRedemptionEngine.Outcome.INACTIVE, engine.claim(inactive.getId()));
+            assertEquals(CouponRedemptionEngine.Outcome.EXPIRED, engine.claim(expired.getId()));
+            assertEquals(CouponRedemptionEngine.Outcome.NOT_STARTED, engine.claim(future.getId()));
+            assertEquals(CouponRedemptionEngine.Outcome.NOT_FOUND, engine.claim(999_999L));
+            assertEquals(0, usedCount(inactive) + usedCount(expired) + usedCount(future));
+        }
+    }
+
+    @Nested
+    @DisplayName("Per-User Limit Tests")
+    class PerUserLimitTests {
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("concurrent redemptions by one user are capped at the per-user limit")
+        void redeem_sameUserConcurrently_respectsPerUserLimit() throws Exception {
+            Coupon coupon = coupon("PERUSER", 100, 2);
+
+            AtomicInteger redeemed = new AtomicInteger();
+            AtomicInteger userLimited = new AtomicInteger();
+            runConcurrently(20, index -> {
+                CouponRedemptionEngine.Redemption result =
+                    engine.redeem(coupon, 7L, 2000L + index, 5.0, 50.0);
+                if (result.isRedeemed()) {
+                    redeemed.incrementAndGet();
+                } else {
+                    assertEquals(CouponRedemptionEngine.Outcome.USER_LIMIT_REACHED, result.getOutcome());
+                    userLimited.incrementAndGet();
+                }
+            });
+
+            assertEquals(2, redeemed.get());
+            assertEquals(18, userLimited.get());
+            // ظرفیت کلی رزرو شده برای درخواست‌های رد شده برگردانده شده است
+            assertEquals(2, usedCount(coupon));
+            assertEquals(2L, couponUsageRepository.countActiveByCouponIdAndUserId(coupon.getId(), 7L));
+        }
+
+        @Test
+        @DisplayName("reverting an order frees the user's slot and the global capacity")
+        void releaseOrder_freesSlot() {
+            Coupon coupon = coupon("REVERT", 1, 1);
+            assertTrue(engine.redeem(coupon, 7L, 1L, 5.0, 50.0).isRedeemed());
+            assertEquals(CouponRedemptionEngine.Outcome.LIMIT_REACHED,
+                         engine.redeem(coupon, 8L, 2L, 5.0, 50.0).getOutcome());
+
+            assertTrue(engine.releaseOrder(1L).isPresent());
+            assertTrue(engine.releaseOrder(1L).isEmpty());
+            assertEquals(0, usedCount(coupon));
+
+            assertTrue(engine.redeem(coupon, 7L, 3L, 5.0, 50.0).isRedeemed());
+            assertEquals(1, usedCount(coupon));
+        }
+
+        @Test
+        @DisplayName("the same order cannot redeem a coupon twice")
+        void redeem_sameOrderTwice_isRejected() {
+            Coupon coupon = coupon("TWICE", 10, 5);
+            assertTrue(engine.redeem(coupon, 7L, 1L, 5.0, 50.0).isRedeemed());
+
+            assertThrows(IllegalStateException.class, () -> engine.redeem(coupon, 7L, 1L, 5.0, 50.0));
+            assertEquals(1, usedCount(coupon));
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private Coupon coupon(String code, Integer usageLimit, Integer perUserLimit) {
+        Coupon coupon = Coupon.createPercentageCoupon(code, code, 10.0,
+            LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+        coupon.setCreatedBy(1L);
+        coupon.setUsageLimit(usageLimit);
+        coupon.setPerUserLimit(perUserLimit);
+        return couponRepository.save(coupon);
+    }
+
+    private static int usedCount(Coupon coupon) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Coupon.class, coupon.getId()).getUsedCount();
+        }
+    }
+
+    private interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int tasks, IndexedTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface SessionWork {
+        void run(Session session);
+    }
+
+    private static void inTransaction(SessionWork work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            work.run(session);
+            session.getTransaction().commit();
+        }
+    }
+}
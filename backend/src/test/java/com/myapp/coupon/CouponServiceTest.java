@@ -621,31 +621,46 @@ public class CouponServiceTest {
         @DisplayName("Should use coupon successfully")
         void shouldUseCouponSuccessfully() {
             // Arrange
-            when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
-            when(couponRepository.update(any(Coupon.class))).thenReturn(percentageCoupon);
+            when(couponRepository.claimUsage(1L)).thenReturn(true);
             
             // Act
             couponService.useCoupon(1L);
             
-            // Assert
-            assertEquals(1, percentageCoupon.getUsedCount());
-            verify(couponRepository).update(percentageCoupon);
+            // Assert - افزایش اتمیک در دیتابیس، بدون update کامل entity
+            verify(couponRepository).claimUsage(1L);
+            verify(couponRepository, never()).update(any(Coupon.class));
+        }
+        
+        @Test
+        @DisplayName("Should reject coupon when usage limit is exhausted")
+        void shouldRejectCouponWhenUsageLimitExhausted() {
+            // Arrange - UPDATE شرطی هیچ ردیفی را تغییر نمی‌دهد
+            percentageCoupon.setUsageLimit(5);
+            percentageCoupon.setUsedCount(5);
+            when(couponRepository.claimUsage(1L)).thenReturn(false);
+            when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
+            
+            // Act & Assert
+            IllegalStateException first = assertThrows(IllegalStateException.class, () -> couponService.useCoupon(1L));
+            assertEquals("Coupon usage limit exceeded", first.getMessage());
+            
+            // درخواست بعدی بدون رفتن به دیتابیس رد می‌شود
+            assertThrows(IllegalStateException.class, () -> couponService.useCoupon(1L));
+            verify(couponRepository, times(1)).claimUsage(1L);
         }
         
         @Test
         @DisplayName("Should revert coupon usage successfully")
         void shouldRevertCouponUsageSuccessfully() {
             // Arrange
-            percentageCoupon.setUsedCount(5);
-            when(couponRepository.findById(1L)).thenReturn(Optional.of(percentageCoupon));
-            when(couponRepository.update(any(Coupon.class))).thenReturn(percentageCoupon);
+            when(couponRepository.decrementUsageCount(1L)).thenReturn(true);
             
             // Act
             couponService.revertCouponUsage(1L);
             
             // Assert
-            assertEquals(4, percentageCoupon.getUsedCount());
-            verify(couponRepository).update(percentageCoupon);
+            verify(couponRepository).decrementUsageCount(1L);
+            verify(couponRepository, never()).update(any(Coupon.class));
         }
         
         @Test
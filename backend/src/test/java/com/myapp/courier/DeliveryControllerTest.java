@@ -4,6 +4,8 @@ import com.myapp.common.exceptions.NotFoundException;
 import com.myapp.common.models.Delivery;
 import com.myapp.common.models.DeliveryStatus;
 import com.myapp.common.models.Order;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +22,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -211,13 +215,14 @@ class DeliveryControllerTest {
             
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/deliveries/courier/" + courierId));
-            when(deliveryService.getCourierDeliveryHistory(courierId)).thenReturn(deliveries);
+            when(deliveryService.getCourierDeliveryHistoryPage(eq(courierId), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(deliveries, null, CursorPageRequest.DEFAULT_LIMIT));
 
             // Act
             controller.handle(exchange);
 
             // Assert
-            verify(deliveryService).getCourierDeliveryHistory(courierId);
+            verify(deliveryService).getCourierDeliveryHistoryPage(eq(courierId), any(CursorPageRequest.class));
             verify(exchange, times(1)).sendResponseHeaders(200, responseBody.toByteArray().length);
         }
 
@@ -265,13 +270,14 @@ class DeliveryControllerTest {
             
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/deliveries/status/pending"));
-            when(deliveryService.getDeliveriesByStatus(status)).thenReturn(deliveries);
+            when(deliveryService.getDeliveriesByStatusPage(eq(status), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(deliveries, null, CursorPageRequest.DEFAULT_LIMIT));
 
             // Act
             controller.handle(exchange);
 
             // Assert
-            verify(deliveryService).getDeliveriesByStatus(status);
+            verify(deliveryService).getDeliveriesByStatusPage(eq(status), any(CursorPageRequest.class));
             verify(exchange, times(1)).sendResponseHeaders(200, responseBody.toByteArray().length);
         }
 
@@ -291,13 +297,14 @@ class DeliveryControllerTest {
             
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/deliveries/active"));
-            when(deliveryService.getActiveDeliveries()).thenReturn(deliveries);
+            when(deliveryService.getActiveDeliveriesPage(any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(deliveries, null, CursorPageRequest.DEFAULT_LIMIT));
 
             // Act
             controller.handle(exchange);
 
             // Assert
-            verify(deliveryService).getActiveDeliveries();
+            verify(deliveryService).getActiveDeliveriesPage(any(CursorPageRequest.class));
             verify(exchange, times(1)).sendResponseHeaders(200, responseBody.toByteArray().length);
         }
 
@@ -317,13 +324,14 @@ class DeliveryControllerTest {
             
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/deliveries/pending"));
-            when(deliveryService.getDeliveriesByStatus(DeliveryStatus.PENDING)).thenReturn(deliveries);
+            when(deliveryService.getDeliveriesByStatusPage(eq(DeliveryStatus.PENDING), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(deliveries, null, CursorPageRequest.DEFAULT_LIMIT));
 
             // Act
             controller.handle(exchange);
 
             // Assert
-            verify(deliveryService).getDeliveriesByStatus(DeliveryStatus.PENDING);
+            verify(deliveryService).getDeliveriesByStatusPage(eq(DeliveryStatus.PENDING), any(CursorPageRequest.class));
             verify(exchange, times(1)).sendResponseHeaders(200, responseBody.toByteArray().length);
         }
 
@@ -465,13 +473,14 @@ class DeliveryControllerTest {
             
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/deliveries/active"));
-            when(deliveryService.getActiveDeliveries()).thenReturn(emptyList);
+            when(deliveryService.getActiveDeliveriesPage(any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(emptyList, null, CursorPageRequest.DEFAULT_LIMIT));
 
             // Act
             controller.handle(exchange);
 
             // Assert
-            verify(deliveryService).getActiveDeliveries();
+            verify(deliveryService).getActiveDeliveriesPage(any(CursorPageRequest.class));
             verify(exchange, times(1)).sendResponseHeaders(200, responseBody.toByteArray().length);
             assertTrue(responseBody.toString().contains("[]"));
         }
@@ -523,6 +523,7 @@ class DeliveryServiceTest {
             assertNotNull(result);
             verify(deliveryRepository).findById(1L);
             verify(deliveryRepository).update(any(Delivery.class));
+            verifyNoInteractions(orderRepository);
         }
 
         /**
@@ -605,6 +606,7 @@ class DeliveryServiceTest {
             assertNotNull(result);
             verify(deliveryRepository).findById(1L);
             verify(deliveryRepository).update(any(Delivery.class));
+            verifyNoInteractions(orderRepository);
         }
 
         @Test
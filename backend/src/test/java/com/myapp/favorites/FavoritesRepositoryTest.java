@@ -4,6 +4,9 @@ import com.myapp.common.models.Favorite;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.Cursor;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -524,44 +527,45 @@ public class FavoritesRepositoryTest {
         @DisplayName("Should find favorites with pagination")
         void shouldFindFavoritesWithPagination() {
             // Act
-            List<Favorite> result = favoritesRepository.findWithPagination(0, 10);
+            CursorPage<Favorite> result = favoritesRepository.findWithPagination(CursorPageRequest.of(null, 10));
             
             // Assert
             assertNotNull(result);
-            assertTrue(result.size() <= 10);
+            assertTrue(result.getItems().size() <= 10);
         }
         
         @Test
-        @DisplayName("Should handle negative offset in pagination")
+        @DisplayName("Should handle negative limit in pagination")
         void shouldHandleNegativeOffsetInPagination() {
             // Act
-            List<Favorite> result = favoritesRepository.findWithPagination(-1, 10);
+            CursorPage<Favorite> result = favoritesRepository.findWithPagination(CursorPageRequest.of(null, -1));
             
             // Assert
             assertNotNull(result);
-            // Should handle gracefully
+            assertEquals(CursorPageRequest.DEFAULT_LIMIT, result.getLimit());
         }
         
         @Test
-        @DisplayName("Should handle zero limit in pagination")
+        @DisplayName("Should fall back to default limit for zero limit in pagination")
         void shouldHandleZeroLimitInPagination() {
             // Act
-            List<Favorite> result = favoritesRepository.findWithPagination(0, 0);
+            CursorPage<Favorite> result = favoritesRepository.findWithPagination(CursorPageRequest.of(null, 0));
             
             // Assert
             assertNotNull(result);
-            assertTrue(result.isEmpty());
+            assertEquals(CursorPageRequest.DEFAULT_LIMIT, result.getLimit());
         }
         
         @Test
-        @DisplayName("Should handle large offset in pagination")
+        @DisplayName("Should handle cursor beyond data in pagination")
         void shouldHandleLargeOffsetInPagination() {
             // Act
-            List<Favorite> result = favoritesRepository.findWithPagination(1000000, 10);
+            CursorPage<Favorite> result = favoritesRepository.findWithPagination(
+                CursorPageRequest.of(new Cursor(LocalDateTime.of(2000, 1, 1, 0, 0), 0L), 10));
             
             // Assert
             assertNotNull(result);
-            assertTrue(result.isEmpty()); // Should return empty for large offset
+            assertTrue(result.getItems().isEmpty()); // Should return empty past the oldest row
         }
         
         @Test
@@ -676,7 +680,7 @@ public class FavoritesRepositoryTest {
             
             favoritesRepository.findRecentFavorites(30);
             favoritesRepository.findFavoritesWithNotes();
-            favoritesRepository.findWithPagination(0, 50);
+            favoritesRepository.findWithPagination(CursorPageRequest.of(null, 50));
             
             long endTime = System.currentTimeMillis();
             
@@ -6,6 +6,8 @@ import com.myapp.common.models.Favorite;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.restaurant.RestaurantRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -869,14 +871,17 @@ public class FavoritesServiceTest {
             List<Favorite> pagedFavorites = Arrays.asList(testFavorite);
             
             // آماده‌سازی mock behavior
-            when(mockFavoritesRepository.findWithPagination(0, 10)).thenReturn(pagedFavorites);
+            CursorPageRequest request = CursorPageRequest.of(null, 10);
+            when(mockFavoritesRepository.findWithPagination(request))
+                .thenReturn(new CursorPage<>(pagedFavorites, null, 10));
             
             // اجرای متد تحت تست
-            List<Favorite> result = favoritesService.getFavoritesWithPagination(0, 10);
+            CursorPage<Favorite> result = favoritesService.getFavoritesWithPagination(request);
             
             // بررسی نتایج
             assertNotNull(result);
-            assertEquals(1, result.size());
+            assertEquals(1, result.getItems().size());
+            assertFalse(result.hasMore());
         }
         
         /**
@@ -885,16 +890,12 @@ public class FavoritesServiceTest {
         @Test
         @DisplayName("Should throw exception for invalid pagination parameters")
         void shouldThrowExceptionForInvalidPaginationParameters() {
-            // بررسی پرتاب exception برای page منفی
-            assertThrows(IllegalArgumentException.class, () -> 
-                favoritesService.getFavoritesWithPagination(-1, 10));
-            
-            // بررسی پرتاب exception برای size صفر یا منفی
+            // بررسی پرتاب exception برای درخواست null
             assertThrows(IllegalArgumentException.class, () -> 
-                favoritesService.getFavoritesWithPagination(0, 0));
+                favoritesService.getFavoritesWithPagination(null));
             
-            assertThrows(IllegalArgumentException.class, () -> 
-                favoritesService.getFavoritesWithPagination(0, -1));
+            // بررسی عدم فراخوانی repository
+            verify(mockFavoritesRepository, never()).findWithPagination(any());
         }
         
         /**
@@ -0,0 +1,133 @@
+package com.myapp.notification;
+
+import com.myapp.common.models.BroadcastReadState;
+import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.Notification.NotificationType;
+import com.myapp.common.models.NotificationBroadcast;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های نشانگر فشرده خوانده شدن broadcast ها
+ */
+@DisplayName("BroadcastReadState Tests")
+class BroadcastReadStateTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    /** broadcast با شناسه و ترتیب ایجاد مستقل (شناسه‌های pooled هر node) */
+    private static NotificationBroadcast broadcast(long id, int minute) {
+        NotificationBroadcast broadcast = new NotificationBroadcast(NotificationType.SYSTEM_MAINTENANCE,
+            "title", "message", NotificationPriority.MEDIUM);
+        broadcast.setId(id);
+        broadcast.setCreatedAt(BASE.plusMinutes(minute));
+        return broadcast;
+    }
+
+    @Test
+    @DisplayName("reads in order advance the watermark and keep no extra ids")
+    void markRead_inOrder_advancesWatermark() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        NotificationBroadcast b3 = broadcast(3L, 1);
+        NotificationBroadcast b7 = broadcast(7L, 2);
+        NotificationBroadcast b9 = broadcast(9L, 3);
+        List<NotificationBroadcast> active = List.of(b3, b7, b9);
+
+        assertThat(state.markRead(b3, active)).isTrue();
+        assertThat(state.markRead(b7, active)).isTrue();
+
+        assertThat(state.getReadUpTo()).isEqualTo(7L);
+        assertThat(state.getReadIds()).isEmpty();
+        assertThat(state.isRead(b9)).isFalse();
+    }
+
+    @Test
+    @DisplayName("out-of-order reads are kept until the gap is read")
+    void markRead_outOfOrder_keepsIdsUntilGapClosed() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        NotificationBroadcast b3 = broadcast(3L, 1);
+        NotificationBroadcast b7 = broadcast(7L, 2);
+        NotificationBroadcast b9 = broadcast(9L, 3);
+        List<NotificationBroadcast> active = List.of(b3, b7, b9);
+
+        state.markRead(b9, active);
+        assertThat(state.getReadUpTo()).isZero();
+        assertThat(state.getReadIds()).isEqualTo("9");
+        assertThat(state.markRead(b9, active)).isFalse();
+
+        state.markRead(b3, active);
+        assertThat(state.getReadUpTo()).isEqualTo(3L);
+
+        state.markRead(b7, active);
+        assertThat(state.getReadUpTo()).isEqualTo(9L);
+        assertThat(state.getReadIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("watermark follows creation order, not id order, across pooled id blocks")
+    void markRead_idsOutOfCreationOrder_watermarkByCreation() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        // node دوم از بلوک بالاتر شناسه گرفته و زودتر ایجاد کرده است
+        NotificationBroadcast older = broadcast(51L, 1);
+        NotificationBroadcast newer = broadcast(2L, 2);
+        List<NotificationBroadcast> active = List.of(older, newer);
+
+        state.markRead(older, active);
+
+        assertThat(state.isRead(older)).isTrue();
+        assertThat(state.isRead(newer)).isFalse();
+
+        state.markAllRead(older);
+        assertThat(state.isRead(newer)).isFalse();
+    }
+
+    @Test
+    @DisplayName("expired broadcasts do not block the watermark")
+    void markRead_expiredGap_doesNotBlock() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        NotificationBroadcast b9 = broadcast(9L, 5);
+
+        state.markRead(b9, List.of(b9));
+
+        assertThat(state.getReadUpTo()).isEqualTo(9L);
+        assertThat(state.isRead(broadcast(4L, 1))).isTrue();
+    }
+
+    @Test
+    @DisplayName("out-of-order ids are capped by folding the oldest unread into the watermark")
+    void markRead_overCap_foldsIntoWatermark() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        List<NotificationBroadcast> active = new ArrayList<>();
+        for (int i = 0; i <= BroadcastReadState.MAX_READ_IDS + 10; i++) {
+            active.add(broadcast(1000L - i, i));
+        }
+
+        // اولین broadcast هرگز خوانده نمی‌شود
+        for (int i = 1; i < active.size(); i++) {
+            state.markRead(active.get(i), active);
+        }
+
+        assertThat(state.getReadIds().split(",")).hasSizeLessThanOrEqualTo(BroadcastReadState.MAX_READ_IDS);
+        assertThat(state.getReadIds().length()).isLessThanOrEqualTo(1000);
+        assertThat(active).allMatch(state::isRead);
+    }
+
+    @Test
+    @DisplayName("mark all read collapses to a single watermark")
+    void markAllRead_collapses() {
+        BroadcastReadState state = new BroadcastReadState(1L);
+        NotificationBroadcast b12 = broadcast(12L, 3);
+        state.markRead(broadcast(9L, 2), List.of(broadcast(3L, 1), broadcast(9L, 2), b12));
+
+        state.markAllRead(b12);
+
+        assertThat(state.getReadUpTo()).isEqualTo(12L);
+        assertThat(state.getReadIds()).isEmpty();
+    }
+}
@@ -0,0 +1,207 @@
+package com.myapp.notification;
+
+import com.myapp.auth.AuthRepository;
+import com.myapp.common.events.EventBus;
+import com.myapp.common.models.BroadcastReadState;
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.Notification.NotificationType;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.NotificationBroadcast.BroadcastStatus;
+import com.myapp.common.models.User;
+import com.myapp.common.models.User.Role;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * تست‌های تحویل broadcast ها روی H2: fan-out-on-write (chunk به chunk و قابل
+ * ادامه) و fan-out-on-read (ادغام در زمان خواندن)
+ */
+@DisplayName("Notification Broadcast Delivery Tests")
+class NotificationBroadcastDeliveryTest {
+
+    private static SessionFactory sessionFactory;
+    private static NotificationRepository repository;
+    private static NotificationService service;
+
+    @BeforeAll
+    static void setUp() {
+        System.setProperty("notification.broadcast.chunk.size", "4");
+        sessionFactory = H2TestSessionFactory.create("notification_broadcast",
+            User.class, Notification.class, NotificationBroadcast.class, BroadcastReadState.class);
+        repository = new NotificationRepository(sessionFactory);
+        AuthRepository authRepository = mock(AuthRepository.class);
+        when(authRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        service = new NotificationService(repository, authRepository);
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < 10; i++) {
+                User user = new User("User " + i, "0912000000" + i, "u" + i + "@test.com", "hash", Role.BUYER, "address");
+                user.setIsActive(i != 3);
+                session.persist(user);
+            }
+            tx.commit();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.clearProperty("notification.broadcast.chunk.size");
+        System.clearProperty("notification.broadcast.fanout");
+        sessionFactory.close();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.createMutationQuery("DELETE FROM Notification").executeUpdate();
+            session.createMutationQuery("DELETE FROM NotificationBroadcast").executeUpdate();
+            session.createMutationQuery("DELETE FROM BroadcastReadState").executeUpdate();
+            tx.commit();
+        }
+        System.clearProperty("notification.broadcast.fanout");
+        repository.deleteExpiredBroadcasts(-1);
+    }
+
+    @Test
+    @DisplayName("a broadcast reaches every active user exactly once")
+    void broadcast_deliversToActiveUsers() {
+        System.setProperty("notification.broadcast.fanout", "write");
+        NotificationBroadcast broadcast = service.broadcastPromotionalMessage("Offer", "50% off", NotificationPriority.MEDIUM);
+
+        assertThat(broadcast.getStatus()).isEqualTo(BroadcastStatus.COMPLETED);
+        assertThat(broadcast.getDeliveredCount()).isEqualTo(9L);
+        assertThat(countNotifications()).isEqualTo(9L);
+        assertThat(repository.findBroadcastById(broadcast.getId())).get()
+            .satisfies(stored -> {
+                assertThat(stored.getStatus()).isEqualTo(BroadcastStatus.COMPLETED);
+                assertThat(stored.getCompletedAt()).isNotNull();
+            });
+    }
+
+    @Test
+    @DisplayName("a chunked broadcast publishes a single real-time event for all users")
+    void broadcast_publishesOneEvent() {
+        System.setProperty("notification.broadcast.fanout", "write");
+        List<EventBus.Event> events = new CopyOnWriteArrayList<>();
+        try (EventBus.Subscription ignored = EventBus.global().subscribe(EventBus.ALL_USERS, event -> {
+            if ("notification".equals(event.type()) && event.data().contains("Flash sale")) {
+                events.add(event);
+            }
+        })) {
+            NotificationBroadcast broadcast = service.broadcastPromotionalMessage("Flash sale", "message", NotificationPriority.LOW);
+            assertThat(broadcast.getDeliveredCount()).isEqualTo(9L);
+        }
+
+        assertThat(events).singleElement()
+            .satisfies(event -> assertThat(event.userId()).isEqualTo(EventBus.ALL_USERS));
+    }
+
+    @Test
+    @DisplayName("an interrupted broadcast resumes after the last committed chunk")
+    void resume_continuesFromProgress() {
+        NotificationBroadcast broadcast = repository.saveBroadcast(
+            new NotificationBroadcast(NotificationType.PROMOTIONAL, "Offer", "message", NotificationPriority.LOW));
+        List<Long> firstChunk = repository.findActiveUserIdsAfter(0, 4);
+        assertThat(repository.deliverBroadcastChunk(broadcast, firstChunk)).isEqualTo(4);
+
+        // همان chunk دوباره تحویل نمی‌شود
+        NotificationBroadcast stale = repository.findBroadcastById(broadcast.getId()).orElseThrow();
+        stale.setLastUserId(0L);
+        assertThat(repository.deliverBroadcastChunk(stale, firstChunk)).isZero();
+
+        assertThat(service.resumeUnfinishedBroadcasts()).isEqualTo(5L);
+        assertThat(countNotifications()).isEqualTo(9L);
+        assertThat(repository.findUnfinishedBroadcasts()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a fan-out-on-read broadcast is stored once and merged into every user's feed")
+    void fanOutOnRead_mergedAtReadTime() {
+        saveNotification(1L, "personal", LocalDateTime.now().minusHours(1));
+
+        NotificationBroadcast broadcast = service.broadcastPromotionalMessage("Offer", "50% off", NotificationPriority.MEDIUM);
+
+        assertThat(broadcast.getFanOut()).isEqualTo(NotificationBroadcast.FanOut.READ);
+        assertThat(countNotifications()).isEqualTo(1L);
+        assertThat(repository.getUnreadCount(1L)).isEqualTo(2L);
+        assertThat(repository.getUnreadCount(2L)).isEqualTo(1L);
+        assertThat(repository.findByUserId(2L)).singleElement()
+            .satisfies(n -> {
+                assertThat(n.getId()).isEqualTo(-broadcast.getId());
+                assertThat(n.getTitle()).isEqualTo("Offer");
+                assertThat(n.getIsRead()).isFalse();
+            });
+
+        assertThat(service.markBroadcastAsRead(2L, broadcast.getId())).isTrue();
+        assertThat(service.markBroadcastAsRead(2L, broadcast.getId())).isFalse();
+        assertThat(repository.getUnreadCount(2L)).isZero();
+        assertThat(repository.findUnreadByUserId(2L)).isEmpty();
+        assertThat(repository.getUnreadCount(1L)).isEqualTo(2L);
+
+        assertThat(repository.markAllAsReadForUser(1L)).isEqualTo(2);
+        assertThat(repository.getUnreadCount(1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("offset pages over the merged feed match the fully merged list")
+    void fanOutOnRead_paginationMatchesFullFeed() {
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 11; i++) {
+            saveNotification(5L, "personal " + i, base.plusMinutes(i * 10L));
+        }
+        for (int minutes : new int[] {-5, 25, 26, 95, 200}) {
+            NotificationBroadcast broadcast = new NotificationBroadcast(
+                NotificationType.PROMOTIONAL, "campaign " + minutes, "message", NotificationPriority.LOW);
+            broadcast.setCreatedAt(base.plusMinutes(minutes));
+            broadcast.setFanOut(NotificationBroadcast.FanOut.READ);
+            broadcast.setStatus(BroadcastStatus.COMPLETED);
+            repository.saveBroadcast(broadcast);
+        }
+
+        List<String> full = titles(repository.findByUserId(5L));
+        assertThat(full).hasSize(16).startsWith("campaign 200", "personal 10", "campaign 95", "personal 9");
+        for (int size : new int[] {1, 3, 4, 7}) {
+            List<String> paged = new ArrayList<>();
+            for (int page = 0; page * size < full.size() + size; page++) {
+                paged.addAll(titles(repository.findByUserIdPaginated(5L, page, size)));
+            }
+            assertThat(paged).as("page size %d", size).isEqualTo(full);
+        }
+    }
+
+    private static List<String> titles(List<Notification> notifications) {
+        return notifications.stream().map(Notification::getTitle).toList();
+    }
+
+    private void saveNotification(Long userId, String title, LocalDateTime createdAt) {
+        Notification notification = new Notification(userId, title, "message", NotificationType.ORDER_CREATED);
+        notification.setCreatedAt(createdAt);
+        repository.save(notification);
+    }
+
+    private long countNotifications() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT COUNT(n) FROM Notification n", Long.class).getSingleResult();
+        }
+    }
+}
@@ -4,6 +4,9 @@ import com.myapp.common.models.Notification;
 import com.myapp.common.models.Notification.NotificationType;
 import com.myapp.common.models.Notification.NotificationPriority;
 import com.myapp.common.models.OrderStatus;
+import com.myapp.common.pagination.Cursor;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.Headers;
 
@@ -103,7 +106,8 @@ class NotificationControllerTest {
             List<Notification> notifications = Arrays.asList(
                 new Notification(1L, "Test", "Message", NotificationType.ORDER_CREATED)
             );
-            when(notificationService.getUserNotifications(1L)).thenReturn(notifications);
+            when(notificationService.getUserNotificationsPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(notifications, null, CursorPageRequest.DEFAULT_LIMIT));
             
             // When
             notificationController.handle(exchange);
@@ -197,20 +201,47 @@ class NotificationControllerTest {
                 new Notification(1L, "Test 1", "Message 1", NotificationType.ORDER_CREATED),
                 new Notification(1L, "Test 2", "Message 2", NotificationType.ORDER_STATUS_CHANGED)
             );
-            when(notificationService.getUserNotifications(1L)).thenReturn(notifications);
+            when(notificationService.getUserNotificationsPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(notifications, null, CursorPageRequest.DEFAULT_LIMIT));
             
             // When
             notificationController.handle(exchange);
             
             // Then
             verify(exchange).sendResponseHeaders(eq(200), anyLong());
-            verify(notificationService).getUserNotifications(1L);
+            verify(notificationService).getUserNotificationsPage(eq(1L), any(CursorPageRequest.class));
             
             String response = responseBody.toString();
             assertTrue(response.contains("Test 1"));
             assertTrue(response.contains("Test 2"));
         }
 
+        @Test
+        @DisplayName("Should pass limit and cursor through and return next cursor header")
+        void shouldGetUserNotificationsPageWithCursor() throws IOException {
+            // Given
+            Cursor cursor = new Cursor(java.time.LocalDateTime.of(2024, 1, 1, 12, 0), 42L);
+            when(exchange.getRequestMethod()).thenReturn("GET");
+            when(exchange.getRequestURI()).thenReturn(
+                URI.create("/api/notifications?userId=1&limit=5&cursor=" + cursor.encode()));
+            
+            List<Notification> notifications = Arrays.asList(
+                new Notification(1L, "Paged", "Message", NotificationType.ORDER_CREATED)
+            );
+            Cursor next = new Cursor(java.time.LocalDateTime.of(2024, 1, 1, 11, 0), 41L);
+            when(notificationService.getUserNotificationsPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(notifications, next, 5));
+            
+            // When
+            notificationController.handle(exchange);
+            
+            // Then
+            verify(exchange).sendResponseHeaders(eq(200), anyLong());
+            verify(notificationService).getUserNotificationsPage(eq(1L), argThat(request ->
+                request.getLimit() == 5 && cursor.equals(request.getCursor())));
+            verify(exchange.getResponseHeaders()).set(CursorPage.NEXT_CURSOR_HEADER, next.encode());
+        }
+
         @Test
         @DisplayName("Should get user notifications paginated successfully")
         void shouldGetUserNotificationsPaginatedSuccessfully() throws IOException {
@@ -387,6 +418,45 @@ class NotificationControllerTest {
             assertTrue(response.contains("\"count\":5"));
         }
 
+        @Test
+        @DisplayName("Should return 304 when unread count ETag matches")
+        void shouldReturn304WhenUnreadCountEtagMatches() throws IOException {
+            // Given
+            Headers requestHeaders = new Headers();
+            requestHeaders.add("If-None-Match", "\"unread-5\"");
+            when(exchange.getRequestMethod()).thenReturn("GET");
+            when(exchange.getRequestURI()).thenReturn(URI.create("/api/notifications/count/unread?userId=1"));
+            when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+            when(notificationService.getUnreadCount(1L)).thenReturn(5L);
+            
+            // When
+            notificationController.handle(exchange);
+            
+            // Then
+            verify(exchange).sendResponseHeaders(304, -1);
+            verify(exchange.getResponseHeaders()).set("ETag", "\"unread-5\"");
+            assertEquals(0, responseBody.size());
+        }
+
+        @Test
+        @DisplayName("Should return full body when unread count changed")
+        void shouldReturnBodyWhenUnreadCountChanged() throws IOException {
+            // Given
+            Headers requestHeaders = new Headers();
+            requestHeaders.add("If-None-Match", "\"unread-4\"");
+            when(exchange.getRequestMethod()).thenReturn("GET");
+            when(exchange.getRequestURI()).thenReturn(URI.create("/api/notifications/count/unread?userId=1"));
+            when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+            when(notificationService.getUnreadCount(1L)).thenReturn(5L);
+            
+            // When
+            notificationController.handle(exchange);
+            
+            // Then
+            verify(exchange).sendResponseHeaders(eq(200), anyLong());
+            assertTrue(responseBody.toString().contains("\"count\":5"));
+        }
+
         @Test
         @DisplayName("Should return 400 for missing userId parameter")
         void shouldReturn400ForMissingUserIdParameter() throws IOException {
@@ -995,7 +1065,7 @@ class NotificationControllerTest {
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/notifications?userId=1"));
             
-            when(notificationService.getUserNotifications(1L)).thenThrow(new RuntimeException("Database error"));
+            when(notificationService.getUserNotificationsPage(eq(1L), any(CursorPageRequest.class))).thenThrow(new RuntimeException("Database error"));
             
             // When
             notificationController.handle(exchange);
@@ -1011,7 +1081,7 @@ class NotificationControllerTest {
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/notifications?userId=1"));
             
-            when(notificationService.getUserNotifications(1L)).thenThrow(new IllegalArgumentException("Invalid user ID"));
+            when(notificationService.getUserNotificationsPage(eq(1L), any(CursorPageRequest.class))).thenThrow(new IllegalArgumentException("Invalid user ID"));
             
             // When
             notificationController.handle(exchange);
@@ -0,0 +1,72 @@
+package com.myapp.notification;
+
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.Notification.NotificationType;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های حذف chunk به chunk اعلان‌های قدیمی
+ */
+@DisplayName("Notification Maintenance Tests")
+class NotificationMaintenanceTest {
+
+    private static SessionFactory sessionFactory;
+    private static NotificationRepository repository;
+
+    @BeforeAll
+    static void setUp() {
+        System.setProperty("notification.maintenance.chunk.pause.millis", "0");
+        sessionFactory = H2TestSessionFactory.create("notification_maintenance", Notification.class);
+        repository = new NotificationRepository(sessionFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        System.clearProperty("notification.maintenance.chunk.pause.millis");
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("old notifications are soft deleted, then purged, in small chunks")
+    void softAndHardDelete_inChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < 7; i++) {
+                Notification old = new Notification(1L, "old " + i, "message", NotificationType.ORDER_CREATED);
+                old.setCreatedAt(now.minusDays(100));
+                session.persist(old);
+            }
+            session.persist(new Notification(1L, "fresh", "message", NotificationType.ORDER_CREATED));
+            tx.commit();
+        }
+
+        assertThat(repository.softDeleteOldNotifications(90, 3)).isEqualTo(7);
+        assertThat(repository.softDeleteOldNotifications(90, 3)).isZero();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.createMutationQuery("UPDATE Notification n SET n.deletedAt = :old WHERE n.isDeleted = true")
+                .setParameter("old", now.minusDays(200))
+                .executeUpdate();
+            tx.commit();
+        }
+
+        assertThat(repository.hardDeleteOldNotifications(120, 2)).isEqualTo(7);
+        try (Session session = sessionFactory.openSession()) {
+            assertThat(session.createQuery("SELECT n.title FROM Notification n", String.class).getResultList())
+                .containsExactly("fresh");
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.myapp.notification;
 import com.myapp.common.models.Notification;
 import com.myapp.common.models.Notification.NotificationType;
 import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.NotificationBroadcast.BroadcastStatus;
 import com.myapp.common.models.OrderStatus;
 import com.myapp.auth.AuthRepository;
 import com.myapp.common.models.User;
@@ -720,42 +722,127 @@ class NotificationServiceTest {
     @DisplayName("Broadcast Operations")
     class BroadcastOperationsTest {
 
+        @AfterEach
+        void resetFanOut() {
+            System.clearProperty("notification.broadcast.fanout");
+        }
+
+        @Test
+        @DisplayName("Should store a broadcast once for fan-out-on-read by default")
+        void shouldStoreBroadcastOnceByDefault() {
+            // Given
+            when(notificationRepository.saveBroadcast(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            
+            // When
+            NotificationBroadcast result = notificationService.broadcastPromotionalMessage("Offer", "50% off", null);
+            
+            // Then
+            assertEquals(NotificationBroadcast.FanOut.READ, result.getFanOut());
+            assertEquals(BroadcastStatus.COMPLETED, result.getStatus());
+            assertEquals(NotificationPriority.LOW, result.getPriority());
+            verify(notificationRepository, never()).findActiveUserIdsAfter(anyLong(), anyInt());
+            verify(notificationRepository, never()).deliverBroadcastChunk(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should mark a broadcast as read for a user")
+        void shouldMarkBroadcastAsRead() {
+            // Given
+            when(authRepository.findById(1L)).thenReturn(Optional.of(new User()));
+            when(notificationRepository.markBroadcastAsRead(1L, 7L)).thenReturn(true);
+            
+            // When & Then
+            assertTrue(notificationService.markBroadcastAsRead(1L, 7L));
+            assertThrows(IllegalArgumentException.class, () -> notificationService.markBroadcastAsRead(1L, -7L));
+        }
+
         @Test
         @DisplayName("Should broadcast system maintenance notification successfully")
         void shouldBroadcastSystemMaintenanceNotificationSuccessfully() {
             // Given
+            System.setProperty("notification.broadcast.fanout", "write");
             LocalDateTime maintenanceTime = LocalDateTime.now().plusHours(2);
             List<Long> activeUserIds = Arrays.asList(1L, 2L, 3L);
             
-            when(notificationRepository.getAllActiveUserIds()).thenReturn(activeUserIds);
-            doNothing().when(notificationRepository).saveBatch(any());
+            when(notificationRepository.saveBroadcast(any())).thenAnswer(invocation -> {
+                NotificationBroadcast broadcast = invocation.getArgument(0);
+                broadcast.setId(10L);
+                return broadcast;
+            });
+            when(notificationRepository.findActiveUserIdsAfter(0L, 500)).thenReturn(activeUserIds);
+            when(notificationRepository.findActiveUserIdsAfter(3L, 500)).thenReturn(List.of());
+            when(notificationRepository.deliverBroadcastChunk(any(), eq(activeUserIds))).thenAnswer(invocation -> {
+                NotificationBroadcast broadcast = invocation.getArgument(0);
+                broadcast.setLastUserId(3L);
+                broadcast.setDeliveredCount(3L);
+                return 3;
+            });
             
             // When
-            notificationService.broadcastSystemMaintenance(maintenanceTime);
+            NotificationBroadcast result = notificationService.broadcastSystemMaintenance(maintenanceTime);
             
             // Then
-            verify(notificationRepository).getAllActiveUserIds();
-            verify(notificationRepository).saveBatch(any());
+            assertEquals(NotificationType.SYSTEM_MAINTENANCE, result.getType());
+            assertEquals(BroadcastStatus.COMPLETED, result.getStatus());
+            assertEquals(3L, result.getDeliveredCount());
+            verify(notificationRepository).updateBroadcastStatus(10L, BroadcastStatus.COMPLETED);
         }
 
         @Test
         @DisplayName("Should broadcast promotional message successfully")
         void shouldBroadcastPromotionalMessageSuccessfully() {
             // Given
+            System.setProperty("notification.broadcast.fanout", "write");
             String title = "Special Offer";
             String message = "50% off today!";
             NotificationPriority priority = NotificationPriority.MEDIUM;
-            List<Long> activeUserIds = Arrays.asList(1L, 2L, 3L);
             
-            when(notificationRepository.getAllActiveUserIds()).thenReturn(activeUserIds);
-            doNothing().when(notificationRepository).saveBatch(any());
+            when(notificationRepository.saveBroadcast(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(notificationRepository.findActiveUserIdsAfter(0L, 500)).thenReturn(List.of());
+            
+            // When
+            NotificationBroadcast result = notificationService.broadcastPromotionalMessage(title, message, priority);
+            
+            // Then
+            assertEquals(NotificationType.PROMOTIONAL, result.getType());
+            assertEquals(priority, result.getPriority());
+            assertEquals(BroadcastStatus.COMPLETED, result.getStatus());
+            verify(notificationRepository, never()).deliverBroadcastChunk(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should stop when another runner already delivered the chunk")
+        void shouldStopWhenChunkAlreadyDelivered() {
+            // Given
+            NotificationBroadcast broadcast = new NotificationBroadcast(NotificationType.PROMOTIONAL, "t", "m", NotificationPriority.LOW);
+            broadcast.setId(5L);
+            when(notificationRepository.findActiveUserIdsAfter(0L, 500)).thenReturn(List.of(1L, 2L));
+            when(notificationRepository.deliverBroadcastChunk(broadcast, List.of(1L, 2L))).thenReturn(0);
+            
+            // When
+            NotificationBroadcast result = notificationService.deliverBroadcast(broadcast);
+            
+            // Then
+            assertEquals(BroadcastStatus.IN_PROGRESS, result.getStatus());
+            verify(notificationRepository, never()).updateBroadcastStatus(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should mark broadcast as failed when a chunk cannot be stored")
+        void shouldMarkBroadcastFailedOnError() {
+            // Given
+            NotificationBroadcast broadcast = new NotificationBroadcast(NotificationType.PROMOTIONAL, "t", "m", NotificationPriority.LOW);
+            broadcast.setId(6L);
+            when(notificationRepository.findActiveUserIdsAfter(0L, 500)).thenReturn(List.of(1L));
+            when(notificationRepository.deliverBroadcastChunk(broadcast, List.of(1L)))
+                .thenThrow(new RuntimeException("Database error"));
             
             // When
-            notificationService.broadcastPromotionalMessage(title, message, priority);
+            NotificationBroadcast result = notificationService.deliverBroadcast(broadcast);
             
             // Then
-            verify(notificationRepository).getAllActiveUserIds();
-            verify(notificationRepository).saveBatch(any());
+            assertEquals(BroadcastStatus.FAILED, result.getStatus());
+            verify(notificationRepository).updateBroadcastStatus(6L, BroadcastStatus.FAILED);
         }
     }
 
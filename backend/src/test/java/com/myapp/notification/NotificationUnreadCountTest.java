@@ -0,0 +1,94 @@
+package com.myapp.notification;
+
+import com.myapp.common.models.BroadcastReadState;
+import com.myapp.common.models.Notification;
+import com.myapp.common.models.Notification.NotificationPriority;
+import com.myapp.common.models.Notification.NotificationType;
+import com.myapp.common.models.NotificationBroadcast;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های شمارنده خوانده نشده‌ها روی H2: شمارنده بعد از اولین خواندن
+ * بدون COUNT جدید و فقط با تغییرات repository به‌روز می‌ماند
+ */
+@DisplayName("Notification Unread Count Tests")
+class NotificationUnreadCountTest {
+
+    private static SessionFactory sessionFactory;
+    private NotificationRepository repository;
+
+    @BeforeAll
+    static void setUp() {
+        sessionFactory = H2TestSessionFactory.create("notification_unread_count",
+            User.class, Notification.class, NotificationBroadcast.class, BroadcastReadState.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.createMutationQuery("DELETE FROM Notification").executeUpdate();
+            session.createMutationQuery("DELETE FROM NotificationBroadcast").executeUpdate();
+            tx.commit();
+        }
+        repository = new NotificationRepository(sessionFactory);
+    }
+
+    @Test
+    @DisplayName("create, read, update and delete keep the cached counts in step with the database")
+    void counts_followRepositoryChanges() {
+        repository.save(new Notification(1L, "a", "m", NotificationType.ORDER_CREATED, NotificationPriority.HIGH));
+        Notification normal = repository.save(new Notification(1L, "b", "m", NotificationType.ORDER_CREATED));
+
+        assertThat(repository.getUnreadCount(1L)).isEqualTo(2L);
+        assertThat(repository.hasCachedUnreadCounts(1L)).isTrue();
+
+        Notification urgent = repository.save(
+            new Notification(1L, "c", "m", NotificationType.ORDER_CREATED, NotificationPriority.HIGH));
+        normal.markAsRead();
+        repository.update(normal);
+        assertThat(repository.getUnreadCount(1L)).isEqualTo(2L);
+        assertThat(repository.getHighPriorityUnreadCount(1L)).isEqualTo(2L);
+
+        repository.delete(urgent);
+        assertThat(repository.getUnreadCount(1L)).isEqualTo(1L);
+        assertThat(repository.getHighPriorityUnreadCount(1L)).isEqualTo(1L);
+        assertThat(repository.getUnreadCounterStatistics()).containsEntry("loads", 1L);
+
+        assertThat(repository.markAllAsReadForUser(1L)).isEqualTo(1);
+        assertThat(repository.hasCachedUnreadCounts(1L)).isFalse();
+        assertThat(repository.getUnreadCount(1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("a fan-out-on-read broadcast and its read marker are reflected in the counts")
+    void counts_includeFeedBroadcasts() {
+        repository.save(new Notification(2L, "a", "m", NotificationType.ORDER_CREATED));
+        assertThat(repository.getUnreadCount(2L)).isEqualTo(1L);
+
+        NotificationBroadcast broadcast = new NotificationBroadcast(NotificationType.PROMOTIONAL, "Offer", "m",
+                                                                    NotificationPriority.LOW);
+        broadcast.setFanOut(NotificationBroadcast.FanOut.READ);
+        repository.saveBroadcast(broadcast);
+        assertThat(repository.getUnreadCount(2L)).isEqualTo(2L);
+
+        assertThat(repository.markBroadcastAsRead(2L, broadcast.getId())).isTrue();
+        assertThat(repository.getUnreadCount(2L)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,76 @@
+package com.myapp.notification;
+
+import com.myapp.notification.UnreadCounters.Counts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * تست‌های شمارنده‌های درون حافظه‌ای خوانده نشده‌ها
+ */
+@DisplayName("UnreadCounters Tests")
+class UnreadCountersTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final UnreadCounters counters = new UnreadCounters(30_000, now::get);
+
+    @Test
+    @DisplayName("counts are loaded once and then updated by deltas")
+    void get_loadsOnceThenAppliesDeltas() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(counters.get(1L, () -> { loads.incrementAndGet(); return new Counts(3, 1); }))
+            .isEqualTo(new Counts(3, 1));
+        counters.apply(1L, 1, 1);
+        counters.apply(1L, -2, 0);
+
+        assertThat(counters.get(1L, () -> { loads.incrementAndGet(); return new Counts(0, 0); }))
+            .isEqualTo(new Counts(2, 2));
+        assertThat(loads).hasValue(1);
+        assertThat(counters.isCached(1L)).isTrue();
+        assertThat(counters.isCached(2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("counts are reloaded after the TTL or an invalidation")
+    void get_reloadsAfterTtlAndInvalidation() {
+        counters.get(1L, () -> new Counts(3, 0));
+        now.addAndGet(30_000);
+        assertThat(counters.isCached(1L)).isFalse();
+        assertThat(counters.get(1L, () -> new Counts(5, 0)).unread()).isEqualTo(5);
+
+        counters.invalidate(1L);
+        assertThat(counters.get(1L, () -> new Counts(7, 0)).unread()).isEqualTo(7);
+
+        counters.invalidateAll();
+        assertThat(counters.isCached(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("a load that raced with a change is returned but not cached")
+    void get_staleLoadIsNotInstalled() {
+        Counts loaded = counters.get(1L, () -> {
+            // تغییری که بعد از COUNT دیتابیس commit شده است
+            counters.apply(1L, 1, 0);
+            return new Counts(3, 0);
+        });
+
+        assertThat(loaded.unread()).isEqualTo(3);
+        assertThat(counters.isCached(1L)).isFalse();
+        assertThat(counters.get(1L, () -> new Counts(4, 0)).unread()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("a delta that would go negative drops the entry instead")
+    void apply_negativeDropsEntry() {
+        counters.get(1L, () -> new Counts(0, 0));
+
+        counters.apply(1L, -1, 0);
+
+        assertThat(counters.isCached(1L)).isFalse();
+    }
+}
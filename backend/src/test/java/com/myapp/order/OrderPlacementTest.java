@@ -0,0 +1,280 @@
+package com.myapp.order;
+
+import com.myapp.common.exceptions.NotFoundException;
+import com.myapp.common.models.FoodItem;
+import com.myapp.common.models.Order;
+import com.myapp.common.models.OrderItem;
+import com.myapp.common.models.OrderStatus;
+import com.myapp.common.models.Restaurant;
+import com.myapp.common.models.User;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * تست‌های ثبت نهایی سفارش با رزرو اتمیک موجودی
+ *
+ * روی H2 درون حافظه‌ای اجرا می‌شود تا درخواست‌های همزمان واقعاً
+ * برای موجودی یک آیتم رقابت کنند.
+ */
+@DisplayName("Order Placement Tests")
+class OrderPlacementTest {
+
+    private static SessionFactory sessionFactory;
+
+    private OrderService orderService;
+    private User customer;
+    private Restaurant restaurant;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("order_placement",
+            User.class, Restaurant.class, FoodItem.class, Order.class, OrderItem.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(new OrderRepository(sessionFactory), null, null);
+        inTransaction(session -> {
+            session.createMutationQuery("delete from OrderItem").executeUpdate();
+            session.createMutationQuery("delete from Order").executeUpdate();
+            session.createMutationQuery("delete from FoodItem").executeUpdate();
+            session.createMutationQuery("delete from Restaurant").executeUpdate();
+            session.createMutationQuery("delete from User").executeUpdate();
+        });
+        customer = User.forRegistration("Test Customer", "09120000000", "c@test.com", "hash", "Tehran");
+        restaurant = Restaurant.forRegistration(1L, "Test Restaurant", "Tehran", "02100000000");
+        inTransaction(session -> {
+            session.persist(customer);
+            session.persist(restaurant);
+        });
+    }
+
+    @Nested
+    @DisplayName("Reservation Tests")
+    class ReservationTests {
+
+        @Test
+        @DisplayName("placing an order decrements every line and confirms the order")
+        void placeOrder_sufficientStock_confirmsAndDecrements() {
+            FoodItem pizza = item("Pizza", 10);
+            FoodItem salad = item("Salad", 5);
+            Order order = order(new Object[][]{{pizza, 3}, {salad, 5}});
+
+            Order placed = orderService.placeOrder(order.getId());
+
+            assertEquals(OrderStatus.CONFIRMED, placed.getStatus());
+            assertNotNull(placed.getEstimatedDeliveryTime());
+            assertEquals(7, stock(pizza));
+            assertEquals(0, stock(salad));
+            assertEquals(OrderStatus.CONFIRMED, status(order));
+        }
+
+        @Test
+        @DisplayName("failures are reported per line and nothing is reserved")
+        void tryPlaceOrder_insufficientStock_reportsEachLine() {
+            FoodItem pizza = item("Pizza", 2);
+            FoodItem salad = item("Salad", 5);
+            FoodItem soup = item("Soup", 1);
+            Order order = order(new Object[][]{{pizza, 1}, {salad, 5}, {soup, 1}});
+            setStock(salad, 3);
+            setStock(soup, 0);
+
+            OrderPlacementResult result = orderService.tryPlaceOrder(order.getId());
+
+            assertFalse(result.isSuccess());
+            assertEquals(2, result.getFailures().size());
+            OrderPlacementResult.LineFailure saladFailure = result.getFailures().get(0);
+            assertEquals(salad.getId(), saladFailure.getItemId());
+            assertEquals(OrderPlacementResult.FailureReason.INSUFFICIENT_STOCK, saladFailure.getReason());
+            assertEquals(5, saladFailure.getRequested());
+            assertEquals(3, saladFailure.getAvailable());
+            assertEquals(2, stock(pizza));
+            assertEquals(OrderStatus.PENDING, status(order));
+        }
+
+        @Test
+        @DisplayName("placeOrder keeps the legacy error message for a single failing line")
+        void placeOrder_insufficientStock_throwsLegacyMessage() {
+            FoodItem pizza = item("Pizza", 4);
+            Order order = order(new Object[][]{{pizza, 4}});
+            setStock(pizza, 1);
+
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> orderService.placeOrder(order.getId()));
+            assertEquals("Insufficient stock for item: Pizza. Available: 1, Ordered: 4", exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("unavailable items are reported")
+        void tryPlaceOrder_unavailableItem_reported() {
+            FoodItem pizza = item("Pizza", 4);
+            Order order = order(new Object[][]{{pizza, 1}});
+            inTransaction(session -> session.createMutationQuery(
+                    "update FoodItem f set f.available = false where f.id = :id")
+                .setParameter("id", pizza.getId()).executeUpdate());
+
+            OrderPlacementResult result = orderService.tryPlaceOrder(order.getId());
+
+            assertEquals(OrderPlacementResult.FailureReason.ITEM_UNAVAILABLE, result.getFailures().get(0).getReason());
+        }
+
+        @Test
+        @DisplayName("order status is validated")
+        void placeOrder_invalidOrder_throws() {
+            FoodItem pizza = item("Pizza", 4);
+            Order order = order(new Object[][]{{pizza, 1}});
+            orderService.placeOrder(order.getId());
+
+            assertThrows(IllegalArgumentException.class, () -> orderService.placeOrder(order.getId()));
+            assertThrows(NotFoundException.class, () -> orderService.placeOrder(999_999L));
+            assertThrows(IllegalArgumentException.class, () -> orderService.placeOrder(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Oversell Race Tests")
+    class OversellRaceTests {
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("concurrent customers cannot oversell an item")
+        void placeOrder_concurrentOrders_neverOversell() throws Exception {
+            int stock = 10;
+            int customers = 40;
+            FoodItem pizza = item("Pizza", stock);
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < customers; i++) {
+                orders.add(order(new Object[][]{{pizza, 1}}));
+            }
+
+            AtomicInteger placed = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            runConcurrently(orders.size(), index -> {
+                OrderPlacementResult result = orderService.tryPlaceOrder(orders.get(index).getId());
+                (result.isSuccess() ? placed : rejected).incrementAndGet();
+            });
+
+            assertEquals(stock, placed.get());
+            assertEquals(customers - stock, rejected.get());
+            assertEquals(0, stock(pizza));
+        }
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("the same order placed concurrently reserves stock only once")
+        void placeOrder_sameOrderConcurrently_reservesOnce() throws Exception {
+            FoodItem pizza = item("Pizza", 10);
+            Order order = order(new Object[][]{{pizza, 2}});
+
+            AtomicInteger placed = new AtomicInteger();
+            runConcurrently(8, index -> {
+                try {
+                    if (orderService.tryPlaceOrder(order.getId()).isSuccess()) {
+                        placed.incrementAndGet();
+                    }
+                } catch (IllegalArgumentException expected) {
+                    // سفارش قبلاً توسط thread دیگری ثبت شده است
+                }
+            });
+
+            assertEquals(1, placed.get());
+            assertEquals(8, stock(pizza));
+        }
+    }
+
+    // ==================== متدهای کمکی ====================
+
+    private interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int tasks, IndexedTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface SessionWork {
+        void run(Session session);
+    }
+
+    private static void inTransaction(SessionWork work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            work.run(session);
+            session.getTransaction().commit();
+        }
+    }
+
+    private FoodItem item(String name, int quantity) {
+        FoodItem item = FoodItem.forMenu(name, name, 100.0, "Food", restaurant);
+        item.setQuantity(quantity);
+        inTransaction(session -> session.persist(item));
+        return item;
+    }
+
+    private Order order(Object[][] lines) {
+        Order order = Order.createNew(customer, restaurant, "Tehran", "09120000000");
+        for (Object[] line : lines) {
+            order.addItem((FoodItem) line[0], (Integer) line[1]);
+        }
+        inTransaction(session -> session.persist(order));
+        return order;
+    }
+
+    private static void setStock(FoodItem item, int quantity) {
+        inTransaction(session -> session.createMutationQuery("update FoodItem f set f.quantity = :q where f.id = :id")
+            .setParameter("q", quantity).setParameter("id", item.getId()).executeUpdate());
+    }
+
+    private static int stock(FoodItem item) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(FoodItem.class, item.getId()).getQuantity();
+        }
+    }
+
+    private static OrderStatus status(Order order) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Order.class, order.getId()).getStatus();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.myapp.payment;
 import com.myapp.common.models.Transaction;
 import com.myapp.common.models.TransactionType;
 import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.common.utils.JsonUtil;
 import com.sun.net.httpserver.HttpExchange;
 import org.junit.jupiter.api.*;
@@ -69,14 +71,15 @@ class TransactionControllerTest {
                 createMockTransaction(1L, TransactionType.WALLET_CHARGE, 100.0),
                 createMockTransaction(2L, TransactionType.WALLET_WITHDRAWAL, 50.0)
             );
-            when(walletService.getWalletTransactionHistory(1L)).thenReturn(transactions);
+            when(walletService.getWalletTransactionHistoryPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(transactions, null, CursorPageRequest.DEFAULT_LIMIT));
             
             // When
             transactionController.handle(exchange);
             
             // Then
             verify(exchange).sendResponseHeaders(eq(200), anyLong());
-            verify(walletService).getWalletTransactionHistory(1L);
+            verify(walletService).getWalletTransactionHistoryPage(eq(1L), any(CursorPageRequest.class));
             
             String response = responseBody.toString();
             assertTrue(response.contains("WALLET_CHARGE"));
@@ -160,14 +163,15 @@ class TransactionControllerTest {
                 createMockTransaction(1L, TransactionType.WALLET_CHARGE, 100.0),
                 createMockTransaction(2L, TransactionType.WALLET_CHARGE, 200.0)
             );
-            when(walletService.getWalletChargeHistory(1L)).thenReturn(chargeHistory);
+            when(walletService.getWalletChargeHistoryPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(chargeHistory, null, CursorPageRequest.DEFAULT_LIMIT));
             
             // When
             transactionController.handle(exchange);
             
             // Then
             verify(exchange).sendResponseHeaders(eq(200), anyLong());
-            verify(walletService).getWalletChargeHistory(1L);
+            verify(walletService).getWalletChargeHistoryPage(eq(1L), any(CursorPageRequest.class));
             
             String response = responseBody.toString();
             assertTrue(response.contains("WALLET_CHARGE"));
@@ -208,14 +212,15 @@ class TransactionControllerTest {
                 createMockTransaction(1L, TransactionType.WALLET_WITHDRAWAL, 50.0),
                 createMockTransaction(2L, TransactionType.WALLET_WITHDRAWAL, 30.0)
             );
-            when(walletService.getWalletWithdrawalHistory(1L)).thenReturn(withdrawalHistory);
+            when(walletService.getWalletWithdrawalHistoryPage(eq(1L), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(withdrawalHistory, null, CursorPageRequest.DEFAULT_LIMIT));
             
             // When
             transactionController.handle(exchange);
             
             // Then
             verify(exchange).sendResponseHeaders(eq(200), anyLong());
-            verify(walletService).getWalletWithdrawalHistory(1L);
+            verify(walletService).getWalletWithdrawalHistoryPage(eq(1L), any(CursorPageRequest.class));
             
             String response = responseBody.toString();
             assertTrue(response.contains("WALLET_WITHDRAWAL"));
@@ -228,7 +233,7 @@ class TransactionControllerTest {
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/transactions/wallet/withdrawals?userId=1"));
             
-            when(walletService.getWalletWithdrawalHistory(1L))
+            when(walletService.getWalletWithdrawalHistoryPage(eq(1L), any(CursorPageRequest.class)))
                 .thenThrow(new RuntimeException("Database connection failed"));
             
             // When
@@ -416,7 +421,7 @@ class TransactionControllerTest {
             when(exchange.getRequestMethod()).thenReturn("GET");
             when(exchange.getRequestURI()).thenReturn(URI.create("/api/transactions/wallet/history?userId=1"));
             
-            when(walletService.getWalletTransactionHistory(1L))
+            when(walletService.getWalletTransactionHistoryPage(eq(1L), any(CursorPageRequest.class)))
                 .thenThrow(new RuntimeException("Unexpected error"));
             
             // When
@@ -0,0 +1,275 @@
+package com.myapp.payment;
+
+import com.myapp.auth.AuthRepository;
+import com.myapp.common.exceptions.InsufficientFundsException;
+import com.myapp.common.models.Transaction;
+import com.myapp.common.models.TransactionStatus;
+import com.myapp.common.models.WalletBalance;
+import com.myapp.common.utils.H2TestSessionFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * تست‌های دفتر موجودی کیف پول (wallet_balances)
+ *
+ * روی یک دیتابیس H2 درون حافظه‌ای مستقل اجرا می‌شود تا برداشت‌های
+ * همزمان واقعاً روی دیتابیس با هم رقابت کنند.
+ */
+@DisplayName("Wallet Balance Ledger Tests")
+class WalletBalanceLedgerTest {
+
+    private static SessionFactory sessionFactory;
+
+    private PaymentRepository paymentRepository;
+    private WalletService walletService;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        sessionFactory = H2TestSessionFactory.create("wallet_ledger", Transaction.class, WalletBalance.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = new PaymentRepository(sessionFactory);
+        paymentRepository.deleteAll();
+
+        AuthRepository authRepository = mock(AuthRepository.class);
+        when(authRepository.existsById(anyLong())).thenReturn(true);
+        walletService = new WalletService(paymentRepository, authRepository);
+    }
+
+    private Transaction charge(Long userId, double amount) {
+        Transaction charge = Transaction.forWalletCharge(userId, amount, "ADMIN_CREDIT");
+        charge.markAsCompleted("TEST_CHARGE");
+        return paymentRepository.save(charge);
+    }
+
+    @Nested
+    @DisplayName("Balance Maintenance Tests")
+    class BalanceMaintenanceTests {
+
+        @Test
+        @DisplayName("balance row follows completed charges and withdrawals")
+        void save_completedWalletTransactions_updateBalanceRow() {
+            charge(1L, 500.0);
+            walletService.withdrawForPayment(1L, 120.0, "ORDER-1");
+
+            assertEquals(380.0, paymentRepository.calculateWalletBalance(1L), 0.001);
+            assertEquals(380.0, paymentRepository.calculateWalletBalanceFromTransactions(1L), 0.001);
+        }
+
+        @Test
+        @DisplayName("pending charge affects balance only once it completes")
+        void update_pendingToCompleted_appliesDelta() {
+            Transaction pending = paymentRepository.save(Transaction.forWalletCharge(2L, 200.0, "CARD"));
+            assertEquals(0.0, paymentRepository.calculateWalletBalance(2L), 0.001);
+
+            pending.markAsCompleted("CARD_OK");
+            paymentRepository.update(pending);
+            assertEquals(200.0, paymentRepository.calculateWalletBalance(2L), 0.001);
+
+            // به‌روزرسانی مجدد بدون تغییر وضعیت نباید موجودی را دوباره تغییر دهد
+            pending.setDescription("updated");
+            paymentRepository.update(pending);
+            assertEquals(200.0, paymentRepository.calculateWalletBalance(2L), 0.001);
+        }
+
+        @Test
+        @DisplayName("balance row is built from existing transactions on first read")
+        void calculateWalletBalance_legacyUser_buildsRowFromLog() {
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                Transaction legacy = Transaction.forWalletCharge(3L, 75.0, "CARD");
+                legacy.markAsCompleted("LEGACY");
+                session.persist(legacy);
+                session.getTransaction().commit();
+            }
+
+            assertEquals(75.0, paymentRepository.calculateWalletBalance(3L), 0.001);
+            try (Session session = sessionFactory.openSession()) {
+                assertNotNull(session.get(WalletBalance.class, 3L));
+            }
+        }
+
+        @Test
+        @DisplayName("debit beyond balance is rejected by the repository")
+        void save_debitBeyondBalance_throws() {
+            charge(4L, 50.0);
+            Transaction debit = Transaction.forWalletWithdrawal(4L, 80.0, "too much");
+            debit.markAsCompleted("DEBIT");
+
+            assertThrows(InsufficientFundsException.class, () -> paymentRepository.save(debit));
+            assertEquals(50.0, paymentRepository.calculateWalletBalance(4L), 0.001);
+            assertEquals(50.0, paymentRepository.calculateWalletBalanceFromTransactions(4L), 0.001);
+        }
+
+        @Test
+        @DisplayName("debit short by less than a cent is rejected, exact balance is allowed")
+        void save_debitAtBalanceBoundary() {
+            charge(5L, 50.0);
+            Transaction shortDebit = Transaction.forWalletWithdrawal(5L, 50.004, "almost");
+            shortDebit.markAsCompleted("DEBIT");
+            assertThrows(InsufficientFundsException.class, () -> paymentRepository.save(shortDebit));
+
+            Transaction exactDebit = Transaction.forWalletWithdrawal(5L, 50.0, "exact");
+            exactDebit.markAsCompleted("DEBIT");
+            paymentRepository.save(exactDebit);
+            assertEquals(0.0, paymentRepository.calculateWalletBalance(5L), 0.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrency Tests")
+    class ConcurrencyTests {
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("parallel debits never overdraw the wallet")
+        void debitWallet_parallel_neverOverdraws() throws Exception {
+            Long userId = 10L;
+            charge(userId, 1000.0);
+
+            int threads = 16;
+            int attempts = 100;
+            double amount = 30.0;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger succeeded = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    try {
+                        walletService.debitWallet(userId, BigDecimal.valueOf(amount), "parallel debit");
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            double balance = paymentRepository.calculateWalletBalance(userId);
+            assertEquals(33, succeeded.get());
+            assertEquals(attempts - 33, rejected.get());
+            assertTrue(balance >= 0.0, "balance must never go negative: " + balance);
+            assertEquals(10.0, balance, 0.001);
+            assertEquals(balance, paymentRepository.calculateWalletBalanceFromTransactions(userId), 0.001);
+        }
+
+        @Test
+        @Timeout(value = 60, unit = TimeUnit.SECONDS)
+        @DisplayName("concurrent completion of the same pending charge credits the wallet once")
+        void update_concurrentCompletion_appliesDeltaOnce() throws Exception {
+            Long userId = 11L;
+            Long chargeId = paymentRepository.save(Transaction.forWalletCharge(userId, 200.0, "CARD")).getId();
+
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // هر thread نسخه جداگانه‌ای از تراکنش PENDING دارد
+                Transaction copy = paymentRepository.findById(chargeId).orElseThrow();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    copy.markAsCompleted("CARD_OK");
+                    paymentRepository.update(copy);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertEquals(200.0, paymentRepository.calculateWalletBalance(userId), 0.001);
+            assertEquals(200.0, paymentRepository.calculateWalletBalanceFromTransactions(userId), 0.001);
+        }
+    }
+
+    @Nested
+    @DisplayName("Reconciler Tests")
+    class ReconcilerTests {
+
+        @Test
+        @DisplayName("reconciler reports and corrects drift")
+        void reconcileAll_driftedRow_correctsAndReports() {
+            charge(20L, 300.0);
+            charge(21L, 40.0);
+            try (Session session = sessionFactory.openSession()) {
+                session.beginTransaction();
+                session.createMutationQuery("UPDATE WalletBalance w SET w.balance = 999.0 WHERE w.userId = 20")
+                    .executeUpdate();
+                session.getTransaction().commit();
+            }
+
+            WalletBalanceReconciler reconciler = new WalletBalanceReconciler(paymentRepository);
+            WalletBalanceReconciler.ReconciliationReport report = reconciler.reconcileAll();
+
+            assertEquals(2, report.getCheckedUsers());
+            assertEquals(1, report.getDrifts().size());
+            assertEquals(20L, report.getDrifts().get(0).getUserId());
+            assertEquals(699.0, report.getTotalDrift(), 0.001);
+            assertEquals(300.0, paymentRepository.calculateWalletBalance(20L), 0.001);
+            assertTrue(reconciler.reconcileAll().isClean());
+        }
+
+        @Test
+        @DisplayName("clean ledger produces a clean report")
+        void reconcileAll_noDrift_isClean() {
+            charge(30L, 100.0);
+            Transaction failed = Transaction.forWalletCharge(30L, 50.0, "CARD");
+            failed.setStatus(TransactionStatus.FAILED);
+            paymentRepository.save(failed);
+
+            WalletBalanceReconciler.ReconciliationReport report =
+                new WalletBalanceReconciler(paymentRepository).reconcileAll();
+
+            assertTrue(report.isClean());
+            assertEquals(100.0, paymentRepository.calculateWalletBalance(30L), 0.001);
+        }
+    }
+}
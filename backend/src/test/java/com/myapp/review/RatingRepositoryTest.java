@@ -5,6 +5,9 @@ import com.myapp.common.models.Rating;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.Cursor;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.common.TestDatabaseManager;
 import com.myapp.common.utils.DatabaseUtil;
 import org.hibernate.Session;
@@ -836,35 +839,41 @@ public class RatingRepositoryTest {
                 ratingRepository.save(rating);
             }
 
-            List<Rating> page1 = ratingRepository.findWithPagination(0, 2);
-            List<Rating> page2 = ratingRepository.findWithPagination(2, 2);
+            CursorPage<Rating> page1 = ratingRepository.findWithPagination(CursorPageRequest.of(null, 2));
+            CursorPage<Rating> page2 = ratingRepository.findWithPagination(
+                CursorPageRequest.of(page1.getNextCursor(), 2));
 
             assertNotNull(page1);
             assertNotNull(page2);
-            assertEquals(2, page1.size());
-            assertEquals(2, page2.size());
+            assertEquals(2, page1.getItems().size());
+            assertEquals(2, page2.getItems().size());
+            assertTrue(page1.hasMore());
+            assertTrue(page2.getItems().stream().noneMatch(page1.getItems()::contains));
         }
 
         @Test
-        @DisplayName("Should return empty list for offset beyond data")
+        @DisplayName("Should return empty page for cursor beyond data")
         void shouldReturnEmptyListForOffsetBeyondData() {
             ratingRepository.save(testRating);
 
-            List<Rating> ratings = ratingRepository.findWithPagination(10, 5);
+            CursorPage<Rating> ratings = ratingRepository.findWithPagination(
+                CursorPageRequest.of(new Cursor(LocalDateTime.of(2000, 1, 1, 0, 0), 0L), 5));
 
             assertNotNull(ratings);
-            assertTrue(ratings.isEmpty());
+            assertTrue(ratings.getItems().isEmpty());
+            assertFalse(ratings.hasMore());
         }
 
         @Test
-        @DisplayName("Should handle zero limit gracefully")
+        @DisplayName("Should fall back to default limit for zero limit")
         void shouldHandleZeroLimitGracefully() {
             ratingRepository.save(testRating);
 
-            List<Rating> ratings = ratingRepository.findWithPagination(0, 0);
+            CursorPage<Rating> ratings = ratingRepository.findWithPagination(CursorPageRequest.of(null, 0));
 
             assertNotNull(ratings);
-            assertTrue(ratings.isEmpty());
+            assertEquals(CursorPageRequest.DEFAULT_LIMIT, ratings.getLimit());
+            assertEquals(1, ratings.getItems().size());
         }
     }
 
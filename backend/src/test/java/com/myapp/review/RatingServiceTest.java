@@ -6,6 +6,8 @@ import com.myapp.common.models.Rating;
 import com.myapp.common.models.Restaurant;
 import com.myapp.common.models.RestaurantStatus;
 import com.myapp.common.models.User;
+import com.myapp.common.pagination.CursorPage;
+import com.myapp.common.pagination.CursorPageRequest;
 import com.myapp.restaurant.RestaurantRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -884,25 +886,23 @@ class RatingServiceTest {
         @DisplayName("Should get ratings with pagination")
         void shouldGetRatingsWithPagination() {
             List<Rating> ratings = Arrays.asList(testRating);
-            when(mockRatingRepository.findWithPagination(0, 10)).thenReturn(ratings);
+            CursorPageRequest request = CursorPageRequest.of(null, 10);
+            when(mockRatingRepository.findWithPagination(request)).thenReturn(new CursorPage<>(ratings, null, 10));
 
-            List<Rating> result = ratingService.getRatingsWithPagination(0, 10);
+            CursorPage<Rating> result = ratingService.getRatingsWithPagination(request);
 
             assertNotNull(result);
-            assertEquals(1, result.size());
+            assertEquals(1, result.getItems().size());
+            assertFalse(result.hasMore());
         }
 
         @Test
         @DisplayName("Should throw exception for invalid pagination parameters")
         void shouldThrowExceptionForInvalidPaginationParameters() {
             assertThrows(IllegalArgumentException.class, () -> 
-                ratingService.getRatingsWithPagination(-1, 10));
-            
-            assertThrows(IllegalArgumentException.class, () -> 
-                ratingService.getRatingsWithPagination(0, 0));
+                ratingService.getRatingsWithPagination(null));
             
-            assertThrows(IllegalArgumentException.class, () -> 
-                ratingService.getRatingsWithPagination(0, -1));
+            verify(mockRatingRepository, never()).findWithPagination(any());
         }
     }
 
@@ -2,6 +2,7 @@ package com.myapp.ui.auth;
 
 import com.myapp.ui.common.HttpClientUtil;
 import com.myapp.ui.common.NavigationController;
+import com.myapp.ui.common.NotificationService;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
@@ -252,6 +253,9 @@ public class LoginController implements Initializable {
                 preferences.putBoolean("remember_me", false);
             }
             
+            // دریافت لحظه‌ای اعلان‌ها و وضعیت سفارش‌ها (به جای polling)
+            NotificationService.getInstance().subscribeToServerEvents();
+            
             // انتقال به صفحه اصلی (لیست رستوران‌ها)
             navigationController.navigateTo(NavigationController.RESTAURANT_LIST_SCENE);
             
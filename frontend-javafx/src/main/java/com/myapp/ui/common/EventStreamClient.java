@@ -0,0 +1,260 @@
+package com.myapp.ui.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * کلاینت رویدادهای لحظه‌ای سرور (Server-Sent Events)
+ *
+ * به جای polling دوره‌ای endpoint های REST، یک اتصال باز به /api/events نگه
+ * می‌دارد و رویدادهای کاربر (order-status، delivery-status، notification و
+ * resync) را به listener های ثبت شده می‌رساند.
+ *
+ * ویژگی‌ها:
+ * - اتصال مجدد خودکار با backoff نمایی
+ * - ادامه از آخرین رویداد دریافتی با header Last-Event-ID
+ * - تشخیص اتصال مرده با read timeout (سرور هر ۱۵ ثانیه heartbeat می‌فرستد)
+ *
+ * listener ها روی thread پس‌زمینه صدا زده می‌شوند؛ تغییر UI باید با
+ * Platform.runLater انجام شود.
+ *
+ * @author Food Ordering System Team
+ * @version 1.0
+ * @since 2024
+ */
+public class EventStreamClient {
+
+    /** آدرس endpoint رویدادها */
+    private static final String EVENTS_URL = FrontendConstants.API.BASE_URL + "/events";
+
+    /** حداکثر فاصله بین تلاش‌های اتصال مجدد */
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    /** instance singleton */
+    private static EventStreamClient instance;
+
+    /**
+     * OkHttpClient جداگانه با read timeout بلندتر از فاصله heartbeat سرور
+     */
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(FrontendConstants.HTTP.CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(45, TimeUnit.SECONDS)
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** listener ها بر اساس نوع رویداد */
+    private final Map<String, List<Consumer<JsonNode>>> listeners = new ConcurrentHashMap<>();
+
+    private volatile boolean running = false;
+    private volatile Thread worker;
+    private volatile Call currentCall;
+
+    /** شناسه آخرین رویداد دریافتی برای ادامه بعد از قطع اتصال */
+    private volatile String lastEventId;
+
+    /** فاصله پیشنهادی سرور برای اتصال مجدد */
+    private volatile long retryMillis = 3000;
+
+    /**
+     * سازنده private برای پیاده‌سازی Singleton
+     */
+    private EventStreamClient() {}
+
+    /**
+     * دریافت instance singleton
+     *
+     * @return instance EventStreamClient
+     */
+    public static synchronized EventStreamClient getInstance() {
+        if (instance == null) {
+            instance = new EventStreamClient();
+        }
+        return instance;
+    }
+
+    /**
+     * ثبت listener برای یک نوع رویداد
+     *
+     * @param eventType نوع رویداد (مثلاً order-status)
+     * @param listener دریافت‌کننده داده JSON رویداد
+     */
+    public void addListener(String eventType, Consumer<JsonNode> listener) {
+        listeners.computeIfAbsent(eventType, type -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * حذف listener ثبت شده
+     */
+    public void removeListener(String eventType, Consumer<JsonNode> listener) {
+        List<Consumer<JsonNode>> typeListeners = listeners.get(eventType);
+        if (typeListeners != null) {
+            typeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * شروع دریافت رویدادها (در صورت احراز هویت کاربر)
+     */
+    public synchronized void start() {
+        if (running || !HttpClientUtil.isAuthenticated()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "event-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * توقف دریافت رویدادها (مثلاً هنگام خروج از حساب)
+     */
+    public synchronized void stop() {
+        running = false;
+        lastEventId = null;
+        Call call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * آیا کلاینت در حال دریافت رویدادها است
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ==================== STREAM PROCESSING ====================
+
+    /**
+     * حلقه اتصال و اتصال مجدد
+     */
+    private void run() {
+        long backoff = retryMillis;
+        while (running && HttpClientUtil.isAuthenticated()) {
+            boolean received = false;
+            try {
+                received = readStream();
+            } catch (IOException e) {
+                // قطع اتصال؛ دوباره تلاش می‌شود
+            }
+            if (!running) {
+                break;
+            }
+            backoff = received ? retryMillis : Math.min(MAX_RETRY_MILLIS, backoff * 2);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+    }
+
+    /**
+     * باز کردن یک اتصال و پردازش رویدادها تا زمان قطع شدن
+     *
+     * @return true اگر اتصال با موفقیت برقرار شد
+     */
+    private boolean readStream() throws IOException {
+        Request.Builder builder = new Request.Builder()
+                .url(EVENTS_URL)
+                .header("Accept", "text/event-stream")
+                .header("Authorization", "Bearer " + HttpClientUtil.getAccessToken());
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        Call call = client.newCall(builder.build());
+        currentCall = call;
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                if (response.code() == 401) {
+                    HttpClientUtil.refreshAccessToken();
+                }
+                return false;
+            }
+            BufferedReader reader = new BufferedReader(body.charStream());
+            String eventType = "message";
+            String id = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    dispatch(id, eventType, data);
+                    eventType = "message";
+                    id = null;
+                    data.setLength(0);
+                } else if (line.startsWith(":")) {
+                    // heartbeat
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("event:")) {
+                    eventType = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring(5).trim());
+                } else if (line.startsWith("retry:")) {
+                    try {
+                        retryMillis = Long.parseLong(line.substring(6).trim());
+                    } catch (NumberFormatException ignored) {
+                        // مقدار نامعتبر نادیده گرفته می‌شود
+                    }
+                }
+            }
+            return true;
+        } finally {
+            currentCall = null;
+        }
+    }
+
+    /**
+     * ارسال رویداد کامل شده به listener ها
+     */
+    private void dispatch(String id, String eventType, StringBuilder data) {
+        if (id != null) {
+            lastEventId = id;
+        }
+        if (data.length() == 0) {
+            return;
+        }
+        List<Consumer<JsonNode>> typeListeners = listeners.get(eventType);
+        if (typeListeners == null || typeListeners.isEmpty()) {
+            return;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(data.toString());
+            for (Consumer<JsonNode> listener : typeListeners) {
+                try {
+                    listener.accept(node);
+                } catch (RuntimeException e) {
+                    System.err.println("Event listener failed for " + eventType + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Invalid event data for " + eventType + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.myapp.ui.common;
 
+import com.myapp.ui.notification.NotificationController;
+import com.myapp.ui.order.OrderHistoryController;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -311,6 +313,11 @@ public class NavigationController {
      * خروج از حساب کاربری و انتقال به صفحه ورود
      */
     public void logout() {
+        // قطع اتصال رویدادهای لحظه‌ای سرور
+        NotificationService.getInstance().unsubscribeFromServerEvents();
+        NotificationController.unsubscribeFromServerEvents();
+        OrderHistoryController.unsubscribeFromOrderEvents();
+        
         // فراخوانی API خروج (token ها را پاک می‌کند)
         HttpClientUtil.logout();
         
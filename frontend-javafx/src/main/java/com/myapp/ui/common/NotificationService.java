@@ -1,5 +1,6 @@
 package com.myapp.ui.common;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -17,6 +18,7 @@ import javafx.util.Duration;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * سرویس مدیریت اعلان‌ها و پیام‌های سیستم
@@ -46,6 +48,11 @@ public class NotificationService {
     /** Stage اصلی برنامه برای محاسبه موقعیت */
     private Stage primaryStage;
     
+    /** listener های رویدادهای سرور (برای لغو اشتراک) */
+    private final Consumer<JsonNode> notificationListener = this::onServerNotification;
+    private final Consumer<JsonNode> orderStatusListener = this::onOrderStatusChanged;
+    private final Consumer<JsonNode> deliveryStatusListener = this::onOrderStatusChanged;
+    
     /**
      * سازنده private برای پیاده‌سازی Singleton
      */
@@ -283,6 +290,79 @@ public class NotificationService {
             "این عمل قابل بازگشت نیست.");
     }
     
+    // ==================== SERVER EVENTS ====================
+    
+    /**
+     * اشتراک روی رویدادهای لحظه‌ای سرور (SSE) بعد از ورود کاربر
+     * 
+     * اعلان‌های جدید و تغییر وضعیت سفارش/تحویل به صورت Toast نمایش داده
+     * می‌شوند؛ نیازی به polling دوره‌ای API اعلان‌ها نیست.
+     */
+    public void subscribeToServerEvents() {
+        EventStreamClient events = EventStreamClient.getInstance();
+        events.removeListener("notification", notificationListener);
+        events.removeListener("order-status", orderStatusListener);
+        events.removeListener("delivery-status", deliveryStatusListener);
+        events.addListener("notification", notificationListener);
+        events.addListener("order-status", orderStatusListener);
+        events.addListener("delivery-status", deliveryStatusListener);
+        events.start();
+    }
+    
+    /**
+     * لغو اشتراک رویدادهای سرور (هنگام خروج از حساب)
+     */
+    public void unsubscribeFromServerEvents() {
+        EventStreamClient events = EventStreamClient.getInstance();
+        events.removeListener("notification", notificationListener);
+        events.removeListener("order-status", orderStatusListener);
+        events.removeListener("delivery-status", deliveryStatusListener);
+        events.stop();
+    }
+    
+    /**
+     * نمایش اعلان جدید دریافت شده از سرور
+     */
+    private void onServerNotification(JsonNode data) {
+        String title = data.path("title").asText("");
+        String message = data.path("message").asText("");
+        String text = title.isEmpty() ? message : title + ": " + message;
+        String priority = data.path("priority").asText("");
+        if ("HIGH".equals(priority) || "URGENT".equals(priority)) {
+            showWarning(text);
+        } else {
+            showInfo(text);
+        }
+    }
+    
+    /**
+     * نمایش تغییر وضعیت سفارش یا تحویل
+     */
+    private void onOrderStatusChanged(JsonNode data) {
+        showInfo("سفارش #" + data.path("orderId").asText() + ": " + describeOrderStatus(data.path("status").asText()));
+    }
+    
+    /**
+     * متن فارسی وضعیت سفارش/تحویل ارسالی سرور
+     * 
+     * @param status نام وضعیت (مثلاً OUT_FOR_DELIVERY)
+     * @return متن قابل نمایش
+     */
+    public static String describeOrderStatus(String status) {
+        switch (status) {
+            case "PENDING": return "در انتظار تأیید";
+            case "CONFIRMED":
+            case "PREPARING": return "در حال آماده‌سازی";
+            case "READY": return "آماده ارسال";
+            case "ASSIGNED":
+            case "PICKED_UP":
+            case "OUT_FOR_DELIVERY": return "در حال ارسال";
+            case "DELIVERED": return "تحویل داده شده";
+            case "CANCELLED": return "لغو شده";
+            default: return status;
+        }
+    }
+    
     // ==================== UTILITY METHODS ====================
     
     /**
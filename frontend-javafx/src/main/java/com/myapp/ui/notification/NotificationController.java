@@ -1,5 +1,7 @@
 package com.myapp.ui.notification;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myapp.ui.common.EventStreamClient;
 import com.myapp.ui.common.NavigationController;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -14,14 +16,12 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.util.Duration;
-import javafx.animation.Timeline;
-import javafx.animation.KeyFrame;
 
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * کنترلر سیستم اطلاع‌رسانی و هشدارها
@@ -84,8 +84,19 @@ public class NotificationController implements Initializable {
     /** فرمت کردن تاریخ و زمان فارسی */
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
     
-    /** Timeline برای بروزرسانی خودکار */
-    private Timeline autoRefreshTimeline;
+    /** listener اعلان‌های جدید سرور (به جای polling دوره‌ای) */
+    private final Consumer<JsonNode> serverNotificationListener = this::onServerNotification;
+    
+    /** listener درخواست بارگذاری مجدد بعد از قطع طولانی اتصال */
+    private final Consumer<JsonNode> resyncListener = data -> Platform.runLater(this::refreshNotifications);
+    
+    /**
+     * نمونه‌ای که listener هایش روی EventStreamClient (singleton) ثبت است
+     * 
+     * صفحه بعد از پاک شدن cache صفحات (مثلاً خروج و ورود دوباره) با کنترلر
+     * جدید ساخته می‌شود؛ listener های نمونه قبلی باید حذف شوند.
+     */
+    private static NotificationController subscribed;
     
     /** لیست اطلاع‌رسانی‌ها */
     private ObservableList<NotificationItem> notifications;
@@ -110,7 +121,7 @@ public class NotificationController implements Initializable {
         this.navigationController = NavigationController.getInstance();
         setupUI();
         loadNotificationSettings();
-        setupAutoRefresh();
+        subscribeToServerEvents();
         loadNotifications();
         
         notifications = FXCollections.observableArrayList();
@@ -185,14 +196,83 @@ public class NotificationController implements Initializable {
     }
 
     /**
-     * راه‌اندازی بروزرسانی خودکار اطلاع‌رسانی‌ها
+     * دریافت لحظه‌ای اطلاع‌رسانی‌های جدید از سرور (SSE)
+     * 
+     * جایگزین بروزرسانی دوره‌ای هر ۳۰ ثانیه: اعلان جدید همان لحظه به لیست
+     * اضافه می‌شود و فقط بعد از رویداد resync کل لیست دوباره بارگذاری می‌شود.
+     */
+    private void subscribeToServerEvents() {
+        EventStreamClient events = EventStreamClient.getInstance();
+        synchronized (NotificationController.class) {
+            if (subscribed != null) {
+                subscribed.removeServerListeners(events);
+            }
+            events.addListener("notification", serverNotificationListener);
+            events.addListener("resync", resyncListener);
+            subscribed = this;
+        }
+        events.start();
+    }
+    
+    /**
+     * لغو اشتراک رویدادهای سرور صفحه اعلان‌ها (هنگام خروج از حساب)
+     */
+    public static void unsubscribeFromServerEvents() {
+        synchronized (NotificationController.class) {
+            if (subscribed != null) {
+                subscribed.removeServerListeners(EventStreamClient.getInstance());
+                subscribed = null;
+            }
+        }
+    }
+    
+    private void removeServerListeners(EventStreamClient events) {
+        events.removeListener("notification", serverNotificationListener);
+        events.removeListener("resync", resyncListener);
+    }
+
+    /**
+     * افزودن اعلان دریافت شده از سرور به لیست
      */
-    private void setupAutoRefresh() {
-        autoRefreshTimeline = new Timeline(
-            new KeyFrame(Duration.seconds(30), e -> refreshNotifications())
+    private void onServerNotification(JsonNode data) {
+        NotificationItem item = new NotificationItem(
+            data.path("title").asText(""),
+            data.path("message").asText(""),
+            toNotificationType(data.path("type").asText("")),
+            toNotificationPriority(data.path("priority").asText("")),
+            LocalDateTime.now(),
+            false
         );
-        autoRefreshTimeline.setCycleCount(Timeline.INDEFINITE);
-        autoRefreshTimeline.play();
+        Platform.runLater(() -> {
+            notifications.add(item);
+            displayNotifications();
+            updateUnreadCount();
+            updateLastUpdateTime();
+        });
+    }
+
+    private static NotificationType toNotificationType(String serverType) {
+        if (serverType.startsWith("ORDER_") || serverType.startsWith("DELIVERY_")) {
+            return NotificationType.ORDER_UPDATE;
+        }
+        switch (serverType) {
+            case "PAYMENT_UPDATE": return NotificationType.PAYMENT;
+            case "PROMOTIONAL":
+            case "PROMOTION": return NotificationType.PROMOTION;
+            case "RESTAURANT_APPROVED":
+            case "RESTAURANT_UPDATE": return NotificationType.NEW_RESTAURANT;
+            case "REMINDER": return NotificationType.REMINDER;
+            default: return NotificationType.SYSTEM;
+        }
+    }
+
+    private static NotificationPriority toNotificationPriority(String serverPriority) {
+        switch (serverPriority) {
+            case "LOW": return NotificationPriority.LOW;
+            case "HIGH": return NotificationPriority.HIGH;
+            case "URGENT": return NotificationPriority.CRITICAL;
+            default: return NotificationPriority.MEDIUM;
+        }
     }
 
     /**
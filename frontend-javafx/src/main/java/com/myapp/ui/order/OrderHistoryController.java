@@ -1,6 +1,9 @@
 package com.myapp.ui.order;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.myapp.ui.common.EventStreamClient;
 import com.myapp.ui.common.NavigationController;
+import com.myapp.ui.common.NotificationService;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
@@ -17,6 +20,7 @@ import java.text.NumberFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -90,12 +94,77 @@ public class OrderHistoryController implements Initializable {
     private List<OrderHistory> filteredOrders = new ArrayList<>();
     private OrderHistory selectedOrder = null;
 
+    // Live order updates from the server (instead of polling)
+    private final Consumer<JsonNode> orderStatusListener = data -> Platform.runLater(() -> applyStatusEvent(data));
+    private final Consumer<JsonNode> resyncListener = data -> Platform.runLater(this::loadOrderHistory);
+
+    // The controller whose listeners are registered on the shared EventStreamClient;
+    // the page is rebuilt with a new controller after the scene cache is cleared (logout/login)
+    private static OrderHistoryController subscribed;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         this.navigationController = NavigationController.getInstance();
         
         setupUI();
         loadOrderHistory();
+        subscribeToOrderEvents();
+    }
+
+    /**
+     * Subscribe to live order/delivery status events (SSE)
+     */
+    private void subscribeToOrderEvents() {
+        EventStreamClient events = EventStreamClient.getInstance();
+        synchronized (OrderHistoryController.class) {
+            if (subscribed != null) {
+                subscribed.removeOrderListeners(events);
+            }
+            events.addListener("order-status", orderStatusListener);
+            events.addListener("delivery-status", orderStatusListener);
+            events.addListener("resync", resyncListener);
+            subscribed = this;
+        }
+        events.start();
+    }
+
+    /**
+     * Unsubscribe the order history page from live order events (on logout)
+     */
+    public static void unsubscribeFromOrderEvents() {
+        synchronized (OrderHistoryController.class) {
+            if (subscribed != null) {
+                subscribed.removeOrderListeners(EventStreamClient.getInstance());
+                subscribed = null;
+            }
+        }
+    }
+
+    private void removeOrderListeners(EventStreamClient events) {
+        events.removeListener("order-status", orderStatusListener);
+        events.removeListener("delivery-status", orderStatusListener);
+        events.removeListener("resync", resyncListener);
+    }
+
+    /**
+     * Apply a status event to the matching order, or reload when the order is not listed yet
+     */
+    private void applyStatusEvent(JsonNode data) {
+        String orderId = data.path("orderId").asText();
+        String status = NotificationService.describeOrderStatus(data.path("status").asText());
+        Optional<OrderHistory> match = allOrders.stream()
+            .filter(order -> order.getOrderNumber().replaceAll("\\D", "").equals(orderId))
+            .findFirst();
+        if (match.isEmpty()) {
+            loadOrderHistory();
+            return;
+        }
+        match.get().setStatus(status);
+        applyFilters();
+        if (selectedOrder == match.get()) {
+            displayOrderDetails(selectedOrder);
+        }
+        setStatus("وضعیت سفارش " + match.get().getOrderNumber() + " به‌روز شد");
     }
 
     /**
@@ -30,7 +30,7 @@ $LogFile = "logs\migration-$Environment-$TimeStamp.log"
 
 # Migration Configuration
 $MigrationConfig = @{
-    migrationsPath = "database\migrations"
+    migrationsPath = "backend\src\main\resources\db\migrations\sqlite"
     seedsPath = "database\seeds"
     backupsPath = "database\backups"
     schemaTable = "schema_migrations"